@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.remoting.transport.jgroups.JGroupsTransport;
+import org.infinispan.statetransfer.StateTransferManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A group of cache managers running in the benchmark JVM. Clustered nodes talk to each other over the
+ * {@code SHARED_LOOPBACK} JGroups transport, so several benchmark forks can run side by side without interfering.
+ *
+ * @since 5.3
+ */
+final class BenchmarkCluster {
+
+   static final String JGROUPS_CONFIGURATION = "jgroups-shared-loopback.xml";
+
+   private static final long STARTUP_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+   private static final AtomicInteger clusterCounter = new AtomicInteger();
+
+   private final List<EmbeddedCacheManager> managers;
+
+   private BenchmarkCluster(List<EmbeddedCacheManager> managers) {
+      this.managers = managers;
+   }
+
+   /**
+    * Starts {@code numNodes} cache managers sharing the given default cache configuration and waits until the
+    * default cache of every node is part of the cluster and has received its state. A single node with a local cache
+    * mode is started without a transport.
+    */
+   static BenchmarkCluster start(int numNodes, Configuration defaultCache) {
+      boolean clustered = defaultCache.clustering().cacheMode().isClustered();
+      String clusterName = "benchmark-" + clusterCounter.incrementAndGet();
+      List<EmbeddedCacheManager> managers = new ArrayList<EmbeddedCacheManager>(numNodes);
+      for (int i = 0; i < numNodes; i++) {
+         GlobalConfigurationBuilder global = clustered ?
+               GlobalConfigurationBuilder.defaultClusteredBuilder() : new GlobalConfigurationBuilder();
+         global.globalJmxStatistics().allowDuplicateDomains(true);
+         if (clustered) {
+            global.transport().clusterName(clusterName).nodeName(clusterName + "-" + i)
+                  .addProperty(JGroupsTransport.CONFIGURATION_FILE, JGROUPS_CONFIGURATION);
+         }
+         managers.add(new DefaultCacheManager(global.build(), defaultCache));
+      }
+      BenchmarkCluster cluster = new BenchmarkCluster(managers);
+      for (EmbeddedCacheManager manager : managers)
+         manager.getCache();
+      if (clustered)
+         cluster.waitForRehash();
+      return cluster;
+   }
+
+   <K, V> Cache<K, V> cache(int node) {
+      return managers.get(node).getCache();
+   }
+
+   EmbeddedCacheManager manager(int node) {
+      return managers.get(node);
+   }
+
+   void stop() {
+      for (int i = managers.size() - 1; i >= 0; i--)
+         managers.get(i).stop();
+      managers.clear();
+   }
+
+   private void waitForRehash() {
+      long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+      for (EmbeddedCacheManager manager : managers) {
+         StateTransferManager stateTransferManager = manager.getCache().getAdvancedCache().getComponentRegistry()
+               .getComponent(StateTransferManager.class);
+         while (stateTransferManager.isStateTransferInProgress()
+               || stateTransferManager.getCacheTopology().getMembers().size() != managers.size()) {
+            if (System.currentTimeMillis() > deadline)
+               throw new IllegalStateException("Timed out waiting for " + managers.size() + " nodes to join the cluster");
+            try {
+               Thread.sleep(100);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new IllegalStateException(e);
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.benchmarks;
+
+import org.infinispan.util.AnyEquivalence;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BoundedConcurrentHashMap} reads and writes under each eviction policy. Keys are drawn from a key
+ * space {@code keySpaceFactor} times larger than the capacity, so reads miss once in a while and writes keep the
+ * policy evicting. Run with {@code -t <threads>} to measure contention on the segments.
+ *
+ * @since 5.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BoundedConcurrentHashMapBenchmark {
+
+   @Param({"NONE", "LRU", "LIRS", "TINYLFU"})
+   public String eviction;
+
+   @Param("8192")
+   public int capacity;
+
+   @Param("2")
+   public int keySpaceFactor;
+
+   @Param("32")
+   public int concurrencyLevel;
+
+   private BoundedConcurrentHashMap<Integer, Integer> map;
+   private Integer[] keys;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      map = new BoundedConcurrentHashMap<Integer, Integer>(capacity, concurrencyLevel, Eviction.valueOf(eviction),
+            AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<Integer>getInstance());
+      keys = new Integer[capacity * keySpaceFactor];
+      for (int i = 0; i < keys.length; i++)
+         keys[i] = i;
+      for (int i = 0; i < capacity; i++)
+         map.put(keys[i], keys[i]);
+   }
+
+   @Benchmark
+   public Integer get(KeySequence sequence) {
+      return map.get(keys[sequence.next(keys.length)]);
+   }
+
+   @Benchmark
+   public Integer put(KeySequence sequence) {
+      Integer key = keys[sequence.next(keys.length)];
+      return map.put(key, key);
+   }
+
+   /**
+    * A read-through cache access: reads the key and only writes it on a miss.
+    */
+   @Benchmark
+   public Integer getOrPut(KeySequence sequence) {
+      Integer key = keys[sequence.next(keys.length)];
+      Integer value = map.get(key);
+      if (value == null) {
+         map.putIfAbsent(key, key);
+         value = key;
+      }
+      return value;
+   }
+}
@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Cache#get(Object)} and {@link Cache#put(Object, Object)} through the whole interceptor chain, on a
+ * local cache and on replicated and distributed caches whose nodes run in the benchmark JVM.
+ *
+ * @since 5.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CacheOperationsBenchmark {
+
+   /**
+    * {@code LOCAL}, {@code REPL_SYNC} or {@code DIST_SYNC}, see {@link CacheMode}.
+    */
+   @Param({"LOCAL", "REPL_SYNC", "DIST_SYNC"})
+   public String cacheMode;
+
+   @Param("1024")
+   public int numKeys;
+
+   @Param("100")
+   public int valueSize;
+
+   private BenchmarkCluster cluster;
+   private Cache<String, byte[]> cache;
+   private String[] keys;
+   private byte[] value;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      CacheMode mode = CacheMode.valueOf(cacheMode);
+      int numNodes = 1;
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(mode);
+      if (mode.isReplicated()) {
+         numNodes = 2;
+      } else if (mode.isDistributed()) {
+         numNodes = 3;
+         builder.clustering().hash().numOwners(2);
+      }
+      cluster = BenchmarkCluster.start(numNodes, builder.build());
+      cache = cluster.cache(0);
+
+      keys = new String[numKeys];
+      value = new byte[valueSize];
+      for (int i = 0; i < numKeys; i++) {
+         keys[i] = "key" + i;
+         cache.put(keys[i], value);
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      cluster.stop();
+   }
+
+   @Benchmark
+   public byte[] get(KeySequence sequence) {
+      return cache.get(keys[sequence.next(numKeys)]);
+   }
+
+   @Benchmark
+   public byte[] put(KeySequence sequence) {
+      return cache.put(keys[sequence.next(numKeys)], value);
+   }
+}
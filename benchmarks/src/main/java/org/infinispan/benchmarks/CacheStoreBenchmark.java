@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.benchmarks;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.jdbc.DatabaseType;
+import org.infinispan.loaders.jdbc.configuration.JdbcStringBasedCacheStoreConfigurationBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CacheStore#store(InternalCacheEntry)} and {@link CacheStore#load(Object)} on the
+ * {@link org.infinispan.loaders.file.FileCacheStore} and on the
+ * {@link org.infinispan.loaders.jdbc.stringbased.JdbcStringBasedCacheStore} backed by an in-memory H2 database. The
+ * stores are called directly, bypassing the cache, so that only the store itself is measured.
+ *
+ * @since 5.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CacheStoreBenchmark {
+
+   /**
+    * {@code FILE} or {@code JDBC_STRING}.
+    */
+   @Param({"FILE", "JDBC_STRING"})
+   public String store;
+
+   @Param("1024")
+   public int numKeys;
+
+   @Param("100")
+   public int valueSize;
+
+   private File location;
+   private BenchmarkCluster cluster;
+   private CacheStore cacheStore;
+   private String[] keys;
+   private InternalCacheEntry[] entries;
+
+   @Setup(Level.Trial)
+   public void setUp() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      if (store.equals("FILE")) {
+         location = createTempDirectory();
+         builder.loaders().addFileCacheStore().location(location.getAbsolutePath());
+      } else if (store.equals("JDBC_STRING")) {
+         JdbcStringBasedCacheStoreConfigurationBuilder jdbc =
+               builder.loaders().addStore(JdbcStringBasedCacheStoreConfigurationBuilder.class);
+         jdbc.connectionPool()
+               .connectionUrl("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1")
+               .driverClass(org.h2.Driver.class)
+               .username("sa");
+         jdbc.table()
+               .databaseType(DatabaseType.H2)
+               .tableNamePrefix("ISPN_BENCH")
+               .idColumnName("ID_COLUMN").idColumnType("VARCHAR(255)")
+               .dataColumnName("DATA_COLUMN").dataColumnType("BINARY")
+               .timestampColumnName("TIMESTAMP_COLUMN").timestampColumnType("BIGINT")
+               .dropOnExit(true);
+      } else {
+         throw new IllegalArgumentException("Unknown store " + store);
+      }
+      cluster = BenchmarkCluster.start(1, builder.build());
+      cacheStore = cluster.cache(0).getAdvancedCache().getComponentRegistry()
+            .getComponent(CacheLoaderManager.class).getCacheStore();
+
+      keys = new String[numKeys];
+      entries = new InternalCacheEntry[numKeys];
+      for (int i = 0; i < numKeys; i++) {
+         keys[i] = "key" + i;
+         entries[i] = new ImmortalCacheEntry(keys[i], new byte[valueSize]);
+         cacheStore.store(entries[i]);
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      cluster.stop();
+      if (location != null)
+         delete(location);
+   }
+
+   @Benchmark
+   public InternalCacheEntry load(KeySequence sequence) throws Exception {
+      return cacheStore.load(keys[sequence.next(numKeys)]);
+   }
+
+   @Benchmark
+   public void store(KeySequence sequence) throws Exception {
+      cacheStore.store(entries[sequence.next(numKeys)]);
+   }
+
+   private static File createTempDirectory() throws IOException {
+      File directory = File.createTempFile("infinispan-benchmark", "");
+      if (!directory.delete() || !directory.mkdir())
+         throw new IOException("Cannot create directory " + directory);
+      return directory;
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children)
+            delete(child);
+      }
+      file.delete();
+   }
+}
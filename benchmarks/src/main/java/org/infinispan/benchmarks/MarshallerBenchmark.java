@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures marshalling and unmarshalling of the commands most often sent between nodes. The {@code GLOBAL} marshaller
+ * is the {@link org.infinispan.marshall.GlobalMarshaller} used by the transport, the {@code CACHE} marshaller is the
+ * cache scoped one; both delegate to {@link org.infinispan.marshall.jboss.JBossMarshaller}.
+ *
+ * @since 5.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MarshallerBenchmark {
+
+   public enum Command {
+      PUT, GET, REMOVE, SINGLE_RPC_PUT, REPLICATE_PUTS
+   }
+
+   @Param({"GLOBAL", "CACHE"})
+   public String marshaller;
+
+   /**
+    * One of {@link Command}.
+    */
+   @Param({"PUT", "GET", "REMOVE", "SINGLE_RPC_PUT", "REPLICATE_PUTS"})
+   public String command;
+
+   @Param("100")
+   public int valueSize;
+
+   private BenchmarkCluster cluster;
+   private StreamingMarshaller streamingMarshaller;
+   private ReplicableCommand replicableCommand;
+   private byte[] bytes;
+
+   @Setup(Level.Trial)
+   public void setUp() throws Exception {
+      cluster = BenchmarkCluster.start(1, new ConfigurationBuilder().build());
+      Cache<Object, Object> cache = cluster.cache(0);
+      ComponentRegistry registry = cache.getAdvancedCache().getComponentRegistry();
+      if (marshaller.equals("GLOBAL")) {
+         streamingMarshaller = registry.getGlobalComponentRegistry().getComponent(
+               StreamingMarshaller.class, KnownComponentNames.GLOBAL_MARSHALLER);
+      } else {
+         streamingMarshaller = registry.getComponent(StreamingMarshaller.class, KnownComponentNames.CACHE_MARSHALLER);
+      }
+
+      CommandsFactory commandsFactory = registry.getComponent(CommandsFactory.class);
+      replicableCommand = buildCommand(commandsFactory, Command.valueOf(command));
+      bytes = streamingMarshaller.objectToByteBuffer(replicableCommand);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      cluster.stop();
+   }
+
+   @Benchmark
+   public byte[] marshall() throws Exception {
+      return streamingMarshaller.objectToByteBuffer(replicableCommand);
+   }
+
+   @Benchmark
+   public Object unmarshall() throws Exception {
+      return streamingMarshaller.objectFromByteBuffer(bytes);
+   }
+
+   @Benchmark
+   public Object roundTrip() throws Exception {
+      return streamingMarshaller.objectFromByteBuffer(streamingMarshaller.objectToByteBuffer(replicableCommand));
+   }
+
+   private ReplicableCommand buildCommand(CommandsFactory commandsFactory, Command type) {
+      Metadata metadata = new EmbeddedMetadata.Builder().lifespan(60, TimeUnit.SECONDS).build();
+      switch (type) {
+         case PUT:
+            return commandsFactory.buildPutKeyValueCommand("key", new byte[valueSize], metadata, null);
+         case GET:
+            return commandsFactory.buildGetKeyValueCommand("key", null, false);
+         case REMOVE:
+            return commandsFactory.buildRemoveCommand("key", null, null);
+         case SINGLE_RPC_PUT:
+            return commandsFactory.buildSingleRpcCommand(
+                  commandsFactory.buildPutKeyValueCommand("key", new byte[valueSize], metadata, null));
+         case REPLICATE_PUTS:
+            List<ReplicableCommand> puts = new ArrayList<ReplicableCommand>();
+            for (int i = 0; i < 10; i++)
+               puts.add(commandsFactory.buildPutKeyValueCommand("key" + i, new byte[valueSize], metadata, null));
+            return commandsFactory.buildReplicateCommand(puts);
+         default:
+            throw new IllegalArgumentException("Unknown command " + type);
+      }
+   }
+}
@@ -24,6 +24,7 @@
 
 import com.sleepycat.bind.serial.StoredClassCatalog;
 import com.sleepycat.collections.CurrentTransaction;
+import com.sleepycat.collections.StoredIterator;
 import com.sleepycat.collections.StoredMap;
 import com.sleepycat.collections.StoredSortedMap;
 import com.sleepycat.je.Cursor;
@@ -39,9 +40,12 @@
 import org.infinispan.Cache;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.AbstractCacheStore;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.bdbje.logging.Log;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.marshall.StreamingMarshaller;
@@ -496,6 +500,42 @@ public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderExce
       }
    }
 
+   /**
+    * {@inheritDoc} This implementation walks a cursor over the keys of the {@link StoredMap}, and only reads the
+    * entries of the keys accepted by the filter.  The cursor is released when the iterator is closed.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(final KeyFilter filter) throws CacheLoaderException {
+      final Iterator<Object> keys;
+      try {
+         keys = cacheMap.keySet().iterator();
+      } catch (RuntimeException caught) {
+         throw convertToCacheLoaderException("error iterating over entries", caught);
+      }
+      return new AbstractStoredEntryIterator() {
+         @Override
+         protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+            try {
+               while (keys.hasNext()) {
+                  Object key = keys.next();
+                  if (filter.accept(key)) {
+                     InternalCacheEntry entry = cacheMap.get(key);
+                     if (entry != null && !entry.isExpired(timeService.wallClockTime())) return entry;
+                  }
+               }
+               return null;
+            } catch (RuntimeException caught) {
+               throw convertToCacheLoaderException("error iterating over entries", caught);
+            }
+         }
+
+         @Override
+         public void close() {
+            StoredIterator.close(keys);
+         }
+      };
+   }
+
    /**
     * {@inheritDoc} This implementation reads the number of entries to load from the stream, then begins a transaction.
     * During that transaction, the cachestore is cleared and replaced with entries from the stream.  If there are any
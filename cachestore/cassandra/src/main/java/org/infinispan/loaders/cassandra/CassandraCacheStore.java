@@ -28,6 +28,7 @@
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -398,6 +399,29 @@ public boolean remove(Object key) throws CacheLoaderException {
       }
    }
 
+   /**
+    * Removes all the keys with a single batch mutation. Unlike {@link #remove(Object)}, this does not check whether
+    * the keys exist.
+    */
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      if (trace)
+         log.tracef("removeAll(%d keys) ", keys.size());
+      Cassandra.Client cassandraClient = null;
+      try {
+         cassandraClient = dataSource.getConnection();
+         Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+         for (Object key : keys) {
+            remove0(ByteBufferUtil.bytes(hashKey(key)), mutationMap);
+         }
+         cassandraClient.batch_mutate(mutationMap, writeConsistencyLevel);
+      } catch (Exception e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         dataSource.releaseConnection(cassandraClient);
+      }
+   }
+
    private void remove0(ByteBuffer key, Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap) {
       addMutation(mutationMap, key, config.entryColumnFamily, null, null);
    }
@@ -432,6 +456,28 @@ public void store(InternalCacheEntry entry) throws CacheLoaderException {
       }
    }
 
+   /**
+    * Stores all the entries, and their expiration markers, with a single batch mutation.
+    */
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      Cassandra.Client cassandraClient = null;
+
+      try {
+         cassandraClient = dataSource.getConnection();
+         Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+         for (InternalCacheEntry entry : entries) {
+            store0(entry, mutationMap);
+         }
+
+         cassandraClient.batch_mutate(mutationMap, writeConsistencyLevel);
+      } catch (Exception e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         dataSource.releaseConnection(cassandraClient);
+      }
+   }
+
    private void store0(InternalCacheEntry entry,
             Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap) throws IOException,
             UnsupportedKeyTypeException {
@@ -25,6 +25,7 @@
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -157,6 +158,49 @@ public void start() throws CacheLoaderException {
       super.start();
    }
 
+   /**
+    * Stores the entries into the cache with a single batch of puts. Rows of the expiration table are
+    * keyed by the time they are written at, so they are still added one by one as in
+    * {@link #store(InternalCacheEntry)}, otherwise the rows of a batch would overwrite each other.
+    *
+    * @param entries
+    *           the objects to store in the cache
+    */
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      log.debugf("In HBaseCacheStore.storeAll for %s: %s entries", this.entryTable, entries.size());
+
+      try {
+         Map<String, Map<String, Map<String, byte[]>>> rows = new HashMap<String, Map<String, Map<String, byte[]>>>();
+         for (InternalCacheEntry entry : entries) {
+            Map<String, byte[]> valMap = Collections.singletonMap(entryValueField, marshall(entry));
+            rows.put(hashKey(this.entryKeyPrefix, entry.getKey()),
+                     Collections.singletonMap(entryColumnFamily, valMap));
+         }
+         hbf.addRows(this.entryTable, rows);
+
+         // Add rows to the expiration table if necessary
+         for (InternalCacheEntry entry : entries) {
+            if (entry.canExpire()) {
+               Map<String, byte[]> expValMap = Collections.singletonMap(expirationValueField,
+                        Bytes.toBytes(hashKey(this.entryKeyPrefix, entry.getKey())));
+               Map<String, Map<String, byte[]>> expCfMap = Collections.singletonMap(
+                        expirationColumnFamily, expValMap);
+
+               String expKey = "ts_" + String.valueOf(timeService.wallClockTime());
+               String hashedExpKey = hashKey(this.expirationKeyPrefix, expKey);
+               hbf.addRow(this.expirationTable, hashedExpKey, expCfMap);
+            }
+         }
+      } catch (HBaseException ex) {
+         log.error("HadoopException storing entries: " + ex.getMessage());
+         throw new CacheLoaderException(ex);
+      } catch (Exception ex2) {
+         log.error("Exception storing entries: " + ex2.getMessage());
+         throw new CacheLoaderException(ex2);
+      }
+   }
+
    /**
     * Stores an entry into the cache. If this entry can expire, it also adds a row to the expiration
     * table so we can purge it later on after it has expired.
@@ -302,6 +346,26 @@ public boolean remove(Object key) throws CacheLoaderException {
       }
    }
 
+   /**
+    * Removes the rows of all the keys with a single batch of deletes.
+    */
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      log.debugf("In HBaseCacheStore.removeAll for %s keys", keys.size());
+
+      Set<Object> hashedKeys = new HashSet<Object>(keys.size());
+      for (Object key : keys) {
+         hashedKeys.add(hashKey(this.entryKeyPrefix, key));
+      }
+      try {
+         hbf.removeRows(this.entryTable, hashedKeys);
+      } catch (HBaseException ex) {
+         log.error("HadoopException removing objects from the cache: " + ex.getMessage(), ex);
+         throw new CacheLoaderException("HadoopException removing objects from the cache: "
+                  + ex.getMessage(), ex);
+      }
+   }
+
    /**
     * Loads an entry from the cache, given its key.
     *
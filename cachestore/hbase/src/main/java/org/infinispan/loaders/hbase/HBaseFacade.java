@@ -254,6 +254,55 @@ public void addRow(String tableName, String key, Map<String, Map<String, byte[]>
       }
    }
 
+   /**
+    * Adds several rows to a HBase table with a single batch of puts.
+    *
+    * @param tableName
+    *           the table to add to
+    * @param rows
+    *           the rows to add, keyed by their unique row key. Each value is a map whose keys are
+    *           column family name and values are maps that contain the fields and values to add into
+    *           that column family.
+    * @throws HBaseException
+    */
+   public void addRows(String tableName, Map<String, Map<String, Map<String, byte[]>>> rows)
+            throws HBaseException {
+      if (tableName == null || "".equals(tableName)) {
+         throw new HBaseException("Table name must not be empty.");
+      }
+      if (isEmpty(rows)) {
+         throw new IllegalArgumentException("rows cannot be null or empty.");
+      }
+
+      log.debugf("Writing %s rows to table %s.", rows.size(), tableName);
+
+      HTable table = null;
+      try {
+         table = new HTable(CONFIG, tableName);
+         List<Put> puts = new ArrayList<Put>(rows.size());
+         for (Entry<String, Map<String, Map<String, byte[]>>> row : rows.entrySet()) {
+            Put p = new Put(Bytes.toBytes(row.getKey()));
+            for (Entry<String, Map<String, byte[]>> columFamilyEntry : row.getValue().entrySet()) {
+               String cfName = columFamilyEntry.getKey();
+               for (Entry<String, byte[]> dataCellEntry : columFamilyEntry.getValue().entrySet()) {
+                  p.add(Bytes.toBytes(cfName), Bytes.toBytes(dataCellEntry.getKey()),
+                           Bytes.toBytes(ByteBuffer.wrap(dataCellEntry.getValue())));
+               }
+            }
+            puts.add(p);
+         }
+         table.put(puts);
+      } catch (IOException ex) {
+         throw new HBaseException("Exception happened while " + "writing rows to HBase.", ex);
+      } finally {
+         try {
+            table.close();
+         } catch (Exception ex) {
+            // do nothing
+         }
+      }
+   }
+
    /**
     * Reads the values in a row from a table.
     *
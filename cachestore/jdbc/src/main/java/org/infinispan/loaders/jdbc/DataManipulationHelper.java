@@ -31,10 +31,14 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
 import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.loaders.jdbc.logging.Log;
@@ -201,6 +205,88 @@ public final Set<InternalCacheEntry> loadAllSupport(boolean filterExpired) throw
       }
    }
 
+   /**
+    * Streams the rows of the table, unmarshalling them as the iteration proceeds.  Rows rejected by
+    * {@link #includeRow(ResultSet, KeyFilter)} are not unmarshalled at all.  The connection is held until the iterator
+    * is closed.
+    */
+   public final StoredEntryIterator entryIteratorSupport(final KeyFilter filter, boolean filterExpired) throws CacheLoaderException {
+      Connection conn = null;
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      try {
+         String sql = filterExpired ? tableManipulation.getLoadNonExpiredAllRowsSql() : tableManipulation.getLoadAllRowsSql();
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql %s", sql);
+         }
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(sql);
+         if (filterExpired) {
+            ps.setLong(1, timeService.wallClockTime());
+         }
+         rs = ps.executeQuery();
+         rs.setFetchSize(tableManipulation.getFetchSize());
+         return new ResultSetEntryIterator(conn, ps, rs, filter);
+      } catch (SQLException e) {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+         log.sqlFailureFetchingAllStoredEntries(e);
+         throw new CacheLoaderException("SQL error while fetching all StoredEntries", e);
+      }
+   }
+
+   private class ResultSetEntryIterator extends AbstractStoredEntryIterator {
+      private final Connection conn;
+      private final PreparedStatement ps;
+      private final ResultSet rs;
+      private final KeyFilter filter;
+      private final Set<InternalCacheEntry> rowEntries = new HashSet<InternalCacheEntry>();
+      private Iterator<InternalCacheEntry> pending;
+      private boolean closed;
+
+      ResultSetEntryIterator(Connection conn, PreparedStatement ps, ResultSet rs, KeyFilter filter) {
+         this.conn = conn;
+         this.ps = ps;
+         this.rs = rs;
+         this.filter = filter;
+      }
+
+      @Override
+      protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+         try {
+            while (true) {
+               if (pending != null) {
+                  while (pending.hasNext()) {
+                     InternalCacheEntry entry = pending.next();
+                     if (filter.accept(entry.getKey())) return entry;
+                  }
+                  pending = null;
+               }
+               if (closed || !rs.next()) return null;
+               if (includeRow(rs, filter)) {
+                  rowEntries.clear();
+                  loadAllProcess(rs, rowEntries);
+                  pending = rowEntries.iterator();
+               }
+            }
+         } catch (SQLException e) {
+            log.sqlFailureFetchingAllStoredEntries(e);
+            throw new CacheLoaderException("SQL error while fetching all StoredEntries", e);
+         }
+      }
+
+      @Override
+      public void close() {
+         if (!closed) {
+            closed = true;
+            JdbcUtil.safeClose(rs);
+            JdbcUtil.safeClose(ps);
+            connectionFactory.releaseConnection(conn);
+         }
+      }
+   }
+
    public Set<Object> loadAllKeysSupport(Set<Object> keysToExclude) throws CacheLoaderException {
       Connection conn = null;
       PreparedStatement ps = null;
@@ -267,6 +353,14 @@ protected boolean includeKey(Object key, Set<Object> keysToExclude) {
       return keysToExclude == null || !keysToExclude.contains(key);
    }
 
+   /**
+    * Allows implementations to skip a row of {@link #entryIteratorSupport(KeyFilter, boolean)} based on its key
+    * before the value is unmarshalled.  Entries of the rows included are still checked against the filter.
+    */
+   protected boolean includeRow(ResultSet rs, KeyFilter filter) throws SQLException, CacheLoaderException {
+      return true;
+   }
+
    protected abstract String getLoadAllKeysSql();
 
    protected abstract void loadAllProcess(ResultSet rs, Set<InternalCacheEntry> result) throws SQLException, CacheLoaderException;
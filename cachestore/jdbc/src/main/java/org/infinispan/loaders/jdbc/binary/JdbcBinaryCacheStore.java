@@ -28,6 +28,8 @@
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.bucket.Bucket;
 import org.infinispan.loaders.bucket.BucketBasedCacheStore;
 import org.infinispan.loaders.jdbc.DataManipulationHelper;
@@ -312,6 +314,15 @@ protected Set<InternalCacheEntry> loadLockSafe(int maxEntries) throws CacheLoade
       return dmHelper.loadSome(maxEntries);
    }
 
+   /**
+    * {@inheritDoc} The buckets are streamed from the database and unmarshalled one at a time.  Keys are only known
+    * once a bucket is unmarshalled, so all the rows are read.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(KeyFilter filter) throws CacheLoaderException {
+      return dmHelper.entryIteratorSupport(filter, false);
+   }
+
    @Override
    protected void loopOverBuckets(BucketHandler handler) throws CacheLoaderException {
       // this is a no-op.
@@ -25,10 +25,13 @@
 import org.infinispan.Cache;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.AbstractCacheStore;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.jdbc.binary.JdbcBinaryCacheStore;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactoryConfig;
@@ -39,6 +42,10 @@
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -168,11 +175,59 @@ public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderExce
       return fromBuckets;
    }
 
+   /**
+    * {@inheritDoc} Each key is held by only one of the two stores, so this implementation iterates over the string
+    * based store, then over the binary store, holding a single database connection at a time.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(final KeyFilter filter) throws CacheLoaderException {
+      final StoredEntryIterator fromStrings = stringBasedCacheStore.entryIterator(filter);
+      return new AbstractStoredEntryIterator() {
+         private StoredEntryIterator current = fromStrings;
+         private boolean fromBuckets;
+
+         @Override
+         protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+            while (true) {
+               if (current.hasNext()) return current.next();
+               current.close();
+               if (fromBuckets) return null;
+               fromBuckets = true;
+               current = binaryCacheStore.entryIterator(filter);
+            }
+         }
+
+         @Override
+         public void close() {
+            current.close();
+         }
+      };
+   }
+
    @Override
    public void store(InternalCacheEntry ed) throws CacheLoaderException {
       getCacheStore(ed.getKey()).store(ed);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      List<InternalCacheEntry> stringEntries = new ArrayList<InternalCacheEntry>();
+      List<InternalCacheEntry> binaryEntries = new ArrayList<InternalCacheEntry>();
+      for (InternalCacheEntry ed : entries) {
+         if (getCacheStore(ed.getKey()) == stringBasedCacheStore) {
+            stringEntries.add(ed);
+         } else {
+            binaryEntries.add(ed);
+         }
+      }
+      if (!stringEntries.isEmpty()) {
+         stringBasedCacheStore.storeAll(stringEntries);
+      }
+      if (!binaryEntries.isEmpty()) {
+         binaryCacheStore.storeAll(binaryEntries);
+      }
+   }
+
    @Override
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       binaryCacheStore.fromStream(inputStream);
@@ -190,6 +245,25 @@ public boolean remove(Object key) throws CacheLoaderException {
       return getCacheStore(key).remove(key);
    }
 
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      Set<Object> stringKeys = new HashSet<Object>();
+      Set<Object> binaryKeys = new HashSet<Object>();
+      for (Object key : keys) {
+         if (getCacheStore(key) == stringBasedCacheStore) {
+            stringKeys.add(key);
+         } else {
+            binaryKeys.add(key);
+         }
+      }
+      if (!stringKeys.isEmpty()) {
+         stringBasedCacheStore.removeAll(stringKeys);
+      }
+      if (!binaryKeys.isEmpty()) {
+         binaryCacheStore.removeAll(binaryKeys);
+      }
+   }
+
    @Override
    public void clear() throws CacheLoaderException {
       binaryCacheStore.clear();
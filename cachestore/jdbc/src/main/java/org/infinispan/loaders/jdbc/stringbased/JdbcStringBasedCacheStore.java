@@ -29,7 +29,9 @@
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.KeyFilter;
 import org.infinispan.loaders.LockSupportCacheStore;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.jdbc.DataManipulationHelper;
 import org.infinispan.loaders.jdbc.JdbcUtil;
 import org.infinispan.loaders.jdbc.TableManipulation;
@@ -49,6 +51,12 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -151,6 +159,12 @@ public void loadAllProcess(ResultSet rs, Set<InternalCacheEntry> result, int max
             loadAllProcess(rs, result);
          }
 
+         @Override
+         protected boolean includeRow(ResultSet rs, KeyFilter filter) throws SQLException, CacheLoaderException {
+            String keyStr = rs.getString(2);
+            return filter.accept(((TwoWayKey2StringMapper) key2StringMapper).getKeyMapping(keyStr));
+         }
+
          @Override
          public void loadAllKeysProcess(ResultSet rs, Set<Object> keys, Set<Object> keysToExclude) throws SQLException, CacheLoaderException {
             String keyStr = rs.getString(1);
@@ -264,6 +278,139 @@ public void storeLockSafe(InternalCacheEntry ed, String lockingKey) throws Cache
       }
    }
 
+   /**
+    * Writes all the entries over a single connection: existing rows are updated in a JDBC batch, then the rows that
+    * were not found are inserted in a second batch.
+    */
+   @Override
+   protected void storeAllLockSafe(List<InternalCacheEntry> entries, List<String> lockingKeys) throws CacheLoaderException {
+      // several keys may map to the same string; the last entry wins, as it would with sequential stores
+      Map<String, InternalCacheEntry> rows = new LinkedHashMap<String, InternalCacheEntry>();
+      for (int i = 0; i < entries.size(); i++) {
+         rows.put(lockingKeys.get(i), entries.get(i));
+      }
+      int batchSize = tableManipulation.getBatchSize();
+      List<String> fallback = new ArrayList<String>();
+      Connection connection = null;
+      PreparedStatement ps = null;
+      try {
+         Map<String, ByteBuffer> buffers = new HashMap<String, ByteBuffer>(rows.size() * 2);
+         for (Map.Entry<String, InternalCacheEntry> row : rows.entrySet()) {
+            buffers.put(row.getKey(), JdbcUtil.marshall(getMarshaller(), row.getValue().toInternalCacheValue()));
+         }
+         connection = connectionFactory.getConnection();
+
+         String sql = tableManipulation.getUpdateRowSql();
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on %d keys", sql, rows.size());
+         }
+         ps = connection.prepareStatement(sql);
+         List<String> batch = new ArrayList<String>(batchSize);
+         List<String> missing = new ArrayList<String>();
+         for (Map.Entry<String, InternalCacheEntry> row : rows.entrySet()) {
+            addRowToBatch(ps, row.getKey(), row.getValue(), buffers.get(row.getKey()));
+            batch.add(row.getKey());
+            if (batch.size() == batchSize) {
+               collectUnmodified(ps.executeBatch(), batch, missing, fallback);
+               batch.clear();
+            }
+         }
+         if (!batch.isEmpty()) {
+            collectUnmodified(ps.executeBatch(), batch, missing, fallback);
+            batch.clear();
+         }
+         JdbcUtil.safeClose(ps);
+         ps = null;
+
+         if (!missing.isEmpty()) {
+            sql = tableManipulation.getInsertRowSql();
+            if (log.isTraceEnabled()) {
+               log.tracef("Running sql '%s' on %d keys", sql, missing.size());
+            }
+            ps = connection.prepareStatement(sql);
+            int insertCount = 0;
+            for (String keyStr : missing) {
+               addRowToBatch(ps, keyStr, rows.get(keyStr), buffers.get(keyStr));
+               insertCount++;
+               if (insertCount % batchSize == 0) {
+                  ps.executeBatch();
+               }
+            }
+            if (insertCount % batchSize != 0) {
+               ps.executeBatch();
+            }
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureStoringKeys(rows.size(), ex);
+         throw new CacheLoaderException(String.format("Error while storing %d string keys to database", rows.size()), ex);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+         return;
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(connection);
+      }
+
+      // the driver did not report whether these rows exist, so store them one by one
+      for (String keyStr : fallback) {
+         storeLockSafe(rows.get(keyStr), keyStr);
+      }
+   }
+
+   private void addRowToBatch(PreparedStatement ps, String keyStr, InternalCacheEntry ed, ByteBuffer byteBuffer) throws SQLException {
+      ps.setBinaryStream(1, byteBuffer.getStream(), byteBuffer.getLength());
+      ps.setLong(2, ed.getExpiryTime());
+      ps.setString(3, keyStr);
+      ps.addBatch();
+   }
+
+   private void collectUnmodified(int[] updateCounts, List<String> batch, List<String> missing, List<String> unknown) {
+      for (int i = 0; i < batch.size(); i++) {
+         int count = i < updateCounts.length ? updateCounts[i] : Statement.SUCCESS_NO_INFO;
+         if (count == 0) {
+            missing.add(batch.get(i));
+         } else if (count < 0) {
+            unknown.add(batch.get(i));
+         }
+      }
+   }
+
+   @Override
+   protected void removeAllLockSafe(List<Object> keys, List<String> lockingKeys) throws CacheLoaderException {
+      Connection connection = null;
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManipulation.getDeleteRowSql();
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on %d keys", sql, lockingKeys.size());
+         }
+         int batchSize = tableManipulation.getBatchSize();
+         connection = connectionFactory.getConnection();
+         ps = connection.prepareStatement(sql);
+         int deletionCount = 0;
+         for (String keyStr : lockingKeys) {
+            ps.setString(1, keyStr);
+            ps.addBatch();
+            deletionCount++;
+            if (deletionCount % batchSize == 0) {
+               ps.executeBatch();
+            }
+         }
+         if (deletionCount % batchSize != 0) {
+            ps.executeBatch();
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureRemovingKeys(ex);
+         throw new CacheLoaderException("Error while removing string keys from database", ex);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
    @Override
    public boolean removeLockSafe(Object key, String keyStr) throws CacheLoaderException {
       Connection connection = null;
@@ -311,6 +458,15 @@ protected Set<InternalCacheEntry> loadLockSafe(int maxEntries) throws CacheLoade
       return dmHelper.loadSome(maxEntries);
    }
 
+   /**
+    * {@inheritDoc} The rows are streamed from the database, and the values of the rows whose keys are not accepted by
+    * the filter are never unmarshalled.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(KeyFilter filter) throws CacheLoaderException {
+      return dmHelper.entryIteratorSupport(filter, true);
+   }
+
    @Override
    protected Set<Object> loadAllKeysLockSafe(Set<Object> keysToExclude) throws CacheLoaderException {
       return dmHelper.loadAllKeysSupport(keysToExclude);
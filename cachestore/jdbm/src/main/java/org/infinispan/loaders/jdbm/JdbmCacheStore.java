@@ -36,9 +36,12 @@
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.entries.InternalCacheValue;
 import org.infinispan.loaders.AbstractCacheStore;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.loaders.modifications.Remove;
 import org.infinispan.loaders.modifications.Store;
@@ -191,6 +194,39 @@ public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderExce
       }
    }
 
+   /**
+    * {@inheritDoc} This implementation walks the keys of the tree, and only unmarshalls the values of the keys accepted
+    * by the filter.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(final KeyFilter filter) throws CacheLoaderException {
+      final FastIterator fi;
+      try {
+         fi = tree.keys();
+      } catch (IOException e) {
+         throw new CacheLoaderException(e);
+      }
+      return new AbstractStoredEntryIterator() {
+         @Override
+         protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+            try {
+               Object key;
+               while ((key = fi.next()) != null) {
+                  if (filter.accept(key)) {
+                     InternalCacheEntry ice = unmarshall(tree.get(key), key);
+                     if (ice != null && !ice.isExpired(timeService.wallClockTime())) return ice;
+                  }
+               }
+               return null;
+            } catch (IOException e) {
+               throw new CacheLoaderException(e);
+            } catch (ClassNotFoundException e) {
+               throw new CacheException(e);
+            }
+         }
+      };
+   }
+
    /**
     * Opens all databases and initializes database related information.
     */
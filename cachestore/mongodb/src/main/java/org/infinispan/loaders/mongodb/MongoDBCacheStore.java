@@ -38,6 +38,7 @@
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.net.UnknownHostException;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -150,6 +151,34 @@ private DBObject findById(byte[] id) throws CacheLoaderException {
       }
    }
 
+   /**
+    * The driver has no bulk upsert, so each entry is upserted on its own, but without looking it up first as
+    * {@link #store(InternalCacheEntry)} does.
+    */
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (trace) {
+         log.tracef("Adding %d entries", entries.size());
+      }
+      for (InternalCacheEntry entry : entries) {
+         byte[] id = objectToByteBuffer(entry.getKey());
+         BasicDBObject entryObject = this.createDBObject(id);
+         entryObject.put(VALUE_FIELD, objectToByteBuffer(entry));
+         entryObject.put(TIMESTAMP_FIELD, entry.getExpiryTime());
+         this.collection.update(this.createDBObject(id), entryObject, true, false);
+      }
+   }
+
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      byte[][] ids = new byte[keys.size()][];
+      int i = 0;
+      for (Object key : keys) {
+         ids[i++] = objectToByteBuffer(key);
+      }
+      this.collection.remove(new BasicDBObject(ID_FIELD, new BasicDBObject("$in", ids)));
+   }
+
    @Override
    public boolean remove(Object key) throws CacheLoaderException {
       byte[] id = objectToByteBuffer(key);
@@ -22,7 +22,11 @@
  */
 package org.infinispan.loaders.remote;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
@@ -30,6 +34,7 @@
 import org.infinispan.client.hotrod.test.HotRodClientTestingUtil;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.container.InternalEntryFactoryImpl;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.loaders.BaseCacheStoreTest;
 import org.infinispan.loaders.CacheLoaderException;
@@ -126,5 +131,19 @@ public void testReplaceExpiredEntry() throws Exception {
       cs.store(TestInternalCacheEntryFactory.create("k1", "v2", 100));
       assert cs.load("k1").getValue().equals("v2");
    }
-}
 
+   @Override
+   public void testLoadAll() throws Exception {
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2", 100));
+      // entries expire on the Hot Rod server, whose clock is not the one the test controls, and
+      // Hot Rod rounds 100ms up to one second
+      TestingUtil.sleepThread(1100);
+
+      Set<Object> keys = new HashSet<Object>();
+      Collections.addAll(keys, "k1", "k2", "k3");
+      Map<Object, InternalCacheEntry> loaded = cs.loadAll(keys);
+      assert loaded.size() == 1 : "Expected 1 entry, was " + loaded;
+      assert loaded.get("k1").getValue().equals("v1");
+   }
+}
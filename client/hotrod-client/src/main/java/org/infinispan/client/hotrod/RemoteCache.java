@@ -22,6 +22,8 @@
  */
 package org.infinispan.client.hotrod;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
@@ -172,6 +174,31 @@
     */
    MetadataValue<V> getWithMetadata(K key);
 
+   /**
+    * Returns a stream to write the value of the given key in chunks, which spares both the client and the server
+    * from holding large values in a single array. The value is made of the raw bytes written, without any
+    * marshalling, and replaces the previous value of the key when the stream is closed. Values written this way
+    * should be read with {@link #getStream(Object)}: the regular reads put the whole value together on the server and
+    * unmarshall it, so they only work if what was written is a marshalled object small enough to be held at once.
+    * <p/>
+    * With protocol versions earlier than 1.3, the value is buffered by the client and sent in a single put when the
+    * stream is closed.
+    */
+   OutputStream putStream(K key);
+
+   /**
+    * @see #putStream(Object)
+    */
+   OutputStream putStream(K key, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit);
+
+   /**
+    * Returns a stream reading the value of the given key one chunk at a time, or null if the key doesn't exist. Values
+    * stored with a regular put are returned as is, i.e. marshalled.
+    *
+    * @see #putStream(Object)
+    */
+   InputStream getStream(K key);
+
    /**
     * @throws UnsupportedOperationException
     */
@@ -275,9 +302,10 @@
    NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue, long lifespan, TimeUnit lifespanUnit, long maxIdle, TimeUnit maxIdleUnit);
 
    /**
-    * Synthetic operation. The client iterates over the set of keys and calls put for each one of them. This results in
-    * operation not being atomic (if a failure happens after few puts it is not rolled back) and costly (for each key in
-    * the parameter map a remote call is performed).
+    * Synthetic operation. With protocol version 1.3 or later, the entries are grouped by the server that owns them and
+    * each server is sent a single request, in parallel. With earlier versions, the client iterates over the set of keys
+    * and calls put for each one of them. Either way, the operation is not atomic (if a failure happens after few puts
+    * it is not rolled back).
     */
    @Override
    void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit);
@@ -356,4 +384,31 @@
     * guarantee that "size" elements are returned( e.g. if the number of elements in the back-end server is smaller that "size")
     */
    Map<K, V> getBulk(int size);
+
+   /**
+    * Retrieves the values of the given keys. Keys are grouped by the server
+    * that owns them, and each of these servers is sent a single request, in
+    * parallel. Keys which are not mapped in the cache are left out of the
+    * returned map.
+    *
+    * @return the keys found and their values. The returned Map is unmodifiable.
+    */
+   Map<K, V> getAll(Set<? extends K> keys);
+
+   /**
+    * Adds a listener, annotated with {@link org.infinispan.client.hotrod.annotation.ClientListener}, to be notified
+    * of the entries created, modified and removed in the cache on the servers, whichever client or node modified them.
+    * Requires version 1.3 of the protocol.
+    *
+    * @throws IllegalArgumentException if the listener is not annotated properly
+    * @throws UnsupportedOperationException if the protocol version in use does not support client listeners
+    */
+   void addClientListener(Object listener);
+
+   void removeClientListener(Object listener);
+
+   /**
+    * @return the client listeners added to this cache. The returned Set is unmodifiable.
+    */
+   Set<Object> getClientListeners();
 }
@@ -30,6 +30,7 @@
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.infinispan.api.BasicCacheContainer;
@@ -39,6 +40,7 @@
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
 import org.infinispan.client.hotrod.impl.RemoteCacheImpl;
+import org.infinispan.client.hotrod.impl.near.NearCache;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation.PingResult;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
@@ -93,6 +95,9 @@
  * <li><tt>infinispan.client.hotrod.value_size_estimate</tt>, default = 512.  This hint allows sizing of byte buffers when serializing and deserializing values, to minimize array resizing.</li>
  * <li><tt>infinispan.client.hotrod.socket_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket read timeout before giving up waiting for bytes from the server.</li>
  * <li><tt>infinispan.client.hotrod.protocol_version</tt>, default = 1.1 .This property defines the protocol version that this client should use. Other valid values include 1.0.</li>
+ * <li><tt>infinispan.client.hotrod.pipelined_connections</tt>, default = 0.  The number of connections per server over which asynchronous operations are pipelined. With the default, each asynchronous operation borrows a pooled connection and a thread from the async executor.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.max_entries</tt>, default = 0.  The maximum number of values read by this client which are cached locally, evicting the least recently used ones. 0 disables the near cache.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.validation_interval</tt>, default = 1000 (1 second).  The time in milliseconds during which a value of the near cache is served without checking its version on the server.</li>
  * <li><tt>infinispan.client.hotrod.connect_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket connect timeout before giving up connecting to the server.</li>
  * </ul>
  * <br/>
@@ -329,6 +334,9 @@ public Properties getProperties() {
       properties.setProperty(ConfigurationProperties.KEY_SIZE_ESTIMATE, Integer.toString(configuration.keySizeEstimate()));
       properties.setProperty(ConfigurationProperties.MARSHALLER, configuration.marshallerClass().getName());
       properties.setProperty(ConfigurationProperties.PING_ON_STARTUP, Boolean.toString(configuration.pingOnStartup()));
+      properties.setProperty(ConfigurationProperties.PIPELINED_CONNECTIONS, Integer.toString(configuration.pipelinedConnections()));
+      properties.setProperty(ConfigurationProperties.NEAR_CACHE_MAX_ENTRIES, Integer.toString(configuration.nearCacheMaxEntries()));
+      properties.setProperty(ConfigurationProperties.NEAR_CACHE_VALIDATION_INTERVAL, Long.toString(configuration.nearCacheValidationInterval()));
       properties.setProperty(ConfigurationProperties.PROTOCOL_VERSION, configuration.protocolVersion());
       properties.setProperty(ConfigurationProperties.SO_TIMEOUT, Integer.toString(configuration.socketTimeout()));
       properties.setProperty(ConfigurationProperties.TCP_NO_DELAY, Boolean.toString(configuration.tcpNoDelay()));
@@ -599,6 +607,11 @@ public void start() {
    @Override
    public void stop() {
       if (isStarted()) {
+         synchronized (cacheName2RemoteCache) {
+            for (RemoteCacheHolder rcc : cacheName2RemoteCache.values()) {
+               rcc.remoteCache.stop();
+            }
+         }
          transportFactory.destroy();
          asyncExecutorService.shutdownNow();
       }
@@ -655,7 +668,9 @@ private void startRemoteCache(RemoteCacheHolder remoteCacheHolder) {
       RemoteCacheImpl<?, ?> remoteCache = remoteCacheHolder.remoteCache;
       OperationsFactory operationsFactory = new OperationsFactory(
             transportFactory, remoteCache.getName(), topologyId, remoteCacheHolder.forceReturnValue, codec);
-      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, configuration.keySizeEstimate(), configuration.valueSizeEstimate());
+      NearCache nearCache = configuration.nearCacheMaxEntries() > 0
+            ? new NearCache(configuration.nearCacheMaxEntries(), configuration.nearCacheValidationInterval(), TimeUnit.MILLISECONDS) : null;
+      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, configuration.keySizeEstimate(), configuration.valueSizeEstimate(), nearCache);
    }
 
    public Marshaller getMarshaller() {
@@ -81,6 +81,27 @@ public interface ServerStatistics {
     */
    String REMOVE_MISSES = "removeMisses";
 
+   /**
+    * Number of get operations served by the near cache of this client. Only present when the near cache is enabled.
+    */
+   String NEAR_CACHE_HITS = "nearCacheHits";
+
+   /**
+    * Number of get operations the near cache of this client could not serve. Only present when the near cache is
+    * enabled.
+    */
+   String NEAR_CACHE_MISSES = "nearCacheMisses";
+
+   /**
+    * Ratio of get operations served by the near cache of this client. Only present when the near cache is enabled.
+    */
+   String NEAR_CACHE_HIT_RATIO = "nearCacheHitRatio";
+
+   /**
+    * Number of entries in the near cache of this client. Only present when the near cache is enabled.
+    */
+   String NEAR_CACHE_SIZE = "nearCacheSize";
+
    Map<String, String> getStatsMap();
 
    String getStatistic(String statsName);
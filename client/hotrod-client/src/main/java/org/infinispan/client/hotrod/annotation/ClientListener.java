@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose instances can be added to a {@link org.infinispan.client.hotrod.RemoteCache} to be notified of
+ * the modifications of the cache, which the servers push to the client. The methods to invoke are marked with
+ * {@link ClientCacheEntryCreated}, {@link ClientCacheEntryModified}, {@link ClientCacheEntryRemoved} and
+ * {@link ClientCacheFailover}.
+ * <p/>
+ * Events are delivered by a thread per server, so the methods must be thread-safe, and should return quickly: while
+ * they run, the server queues the following events, and closes the connection of a listener which falls too far
+ * behind, in which case a failover event is delivered.
+ *
+ * @see org.infinispan.client.hotrod.RemoteCache#addClientListener(Object)
+ * @since 5.3
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ClientListener {
+
+   /**
+    * Whether the events of created and modified entries carry the new value. Defaults to false, in which case only
+    * the key and the version of the entry are sent.
+    */
+   boolean includeValues() default false;
+}
@@ -113,11 +113,26 @@ public ConfigurationBuilder marshaller(Marshaller marshaller) {
       return builder.marshaller(marshaller);
    }
 
+   @Override
+   public ConfigurationBuilder nearCacheMaxEntries(int nearCacheMaxEntries) {
+      return builder.nearCacheMaxEntries(nearCacheMaxEntries);
+   }
+
+   @Override
+   public ConfigurationBuilder nearCacheValidationInterval(long nearCacheValidationInterval) {
+      return builder.nearCacheValidationInterval(nearCacheValidationInterval);
+   }
+
    @Override
    public ConfigurationBuilder pingOnStartup(boolean pingOnStartup) {
       return builder.pingOnStartup(pingOnStartup);
    }
 
+   @Override
+   public ConfigurationBuilder pipelinedConnections(int pipelinedConnections) {
+      return builder.pipelinedConnections(pipelinedConnections);
+   }
+
    @Override
    public ConfigurationBuilder protocolVersion(String protocolVersion) {
       return builder.protocolVersion(protocolVersion);
@@ -48,7 +48,10 @@ public class Configuration {
    private final int keySizeEstimate;
    private final Class<? extends Marshaller> marshallerClass;
    private final Marshaller marshaller;
+   private final int nearCacheMaxEntries;
+   private final long nearCacheValidationInterval;
    private final boolean pingOnStartup;
+   private final int pipelinedConnections;
    private final String protocolVersion;
    private final List<ServerConfiguration> servers;
    private final int socketTimeout;
@@ -59,7 +62,7 @@ public class Configuration {
 
    Configuration(ExecutorFactoryConfiguration asyncExecutorFactory, Class<? extends RequestBalancingStrategy> balancingStrategy, ClassLoader classLoader,
          ConnectionPoolConfiguration connectionPool, int connectionTimeout, Class<? extends ConsistentHash>[] consistentHashImpl, boolean forceReturnValues, int keySizeEstimate, Class<? extends Marshaller> marshallerClass,
-         boolean pingOnStartup, String protocolVersion, List<ServerConfiguration> servers, int socketTimeout, SslConfiguration ssl, boolean tcpNoDelay,
+         int nearCacheMaxEntries, long nearCacheValidationInterval, boolean pingOnStartup, int pipelinedConnections, String protocolVersion, List<ServerConfiguration> servers, int socketTimeout, SslConfiguration ssl, boolean tcpNoDelay,
          Class<? extends TransportFactory> transportFactory, int valueSizeEstimate) {
       this.asyncExecutorFactory = asyncExecutorFactory;
       this.balancingStrategy = balancingStrategy;
@@ -71,7 +74,10 @@ public class Configuration {
       this.keySizeEstimate = keySizeEstimate;
       this.marshallerClass = marshallerClass;
       this.marshaller = null;
+      this.nearCacheMaxEntries = nearCacheMaxEntries;
+      this.nearCacheValidationInterval = nearCacheValidationInterval;
       this.pingOnStartup = pingOnStartup;
+      this.pipelinedConnections = pipelinedConnections;
       this.protocolVersion = protocolVersion;
       this.servers = Collections.unmodifiableList(servers);
       this.socketTimeout = socketTimeout;
@@ -83,7 +89,7 @@ public class Configuration {
 
    Configuration(ExecutorFactoryConfiguration asyncExecutorFactory, Class<? extends RequestBalancingStrategy> balancingStrategy, ClassLoader classLoader,
          ConnectionPoolConfiguration connectionPool, int connectionTimeout, Class<? extends ConsistentHash>[] consistentHashImpl, boolean forceReturnValues, int keySizeEstimate, Marshaller marshaller,
-         boolean pingOnStartup, String protocolVersion, List<ServerConfiguration> servers, int socketTimeout, SslConfiguration ssl, boolean tcpNoDelay,
+         int nearCacheMaxEntries, long nearCacheValidationInterval, boolean pingOnStartup, int pipelinedConnections, String protocolVersion, List<ServerConfiguration> servers, int socketTimeout, SslConfiguration ssl, boolean tcpNoDelay,
          Class<? extends TransportFactory> transportFactory, int valueSizeEstimate) {
       this.asyncExecutorFactory = asyncExecutorFactory;
       this.balancingStrategy = balancingStrategy;
@@ -95,7 +101,10 @@ public class Configuration {
       this.keySizeEstimate = keySizeEstimate;
       this.marshallerClass = null;
       this.marshaller = marshaller;
+      this.nearCacheMaxEntries = nearCacheMaxEntries;
+      this.nearCacheValidationInterval = nearCacheValidationInterval;
       this.pingOnStartup = pingOnStartup;
+      this.pipelinedConnections = pipelinedConnections;
       this.protocolVersion = protocolVersion;
       this.servers = Collections.unmodifiableList(servers);
       this.socketTimeout = socketTimeout;
@@ -149,10 +158,22 @@ public Class<? extends Marshaller> marshallerClass() {
       return marshallerClass;
    }
 
+   public int nearCacheMaxEntries() {
+      return nearCacheMaxEntries;
+   }
+
+   public long nearCacheValidationInterval() {
+      return nearCacheValidationInterval;
+   }
+
    public boolean pingOnStartup() {
       return pingOnStartup;
    }
 
+   public int pipelinedConnections() {
+      return pipelinedConnections;
+   }
+
    public String protocolVersion() {
       return protocolVersion;
    }
@@ -185,8 +206,8 @@ public int valueSizeEstimate() {
    public String toString() {
       return "Configuration [asyncExecutorFactory=" + asyncExecutorFactory + ", balancingStrategy=" + balancingStrategy + ", classLoader=" + classLoader + ", connectionPool="
             + connectionPool + ", connectionTimeout=" + connectionTimeout + ", consistentHashImpl=" + Arrays.toString(consistentHashImpl) + ", forceReturnValues="
-            + forceReturnValues + ", keySizeEstimate=" + keySizeEstimate + ", marshallerClass=" + marshallerClass + ", marshaller=" + marshaller + ", pingOnStartup="
-            + pingOnStartup + ", protocolVersion=" + protocolVersion + ", servers=" + servers + ", socketTimeout=" + socketTimeout + ", ssl=" + ssl + ", tcpNoDelay=" + tcpNoDelay
+            + forceReturnValues + ", keySizeEstimate=" + keySizeEstimate + ", marshallerClass=" + marshallerClass + ", marshaller=" + marshaller + ", nearCacheMaxEntries="
+            + nearCacheMaxEntries + ", nearCacheValidationInterval=" + nearCacheValidationInterval + ", pingOnStartup=" + pingOnStartup + ", pipelinedConnections=" + pipelinedConnections + ", protocolVersion=" + protocolVersion + ", servers=" + servers + ", socketTimeout=" + socketTimeout + ", ssl=" + ssl + ", tcpNoDelay=" + tcpNoDelay
             + ", transportFactory=" + transportFactory + ", valueSizeEstimate=" + valueSizeEstimate + "]";
    }
 }
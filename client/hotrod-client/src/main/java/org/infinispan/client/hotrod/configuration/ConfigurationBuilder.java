@@ -57,7 +57,10 @@ public class ConfigurationBuilder implements ConfigurationChildBuilder, Builder<
    private int keySizeEstimate = ConfigurationProperties.DEFAULT_KEY_SIZE;
    private Class<? extends Marshaller> marshallerClass = GenericJBossMarshaller.class;
    private Marshaller marshaller;
+   private int nearCacheMaxEntries = 0;
+   private long nearCacheValidationInterval = ConfigurationProperties.DEFAULT_NEAR_CACHE_VALIDATION_INTERVAL;
    private boolean pingOnStartup = true;
+   private int pipelinedConnections = 0;
    private String protocolVersion = ConfigurationProperties.DEFAULT_PROTOCOL_VERSION;
    private List<ServerConfigurationBuilder> servers = new ArrayList<ServerConfigurationBuilder>();
    private int socketTimeout = ConfigurationProperties.DEFAULT_SO_TIMEOUT;
@@ -174,12 +177,30 @@ public ConfigurationBuilder marshaller(Marshaller marshaller) {
       return this;
    }
 
+   @Override
+   public ConfigurationBuilder nearCacheMaxEntries(int nearCacheMaxEntries) {
+      this.nearCacheMaxEntries = nearCacheMaxEntries;
+      return this;
+   }
+
+   @Override
+   public ConfigurationBuilder nearCacheValidationInterval(long nearCacheValidationInterval) {
+      this.nearCacheValidationInterval = nearCacheValidationInterval;
+      return this;
+   }
+
    @Override
    public ConfigurationBuilder pingOnStartup(boolean pingOnStartup) {
       this.pingOnStartup = pingOnStartup;
       return this;
    }
 
+   @Override
+   public ConfigurationBuilder pipelinedConnections(int pipelinedConnections) {
+      this.pipelinedConnections = pipelinedConnections;
+      return this;
+   }
+
    @Override
    public ConfigurationBuilder protocolVersion(String protocolVersion) {
       this.protocolVersion = protocolVersion;
@@ -240,7 +261,10 @@ public ConfigurationBuilder withProperties(Properties properties) {
       if (typed.containsKey(ConfigurationProperties.MARSHALLER)) {
          this.marshaller(typed.getProperty(ConfigurationProperties.MARSHALLER));
       }
+      this.nearCacheMaxEntries(typed.getIntProperty(ConfigurationProperties.NEAR_CACHE_MAX_ENTRIES, nearCacheMaxEntries));
+      this.nearCacheValidationInterval(typed.getLongProperty(ConfigurationProperties.NEAR_CACHE_VALIDATION_INTERVAL, nearCacheValidationInterval));
       this.pingOnStartup(typed.getBooleanProperty(ConfigurationProperties.PING_ON_STARTUP, pingOnStartup));
+      this.pipelinedConnections(typed.getIntProperty(ConfigurationProperties.PIPELINED_CONNECTIONS, pipelinedConnections));
       this.protocolVersion(typed.getProperty(ConfigurationProperties.PROTOCOL_VERSION, protocolVersion));
       this.servers.clear();
       this.addServers(typed.getProperty(ConfigurationProperties.SERVER_LIST, ""));
@@ -272,11 +296,11 @@ public Configuration create() {
       }
       if (marshaller == null) {
          return new Configuration(asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), connectionPool.create(), connectionTimeout,
-               consistentHashImpl, forceReturnValues, keySizeEstimate, marshallerClass, pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
+               consistentHashImpl, forceReturnValues, keySizeEstimate, marshallerClass, nearCacheMaxEntries, nearCacheValidationInterval, pingOnStartup, pipelinedConnections, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
                valueSizeEstimate);
       } else {
          return new Configuration(asyncExecutorFactory.create(), balancingStrategy, classLoader == null ? null : classLoader.get(), connectionPool.create(), connectionTimeout,
-               consistentHashImpl, forceReturnValues, keySizeEstimate, marshaller, pingOnStartup, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
+               consistentHashImpl, forceReturnValues, keySizeEstimate, marshaller, nearCacheMaxEntries, nearCacheValidationInterval, pingOnStartup, pipelinedConnections, protocolVersion, servers, socketTimeout, ssl.create(), tcpNoDelay, transportFactory,
                valueSizeEstimate);
       }
    }
@@ -307,7 +331,10 @@ public ConfigurationBuilder read(Configuration template) {
       this.keySizeEstimate = template.keySizeEstimate();
       this.marshaller = template.marshaller();
       this.marshallerClass = template.marshallerClass();
+      this.nearCacheMaxEntries = template.nearCacheMaxEntries();
+      this.nearCacheValidationInterval = template.nearCacheValidationInterval();
       this.pingOnStartup = template.pingOnStartup();
+      this.pipelinedConnections = template.pipelinedConnections();
       this.protocolVersion = template.protocolVersion();
       this.servers.clear();
       for (ServerConfiguration server : template.servers()) {
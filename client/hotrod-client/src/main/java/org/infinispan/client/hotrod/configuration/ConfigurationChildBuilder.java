@@ -120,11 +120,31 @@ public interface ConfigurationChildBuilder {
     */
    ConfigurationBuilder marshaller(Marshaller marshaller);
 
+   /**
+    * Maximum number of entries kept in the near cache, i.e. the values read by this client which are cached locally
+    * and served without contacting the server. The least recently used entries are evicted beyond it. Defaults to 0,
+    * which disables the near cache.
+    */
+   ConfigurationBuilder nearCacheMaxEntries(int nearCacheMaxEntries);
+
+   /**
+    * Time in milliseconds during which an entry of the near cache is served without checking its version on the
+    * server. Defaults to 1000.
+    */
+   ConfigurationBuilder nearCacheValidationInterval(long nearCacheValidationInterval);
+
    /**
     * If true, a ping request is sent to a back end server in order to fetch cluster's topology.
     */
    ConfigurationBuilder pingOnStartup(boolean pingOnStartup);
 
+   /**
+    * Number of connections per server over which asynchronous operations are pipelined, i.e. sent without waiting
+    * for the responses of the previous requests. Defaults to 0, which disables pipelining so that each asynchronous
+    * operation borrows a pooled connection and a thread from the async executor.
+    */
+   ConfigurationBuilder pipelinedConnections(int pipelinedConnections);
+
    /**
     * This property defines the protocol version that this client should use. Defaults to 1.1. Other
     * valid values include 1.0.
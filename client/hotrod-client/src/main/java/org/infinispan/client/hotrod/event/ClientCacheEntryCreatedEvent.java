@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.event;
+
+/**
+ * Notifies a client listener that an entry has been created in the remote cache.
+ *
+ * @since 5.3
+ */
+public interface ClientCacheEntryCreatedEvent<K, V> extends ClientEvent {
+
+   K getKey();
+
+   /**
+    * @return the version of the entry, as returned by {@link org.infinispan.client.hotrod.RemoteCache#getVersioned},
+    *         or 0 if the entry has been modified again since the event
+    */
+   long getVersion();
+
+   /**
+    * @return the new value, or null unless the listener includes values
+    * @see org.infinispan.client.hotrod.annotation.ClientListener#includeValues()
+    */
+   V getValue();
+}
@@ -57,6 +57,9 @@ public class ConfigurationProperties {
    public static final String SO_TIMEOUT = "infinispan.client.hotrod.socket_timeout";
    public static final String CONNECT_TIMEOUT = "infinispan.client.hotrod.connect_timeout";
    public static final String PROTOCOL_VERSION = "infinispan.client.hotrod.protocol_version";
+   public static final String PIPELINED_CONNECTIONS = "infinispan.client.hotrod.pipelined_connections";
+   public static final String NEAR_CACHE_MAX_ENTRIES = "infinispan.client.hotrod.near_cache.max_entries";
+   public static final String NEAR_CACHE_VALIDATION_INTERVAL = "infinispan.client.hotrod.near_cache.validation_interval";
    public static final String USE_SSL = "infinispan.client.hotrod.use_ssl";
    public static final String KEY_STORE_FILE_NAME = "infinispan.client.hotrod.key_store_file_name";
    public static final String KEY_STORE_PASSWORD = "infinispan.client.hotrod.key_store_password";
@@ -70,10 +73,12 @@ public class ConfigurationProperties {
    public static final int DEFAULT_HOTROD_PORT = 11222;
    public static final int DEFAULT_SO_TIMEOUT = 60000;
    public static final int DEFAULT_CONNECT_TIMEOUT = 60000;
+   public static final long DEFAULT_NEAR_CACHE_VALIDATION_INTERVAL = 1000;
+   public static final String PROTOCOL_VERSION_13 = "1.3";
    public static final String PROTOCOL_VERSION_12 = "1.2";
    public static final String PROTOCOL_VERSION_11 = "1.1";
    public static final String PROTOCOL_VERSION_10 = "1.0";
-   public static final String DEFAULT_PROTOCOL_VERSION = PROTOCOL_VERSION_12;
+   public static final String DEFAULT_PROTOCOL_VERSION = PROTOCOL_VERSION_13;
 
    private final TypedProperties props;
 
@@ -135,6 +140,18 @@ public boolean getPingOnStartup() {
       return props.getBooleanProperty(PING_ON_STARTUP, true);
    }
 
+   public int getPipelinedConnections() {
+      return props.getIntProperty(PIPELINED_CONNECTIONS, 0);
+   }
+
+   public int getNearCacheMaxEntries() {
+      return props.getIntProperty(NEAR_CACHE_MAX_ENTRIES, 0);
+   }
+
+   public long getNearCacheValidationInterval() {
+      return props.getLongProperty(NEAR_CACHE_VALIDATION_INTERVAL, DEFAULT_NEAR_CACHE_VALIDATION_INTERVAL);
+   }
+
    public String getRequestBalancingStrategy() {
       return props.getProperty(REQUEST_BALANCING_STRATEGY, RoundRobinBalancingStrategy.class.getName());
    }
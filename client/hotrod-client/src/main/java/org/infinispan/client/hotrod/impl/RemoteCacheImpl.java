@@ -24,15 +24,23 @@
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.client.hotrod.Flag;
@@ -44,7 +52,16 @@
 import org.infinispan.client.hotrod.VersionedValue;
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteCacheManagerNotStartedException;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientCacheFailover;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheFailoverEvent;
+import org.infinispan.client.hotrod.event.ClientEvent;
 import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
+import org.infinispan.client.hotrod.impl.event.ClientEventImpl;
+import org.infinispan.client.hotrod.impl.event.ClientListenerNotifier;
+import org.infinispan.client.hotrod.impl.near.NearCache;
 import org.infinispan.client.hotrod.impl.operations.BulkGetKeysOperation;
 import org.infinispan.client.hotrod.impl.operations.BulkGetOperation;
 import org.infinispan.client.hotrod.impl.operations.ClearOperation;
@@ -54,13 +71,20 @@
 import org.infinispan.client.hotrod.impl.operations.GetWithVersionOperation;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.operations.PipelinedOperation;
 import org.infinispan.client.hotrod.impl.operations.PutIfAbsentOperation;
 import org.infinispan.client.hotrod.impl.operations.PutOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceOperation;
+import org.infinispan.client.hotrod.impl.operations.RetryOnFailureOperation;
 import org.infinispan.client.hotrod.impl.operations.StatsOperation;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.streaming.RemoteInputStream;
+import org.infinispan.client.hotrod.impl.streaming.RemoteOutputStream;
+import org.infinispan.client.hotrod.impl.streaming.StreamChunk;
+import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.marshall.Marshaller;
@@ -81,7 +105,8 @@
    private OperationsFactory operationsFactory;
    private int estimateKeySize;
    private int estimateValueSize;
-
+   private NearCache nearCache;
+   private ClientListenerNotifier listenerNotifier;
 
    public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
       if (log.isTraceEnabled()) {
@@ -91,12 +116,30 @@ public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
       this.remoteCacheManager = rcm;
    }
 
-   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize) {
+   /**
+    * @param nearCache cache of the values read by this client, or null if disabled
+    */
+   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize,
+         NearCache nearCache) {
       this.marshaller = marshaller;
       this.executorService = executorService;
       this.operationsFactory = operationsFactory;
       this.estimateKeySize = estimateKeySize;
       this.estimateValueSize = estimateValueSize;
+      this.nearCache = nearCache;
+      this.listenerNotifier = new ClientListenerNotifier(operationsFactory, marshaller, executorService);
+      if (nearCache != null && operationsFactory.isClientListenerSupported()) {
+         // Invalidate as soon as the servers notify of modifications, rather than waiting for the entries to go stale
+         try {
+            listenerNotifier.addClientListener(new NearCacheInvalidator(nearCache));
+         } catch (HotRodClientException e) {
+            log.nearCacheListenerUnavailable(name, e);
+         }
+      }
+   }
+
+   public NearCache getNearCache() {
+      return nearCache;
    }
 
    @Override
@@ -107,9 +150,14 @@ public RemoteCacheManager getRemoteCacheManager() {
    @Override
    public boolean removeWithVersion(K key, long version) {
       assertRemoteCacheManagerIsStarted();
-      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
-      VersionedOperationResponse response = op.execute();
-      return response.getCode().isUpdated();
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
+      try {
+         VersionedOperationResponse response = op.execute();
+         return response.getCode().isUpdated();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
    }
 
    @Override
@@ -131,9 +179,14 @@ public Boolean call() throws Exception {
    @Override
    public boolean replaceWithVersion(K key, V newValue, long version, int lifespanSeconds, int maxIdleTimeSeconds) {
       assertRemoteCacheManagerIsStarted();
-      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
-      VersionedOperationResponse response = op.execute();
-      return response.getCode().isUpdated();
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
+      try {
+         VersionedOperationResponse response = op.execute();
+         return response.getCode().isUpdated();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
    }
 
    @Override
@@ -168,11 +221,91 @@ public MetadataValue<V> getWithMetadata(K key) {
       return binary2MetadataValue(value);
    }
 
+   @Override
+   public OutputStream putStream(K key, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+      assertRemoteCacheManagerIsStarted();
+      final int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      final int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdleTime);
+      final byte[] keyBytes = obj2bytes(key, true);
+      final Flag[] flags = operationsFactory.takeFlags();
+      invalidateNearCache(keyBytes);
+      if (operationsFactory.isStreamingSupported()) {
+         return new RemoteOutputStream(operationsFactory, keyBytes, flags, lifespanSecs, maxIdleSecs) {
+            @Override
+            public void close() throws IOException {
+               try {
+                  super.close();
+               } finally {
+                  invalidateNearCache(keyBytes);
+               }
+            }
+         };
+      }
+
+      // The protocol in use cannot stream, so send the whole value when the stream is closed
+      return new ByteArrayOutputStream() {
+         private boolean closed;
+
+         @Override
+         public void close() throws IOException {
+            if (closed)
+               return;
+            closed = true;
+            if (flags != null)
+               operationsFactory.setFlags(flags);
+            try {
+               operationsFactory.newPutKeyValueOperation(keyBytes, toByteArray(), lifespanSecs, maxIdleSecs).execute();
+            } finally {
+               invalidateNearCache(keyBytes);
+            }
+         }
+      };
+   }
+
+   @Override
+   public InputStream getStream(K key) {
+      assertRemoteCacheManagerIsStarted();
+      byte[] keyBytes = obj2bytes(key, true);
+      if (!operationsFactory.isStreamingSupported()) {
+         byte[] bytes = operationsFactory.newGetKeyOperation(keyBytes).execute();
+         return bytes == null ? null : new ByteArrayInputStream(bytes);
+      }
+
+      Flag[] flags = operationsFactory.takeFlags();
+      StreamChunk first = operationsFactory.newGetStreamOperation(keyBytes, flags, 0).execute();
+      return first == null ? null : new RemoteInputStream(operationsFactory, keyBytes, flags, first);
+   }
+
    @Override
    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isBulkKeyOperationSupported()) {
+         for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         }
+         return;
+      }
+      if (map.isEmpty())
+         return;
+
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdleTime);
+      if (log.isTraceEnabled()) {
+         log.tracef("About to add %d entries, lifespanSecs:%d, maxIdleSecs:%d", map.size(), lifespanSecs, maxIdleSecs);
+      }
+      Map<byte[], byte[]> entries = new HashMap<byte[], byte[]>(map.size());
       for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-         put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
+      }
+      try {
+         executeOnServers(operationsFactory.newPutAllOperations(entries, lifespanSecs, maxIdleSecs));
+      } finally {
+         if (nearCache != null) {
+            for (byte[] keyBytes : entries.keySet())
+               nearCache.invalidate(keyBytes);
+         }
       }
    }
 
@@ -214,6 +347,12 @@ public ServerStatistics stats() {
       for (Map.Entry<String, String> entry : statsMap.entrySet()) {
          stats.addStats(entry.getKey(), entry.getValue());
       }
+      if (nearCache != null) {
+         stats.addStats(ServerStatistics.NEAR_CACHE_HITS, Long.toString(nearCache.getHits()));
+         stats.addStats(ServerStatistics.NEAR_CACHE_MISSES, Long.toString(nearCache.getMisses()));
+         stats.addStats(ServerStatistics.NEAR_CACHE_HIT_RATIO, Double.toString(nearCache.getHitRatio()));
+         stats.addStats(ServerStatistics.NEAR_CACHE_SIZE, Integer.toString(nearCache.size()));
+      }
       return stats;
    }
 
@@ -227,8 +366,14 @@ public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleT
       if (log.isTraceEnabled()) {
          log.tracef("About to add (K,V): (%s, %s) lifespanSecs:%d, maxIdleSecs:%d", key, value, lifespanSecs, maxIdleSecs);
       }
-      PutOperation op = operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] result = op.execute();
+      byte[] keyBytes = obj2bytes(key, true);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] result;
+      try {
+         result = op.execute();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
       return (V) bytes2obj(result);
    }
 
@@ -240,8 +385,14 @@ public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] bytes = op.execute();
+      byte[] keyBytes = obj2bytes(key, true);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] bytes;
+      try {
+         bytes = op.execute();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
       return (V) bytes2obj(bytes);
    }
 
@@ -252,14 +403,27 @@ public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxI
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      ReplaceOperation op = operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] bytes = op.execute();
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] bytes;
+      try {
+         bytes = op.execute();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
       return (V) bytes2obj(bytes);
    }
 
    @Override
    public NotifyingFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isPipeliningEnabled()) {
+         int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+         int maxIdleSecs = toSeconds(maxIdle, maxIdleUnit);
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         return executePipelined(keyBytes, true, operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -292,6 +456,13 @@ public Void call() throws Exception {
    @Override
    public NotifyingFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isPipeliningEnabled()) {
+         int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+         int maxIdleSecs = toSeconds(maxIdle, maxIdleUnit);
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         return executePipelined(keyBytes, true, operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -308,6 +479,10 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isPipeliningEnabled()) {
+         byte[] keyBytes = obj2bytes(key, true);
+         return executePipelined(keyBytes, true, operationsFactory.newRemoveOperation(keyBytes));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -324,6 +499,13 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isPipeliningEnabled()) {
+         int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+         int maxIdleSecs = toSeconds(maxIdle, maxIdleUnit);
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         return executePipelined(keyBytes, true, operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -349,15 +531,57 @@ public boolean containsKey(Object key) {
    public V get(Object key) {
       assertRemoteCacheManagerIsStarted();
       byte[] keyBytes = obj2bytes(key, true);
-      GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
-      byte[] bytes = gco.execute();
-      V result = (V) bytes2obj(bytes);
+      V result;
+      if (nearCache != null) {
+         result = (V) getFromNearCache(keyBytes);
+      } else {
+         GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
+         byte[] bytes = gco.execute();
+         result = (V) bytes2obj(bytes);
+      }
       if (log.isTraceEnabled()) {
          log.tracef("For key(%s) returning %s", key, result);
       }
       return result;
    }
 
+   /**
+    * Serves the value from the near cache while its entry is fresh. Past that, the value is read along with its
+    * version, and the cached value is kept if the version did not change, which saves unmarshalling it again.
+    */
+   private Object getFromNearCache(byte[] keyBytes) {
+      NearCache.Entry entry = nearCache.get(keyBytes);
+      if (entry != null && nearCache.isFresh(entry)) {
+         nearCache.recordHit();
+         return entry.getValue();
+      }
+      nearCache.recordMiss();
+      Object stamp = nearCache.stamp(keyBytes);
+      try {
+         GetWithVersionOperation op = operationsFactory.newGetWithVersionOperation(keyBytes);
+         VersionedValue<byte[]> versioned = op.execute();
+         if (versioned == null) {
+            if (entry != null)
+               nearCache.invalidate(keyBytes);
+            return null;
+         }
+         if (entry != null && entry.getVersion() == versioned.getVersion()) {
+            entry.revalidate();
+            return entry.getValue();
+         }
+         Object value = bytes2obj(versioned.getValue());
+         nearCache.put(keyBytes, value, versioned.getVersion(), stamp);
+         return value;
+      } finally {
+         nearCache.release(keyBytes, stamp);
+      }
+   }
+
+   private void invalidateNearCache(byte[] keyBytes) {
+      if (nearCache != null)
+         nearCache.invalidate(keyBytes);
+   }
+
    @Override
    public Map<K, V> getBulk() {
       return getBulk(0);
@@ -378,12 +602,87 @@ public Map<K, V> getBulk(int size) {
       return Collections.unmodifiableMap(toReturn);
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Map<K, V> getAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      Map<K, V> toReturn = new HashMap<K, V>();
+      if (!operationsFactory.isBulkKeyOperationSupported()) {
+         for (K key : keys) {
+            V value = get(key);
+            if (value != null)
+               toReturn.put(key, value);
+         }
+         return Collections.unmodifiableMap(toReturn);
+      }
+      if (keys.isEmpty())
+         return Collections.unmodifiableMap(toReturn);
+
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      for (K key : keys) {
+         keyBytes.add(obj2bytes(key, true));
+      }
+      for (Map<byte[], byte[]> result : executeOnServers(operationsFactory.newGetAllOperations(keyBytes))) {
+         for (Map.Entry<byte[], byte[]> entry : result.entrySet()) {
+            toReturn.put((K) bytes2obj(entry.getKey()), (V) bytes2obj(entry.getValue()));
+         }
+      }
+      return Collections.unmodifiableMap(toReturn);
+   }
+
+   /**
+    * Executes operations directed to different servers in parallel. The
+    * calling thread runs the first operation, and any other operation that
+    * the executor has not started by the time it is done, so that it never
+    * waits for tasks queued behind it.
+    */
+   private <T> List<T> executeOnServers(List<? extends RetryOnFailureOperation<T>> ops) {
+      List<T> results = new ArrayList<T>(ops.size());
+      if (ops.size() == 1) {
+         results.add(ops.get(0).execute());
+         return results;
+      }
+      List<FutureTask<T>> tasks = new ArrayList<FutureTask<T>>(ops.size() - 1);
+      for (int i = 1; i < ops.size(); i++) {
+         final RetryOnFailureOperation<T> op = ops.get(i);
+         FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() {
+               return op.execute();
+            }
+         });
+         tasks.add(task);
+         executorService.execute(task);
+      }
+      results.add(ops.get(0).execute());
+      for (FutureTask<T> task : tasks) {
+         task.run(); // No-op if the executor has already run it
+         try {
+            results.add(task.get());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HotRodClientException(e);
+         } catch (ExecutionException e) {
+            if (e.getCause() instanceof HotRodClientException)
+               throw (HotRodClientException) e.getCause();
+            throw new HotRodClientException(e.getCause());
+         }
+      }
+      return results;
+   }
+
    @Override
    @SuppressWarnings("unchecked")
    public V remove(Object key) {
       assertRemoteCacheManagerIsStarted();
-      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(obj2bytes(key, true));
-      byte[] existingValue = removeOperation.execute();
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(keyBytes);
+      byte[] existingValue;
+      try {
+         existingValue = removeOperation.execute();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
       // TODO: It sucks that you need the prev value to see if it works...
       // We need to find a better API for RemoteCache...
       return (V) bytes2obj(existingValue);
@@ -393,7 +692,12 @@ public V remove(Object key) {
    public void clear() {
       assertRemoteCacheManagerIsStarted();
       ClearOperation op = operationsFactory.newClearOperation() ;
-      op.execute();
+      try {
+         op.execute();
+      } finally {
+         if (nearCache != null)
+            nearCache.clear();
+      }
    }
 
    @Override
@@ -406,8 +710,27 @@ public void start() {
    @Override
    public void stop() {
       if (log.isDebugEnabled()) {
-         log.debugf("Stop called, nothing to do here(%s)", getName());
+         log.debugf("Stop called, removing client listeners(%s)", getName());
       }
+      if (listenerNotifier != null)
+         listenerNotifier.stop();
+   }
+
+   @Override
+   public void addClientListener(Object listener) {
+      assertRemoteCacheManagerIsStarted();
+      listenerNotifier.addClientListener(listener);
+   }
+
+   @Override
+   public void removeClientListener(Object listener) {
+      assertRemoteCacheManagerIsStarted();
+      listenerNotifier.removeClientListener(listener);
+   }
+
+   @Override
+   public Set<Object> getClientListeners() {
+      return listenerNotifier.getClientListeners();
    }
 
    @Override
@@ -429,6 +752,10 @@ public RemoteCache<K, V> withFlags(Flag... flags) {
    @Override
    public NotifyingFuture<V> getAsync(final K key) {
       assertRemoteCacheManagerIsStarted();
+      if (operationsFactory.isPipeliningEnabled() && nearCache == null) {
+         byte[] keyBytes = obj2bytes(key, true);
+         return executePipelined(keyBytes, false, operationsFactory.newGetKeyOperation(keyBytes));
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -442,6 +769,33 @@ public V call() throws Exception {
       return result;
    }
 
+   /**
+    * Sends the operation without blocking any thread until its response arrives. The operation is created by the
+    * calling thread, so the flags set with {@link #withFlags(Flag...)} apply to it. Writes invalidate the key in the
+    * near cache both when sent and when their response arrives.
+    */
+   private NotifyingFuture<V> executePipelined(final byte[] keyBytes, final boolean write, final PipelinedOperation<byte[]> op) {
+      if (write)
+         invalidateNearCache(keyBytes);
+      return operationsFactory.executePipelined(keyBytes, new PipelinedOperation<V>() {
+         @Override
+         public HeaderParams writeRequest(Transport transport) {
+            return op.writeRequest(transport);
+         }
+
+         @Override
+         @SuppressWarnings("unchecked")
+         public V readResponse(Transport transport, HeaderParams params) {
+            try {
+               return (V) bytes2obj(op.readResponse(transport, params));
+            } finally {
+               if (write)
+                  invalidateNearCache(keyBytes);
+            }
+         }
+      });
+   }
+
    public PingOperation.PingResult ping() {
       return operationsFactory.newFaultTolerantPingOperation().execute();
    }
@@ -528,4 +882,25 @@ public Set<K> keySet() {
        }
        return Collections.unmodifiableSet(toReturn);
    };
+
+   @ClientListener
+   private static final class NearCacheInvalidator {
+      private final NearCache nearCache;
+
+      NearCacheInvalidator(NearCache nearCache) {
+         this.nearCache = nearCache;
+      }
+
+      @ClientCacheEntryModified
+      @ClientCacheEntryRemoved
+      public void invalidate(ClientEvent event) {
+         nearCache.invalidate(((ClientEventImpl<?, ?>) event).getKeyBytes());
+      }
+
+      @ClientCacheFailover
+      public void failover(ClientCacheFailoverEvent event) {
+         // Modifications may have been missed while the connection was down
+         nearCache.clear();
+      }
+   }
 }
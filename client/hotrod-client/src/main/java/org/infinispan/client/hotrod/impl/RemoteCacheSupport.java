@@ -26,6 +26,7 @@
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.util.concurrent.NotifyingFuture;
 
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -58,6 +59,11 @@ public boolean replaceWithVersion(K key, V newValue, long version, int lifespanS
       return replaceWithVersion(key, newValue, version, lifespanSeconds, 0);
    }
 
+   @Override
+   public OutputStream putStream(K key) {
+      return putStream(key, defaultLifespan, TimeUnit.MILLISECONDS, defaultMaxIdleTime, TimeUnit.MILLISECONDS);
+   }
+
    @Override
    public boolean containsValue(Object value) {
       throw new UnsupportedOperationException();
@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.operations.PipelinedOperation;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.BufferTransport;
+import org.infinispan.client.hotrod.impl.transport.PipelinedRequest;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.util.concurrent.NotifyingFuture;
+
+/**
+ * Future of an operation sent over a pipelined connection. It is completed by the thread reading the responses of
+ * the connection, so no thread is blocked while the operation is outstanding.
+ *
+ * @since 5.3
+ */
+public class PipelinedResponseFuture<T> extends FutureTask<T> implements PipelinedRequest {
+
+   private static final int REQUEST_SIZE_ESTIMATE = 128;
+
+   private static final Callable<Object> NOT_RUNNABLE = new Callable<Object>() {
+      @Override
+      public Object call() {
+         throw new IllegalStateException("Pipelined responses are set by the connection reader");
+      }
+   };
+
+   private final PipelinedOperation<T> operation;
+   private final HeaderParams params;
+   private final NotifyingFutureImpl<T> notifyingFuture = new NotifyingFutureImpl<T>();
+
+   @SuppressWarnings("unchecked")
+   private PipelinedResponseFuture(PipelinedOperation<T> operation, HeaderParams params) {
+      super((Callable<T>) NOT_RUNNABLE);
+      this.operation = operation;
+      this.params = params;
+      notifyingFuture.setExecuting(this);
+   }
+
+   /**
+    * Serializes the request of the operation and sends it to the server owning the key, without waiting for the
+    * response.
+    */
+   public static <T> NotifyingFuture<T> send(TransportFactory transportFactory, byte[] key, PipelinedOperation<T> operation) {
+      BufferTransport buffer = new BufferTransport(transportFactory, key.length + REQUEST_SIZE_ESTIMATE);
+      HeaderParams params = operation.writeRequest(buffer);
+      PipelinedResponseFuture<T> future = new PipelinedResponseFuture<T>(operation, params);
+      transportFactory.sendPipelined(key, params.getMessageId(), buffer.toByteArray(), future);
+      return future.notifyingFuture;
+   }
+
+   @Override
+   public void readResponse(Transport transport) {
+      try {
+         set(operation.readResponse(transport, params));
+      } catch (RuntimeException e) {
+         setException(e);
+         throw e;
+      }
+   }
+
+   @Override
+   public void failed(TransportException e) {
+      setException(e);
+   }
+
+   @Override
+   protected void done() {
+      notifyingFuture.notifyFutureCompletion();
+   }
+}
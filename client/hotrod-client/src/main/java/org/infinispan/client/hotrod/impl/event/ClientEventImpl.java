@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.event;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.infinispan.client.hotrod.event.ClientCacheEntryCreatedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryModifiedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryRemovedEvent;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.marshall.Marshaller;
+
+/**
+ * Event of an entry of a remote cache. The key and value are only unmarshalled when asked for, since listeners like
+ * the near cache only need the marshalled key.
+ *
+ * @since 5.3
+ */
+@NotThreadSafe
+public class ClientEventImpl<K, V> implements ClientCacheEntryCreatedEvent<K, V>, ClientCacheEntryModifiedEvent<K, V>,
+      ClientCacheEntryRemovedEvent<K> {
+
+   private final Type type;
+   private final byte[] keyBytes;
+   private final long version;
+   private final byte[] valueBytes;
+   private final Marshaller marshaller;
+   private K key;
+   private V value;
+
+   public ClientEventImpl(Type type, byte[] keyBytes, long version, byte[] valueBytes, Marshaller marshaller) {
+      this.type = type;
+      this.keyBytes = keyBytes;
+      this.version = version;
+      this.valueBytes = valueBytes;
+      this.marshaller = marshaller;
+   }
+
+   @Override
+   public Type getType() {
+      return type;
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public K getKey() {
+      if (key == null)
+         key = (K) unmarshall(keyBytes);
+      return key;
+   }
+
+   public byte[] getKeyBytes() {
+      return keyBytes;
+   }
+
+   @Override
+   public long getVersion() {
+      return version;
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public V getValue() {
+      if (value == null && valueBytes != null)
+         value = (V) unmarshall(valueBytes);
+      return value;
+   }
+
+   private Object unmarshall(byte[] bytes) {
+      try {
+         return marshaller.objectFromByteBuffer(bytes);
+      } catch (Exception e) {
+         throw new HotRodClientException("Unable to unmarshall byte stream", e);
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "ClientEventImpl{type=" + type + ", version=" + version + "}";
+   }
+}
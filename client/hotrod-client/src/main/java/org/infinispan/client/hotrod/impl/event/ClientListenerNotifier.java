@@ -0,0 +1,327 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.event;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientCacheFailover;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheFailoverEvent;
+import org.infinispan.client.hotrod.event.ClientEvent;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.operations.AddClientListenerOperation;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.marshall.Marshaller;
+
+/**
+ * Registers the client listeners of a remote cache with the servers, and delivers the events the servers push back.
+ * <p/>
+ * A listener is added to every server the client knows of, each over a connection of its own, from which a daemon
+ * thread reads the events and invokes the methods of the listener. When one of these connections is lost, the
+ * listener gets a {@link ClientCacheFailoverEvent}, as the events sent in the meantime are lost too, and it is added
+ * again to the server if the server is still part of the topology. When the topology brings new servers, the listener
+ * is added to them too, and also gets a failover event for each of them, since they may have sent events before.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+public class ClientListenerNotifier {
+
+   private static final Log log = LogFactory.getLog(ClientListenerNotifier.class, Log.class);
+
+   private final OperationsFactory operationsFactory;
+   private final Marshaller marshaller;
+   private final ExecutorService executorService;
+   private final ConcurrentMap<Object, Registration> registrations = new ConcurrentHashMap<Object, Registration>();
+
+   // runs in the thread which got the new topology, the listeners are added to the new servers in the background
+   private final Runnable serversAddedListener = new Runnable() {
+      @Override
+      public void run() {
+         if (registrations.isEmpty())
+            return;
+         executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+               for (Registration registration : registrations.values())
+                  registration.addToNewServers();
+            }
+         });
+      }
+   };
+
+   /**
+    * @param executorService the executor adding the listeners to the servers joining the cluster
+    */
+   public ClientListenerNotifier(OperationsFactory operationsFactory, Marshaller marshaller,
+         ExecutorService executorService) {
+      this.operationsFactory = operationsFactory;
+      this.marshaller = marshaller;
+      this.executorService = executorService;
+      operationsFactory.addServersAddedListener(serversAddedListener);
+   }
+
+   public void addClientListener(Object listener) {
+      ClientListener annotation = listener.getClass().getAnnotation(ClientListener.class);
+      if (annotation == null)
+         throw new IllegalArgumentException("Client listener " + listener.getClass().getName()
+               + " must be annotated with @" + ClientListener.class.getSimpleName());
+      if (!operationsFactory.isClientListenerSupported())
+         throw new UnsupportedOperationException("Client listeners require version 1.3 of the Hot Rod protocol");
+
+      Registration registration = new Registration(listener, annotation.includeValues());
+      if (registrations.putIfAbsent(listener, registration) != null)
+         return;
+
+      for (SocketAddress server : operationsFactory.getServers())
+         registration.addTo(server);
+
+      if (!registration.isAdded()) {
+         registrations.remove(listener);
+         throw new HotRodClientException("Unable to add client listener " + listener + " to any server");
+      }
+   }
+
+   public void removeClientListener(Object listener) {
+      Registration registration = registrations.remove(listener);
+      if (registration != null)
+         registration.stop(true);
+   }
+
+   public Set<Object> getClientListeners() {
+      return Collections.unmodifiableSet(registrations.keySet());
+   }
+
+   public void stop() {
+      operationsFactory.removeServersAddedListener(serversAddedListener);
+      for (Object listener : registrations.keySet())
+         removeClientListener(listener);
+   }
+
+   private static byte[] newListenerId() {
+      UUID uuid = UUID.randomUUID();
+      return ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+   }
+
+   private final class Registration {
+      final Object listener;
+      final boolean includeValues;
+      final byte[] listenerId = newListenerId();
+      final Map<ClientEvent.Type, List<Method>> methods = new HashMap<ClientEvent.Type, List<Method>>();
+      // the servers the listener is added to, or being added to if their reader is still null
+      final Map<SocketAddress, EventReader> readers = new HashMap<SocketAddress, EventReader>();
+      volatile boolean stopped;
+
+      Registration(Object listener, boolean includeValues) {
+         this.listener = listener;
+         this.includeValues = includeValues;
+         findMethods(ClientEvent.Type.CLIENT_CACHE_ENTRY_CREATED, ClientCacheEntryCreated.class);
+         findMethods(ClientEvent.Type.CLIENT_CACHE_ENTRY_MODIFIED, ClientCacheEntryModified.class);
+         findMethods(ClientEvent.Type.CLIENT_CACHE_ENTRY_REMOVED, ClientCacheEntryRemoved.class);
+         findMethods(ClientEvent.Type.CLIENT_CACHE_FAILOVER, ClientCacheFailover.class);
+      }
+
+      private void findMethods(ClientEvent.Type type, Class<? extends Annotation> annotation) {
+         List<Method> found = new ArrayList<Method>();
+         for (Method m : listener.getClass().getMethods()) {
+            if (m.isAnnotationPresent(annotation)) {
+               Class<?>[] params = m.getParameterTypes();
+               if (params.length != 1 || !ClientEvent.class.isAssignableFrom(params[0]))
+                  throw new IllegalArgumentException("Method " + m + " annotated with @" + annotation.getSimpleName()
+                        + " must take a single event parameter");
+               m.setAccessible(true);
+               found.add(m);
+            }
+         }
+         methods.put(type, found);
+      }
+
+      /**
+       * Adds the listener to the server, unless it is already added to it or being added by another thread. The
+       * server replaces the listener with the same id, so it must not be added twice.
+       *
+       * @return true if the listener was added
+       */
+      boolean addTo(SocketAddress server) {
+         synchronized (this) {
+            if (stopped || readers.containsKey(server))
+               return false;
+            readers.put(server, null);
+         }
+         AddClientListenerOperation op = operationsFactory.newAddClientListenerOperation(
+               server, listenerId, includeValues);
+         try {
+            op.execute();
+         } catch (HotRodClientException e) {
+            log.unableToAddClientListener(listener, server, e);
+            synchronized (this) {
+               readers.remove(server);
+            }
+            return false;
+         }
+         synchronized (this) {
+            if (stopped) {
+               op.close();
+               return false;
+            }
+            EventReader reader = new EventReader(this, op);
+            readers.put(server, reader);
+            reader.start();
+         }
+         return true;
+      }
+
+      void addToNewServers() {
+         for (SocketAddress server : operationsFactory.getServers()) {
+            if (addTo(server)) {
+               // the server may have sent events before the listener was added to it
+               dispatch(new FailoverEvent(server));
+            }
+         }
+      }
+
+      synchronized boolean isAdded() {
+         return !readers.isEmpty();
+      }
+
+      synchronized void remove(EventReader reader) {
+         SocketAddress server = reader.op.getServer();
+         if (readers.get(server) == reader)
+            readers.remove(server);
+      }
+
+      synchronized void stop(boolean removeFromServers) {
+         stopped = true;
+         for (EventReader reader : readers.values()) {
+            if (reader == null)
+               continue; // the thread adding it closes it
+            if (removeFromServers && reader.op.isOpen()) {
+               try {
+                  operationsFactory.newRemoveClientListenerOperation(reader.op.getServer(), listenerId).execute();
+               } catch (HotRodClientException e) {
+                  // The server removes the listener anyway once the connection is closed
+                  log.tracef(e, "Unable to remove client listener %s from %s", listener, reader.op.getServer());
+               }
+            }
+            reader.op.close();
+         }
+         readers.clear();
+      }
+
+      void dispatch(ClientEvent event) {
+         List<Method> targets = methods.get(event.getType());
+         for (Method m : targets) {
+            try {
+               m.invoke(listener, event);
+            } catch (InvocationTargetException e) {
+               log.clientListenerFailed(listener, e.getCause());
+            } catch (Exception e) {
+               log.clientListenerFailed(listener, e);
+            }
+         }
+      }
+   }
+
+   private final class EventReader extends Thread {
+      final Registration registration;
+      final AddClientListenerOperation op;
+
+      EventReader(Registration registration, AddClientListenerOperation op) {
+         super("HotRodClientListener-" + op.getServer());
+         setDaemon(true);
+         this.registration = registration;
+         this.op = op;
+      }
+
+      @Override
+      public void run() {
+         while (!registration.stopped) {
+            ClientEvent event;
+            try {
+               event = op.readEvent(marshaller);
+            } catch (HotRodClientException e) {
+               if (!registration.stopped) {
+                  SocketAddress server = op.getServer();
+                  log.clientListenerConnectionLost(server, registration.listener, e);
+                  op.close();
+                  registration.remove(this);
+                  registration.dispatch(new FailoverEvent(server));
+                  // e.g. the server closed the connection of a listener not keeping up with the events
+                  if (operationsFactory.getServers().contains(server))
+                     registration.addTo(server);
+               }
+               return;
+            }
+            registration.dispatch(event);
+         }
+      }
+   }
+
+   private static final class FailoverEvent implements ClientCacheFailoverEvent {
+      private final SocketAddress server;
+
+      FailoverEvent(SocketAddress server) {
+         this.server = server;
+      }
+
+      @Override
+      public SocketAddress getServer() {
+         return server;
+      }
+
+      @Override
+      public Type getType() {
+         return Type.CLIENT_CACHE_FAILOVER;
+      }
+
+      @Override
+      public String toString() {
+         return "ClientCacheFailoverEvent{server=" + server + "}";
+      }
+   }
+}
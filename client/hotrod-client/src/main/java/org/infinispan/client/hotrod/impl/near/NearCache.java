@@ -0,0 +1,178 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.near;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.AnyEquivalence;
+import org.infinispan.util.ByteArrayEquivalence;
+import org.infinispan.util.CollectionFactory;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+
+/**
+ * Bounded cache, on the client, of the values read from a remote cache. When full, the least recently used entry is
+ * evicted.
+ * <p/>
+ * Entries are keyed by the marshalled key, so that they can be invalidated without unmarshalling anything, and hold
+ * the unmarshalled value together with its version on the server. An entry is served without contacting the server
+ * for {@code validationInterval} after it was last validated; past that, the caller is expected to check the version
+ * on the server and either {@link Entry#revalidate() revalidate} the entry or replace it.
+ * <p/>
+ * Values read from the server must be cached with the {@link #stamp(byte[]) stamp} of the key taken before reading
+ * them, and the stamp {@link #release(byte[], Object) released} afterwards, so that a value read concurrently with an
+ * invalidation of the same key is not cached after it. Invalidations of other keys don't affect the read.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+public class NearCache {
+
+   private final long validationIntervalNanos;
+   private final ConcurrentMap<byte[], Entry> entries;
+   // Stamps of the keys being read from the server, which an invalidation of the key removes
+   private final ConcurrentMap<byte[], Object> pending;
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+
+   public NearCache(int maxEntries, long validationInterval, TimeUnit unit) {
+      if (maxEntries <= 0)
+         throw new IllegalArgumentException("maxEntries must be positive");
+      this.validationIntervalNanos = unit.toNanos(validationInterval);
+      this.entries = new BoundedConcurrentHashMap<byte[], Entry>(maxEntries, 16,
+            BoundedConcurrentHashMap.Eviction.LRU, ByteArrayEquivalence.INSTANCE, AnyEquivalence.<Entry>getInstance());
+      this.pending = CollectionFactory.makeConcurrentMap(
+            ByteArrayEquivalence.INSTANCE, AnyEquivalence.getInstance());
+   }
+
+   /**
+    * @return the cached entry of the key, or null if there is none
+    */
+   public Entry get(byte[] key) {
+      return entries.get(key);
+   }
+
+   /**
+    * @return whether the entry can be served without checking its version on the server
+    */
+   public boolean isFresh(Entry entry) {
+      return System.nanoTime() - entry.validated < validationIntervalNanos;
+   }
+
+   /**
+    * @return a stamp to pass to {@link #put(byte[], Object, long, Object)} for a value of the key about to be read
+    */
+   public Object stamp(byte[] key) {
+      Object stamp = new Object();
+      pending.put(key, stamp);
+      return stamp;
+   }
+
+   /**
+    * Releases a stamp taken with {@link #stamp(byte[])}, once the value has been read, whether it was cached or not.
+    */
+   public void release(byte[] key, Object stamp) {
+      pending.remove(key, stamp);
+   }
+
+   /**
+    * Caches a value read from the server, unless the key was invalidated, or read again, since {@code stamp} was
+    * taken.
+    */
+   public void put(byte[] key, Object value, long version, Object stamp) {
+      Entry entry = new Entry(value, version);
+      entries.put(key, entry);
+      // An invalidation removes the stamp before the entry, so either it removes this entry, or it is seen here
+      if (pending.get(key) != stamp)
+         entries.remove(key, entry);
+   }
+
+   public void invalidate(byte[] key) {
+      pending.remove(key);
+      entries.remove(key);
+   }
+
+   public void clear() {
+      pending.clear();
+      entries.clear();
+   }
+
+   public int size() {
+      return entries.size();
+   }
+
+   public void recordHit() {
+      hits.incrementAndGet();
+   }
+
+   public void recordMiss() {
+      misses.incrementAndGet();
+   }
+
+   public long getHits() {
+      return hits.get();
+   }
+
+   public long getMisses() {
+      return misses.get();
+   }
+
+   /**
+    * @return the ratio of reads served by the near cache, or 0 if nothing was read yet
+    */
+   public double getHitRatio() {
+      long h = hits.get();
+      long total = h + misses.get();
+      return total == 0 ? 0 : (double) h / total;
+   }
+
+   public static final class Entry {
+      private final Object value;
+      private final long version;
+      private volatile long validated;
+
+      Entry(Object value, long version) {
+         this.value = value;
+         this.version = version;
+         this.validated = System.nanoTime();
+      }
+
+      public Object getValue() {
+         return value;
+      }
+
+      public long getVersion() {
+         return version;
+      }
+
+      /**
+       * Marks the entry as matching the server again, after its version was checked.
+       */
+      public void revalidate() {
+         validated = System.nanoTime();
+      }
+   }
+}
@@ -74,6 +74,13 @@ protected short sendKeyOperation(byte[] key, Transport transport, byte opCode, b
       return readHeaderAndValidate(transport, params);
    }
 
+   //[header][key length][key]
+   protected HeaderParams writeKeyRequest(Transport transport, short opCode) {
+      HeaderParams params = writeHeader(transport, opCode);
+      transport.writeArray(key);
+      return params;
+   }
+
    protected byte[] returnPossiblePrevValue(Transport transport) {
       if (hasForceReturn(flags)) {
          byte[] bytes = transport.readArray();
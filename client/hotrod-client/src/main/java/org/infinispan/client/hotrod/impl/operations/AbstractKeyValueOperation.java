@@ -55,7 +55,7 @@ protected AbstractKeyValueOperation(Codec codec, TransportFactory transportFacto
    }
 
    //[header][key length][key][lifespan][max idle][value length][value]
-   protected short sendPutOperation(Transport transport, short opCode, byte opRespCode) {
+   protected HeaderParams writePutRequest(Transport transport, short opCode) {
       // 1) write header
       HeaderParams params = writeHeader(transport, opCode);
 
@@ -64,6 +64,11 @@ protected short sendPutOperation(Transport transport, short opCode, byte opRespC
       transport.writeVInt(lifespan);
       transport.writeVInt(maxIdle);
       transport.writeArray(value);
+      return params;
+   }
+
+   protected short sendPutOperation(Transport transport, short opCode, byte opRespCode) {
+      HeaderParams params = writePutRequest(transport, opCode);
       transport.flush();
 
       // 3) now read header
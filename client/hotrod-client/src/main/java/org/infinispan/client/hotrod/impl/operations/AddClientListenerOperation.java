@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.infinispan.client.hotrod.event.ClientEvent;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.impl.event.ClientEventImpl;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.ClientEventTransport;
+import org.infinispan.marshall.Marshaller;
+
+/**
+ * Adds a client listener to a server. The server pushes the events of the listener over the connection the listener
+ * was added from, so the operation opens a connection of its own, from which the events are then read with
+ * {@link #readEvent}, until {@link #close()}.
+ * <p/>
+ * Request: [header][listener id][include values]. Events: [header][listener id][event type][key][version][has value]
+ * followed by the value, if any.
+ *
+ * @since 5.3
+ */
+@NotThreadSafe
+public class AddClientListenerOperation extends HotRodOperation {
+
+   private final TransportFactory transportFactory;
+   private final SocketAddress server;
+   private final byte[] listenerId;
+   private final boolean includeValues;
+   private ClientEventTransport transport;
+   private HeaderParams params;
+
+   public AddClientListenerOperation(Codec codec, TransportFactory transportFactory, byte[] cacheName,
+         AtomicInteger topologyId, SocketAddress server, byte[] listenerId, boolean includeValues) {
+      super(codec, null, cacheName, topologyId);
+      this.transportFactory = transportFactory;
+      this.server = server;
+      this.listenerId = listenerId;
+      this.includeValues = includeValues;
+   }
+
+   @Override
+   public Object execute() {
+      transport = new ClientEventTransport(server, transportFactory);
+      try {
+         params = writeHeader(transport, ADD_CLIENT_LISTENER_REQUEST);
+         transport.writeArray(listenerId);
+         transport.writeByte((short) (includeValues ? 1 : 0));
+         transport.flush();
+
+         short status = readHeaderAndValidate(transport, params);
+         if (status != NO_ERROR_STATUS)
+            throw new InvalidResponseException("Unexpected response status: " + Integer.toHexString(status));
+         params.clientEvent();
+         transport.disableReadTimeout();
+      } catch (RuntimeException e) {
+         close();
+         throw e;
+      }
+      return null;
+   }
+
+   public SocketAddress getServer() {
+      return server;
+   }
+
+   /**
+    * Blocks until the next event pushed by the server is read.
+    */
+   public ClientEventImpl<Object, Object> readEvent(Marshaller marshaller) {
+      readHeaderAndValidate(transport, params);
+      transport.readArray(); // listener id, as there's only one listener per connection
+      short eventType = transport.readByte();
+      byte[] key = transport.readArray();
+      long version = transport.readLong();
+      byte[] value = transport.readByte() == 1 ? transport.readArray() : null;
+      return new ClientEventImpl<Object, Object>(toEventType(eventType), key, version, value, marshaller);
+   }
+
+   public boolean isOpen() {
+      return transport != null && transport.isValid();
+   }
+
+   /**
+    * Closes the connection, which the server takes as the removal of the listener.
+    */
+   public void close() {
+      if (transport != null) {
+         transport.invalidate();
+         transport.destroy();
+      }
+   }
+
+   private ClientEvent.Type toEventType(short eventType) {
+      switch (eventType) {
+         case CLIENT_CACHE_ENTRY_CREATED:
+            return ClientEvent.Type.CLIENT_CACHE_ENTRY_CREATED;
+         case CLIENT_CACHE_ENTRY_MODIFIED:
+            return ClientEvent.Type.CLIENT_CACHE_ENTRY_MODIFIED;
+         case CLIENT_CACHE_ENTRY_REMOVED:
+            return ClientEvent.Type.CLIENT_CACHE_ENTRY_REMOVED;
+         default:
+            throw new InvalidResponseException("Unknown event type: " + Integer.toHexString(eventType));
+      }
+   }
+}
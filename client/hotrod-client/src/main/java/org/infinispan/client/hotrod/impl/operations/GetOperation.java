@@ -25,6 +25,7 @@
 import net.jcip.annotations.Immutable;
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
@@ -37,7 +38,7 @@
  * @since 4.1
  */
 @Immutable
-public class GetOperation extends AbstractKeyOperation<byte[]> {
+public class GetOperation extends AbstractKeyOperation<byte[]> implements PipelinedOperation<byte[]> {
 
    public GetOperation(Codec codec, TransportFactory transportFactory,
          byte[] key, byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
@@ -46,8 +47,20 @@ public GetOperation(Codec codec, TransportFactory transportFactory,
 
    @Override
    public byte[] executeOperation(Transport transport) {
+      HeaderParams params = writeRequest(transport);
+      transport.flush();
+      return readResponse(transport, params);
+   }
+
+   @Override
+   public HeaderParams writeRequest(Transport transport) {
+      return writeKeyRequest(transport, GET_REQUEST);
+   }
+
+   @Override
+   public byte[] readResponse(Transport transport, HeaderParams params) {
+      short status = readHeaderAndValidate(transport, params);
       byte[] result = null;
-      short status = sendKeyOperation(key, transport, GET_REQUEST, GET_RESPONSE);
       if (status == KEY_DOES_NOT_EXIST_STATUS) {
          result = null;
       } else {
@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.operations;
+
+import net.jcip.annotations.Immutable;
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.streaming.StreamChunk;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads one chunk of a value, along with the description of the stream it
+ * belongs to. A value stored with a regular put is returned as a stream of a
+ * single chunk.
+ *
+ * @since 5.3
+ */
+@Immutable
+public class GetStreamOperation extends AbstractKeyOperation<StreamChunk> {
+
+   private final int index;
+
+   public GetStreamOperation(Codec codec, TransportFactory transportFactory, byte[] key, byte[] cacheName,
+                             AtomicInteger topologyId, Flag[] flags, int index) {
+      super(codec, transportFactory, key, cacheName, topologyId, flags);
+      this.index = index;
+   }
+
+   //[header][key length][key][chunk index]
+   @Override
+   protected StreamChunk executeOperation(Transport transport) {
+      HeaderParams params = writeKeyRequest(transport, GET_STREAM_REQUEST);
+      transport.writeVInt(index);
+      transport.flush();
+
+      short status = readHeaderAndValidate(transport, params);
+      if (status == NO_ERROR_STATUS) {
+         long streamId = transport.readLong();
+         int chunkCount = transport.readVInt();
+         long length = transport.readVLong();
+         return new StreamChunk(streamId, chunkCount, length, transport.readArray());
+      }
+      // The key does not exist, or the chunk has gone, e.g. because the value has been replaced
+      return null;
+   }
+}
@@ -26,13 +26,19 @@
 
 import org.infinispan.api.BasicCacheContainer;
 import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.async.PipelinedResponseFuture;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.util.concurrent.NotifyingFuture;
 
+import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -146,6 +152,136 @@ public BulkGetKeysOperation newBulkGetKeysOperation(int scope) {
     		codec, transportFactory, cacheNameBytes, topologyId, flags(), scope);
    }
 
+   /**
+    * Construct get all requests for the given keys, one per server owning
+    * some of them. If the client is not aware of the distribution of keys,
+    * a single request is sent to any server.
+    */
+   public List<GetAllOperation> newGetAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = flags();
+      Map<SocketAddress, List<byte[]>> keysByServer = groupKeysByServer(keys);
+      List<GetAllOperation> ops = new ArrayList<GetAllOperation>(keysByServer.size());
+      for (Map.Entry<SocketAddress, List<byte[]>> e : keysByServer.entrySet()) {
+         ops.add(new GetAllOperation(
+               codec, transportFactory, e.getValue(), cacheNameBytes, topologyId, flags, e.getKey()));
+      }
+      return ops;
+   }
+
+   /**
+    * Construct put all requests for the given entries, one per server owning
+    * some of the keys. If the client is not aware of the distribution of keys,
+    * a single request is sent to any server.
+    */
+   public List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries, int lifespan, int maxIdle) {
+      Flag[] flags = flags();
+      Map<SocketAddress, List<byte[]>> keysByServer = groupKeysByServer(entries.keySet());
+      List<PutAllOperation> ops = new ArrayList<PutAllOperation>(keysByServer.size());
+      for (Map.Entry<SocketAddress, List<byte[]>> e : keysByServer.entrySet()) {
+         Map<byte[], byte[]> serverEntries = new HashMap<byte[], byte[]>();
+         for (byte[] key : e.getValue())
+            serverEntries.put(key, entries.get(key));
+         ops.add(new PutAllOperation(
+               codec, transportFactory, serverEntries, cacheNameBytes, topologyId, flags,
+               lifespan, maxIdle, e.getKey()));
+      }
+      return ops;
+   }
+
+   public PutStreamChunkOperation newPutStreamChunkOperation(byte[] key, Flag[] flags, long streamId, int index,
+                                                             byte[] chunk, int lifespanSeconds, int maxIdleSeconds) {
+      return new PutStreamChunkOperation(
+            codec, transportFactory, key, cacheNameBytes, topologyId, flags, streamId, index, chunk,
+            lifespanSeconds, maxIdleSeconds);
+   }
+
+   public PutStreamEndOperation newPutStreamEndOperation(byte[] key, Flag[] flags, long streamId, int chunkCount,
+                                                         long length, int lifespanSeconds, int maxIdleSeconds) {
+      return new PutStreamEndOperation(
+            codec, transportFactory, key, cacheNameBytes, topologyId, flags, streamId, chunkCount, length,
+            lifespanSeconds, maxIdleSeconds);
+   }
+
+   public GetStreamOperation newGetStreamOperation(byte[] key, Flag[] flags, int index) {
+      return new GetStreamOperation(
+            codec, transportFactory, key, cacheNameBytes, topologyId, flags, index);
+   }
+
+   /**
+    * Creates the operation adding a client listener to the given server, which opens a connection of its own.
+    */
+   public AddClientListenerOperation newAddClientListenerOperation(SocketAddress server, byte[] listenerId,
+         boolean includeValues) {
+      return new AddClientListenerOperation(
+            codec, transportFactory, cacheNameBytes, topologyId, server, listenerId, includeValues);
+   }
+
+   public RemoveClientListenerOperation newRemoveClientListenerOperation(SocketAddress server, byte[] listenerId) {
+      return new RemoveClientListenerOperation(
+            codec, transportFactory, cacheNameBytes, topologyId, server, listenerId);
+   }
+
+   /**
+    * Returns the servers the client currently knows of.
+    */
+   public Collection<SocketAddress> getServers() {
+      return new ArrayList<SocketAddress>(transportFactory.getServers());
+   }
+
+   /**
+    * @see TransportFactory#addServersAddedListener(Runnable)
+    */
+   public void addServersAddedListener(Runnable listener) {
+      transportFactory.addServersAddedListener(listener);
+   }
+
+   public void removeServersAddedListener(Runnable listener) {
+      transportFactory.removeServersAddedListener(listener);
+   }
+
+   /**
+    * Returns, and clears, the flags set for the next operation of the calling
+    * thread. Streams use them for all the operations they create later on,
+    * possibly from other threads.
+    */
+   public Flag[] takeFlags() {
+      return flags();
+   }
+
+   /**
+    * Whether the protocol version in use supports the streaming operations.
+    */
+   public boolean isStreamingSupported() {
+      return codec.isStreamingSupported();
+   }
+
+   /**
+    * Whether the protocol version in use supports the get all and put all operations.
+    */
+   public boolean isBulkKeyOperationSupported() {
+      return codec.isBulkKeyOperationSupported();
+   }
+
+   /**
+    * Whether the protocol version in use supports client listeners.
+    */
+   public boolean isClientListenerSupported() {
+      return codec.isClientListenerSupported();
+   }
+
+   public boolean isPipeliningEnabled() {
+      return transportFactory.isPipeliningEnabled();
+   }
+
+   /**
+    * Sends the operation over a pipelined connection to the server owning the key. Unlike
+    * {@link HotRodOperation#execute()}, the calling thread doesn't wait for the response and the operation is not
+    * retried if the connection fails.
+    */
+   public <T> NotifyingFuture<T> executePipelined(byte[] key, PipelinedOperation<T> op) {
+      return PipelinedResponseFuture.send(transportFactory, key, op);
+   }
+
    /**
     * Construct a ping request directed to a particular node.
     *
@@ -168,6 +304,20 @@ public FaultTolerantPingOperation newFaultTolerantPingOperation() {
             codec, transportFactory, cacheNameBytes, topologyId, flags());
    }
 
+   private Map<SocketAddress, List<byte[]>> groupKeysByServer(Collection<byte[]> keys) {
+      Map<SocketAddress, List<byte[]>> keysByServer = new HashMap<SocketAddress, List<byte[]>>();
+      for (byte[] key : keys) {
+         SocketAddress server = transportFactory.getServer(key);
+         List<byte[]> serverKeys = keysByServer.get(server);
+         if (serverKeys == null) {
+            serverKeys = new ArrayList<byte[]>();
+            keysByServer.put(server, serverKeys);
+         }
+         serverKeys.add(key);
+      }
+      return keysByServer;
+   }
+
    private Flag[] flags() {
       List<Flag> flags = this.flagsMap.get();
       this.flagsMap.remove();
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.operations;
+
+import net.jcip.annotations.Immutable;
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores several entries in a single request. All the entries share the same
+ * lifespan and max idle time.
+ * <p/>
+ * If a target server is given, the request is sent to it first, so that the
+ * entries are stored by their owner. Retries go to any available server.
+ *
+ * @since 5.3
+ */
+@Immutable
+public class PutAllOperation extends RetryOnFailureOperation<Void> {
+
+   private final Map<byte[], byte[]> entries;
+
+   private final int lifespan;
+
+   private final int maxIdle;
+
+   private final SocketAddress server;
+
+   public PutAllOperation(Codec codec, TransportFactory transportFactory, Map<byte[], byte[]> entries,
+                          byte[] cacheName, AtomicInteger topologyId, Flag[] flags,
+                          int lifespan, int maxIdle, SocketAddress server) {
+      super(codec, transportFactory, cacheName, topologyId, flags);
+      this.entries = entries;
+      this.lifespan = lifespan;
+      this.maxIdle = maxIdle;
+      this.server = server;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      if (retryCount == 0 && server != null)
+         return transportFactory.getAddressTransport(server);
+      return transportFactory.getTransport();
+   }
+
+   //[header][lifespan][max idle][entry count][key length][key][value length][value]...
+   @Override
+   protected Void executeOperation(Transport transport) {
+      HeaderParams params = writeHeader(transport, PUT_ALL_REQUEST);
+      transport.writeVInt(lifespan);
+      transport.writeVInt(maxIdle);
+      transport.writeVInt(entries.size());
+      for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+         transport.writeArray(entry.getKey());
+         transport.writeArray(entry.getValue());
+      }
+      transport.flush();
+
+      readHeaderAndValidate(transport, params);
+      return null;
+   }
+}
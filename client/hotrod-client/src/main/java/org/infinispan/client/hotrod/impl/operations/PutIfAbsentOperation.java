@@ -28,6 +28,7 @@
 
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 import org.infinispan.util.Util;
@@ -42,7 +43,7 @@
  * @since 4.1
  */
 @Immutable
-public class PutIfAbsentOperation extends AbstractKeyValueOperation<byte[]> {
+public class PutIfAbsentOperation extends AbstractKeyValueOperation<byte[]> implements PipelinedOperation<byte[]> {
 
    private static final BasicLogger log = BasicLogFactory.getLog(PutIfAbsentOperation.class);
 
@@ -54,7 +55,19 @@ public PutIfAbsentOperation(Codec codec, TransportFactory transportFactory,
 
    @Override
    protected byte[] executeOperation(Transport transport) {
-      short status = sendPutOperation(transport, PUT_IF_ABSENT_REQUEST, PUT_IF_ABSENT_RESPONSE);
+      HeaderParams params = writeRequest(transport);
+      transport.flush();
+      return readResponse(transport, params);
+   }
+
+   @Override
+   public HeaderParams writeRequest(Transport transport) {
+      return writePutRequest(transport, PUT_IF_ABSENT_REQUEST);
+   }
+
+   @Override
+   public byte[] readResponse(Transport transport, HeaderParams params) {
+      short status = readHeaderAndValidate(transport, params);
       byte[] previousValue = null;
       if (status == NO_ERROR_STATUS || status == NOT_PUT_REMOVED_REPLACED_STATUS) {
          previousValue = returnPossiblePrevValue(transport);
@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.operations;
+
+import net.jcip.annotations.Immutable;
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends one chunk of a value written with
+ * {@link org.infinispan.client.hotrod.RemoteCache#putStream(Object)}. The
+ * server stores each chunk as an entry of a private cache, so the value is
+ * only visible once the {@link PutStreamEndOperation} of the same stream has
+ * been sent.
+ *
+ * @since 5.3
+ */
+@Immutable
+public class PutStreamChunkOperation extends AbstractKeyOperation<Void> {
+
+   private final long streamId;
+
+   private final int index;
+
+   private final byte[] chunk;
+
+   private final int lifespan;
+
+   private final int maxIdle;
+
+   public PutStreamChunkOperation(Codec codec, TransportFactory transportFactory, byte[] key, byte[] cacheName,
+                                  AtomicInteger topologyId, Flag[] flags, long streamId, int index, byte[] chunk,
+                                  int lifespan, int maxIdle) {
+      super(codec, transportFactory, key, cacheName, topologyId, flags);
+      this.streamId = streamId;
+      this.index = index;
+      this.chunk = chunk;
+      this.lifespan = lifespan;
+      this.maxIdle = maxIdle;
+   }
+
+   //[header][key length][key][lifespan][max idle][stream id][chunk index][chunk length][chunk]
+   @Override
+   protected Void executeOperation(Transport transport) {
+      HeaderParams params = writeKeyRequest(transport, PUT_STREAM_CHUNK_REQUEST);
+      transport.writeVInt(lifespan);
+      transport.writeVInt(maxIdle);
+      transport.writeLong(streamId);
+      transport.writeVInt(index);
+      transport.writeArray(chunk);
+      transport.flush();
+
+      short status = readHeaderAndValidate(transport, params);
+      if (status != NO_ERROR_STATUS)
+         throw new InvalidResponseException("Unexpected response status: " + Integer.toHexString(status));
+      return null;
+   }
+}
@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Removes a client listener from a server, which then stops pushing its events.
+ *
+ * @since 5.3
+ */
+@Immutable
+public class RemoveClientListenerOperation extends RetryOnFailureOperation<Boolean> {
+
+   private final SocketAddress server;
+   private final byte[] listenerId;
+
+   public RemoveClientListenerOperation(Codec codec, TransportFactory transportFactory, byte[] cacheName,
+         AtomicInteger topologyId, SocketAddress server, byte[] listenerId) {
+      super(codec, transportFactory, cacheName, topologyId, null);
+      this.server = server;
+      this.listenerId = listenerId;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      return transportFactory.getAddressTransport(server);
+   }
+
+   @Override
+   protected Boolean executeOperation(Transport transport) {
+      HeaderParams params = writeHeader(transport, REMOVE_CLIENT_LISTENER_REQUEST);
+      transport.writeArray(listenerId);
+      transport.flush();
+      return readHeaderAndValidate(transport, params) == NO_ERROR_STATUS;
+   }
+}
@@ -42,6 +42,24 @@ public interface Codec {
     */
    short readHeader(Transport transport, HeaderParams params);
 
+   /**
+    * Whether the protocol version supports the get all and put all operations,
+    * which send several entries in a single request.
+    */
+   boolean isBulkKeyOperationSupported();
+
+   /**
+    * Whether the protocol version supports the streaming operations, which
+    * transfer a value in several chunks.
+    */
+   boolean isStreamingSupported();
+
+   /**
+    * Whether the protocol version supports client listeners, to which the
+    * server pushes the modifications of the cache.
+    */
+   boolean isClientListenerSupported();
+
    /**
     * Logger for Hot Rod client codec
     */
@@ -80,6 +80,21 @@ protected HeaderParams writeHeader(
       return params;
    }
 
+   @Override
+   public boolean isBulkKeyOperationSupported() {
+      return false;
+   }
+
+   @Override
+   public boolean isStreamingSupported() {
+      return false;
+   }
+
+   @Override
+   public boolean isClientListenerSupported() {
+      return false;
+   }
+
    @Override
    public short readHeader(Transport transport, HeaderParams params) {
       short magic = transport.readByte();
@@ -76,6 +76,19 @@ public HeaderParams messageId(long messageId) {
       return this;
    }
 
+   public long getMessageId() {
+      return messageId;
+   }
+
+   /**
+    * Expects the events pushed to the client listener added by the request, rather than the response to the request.
+    * Events carry the message id of that request.
+    */
+   public HeaderParams clientEvent() {
+      this.opRespCode = HotRodConstants.CLIENT_EVENT_RESPONSE;
+      return this;
+   }
+
    private short toOpRespCode(short opCode) {
       switch (opCode) {
          case HotRodConstants.PUT_REQUEST:
@@ -108,6 +121,20 @@ private short toOpRespCode(short opCode) {
             return HotRodConstants.GET_WITH_METADATA_RESPONSE;
          case HotRodConstants.BULK_GET_KEYS_REQUEST:
         	 return HotRodConstants.BULK_GET_KEYS_RESPONSE;
+         case HotRodConstants.GET_ALL_REQUEST:
+            return HotRodConstants.GET_ALL_RESPONSE;
+         case HotRodConstants.PUT_ALL_REQUEST:
+            return HotRodConstants.PUT_ALL_RESPONSE;
+         case HotRodConstants.PUT_STREAM_CHUNK_REQUEST:
+            return HotRodConstants.PUT_STREAM_CHUNK_RESPONSE;
+         case HotRodConstants.PUT_STREAM_END_REQUEST:
+            return HotRodConstants.PUT_STREAM_END_RESPONSE;
+         case HotRodConstants.GET_STREAM_REQUEST:
+            return HotRodConstants.GET_STREAM_RESPONSE;
+         case HotRodConstants.ADD_CLIENT_LISTENER_REQUEST:
+            return HotRodConstants.ADD_CLIENT_LISTENER_RESPONSE;
+         case HotRodConstants.REMOVE_CLIENT_LISTENER_REQUEST:
+            return HotRodConstants.REMOVE_CLIENT_LISTENER_RESPONSE;
          default:
             throw new IllegalStateException("Unknown operation code: " + opCode);
       }
@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.streaming;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a value from a remote cache one chunk at a time, fetching the next
+ * chunk only once the previous one has been consumed. If the value is
+ * replaced or removed while it is being read, reading fails with an
+ * {@link IOException} rather than mixing the chunks of two values.
+ * <p/>
+ * Instances are not thread safe.
+ *
+ * @since 5.3
+ */
+public class RemoteInputStream extends InputStream {
+
+   private final OperationsFactory operationsFactory;
+   private final byte[] key;
+   private final Flag[] flags;
+   private final long streamId;
+   private final int chunkCount;
+   private byte[] chunk;
+   private int index;
+   private int pos;
+
+   /**
+    * @param first the first chunk of the value, which describes the stream
+    */
+   public RemoteInputStream(OperationsFactory operationsFactory, byte[] key, Flag[] flags, StreamChunk first) {
+      this.operationsFactory = operationsFactory;
+      this.key = key;
+      this.flags = flags;
+      this.streamId = first.getStreamId();
+      this.chunkCount = first.getChunkCount();
+      this.chunk = first.getData();
+   }
+
+   @Override
+   public int read() throws IOException {
+      if (!fill())
+         return -1;
+      return chunk[pos++] & 0xff;
+   }
+
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException {
+      if (off < 0 || len < 0 || off + len > b.length)
+         throw new IndexOutOfBoundsException();
+      if (len == 0)
+         return 0;
+      if (!fill())
+         return -1;
+      int n = Math.min(len, chunk.length - pos);
+      System.arraycopy(chunk, pos, b, off, n);
+      pos += n;
+      return n;
+   }
+
+   @Override
+   public int available() throws IOException {
+      ensureOpen();
+      return chunk.length - pos;
+   }
+
+   @Override
+   public void close() throws IOException {
+      chunk = null;
+   }
+
+   /**
+    * Fetches the next chunk if the current one has been consumed.
+    *
+    * @return false if the end of the value has been reached
+    */
+   private boolean fill() throws IOException {
+      ensureOpen();
+      while (pos == chunk.length) {
+         if (index + 1 >= chunkCount)
+            return false;
+
+         StreamChunk next = operationsFactory.newGetStreamOperation(key, flags, index + 1).execute();
+         if (next == null || next.getStreamId() != streamId)
+            throw new IOException("The value has been replaced or removed while being read");
+         index++;
+         chunk = next.getData();
+         pos = 0;
+      }
+      return true;
+   }
+
+   private void ensureOpen() throws IOException {
+      if (chunk == null)
+         throw new IOException("Stream closed");
+   }
+}
@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.streaming;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Writes a value to a remote cache in chunks of {@link #CHUNK_SIZE} bytes,
+ * so that neither the client nor the server ever hold the whole value in a
+ * single array. Each chunk is sent as soon as it is full, and the value is
+ * mapped to the key when the stream is closed. Until then, readers of the key
+ * keep seeing its previous value.
+ * <p/>
+ * {@link #flush()} does not send partial chunks, so that callers flushing
+ * often don't end up with a large number of tiny chunks. Instances are not
+ * thread safe.
+ *
+ * @since 5.3
+ */
+public class RemoteOutputStream extends OutputStream {
+
+   public static final int CHUNK_SIZE = 64 * 1024;
+
+   private static final Random STREAM_IDS = new Random();
+
+   private final OperationsFactory operationsFactory;
+   private final byte[] key;
+   private final Flag[] flags;
+   private final int lifespanSeconds;
+   private final int maxIdleSeconds;
+   private final long streamId;
+   private byte[] buffer = new byte[CHUNK_SIZE];
+   private int count;
+   private int chunkCount;
+   private long length;
+
+   public RemoteOutputStream(OperationsFactory operationsFactory, byte[] key, Flag[] flags,
+                             int lifespanSeconds, int maxIdleSeconds) {
+      this.operationsFactory = operationsFactory;
+      this.key = key;
+      this.flags = flags;
+      this.lifespanSeconds = lifespanSeconds;
+      this.maxIdleSeconds = maxIdleSeconds;
+      this.streamId = STREAM_IDS.nextLong();
+   }
+
+   @Override
+   public void write(int b) throws IOException {
+      ensureOpen();
+      buffer[count++] = (byte) b;
+      if (count == buffer.length)
+         sendChunk();
+   }
+
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException {
+      if (off < 0 || len < 0 || off + len > b.length)
+         throw new IndexOutOfBoundsException();
+      ensureOpen();
+      while (len > 0) {
+         int n = Math.min(len, buffer.length - count);
+         System.arraycopy(b, off, buffer, count, n);
+         count += n;
+         off += n;
+         len -= n;
+         if (count == buffer.length)
+            sendChunk();
+      }
+   }
+
+   @Override
+   public void close() throws IOException {
+      if (buffer == null)
+         return;
+
+      if (count > 0)
+         sendChunk();
+      buffer = null;
+      operationsFactory.newPutStreamEndOperation(
+            key, flags, streamId, chunkCount, length, lifespanSeconds, maxIdleSeconds).execute();
+   }
+
+   private void sendChunk() {
+      // Full chunks are sent straight from the buffer, which can be reused once the operation returns
+      byte[] chunk = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+      operationsFactory.newPutStreamChunkOperation(
+            key, flags, streamId, chunkCount, chunk, lifespanSeconds, maxIdleSeconds).execute();
+      chunkCount++;
+      length += count;
+      count = 0;
+   }
+
+   private void ensureOpen() throws IOException {
+      if (buffer == null)
+         throw new IOException("Stream closed");
+   }
+}
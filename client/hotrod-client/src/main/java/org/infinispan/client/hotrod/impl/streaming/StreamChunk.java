@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.streaming;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A chunk of a streamed value, as returned by
+ * {@link org.infinispan.client.hotrod.impl.operations.GetStreamOperation},
+ * along with the description of the stream it belongs to.
+ *
+ * @since 5.3
+ */
+@Immutable
+public class StreamChunk {
+
+   private final long streamId;
+
+   private final int chunkCount;
+
+   private final long length;
+
+   private final byte[] data;
+
+   public StreamChunk(long streamId, int chunkCount, long length, byte[] data) {
+      this.streamId = streamId;
+      this.chunkCount = chunkCount;
+      this.length = length;
+      this.data = data;
+   }
+
+   /**
+    * Identifies the stream, so that readers can detect that the value has been replaced while they were reading it.
+    */
+   public long getStreamId() {
+      return streamId;
+   }
+
+   public int getChunkCount() {
+      return chunkCount;
+   }
+
+   /**
+    * @return the total number of bytes of the value
+    */
+   public long getLength() {
+      return length;
+   }
+
+   public byte[] getData() {
+      return data;
+   }
+}
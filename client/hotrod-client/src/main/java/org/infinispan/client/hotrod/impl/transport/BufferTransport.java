@@ -0,0 +1,123 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.transport;
+
+import static org.infinispan.io.UnsignedNumeric.writeUnsignedInt;
+import static org.infinispan.io.UnsignedNumeric.writeUnsignedLong;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * Write-only transport which serializes a request into memory, so that it can be sent at once over a connection
+ * shared with other threads.
+ *
+ * @since 5.3
+ */
+public class BufferTransport extends AbstractTransport {
+
+   private final ByteArrayOutputStream buffer;
+
+   public BufferTransport(TransportFactory transportFactory, int sizeEstimate) {
+      super(transportFactory);
+      this.buffer = new ByteArrayOutputStream(sizeEstimate);
+   }
+
+   public byte[] toByteArray() {
+      return buffer.toByteArray();
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      buffer.write(toAppend, 0, toAppend.length);
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      buffer.write(toWrite);
+   }
+
+   @Override
+   public void writeVInt(int vInt) {
+      try {
+         writeUnsignedInt(buffer, vInt);
+      } catch (IOException e) {
+         // ByteArrayOutputStream never throws it
+         throw new IllegalStateException(e);
+      }
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      try {
+         writeUnsignedLong(buffer, l);
+      } catch (IOException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   @Override
+   public void flush() {
+      // Nothing to do, the buffer is sent by the caller
+   }
+
+   @Override
+   public long readVLong() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public int readVInt() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public short readByte() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void release() {
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      return toByteArray();
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return null;
+   }
+
+   @Override
+   public void invalidate() {
+   }
+}
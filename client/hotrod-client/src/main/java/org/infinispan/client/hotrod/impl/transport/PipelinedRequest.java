@@ -0,0 +1,48 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.transport;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+
+/**
+ * A request sent over a pipelined connection, i.e. a connection on which several requests can be waiting for their
+ * responses at the same time. Responses are matched to requests by message id.
+ *
+ * @since 5.3
+ */
+public interface PipelinedRequest {
+
+   /**
+    * Invoked by the thread reading responses of the connection, once the response to this request is next in the
+    * stream. Implementations must consume the whole response, starting with its header. Exceptions other than
+    * plain {@link org.infinispan.client.hotrod.exceptions.HotRodClientException}s, which report error responses
+    * from the server, leave the stream in an unknown state and close the connection.
+    */
+   void readResponse(Transport transport);
+
+   /**
+    * Invoked if the connection fails before the response is received.
+    */
+   void failed(TransportException e);
+}
@@ -58,6 +58,34 @@ public interface TransportFactory {
 
    Transport getTransport(byte[] key);
 
+   /**
+    * Returns the server owning the given key, or <code>null</code> if the
+    * client is not aware of the distribution of keys in the cluster.
+    */
+   SocketAddress getServer(byte[] key);
+
+   /**
+    * Returns a transport connected to the given server.
+    */
+   Transport getAddressTransport(SocketAddress server);
+
+   /**
+    * Returns the servers the client currently knows of.
+    */
+   Collection<SocketAddress> getServers();
+
+   /**
+    * Whether requests can be pipelined, i.e. sent through {@link #sendPipelined(byte[], long, byte[], PipelinedRequest)}.
+    */
+   boolean isPipeliningEnabled();
+
+   /**
+    * Sends an already serialized request over one of the connections shared by pipelined requests to the server
+    * owning the key, without waiting for the response. The callback is invoked once the response for the given
+    * message id is received, or if the connection fails before that.
+    */
+   void sendPipelined(byte[] key, long messageId, byte[] request, PipelinedRequest callback);
+
    boolean isTcpNoDelay();
 
    int getTransportCount();
@@ -69,4 +97,12 @@ public interface TransportFactory {
    void invalidateTransport(SocketAddress serverAddress, Transport transport);
 
    SSLContext getSSLContext();
+
+   /**
+    * Adds a task to run each time {@link #updateServers(Collection)} adds servers to the list of servers. The task
+    * runs in the thread updating the servers, which is reading the response of an operation, so it must not block.
+    */
+   void addServersAddedListener(Runnable listener);
+
+   void removeServersAddedListener(Runnable listener);
 }
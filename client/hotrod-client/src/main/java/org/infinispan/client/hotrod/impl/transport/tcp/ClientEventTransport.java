@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.net.SocketAddress;
+import java.net.SocketException;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Connection over which a server pushes the events of a client listener. It is not pooled: once the listener is
+ * added, a dedicated thread reads the events until the connection is closed.
+ *
+ * @since 5.3
+ */
+public class ClientEventTransport extends TcpTransport {
+
+   public ClientEventTransport(SocketAddress serverAddress, TransportFactory transportFactory) {
+      // Closing the socket must not wait for the thread blocked reading it
+      super(serverAddress, transportFactory, false);
+   }
+
+   /**
+    * Waits for events for as long as the connection is open, rather than timing out.
+    */
+   public void disableReadTimeout() {
+      try {
+         getSocket().setSoTimeout(0);
+      } catch (SocketException e) {
+         throw new TransportException(e, getServerAddress());
+      }
+   }
+}
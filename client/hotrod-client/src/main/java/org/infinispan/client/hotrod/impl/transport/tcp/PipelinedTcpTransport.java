@@ -0,0 +1,249 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.impl.transport.PipelinedRequest;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * TCP connection shared by several threads, which write their requests without waiting for the responses of the
+ * requests sent before. A dedicated thread reads the responses and hands each of them to the request with the same
+ * message id, so callers don't have to block a thread per outstanding request.
+ * <p/>
+ * Hot Rod responses are not length-prefixed, so only the request knows how to decode its response. The reader thread
+ * therefore just peeks at the message id and lets the request consume the rest of the response.
+ * <p/>
+ * A request which gets no response within the socket timeout fails, and so does the connection with all its other
+ * pending requests, since the stream can not be trusted anymore. The number of pending requests is bounded: senders
+ * wait for a response to free a slot, for at most the socket timeout.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+public class PipelinedTcpTransport extends TcpTransport implements Runnable {
+
+   private static final Log log = LogFactory.getLog(PipelinedTcpTransport.class, Log.class);
+
+   /**
+    * Default maximum number of requests waiting for their response on one connection.
+    */
+   public static final int DEFAULT_MAX_PENDING = 1024;
+
+   // magic byte + message id as a vlong
+   private static final int MAX_MESSAGE_ID_PREFIX = 1 + 10;
+
+   private final ConcurrentMap<Long, PendingRequest> pending = new ConcurrentHashMap<Long, PendingRequest>();
+   private final Semaphore pendingPermits;
+   private final Object writeLock = new Object();
+   private final Thread reader;
+   private final int soTimeout;
+   // Pending requests are checked for timeouts at most this often, and at least whenever the socket is idle this long
+   private final long timeoutCheckIntervalNanos;
+   private long nextTimeoutCheck;
+
+   public PipelinedTcpTransport(SocketAddress serverAddress, TransportFactory transportFactory) {
+      this(serverAddress, transportFactory, DEFAULT_MAX_PENDING);
+   }
+
+   public PipelinedTcpTransport(SocketAddress serverAddress, TransportFactory transportFactory, int maxPending) {
+      // The reader thread blocks on the socket while other threads write to it
+      super(serverAddress, transportFactory, false);
+      soTimeout = transportFactory.getSoTimeout();
+      int checkInterval = soTimeout > 0 ? Math.max(1, soTimeout / 4) : 0;
+      timeoutCheckIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkInterval);
+      nextTimeoutCheck = System.nanoTime() + timeoutCheckIntervalNanos;
+      pendingPermits = new Semaphore(maxPending);
+      try {
+         // The reader wakes up regularly to fail the requests which waited too long for their response
+         getSocket().setSoTimeout(checkInterval);
+      } catch (SocketException e) {
+         destroy();
+         throw new TransportException(e, serverAddress);
+      }
+      reader = new Thread(this, "HotRodClient-pipeline-" + getId());
+      reader.setDaemon(true);
+   }
+
+   public void start() {
+      reader.start();
+   }
+
+   /**
+    * Sends a serialized request. The callback is notified when the response with the given message id is read, or
+    * when the connection fails. If too many requests are already waiting for their response, this waits until one of
+    * them completes, or fails the request after the socket timeout.
+    */
+   public void send(long messageId, byte[] request, PipelinedRequest callback) {
+      if (!acquirePendingPermit()) {
+         callback.failed(new TransportException(new SocketTimeoutException(
+               "Timed out waiting for one of the " + getPendingCount() + " pending requests to complete"),
+               getServerAddress()));
+         return;
+      }
+      pending.put(messageId, new PendingRequest(callback, System.nanoTime()));
+      try {
+         synchronized (writeLock) {
+            writeBytes(request);
+            flush();
+         }
+      } catch (TransportException e) {
+         close(e);
+         return;
+      }
+      if (!isValid()) {
+         // The reader may have drained the pending requests before this one was registered
+         PipelinedRequest removed = removePending(messageId);
+         if (removed != null)
+            removed.failed(new TransportException("Connection closed", getServerAddress()));
+      }
+   }
+
+   public int getPendingCount() {
+      return pending.size();
+   }
+
+   private boolean acquirePendingPermit() {
+      try {
+         if (soTimeout > 0)
+            return pendingPermits.tryAcquire(soTimeout, TimeUnit.MILLISECONDS);
+         pendingPermits.acquire();
+         return true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return false;
+      }
+   }
+
+   private PipelinedRequest removePending(long messageId) {
+      PendingRequest removed = pending.remove(messageId);
+      if (removed == null)
+         return null;
+      pendingPermits.release();
+      return removed.request;
+   }
+
+   @Override
+   public void run() {
+      TransportException failure = null;
+      try {
+         while (isValid()) {
+            mark(MAX_MESSAGE_ID_PREFIX);
+            short magic = readByteUnlessTimeout();
+            if (magic < 0) {
+               // Nothing received for a while
+               checkTimeouts(true);
+               continue;
+            }
+            if (magic != HotRodConstants.RESPONSE_MAGIC)
+               throw new InvalidResponseException(String.format(
+                     "Invalid magic number. Expected %#x and received %#x", HotRodConstants.RESPONSE_MAGIC, magic));
+            long messageId = readVLong();
+            resetToMark();
+
+            PipelinedRequest request = removePending(messageId);
+            if (request == null)
+               throw new InvalidResponseException("Received response for unknown message id " + messageId);
+            try {
+               request.readResponse(this);
+            } catch (TransportException e) {
+               throw e;
+            } catch (InvalidResponseException e) {
+               throw e;
+            } catch (HotRodClientException e) {
+               // Error response from the server, which has been read completely and reported to the request. If the
+               // error makes the stream unusable, the codec has invalidated this connection.
+               log.tracef(e, "Error response for message id %d", messageId);
+            }
+            // Responses to other requests may keep coming while one of them never gets its response
+            checkTimeouts(false);
+         }
+      } catch (TransportException e) {
+         failure = e;
+      } catch (RuntimeException e) {
+         failure = new TransportException(e.getMessage(), e, getServerAddress());
+      } finally {
+         if (failure == null)
+            failure = new TransportException("Connection closed", getServerAddress());
+         close(failure);
+      }
+   }
+
+   /**
+    * Fails the connection if a request has been waiting for its response for longer than the socket timeout.
+    */
+   private void checkTimeouts(boolean idle) {
+      if (soTimeout <= 0)
+         return;
+      long now = System.nanoTime();
+      if (!idle && now - nextTimeoutCheck < 0)
+         return;
+      nextTimeoutCheck = now + timeoutCheckIntervalNanos;
+      long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(soTimeout);
+      for (Map.Entry<Long, PendingRequest> e : pending.entrySet()) {
+         if (now - e.getValue().sentNanos > timeoutNanos) {
+            throw new TransportException(new SocketTimeoutException(
+                  "No response for message id " + e.getKey() + " after " + soTimeout + " ms"), getServerAddress());
+         }
+      }
+   }
+
+   private void close(TransportException cause) {
+      invalidate();
+      destroy();
+      if (log.isTraceEnabled())
+         log.tracef(cause, "Closed pipelined connection %s with %d pending requests", this, pending.size());
+      for (Long messageId : pending.keySet()) {
+         PipelinedRequest request = removePending(messageId);
+         if (request != null)
+            request.failed(cause);
+      }
+   }
+
+   private static final class PendingRequest {
+      final PipelinedRequest request;
+      final long sentNanos;
+
+      PendingRequest(PipelinedRequest request, long sentNanos) {
+         this.request = request;
+         this.sentNanos = sentNanos;
+      }
+   }
+}
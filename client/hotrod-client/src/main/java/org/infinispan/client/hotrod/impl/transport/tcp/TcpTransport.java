@@ -34,6 +34,7 @@
 import java.io.InputStream;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -73,6 +74,14 @@ public class TcpTransport extends AbstractTransport {
    private volatile boolean invalid;
 
    public TcpTransport(SocketAddress serverAddress, TransportFactory transportFactory) {
+      this(serverAddress, transportFactory, true);
+   }
+
+   /**
+    * @param useChannel whether to create the socket through a {@link SocketChannel}. The streams of such a socket
+    *                   share a lock, so a thread blocked reading prevents other threads from writing.
+    */
+   protected TcpTransport(SocketAddress serverAddress, TransportFactory transportFactory, boolean useChannel) {
       super(transportFactory);
       this.serverAddress = serverAddress;
       try {
@@ -80,6 +89,9 @@ public TcpTransport(SocketAddress serverAddress, TransportFactory transportFacto
             SSLContext sslContext = transportFactory.getSSLContext();
             socketChannel = null; // We don't use a SocketChannel in the SSL case
             socket = sslContext.getSocketFactory().createSocket();
+         } else if (!useChannel) {
+            socketChannel = null;
+            socket = new Socket();
          } else {
             socketChannel = SocketChannel.open();
             socket = socketChannel.socket();
@@ -197,6 +209,26 @@ public short readByte() {
       return (short) resultInt;
    }
 
+   /**
+    * Reads a byte like {@link #readByte()}, but returns -1 if none is received before the socket timeout. Unlike other
+    * read failures, such a timeout leaves the transport valid.
+    */
+   protected short readByteUnlessTimeout() {
+      int resultInt;
+      try {
+         resultInt = socketInputStream.read();
+      } catch (SocketTimeoutException e) {
+         return -1;
+      } catch (IOException e) {
+         invalid = true;
+         throw new TransportException(e, serverAddress);
+      }
+      if (resultInt == -1) {
+         throw new TransportException("End of stream reached!", serverAddress);
+      }
+      return (short) resultInt;
+   }
+
    @Override
    public void release() {
       try {
@@ -246,6 +278,27 @@ public SocketAddress getServerAddress() {
       return serverAddress;
    }
 
+   protected Socket getSocket() {
+      return socket;
+   }
+
+   /**
+    * Marks the current position of the input stream, so that up to <code>readLimit</code> bytes can be read again
+    * after {@link #resetToMark()}.
+    */
+   protected void mark(int readLimit) {
+      socketInputStream.mark(readLimit);
+   }
+
+   protected void resetToMark() {
+      try {
+         socketInputStream.reset();
+      } catch (IOException e) {
+         invalid = true;
+         throw new TransportException(e, serverAddress);
+      }
+   }
+
    @Override
    public String toString() {
       return "TcpTransport{" +
@@ -28,8 +28,12 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLContext;
@@ -45,6 +49,7 @@
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.PipelinedRequest;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 import org.infinispan.client.hotrod.logging.Log;
@@ -72,12 +77,18 @@ public class TcpTransportFactory implements TransportFactory {
    private Collection<SocketAddress> servers;
    private ConsistentHash consistentHash;
    private final ConsistentHashFactory hashFactory = new ConsistentHashFactory();
+   // connections shared by pipelined requests, created lazily for each server
+   private final ConcurrentMap<SocketAddress, PipelinedTcpTransport[]> pipelinedTransports =
+         new ConcurrentHashMap<SocketAddress, PipelinedTcpTransport[]>();
+   private final AtomicInteger pipelinedIndex = new AtomicInteger();
+   private final List<Runnable> serversAddedListeners = new CopyOnWriteArrayList<Runnable>();
 
    // the primitive fields are often accessed separately from the rest so it makes sense not to require synchronization for them
    private volatile boolean tcpNoDelay;
    private volatile int soTimeout;
    private volatile int connectTimeout;
    private volatile int transportCount;
+   private volatile int pipelinedConnections;
    private volatile SSLContext sslContext;
 
    @Override
@@ -94,6 +105,7 @@ public void start(Codec codec, Configuration configuration, AtomicInteger topolo
          tcpNoDelay = configuration.tcpNoDelay();
          soTimeout = configuration.socketTimeout();
          connectTimeout = configuration.connectionTimeout();
+         pipelinedConnections = configuration.pipelinedConnections();
 
          if (configuration.ssl().enabled()) {
             SslConfiguration ssl = configuration.ssl();
@@ -107,8 +119,8 @@ public void start(Codec codec, Configuration configuration, AtomicInteger topolo
          if (log.isDebugEnabled()) {
             log.debugf("Statically configured servers: %s", servers);
             log.debugf("Load balancer class: %s", balancer.getClass().getName());
-            log.debugf("Tcp no delay = %b; client socket timeout = %d ms; connect timeout = %d ms",
-                       tcpNoDelay, soTimeout, connectTimeout);
+            log.debugf("Tcp no delay = %b; client socket timeout = %d ms; connect timeout = %d ms; pipelined connections = %d",
+                       tcpNoDelay, soTimeout, connectTimeout, pipelinedConnections);
          }
          PropsKeyedObjectPoolFactory<SocketAddress, TcpTransport> poolFactory =
                new PropsKeyedObjectPoolFactory<SocketAddress, TcpTransport>(
@@ -156,6 +168,9 @@ private void createAndPreparePool(PropsKeyedObjectPoolFactory<SocketAddress, Tcp
    @Override
    public void destroy() {
       synchronized (lock) {
+         for (SocketAddress server : pipelinedTransports.keySet()) {
+            closePipelinedTransports(server);
+         }
          connectionPool.clear();
          try {
             connectionPool.close();
@@ -245,8 +260,9 @@ public void invalidateTransport(SocketAddress serverAddress, Transport transport
 
    @Override
    public void updateServers(Collection<SocketAddress> newServers) {
+      Set<SocketAddress> addedServers;
       synchronized (lock) {
-         Set<SocketAddress> addedServers = new HashSet<SocketAddress>(newServers);
+         addedServers = new HashSet<SocketAddress>(newServers);
          addedServers.removeAll(servers);
          Set<SocketAddress> failedServers = new HashSet<SocketAddress>(servers);
          failedServers.removeAll(newServers);
@@ -281,13 +297,30 @@ public void updateServers(Collection<SocketAddress> newServers) {
          for (SocketAddress server : failedServers) {
             log.removingServer(server);
             connectionPool.clear(server);
+            closePipelinedTransports(server);
          }
 
          servers = Collections.unmodifiableList(new ArrayList(newServers));
          updateTransportCount();
       }
+
+      if (!addedServers.isEmpty()) {
+         for (Runnable listener : serversAddedListeners)
+            listener.run();
+      }
+   }
+
+   @Override
+   public void addServersAddedListener(Runnable listener) {
+      serversAddedListeners.add(listener);
    }
 
+   @Override
+   public void removeServersAddedListener(Runnable listener) {
+      serversAddedListeners.remove(listener);
+   }
+
+   @Override
    public Collection<SocketAddress> getServers() {
       synchronized (lock) {
          return servers;
@@ -302,6 +335,73 @@ private void logConnectionInfo(SocketAddress server) {
       }
    }
 
+   @Override
+   public SocketAddress getServer(byte[] key) {
+      synchronized (lock) {
+         return consistentHash != null ? consistentHash.getServer(key) : null;
+      }
+   }
+
+   @Override
+   public Transport getAddressTransport(SocketAddress server) {
+      return borrowTransportFromPool(server);
+   }
+
+   @Override
+   public boolean isPipeliningEnabled() {
+      return pipelinedConnections > 0;
+   }
+
+   @Override
+   public void sendPipelined(byte[] key, long messageId, byte[] request, PipelinedRequest callback) {
+      SocketAddress server;
+      synchronized (lock) {
+         server = consistentHash != null ? consistentHash.getServer(key) : balancer.nextServer();
+      }
+      PipelinedTcpTransport transport;
+      try {
+         transport = getPipelinedTransport(server);
+      } catch (TransportException e) {
+         callback.failed(e);
+         return;
+      }
+      transport.send(messageId, request, callback);
+   }
+
+   private PipelinedTcpTransport getPipelinedTransport(SocketAddress server) {
+      PipelinedTcpTransport[] transports = pipelinedTransports.get(server);
+      if (transports == null) {
+         transports = new PipelinedTcpTransport[pipelinedConnections];
+         PipelinedTcpTransport[] existing = pipelinedTransports.putIfAbsent(server, transports);
+         if (existing != null)
+            transports = existing;
+      }
+      int index = (pipelinedIndex.getAndIncrement() & Integer.MAX_VALUE) % transports.length;
+      synchronized (transports) {
+         PipelinedTcpTransport transport = transports[index];
+         if (transport == null || !transport.isValid()) {
+            if (log.isTraceEnabled())
+               log.tracef("Opening pipelined connection %d to %s", index, server);
+            transport = new PipelinedTcpTransport(server, this);
+            transport.start();
+            transports[index] = transport;
+         }
+         return transport;
+      }
+   }
+
+   private void closePipelinedTransports(SocketAddress server) {
+      PipelinedTcpTransport[] transports = pipelinedTransports.remove(server);
+      if (transports != null) {
+         synchronized (transports) {
+            for (PipelinedTcpTransport transport : transports) {
+               if (transport != null)
+                  transport.destroy();
+            }
+         }
+      }
+   }
+
    private Transport borrowTransportFromPool(SocketAddress server) {
       // The borrowObject() call could take a long time, so we hold the lock only until we get the connection pool reference
       KeyedObjectPool<SocketAddress, TcpTransport> pool = getConnectionPool();
@@ -147,4 +147,20 @@ public interface Log extends BasicLogger {
 
    @Message(value = "Cannot configure custom KeyStore and/or TrustStore when specifying a SSLContext", id = 4027)
    ConfigurationException xorSSLContext();
+
+   @LogMessage(level = WARN)
+   @Message(value = "Client listener %s failed to handle an event", id = 4028)
+   void clientListenerFailed(Object listener, @Cause Throwable t);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Unable to add client listener %s to server %s", id = 4029)
+   void unableToAddClientListener(Object listener, SocketAddress server, @Cause Throwable t);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Lost the events of server %s for client listener %s", id = 4030)
+   void clientListenerConnectionLost(SocketAddress server, Object listener, @Cause Throwable t);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Unable to listen to the modifications of cache %s, its near cache is only refreshed as entries go stale", id = 4031)
+   void nearCacheListenerUnavailable(String cacheName, @Cause Throwable t);
 }
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCreatedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryModifiedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryRemovedEvent;
+import org.infinispan.client.hotrod.event.ClientEvent;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.*;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Tests the listeners notified of the modifications of a remote cache, whichever client made them.
+ *
+ * @since 5.3
+ */
+@Test(testName = "client.hotrod.ClientListenerTest", groups = "functional")
+public class ClientListenerTest extends SingleCacheManagerTest {
+   private HotRodServer hotRodServer;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, String> remoteCache;
+   private RemoteCacheManager otherCacheManager;
+   private RemoteCache<String, String> otherCache;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      cacheManager = TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration());
+      cache = cacheManager.getCache();
+
+      hotRodServer = TestHelper.startHotRodServer(cacheManager);
+
+      remoteCacheManager = new RemoteCacheManager("localhost:" + hotRodServer.getPort());
+      remoteCache = remoteCacheManager.getCache();
+      otherCacheManager = new RemoteCacheManager("localhost:" + hotRodServer.getPort());
+      otherCache = otherCacheManager.getCache();
+      return cacheManager;
+   }
+
+   @AfterClass
+   public void release() {
+      killRemoteCacheManager(remoteCacheManager);
+      killRemoteCacheManager(otherCacheManager);
+      killServers(hotRodServer);
+   }
+
+   public void testEventsOfOtherClient() throws Exception {
+      EventCollector listener = new EventCollector();
+      remoteCache.addClientListener(listener);
+      try {
+         assertTrue(remoteCache.getClientListeners().contains(listener));
+         otherCache.put("k", "v1");
+         otherCache.put("k", "v2");
+         otherCache.remove("k");
+
+         ClientCacheEntryCreatedEvent<String, String> created = listener.poll();
+         assertEquals(ClientEvent.Type.CLIENT_CACHE_ENTRY_CREATED, created.getType());
+         assertEquals("k", created.getKey());
+         assertNull(created.getValue());
+
+         ClientCacheEntryModifiedEvent<String, String> modified = listener.poll();
+         assertEquals(ClientEvent.Type.CLIENT_CACHE_ENTRY_MODIFIED, modified.getType());
+         assertEquals("k", modified.getKey());
+         assertTrue(modified.getVersion() != created.getVersion());
+
+         ClientCacheEntryRemovedEvent<String> removed = listener.poll();
+         assertEquals(ClientEvent.Type.CLIENT_CACHE_ENTRY_REMOVED, removed.getType());
+         assertEquals("k", removed.getKey());
+      } finally {
+         remoteCache.removeClientListener(listener);
+      }
+
+      assertTrue(remoteCache.getClientListeners().isEmpty());
+      otherCache.put("k", "v3");
+      assertNull(listener.events.poll(500, TimeUnit.MILLISECONDS));
+   }
+
+   public void testIncludeValues() throws Exception {
+      ValueCollector listener = new ValueCollector();
+      remoteCache.addClientListener(listener);
+      try {
+         otherCache.put("iv", "v1");
+         otherCache.put("iv", "v2");
+         assertEquals("v1", listener.<ClientCacheEntryCreatedEvent<String, String>>poll().getValue());
+         assertEquals("v2", listener.<ClientCacheEntryModifiedEvent<String, String>>poll().getValue());
+      } finally {
+         remoteCache.removeClientListener(listener);
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testNotAnnotated() {
+      remoteCache.addClientListener(new Object());
+   }
+
+   @ClientListener
+   public static class EventCollector {
+      final BlockingQueue<ClientEvent> events = new LinkedBlockingQueue<ClientEvent>();
+
+      @ClientCacheEntryCreated
+      @ClientCacheEntryModified
+      @ClientCacheEntryRemoved
+      public void handle(ClientEvent event) {
+         events.add(event);
+      }
+
+      @SuppressWarnings("unchecked")
+      <E extends ClientEvent> E poll() throws InterruptedException {
+         E event = (E) events.poll(10, TimeUnit.SECONDS);
+         assertNotNull("No event received", event);
+         return event;
+      }
+   }
+
+   @ClientListener(includeValues = true)
+   public static class ValueCollector extends EventCollector {
+   }
+}
@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheFailover;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCreatedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheFailoverEvent;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Tests that client listeners are added to the servers joining the cluster, and still get the events of all the keys
+ * when a server leaves.
+ *
+ * @since 5.3
+ */
+@Test(testName = "client.hotrod.ClientListenerTopologyTest", groups = "functional")
+public class ClientListenerTopologyTest extends MultipleCacheManagersTest {
+
+   private ConfigurationBuilder config;
+   private HotRodServer hotRodServer1;
+   private HotRodServer hotRodServer2;
+   private HotRodServer hotRodServer3;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, String> remoteCache;
+   private TcpTransportFactory transportFactory;
+   private final EventCollector listener = new EventCollector();
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      config = hotRodCacheConfiguration(getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false));
+      // Each key has a single owner, which is the only server sending its events
+      config.clustering().hash().numOwners(1);
+      addClusterEnabledCacheManager(config);
+      addClusterEnabledCacheManager(config);
+      hotRodServer1 = TestHelper.startHotRodServer(manager(0));
+      hotRodServer2 = TestHelper.startHotRodServer(manager(1));
+      waitForClusterToForm();
+
+      remoteCacheManager = new RemoteCacheManager("localhost", hotRodServer1.getPort());
+      remoteCache = remoteCacheManager.getCache();
+      transportFactory = (TcpTransportFactory) TestingUtil.extractField(remoteCacheManager, "transportFactory");
+   }
+
+   @AfterMethod
+   @Override
+   protected void clearContent() throws Throwable {
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      killRemoteCacheManager(remoteCacheManager);
+      killServers(hotRodServer1, hotRodServer2, hotRodServer3);
+      super.destroy();
+   }
+
+   public void testEventsOfAllServers() throws Exception {
+      expectServer(hotRodServer2, true);
+      remoteCache.addClientListener(listener);
+      assertAllCreatedEventsReceived("a");
+   }
+
+   @Test(dependsOnMethods = "testEventsOfAllServers")
+   public void testServerJoining() throws Exception {
+      addClusterEnabledCacheManager(config);
+      hotRodServer3 = TestHelper.startHotRodServer(manager(2));
+      waitForClusterToForm();
+
+      expectServer(hotRodServer3, true);
+      // The listener is added to the new server in the background, which is notified as a failover
+      ClientCacheFailoverEvent failover = listener.poll(ClientCacheFailoverEvent.class);
+      assertEquals(address(hotRodServer3), failover.getServer());
+      assertAllCreatedEventsReceived("b");
+   }
+
+   @Test(dependsOnMethods = "testServerJoining")
+   public void testServerLeaving() throws Exception {
+      killServers(hotRodServer3);
+      manager(2).stop();
+      TestingUtil.blockUntilViewsReceived(30000, false, manager(0), manager(1));
+      TestingUtil.waitForRehashToComplete(cache(0), cache(1));
+
+      ClientCacheFailoverEvent failover = listener.poll(ClientCacheFailoverEvent.class);
+      assertEquals(address(hotRodServer3), failover.getServer());
+      expectServer(hotRodServer3, false);
+      assertAllCreatedEventsReceived("c");
+   }
+
+   private void assertAllCreatedEventsReceived(String prefix) throws InterruptedException {
+      Set<String> keys = new HashSet<String>();
+      for (int i = 0; i < 30; i++) {
+         String key = prefix + i;
+         remoteCache.put(key, "v");
+         keys.add(key);
+      }
+      while (!keys.isEmpty()) {
+         ClientCacheEntryCreatedEvent<String, String> created = listener.poll(ClientCacheEntryCreatedEvent.class);
+         assertTrue("Unexpected event " + created, keys.remove(created.getKey()));
+      }
+   }
+
+   private void expectServer(HotRodServer server, boolean present) {
+      for (int i = 0; i < 10; i++) {
+         // The servers are updated by the responses which carry a new topology
+         remoteCache.get("topology");
+         if (present == transportFactory.getServers().contains(address(server))) break;
+      }
+      assertEquals(present, transportFactory.getServers().contains(address(server)));
+   }
+
+   private SocketAddress address(HotRodServer server) {
+      return new InetSocketAddress(server.getHost(), server.getPort());
+   }
+
+   @ClientListener
+   public static class EventCollector {
+      final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+
+      @ClientCacheEntryCreated
+      public void created(ClientCacheEntryCreatedEvent<String, String> event) {
+         events.add(event);
+      }
+
+      @ClientCacheFailover
+      public void failover(ClientCacheFailoverEvent event) {
+         events.add(event);
+      }
+
+      @SuppressWarnings("unchecked")
+      <E> E poll(Class<E> type) throws InterruptedException {
+         Object event = events.poll(10, TimeUnit.SECONDS);
+         assertNotNull("No event received", event);
+         assertTrue("Unexpected event " + event, type.isInstance(event));
+         return (E) event;
+      }
+   }
+}
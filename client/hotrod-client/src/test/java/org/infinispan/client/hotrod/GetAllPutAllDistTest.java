@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the get all and put all operations against a distributed cluster,
+ * where the keys are split between the servers that own them.
+ *
+ * @since 5.3
+ */
+@Test(testName = "client.hotrod.GetAllPutAllDistTest", groups = "functional")
+public class GetAllPutAllDistTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_SERVERS = 3;
+
+   private HotRodServer[] hotrodServers;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<Object, Object> remoteCache;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createCluster(hotRodCacheConfiguration(
+            getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false)), NUM_SERVERS);
+
+      hotrodServers = new HotRodServer[NUM_SERVERS];
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         EmbeddedCacheManager cm = cacheManagers.get(i);
+         hotrodServers[i] = TestHelper.startHotRodServer(cm);
+      }
+
+      remoteCacheManager = new RemoteCacheManager(TestHelper.getServersString(hotrodServers));
+      remoteCache = remoteCacheManager.getCache();
+   }
+
+   @AfterClass
+   public void release() {
+      killRemoteCacheManager(remoteCacheManager);
+      killServers(hotrodServers);
+   }
+
+   public void testPutAllAndGetAll() {
+      Map<Object, Object> data = new HashMap<Object, Object>();
+      for (int i = 0; i < 100; i++) {
+         data.put(i, "v" + i);
+      }
+      remoteCache.putAll(data);
+
+      for (int i = 0; i < NUM_SERVERS; i++) {
+         assertTrue(cache(i).size() < 100);
+      }
+      // Entries stored in bulk are versioned like any other entry
+      assertNotNull(remoteCache.getVersioned(50));
+
+      Set<Object> keys = new HashSet<Object>(data.keySet());
+      keys.add("missing");
+      Map<Object, Object> result = remoteCache.getAll(keys);
+      assertEquals(data, result);
+   }
+
+   public void testGetAllWithNoKeys() {
+      assertTrue(remoteCache.getAll(new HashSet<Object>()).isEmpty());
+   }
+
+   public void testOlderProtocolVersion() {
+      Properties props = new Properties();
+      props.setProperty(ConfigurationProperties.SERVER_LIST, TestHelper.getServersString(hotrodServers));
+      props.setProperty(ConfigurationProperties.PROTOCOL_VERSION, ConfigurationProperties.PROTOCOL_VERSION_12);
+      RemoteCacheManager oldRemoteCacheManager = new RemoteCacheManager(props);
+      try {
+         RemoteCache<Object, Object> oldRemoteCache = oldRemoteCacheManager.getCache();
+         Map<Object, Object> data = new HashMap<Object, Object>();
+         for (int i = 0; i < 10; i++) {
+            data.put("k" + i, "v" + i);
+         }
+         oldRemoteCache.putAll(data);
+         assertEquals(data, oldRemoteCache.getAll(data.keySet()));
+      } finally {
+         killRemoteCacheManager(oldRemoteCacheManager);
+      }
+   }
+}
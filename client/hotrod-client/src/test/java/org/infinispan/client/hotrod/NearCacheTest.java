@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.RemoteCacheImpl;
+import org.infinispan.client.hotrod.impl.near.NearCache;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.*;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Tests the near cache of the client, which serves the values it has read without contacting the server.
+ *
+ * @since 5.3
+ */
+@Test(testName = "client.hotrod.NearCacheTest", groups = "functional")
+public class NearCacheTest extends SingleCacheManagerTest {
+   private HotRodServer hotRodServer;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, StringBuilder> remoteCache;
+   private RemoteCacheManager validatingCacheManager;
+   private RemoteCache<String, StringBuilder> validatingCache;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      cacheManager = TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration());
+      cache = cacheManager.getCache();
+
+      hotRodServer = TestHelper.startHotRodServer(cacheManager);
+
+      remoteCacheManager = new RemoteCacheManager(clientProperties(60000));
+      remoteCache = remoteCacheManager.getCache();
+      // Checks the version on the server on every read
+      validatingCacheManager = new RemoteCacheManager(clientProperties(0));
+      validatingCache = validatingCacheManager.getCache();
+      return cacheManager;
+   }
+
+   private Properties clientProperties(long validationInterval) {
+      Properties hotrodClientConf = new Properties();
+      hotrodClientConf.put(ConfigurationProperties.SERVER_LIST, "localhost:" + hotRodServer.getPort());
+      hotrodClientConf.put(ConfigurationProperties.NEAR_CACHE_MAX_ENTRIES, "10");
+      hotrodClientConf.put(ConfigurationProperties.NEAR_CACHE_VALIDATION_INTERVAL, Long.toString(validationInterval));
+      return hotrodClientConf;
+   }
+
+   @AfterClass
+   public void release() {
+      killRemoteCacheManager(remoteCacheManager);
+      killRemoteCacheManager(validatingCacheManager);
+      killServers(hotRodServer);
+   }
+
+   public void testReadHitsNearCache() {
+      remoteCache.put("k", new StringBuilder("v"));
+      long hits = nearCache(remoteCache).getHits();
+      StringBuilder first = remoteCache.get("k");
+      assertEquals("v", first.toString());
+      assertSame(first, remoteCache.get("k"));
+      assertEquals(hits + 1, nearCache(remoteCache).getHits());
+
+      ServerStatistics stats = remoteCache.stats();
+      assertNotNull(stats.getStatistic(ServerStatistics.NEAR_CACHE_HITS));
+      assertNotNull(stats.getStatistic(ServerStatistics.NEAR_CACHE_HIT_RATIO));
+   }
+
+   public void testWriteInvalidates() {
+      remoteCache.put("w", new StringBuilder("v1"));
+      assertEquals("v1", remoteCache.get("w").toString());
+      remoteCache.put("w", new StringBuilder("v2"));
+      assertEquals("v2", remoteCache.get("w").toString());
+      remoteCache.remove("w");
+      assertNull(remoteCache.get("w"));
+   }
+
+   public void testClearInvalidates() {
+      remoteCache.put("c", new StringBuilder("v"));
+      assertNotNull(remoteCache.get("c"));
+      remoteCache.clear();
+      assertNull(remoteCache.get("c"));
+      assertEquals(0, nearCache(remoteCache).size());
+   }
+
+   public void testOtherClientWriteInvalidates() {
+      remoteCache.put("s", new StringBuilder("v1"));
+      assertEquals("v1", remoteCache.get("s").toString());
+
+      // Written by another client, so the entry is only invalidated once the server notifies of the modification
+      validatingCache.put("s", new StringBuilder("v2"));
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v2".equals(remoteCache.get("s").toString());
+         }
+      });
+   }
+
+   public void testUnchangedVersionKeepsValue() {
+      validatingCache.put("u", new StringBuilder("v"));
+      StringBuilder first = validatingCache.get("u");
+      assertSame(first, validatingCache.get("u"));
+
+      remoteCache.put("u", new StringBuilder("changed"));
+      assertEquals("changed", validatingCache.get("u").toString());
+   }
+
+   public void testBounded() {
+      for (int i = 0; i < 20; i++) {
+         remoteCache.put("b" + i, new StringBuilder("v" + i));
+         remoteCache.get("b" + i);
+      }
+      assertTrue(nearCache(remoteCache).size() <= 10);
+      assertEquals("v19", remoteCache.get("b19").toString());
+   }
+
+   public void testInvalidationDuringRead() {
+      NearCache nearCache = new NearCache(10, 1, TimeUnit.MINUTES);
+      byte[] key = {1};
+      Object stamp = nearCache.stamp(key);
+      nearCache.invalidate(key);
+      nearCache.put(key, "stale", 1, stamp);
+      nearCache.release(key, stamp);
+      assertNull(nearCache.get(key));
+
+      // Invalidations of other keys don't prevent caching the value
+      stamp = nearCache.stamp(key);
+      nearCache.invalidate(new byte[] {2});
+      nearCache.put(key, "v", 2, stamp);
+      nearCache.release(key, stamp);
+      assertEquals("v", nearCache.get(key).getValue());
+   }
+
+   private NearCache nearCache(RemoteCache<?, ?> remoteCache) {
+      return ((RemoteCacheImpl<?, ?>) remoteCache).getNearCache();
+   }
+}
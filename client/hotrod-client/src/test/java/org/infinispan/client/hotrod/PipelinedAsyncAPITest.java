@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the async API tests with operations pipelined over shared connections.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "client.hotrod.PipelinedAsyncAPITest")
+public class PipelinedAsyncAPITest extends RemoteAsyncAPITest {
+
+   @Override
+   protected void configureClient(Properties props) {
+      props.put(ConfigurationProperties.PIPELINED_CONNECTIONS, "2");
+   }
+
+   public void testManyOutstandingRequests() throws Exception {
+      int count = 1000;
+      List<NotifyingFuture<String>> futures = new ArrayList<NotifyingFuture<String>>(count);
+      for (int i = 0; i < count; i++)
+         futures.add(c.putAsync("key" + i, "value" + i));
+      for (NotifyingFuture<String> future : futures)
+         assertNull(future.get(10, TimeUnit.SECONDS));
+
+      futures.clear();
+      for (int i = 0; i < count; i++)
+         futures.add(c.getAsync("key" + i));
+      for (int i = 0; i < count; i++)
+         assertEquals("value" + i, futures.get(i).get(10, TimeUnit.SECONDS));
+   }
+}
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import static org.infinispan.test.TestingUtil.k;
+import static org.infinispan.test.TestingUtil.v;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.lang.reflect.Method;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies that operations pipelined over a shared connection fail when the server stops responding, instead of
+ * waiting forever.
+ *
+ * @since 5.3
+ */
+@Test(testName = "client.hotrod.PipelinedSocketReadTimeoutTest", groups = "functional")
+public class PipelinedSocketReadTimeoutTest extends ClientSocketReadTimeoutTest {
+
+   private static final int SOCKET_TIMEOUT = 2000;
+
+   @Override
+   protected RemoteCacheManager getRemoteCacheManager() {
+      Properties config = new Properties();
+      config.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
+      config.put("infinispan.client.hotrod.socket_timeout", Integer.toString(SOCKET_TIMEOUT));
+      config.put("infinispan.client.hotrod.connect_timeout", "5000");
+      config.put("infinispan.client.hotrod.ping_on_startup", "false");
+      config.put(ConfigurationProperties.PIPELINED_CONNECTIONS, "1");
+      return new RemoteCacheManager(config);
+   }
+
+   public void testPipelinedRequestsTimeOut(Method m) throws Exception {
+      List<NotifyingFuture<?>> futures = new ArrayList<NotifyingFuture<?>>();
+      long start = System.nanoTime();
+      for (int i = 0; i < 3; i++)
+         futures.add(defaultRemote.putAsync(k(m, i), v(m, i)));
+
+      for (NotifyingFuture<?> future : futures) {
+         try {
+            future.get(SOCKET_TIMEOUT * 10, TimeUnit.MILLISECONDS);
+            fail("The server never responds, so the request should have failed");
+         } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof TransportException);
+            assertTrue(String.valueOf(e.getCause().getCause()), e.getCause().getCause() instanceof SocketTimeoutException);
+         }
+      }
+      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      assertTrue("Requests failed after " + elapsed + " ms", elapsed >= SOCKET_TIMEOUT);
+   }
+}
@@ -47,7 +47,7 @@
 public class RemoteAsyncAPITest extends SingleCacheManagerTest {
    private HotRodServer hotrodServer;
    private RemoteCacheManager rcm;
-   private RemoteCache<String, String> c;
+   protected RemoteCache<String, String> c;
 
    @Override
    protected EmbeddedCacheManager createCacheManager() throws Exception {
@@ -63,10 +63,14 @@ protected void setup() throws Exception {
       props.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
       props.put("infinispan.client.hotrod.force_return_values","true");
       props.put("testOnBorrow", "false");
+      configureClient(props);
       rcm = new RemoteCacheManager(props);
       c = rcm.getCache(true);
    }
 
+   protected void configureClient(Properties props) {
+   }
+
    @AfterClass
    @Override
    protected void destroyAfterClass() {
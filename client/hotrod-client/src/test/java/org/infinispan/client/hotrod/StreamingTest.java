@@ -0,0 +1,283 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.client.hotrod;
+
+import org.infinispan.Cache;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.streaming.RemoteOutputStream;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.server.hotrod.StreamedValues;
+import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration;
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.*;
+import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Tests writing and reading values in chunks with the streaming operations.
+ *
+ * @since 5.3
+ */
+@Test(testName = "client.hotrod.StreamingTest", groups = "functional")
+public class StreamingTest extends SingleCacheManagerTest {
+   private HotRodServer hotRodServer;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, Object> remoteCache;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      cacheManager = TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration());
+      cache = cacheManager.getCache();
+
+      hotRodServer = TestHelper.startHotRodServer(cacheManager);
+
+      Properties hotrodClientConf = new Properties();
+      hotrodClientConf.put("infinispan.client.hotrod.server_list", "localhost:" + hotRodServer.getPort());
+      remoteCacheManager = new RemoteCacheManager(hotrodClientConf);
+      remoteCache = remoteCacheManager.getCache();
+      return cacheManager;
+   }
+
+   @AfterClass
+   public void release() {
+      killRemoteCacheManager(remoteCacheManager);
+      killServers(hotRodServer);
+   }
+
+   public void testLargeValue() throws IOException {
+      byte[] value = randomBytes(5 * RemoteOutputStream.CHUNK_SIZE / 2);
+      write("large", value);
+      assertArrayEquals(value, read("large"));
+      // Each chunk is an entry of the chunk cache, and the cache itself only holds the manifest
+      assertEquals(3, chunkCount(cache, "large"));
+      assertEquals(1, cache.size());
+      assertEquals(Collections.singleton("large"), remoteCache.keySet());
+   }
+
+   public void testRegularReadsPutStreamedValueTogether() throws Exception {
+      byte[] value = randomBytes(5 * RemoteOutputStream.CHUNK_SIZE / 2);
+      write("marshalled", remoteCacheManager.getMarshaller().objectToByteBuffer(value));
+      assertEquals(3, chunkCount(cache, "marshalled"));
+      assertArrayEquals(value, (byte[]) remoteCache.get("marshalled"));
+      assertArrayEquals(value, (byte[]) remoteCache.getVersioned("marshalled").getValue());
+      assertArrayEquals(value, (byte[]) remoteCache.getWithMetadata("marshalled").getValue());
+      assertArrayEquals(value, (byte[]) remoteCache.getBulk().get("marshalled"));
+   }
+
+   public void testChunkCacheNotReachable() {
+      try {
+         remoteCacheManager.getCache(HotRodServerConfiguration.STREAM_CHUNK_CACHE_NAME_PREFIX + cache.getName())
+               .get("large");
+         fail("Remote requests to the chunk cache should be rejected");
+      } catch (HotRodClientException expected) {
+      }
+   }
+
+   public void testEmptyValue() throws IOException {
+      write("empty", new byte[0]);
+      assertArrayEquals(new byte[0], read("empty"));
+   }
+
+   public void testMissingKey() {
+      assertNull(remoteCache.getStream("missing"));
+   }
+
+   public void testReplaceRemovesPreviousChunks() throws IOException {
+      write("replaced", randomBytes(3 * RemoteOutputStream.CHUNK_SIZE));
+      assertEquals(3, chunkCount(cache, "replaced"));
+      byte[] value = randomBytes(10);
+      write("replaced", value);
+      assertArrayEquals(value, read("replaced"));
+      eventuallyNoChunksBut(cache, "replaced", 1);
+   }
+
+   public void testRemoveRemovesChunks() throws IOException {
+      write("removed", randomBytes(2 * RemoteOutputStream.CHUNK_SIZE));
+      assertEquals(2, chunkCount(cache, "removed"));
+      remoteCache.remove("removed");
+      assertNull(remoteCache.getStream("removed"));
+      eventuallyNoChunksBut(cache, "removed", 0);
+   }
+
+   public void testPutRemovesChunks() throws IOException {
+      write("overwritten", randomBytes(2 * RemoteOutputStream.CHUNK_SIZE));
+      assertEquals(2, chunkCount(cache, "overwritten"));
+      remoteCache.put("overwritten", "value");
+      assertEquals("value", remoteCache.get("overwritten"));
+      eventuallyNoChunksBut(cache, "overwritten", 0);
+   }
+
+   public void testChunksExpireWithValue() throws IOException {
+      OutputStream out = remoteCache.putStream("mortal", 1, TimeUnit.SECONDS, -1, TimeUnit.SECONDS);
+      try {
+         out.write(randomBytes(2 * RemoteOutputStream.CHUNK_SIZE));
+      } finally {
+         out.close();
+      }
+      assertEquals(2, chunkCount(cache, "mortal"));
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return remoteCache.getStream("mortal") == null;
+         }
+      });
+      assertEquals(0, chunkCount(cache, "mortal"));
+   }
+
+   public void testAbandonedStreamExpires() throws IOException {
+      EmbeddedCacheManager otherCacheManager = TestCacheManagerFactory.createCacheManager(hotRodCacheConfiguration());
+      HotRodServer otherServer = null;
+      RemoteCacheManager otherRemoteCacheManager = null;
+      try {
+         otherServer = TestHelper.startHotRodServer(otherCacheManager,
+               new HotRodServerConfigurationBuilder().streamTimeout(1000));
+         Properties hotrodClientConf = new Properties();
+         hotrodClientConf.put("infinispan.client.hotrod.server_list", "localhost:" + otherServer.getPort());
+         otherRemoteCacheManager = new RemoteCacheManager(hotrodClientConf);
+         final Cache<Object, Object> otherCache = otherCacheManager.getCache();
+
+         // Two chunks are sent, but the stream is never completed
+         OutputStream out = otherRemoteCacheManager.getCache().putStream("abandoned");
+         out.write(randomBytes(2 * RemoteOutputStream.CHUNK_SIZE));
+         assertEquals(2, chunkCount(otherCache, "abandoned"));
+         eventuallyNoChunksBut(otherCache, "abandoned", 0);
+
+         // Completing it now fails, rather than writing a value with missing chunks
+         try {
+            out.close();
+            fail("The stream should have timed out");
+         } catch (HotRodClientException expected) {
+         }
+         assertNull(otherRemoteCacheManager.getCache().getStream("abandoned"));
+      } finally {
+         killRemoteCacheManager(otherRemoteCacheManager);
+         killServers(otherServer);
+         TestingUtil.killCacheManagers(otherCacheManager);
+      }
+   }
+
+   public void testRegularValueIsSingleChunk() throws Exception {
+      remoteCache.put("regular", "value");
+      byte[] bytes = read("regular");
+      assertEquals("value", remoteCacheManager.getMarshaller().objectFromByteBuffer(bytes));
+   }
+
+   public void testReplacedWhileReading() throws IOException {
+      write("concurrent", randomBytes(2 * RemoteOutputStream.CHUNK_SIZE));
+      InputStream in = remoteCache.getStream("concurrent");
+      write("concurrent", randomBytes(2 * RemoteOutputStream.CHUNK_SIZE));
+      try {
+         while (in.read() != -1) {
+            // Consume the first chunk, and fail on the second one
+         }
+         fail("Reading should fail once the value has been replaced");
+      } catch (IOException expected) {
+      } finally {
+         in.close();
+      }
+   }
+
+   private void eventuallyNoChunksBut(final Cache<Object, Object> c, final String key, final int expected) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return chunkCount(c, key) == expected;
+         }
+      });
+   }
+
+   /**
+    * @return the number of chunks of the given key in the chunk cache of the given cache
+    */
+   @SuppressWarnings("unchecked")
+   private int chunkCount(Cache<Object, Object> c, String key) {
+      byte[] keyBytes;
+      try {
+         keyBytes = remoteCacheManager.getMarshaller().objectToByteBuffer(key);
+      } catch (Exception e) {
+         throw new AssertionError(e);
+      }
+      int count = 0;
+      for (Object k : StreamedValues.chunkCache((Cache) c).keySet()) {
+         byte[] bytes = (byte[]) k;
+         // The key of the value, followed by the stream id and the index of the chunk
+         if (bytes.length == keyBytes.length + 12 && Arrays.equals(keyBytes, Arrays.copyOf(bytes, keyBytes.length)))
+            count++;
+      }
+      return count;
+   }
+
+   private void write(String key, byte[] value) throws IOException {
+      OutputStream out = remoteCache.putStream(key);
+      try {
+         // Odd-sized writes, so that chunk boundaries fall in the middle of them
+         for (int offset = 0; offset < value.length; offset += 1000)
+            out.write(value, offset, Math.min(1000, value.length - offset));
+      } finally {
+         out.close();
+      }
+   }
+
+   private byte[] read(String key) throws IOException {
+      InputStream in = remoteCache.getStream(key);
+      assertNotNull(in);
+      try {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         byte[] buffer = new byte[777];
+         int n;
+         while ((n = in.read(buffer)) != -1)
+            bytes.write(buffer, 0, n);
+         return bytes.toByteArray();
+      } finally {
+         in.close();
+      }
+   }
+
+   private byte[] randomBytes(int length) {
+      byte[] bytes = new byte[length];
+      new Random().nextBytes(bytes);
+      return bytes;
+   }
+
+   private void assertArrayEquals(byte[] expected, byte[] actual) {
+      assertTrue(Arrays.equals(expected, actual));
+   }
+}
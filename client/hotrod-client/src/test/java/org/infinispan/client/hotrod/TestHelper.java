@@ -24,6 +24,7 @@
 
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder;
 import org.infinispan.server.hotrod.test.HotRodTestingUtil;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -46,6 +47,10 @@ public class TestHelper {
    private static final AtomicInteger uniquePort = new AtomicInteger(15232);
 
    public static HotRodServer startHotRodServer(EmbeddedCacheManager cacheManager) {
+      return startHotRodServer(cacheManager, new HotRodServerConfigurationBuilder());
+   }
+
+   public static HotRodServer startHotRodServer(EmbeddedCacheManager cacheManager, HotRodServerConfigurationBuilder builder) {
       // TODO: This is very rudimentary!! HotRodTestingUtil needs a more robust solution where ports are generated randomly and retries if already bound
       HotRodServer server = null;
       int maxTries = 10;
@@ -53,7 +58,7 @@ public static HotRodServer startHotRodServer(EmbeddedCacheManager cacheManager)
       ChannelException lastException = null;
       while (server == null && currentTries < maxTries) {
          try {
-            server = HotRodTestingUtil.startHotRodServer(cacheManager, uniquePort.incrementAndGet());
+            server = HotRodTestingUtil.startHotRodServer(cacheManager, uniquePort.incrementAndGet(), builder);
          } catch (ChannelException e) {
             if (!(e.getCause() instanceof BindException)) {
                throw e;
@@ -43,6 +43,8 @@
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * An advanced interface that exposes additional methods not available on {@link Cache}.
@@ -385,6 +387,18 @@
     */
    NotifyingFuture<V> putAsync(K key, V value, Metadata metadata);
 
+   /**
+    * An overloaded form of {@link #putAll(java.util.Map)}, which takes in an
+    * instance of {@link Metadata} which is stored alongside each of the
+    * values, such as lifespan, version of value...etc.
+    *
+    * @param map mappings to be stored in this cache
+    * @param metadata information to store alongside the values
+    *
+    * @since 5.3
+    */
+   void putAll(Map<? extends K, ? extends V> map, Metadata metadata);
+
    // TODO: Even better: add replace/remove calls that apply the changes if a given function is successful
    // That way, you could do comparison not only on the cache value, but also based on version...etc
 
@@ -399,4 +413,17 @@
     */
    CacheEntry getCacheEntry(K key);
 
+   /**
+    * Retrieves the values mapped to several keys at once. Unlike calling {@link #get(Object)} for each key, this
+    * fetches the keys missing from the local node with a single remote call per owner, and loads the keys missing from
+    * the cache store with a single call to the store.
+    *
+    * @param keys the keys whose associated values are to be returned
+    * @return a map containing the keys that are mapped to a value, along with their values. Keys not present in the
+    *         cache are not contained in the returned map.
+    *
+    * @since 5.3
+    */
+   Map<K, V> getAll(Set<?> keys);
+
 }
@@ -28,6 +28,7 @@
 import org.infinispan.commands.VisitableCommand;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
@@ -39,6 +40,7 @@
 import org.infinispan.commands.write.PutMapCommand;
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.commands.write.ReplaceCommand;
+import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.LegacyConfigurationAdaptor;
 import org.infinispan.config.ConfigurationException;
@@ -49,6 +51,8 @@
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextContainer;
+import org.infinispan.context.InvocationRecycler;
+import org.infinispan.context.InvocationRecycler.RecycledInvocation;
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.eviction.EvictionManager;
@@ -71,6 +75,7 @@
 import org.infinispan.metadata.EmbeddedMetadata;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.stats.Stats;
 import org.infinispan.stats.StatsImpl;
@@ -80,6 +85,7 @@
 import org.infinispan.transaction.xa.recovery.RecoveryManager;
 import org.infinispan.util.Util;
 import org.infinispan.util.concurrent.AbstractInProcessNotifyingFuture;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingFutureAdaptor;
 import org.infinispan.util.concurrent.locks.LockManager;
@@ -94,6 +100,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -144,6 +151,7 @@
    private TransactionCoordinator txCoordinator;
    private GlobalConfiguration globalCfg;
    private boolean isClassLoaderInContext;
+   private InvocationRecycler recycler;
 
    public CacheImpl(String name) {
       this.name = name;
@@ -166,7 +174,8 @@ public void injectDependencies(EvictionManager evictionManager,
                                   @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncExecutor,
                                   TransactionTable txTable, RecoveryManager recoveryManager, TransactionCoordinator txCoordinator,
                                   LockManager lockManager,
-                                  GlobalConfiguration globalCfg) {
+                                  GlobalConfiguration globalCfg,
+                                  InvocationRecycler recycler) {
       this.commandsFactory = commandsFactory;
       this.invoker = interceptorChain;
       this.config = configuration;
@@ -187,6 +196,7 @@ public void injectDependencies(EvictionManager evictionManager,
       this.txCoordinator = txCoordinator;
       this.lockManager = lockManager;
       this.globalCfg = globalCfg;
+      this.recycler = recycler;
    }
 
    private void assertKeyNotNull(Object key) {
@@ -367,6 +377,9 @@ public final boolean containsKey(Object key) {
 
    final boolean containsKey(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
       assertKeyNotNull(key);
+      if (explicitFlags == null && explicitClassLoader == null && getLocalHit(key) != null) {
+         return true;
+      }
       InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, 1);
       GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, explicitFlags, false);
       Object response = invoker.invoke(ctx, command);
@@ -386,11 +399,49 @@ public final V get(Object key) {
    @SuppressWarnings("unchecked")
    final V get(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
       assertKeyNotNull(key);
+      if (explicitFlags == null && explicitClassLoader == null) {
+         Object value = getLocalHit(key);
+         if (value != null) return (V) value;
+      }
+      RecycledInvocation recycled = recycler.acquire();
+      if (recycled != null) {
+         return (V) invokeRecycled(recycled, recycled.getKeyValueCommand(key, explicitFlags, false), explicitClassLoader);
+      }
       InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, 1);
       GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, explicitFlags, false);
       return (V) invoker.invoke(ctx, command);
    }
 
+   /**
+    * Invokes a command with the recycled objects of the current thread, and gives them back once the invocation has
+    * completed. Only used for non-transactional caches, so there's no transaction to commit.
+    */
+   private Object invokeRecycled(RecycledInvocation recycled, VisitableCommand command, ClassLoader explicitClassLoader) {
+      try {
+         InvocationContext ctx = setInvocationContextClassLoader(recycled.getContext(), explicitClassLoader);
+         return invoker.invoke(ctx, command);
+      } finally {
+         recycler.release(recycled);
+      }
+   }
+
+   /**
+    * Reads the value of a key straight from the data container, without creating an invocation context or a command,
+    * if the interceptor chain would not do anything else for this read (see
+    * {@link InterceptorChain#isTransparentToLocalHits()}). Misses always go through the interceptor chain, as they may
+    * need to load the entry from a cache store or from a remote node.
+    *
+    * @return the value, or null if the key is not in the data container or the read must go through the chain
+    */
+   private Object getLocalHit(Object key) {
+      if (!invoker.isTransparentToLocalHits() || componentRegistry.getStatus() != ComponentStatus.RUNNING
+            || notifier.hasListener(CacheEntryVisited.class)) {
+         return null;
+      }
+      InternalCacheEntry entry = dataContainer.get(key);
+      return entry == null ? null : entry.getValue();
+   }
+
    @Override
    public final CacheEntry getCacheEntry(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
       assertKeyNotNull(key);
@@ -405,12 +456,32 @@ public final CacheEntry getCacheEntry(K key) {
       return getCacheEntry(key, null, null);
    }
 
+   @Override
+   public final Map<K, V> getAll(Set<?> keys) {
+      return getAll(keys, null, null);
+   }
+
+   @SuppressWarnings("unchecked")
+   final Map<K, V> getAll(Set<?> keys, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      for (Object key : keys)
+         assertKeyNotNull(key);
+      InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, keys.size());
+      GetAllCommand command = commandsFactory.buildGetAllCommand(new HashSet<Object>(keys), explicitFlags, false);
+      return (Map<K, V>) invoker.invoke(ctx, command);
+   }
+
    @Override
    public final V remove(Object key) {
       return remove(key, null, null);
    }
 
+   @SuppressWarnings("unchecked")
    final V remove(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      RecycledInvocation recycled = recycler.acquire();
+      if (recycled != null) {
+         assertKeyNotNull(key);
+         return (V) invokeRecycled(recycled, recycled.removeCommand(key, null, explicitFlags), explicitClassLoader);
+      }
       InvocationContext ctx = getInvocationContextWithImplicitTransaction(false, explicitClassLoader, 1);
       return removeInternal(key, explicitFlags, ctx);
    }
@@ -886,6 +957,12 @@ public final V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long ma
    @SuppressWarnings("unchecked")
    final V put(K key, V value, Metadata metadata,
          EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      RecycledInvocation recycled = recycler.acquire();
+      if (recycled != null) {
+         assertKeyValueNotNull(key, value);
+         return (V) invokeRecycled(recycled, recycled.putKeyValueCommand(key, value, metadata, explicitFlags),
+                                   explicitClassLoader);
+      }
       InvocationContext ctx = getInvocationContextWithImplicitTransaction(false, explicitClassLoader, 1);
       return putInternal(key, value, metadata, explicitFlags, ctx);
    }
@@ -1023,6 +1100,10 @@ public final NotifyingFuture<V> putAsync(K key, V value, long lifespan, TimeUnit
    final NotifyingFuture<V> putAsync(final K key, final V value, final Metadata metadata, final EnumSet<Flag> explicitFlags, final ClassLoader explicitClassLoader) {
       final NotifyingFutureAdaptor<V> result = new NotifyingFutureAdaptor<V>();
       final InvocationContext ctx = getInvocationContextWithImplicitTransactionForAsyncOps(false, explicitClassLoader, 1);
+      if (asyncUsesFutureReturnType(explicitFlags, key, true)) {
+         assertKeyValueNotNull(key, value);
+         return invokeWithFutureReturnType(ctx, commandsFactory.buildPutKeyValueCommand(key, value, metadata, explicitFlags));
+      }
       Future<V> returnValue = asyncExecutor.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -1106,6 +1187,12 @@ final NotifyingFuture<V> putIfAbsentAsync(final K key, final V value, final Meta
          final EnumSet<Flag> explicitFlags,final ClassLoader explicitClassLoader) {
       final NotifyingFutureAdaptor<V> result = new NotifyingFutureAdaptor<V>();
       final InvocationContext ctx = getInvocationContextWithImplicitTransactionForAsyncOps(false, explicitClassLoader, 1);
+      if (asyncUsesFutureReturnType(explicitFlags, key, true)) {
+         assertKeyValueNotNull(key, value);
+         PutKeyValueCommand command = commandsFactory.buildPutKeyValueCommand(key, value, metadata, explicitFlags);
+         command.setPutIfAbsent(true);
+         return invokeWithFutureReturnType(ctx, command);
+      }
       Future<V> returnValue = asyncExecutor.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -1129,6 +1216,10 @@ public final NotifyingFuture<V> removeAsync(Object key) {
    final NotifyingFuture<V> removeAsync(final Object key, final EnumSet<Flag> explicitFlags, final ClassLoader explicitClassLoader) {
       final NotifyingFutureAdaptor<V> result = new NotifyingFutureAdaptor<V>();
       final InvocationContext ctx = getInvocationContextWithImplicitTransactionForAsyncOps(false, explicitClassLoader, 1);
+      if (asyncUsesFutureReturnType(explicitFlags, key, true)) {
+         assertKeyNotNull(key);
+         return invokeWithFutureReturnType(ctx, commandsFactory.buildRemoveCommand(key, null, explicitFlags));
+      }
       Future<V> returnValue = asyncExecutor.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -1152,6 +1243,10 @@ public final NotifyingFuture<Boolean> removeAsync(Object key, Object value) {
    final NotifyingFuture<Boolean> removeAsync(final Object key, final Object value, final EnumSet<Flag> explicitFlags, final ClassLoader explicitClassLoader) {
       final NotifyingFutureAdaptor<Boolean> result = new NotifyingFutureAdaptor<Boolean>();
       final InvocationContext ctx = getInvocationContextWithImplicitTransactionForAsyncOps(false, explicitClassLoader, 1);
+      if (asyncUsesFutureReturnType(explicitFlags, key, true)) {
+         assertKeyValueNotNull(key, value);
+         return invokeWithFutureReturnType(ctx, commandsFactory.buildRemoveCommand(key, value, explicitFlags));
+      }
       Future<Boolean> returnValue = asyncExecutor.submit(new Callable<Boolean>() {
          @Override
          public Boolean call() throws Exception {
@@ -1179,6 +1274,10 @@ final NotifyingFuture<V> replaceAsync(final K key, final V value, final Metadata
          final EnumSet<Flag> explicitFlags, final ClassLoader explicitClassLoader) {
       final NotifyingFutureAdaptor<V> result = new NotifyingFutureAdaptor<V>();
       final InvocationContext ctx = getInvocationContextWithImplicitTransactionForAsyncOps(false, explicitClassLoader, 1);
+      if (asyncUsesFutureReturnType(explicitFlags, key, true)) {
+         assertKeyValueNotNull(key, value);
+         return invokeWithFutureReturnType(ctx, commandsFactory.buildReplaceCommand(key, null, value, metadata, explicitFlags));
+      }
       Future<V> returnValue = asyncExecutor.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -1206,6 +1305,11 @@ final NotifyingFuture<Boolean> replaceAsync(final K key, final V oldValue, final
          final Metadata metadata, final EnumSet<Flag> explicitFlags, final ClassLoader explicitClassLoader) {
       final NotifyingFutureAdaptor<Boolean> result = new NotifyingFutureAdaptor<Boolean>();
       final InvocationContext ctx = getInvocationContextWithImplicitTransactionForAsyncOps(false, explicitClassLoader, 1);
+      if (asyncUsesFutureReturnType(explicitFlags, key, true)) {
+         assertKeyValueNotNull(key, newValue);
+         assertValueNotNull(oldValue);
+         return invokeWithFutureReturnType(ctx, commandsFactory.buildReplaceCommand(key, oldValue, newValue, metadata, explicitFlags));
+      }
       Future<Boolean> returnValue = asyncExecutor.submit(new Callable<Boolean>() {
          @Override
          public Boolean call() throws Exception {
@@ -1231,6 +1335,10 @@ NotifyingFuture<V> getAsync(final K key, final EnumSet<Flag> explicitFlags, fina
       // Optimization to not start a new thread only when the operation is cheap:
       if (asyncSkipsThread(explicitFlags, key)) {
          return wrapInFuture(get(key, explicitFlags, explicitClassLoader));
+      } else if (asyncUsesFutureReturnType(explicitFlags, key, false)) {
+         assertKeyNotNull(key);
+         InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, 1);
+         return invokeWithFutureReturnType(ctx, commandsFactory.buildGetKeyValueCommand(key, explicitFlags, false));
       } else {
          // Make sure the flags are cleared
          final EnumSet<Flag> appliedFlags;
@@ -1279,6 +1387,43 @@ private boolean asyncSkipsThread(EnumSet<Flag> flags, K key) {
       return distributionManager.getLocality(key).isLocal();
    }
 
+   /**
+    * Encodes the cases in which an async operation can be invoked on the caller's thread, with the interceptors
+    * returning a future instead of waiting for the remote responses (see
+    * {@link InvocationContext#isUseFutureReturnType()}). This is only the case for non-transactional writes forwarded to
+    * the primary owner, and for remote reads which don't need to update L1.
+    *
+    * @return true if the operation can be invoked without a thread from the async executor
+    */
+   private boolean asyncUsesFutureReturnType(EnumSet<Flag> flags, Object key, boolean isWrite) {
+      CacheMode cacheMode = config.clustering().cacheMode();
+      if (!cacheMode.isDistributed() || !cacheMode.isSynchronous()
+            || config.transaction().transactionMode().isTransactional()
+            || !config.loaders().cacheLoaders().isEmpty()
+            || config.storeAsBinary().enabled() || config.compatibility().enabled()) {
+         // the return value is post-processed or the invocation may block on something other than the remote call
+         return false;
+      }
+      if (flags != null && (flags.contains(Flag.FORCE_ASYNCHRONOUS) || flags.contains(Flag.CACHE_MODE_LOCAL))) {
+         return false;
+      }
+      if (isWrite) {
+         return !rpcManager.getAddress().equals(distributionManager.getPrimaryLocation(key));
+      }
+      return !config.clustering().l1().enabled() && !distributionManager.getLocality(key).isLocal();
+   }
+
+   private <X> NotifyingFuture<X> invokeWithFutureReturnType(InvocationContext ctx, VisitableCommand command) {
+      ctx.setUseFutureReturnType(true);
+      try {
+         return wrapInFuture(invoker.invoke(ctx, command));
+      } catch (RuntimeException e) {
+         CompletableNotifyingFuture<X> future = new CompletableNotifyingFuture<X>();
+         future.completeExceptionally(e);
+         return future;
+      }
+   }
+
    private boolean isSkipLoader(EnumSet<Flag> flags) {
       boolean hasCacheLoaderConfig = !config.loaders().cacheLoaders().isEmpty();
       return !hasCacheLoaderConfig
@@ -1410,6 +1555,11 @@ public NotifyingFuture<V> putAsync(K key, V value, Metadata metadata) {
       return putAsync(key, value, metadata, null, null);
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      putAll(map, metadata, null, null);
+   }
+
    private void associateImplicitTransactionWithCurrentThread(InvocationContext ctx) throws InvalidTransactionException, SystemException {
       if (isTxInjected(ctx)) {
          Transaction transaction = ((TxInvocationContext) ctx).getTransaction();
@@ -494,6 +494,11 @@ public NotifyingFuture<V> putAsync(K key, V value, Metadata metadata) {
       return cacheImplementation.putAsync(key, value, metadata, flags, classLoader.get());
    }
 
+   @Override
+   public void putAll(Map<? extends K, ? extends V> map, Metadata metadata) {
+      cacheImplementation.putAll(map, metadata, flags, classLoader.get());
+   }
+
    @Override
    public V putIfAbsent(K key, V value, Metadata metadata) {
       return cacheImplementation.putIfAbsent(key, value, metadata, flags, classLoader.get());
@@ -514,4 +519,9 @@ public CacheEntry getCacheEntry(K key) {
       return cacheImplementation.getCacheEntry(key, flags, classLoader.get());
    }
 
+   @Override
+   public Map<K, V> getAll(Set<?> keys) {
+      return cacheImplementation.getAll(keys, flags, classLoader.get());
+   }
+
 }
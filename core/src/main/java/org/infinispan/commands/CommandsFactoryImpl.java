@@ -29,12 +29,14 @@
 import org.infinispan.commands.module.ModuleCommandInitializer;
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -249,6 +251,11 @@ public GetKeyValueCommand buildGetKeyValueCommand(Object key, Set<Flag> flags, b
       return new GetKeyValueCommand(key, flags, returnEntry);
    }
 
+   @Override
+   public GetAllCommand buildGetAllCommand(Set<Object> keys, Set<Flag> flags, boolean returnEntries) {
+      return new GetAllCommand(keys, flags, returnEntries);
+   }
+
    @Override
    public PutMapCommand buildPutMapCommand(Map<?, ?> map, Metadata metadata, Set<Flag> flags) {
       return new PutMapCommand(map, notifier, metadata, flags);
@@ -309,6 +316,11 @@ public ClusteredGetCommand buildClusteredGetCommand(Object key, Set<Flag> flags,
             configuration.dataContainer().keyEquivalence());
    }
 
+   @Override
+   public ClusteredGetAllCommand buildClusteredGetAllCommand(Set<Object> keys, Set<Flag> flags) {
+      return new ClusteredGetAllCommand(keys, cacheName, flags);
+   }
+
    /**
     * @param isRemote true if the command is deserialized and is executed remote.
     */
@@ -392,6 +404,10 @@ public void initializeReplicableCommand(ReplicableCommand c, boolean isRemote) {
                   interceptorChain, distributionManager, txTable,
                   configuration.dataContainer().keyEquivalence());
             break;
+         case ClusteredGetAllCommand.COMMAND_ID:
+            ClusteredGetAllCommand clusteredGetAllCommand = (ClusteredGetAllCommand) c;
+            clusteredGetAllCommand.initialize(icc, this, entryFactory, interceptorChain, distributionManager);
+            break;
          case LockControlCommand.COMMAND_ID:
             LockControlCommand lcc = (LockControlCommand) c;
             lcc.init(interceptorChain, icc, txTable);
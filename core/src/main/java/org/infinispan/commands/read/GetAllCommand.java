@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.commands.read;
+
+import org.infinispan.commands.AbstractFlagAffectedCommand;
+import org.infinispan.commands.LocalCommand;
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.Visitor;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.lifecycle.ComponentStatus;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implements functionality defined by {@link org.infinispan.AdvancedCache#getAll(java.util.Set)}. Like
+ * {@link GetKeyValueCommand}, it is only invoked locally: remote lookups are performed by
+ * {@link org.infinispan.commands.remote.ClusteredGetAllCommand}. It carries flags, so it can't extend
+ * {@link AbstractLocalCommand}, but like the other local commands it is never marshalled and has no parameters.
+ *
+ * @since 5.3
+ */
+public class GetAllCommand extends AbstractFlagAffectedCommand implements VisitableCommand, LocalCommand {
+   private static final Log log = LogFactory.getLog(GetAllCommand.class);
+   private static final boolean trace = log.isTraceEnabled();
+   private static final Object[] EMPTY_ARRAY = new Object[0];
+
+   private Set<Object> keys;
+   private final boolean returnEntries;
+   private Map<Object, InternalCacheEntry> remotelyFetched;
+
+   public GetAllCommand(Set<Object> keys, Set<Flag> flags, boolean returnEntries) {
+      this.keys = keys;
+      this.flags = flags;
+      this.returnEntries = returnEntries;
+   }
+
+   @Override
+   public Object acceptVisitor(InvocationContext ctx, Visitor visitor) throws Throwable {
+      return visitor.visitGetAllCommand(ctx, this);
+   }
+
+   /**
+    * @return a map of the keys found to their values, or to their entries if {@link #isReturnEntries()}
+    */
+   @Override
+   public Map<Object, Object> perform(InvocationContext ctx) throws Throwable {
+      Map<Object, Object> found = new HashMap<Object, Object>();
+      for (Object key : keys) {
+         CacheEntry entry = ctx.lookupEntry(key);
+         if (entry == null || entry.isNull() || entry.isRemoved()) {
+            if (trace) log.tracef("Entry for key %s not found", key);
+            continue;
+         }
+         Object value = returnEntries ? entry : entry.getValue();
+         if (value != null) found.put(key, value);
+      }
+      if (trace) log.tracef("Found %d out of %d keys", found.size(), keys.size());
+      return found;
+   }
+
+   public Set<Object> getKeys() {
+      return keys;
+   }
+
+   public void setKeys(Set<Object> keys) {
+      this.keys = keys;
+   }
+
+   public boolean isReturnEntries() {
+      return returnEntries;
+   }
+
+   /**
+    * @see #getRemotelyFetched()
+    */
+   public void setRemotelyFetched(Map<Object, InternalCacheEntry> remotelyFetched) {
+      this.remotelyFetched = remotelyFetched;
+   }
+
+   /**
+    * If the cache needs to go remotely in order to obtain the values associated to some of the keys, then the remote
+    * entries are stored in this field, keyed by their keys.
+    */
+   public Map<Object, InternalCacheEntry> getRemotelyFetched() {
+      return remotelyFetched;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return 0;  // no-op
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return EMPTY_ARRAY;  // no-op
+   }
+
+   @Override
+   public void setParameters(int commandId, Object[] parameters) {
+      // no-op
+   }
+
+   @Override
+   public boolean shouldInvoke(InvocationContext ctx) {
+      return true;
+   }
+
+   @Override
+   public boolean ignoreCommandOnStatus(ComponentStatus status) {
+      return false;
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+
+   @Override
+   public boolean canBlock() {
+      return false;
+   }
+
+   @Override
+   public String toString() {
+      return new StringBuilder("GetAllCommand{keys=")
+            .append(keys)
+            .append(", flags=").append(flags)
+            .append("}")
+            .toString();
+   }
+}
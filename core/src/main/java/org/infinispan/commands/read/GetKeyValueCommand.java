@@ -57,6 +57,19 @@ public GetKeyValueCommand(Object key, Set<Flag> flags, boolean returnEntry) {
    public GetKeyValueCommand() {
    }
 
+   /**
+    * Re-initializes the command, so that it can be invoked again.
+    *
+    * @see org.infinispan.context.InvocationRecycler
+    */
+   public void reset(Object key, Set<Flag> flags, boolean returnEntry) {
+      this.key = key;
+      this.flags = flags;
+      this.returnEntry = returnEntry;
+      this.remotelyFetchedValue = null;
+      setTopologyId(-1);
+   }
+
    @Override
    public Object acceptVisitor(InvocationContext ctx, Visitor visitor) throws Throwable {
       return visitor.visitGetKeyValueCommand(ctx, this);
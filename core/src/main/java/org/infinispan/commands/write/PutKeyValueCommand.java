@@ -67,6 +67,22 @@ public void init(CacheNotifier notifier) {
       this.notifier = notifier;
    }
 
+   /**
+    * Re-initializes the command, so that it can be invoked again.
+    *
+    * @see org.infinispan.context.InvocationRecycler
+    */
+   public void reset(Object key, Object value, boolean putIfAbsent, Metadata metadata, Set<Flag> flags) {
+      this.key = key;
+      this.flags = flags;
+      setValue(value);
+      this.putIfAbsent = putIfAbsent;
+      this.metadata = metadata;
+      this.successful = true;
+      this.previousRead = false;
+      setTopologyId(-1);
+   }
+
    public Object getValue() {
       return value;
    }
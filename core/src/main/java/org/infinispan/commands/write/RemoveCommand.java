@@ -65,6 +65,22 @@ public void init(CacheNotifier notifier) {
       this.notifier = notifier;
    }
 
+   /**
+    * Re-initializes the command, so that it can be invoked again.
+    *
+    * @see org.infinispan.context.InvocationRecycler
+    */
+   public void reset(Object key, Object value, Set<Flag> flags) {
+      this.key = key;
+      this.value = value;
+      this.flags = flags;
+      this.successful = true;
+      this.nonExistent = false;
+      this.ignorePreviousValue = false;
+      this.previousRead = false;
+      setTopologyId(-1);
+   }
+
    public RemoveCommand() {
    }
 
@@ -33,14 +33,16 @@ public class AsyncConfiguration {
    private final ReplicationQueue replicationQueue;
    private final long replicationQueueInterval;
    private final int replicationQueueMaxElements;
+   private final long replicationQueueMaxBytes;
    private final boolean useReplicationQueue;
 
    AsyncConfiguration(boolean asyncMarshalling, ReplicationQueue replicationQueue, long replicationQueueInterval,
-         int replicationQueueMaxElements, boolean useReplicationQueue) {
+         int replicationQueueMaxElements, long replicationQueueMaxBytes, boolean useReplicationQueue) {
       this.asyncMarshalling = asyncMarshalling;
       this.replicationQueue = replicationQueue;
       this.replicationQueueInterval = replicationQueueInterval;
       this.replicationQueueMaxElements = replicationQueueMaxElements;
+      this.replicationQueueMaxBytes = replicationQueueMaxBytes;
       this.useReplicationQueue = useReplicationQueue;
    }
 
@@ -77,6 +79,15 @@ public int replQueueMaxElements() {
       return replicationQueueMaxElements;
    }
 
+   /**
+    * If useReplQueue is set to true, this attribute can be used to trigger flushing of the queue
+    * when the estimated size of the queued commands reaches a number of bytes. 0 means there is
+    * no byte limit.
+    */
+   public long replQueueMaxBytes() {
+      return replicationQueueMaxBytes;
+   }
+
    /**
     * If true, this forces all async communications to be queued up and sent out periodically as a
     * batch.
@@ -92,6 +103,7 @@ public String toString() {
             ", replicationQueue=" + replicationQueue +
             ", replicationQueueInterval=" + replicationQueueInterval +
             ", replicationQueueMaxElements=" + replicationQueueMaxElements +
+            ", replicationQueueMaxBytes=" + replicationQueueMaxBytes +
             ", useReplicationQueue=" + useReplicationQueue +
             '}';
    }
@@ -108,6 +120,8 @@ public boolean equals(Object o) {
          return false;
       if (replicationQueueMaxElements != that.replicationQueueMaxElements)
          return false;
+      if (replicationQueueMaxBytes != that.replicationQueueMaxBytes)
+         return false;
       if (useReplicationQueue != that.useReplicationQueue) return false;
       if (replicationQueue != null ? !replicationQueue.equals(that.replicationQueue) : that.replicationQueue != null)
          return false;
@@ -121,6 +135,7 @@ public int hashCode() {
       result = 31 * result + (replicationQueue != null ? replicationQueue.hashCode() : 0);
       result = 31 * result + (int) (replicationQueueInterval ^ (replicationQueueInterval >>> 32));
       result = 31 * result + replicationQueueMaxElements;
+      result = 31 * result + (int) (replicationQueueMaxBytes ^ (replicationQueueMaxBytes >>> 32));
       result = 31 * result + (useReplicationQueue ? 1 : 0);
       return result;
    }
@@ -37,6 +37,7 @@ public class AsyncConfigurationBuilder extends AbstractClusteringConfigurationCh
    private ReplicationQueue replicationQueue;
    private long replicationQueueInterval = TimeUnit.SECONDS.toMillis(5);
    private int replicationQueueMaxElements = 1000;
+   private long replicationQueueMaxBytes = 0;
    private boolean useReplicationQueue = false;
 
    protected AsyncConfigurationBuilder(ClusteringConfigurationBuilder builder) {
@@ -107,6 +108,16 @@ public AsyncConfigurationBuilder replQueueMaxElements(int elements) {
       return this;
    }
 
+   /**
+    * If useReplQueue is set to true, this attribute can be used to trigger flushing of the queue
+    * when the estimated size of the queued commands reaches a number of bytes. Defaults to 0,
+    * meaning that the queue is only flushed based on the number of elements and the interval.
+    */
+   public AsyncConfigurationBuilder replQueueMaxBytes(long bytes) {
+      this.replicationQueueMaxBytes = bytes;
+      return this;
+   }
+
    /**
     * If true, forces all async communications to be queued up and sent out periodically as a
     * batch.
@@ -119,9 +130,6 @@ public AsyncConfigurationBuilder useReplQueue(boolean use) {
    @Override
    public
    void validate() {
-      if (useReplicationQueue && getClusteringBuilder().cacheMode().isDistributed())
-         throw new ConfigurationException("Use of the replication queue is invalid when using DISTRIBUTED mode.");
-
       if (useReplicationQueue && getClusteringBuilder().cacheMode().isSynchronous())
          throw new ConfigurationException("Use of the replication queue is only allowed with an ASYNCHRONOUS cluster mode.");
    }
@@ -129,7 +137,8 @@ void validate() {
    @Override
    public
    AsyncConfiguration create() {
-      return new AsyncConfiguration(asyncMarshalling, replicationQueue, replicationQueueInterval, replicationQueueMaxElements, useReplicationQueue);
+      return new AsyncConfiguration(asyncMarshalling, replicationQueue, replicationQueueInterval, replicationQueueMaxElements,
+            replicationQueueMaxBytes, useReplicationQueue);
    }
 
    @Override
@@ -138,6 +147,7 @@ public AsyncConfigurationBuilder read(AsyncConfiguration template) {
       this.replicationQueue = template.replQueue();
       this.replicationQueueInterval = template.replQueueInterval();
       this.replicationQueueMaxElements = template.replQueueMaxElements();
+      this.replicationQueueMaxBytes = template.replQueueMaxBytes();
       this.useReplicationQueue = template.useReplQueue();
 
       return this;
@@ -150,6 +160,7 @@ public String toString() {
             ", replicationQueue=" + replicationQueue +
             ", replicationQueueInterval=" + replicationQueueInterval +
             ", replicationQueueMaxElements=" + replicationQueueMaxElements +
+            ", replicationQueueMaxBytes=" + replicationQueueMaxBytes +
             ", useReplicationQueue=" + useReplicationQueue +
             '}';
    }
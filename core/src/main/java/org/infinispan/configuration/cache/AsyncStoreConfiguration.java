@@ -32,14 +32,18 @@ public class AsyncStoreConfiguration {
    private final int modificationQueueSize;
    private long shutdownTimeout;
    private final int threadPoolSize;
+   private final int batchSize;
+   private final long maxBatchDelay;
 
    AsyncStoreConfiguration(boolean enabled, long flushLockTimeout, int modificationQueueSize, long shutdownTimeout,
-         int threadPoolSize) {
+         int threadPoolSize, int batchSize, long maxBatchDelay) {
       this.enabled = enabled;
       this.flushLockTimeout = flushLockTimeout;
       this.modificationQueueSize = modificationQueueSize;
       this.shutdownTimeout = shutdownTimeout;
       this.threadPoolSize = threadPoolSize;
+      this.batchSize = batchSize;
+      this.maxBatchDelay = maxBatchDelay;
    }
 
    /**
@@ -99,6 +103,22 @@ public int threadPoolSize() {
       return threadPoolSize;
    }
 
+   /**
+    * Maximum number of modifications handed to the underlying cache store in a single batch.
+    */
+   public int batchSize() {
+      return batchSize;
+   }
+
+   /**
+    * Maximum time, in milliseconds, modifications are held back waiting for a full batch before
+    * being flushed to the underlying cache store. 0 flushes modifications as soon as they are
+    * available.
+    */
+   public long maxBatchDelay() {
+      return maxBatchDelay;
+   }
+
    @Override
    public String toString() {
       return "AsyncLoaderConfiguration{" +
@@ -107,6 +127,8 @@ public String toString() {
             ", modificationQueueSize=" + modificationQueueSize +
             ", shutdownTimeout=" + shutdownTimeout +
             ", threadPoolSize=" + threadPoolSize +
+            ", batchSize=" + batchSize +
+            ", maxBatchDelay=" + maxBatchDelay +
             '}';
    }
 
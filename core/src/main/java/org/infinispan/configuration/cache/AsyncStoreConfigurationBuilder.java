@@ -20,6 +20,7 @@
 
 import java.util.concurrent.TimeUnit;
 
+import org.infinispan.config.ConfigurationException;
 import org.infinispan.configuration.Builder;
 
 /**
@@ -36,6 +37,8 @@
    private int modificationQueueSize = 1024;
    private long shutdownTimeout = TimeUnit.SECONDS.toMillis(25);
    private int threadPoolSize = 1;
+   private int batchSize = 100;
+   private long maxBatchDelay = 0;
 
    AsyncStoreConfigurationBuilder(AbstractStoreConfigurationBuilder<? extends AbstractStoreConfiguration, ?> builder) {
       super(builder);
@@ -114,15 +117,46 @@ public AsyncStoreConfigurationBuilder<S> threadPoolSize(int i) {
       return this;
    }
 
+   /**
+    * Maximum number of modifications handed to the underlying cache store in a single batch.
+    */
+   public AsyncStoreConfigurationBuilder<S> batchSize(int i) {
+      this.batchSize = i;
+      return this;
+   }
+
+   /**
+    * Maximum time, in milliseconds, modifications are held back waiting for a full batch before
+    * being flushed to the underlying cache store. 0 flushes modifications as soon as they are
+    * available.
+    */
+   public AsyncStoreConfigurationBuilder<S> maxBatchDelay(long l) {
+      this.maxBatchDelay = l;
+      return this;
+   }
+
+   /**
+    * Maximum time modifications are held back waiting for a full batch before being flushed to
+    * the underlying cache store.
+    */
+   public AsyncStoreConfigurationBuilder<S> maxBatchDelay(long l, TimeUnit unit) {
+      return maxBatchDelay(unit.toMillis(l));
+   }
+
    @Override
    public
    void validate() {
+      if (enabled && batchSize <= 0)
+         throw new ConfigurationException("The async store batchSize must be greater than 0");
+      if (enabled && maxBatchDelay < 0)
+         throw new ConfigurationException("The async store maxBatchDelay cannot be negative");
    }
 
    @Override
    public
    AsyncStoreConfiguration create() {
-      return new AsyncStoreConfiguration(enabled, flushLockTimeout, modificationQueueSize, shutdownTimeout, threadPoolSize);
+      return new AsyncStoreConfiguration(enabled, flushLockTimeout, modificationQueueSize, shutdownTimeout, threadPoolSize,
+            batchSize, maxBatchDelay);
    }
 
    @Override
@@ -132,6 +166,8 @@ public AsyncStoreConfigurationBuilder<S> read(AsyncStoreConfiguration template)
       this.modificationQueueSize = template.modificationQueueSize();
       this.shutdownTimeout = template.shutdownTimeout();
       this.threadPoolSize = template.threadPoolSize();
+      this.batchSize = template.batchSize();
+      this.maxBatchDelay = template.maxBatchDelay();
 
       return this;
    }
@@ -144,6 +180,8 @@ public String toString() {
             ", modificationQueueSize=" + modificationQueueSize +
             ", shutdownTimeout=" + shutdownTimeout +
             ", threadPoolSize=" + threadPoolSize +
+            ", batchSize=" + batchSize +
+            ", maxBatchDelay=" + maxBatchDelay +
             '}';
    }
 
@@ -46,7 +46,8 @@ public class DataContainerConfigurationBuilder extends AbstractConfigurationChil
    }
 
    /**
-    * Specify the data container in use
+    * Specify the data container in use. To keep entries outside of the Java heap, use an
+    * {@link org.infinispan.container.OffHeapDataContainer}.
     * @param dataContainer
     * @return
     */
@@ -18,6 +18,8 @@
  */
 package org.infinispan.configuration.cache;
 
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 
@@ -29,15 +31,20 @@ public class EvictionConfiguration {
    private final int maxEntries;
    private final EvictionStrategy strategy;
    private final EvictionThreadPolicy threadPolicy;
+   private final long maxMemory;
+   private final EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator;
    
-   EvictionConfiguration(int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy threadPolicy) {
+   EvictionConfiguration(int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy threadPolicy,
+         long maxMemory, EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator) {
       this.maxEntries = maxEntries;
       this.strategy = strategy;
       this.threadPolicy = threadPolicy;
+      this.maxMemory = maxMemory;
+      this.sizeCalculator = sizeCalculator;
    }
    
    /**
-    * Eviction strategy. Available options are 'UNORDERED', 'LRU', 'LIRS' and 'NONE' (to disable
+    * Eviction strategy. Available options are 'UNORDERED', 'LRU', 'LIRS', 'TINYLFU' and 'NONE' (to disable
     * eviction).
     */
    public EvictionStrategy strategy() {
@@ -60,12 +67,29 @@ public int maxEntries() {
       return maxEntries;
    }
 
+   /**
+    * Maximum estimated memory footprint, in bytes, of the entries in a cache instance, or -1 if
+    * the cache is bounded by number of entries instead.
+    */
+   public long maxMemory() {
+      return maxMemory;
+   }
+
+   /**
+    * Estimates the memory footprint of each entry when the cache is bounded by {@link #maxMemory()}.
+    */
+   public EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator() {
+      return sizeCalculator;
+   }
+
    @Override
    public String toString() {
       return "EvictionConfiguration{" +
             "maxEntries=" + maxEntries +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", maxMemory=" + maxMemory +
+            ", sizeCalculator=" + sizeCalculator +
             '}';
    }
 
@@ -79,6 +103,9 @@ public boolean equals(Object o) {
       if (maxEntries != that.maxEntries) return false;
       if (strategy != that.strategy) return false;
       if (threadPolicy != that.threadPolicy) return false;
+      if (maxMemory != that.maxMemory) return false;
+      if (sizeCalculator != null ? !sizeCalculator.equals(that.sizeCalculator) : that.sizeCalculator != null)
+         return false;
 
       return true;
    }
@@ -88,6 +115,8 @@ public int hashCode() {
       int result = maxEntries;
       result = 31 * result + (strategy != null ? strategy.hashCode() : 0);
       result = 31 * result + (threadPolicy != null ? threadPolicy.hashCode() : 0);
+      result = 31 * result + (int) (maxMemory ^ (maxMemory >>> 32));
+      result = 31 * result + (sizeCalculator != null ? sizeCalculator.hashCode() : 0);
       return result;
    }
 
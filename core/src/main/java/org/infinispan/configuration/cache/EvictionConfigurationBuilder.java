@@ -20,6 +20,9 @@
 
 import org.infinispan.config.ConfigurationException;
 import org.infinispan.configuration.Builder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.DefaultEntrySizeCalculator;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.util.logging.Log;
@@ -31,10 +34,13 @@
 public class EvictionConfigurationBuilder extends AbstractConfigurationChildBuilder implements Builder<EvictionConfiguration> {
 
    private static final Log log = LogFactory.getLog(EvictionConfigurationBuilder.class);
+   private static final EntrySizeCalculator<Object, InternalCacheEntry> DEFAULT_SIZE_CALCULATOR = new DefaultEntrySizeCalculator();
 
    private int maxEntries = -1;
    private EvictionStrategy strategy = EvictionStrategy.NONE;
    private EvictionThreadPolicy threadPolicy = EvictionThreadPolicy.DEFAULT;
+   private long maxMemory = -1;
+   private EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator = DEFAULT_SIZE_CALCULATOR;
 
    EvictionConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -42,7 +48,7 @@ public class EvictionConfigurationBuilder extends AbstractConfigurationChildBuil
 
 
    /**
-    * Eviction strategy. Available options are 'UNORDERED', 'LRU', 'LIRS' and 'NONE' (to disable
+    * Eviction strategy. Available options are 'UNORDERED', 'LRU', 'LIRS', 'TINYLFU' and 'NONE' (to disable
     * eviction).
     *
     * @param evictionStrategy
@@ -74,12 +80,48 @@ public EvictionConfigurationBuilder maxEntries(int maxEntries) {
       return this;
    }
 
+   /**
+    * Maximum estimated memory footprint, in bytes, of the entries in a cache instance. When set,
+    * the cache is bounded by the size of its entries rather than by their number, which suits
+    * caches whose values vary widely in size. This cannot be combined with
+    * {@link #maxEntries(int)}. The footprint of each entry is estimated by the
+    * {@link #sizeCalculator(EntrySizeCalculator)}.
+    *
+    * @param maxMemory
+    */
+   public EvictionConfigurationBuilder maxMemory(long maxMemory) {
+      this.maxMemory = maxMemory;
+      return this;
+   }
+
+   /**
+    * Estimates the memory footprint of each entry when the cache is bounded by
+    * {@link #maxMemory(long)}. Defaults to {@link DefaultEntrySizeCalculator}.
+    *
+    * @param sizeCalculator
+    */
+   public EvictionConfigurationBuilder sizeCalculator(EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator) {
+      this.sizeCalculator = sizeCalculator;
+      return this;
+   }
+
    @Override
    public void validate() {
       if (!strategy.isEnabled() && getBuilder().loaders().passivation())
          log.passivationWithoutEviction();
       if(strategy == EvictionStrategy.FIFO)
          log.warn("FIFO strategy is deprecated, LRU will be used instead");
+      if (maxMemory > 0) {
+         if (maxEntries > 0)
+            throw new ConfigurationException("Eviction maxEntries and maxMemory cannot be both configured");
+         if (sizeCalculator == null)
+            throw new ConfigurationException("Eviction sizeCalculator cannot be null if maxMemory is configured");
+         if (!strategy.isEnabled()) {
+            strategy = EvictionStrategy.LIRS;
+            log.debugf("Max memory configured (%d) without eviction strategy. Eviction strategy overriden to %s", maxMemory, strategy);
+         }
+         return;
+      }
       if (strategy.isEnabled() && maxEntries <= 0)
          throw new ConfigurationException("Eviction maxEntries value cannot be less than or equal to zero if eviction is enabled");
       if (maxEntries > 0 && !strategy.isEnabled()) {
@@ -90,7 +132,7 @@ public void validate() {
 
    @Override
    public EvictionConfiguration create() {
-      return new EvictionConfiguration(maxEntries, strategy, threadPolicy);
+      return new EvictionConfiguration(maxEntries, strategy, threadPolicy, maxMemory, sizeCalculator);
    }
 
    @Override
@@ -98,6 +140,8 @@ public EvictionConfigurationBuilder read(EvictionConfiguration template) {
       this.maxEntries = template.maxEntries();
       this.strategy = template.strategy();
       this.threadPolicy = template.threadPolicy();
+      this.maxMemory = template.maxMemory();
+      this.sizeCalculator = template.sizeCalculator();
 
       return this;
    }
@@ -108,6 +152,8 @@ public String toString() {
             "maxEntries=" + maxEntries +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", maxMemory=" + maxMemory +
+            ", sizeCalculator=" + sizeCalculator +
             '}';
    }
 
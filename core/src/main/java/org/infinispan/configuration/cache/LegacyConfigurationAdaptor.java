@@ -40,6 +40,7 @@
 import org.infinispan.loaders.LockSupportCacheStoreConfig;
 import org.infinispan.loaders.cluster.ClusterCacheLoaderConfig;
 import org.infinispan.loaders.file.FileCacheStoreConfig;
+import org.infinispan.loaders.file.LogStructuredFileCacheStoreConfig;
 import org.infinispan.remoting.ReplicationQueue;
 import org.infinispan.transaction.lookup.TransactionManagerLookup;
 import org.infinispan.util.Util;
@@ -508,6 +509,21 @@ public static void adapt(ClassLoader cl, ConfigurationBuilder builder, CacheLoad
          fcsBuilder.fsyncMode(FileCacheStoreConfigurationBuilder.FsyncMode.valueOf(csc.getFsyncMode().name()));
          fcsBuilder.streamBufferSize(csc.getStreamBufferSize());
          loaderBuilder = fcsBuilder;
+      } else if (clc instanceof LogStructuredFileCacheStoreConfig) {
+         LogStructuredFileCacheStoreConfig csc = (LogStructuredFileCacheStoreConfig) clc;
+         LogStructuredFileCacheStoreConfigurationBuilder lsBuilder = builder.loaders().addLogStructuredFileCacheStore();
+
+         lsBuilder.fetchPersistentState(csc.isFetchPersistentState());
+         lsBuilder.ignoreModifications(csc.isIgnoreModifications());
+         lsBuilder.purgeOnStartup(csc.isPurgeOnStartup());
+         lsBuilder.purgerThreads(csc.getPurgerThreads());
+         lsBuilder.purgeSynchronously(csc.isPurgeSynchronously());
+
+         lsBuilder.location(csc.getLocation());
+         lsBuilder.maxFileSize(csc.getMaxFileSize());
+         lsBuilder.compactionThreshold(csc.getCompactionThreshold());
+         lsBuilder.syncWrites(csc.isSyncWrites());
+         loaderBuilder = lsBuilder;
       } else if (clc instanceof CacheStoreConfig) {
          LegacyStoreConfigurationBuilder tmpStoreBuilder = builder.loaders().addStore();
          tmpStoreBuilder.cacheStore(Util.<CacheStore>getInstance(clc.getCacheLoaderClassName(), cl));
@@ -534,6 +550,8 @@ public static void adapt(ClassLoader cl, ConfigurationBuilder builder, CacheLoad
          storeBuilder.async().modificationQueueSize(csc.getAsyncStoreConfig().getModificationQueueSize());
          storeBuilder.async().shutdownTimeout(csc.getAsyncStoreConfig().getShutdownTimeout());
          storeBuilder.async().threadPoolSize(csc.getAsyncStoreConfig().getThreadPoolSize());
+         storeBuilder.async().batchSize(csc.getAsyncStoreConfig().getBatchSize());
+         storeBuilder.async().maxBatchDelay(csc.getAsyncStoreConfig().getMaxBatchDelay());
          storeBuilder.singletonStore().enabled(csc.getSingletonStoreConfig().isSingletonStoreEnabled());
          storeBuilder.singletonStore().pushStateTimeout(csc.getSingletonStoreConfig().getPushStateTimeout());
          storeBuilder.singletonStore().pushStateWhenCoordinator(csc.getSingletonStoreConfig().isPushStateWhenCoordinator());
@@ -552,6 +570,8 @@ public static void adapt(CacheStoreConfiguration config, CacheStoreConfig legacy
       legacy.getAsyncStoreConfig().modificationQueueSize(config.async().modificationQueueSize());
       legacy.getAsyncStoreConfig().shutdownTimeout(config.async().shutdownTimeout());
       legacy.getAsyncStoreConfig().threadPoolSize(config.async().threadPoolSize());
+      legacy.getAsyncStoreConfig().batchSize(config.async().batchSize());
+      legacy.getAsyncStoreConfig().maxBatchDelay(config.async().maxBatchDelay());
       legacy.getSingletonStoreConfig().enabled(config.singletonStore().enabled());
       legacy.getSingletonStoreConfig().pushStateTimeout(config.singletonStore().pushStateTimeout());
       legacy.getSingletonStoreConfig().pushStateWhenCoordinator(config.singletonStore().pushStateWhenCoordinator());
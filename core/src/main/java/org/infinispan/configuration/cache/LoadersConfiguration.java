@@ -28,12 +28,14 @@ public class LoadersConfiguration {
 
    private final boolean passivation;
    private final boolean preload;
+   private final int preloadThreads;
    private final boolean shared;
    private final List<CacheLoaderConfiguration> cacheLoaders;
 
-   LoadersConfiguration(boolean passivation, boolean preload, boolean shared, List<CacheLoaderConfiguration> cacheLoaders) {
+   LoadersConfiguration(boolean passivation, boolean preload, int preloadThreads, boolean shared, List<CacheLoaderConfiguration> cacheLoaders) {
       this.passivation = passivation;
       this.preload = preload;
+      this.preloadThreads = preloadThreads;
       this.shared = shared;
       this.cacheLoaders = cacheLoaders;
    }
@@ -62,6 +64,14 @@ public boolean preload() {
       return preload;
    }
 
+   /**
+    * The number of threads used to preload the cache. Each thread loads the entries of a part of the segments of the
+    * cache, so stores which can skip the entries of other segments without reading them load faster with more threads.
+    */
+   public int preloadThreads() {
+      return preloadThreads;
+   }
+
    /**
     * This setting should be set to true when multiple cache instances share the same cache store
     * (e.g., multiple nodes in a cluster using a JDBC-based CacheStore pointing to the same, shared
@@ -115,6 +125,7 @@ public String toString() {
             "cacheLoaders=" + cacheLoaders +
             ", passivation=" + passivation +
             ", preload=" + preload +
+            ", preloadThreads=" + preloadThreads +
             ", shared=" + shared +
             '}';
    }
@@ -128,6 +139,7 @@ public boolean equals(Object o) {
 
       if (passivation != that.passivation) return false;
       if (preload != that.preload) return false;
+      if (preloadThreads != that.preloadThreads) return false;
       if (shared != that.shared) return false;
       if (cacheLoaders != null ? !cacheLoaders.equals(that.cacheLoaders) : that.cacheLoaders != null)
          return false;
@@ -139,6 +151,7 @@ public boolean equals(Object o) {
    public int hashCode() {
       int result = (passivation ? 1 : 0);
       result = 31 * result + (preload ? 1 : 0);
+      result = 31 * result + preloadThreads;
       result = 31 * result + (shared ? 1 : 0);
       result = 31 * result + (cacheLoaders != null ? cacheLoaders.hashCode() : 0);
       return result;
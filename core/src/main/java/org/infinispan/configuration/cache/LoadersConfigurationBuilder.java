@@ -35,6 +35,7 @@ public class LoadersConfigurationBuilder extends AbstractConfigurationChildBuild
 
    private boolean passivation = false;
    private boolean preload = false;
+   private int preloadThreads = 1;
    private boolean shared = false;
    private List<CacheLoaderConfigurationBuilder<?,?>> cacheLoaders = new ArrayList<CacheLoaderConfigurationBuilder<?,?>>(2);
 
@@ -76,6 +77,16 @@ boolean preload() {
       return preload;
    }
 
+   /**
+    * The number of threads used to preload the cache. Each thread loads the entries of a part of the segments of the
+    * cache, so stores which can skip the entries of other segments without reading them load faster with more threads.
+    * Stores which cannot are preloaded with a single thread. Defaults to 1.
+    */
+   public LoadersConfigurationBuilder preloadThreads(int preloadThreads) {
+      this.preloadThreads = preloadThreads;
+      return this;
+   }
+
    /**
     * This setting should be set to true when multiple cache instances share the same cache store
     * (e.g., multiple nodes in a cluster using a JDBC-based CacheStore pointing to the same, shared
@@ -202,6 +213,15 @@ public FileCacheStoreConfigurationBuilder addFileCacheStore() {
       return builder;
    }
 
+   /**
+    * Adds a log-structured file cache store
+    */
+   public LogStructuredFileCacheStoreConfigurationBuilder addLogStructuredFileCacheStore() {
+      LogStructuredFileCacheStoreConfigurationBuilder builder = new LogStructuredFileCacheStoreConfigurationBuilder(this);
+      this.cacheLoaders.add(builder);
+      return builder;
+   }
+
    /**
     * Removes any configured cache loaders and stores from this builder
     */
@@ -221,6 +241,8 @@ public LoadersConfigurationBuilder clearCacheLoaders() {
 
    @Override
    public void validate() {
+      if (preloadThreads < 1)
+         throw new ConfigurationException("preloadThreads must be greater than 0");
       for (CacheLoaderConfigurationBuilder<?, ?> b : cacheLoaders) {
          b.validate();
       }
@@ -231,7 +253,7 @@ public LoadersConfiguration create() {
       List<CacheLoaderConfiguration> loaders = new LinkedList<CacheLoaderConfiguration>();
       for (CacheLoaderConfigurationBuilder<?, ?> loader : cacheLoaders)
          loaders.add(loader.create());
-      return new LoadersConfiguration(passivation, preload, shared, loaders);
+      return new LoadersConfiguration(passivation, preload, preloadThreads, shared, loaders);
    }
 
    @SuppressWarnings("unchecked")
@@ -244,6 +266,7 @@ public LoadersConfigurationBuilder read(LoadersConfiguration template) {
       }
       this.passivation = template.passivation();
       this.preload = template.preload();
+      this.preloadThreads = template.preloadThreads();
       this.shared = template.shared();
 
       return this;
@@ -255,6 +278,7 @@ public String toString() {
             "cacheLoaders=" + cacheLoaders +
             ", passivation=" + passivation +
             ", preload=" + preload +
+            ", preloadThreads=" + preloadThreads +
             ", shared=" + shared +
             '}';
    }
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.configuration.cache;
+
+import org.infinispan.config.parsing.XmlConfigHelper;
+import org.infinispan.configuration.BuiltBy;
+import org.infinispan.loaders.file.LogStructuredFileCacheStoreConfig;
+import org.infinispan.util.TypedProperties;
+
+/**
+ * Log-structured file cache store configuration.
+ *
+ * @since 5.3
+ */
+@BuiltBy(LogStructuredFileCacheStoreConfigurationBuilder.class)
+public class LogStructuredFileCacheStoreConfiguration extends AbstractLockSupportStoreConfiguration implements LegacyLoaderAdapter<LogStructuredFileCacheStoreConfig> {
+
+   private final String location;
+   private final long maxFileSize;
+   private final float compactionThreshold;
+   private final boolean syncWrites;
+
+   LogStructuredFileCacheStoreConfiguration(String location, long maxFileSize,
+         float compactionThreshold, boolean syncWrites, long lockAcquistionTimeout,
+         int lockConcurrencyLevel, boolean purgeOnStartup, boolean purgeSynchronously,
+         int purgerThreads, boolean fetchPersistentState, boolean ignoreModifications,
+         TypedProperties properties, AsyncStoreConfiguration async,
+         SingletonStoreConfiguration singletonStore) {
+      super(lockAcquistionTimeout, lockConcurrencyLevel, purgeOnStartup,
+            purgeSynchronously, purgerThreads, fetchPersistentState,
+            ignoreModifications, properties, async, singletonStore);
+      this.location = location;
+      this.maxFileSize = maxFileSize;
+      this.compactionThreshold = compactionThreshold;
+      this.syncWrites = syncWrites;
+   }
+
+   public String location() {
+      return location;
+   }
+
+   public long maxFileSize() {
+      return maxFileSize;
+   }
+
+   public float compactionThreshold() {
+      return compactionThreshold;
+   }
+
+   public boolean syncWrites() {
+      return syncWrites;
+   }
+
+   @Override
+   public String toString() {
+      return "LogStructuredFileCacheStoreConfiguration{" +
+            "location='" + location + '\'' +
+            ", maxFileSize=" + maxFileSize +
+            ", compactionThreshold=" + compactionThreshold +
+            ", syncWrites=" + syncWrites +
+            ", lockAcquistionTimeout=" + lockAcquistionTimeout() +
+            ", lockConcurrencyLevel=" + lockConcurrencyLevel() +
+            ", purgeOnStartup=" + purgeOnStartup() +
+            ", purgeSynchronously=" + purgeSynchronously() +
+            ", purgerThreads=" + purgerThreads() +
+            ", fetchPersistentState=" + fetchPersistentState() +
+            ", ignoreModifications=" + ignoreModifications() +
+            ", properties=" + properties() +
+            ", async=" + async() +
+            ", singletonStore=" + singletonStore() +
+            '}';
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      if (!super.equals(o)) return false;
+
+      LogStructuredFileCacheStoreConfiguration that = (LogStructuredFileCacheStoreConfiguration) o;
+
+      if (maxFileSize != that.maxFileSize) return false;
+      if (Float.compare(that.compactionThreshold, compactionThreshold) != 0) return false;
+      if (syncWrites != that.syncWrites) return false;
+      if (location != null ? !location.equals(that.location) : that.location != null)
+         return false;
+
+      return true;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = super.hashCode();
+      result = 31 * result + (location != null ? location.hashCode() : 0);
+      result = 31 * result + (int) (maxFileSize ^ (maxFileSize >>> 32));
+      result = 31 * result + Float.floatToIntBits(compactionThreshold);
+      result = 31 * result + (syncWrites ? 1 : 0);
+      return result;
+   }
+
+   @Override
+   public LogStructuredFileCacheStoreConfig adapt() {
+      LogStructuredFileCacheStoreConfig config = new LogStructuredFileCacheStoreConfig();
+
+      LegacyConfigurationAdaptor.adapt(this, config);
+
+      config.location(location);
+      config.maxFileSize(maxFileSize);
+      config.compactionThreshold(compactionThreshold);
+      config.syncWrites(syncWrites);
+
+      XmlConfigHelper.setValues(config, properties(), false, true);
+
+      return config;
+   }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.configuration.cache;
+
+import java.util.Properties;
+
+import org.infinispan.config.ConfigurationException;
+import org.infinispan.config.parsing.XmlConfigHelper;
+import org.infinispan.util.TypedProperties;
+
+/**
+ * Log-structured file cache store configuration builder
+ *
+ * @since 5.3
+ */
+public class LogStructuredFileCacheStoreConfigurationBuilder extends AbstractLockSupportStoreConfigurationBuilder<LogStructuredFileCacheStoreConfiguration, LogStructuredFileCacheStoreConfigurationBuilder> {
+
+   private String location = "Infinispan-LogStructuredFileCacheStore";
+   private long maxFileSize = 16 * 1024 * 1024;
+   private float compactionThreshold = 0.5f;
+   private boolean syncWrites = false;
+
+   public LogStructuredFileCacheStoreConfigurationBuilder(LoadersConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   @Override
+   public LogStructuredFileCacheStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * Directory where the log files are written. Each cache gets its own sub-directory.
+    */
+   public LogStructuredFileCacheStoreConfigurationBuilder location(String location) {
+      this.location = location;
+      return this;
+   }
+
+   /**
+    * Size in bytes above which a new log file is started.
+    */
+   public LogStructuredFileCacheStoreConfigurationBuilder maxFileSize(long maxFileSize) {
+      this.maxFileSize = maxFileSize;
+      return this;
+   }
+
+   /**
+    * Fraction of live data below which a log file is compacted, between 0 (exclusive) and 1.
+    */
+   public LogStructuredFileCacheStoreConfigurationBuilder compactionThreshold(float compactionThreshold) {
+      this.compactionThreshold = compactionThreshold;
+      return this;
+   }
+
+   /**
+    * If true, every write is forced to disk before returning.
+    */
+   public LogStructuredFileCacheStoreConfigurationBuilder syncWrites(boolean syncWrites) {
+      this.syncWrites = syncWrites;
+      return this;
+   }
+
+   @Override
+   public LogStructuredFileCacheStoreConfigurationBuilder withProperties(Properties p) {
+      this.properties = p;
+      XmlConfigHelper.setValues(this, properties, false, true);
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      if (maxFileSize <= 0)
+         throw new ConfigurationException("maxFileSize must be greater than 0");
+      if (compactionThreshold <= 0 || compactionThreshold > 1)
+         throw new ConfigurationException("compactionThreshold must be greater than 0 and not greater than 1");
+   }
+
+   @Override
+   public LogStructuredFileCacheStoreConfiguration create() {
+      return new LogStructuredFileCacheStoreConfiguration(location, maxFileSize, compactionThreshold,
+            syncWrites, lockAcquistionTimeout, lockConcurrencyLevel,
+            purgeOnStartup, purgeSynchronously, purgerThreads, fetchPersistentState,
+            ignoreModifications, TypedProperties.toTypedProperties(properties),
+            async.create(), singletonStore.create());
+   }
+
+   @Override
+   public LogStructuredFileCacheStoreConfigurationBuilder read(LogStructuredFileCacheStoreConfiguration template) {
+      // LogStructuredFileCacheStore-specific configuration
+      location = template.location();
+      maxFileSize = template.maxFileSize();
+      compactionThreshold = template.compactionThreshold();
+      syncWrites = template.syncWrites();
+
+      // AbstractLockSupportCacheStore-specific configuration
+      lockAcquistionTimeout = template.lockAcquistionTimeout();
+      lockConcurrencyLevel = template.lockConcurrencyLevel();
+
+      // AbstractStore-specific configuration
+      fetchPersistentState = template.fetchPersistentState();
+      ignoreModifications = template.ignoreModifications();
+      properties = template.properties();
+      purgeOnStartup = template.purgeOnStartup();
+      purgeSynchronously = template.purgeSynchronously();
+      async.read(template.async());
+      singletonStore.read(template.singletonStore());
+
+      return this;
+   }
+
+   @Override
+   public String toString() {
+      return "LogStructuredFileCacheStoreConfigurationBuilder{" +
+            "fetchPersistentState=" + fetchPersistentState +
+            ", location='" + location + '\'' +
+            ", maxFileSize=" + maxFileSize +
+            ", compactionThreshold=" + compactionThreshold +
+            ", syncWrites=" + syncWrites +
+            ", ignoreModifications=" + ignoreModifications +
+            ", purgeOnStartup=" + purgeOnStartup +
+            ", purgerThreads=" + purgerThreads +
+            ", purgeSynchronously=" + purgeSynchronously +
+            ", lockConcurrencyLevel=" + lockConcurrencyLevel +
+            ", lockAcquistionTimeout=" + lockAcquistionTimeout +
+            ", properties=" + properties +
+            ", async=" + async +
+            ", singletonStore=" + singletonStore +
+            '}';
+   }
+}
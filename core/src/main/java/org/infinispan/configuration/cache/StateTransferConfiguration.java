@@ -32,15 +32,25 @@ public class StateTransferConfiguration {
    private int chunkSize;
    private boolean awaitInitialTransfer;
    private Boolean originalAwaitInitialTransfer;
+   private int maxInFlightChunks;
+   private long maxBytesPerSecond;
+   private boolean warmRestart;
+   private String warmRestartLocation;
 
    StateTransferConfiguration(boolean fetchInMemoryState, Boolean originalFetchInMemoryState, long timeout, int chunkSize,
-                              boolean awaitInitialTransfer, Boolean originalAwaitInitialTransfer) {
+                              boolean awaitInitialTransfer, Boolean originalAwaitInitialTransfer,
+                              int maxInFlightChunks, long maxBytesPerSecond, boolean warmRestart,
+                              String warmRestartLocation) {
       this.fetchInMemoryState = fetchInMemoryState;
       this.originalFetchInMemoryState = originalFetchInMemoryState;
       this.timeout = timeout;
       this.chunkSize = chunkSize;
       this.awaitInitialTransfer = awaitInitialTransfer;
       this.originalAwaitInitialTransfer = originalAwaitInitialTransfer;
+      this.maxInFlightChunks = maxInFlightChunks;
+      this.maxBytesPerSecond = maxBytesPerSecond;
+      this.warmRestart = warmRestart;
+      this.warmRestartLocation = warmRestartLocation;
    }
 
    /**
@@ -106,6 +116,38 @@ protected Boolean originalAwaitInitialTransfer() {
       return originalAwaitInitialTransfer;
    }
 
+   /**
+    * The maximum number of chunks of state sent to a node without waiting for the node to apply them. If 1, the chunks
+    * are sent one after the other, each waiting for the previous one to be applied.
+    */
+   public int maxInFlightChunks() {
+      return maxInFlightChunks;
+   }
+
+   /**
+    * The maximum estimated number of bytes of state sent per second by this node, over all the outbound transfers of
+    * the cache. 0 means there is no limit.
+    */
+   public long maxBytesPerSecond() {
+      return maxBytesPerSecond;
+   }
+
+   /**
+    * If {@code true}, a node saves a digest of each segment it owns in its local cache store when the cache stops
+    * cleanly. When it joins again, it only requests the segments whose digest differs from the digest of the current
+    * owner, and keeps its local copy of the others.
+    */
+   public boolean warmRestart() {
+      return warmRestart;
+   }
+
+   /**
+    * The directory in which the segment digests are saved when {@link #warmRestart()} is enabled.
+    */
+   public String warmRestartLocation() {
+      return warmRestartLocation;
+   }
+
    @Override
    public String toString() {
       return "StateTransferConfiguration{" +
@@ -115,6 +157,10 @@ public String toString() {
             ", timeout=" + timeout +
             ", awaitInitialTransfer=" + awaitInitialTransfer +
             ", originalAwaitInitialTransfer=" + originalAwaitInitialTransfer +
+            ", maxInFlightChunks=" + maxInFlightChunks +
+            ", maxBytesPerSecond=" + maxBytesPerSecond +
+            ", warmRestart=" + warmRestart +
+            ", warmRestartLocation='" + warmRestartLocation + '\'' +
             '}';
    }
 
@@ -133,6 +179,11 @@ public boolean equals(Object o) {
       if (awaitInitialTransfer != that.awaitInitialTransfer) return false;
       if (originalAwaitInitialTransfer != null ? !originalAwaitInitialTransfer.equals(that.originalAwaitInitialTransfer) : that.originalAwaitInitialTransfer != null)
          return false;
+      if (maxInFlightChunks != that.maxInFlightChunks) return false;
+      if (maxBytesPerSecond != that.maxBytesPerSecond) return false;
+      if (warmRestart != that.warmRestart) return false;
+      if (warmRestartLocation != null ? !warmRestartLocation.equals(that.warmRestartLocation) : that.warmRestartLocation != null)
+         return false;
 
       return true;
    }
@@ -145,6 +196,10 @@ public int hashCode() {
       result = 31 * result + chunkSize;
       result = 31 * result + (awaitInitialTransfer ? 1 : 0);
       result = 31 * result + (originalAwaitInitialTransfer != null ? originalAwaitInitialTransfer.hashCode() : 0);
+      result = 31 * result + maxInFlightChunks;
+      result = 31 * result + (int) (maxBytesPerSecond ^ (maxBytesPerSecond >>> 32));
+      result = 31 * result + (warmRestart ? 1 : 0);
+      result = 31 * result + (warmRestartLocation != null ? warmRestartLocation.hashCode() : 0);
       return result;
    }
 
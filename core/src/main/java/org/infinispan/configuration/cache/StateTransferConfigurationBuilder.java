@@ -41,6 +41,10 @@ public class StateTransferConfigurationBuilder extends
    private Boolean awaitInitialTransfer = null;
    private int chunkSize = 10000;
    private long timeout = TimeUnit.MINUTES.toMillis(4);
+   private int maxInFlightChunks = 1;
+   private long maxBytesPerSecond = 0;
+   private boolean warmRestart = false;
+   private String warmRestartLocation = "Infinispan-WarmRestart";
 
    StateTransferConfigurationBuilder(ClusteringConfigurationBuilder builder) {
       super(builder);
@@ -98,6 +102,44 @@ public StateTransferConfigurationBuilder timeout(long l, TimeUnit unit) {
       return timeout(unit.toMillis(l));
    }
 
+   /**
+    * The maximum number of chunks of state sent to a node without waiting for the node to apply them. Defaults to 1,
+    * meaning the chunks are sent one after the other. Higher values keep the network busy while the receiver applies
+    * the previous chunks, at the cost of more memory on both sides.
+    */
+   public StateTransferConfigurationBuilder maxInFlightChunks(int i) {
+      this.maxInFlightChunks = i;
+      return this;
+   }
+
+   /**
+    * Limits the estimated number of bytes of state sent per second by this node, over all the outbound transfers of
+    * the cache, to protect the live traffic during a rebalance. Defaults to 0, meaning there is no limit.
+    */
+   public StateTransferConfigurationBuilder maxBytesPerSecond(long bytes) {
+      this.maxBytesPerSecond = bytes;
+      return this;
+   }
+
+   /**
+    * If {@code true}, a node saves a digest of each segment it owns in its local cache store when the cache stops
+    * cleanly. When it joins again, it only requests the segments whose digest differs from the digest of the current
+    * owner, and keeps its local copy of the others. Requires a cache store which is not shared. Defaults to false.
+    */
+   public StateTransferConfigurationBuilder warmRestart(boolean b) {
+      this.warmRestart = b;
+      return this;
+   }
+
+   /**
+    * The directory in which the segment digests are saved when {@link #warmRestart(boolean)} is enabled. Defaults to
+    * "Infinispan-WarmRestart".
+    */
+   public StateTransferConfigurationBuilder warmRestartLocation(String location) {
+      this.warmRestartLocation = location;
+      return this;
+   }
+
    @Override
    public void validate() {
       // certain combinations are illegal, such as state transfer + invalidation
@@ -108,6 +150,12 @@ public void validate() {
             && !getClusteringBuilder().cacheMode().isReplicated() && !getClusteringBuilder().cacheMode().isDistributed())
          throw new ConfigurationException(
                "awaitInitialTransfer can be enabled only if cache mode is distributed or replicated.");
+      if (maxInFlightChunks < 1)
+         throw new ConfigurationException("maxInFlightChunks must be at least 1");
+      if (maxBytesPerSecond < 0)
+         throw new ConfigurationException("maxBytesPerSecond cannot be negative");
+      if (warmRestart && (loaders().cacheLoaders().isEmpty() || loaders().shared()))
+         throw new ConfigurationException("warmRestart requires a cache store which is not shared");
    }
 
    @Override
@@ -137,7 +185,8 @@ public  StateTransferConfiguration create() {
          _awaitInitialTransfer = false;
       }
       return new StateTransferConfiguration(_fetchInMemoryState, fetchInMemoryState,
-            timeout, chunkSize, _awaitInitialTransfer, awaitInitialTransfer);
+            timeout, chunkSize, _awaitInitialTransfer, awaitInitialTransfer, maxInFlightChunks, maxBytesPerSecond,
+            warmRestart, warmRestartLocation);
    }
 
    @Override
@@ -146,6 +195,10 @@ public StateTransferConfigurationBuilder read(StateTransferConfiguration templat
       this.awaitInitialTransfer = template.originalAwaitInitialTransfer();
       this.timeout = template.timeout();
       this.chunkSize = template.chunkSize();
+      this.maxInFlightChunks = template.maxInFlightChunks();
+      this.maxBytesPerSecond = template.maxBytesPerSecond();
+      this.warmRestart = template.warmRestart();
+      this.warmRestartLocation = template.warmRestartLocation();
       return this;
    }
 
@@ -156,6 +209,10 @@ public String toString() {
             ", fetchInMemoryState=" + fetchInMemoryState +
             ", awaitInitialTransfer=" + awaitInitialTransfer +
             ", timeout=" + timeout +
+            ", maxInFlightChunks=" + maxInFlightChunks +
+            ", maxBytesPerSecond=" + maxBytesPerSecond +
+            ", warmRestart=" + warmRestart +
+            ", warmRestartLocation='" + warmRestartLocation + '\'' +
             '}';
    }
 
@@ -30,9 +30,11 @@
 public class UnsafeConfiguration {
 
    private final boolean unreliableReturnValues;
+   private final boolean recycleInvocationObjects;
 
-   UnsafeConfiguration(boolean unreliableReturnValues) {
+   UnsafeConfiguration(boolean unreliableReturnValues, boolean recycleInvocationObjects) {
       this.unreliableReturnValues = unreliableReturnValues;
+      this.recycleInvocationObjects = recycleInvocationObjects;
    }
 
    /**
@@ -43,10 +45,19 @@ public boolean unreliableReturnValues() {
       return unreliableReturnValues;
    }
 
+   /**
+    * Specifies whether the invocation contexts and commands of the single key operations may be reused by later
+    * operations invoked by the same thread, instead of being allocated for each operation.
+    */
+   public boolean recycleInvocationObjects() {
+      return recycleInvocationObjects;
+   }
+
    @Override
    public String toString() {
       return "UnsafeConfiguration{" +
             "unreliableReturnValues=" + unreliableReturnValues +
+            ", recycleInvocationObjects=" + recycleInvocationObjects +
             '}';
    }
 
@@ -58,13 +69,16 @@ public boolean equals(Object o) {
       UnsafeConfiguration that = (UnsafeConfiguration) o;
 
       if (unreliableReturnValues != that.unreliableReturnValues) return false;
+      if (recycleInvocationObjects != that.recycleInvocationObjects) return false;
 
       return true;
    }
 
    @Override
    public int hashCode() {
-      return (unreliableReturnValues ? 1 : 0);
+      int result = (unreliableReturnValues ? 1 : 0);
+      result = 31 * result + (recycleInvocationObjects ? 1 : 0);
+      return result;
    }
 
 }
@@ -30,6 +30,7 @@
 public class UnsafeConfigurationBuilder extends AbstractConfigurationChildBuilder implements Builder<UnsafeConfiguration> {
 
    private boolean unreliableReturnValues = false;
+   private boolean recycleInvocationObjects = false;
 
    protected UnsafeConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -50,6 +51,22 @@ public UnsafeConfigurationBuilder unreliableReturnValues(boolean allowUnreliable
       return this;
    }
 
+   /**
+    * Specify whether the invocation contexts and commands of the single key operations (get, put and remove) may be
+    * reused by later operations invoked by the same thread, instead of being allocated for each operation.
+    * <p />
+    * This reduces the allocation rate of non-transactional caches, but it is only safe if custom interceptors and
+    * listeners don't keep a reference to the invocation context or to the command once the operation has completed.
+    * Objects are never recycled for transactional caches, asynchronous cache modes or caches backing up to other
+    * sites, whose commands may be used after the operation has returned.
+    * <p />
+    * @param recycleInvocationObjects if true, the invocation contexts and commands are recycled
+    */
+   public UnsafeConfigurationBuilder recycleInvocationObjects(boolean recycleInvocationObjects) {
+      this.recycleInvocationObjects = recycleInvocationObjects;
+      return this;
+   }
+
    @Override
    public void validate() {
       // Nothing to validate
@@ -57,12 +74,13 @@ public void validate() {
 
    @Override
    public UnsafeConfiguration create() {
-      return new UnsafeConfiguration(unreliableReturnValues);
+      return new UnsafeConfiguration(unreliableReturnValues, recycleInvocationObjects);
    }
 
    @Override
    public UnsafeConfigurationBuilder read(UnsafeConfiguration template) {
       this.unreliableReturnValues = template.unreliableReturnValues();
+      this.recycleInvocationObjects = template.recycleInvocationObjects();
 
       return this;
    }
@@ -71,6 +89,7 @@ public UnsafeConfigurationBuilder read(UnsafeConfiguration template) {
    public String toString() {
       return "UnsafeConfigurationBuilder{" +
             "unreliableReturnValues=" + unreliableReturnValues +
+            ", recycleInvocationObjects=" + recycleInvocationObjects +
             '}';
    }
 
@@ -39,12 +39,14 @@ public enum Attribute {
     ALWAYS_PROVIDE_IN_MEMORY_STATE("alwaysProvideInMemoryState"),
     ASYNC_MARSHALLING("asyncMarshalling"),
     AUTO_COMMIT("autoCommit"),
+    BATCH_SIZE("batchSize"),
     BEFORE("before"),
     CACHE_MANAGER_NAME("cacheManagerName"),
     CACHE_STOP_TIMEOUT("cacheStopTimeout"),
     CHUNK_SIZE("chunkSize"),
     CLASS("class"),
     CLUSTER_NAME("clusterName"),
+    COMPACTION_THRESHOLD("compactionThreshold"),
     CONCURRENCY_LEVEL("concurrencyLevel"),
     DISTRIBUTED_SYNC_TIMEOUT("distributedSyncTimeout"),
     EAGER_LOCK_SINGLE_NODE("eagerLockSingleNode"),
@@ -76,8 +78,13 @@ public enum Attribute {
     LOG_FLUSH_TIMEOUT("logFlushTimeout"),
     MACHINE_ID("machineId"),
     MARSHALLER_CLASS("marshallerClass"),
+    MAX_BATCH_DELAY("maxBatchDelay"),
+    MAX_BYTES_PER_SECOND("maxBytesPerSecond"),
     MAX_ENTRIES("maxEntries"),
+    MAX_FILE_SIZE("maxFileSize"),
     MAX_IDLE("maxIdle"),
+    MAX_IN_FLIGHT_CHUNKS("maxInFlightChunks"),
+    MAX_MEMORY("maxMemory"),
     MAX_NON_PROGRESSING_LOG_WRITES("maxProgressingLogWrites"),
     MBEAN_SERVER_LOOKUP("mBeanServerLookup"),
     MODE("mode"),
@@ -92,6 +99,7 @@ public enum Attribute {
     PASSIVATION("passivation"),
     POSITION("position"),
     PRELOAD("preload"),
+    PRELOAD_THREADS("preloadThreads"),
     PURGE_ON_STARTUP("purgeOnStartup"),
     PURGE_SYNCHRONOUSLY("purgeSynchronously"),
     PURGER_THREADS("purgerThreads"),
@@ -100,6 +108,7 @@ public enum Attribute {
     RACK_ID("rackId"),
     REAPER_ENABLED("reaperEnabled"),
     RECOVERY_INFO_CACHE_NAME("recoveryInfoCacheName"),
+    RECYCLE_INVOCATION_OBJECTS("recycleInvocationObjects"),
     REHASH_ENABLED("rehashEnabled"),
     REHASH_RPC_TIMEOUT("rehashRpcTimeout"),
     REHASH_WAIT("rehashWait"),
@@ -107,11 +116,13 @@ public enum Attribute {
     REPL_QUEUE_INTERVAL("replQueueInterval"),
     REPL_QUEUE_CLASS("replQueueClass"),
     REPL_QUEUE_MAX_ELEMENTS("replQueueMaxElements"),
+    REPL_QUEUE_MAX_BYTES("replQueueMaxBytes"),
     REPL_TIMEOUT("replTimeout"),
     RETRY_WAIT_TIME_INCREASE_FACTOR("retryWaitTimeIncreaseFactor"),
     SHARED("shared"),
     SHUTDOWN_TIMEOUT("shutdownTimeout"),
     SITE_ID("siteId"),
+    SIZE_CALCULATOR("sizeCalculator"),
     SPIN_DURATION("spinDuration"),
     STORE_KEYS_AS_BINARY("storeKeysAsBinary"),
     STORE_VALUES_AS_BINARY("storeValuesAsBinary"),
@@ -119,6 +130,7 @@ public enum Attribute {
     STRATEGY("strategy"),
     STREAM_BUFFER_SIZE("streamBufferSize"),
     SYNC_COMMIT_PHASE("syncCommitPhase"),
+    SYNC_WRITES("syncWrites"),
     SYNC_ROLLBACK_PHASE("syncRollbackPhase"),
     STRICT_PEER_TO_PEER("strictPeerToPeer"),
     THREAD_POLICY("threadPolicy"),
@@ -136,6 +148,8 @@ public enum Attribute {
     VALUE("value"),
     VERSION("version"),
     WAKE_UP_INTERVAL("wakeUpInterval"),
+    WARM_RESTART("warmRestart"),
+    WARM_RESTART_LOCATION("warmRestartLocation"),
     WRITE_SKEW_CHECK("writeSkewCheck"),
     USE_1PC_FOR_AUTOCOMMIT_TX("use1PcForAutoCommitTransactions"),
     VERSIONING_SCHEME("versioningScheme"),
@@ -66,6 +66,7 @@ public enum Element {
     LOADER("loader"),
     LOADERS("loaders"),
     LOCKING("locking"),
+    LOG_STRUCTURED_FILE_STORE("logStructuredFileStore"),
     MODULES("modules"),
     NAMED_CACHE("namedCache"),
     PROPERTIES("properties"),
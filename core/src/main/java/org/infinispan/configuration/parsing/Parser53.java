@@ -28,8 +28,10 @@
 import org.infinispan.configuration.global.ScheduledExecutorFactoryConfigurationBuilder;
 import org.infinispan.configuration.global.ShutdownHookBehavior;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHashFactory;
 import org.infinispan.distribution.group.Grouper;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.executors.ExecutorFactory;
@@ -478,6 +480,9 @@ private void parseUnsafe(final XMLExtendedStreamReader reader, final Configurati
             case UNRELIABLE_RETURN_VALUES:
                builder.unsafe().unreliableReturnValues(Boolean.parseBoolean(value));
                break;
+            case RECYCLE_INVOCATION_OBJECTS:
+               builder.unsafe().recycleInvocationObjects(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -566,6 +571,9 @@ private void parseLoaders(final XMLExtendedStreamReader reader, final Configurat
             case PRELOAD:
                builder.loaders().preload(Boolean.parseBoolean(value));
                break;
+            case PRELOAD_THREADS:
+               builder.loaders().preloadThreads(Integer.parseInt(value));
+               break;
             case SHARED:
                builder.loaders().shared(Boolean.parseBoolean(value));
                break;
@@ -583,6 +591,9 @@ private void parseLoaders(final XMLExtendedStreamReader reader, final Configurat
             case FILE_STORE:
                parseFileStore(reader, holder);
                break;
+            case LOG_STRUCTURED_FILE_STORE:
+               parseLogStructuredFileStore(reader, holder);
+               break;
             case LOADER:
                parseLoader(reader, holder);
                break;
@@ -642,6 +653,34 @@ private void parseFileStore(XMLExtendedStreamReader reader, ConfigurationBuilder
       parseStoreChildren(reader, fcscb);
    }
 
+   private void parseLogStructuredFileStore(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
+      ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
+      LogStructuredFileCacheStoreConfigurationBuilder lscb = builder.loaders().addLogStructuredFileCacheStore();
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         ParseUtils.requireNoNamespaceAttribute(reader, i);
+         String value = replaceProperties(reader.getAttributeValue(i));
+         Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
+         switch (attribute) {
+         case LOCATION:
+            lscb.location(value);
+            break;
+         case MAX_FILE_SIZE:
+            lscb.maxFileSize(Long.parseLong(value));
+            break;
+         case COMPACTION_THRESHOLD:
+            lscb.compactionThreshold(Float.parseFloat(value));
+            break;
+         case SYNC_WRITES:
+            lscb.syncWrites(Boolean.parseBoolean(value));
+            break;
+         default:
+            parseLockSupportStoreAttributes(reader, i, lscb);
+            break;
+         }
+      }
+      parseStoreChildren(reader, lscb);
+   }
+
    /**
     * This method is public static so that it can be reused by custom cache store/loader configuration parsers
     */
@@ -940,6 +979,12 @@ public static void parseAsyncStore(final XMLExtendedStreamReader reader, final C
             case THREAD_POOL_SIZE:
                storeBuilder.async().threadPoolSize(Integer.parseInt(value));
                break;
+            case BATCH_SIZE:
+               storeBuilder.async().batchSize(Integer.parseInt(value));
+               break;
+            case MAX_BATCH_DELAY:
+               storeBuilder.async().maxBatchDelay(Long.parseLong(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1076,6 +1121,12 @@ private void parseEviction(final XMLExtendedStreamReader reader, final Configura
             case MAX_ENTRIES:
                builder.eviction().maxEntries(Integer.parseInt(value));
                break;
+            case MAX_MEMORY:
+               builder.eviction().maxMemory(Long.parseLong(value));
+               break;
+            case SIZE_CALCULATOR:
+               builder.eviction().sizeCalculator(Util.<EntrySizeCalculator<Object, InternalCacheEntry>>getInstance(value, holder.getClassLoader()));
+               break;
             case STRATEGY:
                builder.eviction().strategy(EvictionStrategy.valueOf(value));
                break;
@@ -1341,6 +1392,18 @@ private void parseStateTransfer(final XMLExtendedStreamReader reader, final Conf
             case CHUNK_SIZE:
                builder.clustering().stateTransfer().chunkSize(Integer.parseInt(value));
                break;
+            case MAX_IN_FLIGHT_CHUNKS:
+               builder.clustering().stateTransfer().maxInFlightChunks(Integer.parseInt(value));
+               break;
+            case MAX_BYTES_PER_SECOND:
+               builder.clustering().stateTransfer().maxBytesPerSecond(Long.parseLong(value));
+               break;
+            case WARM_RESTART:
+               builder.clustering().stateTransfer().warmRestart(Boolean.parseBoolean(value));
+               break;
+            case WARM_RESTART_LOCATION:
+               builder.clustering().stateTransfer().warmRestartLocation(value);
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1486,6 +1549,9 @@ private void parseAsync(final XMLExtendedStreamReader reader, final Configuratio
             case REPL_QUEUE_MAX_ELEMENTS:
                builder.clustering().async().replQueueMaxElements(Integer.parseInt(value));
                break;
+            case REPL_QUEUE_MAX_BYTES:
+               builder.clustering().async().replQueueMaxBytes(Long.parseLong(value));
+               break;
             case USE_REPL_QUEUE:
                builder.clustering().async().useReplQueue(Boolean.parseBoolean(value));
                break;
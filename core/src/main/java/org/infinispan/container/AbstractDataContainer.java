@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.container;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Base class of the {@link DataContainer}s which keep their entries in one or more {@link ConcurrentMap}s and track
+ * the expiry of their mortal entries with an {@link ExpirationIndex}. Subclasses only decide which map holds the entry
+ * of a key.
+ *
+ * @since 5.3
+ */
+public abstract class AbstractDataContainer implements DataContainer {
+
+   final protected ExpirationIndex expirationIndex;
+   protected InternalEntryFactory entryFactory;
+   protected TimeService timeService;
+
+   private final ExpirationIndex.ExpiryLookup expiryLookup = new ExpirationIndex.ExpiryLookup() {
+      @Override
+      public long expiryTime(Object key) {
+         InternalCacheEntry e = peekEntry(entriesFor(key), key);
+         return e == null || !e.canExpire() ? -1 : e.getExpiryTime();
+      }
+   };
+
+   protected AbstractDataContainer(ExpirationIndex expirationIndex) {
+      this.expirationIndex = expirationIndex;
+   }
+
+   /**
+    * @return the map holding the entry of the given key, if any
+    */
+   protected abstract ConcurrentMap<Object, InternalCacheEntry> entriesFor(Object key);
+
+   /**
+    * Reads the entry of a key without recording a hit with the eviction policy of a bounded map, so that internal
+    * reads (peeks, expiry bookkeeping) don't make an entry look recently used.
+    */
+   protected static InternalCacheEntry peekEntry(ConcurrentMap<Object, InternalCacheEntry> entries, Object key) {
+      if (entries instanceof BoundedConcurrentHashMap)
+         return ((BoundedConcurrentHashMap<Object, InternalCacheEntry>) entries).peek(key);
+      return entries.get(key);
+   }
+
+   @Override
+   public InternalCacheEntry peek(Object key) {
+      return peekEntry(entriesFor(key), key);
+   }
+
+   @Override
+   public InternalCacheEntry get(Object k) {
+      ConcurrentMap<Object, InternalCacheEntry> entries = entriesFor(k);
+      InternalCacheEntry e = entries.get(k);
+      if (e != null && e.canExpire()) {
+         long currentTimeMillis = timeService.wallClockTime();
+         if (e.isExpired(currentTimeMillis)) {
+            entries.remove(k);
+            e = null;
+         } else {
+            e.touch(currentTimeMillis);
+         }
+      }
+      return e;
+   }
+
+   @Override
+   public void put(Object k, Object v, Metadata metadata) {
+      ConcurrentMap<Object, InternalCacheEntry> entries = entriesFor(k);
+      InternalCacheEntry e = entries.get(k);
+      if (e != null) {
+         e.setValue(v);
+         InternalCacheEntry original = e;
+         e = entryFactory.update(e, metadata);
+         // we have the same instance. So we need to reincarnate.
+         if (original == e) {
+            e.reincarnate(timeService.wallClockTime());
+         }
+      } else {
+         // this is a brand-new entry
+         e = entryFactory.create(k, v, metadata);
+      }
+      entries.put(k, e);
+      expirationIndex.update(k, e.canExpire(), expiryLookup);
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      ConcurrentMap<Object, InternalCacheEntry> entries = entriesFor(k);
+      InternalCacheEntry ice = entries.get(k);
+      if (ice != null && ice.canExpire() && ice.isExpired(timeService.wallClockTime())) {
+         entries.remove(k);
+         ice = null;
+      }
+      return ice != null;
+   }
+
+   @Override
+   public InternalCacheEntry remove(Object k) {
+      InternalCacheEntry e = entriesFor(k).remove(k);
+      if (e != null && e.canExpire())
+         updateExpiry(k);
+      return e == null || (e.canExpire() && e.isExpired(timeService.wallClockTime())) ? null : e;
+   }
+
+   @Override
+   public void purgeExpired() {
+      long currentTimeMillis = timeService.wallClockTime();
+      // Only visit the keys the expiration index reports as due; entries which are still alive (e.g. transient
+      // entries touched since they were scheduled) are put back in the index with their current expiry time.
+      for (Object key : expirationIndex.pollDue(currentTimeMillis)) {
+         ConcurrentMap<Object, InternalCacheEntry> entries = entriesFor(key);
+         InternalCacheEntry e = peekEntry(entries, key);
+         if (e == null || !e.canExpire()) {
+            continue;
+         }
+         if (e.isExpired(currentTimeMillis)) {
+            entries.remove(key, e);
+         }
+         // The key may have been written again since it was polled
+         updateExpiry(key);
+      }
+   }
+
+   /**
+    * Brings the schedule of a key in the expiration index in line with its current entry. Must be called after every
+    * write or removal of an entry which can expire, or which may replace one, so that the index never holds on to the
+    * keys of removed or evicted entries.
+    */
+   protected void updateExpiry(Object key) {
+      expirationIndex.update(key, expiryLookup);
+   }
+}
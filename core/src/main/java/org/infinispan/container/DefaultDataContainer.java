@@ -24,9 +24,9 @@
 
 import net.jcip.annotations.ThreadSafe;
 import org.infinispan.CacheException;
-import org.infinispan.metadata.Metadata;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
@@ -64,18 +64,17 @@
  * @since 4.0
  */
 @ThreadSafe
-public class DefaultDataContainer implements DataContainer {
+public class DefaultDataContainer extends AbstractDataContainer {
 
    final protected ConcurrentMap<Object, InternalCacheEntry> entries;
-   protected InternalEntryFactory entryFactory;
    final protected DefaultEvictionListener evictionListener;
    private EvictionManager evictionManager;
    private PassivationManager passivator;
    private ActivationManager activator;
    private CacheLoaderManager clm;
-   private TimeService timeService;
 
    public DefaultDataContainer(int concurrencyLevel) {
+      super(new ExpirationIndex(concurrencyLevel));
       // If no comparing implementations passed, could fallback on JDK CHM
       entries = CollectionFactory.makeConcurrentMap(128, concurrencyLevel);
       evictionListener = null;
@@ -83,6 +82,7 @@ public DefaultDataContainer(int concurrencyLevel) {
 
    public DefaultDataContainer(int concurrencyLevel,
          Equivalence keyEq, Equivalence valueEq) {
+      super(new ExpirationIndex(concurrencyLevel, ExpirationIndex.DEFAULT_RESOLUTION, keyEq));
       // If at least one comparing implementation give, use ComparingCHMv8
       entries = CollectionFactory.makeConcurrentMap(128, concurrencyLevel, keyEq, valueEq);
       evictionListener = null;
@@ -91,33 +91,48 @@ public DefaultDataContainer(int concurrencyLevel,
    protected DefaultDataContainer(int concurrencyLevel, int maxEntries,
          EvictionStrategy strategy, EvictionThreadPolicy policy,
          Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      super(new ExpirationIndex(concurrencyLevel, ExpirationIndex.DEFAULT_RESOLUTION, keyEquivalence));
+      evictionListener = createEvictionListener(strategy, policy);
+      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
+            maxEntries, concurrencyLevel, translateEviction(strategy), evictionListener,
+            keyEquivalence, valueEquivalence);
+   }
+
+   protected DefaultDataContainer(int concurrencyLevel, long maxMemory,
+         EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator,
+         EvictionStrategy strategy, EvictionThreadPolicy policy,
+         Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      super(new ExpirationIndex(concurrencyLevel, ExpirationIndex.DEFAULT_RESOLUTION, keyEquivalence));
+      evictionListener = createEvictionListener(strategy, policy);
+      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
+            maxMemory, concurrencyLevel, translateEviction(strategy), evictionListener,
+            sizeCalculator, keyEquivalence, valueEquivalence);
+   }
+
+   private DefaultEvictionListener createEvictionListener(EvictionStrategy strategy, EvictionThreadPolicy policy) {
       // translate eviction policy and strategy
       switch (policy) {
          case PIGGYBACK:
          case DEFAULT:
-            evictionListener = new DefaultEvictionListener();
-            break;
+            return new DefaultEvictionListener();
          default:
             throw new IllegalArgumentException("No such eviction thread policy " + strategy);
       }
+   }
 
-      Eviction eviction;
+   private static Eviction translateEviction(EvictionStrategy strategy) {
       switch (strategy) {
          case FIFO:
          case UNORDERED:
          case LRU:
-            eviction = Eviction.LRU;
-            break;
+            return Eviction.LRU;
          case LIRS:
-            eviction = Eviction.LIRS;
-            break;
+            return Eviction.LIRS;
+         case TINYLFU:
+            return Eviction.TINYLFU;
          default:
             throw new IllegalArgumentException("No such eviction strategy " + strategy);
       }
-
-      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(
-            maxEntries, concurrencyLevel, eviction, evictionListener,
-            keyEquivalence, valueEquivalence);
    }
 
    @Inject
@@ -138,6 +153,18 @@ public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEn
             policy, keyEquivalence, valueEquivalence);
    }
 
+   /**
+    * Creates a data container bounded by the estimated memory footprint of its entries, as
+    * calculated by sizeCalculator, rather than by their number.
+    */
+   public static DataContainer boundedDataContainer(int concurrencyLevel, long maxMemory,
+            EntrySizeCalculator<Object, InternalCacheEntry> sizeCalculator,
+            EvictionStrategy strategy, EvictionThreadPolicy policy,
+            Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      return new DefaultDataContainer(concurrencyLevel, maxMemory, sizeCalculator, strategy,
+            policy, keyEquivalence, valueEquivalence);
+   }
+
    public static DataContainer unBoundedDataContainer(int concurrencyLevel,
          Equivalence keyEquivalence, Equivalence valueEquivalence) {
       return new DefaultDataContainer(concurrencyLevel, keyEquivalence, valueEquivalence);
@@ -148,66 +175,30 @@ public static DataContainer unBoundedDataContainer(int concurrencyLevel) {
    }
 
    @Override
-   public InternalCacheEntry peek(Object key) {
-      return entries.get(key);
-   }
-
-   @Override
-   public InternalCacheEntry get(Object k) {
-      InternalCacheEntry e = peek(k);
-      if (e != null && e.canExpire()) {
-         long currentTimeMillis = timeService.wallClockTime();
-         if (e.isExpired(currentTimeMillis)) {
-            entries.remove(k);
-            e = null;
-         } else {
-            e.touch(currentTimeMillis);
-         }
-      }
-      return e;
+   protected ConcurrentMap<Object, InternalCacheEntry> entriesFor(Object key) {
+      return entries;
    }
 
    @Override
-   public void put(Object k, Object v, Metadata metadata) {
-      InternalCacheEntry e = entries.get(k);
-      if (e != null) {
-         e.setValue(v);
-         InternalCacheEntry original = e;
-         e = entryFactory.update(e, metadata);
-         // we have the same instance. So we need to reincarnate.
-         if (original == e) {
-            e.reincarnate(timeService.wallClockTime());
-         }
-      } else {
-         // this is a brand-new entry
-         e = entryFactory.create(k, v, metadata);
-      }
-      entries.put(k, e);
+   public int size() {
+      return entries.size();
    }
 
-   @Override
-   public boolean containsKey(Object k) {
-      InternalCacheEntry ice = peek(k);
-      if (ice != null && ice.canExpire() && ice.isExpired(timeService.wallClockTime())) {
-         entries.remove(k);
-         ice = null;
+   /**
+    * Returns the estimated memory footprint of the entries in this container, in bytes, or -1 if
+    * this container is not bounded by memory.
+    */
+   public long weightedSize() {
+      if (entries instanceof BoundedConcurrentHashMap) {
+         return ((BoundedConcurrentHashMap<Object, InternalCacheEntry>) entries).weightedSize();
       }
-      return ice != null;
-   }
-
-   @Override
-   public InternalCacheEntry remove(Object k) {
-      InternalCacheEntry e = entries.remove(k);
-      return e == null || (e.canExpire() && e.isExpired(timeService.wallClockTime())) ? null : e;
-   }
-
-   @Override
-   public int size() {
-      return entries.size();
+      return -1;
    }
 
    @Override
    public void clear() {
+      // Clear the index first, so that an entry put concurrently is either cleared too or scheduled again
+      expirationIndex.clear();
       entries.clear();
    }
 
@@ -226,17 +217,6 @@ public Set<InternalCacheEntry> entrySet() {
       return new EntrySet();
    }
 
-   @Override
-   public void purgeExpired() {
-      long currentTimeMillis = timeService.wallClockTime();
-      for (Iterator<InternalCacheEntry> purgeCandidates = entries.values().iterator(); purgeCandidates.hasNext();) {
-         InternalCacheEntry e = purgeCandidates.next();
-         if (e.isExpired(currentTimeMillis)) {
-            purgeCandidates.remove();
-         }
-      }
-   }
-
    @Override
    public Iterator<InternalCacheEntry> iterator() {
       return new EntryIterator(entries.values().iterator());
@@ -246,6 +226,10 @@ private final class DefaultEvictionListener implements EvictionListener<Object,
 
       @Override
       public void onEntryEviction(Map<Object, InternalCacheEntry> evicted) {
+         for (Map.Entry<Object, InternalCacheEntry> e : evicted.entrySet()) {
+            if (e.getValue().canExpire())
+               updateExpiry(e.getKey());
+         }
          evictionManager.onEntryEviction(evicted);
       }
 
@@ -0,0 +1,278 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.AnyEquivalence;
+import org.infinispan.util.CollectionFactory;
+import org.infinispan.util.Equivalence;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of keys by expiry time, so that purging expired entries only needs to look at the keys that are actually
+ * due instead of walking the whole container or store.
+ * <p/>
+ * Keys are split in segments by hash to reduce contention. Each segment is an expiry queue: keys are grouped in
+ * buckets of {@code resolution} milliseconds, sorted by time. A key is held by at most one bucket at a time, so
+ * rescheduling a key moves it rather than adding a duplicate.
+ * <p/>
+ * The index is only a hint. {@link #pollDue(long)} returns keys which <i>may</i> have expired, and callers are
+ * expected to check the actual entry, rescheduling it if it is still alive (e.g. a transient entry that has been
+ * touched since it was scheduled).
+ * <p/>
+ * Callers which may write the same key concurrently must not schedule or unschedule it blindly: unscheduling a key
+ * just after another thread scheduled it for a new entry would leave that entry out of the index. They should call
+ * {@link #update(Object, ExpiryLookup)} after every write instead, which reads the current entry of the key while the
+ * key is locked in the index, so the last update of a key always reflects its last write.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+public class ExpirationIndex {
+
+   /**
+    * Default width of the time buckets, in milliseconds.
+    */
+   public static final long DEFAULT_RESOLUTION = 1000;
+
+   private final Segment[] segments;
+   private final long resolution;
+   private final Equivalence<Object> keyEquivalence;
+
+   public ExpirationIndex(int concurrencyLevel) {
+      this(concurrencyLevel, DEFAULT_RESOLUTION, AnyEquivalence.getInstance());
+   }
+
+   public ExpirationIndex(int concurrencyLevel, long resolution, Equivalence<Object> keyEquivalence) {
+      if (concurrencyLevel <= 0 || resolution <= 0)
+         throw new IllegalArgumentException();
+
+      int size = 1;
+      while (size < concurrencyLevel)
+         size <<= 1;
+      this.segments = new Segment[size];
+      this.resolution = resolution;
+      this.keyEquivalence = keyEquivalence;
+      for (int i = 0; i < size; i++)
+         segments[i] = new Segment(keyEquivalence);
+   }
+
+   /**
+    * Schedules a key to expire at the given time, replacing any previous schedule of the key.
+    *
+    * @param key key of the entry
+    * @param expiryTime wall clock time at which the entry expires
+    */
+   public void schedule(Object key, long expiryTime) {
+      segmentFor(key).schedule(key, bucketFor(expiryTime), false);
+   }
+
+   /**
+    * Schedules a key to expire at the given time, unless it is already scheduled to expire earlier. This is meant for
+    * keys grouping several entries, e.g. the buckets of a cache store.
+    *
+    * @param key key of the entry
+    * @param expiryTime wall clock time at which the entry expires
+    */
+   public void scheduleIfEarlier(Object key, long expiryTime) {
+      segmentFor(key).schedule(key, bucketFor(expiryTime), true);
+   }
+
+   /**
+    * Schedules a key at the expiry time of its current entry, or removes it from the index if it has no entry that can
+    * expire. The expiry time is read from {@code lookup} while the key is locked, so concurrent updates of the same key
+    * can't leave a stale schedule behind, nor lose the schedule of a newer entry.
+    *
+    * @param key key of the entry that was just written or removed
+    * @param lookup source of the current expiry time of the key
+    */
+   public void update(Object key, ExpiryLookup lookup) {
+      update(key, true, lookup);
+   }
+
+   /**
+    * Like {@link #update(Object, ExpiryLookup)}, for callers which know whether the entry they just wrote can expire.
+    * Writes of entries which can't expire skip the index entirely, without even looking the key up, as long as the
+    * key's segment never scheduled a key.
+    *
+    * @param key key of the entry that was just written or removed
+    * @param mayExpire whether the entry just written can expire
+    * @param lookup source of the current expiry time of the key
+    */
+   public void update(Object key, boolean mayExpire, ExpiryLookup lookup) {
+      Segment segment = segmentFor(key);
+      // Segments which never scheduled a key have nothing to unschedule, so immortal entries don't need the lock
+      if (!segment.used && (!mayExpire || lookup.expiryTime(key) < 0))
+         return;
+      segment.update(key, lookup, this);
+   }
+
+   /**
+    * Removes a key from the index, if it is scheduled.
+    */
+   public void unschedule(Object key) {
+      Segment segment = segmentFor(key);
+      if (segment.count != 0)
+         segment.unschedule(key);
+   }
+
+   /**
+    * Removes and returns the keys whose expiry time may have passed. Keys of the last bucket returned may expire
+    * slightly after {@code now}, so callers must check the entries and reschedule the ones still alive.
+    *
+    * @param now current wall clock time
+    * @return keys to check for expiration
+    */
+   public List<Object> pollDue(long now) {
+      List<Object> due = new ArrayList<Object>();
+      long bucket = bucketFor(now);
+      for (Segment segment : segments) {
+         if (segment.count != 0)
+            segment.pollDue(bucket, due);
+      }
+      return due;
+   }
+
+   /**
+    * @return the number of keys currently scheduled
+    */
+   public int size() {
+      int size = 0;
+      for (Segment segment : segments)
+         size += segment.count;
+      return size;
+   }
+
+   public void clear() {
+      for (Segment segment : segments)
+         segment.clear();
+   }
+
+   /**
+    * Source of the current expiry time of the keys passed to {@link ExpirationIndex#update(Object, ExpiryLookup)}.
+    */
+   public interface ExpiryLookup {
+      /**
+       * @return the time at which the current entry of the key expires, or a negative value if the key has no entry
+       * or its entry never expires
+       */
+      long expiryTime(Object key);
+   }
+
+   private long bucketFor(long expiryTime) {
+      return expiryTime - expiryTime % resolution;
+   }
+
+   private Segment segmentFor(Object key) {
+      int h = keyEquivalence.hashCode(key);
+      // Spread bits so that the segment does not only depend on the lower bits of the hash code
+      h ^= (h >>> 20) ^ (h >>> 12);
+      h ^= (h >>> 7) ^ (h >>> 4);
+      return segments[h & (segments.length - 1)];
+   }
+
+   private static final class Segment {
+      private final Equivalence<Object> keyEquivalence;
+      private final NavigableMap<Long, Set<Object>> buckets = new TreeMap<Long, Set<Object>>();
+      private final Map<Object, Long> scheduled;
+      volatile int count;
+      // Set before the first lookup made under the lock, see update
+      volatile boolean used;
+
+      Segment(Equivalence<Object> keyEquivalence) {
+         this.keyEquivalence = keyEquivalence;
+         this.scheduled = CollectionFactory.makeMap(keyEquivalence, AnyEquivalence.<Long>getInstance());
+      }
+
+      synchronized void schedule(Object key, long bucket, boolean onlyIfEarlier) {
+         Long previous = scheduled.get(key);
+         if (previous != null) {
+            if (previous == bucket || (onlyIfEarlier && previous < bucket))
+               return;
+            removeFromBucket(key, previous);
+         }
+         scheduled.put(key, bucket);
+         Set<Object> keys = buckets.get(bucket);
+         if (keys == null) {
+            keys = CollectionFactory.makeSet(keyEquivalence);
+            buckets.put(bucket, keys);
+         }
+         keys.add(key);
+         used = true;
+         count = scheduled.size();
+      }
+
+      synchronized void update(Object key, ExpiryLookup lookup, ExpirationIndex index) {
+         // A writer which reads used == false after its write is then sure that this lookup sees that write
+         used = true;
+         long expiryTime = lookup.expiryTime(key);
+         if (expiryTime < 0)
+            unschedule(key);
+         else
+            schedule(key, index.bucketFor(expiryTime), false);
+      }
+
+      synchronized void unschedule(Object key) {
+         Long previous = scheduled.remove(key);
+         if (previous != null) {
+            removeFromBucket(key, previous);
+            count = scheduled.size();
+         }
+      }
+
+      synchronized void pollDue(long bucket, List<Object> due) {
+         Iterator<Set<Object>> it = buckets.headMap(bucket, true).values().iterator();
+         while (it.hasNext()) {
+            for (Object key : it.next()) {
+               scheduled.remove(key);
+               due.add(key);
+            }
+            it.remove();
+         }
+         count = scheduled.size();
+      }
+
+      synchronized void clear() {
+         buckets.clear();
+         scheduled.clear();
+         count = 0;
+      }
+
+      private void removeFromBucket(Object key, long bucket) {
+         Set<Object> keys = buckets.get(bucket);
+         if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty())
+               buckets.remove(bucket);
+         }
+      }
+   }
+}
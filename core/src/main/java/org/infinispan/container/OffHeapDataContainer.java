@@ -0,0 +1,866 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.CacheException;
+import org.infinispan.commons.hash.Hash;
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.util.Immutables;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
+/**
+ * A {@link DataContainer} that keeps keys, values and {@link Metadata} serialized in native memory rather than on
+ * the Java heap, so that very large data sets do not contribute to garbage collection pauses.
+ * <p/>
+ * The container is split in segments, each guarded by its own lock and owning an open hash table of native
+ * addresses. Each entry lives in a single natively allocated block which holds the hash chain and LRU links, the
+ * expiration timestamps and the marshalled key, value and metadata. Keeping the timestamps uncompressed means that
+ * {@link #purgeExpired()} and expiration checks never need to unmarshall anything.
+ * <p/>
+ * Since keys are compared in their marshalled form, two keys are considered equal only if they marshall to the same
+ * bytes. Entries returned by this container are copies, so modifying them has no effect on the stored entry unless
+ * they are {@link #put(Object, Object, Metadata) put} back.
+ * <p/>
+ * The container can be bounded by a number of entries or by memory. When bounded by memory, the footprint of an
+ * entry is the exact size of its native block, so the configured
+ * {@link org.infinispan.configuration.cache.EvictionConfiguration#sizeCalculator() size calculator} is not used.
+ * Either way, entries are evicted in LRU order and handed over to the {@link PassivationManager} and
+ * {@link EvictionManager} in the same way as in {@link DefaultDataContainer}. LIRS and TINYLFU are not supported
+ * off-heap and are approximated with LRU. An entry larger than the memory bound of its segment is never stored.
+ * <p/>
+ * The container can be enabled with {@link org.infinispan.configuration.cache.DataContainerConfigurationBuilder#dataContainer(DataContainer)}.
+ * If created with the no-arg constructor, the concurrency level and the bounds are taken from the cache's locking
+ * and eviction configuration.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+public class OffHeapDataContainer implements DataContainer {
+
+   private static final Log log = LogFactory.getLog(OffHeapDataContainer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   // Layout of a native entry block
+   private static final int HASH_NEXT_OFFSET = 0;
+   private static final int LRU_PREV_OFFSET = 8;
+   private static final int LRU_NEXT_OFFSET = 16;
+   private static final int CREATED_OFFSET = 24;
+   private static final int LAST_USED_OFFSET = 32;
+   private static final int LIFESPAN_OFFSET = 40;
+   private static final int MAX_IDLE_OFFSET = 48;
+   private static final int HASH_OFFSET = 56;
+   private static final int KEY_LENGTH_OFFSET = 60;
+   private static final int VALUE_LENGTH_OFFSET = 64;
+   private static final int METADATA_LENGTH_OFFSET = 68;
+   private static final int HEADER_SIZE = 72;
+
+   private static final int UNSET = Integer.MIN_VALUE;
+   private static final int MAX_SEGMENTS = 1 << 16;
+   private static final int INITIAL_TABLE_SIZE = 16;
+   private static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+   private static final float LOAD_FACTOR = 0.75f;
+   // Number of buckets unmarshalled at a time while iterating
+   private static final int ITERATION_BATCH = 64;
+
+   private final Hash hashFunction = new MurmurHash3();
+   private int concurrencyLevel;
+   private int maxEntries;
+   private long maxMemory;
+   private volatile Segment[] segments;
+   private int segmentShift;
+   private int segmentMask;
+
+   private StreamingMarshaller marshaller;
+   private InternalEntryFactory entryFactory;
+   private TimeService timeService;
+   private EvictionManager evictionManager;
+   private PassivationManager passivator;
+   private ActivationManager activator;
+
+   /**
+    * Creates an off-heap container whose concurrency level and bounds are read from the cache configuration.
+    */
+   public OffHeapDataContainer() {
+      this(UNSET, UNSET, UNSET);
+   }
+
+   /**
+    * @param concurrencyLevel number of independently locked segments
+    * @param maxEntries maximum number of entries to hold, or a negative number for an unbounded container
+    */
+   public OffHeapDataContainer(int concurrencyLevel, int maxEntries) {
+      this(concurrencyLevel, maxEntries, -1);
+   }
+
+   /**
+    * @param concurrencyLevel number of independently locked segments
+    * @param maxEntries maximum number of entries to hold, or a negative number for no bound on the number of entries
+    * @param maxMemory maximum number of bytes of native memory taken by the entries, or a negative number for no bound
+    *                  on memory
+    */
+   public OffHeapDataContainer(int concurrencyLevel, int maxEntries, long maxMemory) {
+      this.concurrencyLevel = concurrencyLevel;
+      this.maxEntries = maxEntries;
+      this.maxMemory = maxMemory;
+      if (concurrencyLevel != UNSET && maxEntries != UNSET && maxMemory != UNSET)
+         createSegments();
+   }
+
+   @Inject
+   public void initialize(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
+         InternalEntryFactory entryFactory, TimeService timeService, Configuration configuration,
+         EvictionManager evictionManager, PassivationManager passivator, ActivationManager activator) {
+      this.marshaller = marshaller;
+      this.entryFactory = entryFactory;
+      this.timeService = timeService;
+      this.evictionManager = evictionManager;
+      this.passivator = passivator;
+      this.activator = activator;
+      if (segments == null) {
+         if (concurrencyLevel == UNSET)
+            concurrencyLevel = configuration.locking().concurrencyLevel();
+         if (maxEntries == UNSET || maxMemory == UNSET) {
+            boolean bounded = configuration.eviction().strategy().isEnabled();
+            maxMemory = bounded ? configuration.eviction().maxMemory() : -1;
+            maxEntries = bounded && maxMemory <= 0 ? configuration.eviction().maxEntries() : -1;
+         }
+         createSegments();
+      }
+   }
+
+   private void createSegments() {
+      int level = concurrencyLevel;
+      // Like BoundedConcurrentHashMap, keep at least two entries per segment
+      if (maxEntries >= 0)
+         level = Math.min(maxEntries / 2, level);
+      level = Math.min(Math.max(level, 1), MAX_SEGMENTS);
+      int shift = 0;
+      int count = 1;
+      while (count < level) {
+         ++shift;
+         count <<= 1;
+      }
+      segmentShift = 32 - shift;
+      segmentMask = count - 1;
+      // The bounds are distributed evenly among segments
+      int segmentMaxEntries = maxEntries < 0 ? -1 : Math.max(1, maxEntries / count);
+      long segmentMaxMemory = maxMemory <= 0 ? -1 : Math.max(1, maxMemory / count);
+      Segment[] newSegments = new Segment[count];
+      for (int i = 0; i < count; i++)
+         newSegments[i] = new Segment(segmentMaxEntries, segmentMaxMemory);
+      segments = newSegments;
+      if (trace)
+         log.tracef("Created off-heap container with %d segments, bounded to %d entries and %d bytes", count,
+                    maxEntries, maxMemory);
+   }
+
+   @Override
+   public InternalCacheEntry get(Object k) {
+      byte[] keyBytes = marshall(k);
+      int hash = hash(keyBytes);
+      Segment segment = segmentFor(hash);
+      RawEntry raw;
+      segment.lock();
+      try {
+         long address = segment.find(hash, keyBytes);
+         if (address == 0)
+            return null;
+         long now = timeService.wallClockTime();
+         if (isExpired(address, now)) {
+            segment.remove(address);
+            return null;
+         }
+         OffHeapMemory.putLong(address + LAST_USED_OFFSET, now);
+         segment.recordAccess(address);
+         raw = new RawEntry(address, false);
+      } finally {
+         segment.unlock();
+      }
+      return raw.toInternalCacheEntry(k);
+   }
+
+   @Override
+   public InternalCacheEntry peek(Object k) {
+      byte[] keyBytes = marshall(k);
+      int hash = hash(keyBytes);
+      Segment segment = segmentFor(hash);
+      RawEntry raw;
+      segment.lock();
+      try {
+         long address = segment.find(hash, keyBytes);
+         if (address == 0)
+            return null;
+         raw = new RawEntry(address, false);
+      } finally {
+         segment.unlock();
+      }
+      return raw.toInternalCacheEntry(k);
+   }
+
+   @Override
+   public void put(Object k, Object v, Metadata metadata) {
+      byte[] keyBytes = marshall(k);
+      byte[] valueBytes = marshall(v);
+      byte[] metadataBytes = metadata == null ? null : marshall(metadata);
+      int hash = hash(keyBytes);
+      long now = timeService.wallClockTime();
+      long lifespan = metadata == null ? -1 : metadata.lifespan();
+      long maxIdle = metadata == null ? -1 : metadata.maxIdle();
+      Segment segment = segmentFor(hash);
+      long size = HEADER_SIZE + keyBytes.length + valueBytes.length + (metadataBytes == null ? 0 : metadataBytes.length);
+      if (segment.maxMemory > 0 && size > segment.maxMemory) {
+         rejectEntry(segment, hash, keyBytes, k, v, metadata, size);
+         return;
+      }
+      long address = allocateEntry(hash, keyBytes, valueBytes, metadataBytes, now, lifespan, maxIdle);
+
+      Map<Object, InternalCacheEntry> evicted = null;
+      boolean created;
+      segment.lock();
+      try {
+         long existing = segment.find(hash, keyBytes);
+         if (existing != 0) {
+            segment.replace(existing, address);
+            created = false;
+         } else {
+            segment.insert(address);
+            created = true;
+         }
+         // A larger value may overflow a segment bounded by memory even when it replaces an entry
+         if (segment.isOverflowing())
+            evicted = segment.evict();
+      } finally {
+         segment.unlock();
+      }
+      // Like BoundedConcurrentHashMap, activate entries newly added to a bounded container
+      if (created && segment.isBounded() && activator != null)
+         activator.activate(k);
+      if (evicted != null && evictionManager != null)
+         evictionManager.onEntryEviction(evicted);
+   }
+
+   /**
+    * Handles an entry which does not fit in the memory of its segment on its own. Storing it would only evict it
+    * straight away, together with every other entry of the segment, so it is not stored at all. The previous value of
+    * the key is dropped so that it can not be read instead, and the entry is handed to the {@link PassivationManager}
+    * so that it is not lost when passivation is enabled.
+    */
+   private void rejectEntry(Segment segment, int hash, byte[] keyBytes, Object k, Object v, Metadata metadata,
+         long size) {
+      log.entryTooLargeForContainer(k, size, segment.maxMemory);
+      segment.lock();
+      try {
+         long existing = segment.find(hash, keyBytes);
+         if (existing != 0)
+            segment.remove(existing);
+      } finally {
+         segment.unlock();
+      }
+      if (passivator != null)
+         passivator.passivate(entryFactory.create(k, v, metadata));
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      byte[] keyBytes = marshall(k);
+      int hash = hash(keyBytes);
+      Segment segment = segmentFor(hash);
+      segment.lock();
+      try {
+         long address = segment.find(hash, keyBytes);
+         if (address == 0)
+            return false;
+         if (isExpired(address, timeService.wallClockTime())) {
+            segment.remove(address);
+            return false;
+         }
+         return true;
+      } finally {
+         segment.unlock();
+      }
+   }
+
+   @Override
+   public InternalCacheEntry remove(Object k) {
+      byte[] keyBytes = marshall(k);
+      int hash = hash(keyBytes);
+      Segment segment = segmentFor(hash);
+      RawEntry raw;
+      segment.lock();
+      try {
+         long address = segment.find(hash, keyBytes);
+         if (address == 0)
+            return null;
+         if (isExpired(address, timeService.wallClockTime())) {
+            segment.remove(address);
+            return null;
+         }
+         raw = new RawEntry(address, false);
+         segment.remove(address);
+      } finally {
+         segment.unlock();
+      }
+      return raw.toInternalCacheEntry(k);
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (Segment segment : segments)
+         size += segment.count;
+      return size;
+   }
+
+   @Override
+   @Stop(priority = 999)
+   public void clear() {
+      // Also invoked on stop, to release the native memory
+      for (Segment segment : segments) {
+         segment.lock();
+         try {
+            segment.clear();
+         } finally {
+            segment.unlock();
+         }
+      }
+   }
+
+   @Override
+   public Set<Object> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<Object> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void purgeExpired() {
+      long now = timeService.wallClockTime();
+      for (Segment segment : segments) {
+         segment.lock();
+         try {
+            segment.purgeExpired(now);
+         } finally {
+            segment.unlock();
+         }
+      }
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> iterator() {
+      return new EntryIterator();
+   }
+
+   private Segment segmentFor(int hash) {
+      return segments[(hash >>> segmentShift) & segmentMask];
+   }
+
+   private int hash(byte[] keyBytes) {
+      return hashFunction.hash(keyBytes);
+   }
+
+   private byte[] marshall(Object o) {
+      try {
+         return marshaller.objectToByteBuffer(o);
+      } catch (IOException e) {
+         throw new CacheException("Unable to marshall " + o, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException(e);
+      }
+   }
+
+   private Object unmarshall(byte[] bytes) {
+      try {
+         return marshaller.objectFromByteBuffer(bytes);
+      } catch (IOException e) {
+         throw new CacheException(e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheException(e);
+      }
+   }
+
+   private static long allocateEntry(int hash, byte[] keyBytes, byte[] valueBytes, byte[] metadataBytes,
+         long now, long lifespan, long maxIdle) {
+      int metadataLength = metadataBytes == null ? 0 : metadataBytes.length;
+      long address = OffHeapMemory.allocate(HEADER_SIZE + keyBytes.length + valueBytes.length + metadataLength);
+      OffHeapMemory.putLong(address + HASH_NEXT_OFFSET, 0);
+      OffHeapMemory.putLong(address + LRU_PREV_OFFSET, 0);
+      OffHeapMemory.putLong(address + LRU_NEXT_OFFSET, 0);
+      OffHeapMemory.putLong(address + CREATED_OFFSET, now);
+      OffHeapMemory.putLong(address + LAST_USED_OFFSET, now);
+      OffHeapMemory.putLong(address + LIFESPAN_OFFSET, lifespan);
+      OffHeapMemory.putLong(address + MAX_IDLE_OFFSET, maxIdle);
+      OffHeapMemory.putInt(address + HASH_OFFSET, hash);
+      OffHeapMemory.putInt(address + KEY_LENGTH_OFFSET, keyBytes.length);
+      OffHeapMemory.putInt(address + VALUE_LENGTH_OFFSET, valueBytes.length);
+      OffHeapMemory.putInt(address + METADATA_LENGTH_OFFSET, metadataBytes == null ? -1 : metadataLength);
+      long offset = address + HEADER_SIZE;
+      OffHeapMemory.copyFromArray(keyBytes, offset);
+      offset += keyBytes.length;
+      OffHeapMemory.copyFromArray(valueBytes, offset);
+      if (metadataBytes != null)
+         OffHeapMemory.copyFromArray(metadataBytes, offset + valueBytes.length);
+      return address;
+   }
+
+   private static boolean isExpired(long address, long now) {
+      long lifespan = OffHeapMemory.getLong(address + LIFESPAN_OFFSET);
+      if (lifespan > -1 && now > OffHeapMemory.getLong(address + CREATED_OFFSET) + lifespan)
+         return true;
+      long maxIdle = OffHeapMemory.getLong(address + MAX_IDLE_OFFSET);
+      return maxIdle > -1 && now > OffHeapMemory.getLong(address + LAST_USED_OFFSET) + maxIdle;
+   }
+
+   private static int keyLength(long address) {
+      return OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET);
+   }
+
+   private static long blockSize(long address) {
+      int metadataLength = OffHeapMemory.getInt(address + METADATA_LENGTH_OFFSET);
+      return HEADER_SIZE + keyLength(address) + OffHeapMemory.getInt(address + VALUE_LENGTH_OFFSET)
+            + Math.max(metadataLength, 0);
+   }
+
+   /**
+    * A heap copy of a native entry, taken while holding the segment lock so that it can be unmarshalled after the
+    * lock has been released.
+    */
+   private final class RawEntry {
+      final byte[] key;
+      final byte[] value;
+      final byte[] metadata;
+      final long created;
+      final long lastUsed;
+      final long lifespan;
+      final long maxIdle;
+
+      RawEntry(long address, boolean copyKey) {
+         int keyLength = keyLength(address);
+         int valueLength = OffHeapMemory.getInt(address + VALUE_LENGTH_OFFSET);
+         int metadataLength = OffHeapMemory.getInt(address + METADATA_LENGTH_OFFSET);
+         long offset = address + HEADER_SIZE;
+         key = copyKey ? OffHeapMemory.copyToArray(offset, keyLength) : null;
+         offset += keyLength;
+         value = OffHeapMemory.copyToArray(offset, valueLength);
+         metadata = metadataLength < 0 ? null : OffHeapMemory.copyToArray(offset + valueLength, metadataLength);
+         created = OffHeapMemory.getLong(address + CREATED_OFFSET);
+         lastUsed = OffHeapMemory.getLong(address + LAST_USED_OFFSET);
+         lifespan = OffHeapMemory.getLong(address + LIFESPAN_OFFSET);
+         maxIdle = OffHeapMemory.getLong(address + MAX_IDLE_OFFSET);
+      }
+
+      InternalCacheEntry toInternalCacheEntry(Object k) {
+         Object key = k == null ? unmarshall(this.key) : k;
+         Metadata md = metadata == null ? null : (Metadata) unmarshall(metadata);
+         return entryFactory.create(key, unmarshall(value), md, created, lifespan, lastUsed, maxIdle);
+      }
+   }
+
+   /**
+    * A segment of the container. All methods must be invoked while holding the segment lock.
+    */
+   private final class Segment extends ReentrantLock {
+      private static final long serialVersionUID = -2224938568547587735L;
+
+      final int maxEntries;
+      final long maxMemory;
+      long[] table = new long[INITIAL_TABLE_SIZE];
+      volatile int count;
+      // Bytes of native memory taken by the entries of the segment
+      long memoryUsed;
+      // Most recently used entry at the head
+      long lruHead;
+      long lruTail;
+
+      Segment(int maxEntries, long maxMemory) {
+         this.maxEntries = maxEntries;
+         this.maxMemory = maxMemory;
+      }
+
+      long find(int hash, byte[] keyBytes) {
+         long address = table[hash & (table.length - 1)];
+         while (address != 0) {
+            if (OffHeapMemory.getInt(address + HASH_OFFSET) == hash && keyLength(address) == keyBytes.length
+                  && OffHeapMemory.equals(address + HEADER_SIZE, keyBytes))
+               return address;
+            address = OffHeapMemory.getLong(address + HASH_NEXT_OFFSET);
+         }
+         return 0;
+      }
+
+      void insert(long address) {
+         if (count + 1 > table.length * LOAD_FACTOR)
+            rehash();
+         int index = OffHeapMemory.getInt(address + HASH_OFFSET) & (table.length - 1);
+         OffHeapMemory.putLong(address + HASH_NEXT_OFFSET, table[index]);
+         table[index] = address;
+         linkFirst(address);
+         memoryUsed += blockSize(address);
+         count = count + 1;
+      }
+
+      void replace(long existing, long address) {
+         int index = OffHeapMemory.getInt(address + HASH_OFFSET) & (table.length - 1);
+         long previous = 0;
+         long current = table[index];
+         while (current != existing) {
+            previous = current;
+            current = OffHeapMemory.getLong(current + HASH_NEXT_OFFSET);
+         }
+         OffHeapMemory.putLong(address + HASH_NEXT_OFFSET, OffHeapMemory.getLong(existing + HASH_NEXT_OFFSET));
+         if (previous == 0)
+            table[index] = address;
+         else
+            OffHeapMemory.putLong(previous + HASH_NEXT_OFFSET, address);
+         unlink(existing);
+         linkFirst(address);
+         memoryUsed += blockSize(address) - blockSize(existing);
+         OffHeapMemory.free(existing);
+      }
+
+      void remove(long address) {
+         int index = OffHeapMemory.getInt(address + HASH_OFFSET) & (table.length - 1);
+         long previous = 0;
+         long current = table[index];
+         while (current != address) {
+            previous = current;
+            current = OffHeapMemory.getLong(current + HASH_NEXT_OFFSET);
+         }
+         long next = OffHeapMemory.getLong(address + HASH_NEXT_OFFSET);
+         if (previous == 0)
+            table[index] = next;
+         else
+            OffHeapMemory.putLong(previous + HASH_NEXT_OFFSET, next);
+         unlink(address);
+         memoryUsed -= blockSize(address);
+         OffHeapMemory.free(address);
+         count = count - 1;
+      }
+
+      boolean isBounded() {
+         return maxEntries >= 0 || maxMemory > 0;
+      }
+
+      void recordAccess(long address) {
+         if (isBounded() && lruHead != address) {
+            unlink(address);
+            linkFirst(address);
+         }
+      }
+
+      boolean isOverflowing() {
+         return (maxEntries >= 0 && count > maxEntries) || (maxMemory > 0 && memoryUsed > maxMemory);
+      }
+
+      Map<Object, InternalCacheEntry> evict() {
+         Map<Object, InternalCacheEntry> evicted = new HashMap<Object, InternalCacheEntry>();
+         while (isOverflowing() && lruTail != 0) {
+            long victim = lruTail;
+            InternalCacheEntry entry = new RawEntry(victim, true).toInternalCacheEntry(null);
+            if (passivator != null)
+               passivator.passivate(entry);
+            evicted.put(entry.getKey(), entry);
+            remove(victim);
+         }
+         return evicted;
+      }
+
+      void purgeExpired(long now) {
+         for (int i = 0; i < table.length; i++) {
+            long address = table[i];
+            while (address != 0) {
+               long next = OffHeapMemory.getLong(address + HASH_NEXT_OFFSET);
+               if (isExpired(address, now))
+                  remove(address);
+               address = next;
+            }
+         }
+      }
+
+      void clear() {
+         for (int i = 0; i < table.length; i++) {
+            long address = table[i];
+            while (address != 0) {
+               long next = OffHeapMemory.getLong(address + HASH_NEXT_OFFSET);
+               OffHeapMemory.free(address);
+               address = next;
+            }
+            table[i] = 0;
+         }
+         lruHead = lruTail = 0;
+         memoryUsed = 0;
+         count = 0;
+      }
+
+      /**
+       * Copies the entries of the buckets that mapped to {@code bucket} when the table had {@code baseLength}
+       * buckets. Tables only ever grow by doubling, so those entries now live in buckets
+       * {@code bucket + n * baseLength}, which allows iterating consistently across rehashes.
+       */
+      void copyBucket(int bucket, int baseLength, List<RawEntry> target) {
+         for (int i = bucket; i < table.length; i += baseLength) {
+            long address = table[i];
+            while (address != 0) {
+               target.add(new RawEntry(address, true));
+               address = OffHeapMemory.getLong(address + HASH_NEXT_OFFSET);
+            }
+         }
+      }
+
+      private void rehash() {
+         long[] oldTable = table;
+         if (oldTable.length >= MAXIMUM_TABLE_SIZE)
+            return;
+         long[] newTable = new long[oldTable.length << 1];
+         int mask = newTable.length - 1;
+         for (long address : oldTable) {
+            while (address != 0) {
+               long next = OffHeapMemory.getLong(address + HASH_NEXT_OFFSET);
+               int index = OffHeapMemory.getInt(address + HASH_OFFSET) & mask;
+               OffHeapMemory.putLong(address + HASH_NEXT_OFFSET, newTable[index]);
+               newTable[index] = address;
+               address = next;
+            }
+         }
+         table = newTable;
+      }
+
+      private void linkFirst(long address) {
+         OffHeapMemory.putLong(address + LRU_PREV_OFFSET, 0);
+         OffHeapMemory.putLong(address + LRU_NEXT_OFFSET, lruHead);
+         if (lruHead != 0)
+            OffHeapMemory.putLong(lruHead + LRU_PREV_OFFSET, address);
+         lruHead = address;
+         if (lruTail == 0)
+            lruTail = address;
+      }
+
+      private void unlink(long address) {
+         long prev = OffHeapMemory.getLong(address + LRU_PREV_OFFSET);
+         long next = OffHeapMemory.getLong(address + LRU_NEXT_OFFSET);
+         if (prev == 0)
+            lruHead = next;
+         else
+            OffHeapMemory.putLong(prev + LRU_NEXT_OFFSET, next);
+         if (next == 0)
+            lruTail = prev;
+         else
+            OffHeapMemory.putLong(next + LRU_PREV_OFFSET, prev);
+      }
+   }
+
+   /**
+    * Weakly consistent iterator which copies a handful of buckets at a time, so that iterating never requires more
+    * than a small fraction of the container to be unmarshalled on the heap.
+    */
+   private final class EntryIterator implements Iterator<InternalCacheEntry> {
+      private final Segment[] iterated = segments;
+      private final List<RawEntry> buffer = new ArrayList<RawEntry>();
+      private int bufferIndex;
+      private int segmentIndex;
+      private int bucket;
+      private int baseLength;
+
+      @Override
+      public boolean hasNext() {
+         while (bufferIndex >= buffer.size()) {
+            if (segmentIndex >= iterated.length)
+               return false;
+            buffer.clear();
+            bufferIndex = 0;
+            Segment segment = iterated[segmentIndex];
+            segment.lock();
+            try {
+               if (baseLength == 0)
+                  baseLength = segment.table.length;
+               int end = Math.min(bucket + ITERATION_BATCH, baseLength);
+               for (; bucket < end; bucket++)
+                  segment.copyBucket(bucket, baseLength, buffer);
+            } finally {
+               segment.unlock();
+            }
+            if (bucket >= baseLength) {
+               segmentIndex++;
+               bucket = 0;
+               baseLength = 0;
+            }
+         }
+         return true;
+      }
+
+      @Override
+      public InternalCacheEntry next() {
+         if (!hasNext())
+            throw new NoSuchElementException();
+         return buffer.get(bufferIndex++).toInternalCacheEntry(null);
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class KeySet extends AbstractSet<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class EntrySet extends AbstractSet<InternalCacheEntry> {
+      @Override
+      public Iterator<InternalCacheEntry> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<InternalCacheEntry>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public InternalCacheEntry next() {
+               return Immutables.immutableInternalCacheEntry(it.next());
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry))
+            return false;
+         Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         return ice != null && ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Collection
+    */
+   private class Values extends AbstractCollection<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getValue();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+}
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import java.lang.reflect.Method;
+
+/**
+ * Thin wrapper around {@link sun.misc.Unsafe} used to allocate, free and access the native memory backing
+ * {@link OffHeapDataContainer}. All addresses handled here are raw native addresses, so callers are responsible for
+ * bounds checking and for never touching an address after it has been {@link #free(long) freed}.
+ *
+ * @since 5.3
+ */
+final class OffHeapMemory {
+
+   private static final sun.misc.Unsafe UNSAFE = getUnsafe();
+   private static final long BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+   // Unsafe.copyMemory(Object, long, Object, long, long) only exists from JDK 7 onwards
+   private static final boolean ARRAY_COPY_SUPPORTED = isArrayCopySupported();
+
+   private OffHeapMemory() {
+   }
+
+   static long allocate(long size) {
+      return UNSAFE.allocateMemory(size);
+   }
+
+   static void free(long address) {
+      UNSAFE.freeMemory(address);
+   }
+
+   static long getLong(long address) {
+      return UNSAFE.getLong(address);
+   }
+
+   static void putLong(long address, long value) {
+      UNSAFE.putLong(address, value);
+   }
+
+   static int getInt(long address) {
+      return UNSAFE.getInt(address);
+   }
+
+   static void putInt(long address, int value) {
+      UNSAFE.putInt(address, value);
+   }
+
+   static void copyFromArray(byte[] src, long address) {
+      if (ARRAY_COPY_SUPPORTED) {
+         UNSAFE.copyMemory(src, BYTE_ARRAY_BASE_OFFSET, null, address, src.length);
+      } else {
+         for (int i = 0; i < src.length; i++)
+            UNSAFE.putByte(address + i, src[i]);
+      }
+   }
+
+   static byte[] copyToArray(long address, int length) {
+      byte[] dst = new byte[length];
+      if (ARRAY_COPY_SUPPORTED) {
+         UNSAFE.copyMemory(null, address, dst, BYTE_ARRAY_BASE_OFFSET, length);
+      } else {
+         for (int i = 0; i < length; i++)
+            dst[i] = UNSAFE.getByte(address + i);
+      }
+      return dst;
+   }
+
+   /**
+    * Compares the native memory at the given address with the contents of a byte array.
+    */
+   static boolean equals(long address, byte[] bytes) {
+      int i = 0;
+      int longs = bytes.length & ~7;
+      for (; i < longs; i += 8) {
+         if (UNSAFE.getLong(address + i) != UNSAFE.getLong(bytes, BYTE_ARRAY_BASE_OFFSET + i))
+            return false;
+      }
+      for (; i < bytes.length; i++) {
+         if (UNSAFE.getByte(address + i) != bytes[i])
+            return false;
+      }
+      return true;
+   }
+
+   private static boolean isArrayCopySupported() {
+      try {
+         Method copyMemory = sun.misc.Unsafe.class.getMethod("copyMemory",
+               Object.class, long.class, Object.class, long.class, long.class);
+         return copyMemory != null;
+      } catch (NoSuchMethodException e) {
+         return false;
+      }
+   }
+
+   private static sun.misc.Unsafe getUnsafe() {
+      try {
+         return sun.misc.Unsafe.getUnsafe();
+      } catch (SecurityException tryReflectionInstead) {}
+      try {
+         return java.security.AccessController.doPrivileged
+               (new java.security.PrivilegedExceptionAction<sun.misc.Unsafe>() {
+                  public sun.misc.Unsafe run() throws Exception {
+                     Class<sun.misc.Unsafe> k = sun.misc.Unsafe.class;
+                     for (java.lang.reflect.Field f : k.getDeclaredFields()) {
+                        f.setAccessible(true);
+                        Object x = f.get(null);
+                        if (k.isInstance(x))
+                           return k.cast(x);
+                     }
+                     throw new NoSuchFieldError("the Unsafe");
+                  }});
+      } catch (java.security.PrivilegedActionException e) {
+         throw new RuntimeException("Could not initialize intrinsics",
+               e.getCause());
+      }
+   }
+}
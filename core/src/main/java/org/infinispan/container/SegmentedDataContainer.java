@@ -0,0 +1,329 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.hash.Hash;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.distribution.group.GroupManager;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.util.CollectionFactory;
+import org.infinispan.util.Equivalence;
+import org.infinispan.util.Immutables;
+import org.infinispan.util.TimeService;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An unbounded {@link DataContainer} which keeps the entries of each segment of the consistent hash in a map of its
+ * own, so that state transfer can iterate, count and drop the entries of some segments without walking the whole
+ * container.
+ * <p/>
+ * Keys are mapped to segments the same way {@link org.infinispan.distribution.ch.DefaultConsistentHash} does, using
+ * the hash function and number of segments of the cache's configuration, and the group of the key if grouping is
+ * enabled. The mapping does not depend on the members of the cluster, so it holds for every topology of the cache.
+ * Callers should still check that it {@link #matches(ConsistentHash) matches} the consistent hash they use before
+ * relying on the segment-scoped methods.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+public class SegmentedDataContainer extends AbstractDataContainer {
+
+   private final ConcurrentMap<Object, InternalCacheEntry>[] segments;
+   private final int segmentSize;
+   private final Hash hashFunction;
+   private GroupManager groupManager;
+
+   @SuppressWarnings("unchecked")
+   public SegmentedDataContainer(int concurrencyLevel, int numSegments, Hash hashFunction,
+         Equivalence keyEq, Equivalence valueEq) {
+      super(new ExpirationIndex(concurrencyLevel, ExpirationIndex.DEFAULT_RESOLUTION, keyEq));
+      if (numSegments <= 0)
+         throw new IllegalArgumentException("The number of segments must be strictly positive");
+
+      this.segments = new ConcurrentMap[numSegments];
+      // Writes are already spread over the segments
+      int segmentConcurrencyLevel = Math.max(1, concurrencyLevel / numSegments);
+      for (int i = 0; i < numSegments; i++)
+         segments[i] = CollectionFactory.makeConcurrentMap(16, segmentConcurrencyLevel, keyEq, valueEq);
+      this.segmentSize = (int) Math.ceil((double) Integer.MAX_VALUE / numSegments);
+      this.hashFunction = hashFunction;
+   }
+
+   @Inject
+   public void initialize(InternalEntryFactory entryFactory, TimeService timeService, GroupManager groupManager) {
+      this.entryFactory = entryFactory;
+      this.timeService = timeService;
+      this.groupManager = groupManager;
+   }
+
+   public int getNumSegments() {
+      return segments.length;
+   }
+
+   public int getSegment(Object key) {
+      Object segmentKey = key;
+      if (groupManager != null) {
+         String group = groupManager.getGroup(key);
+         if (group != null)
+            segmentKey = group;
+      }
+      // The result must always be positive, so we make sure the dividend is positive first
+      return (hashFunction.hash(segmentKey) & Integer.MAX_VALUE) / segmentSize;
+   }
+
+   /**
+    * Whether the segments of this container are the segments of the given consistent hash.
+    */
+   public boolean matches(ConsistentHash ch) {
+      // Grouping consistent hashes don't expose their hash function
+      Hash chHashFunction = ch.getHashFunction();
+      return ch.getNumSegments() == segments.length
+            && (chHashFunction == null || chHashFunction.getClass() == hashFunction.getClass());
+   }
+
+   /**
+    * @return the entries of a segment. Like {@link #iterator()}, the entries are not copied, and expired entries are
+    * not filtered out.
+    */
+   public Iterator<InternalCacheEntry> iterator(int segment) {
+      return new DefaultDataContainer.EntryIterator(segments[segment].values().iterator());
+   }
+
+   /**
+    * @return the keys of the entries of a segment
+    */
+   public Set<Object> keySet(int segment) {
+      return Collections.unmodifiableSet(segments[segment].keySet());
+   }
+
+   /**
+    * @return the number of entries of a segment
+    */
+   public int size(int segment) {
+      return segments[segment].size();
+   }
+
+   /**
+    * Removes all the entries of the given segments. Unlike invalidating the keys through the interceptor chain, this
+    * neither notifies listeners nor touches the cache store.
+    */
+   public void removeSegments(Set<Integer> segmentIds) {
+      for (int segment : segmentIds) {
+         ConcurrentMap<Object, InternalCacheEntry> entries = segments[segment];
+         for (InternalCacheEntry e : entries.values()) {
+            Object key = e.getKey();
+            if (entries.remove(key, e) && e.canExpire())
+               updateExpiry(key);
+         }
+      }
+   }
+
+   @Override
+   protected ConcurrentMap<Object, InternalCacheEntry> entriesFor(Object key) {
+      return segments[getSegment(key)];
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (ConcurrentMap<Object, InternalCacheEntry> entries : segments)
+         size += entries.size();
+      return size;
+   }
+
+   @Override
+   public void clear() {
+      // Clear the index first, so that an entry put concurrently is either cleared too or scheduled again
+      expirationIndex.clear();
+      for (ConcurrentMap<Object, InternalCacheEntry> entries : segments)
+         entries.clear();
+   }
+
+   @Override
+   public Set<Object> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<Object> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> iterator() {
+      return new EntryIterator(false);
+   }
+
+   /**
+    * Iterates over the entries of all the segments, one segment after the other.
+    */
+   private class EntryIterator implements Iterator<InternalCacheEntry> {
+      private final boolean immutable;
+      private int segment;
+      private Iterator<InternalCacheEntry> current;
+
+      EntryIterator(boolean immutable) {
+         this.immutable = immutable;
+         this.current = segments[0].values().iterator();
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (!current.hasNext()) {
+            if (++segment >= segments.length)
+               return false;
+            current = segments[segment].values().iterator();
+         }
+         return true;
+      }
+
+      @Override
+      public InternalCacheEntry next() {
+         if (!hasNext())
+            throw new NoSuchElementException();
+         InternalCacheEntry e = current.next();
+         return immutable ? Immutables.immutableInternalCacheEntry(e) : e;
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class KeySet extends AbstractSet<Object> {
+
+      @Override
+      public boolean contains(Object o) {
+         return entriesFor(o).containsKey(o);
+      }
+
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator(false);
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return SegmentedDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class EntrySet extends AbstractSet<InternalCacheEntry> {
+
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+
+         @SuppressWarnings("rawtypes")
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         if (ice == null) {
+            return false;
+         }
+         return ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry> iterator() {
+         return new EntryIterator(true);
+      }
+
+      @Override
+      public int size() {
+         return SegmentedDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Collection
+    */
+   private class Values extends AbstractCollection<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator(false);
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getValue();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return SegmentedDataContainer.this.size();
+      }
+   }
+}
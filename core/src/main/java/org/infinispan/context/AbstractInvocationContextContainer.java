@@ -80,6 +80,11 @@ public InvocationContext getInvocationContext(boolean quiet) {
       return ctx;
    }
 
+   @Override
+   public void setThreadLocal(InvocationContext context) {
+      ctxHolder.set(context);
+   }
+
    @Override
    public void clearThreadLocal() {
       ctxHolder.remove();
@@ -124,6 +124,14 @@ public interface InvocationContextContainer {
     */
    InvocationContext createRemoteInvocationContextForCommand(VisitableCommand cacheCommand, Address origin);
 
+   /**
+    * Associates a context with the current thread, as the methods creating contexts do. This is meant for contexts
+    * which are reused for several invocations.
+    *
+    * @since 5.3
+    */
+   void setThreadLocal(InvocationContext context);
+
    /**
     * Must be called as each thread exists the interceptor chain.
     */
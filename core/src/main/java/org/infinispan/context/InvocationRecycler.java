@@ -0,0 +1,198 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.context;
+
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.util.concurrent.jdk8backported.LongAdder;
+
+import java.util.Set;
+
+/**
+ * Recycles the invocation context and the command of the single key operations invoked by a thread, when enabled with
+ * {@link org.infinispan.configuration.cache.UnsafeConfiguration#recycleInvocationObjects()}.
+ * <p/>
+ * Each thread has its own set of objects. An operation {@link #acquire()}s them, re-initializes the context and the
+ * command it needs, invokes the command, and {@link #release(RecycledInvocation)}s them when the invocation has
+ * completed, which clears their state. An operation invoked while the objects of the thread are already in use, e.g.
+ * by a listener, gets null and allocates its own objects as usual.
+ * <p/>
+ * Recycling is only enabled for non-transactional caches which are local or synchronous and which don't back up to
+ * other sites: the commands of the other caches may be used after the operation has returned (e.g. by the replication
+ * queue or by a transaction).
+ *
+ * @since 5.3
+ */
+@MBean(objectName = "InvocationRecycler", description = "Recycles invocation contexts and commands between invocations")
+public class InvocationRecycler {
+
+   private final ThreadLocal<RecycledInvocation> recycled = new ThreadLocal<RecycledInvocation>();
+   private final LongAdder recycledCount = new LongAdder();
+   private final LongAdder allocatedCount = new LongAdder();
+
+   private Configuration configuration;
+   private InvocationContextContainer icc;
+   private CacheNotifier notifier;
+   private boolean enabled;
+
+   @Inject
+   public void injectDependencies(Configuration configuration, InvocationContextContainer icc, CacheNotifier notifier) {
+      this.configuration = configuration;
+      this.icc = icc;
+      this.notifier = notifier;
+   }
+
+   @Start
+   public void start() {
+      CacheMode cacheMode = configuration.clustering().cacheMode();
+      enabled = configuration.unsafe().recycleInvocationObjects()
+            && !configuration.transaction().transactionMode().isTransactional()
+            && !configuration.invocationBatching().enabled()
+            && (!cacheMode.isClustered() || cacheMode.isSynchronous())
+            && !configuration.sites().hasEnabledBackups();
+   }
+
+   /**
+    * Takes the objects of the current thread.
+    *
+    * @return the objects, or null if recycling is disabled or if the objects of the thread are already in use
+    */
+   public RecycledInvocation acquire() {
+      if (!enabled) return null;
+      RecycledInvocation invocation = recycled.get();
+      if (invocation == null) {
+         invocation = new RecycledInvocation(new SingleKeyNonTxInvocationContext(true,
+               configuration.dataContainer().keyEquivalence()));
+         recycled.set(invocation);
+      } else if (invocation.inUse) {
+         allocatedCount.increment();
+         return null;
+      }
+      invocation.inUse = true;
+      recycledCount.increment();
+      return invocation;
+   }
+
+   /**
+    * Gives the objects back once the invocation has completed.
+    */
+   public void release(RecycledInvocation invocation) {
+      invocation.clear();
+      invocation.inUse = false;
+   }
+
+   @ManagedAttribute(description = "Whether invocation contexts and commands are recycled", displayName = "Recycling enabled", dataType = DataType.TRAIT)
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   @ManagedAttribute(description = "Number of invocations which reused the context and command of a previous invocation", displayName = "Recycled invocations", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getRecycledCount() {
+      return recycledCount.sum();
+   }
+
+   @ManagedAttribute(description = "Number of invocations which allocated a context and command because the ones of the thread were in use by an outer invocation", displayName = "Allocating invocations", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getAllocatedCount() {
+      return allocatedCount.sum();
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      recycledCount.reset();
+      allocatedCount.reset();
+   }
+
+   /**
+    * The objects of a thread. The commands are created lazily, as most threads only use some of them.
+    */
+   public final class RecycledInvocation {
+      private final SingleKeyNonTxInvocationContext context;
+      private GetKeyValueCommand getKeyValueCommand;
+      private PutKeyValueCommand putKeyValueCommand;
+      private RemoveCommand removeCommand;
+      boolean inUse;
+
+      private RecycledInvocation(SingleKeyNonTxInvocationContext context) {
+         this.context = context;
+      }
+
+      /**
+       * @return the context, associated with the current thread as a newly created context would be
+       */
+      public InvocationContext getContext() {
+         icc.setThreadLocal(context);
+         return context;
+      }
+
+      public GetKeyValueCommand getKeyValueCommand(Object key, Set<Flag> flags, boolean returnEntry) {
+         if (getKeyValueCommand == null) {
+            getKeyValueCommand = new GetKeyValueCommand(key, flags, returnEntry);
+         } else {
+            getKeyValueCommand.reset(key, flags, returnEntry);
+         }
+         return getKeyValueCommand;
+      }
+
+      public PutKeyValueCommand putKeyValueCommand(Object key, Object value, Metadata metadata, Set<Flag> flags) {
+         if (putKeyValueCommand == null) {
+            putKeyValueCommand = new PutKeyValueCommand(key, value, false, notifier, metadata, flags);
+         } else {
+            putKeyValueCommand.reset(key, value, false, metadata, flags);
+         }
+         return putKeyValueCommand;
+      }
+
+      public RemoveCommand removeCommand(Object key, Object value, Set<Flag> flags) {
+         if (removeCommand == null) {
+            removeCommand = new RemoveCommand(key, value, notifier, flags);
+         } else {
+            removeCommand.reset(key, value, flags);
+         }
+         return removeCommand;
+      }
+
+      /**
+       * Drops the references to the keys, values and entries of the last invocation.
+       */
+      void clear() {
+         context.reset();
+         if (getKeyValueCommand != null) getKeyValueCommand.reset(null, null, false);
+         if (putKeyValueCommand != null) putKeyValueCommand.reset(null, null, false, null, null);
+         if (removeCommand != null) removeCommand.reset(null, null, null);
+      }
+   }
+}
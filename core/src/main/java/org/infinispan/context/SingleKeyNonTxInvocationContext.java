@@ -134,6 +134,19 @@ public void clearLookedUpEntries() {
       clearLockedKeys();
    }
 
+   /**
+    * Clears the state of the context, so that it can be used for another invocation.
+    *
+    * @see InvocationRecycler
+    */
+   public void reset() {
+      key = null;
+      cacheEntry = null;
+      isLocked = false;
+      contextFlags = 0;
+      setOrigin(null);
+   }
+
    public Object getKey() {
       return key;
    }
@@ -141,7 +141,9 @@ public ClassLoader getClassLoader() {
 
    @Override
    public void setClassLoader(ClassLoader classLoader) {
-      this.classLoader = new WeakReference<ClassLoader>(classLoader);
+      // A recycled context is usually given the same class loader again
+      if (this.classLoader == null || this.classLoader.get() != classLoader)
+         this.classLoader = new WeakReference<ClassLoader>(classLoader);
    }
 
    @Override
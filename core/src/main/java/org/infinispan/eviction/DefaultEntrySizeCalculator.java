@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.eviction;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.marshall.MarshalledValue;
+import org.infinispan.util.ByteArrayKey;
+
+/**
+ * Default {@link EntrySizeCalculator} for data container entries. It gives a reasonably accurate estimate for
+ * {@link InternalCacheEntry} instances wrapping {@link MarshalledValue}s, byte arrays, strings and boxed primitives,
+ * which covers caches storing data as binary as well as the server endpoints. Other types are estimated with a fixed
+ * size, so caches holding arbitrary object graphs should configure a calculator that knows about their types.
+ *
+ * @since 5.3
+ */
+public class DefaultEntrySizeCalculator implements EntrySizeCalculator<Object, InternalCacheEntry> {
+
+   /**
+    * Estimate for objects whose size cannot be determined
+    */
+   public static final int UNKNOWN_OBJECT_SIZE = 64;
+
+   private static final int OBJECT_HEADER = 16;
+   private static final int REFERENCE = 8;
+   private static final int ARRAY_HEADER = 16;
+   // An internal cache entry has a key, a value and up to four long fields, plus the hash entry holding it
+   private static final int ENTRY_OVERHEAD = OBJECT_HEADER + 2 * REFERENCE + 4 * 8 + OBJECT_HEADER + 3 * REFERENCE;
+   private static final int MARSHALLED_VALUE_OVERHEAD = OBJECT_HEADER + 3 * REFERENCE + 8 + OBJECT_HEADER + ARRAY_HEADER;
+
+   @Override
+   public long calculateSize(Object key, InternalCacheEntry entry) {
+      long size = ENTRY_OVERHEAD + objectSize(key);
+      if (entry != null) {
+         size += objectSize(entry.getValue());
+         if (entry.getMetadata() != null && entry.getMetadata().version() != null)
+            size += UNKNOWN_OBJECT_SIZE;
+      }
+      return size;
+   }
+
+   /**
+    * Estimates the size of a key or value stored in an entry.
+    */
+   protected long objectSize(Object o) {
+      if (o == null)
+         return 0;
+      if (o instanceof byte[])
+         return align(ARRAY_HEADER + ((byte[]) o).length);
+      if (o instanceof String)
+         return align(OBJECT_HEADER + 8) + align(ARRAY_HEADER + 2 * ((String) o).length());
+      if (o instanceof MarshalledValue) {
+         MarshalledValue mv = (MarshalledValue) o;
+         int serialisedSize = mv.getKnownSerialisedSize();
+         // until the value is serialized, getSerialisedSize() is only a guess, so size the instance it wraps instead
+         return MARSHALLED_VALUE_OVERHEAD + (serialisedSize < 0 ? objectSize(mv.get()) : align(serialisedSize));
+      }
+      if (o instanceof ByteArrayKey)
+         return align(OBJECT_HEADER + REFERENCE) + objectSize(((ByteArrayKey) o).getData());
+      if (o instanceof Long || o instanceof Double)
+         return align(OBJECT_HEADER + 8);
+      if (o instanceof Number || o instanceof Boolean || o instanceof Character)
+         return OBJECT_HEADER;
+      return UNKNOWN_OBJECT_SIZE;
+   }
+
+   private static long align(long size) {
+      return (size + 7) & ~7L;
+   }
+}
@@ -0,0 +1,43 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.eviction;
+
+/**
+ * Estimates the memory footprint of a key/value pair. It is used by memory bounded eviction to weigh entries in
+ * the data container, so implementations should be fast and must be thread safe. Estimates don't have to be exact.
+ * The data container records the estimate of an entry when the entry is stored, and subtracts that same estimate
+ * when the entry is removed, so an estimate may change as the value changes internally, e.g. once it is serialized.
+ *
+ * @see DefaultEntrySizeCalculator
+ * @see org.infinispan.configuration.cache.EvictionConfigurationBuilder#maxMemory(long)
+ * @since 5.3
+ */
+public interface EntrySizeCalculator<K, V> {
+
+   /**
+    * @param key the key of the entry
+    * @param value the value of the entry
+    * @return an estimate, in bytes, of the memory used by the key and the value
+    */
+   long calculateSize(K key, V value);
+}
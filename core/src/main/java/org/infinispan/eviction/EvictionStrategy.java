@@ -38,7 +38,12 @@ public enum EvictionStrategy {
    @Deprecated
    FIFO, 
    LRU, 
-   LIRS;
+   LIRS,
+   /**
+    * Window TinyLFU: a frequency based admission policy in front of a segmented LRU, which keeps
+    * large one-hit scans from flushing frequently accessed entries.
+    */
+   TINYLFU;
 
    public boolean isEnabled() {
       return this != NONE;
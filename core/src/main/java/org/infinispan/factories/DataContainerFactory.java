@@ -25,6 +25,10 @@
 import org.infinispan.config.ConfigurationException;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.SegmentedDataContainer;
+import org.infinispan.distribution.ch.ConsistentHashFactory;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.distribution.ch.SyncConsistentHashFactory;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
@@ -55,21 +59,26 @@ public <T> T construct(Class<T> componentType) {
 
          switch (st) {
             case NONE:
-               return (T) DefaultDataContainer.unBoundedDataContainer(
-                     level, keyEquivalence, valueEquivalence);
+               return (T) unBoundedDataContainer(level, keyEquivalence, valueEquivalence);
             case UNORDERED:
             case LRU:
             case FIFO:
             case LIRS:
+            case TINYLFU:
+               EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
+               long maxMemory = configuration.eviction().maxMemory();
+               if (maxMemory > 0) {
+                  return (T) DefaultDataContainer.boundedDataContainer(
+                     level, maxMemory, configuration.eviction().sizeCalculator(),
+                     st, policy, keyEquivalence, valueEquivalence);
+               }
+
                int maxEntries = configuration.eviction().maxEntries();
                //handle case when < 0 value signifies unbounded container 
                if(maxEntries < 0) {
-                   return (T) DefaultDataContainer.unBoundedDataContainer(
-                         level, keyEquivalence, valueEquivalence);
+                   return (T) unBoundedDataContainer(level, keyEquivalence, valueEquivalence);
                }
 
-               EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
-
                return (T) DefaultDataContainer.boundedDataContainer(
                   level, maxEntries, st, policy, keyEquivalence, valueEquivalence);
             default:
@@ -78,4 +87,21 @@ public <T> T construct(Class<T> componentType) {
          }
       }
    }
+
+   /**
+    * Distributed caches partition their entries by segment, so that state transfer only visits the entries of the
+    * segments it moves. This requires the segments of the consistent hash to be those of
+    * {@link org.infinispan.distribution.ch.DefaultConsistentHash}, so custom consistent hash factories are left out.
+    */
+   private DataContainer unBoundedDataContainer(int level, Equivalence keyEquivalence, Equivalence valueEquivalence) {
+      if (configuration.clustering().cacheMode().isDistributed()) {
+         ConsistentHashFactory chFactory = configuration.clustering().hash().consistentHashFactory();
+         if (chFactory == null || chFactory instanceof DefaultConsistentHashFactory
+               || chFactory instanceof SyncConsistentHashFactory) {
+            return new SegmentedDataContainer(level, configuration.clustering().hash().numSegments(),
+                  configuration.clustering().hash().hash(), keyEquivalence, valueEquivalence);
+         }
+      }
+      return DefaultDataContainer.unBoundedDataContainer(level, keyEquivalence, valueEquivalence);
+   }
 }
@@ -23,6 +23,7 @@
 package org.infinispan.interceptors;
 
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.commands.write.PutMapCommand;
@@ -66,7 +67,7 @@ public void start() {
       // These caches require activation at the interceptor level.
       EvictionConfiguration evictCfg = cfg.eviction();
       isManualEviction = evictCfg.strategy() == EvictionStrategy.NONE
-            || evictCfg.maxEntries() < 0;
+            || (evictCfg.maxEntries() < 0 && evictCfg.maxMemory() <= 0);
    }
 
    @Override
@@ -84,6 +85,13 @@ public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) t
       return retval;
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      Object retval = super.visitGetAllCommand(ctx, command);
+      removeFromStoreIfNeeded(command.getKeys().toArray());
+      return retval;
+   }
+
    @Override
    public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command) throws Throwable {
       Object retval = super.visitReplaceCommand(ctx, command);
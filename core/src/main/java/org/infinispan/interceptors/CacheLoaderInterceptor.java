@@ -24,6 +24,7 @@
 
 import org.infinispan.metadata.Metadata;
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.*;
 import org.infinispan.configuration.cache.CacheStoreConfiguration;
@@ -55,6 +56,7 @@
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -125,6 +127,14 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return invokeNextInterceptor(ctx, command);
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      if (enabled) {
+         loadAllIfNeededAndUpdateStats(ctx, command.getKeys(), command);
+      }
+      return invokeNextInterceptor(ctx, command);
+   }
+
    @Override
    public Object visitInvalidateCommand(InvocationContext ctx, InvalidateCommand command) throws Throwable {
       if (enabled) {
@@ -173,9 +183,13 @@ protected boolean isDeltaWrite(Set<Flag> flags) {
       return flags != null && flags.contains(Flag.DELTA_WRITE);
    }
 
+   private boolean skipLoad(FlagAffectedCommand cmd) {
+      return cmd.hasFlag(Flag.SKIP_CACHE_STORE) || cmd.hasFlag(Flag.SKIP_CACHE_LOAD)
+            || cmd.hasFlag(Flag.IGNORE_RETURN_VALUES);
+   }
+
    private boolean loadIfNeeded(InvocationContext ctx, Object key, boolean isRetrieval, FlagAffectedCommand cmd) throws Throwable {
-      if (cmd.hasFlag(Flag.SKIP_CACHE_STORE) || cmd.hasFlag(Flag.SKIP_CACHE_LOAD)
-            || cmd.hasFlag(Flag.IGNORE_RETURN_VALUES)) {
+      if (skipLoad(cmd)) {
          return false; //skip operation
       }
 
@@ -205,6 +219,37 @@ private boolean loadIfNeeded(InvocationContext ctx, Object key, boolean isRetrie
       }
    }
 
+   /**
+    * Batched counterpart of {@link #loadIfNeeded(InvocationContext, Object, boolean, FlagAffectedCommand)} for
+    * retrievals: all the keys missing from the context are loaded with a single {@link CacheLoader#loadAll(Set)} call.
+    */
+   private void loadAllIfNeededAndUpdateStats(InvocationContext ctx, Set<Object> keys, FlagAffectedCommand cmd) throws Throwable {
+      if (skipLoad(cmd)) {
+         return; //skip operation
+      }
+
+      Set<Object> toLoad = new HashSet<Object>();
+      for (Object key : keys) {
+         CacheEntry e = ctx.lookupEntry(key);
+         if (e == null || e.isNull() || e.getValue() == null) {
+            toLoad.add(key);
+         }
+      }
+      if (toLoad.isEmpty()) {
+         return;
+      }
+
+      Map<Object, InternalCacheEntry> loaded = loader.loadAll(toLoad);
+      for (Map.Entry<Object, InternalCacheEntry> e : loaded.entrySet()) {
+         Object key = e.getKey();
+         CacheEntry wrappedEntry = entryFactory.wrapEntryForPut(ctx, key, e.getValue(), false, cmd);
+         recordLoadedEntry(ctx, key, wrappedEntry, e.getValue(), cmd);
+      }
+      if (getStatisticsEnabled() && loaded.size() < toLoad.size()) {
+         cacheMisses.addAndGet(toLoad.size() - loaded.size());
+      }
+   }
+
    /**
     * This method records a loaded entry, performing the following steps: <ol> <li>Increments counters for reporting via
     * JMX</li> <li>updates the 'entry' reference (an entry in the current thread's InvocationContext) with the contents
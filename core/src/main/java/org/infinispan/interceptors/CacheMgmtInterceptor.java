@@ -22,12 +22,14 @@
  */
 package org.infinispan.interceptors;
 
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.EvictCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.commands.write.PutMapCommand;
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.DefaultDataContainer;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
@@ -39,10 +41,13 @@
 import org.infinispan.jmx.annotations.MeasurementType;
 import org.infinispan.jmx.annotations.Units;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -97,17 +102,57 @@ public Object visitEvictCommand(InvocationContext ctx, EvictCommand command) thr
    }
 
    @Override
+   @SuppressWarnings("unchecked")
    public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
-      long start = timeService.time();
+      final long start = timeService.time();
       Object retval = invokeNextInterceptor(ctx, command);
-      long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
       if (ctx.isOriginLocal()) {
-         if (retval == null) {
-            missTimes.getAndAdd(intervalMilliseconds);
-            misses.incrementAndGet();
+         if (ctx.isUseFutureReturnType() && retval instanceof NotifyingFuture) {
+            ((NotifyingFuture<Object>) retval).attachListener(new FutureListener<Object>() {
+               @Override
+               public void futureDone(Future<Object> future) {
+                  try {
+                     recordGet(start, future.get());
+                  } catch (Exception e) {
+                     // failed reads are not recorded, same as when the invocation throws
+                  }
+               }
+            });
          } else {
-            hitTimes.getAndAdd(intervalMilliseconds);
-            hits.incrementAndGet();
+            recordGet(start, retval);
+         }
+      }
+      return retval;
+   }
+
+   private void recordGet(long start, Object retval) {
+      long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
+      if (retval == null) {
+         missTimes.getAndAdd(intervalMilliseconds);
+         misses.incrementAndGet();
+      } else {
+         hitTimes.getAndAdd(intervalMilliseconds);
+         hits.incrementAndGet();
+      }
+   }
+
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      long start = timeService.time();
+      Map<?, ?> retval = (Map<?, ?>) invokeNextInterceptor(ctx, command);
+      long intervalMilliseconds = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
+      int requested = command.getKeys().size();
+      if (ctx.isOriginLocal() && requested > 0) {
+         // Each key counts as a hit or a miss, sharing the time of the whole invocation
+         int found = retval.size();
+         long foundMilliseconds = intervalMilliseconds * found / requested;
+         if (found > 0) {
+            hitTimes.getAndAdd(foundMilliseconds);
+            hits.getAndAdd(found);
+         }
+         if (found < requested) {
+            missTimes.getAndAdd(intervalMilliseconds - foundMilliseconds);
+            misses.getAndAdd(requested - found);
          }
       }
       return retval;
@@ -140,18 +185,36 @@ public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand
    }
 
    @Override
+   @SuppressWarnings("unchecked")
    public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) throws Throwable {
       Object retval = invokeNextInterceptor(ctx, command);
       if (ctx.isOriginLocal()) {
-         if (retval == null) {
-            removeMisses.incrementAndGet();
+         if (ctx.isUseFutureReturnType() && retval instanceof NotifyingFuture) {
+            ((NotifyingFuture<Object>) retval).attachListener(new FutureListener<Object>() {
+               @Override
+               public void futureDone(Future<Object> future) {
+                  try {
+                     recordRemove(future.get());
+                  } catch (Exception e) {
+                     // failed removes are not recorded, same as when the invocation throws
+                  }
+               }
+            });
          } else {
-            removeHits.incrementAndGet();
+            recordRemove(retval);
          }
       }
       return retval;
    }
 
+   private void recordRemove(Object retval) {
+      if (retval == null) {
+         removeMisses.incrementAndGet();
+      } else {
+         removeHits.incrementAndGet();
+      }
+   }
+
    @ManagedAttribute(
          description = "Number of cache attribute hits",
          displayName = "Number of cache hits",
@@ -277,6 +340,19 @@ public int getNumberOfEntries() {
       return dataContainer.size();
    }
 
+   @ManagedAttribute(
+         description = "Estimated memory footprint of the entries currently in the cache, or -1 if the cache is not bounded by memory",
+         displayName = "Estimated memory used by current cache entries",
+         units = Units.BYTES,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getWeightedSize() {
+      if (dataContainer instanceof DefaultDataContainer) {
+         return ((DefaultDataContainer) dataContainer).weightedSize();
+      }
+      return -1;
+   }
+
    @ManagedAttribute(
          description = "Number of seconds since cache started",
          displayName = "Seconds since cache started",
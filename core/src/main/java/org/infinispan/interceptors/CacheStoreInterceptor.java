@@ -39,19 +39,25 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.interceptors.base.JmxStatsCommandInterceptor;
+import org.infinispan.jmx.annotations.DisplayType;
 import org.infinispan.jmx.annotations.MBean;
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.decorators.AbstractDelegatingStore;
+import org.infinispan.loaders.decorators.AsyncStore;
+import org.infinispan.loaders.decorators.ChainingCacheStore;
 import org.infinispan.loaders.modifications.Clear;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.loaders.modifications.Remove;
 import org.infinispan.loaders.modifications.Store;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.util.CollectionFactory;
+import org.infinispan.util.Histogram;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -401,6 +407,90 @@ private Object visitSingleStore(InvocationContext ctx, Object key) throws Throwa
    )
    public void resetStatistics() {
       cacheStores.set(0);
+      for (AsyncStore asyncStore : getAsyncStores())
+         asyncStore.resetStatistics();
+   }
+
+   @ManagedAttribute(
+         description = "Number of modifications waiting to be written by asynchronous cache stores",
+         displayName = "Async store queue size",
+         displayType = DisplayType.SUMMARY
+   )
+   public int getAsyncStoreQueueSize() {
+      int size = 0;
+      for (AsyncStore asyncStore : getAsyncStores())
+         size += asyncStore.getQueueSize();
+      return size;
+   }
+
+   @ManagedAttribute(
+         description = "Number of batches written by asynchronous cache stores",
+         displayName = "Async store batches",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getAsyncStoreBatchCount() {
+      long count = 0;
+      for (AsyncStore asyncStore : getAsyncStores())
+         count += asyncStore.getBatchCount();
+      return count;
+   }
+
+   @ManagedAttribute(
+         description = "Number of batches written by asynchronous cache stores, by batch size",
+         displayName = "Async store batch size histogram"
+   )
+   public String getAsyncStoreBatchSizeHistogram() {
+      Histogram histogram = new Histogram();
+      for (AsyncStore asyncStore : getAsyncStores())
+         histogram.add(asyncStore.getBatchSizeHistogram());
+      return histogram.toString();
+   }
+
+   @ManagedAttribute(
+         description = "Average number of milliseconds taken by asynchronous cache stores to write a batch",
+         displayName = "Async store average flush latency",
+         units = Units.MILLISECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getAsyncStoreAverageFlushLatency() {
+      long batches = 0;
+      long total = 0;
+      for (AsyncStore asyncStore : getAsyncStores()) {
+         long count = asyncStore.getBatchCount();
+         batches += count;
+         total += count * asyncStore.getAverageFlushLatency();
+      }
+      return batches == 0 ? 0 : total / batches;
+   }
+
+   @ManagedAttribute(
+         description = "Maximum number of milliseconds taken by asynchronous cache stores to write a batch",
+         displayName = "Async store maximum flush latency",
+         units = Units.MILLISECONDS,
+         displayType = DisplayType.SUMMARY
+   )
+   public long getAsyncStoreMaxFlushLatency() {
+      long max = 0;
+      for (AsyncStore asyncStore : getAsyncStores())
+         max = Math.max(max, asyncStore.getMaxFlushLatency());
+      return max;
+   }
+
+   private List<AsyncStore> getAsyncStores() {
+      List<AsyncStore> asyncStores = new ArrayList<AsyncStore>();
+      collectAsyncStores(store, asyncStores);
+      return asyncStores;
+   }
+
+   private void collectAsyncStores(CacheStore cacheStore, List<AsyncStore> asyncStores) {
+      if (cacheStore instanceof AsyncStore)
+         asyncStores.add((AsyncStore) cacheStore);
+      if (cacheStore instanceof AbstractDelegatingStore) {
+         collectAsyncStores(((AbstractDelegatingStore) cacheStore).getDelegate(), asyncStores);
+      } else if (cacheStore instanceof ChainingCacheStore) {
+         for (CacheStore chained : ((ChainingCacheStore) cacheStore).getStores().keySet())
+            collectAsyncStores(chained, asyncStores);
+      }
    }
 
    @ManagedAttribute(
@@ -24,21 +24,44 @@
 
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.read.AbstractDataCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.EntryFactory;
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.interceptors.base.BaseRpcInterceptor;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
+import org.infinispan.remoting.rpc.ResponseMode;
+import org.infinispan.remoting.rpc.RpcOptions;
+import org.infinispan.remoting.transport.Address;
 import org.infinispan.statetransfer.StateTransferManager;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
+import org.infinispan.util.concurrent.DeferredReturnFuture;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.concurrent.locks.LockManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 import static org.infinispan.util.Util.toStr;
 
 /**
@@ -78,15 +101,18 @@ protected boolean isNeedReliableReturnValues(FlagAffectedCommand command) {
    }
 
    protected boolean needsRemoteGet(InvocationContext ctx, AbstractDataCommand command) {
+      return needsRemoteGet(ctx, command.getKey(), command);
+   }
+
+   protected boolean needsRemoteGet(InvocationContext ctx, Object key, FlagAffectedCommand command) {
       if (command.hasFlag(Flag.CACHE_MODE_LOCAL)
             || command.hasFlag(Flag.SKIP_REMOTE_LOOKUP)
             || command.hasFlag(Flag.IGNORE_RETURN_VALUES)) {
          return false;
       }
       boolean shouldFetchFromRemote = false;
-      CacheEntry entry = ctx.lookupEntry(command.getKey());
+      CacheEntry entry = ctx.lookupEntry(key);
       if (entry == null || entry.isNull()) {
-         Object key = command.getKey();
          ConsistentHash ch = stateTransferManager.getCacheTopology().getReadConsistentHash();
          shouldFetchFromRemote = ctx.isOriginLocal() && !ch.isKeyLocalToNode(rpcManager.getAddress(), key) && !dataContainer.containsKey(key);
          if (!shouldFetchFromRemote && getLog().isTraceEnabled()) {
@@ -119,4 +145,102 @@ protected boolean ignorePreviousValueOnBackup(WriteCommand command, InvocationCo
     * @return an internal cache entry, or null if it cannot be located
     */
    protected abstract InternalCacheEntry retrieveFromRemoteSource(Object key, InvocationContext ctx, boolean acquireRemoteLock, FlagAffectedCommand command) throws Exception;
+
+   /**
+    * Retrieves the cache entries of several keys from remote sources, sending a single
+    * {@link ClusteredGetAllCommand} to each of the given owners. The commands are sent in parallel. Keys an owner
+    * could not answer for, e.g. because it is not a member any more or because of a rehash, are retrieved one by one
+    * with {@link #retrieveFromRemoteSource(Object, InvocationContext, boolean, FlagAffectedCommand)}.
+    *
+    * @param keysByOwner the keys to look up, grouped by the owner to read them from
+    * @return the entries found, keyed by their keys
+    */
+   @SuppressWarnings("unchecked")
+   protected final Map<Object, InternalCacheEntry> retrieveFromRemoteOwners(Map<Address, Set<Object>> keysByOwner,
+         InvocationContext ctx, FlagAffectedCommand command) throws Throwable {
+      Map<Object, InternalCacheEntry> entries = new HashMap<Object, InternalCacheEntry>();
+      if (keysByOwner.isEmpty()) return entries;
+
+      RpcOptions options = rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS, false).build();
+      List<Address> owners = new ArrayList<Address>(keysByOwner.keySet());
+      List<NotifyingNotifiableFuture<Object>> futures = new ArrayList<NotifyingNotifiableFuture<Object>>(owners.size());
+      // all but the last command are sent from the transport executor, the last one from the caller's thread
+      for (int i = 0; i < owners.size() - 1; i++) {
+         NotifyingNotifiableFuture<Object> future = new DeferredReturnFuture<Object>();
+         Address owner = owners.get(i);
+         rpcManager.invokeRemotelyInFuture(Collections.singleton(owner),
+               cf.buildClusteredGetAllCommand(keysByOwner.get(owner), command.getFlags()), options, future);
+         futures.add(future);
+      }
+      Address lastOwner = owners.get(owners.size() - 1);
+      Map<Address, Response> lastResponses = rpcManager.invokeRemotely(Collections.singleton(lastOwner),
+            cf.buildClusteredGetAllCommand(keysByOwner.get(lastOwner), command.getFlags()), options);
+
+      List<Object> unanswered = new ArrayList<Object>();
+      for (int i = 0; i < futures.size(); i++) {
+         Map<Address, Response> responses;
+         try {
+            responses = (Map<Address, Response>) futures.get(i).get();
+         } catch (ExecutionException e) {
+            throw e.getCause();
+         }
+         addRemoteEntries(keysByOwner.get(owners.get(i)), responses, entries, unanswered);
+      }
+      addRemoteEntries(keysByOwner.get(lastOwner), lastResponses, entries, unanswered);
+
+      for (Object key : unanswered) {
+         InternalCacheEntry ice = retrieveFromRemoteSource(key, ctx, false, command);
+         if (ice != null) entries.put(key, ice);
+      }
+      return entries;
+   }
+
+   /**
+    * Sends a command without waiting for the responses, for invocations which asked for a future return value (see
+    * {@link InvocationContext#isUseFutureReturnType()}). The returned future is completed with the value computed by
+    * the converter, on the thread which received the responses.
+    */
+   protected final NotifyingFuture<Object> invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand command,
+         RpcOptions options, final ResponseConverter converter) {
+      final CompletableNotifyingFuture<Object> result = new CompletableNotifyingFuture<Object>();
+      rpcManager.invokeRemotelyNonBlocking(recipients, command, options).attachListener(
+            new FutureListener<Map<Address, Response>>() {
+         @Override
+         public void futureDone(Future<Map<Address, Response>> future) {
+            try {
+               result.complete(converter.convert(future.get()));
+            } catch (ExecutionException e) {
+               result.completeExceptionally(e.getCause());
+            } catch (Throwable t) {
+               result.completeExceptionally(t);
+            }
+         }
+      });
+      return result;
+   }
+
+   /**
+    * Computes the return value of a command from the responses of a remote invocation.
+    */
+   protected interface ResponseConverter {
+      Object convert(Map<Address, Response> responses) throws Throwable;
+   }
+
+   @SuppressWarnings("unchecked")
+   private void addRemoteEntries(Set<Object> keys, Map<Address, Response> responses,
+         Map<Object, InternalCacheEntry> entries, List<Object> unanswered) {
+      Response response = responses == null || responses.isEmpty() ? null : responses.values().iterator().next();
+      if (!(response instanceof SuccessfulResponse)) {
+         unanswered.addAll(keys);
+         return;
+      }
+      Map<Object, InternalCacheValue> values = (Map<Object, InternalCacheValue>) ((SuccessfulResponse) response).getResponseValue();
+      for (Map.Entry<Object, InternalCacheValue> e : values.entrySet()) {
+         if (e.getValue() == null) {
+            unanswered.add(e.getKey());
+         } else {
+            entries.put(e.getKey(), e.getValue().toInternalCacheEntry(e.getKey()));
+         }
+      }
+   }
 }
@@ -24,6 +24,7 @@
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
@@ -124,6 +125,21 @@ public final Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCo
       }
    }
 
+   @Override
+   public final Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         for (Object key : command.getKeys()) {
+            checkIfKeyRead(ctx, key, command);
+            entryFactory.wrapEntryForReading(ctx, key);
+         }
+         return invokeNextInterceptor(ctx, command);
+      } finally {
+         //needed because entries might be added in L1
+         if (!ctx.isInTxScope())
+            commitContextEntries(ctx, command, null);
+      }
+   }
+
    @Override
    public final Object visitInvalidateCommand(InvocationContext ctx, InvalidateCommand command) throws Throwable {
       if (command.getKeys() != null) {
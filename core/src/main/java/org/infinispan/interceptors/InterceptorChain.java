@@ -33,15 +33,23 @@
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
 import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.interceptors.distribution.L1NonTxInterceptor;
+import org.infinispan.interceptors.distribution.NonTxDistributionInterceptor;
+import org.infinispan.interceptors.locking.NonTransactionalLockingInterceptor;
+import org.infinispan.interceptors.xsite.NonTransactionalBackupInterceptor;
+import org.infinispan.statetransfer.StateTransferInterceptor;
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.ReflectionUtil;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -56,11 +64,25 @@ public class InterceptorChain {
 
    private static final Log log = LogFactory.getLog(InterceptorChain.class);
 
+   /**
+    * Interceptors which, when reading an entry already present in the data container outside of a transaction, don't
+    * do anything besides reading it.
+    */
+   private static final Set<Class<?>> TRANSPARENT_TO_LOCAL_HITS = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+         InvocationContextInterceptor.class, IsMarshallableInterceptor.class, StateTransferInterceptor.class,
+         NotificationInterceptor.class, NonTransactionalLockingInterceptor.class,
+         NonTransactionalBackupInterceptor.class, EntryWrappingInterceptor.class, CacheLoaderInterceptor.class,
+         ClusteredCacheLoaderInterceptor.class, CacheStoreInterceptor.class, DistCacheStoreInterceptor.class,
+         L1NonTxInterceptor.class, ReplicationInterceptor.class, InvalidationInterceptor.class,
+         NonTxDistributionInterceptor.class, CallInterceptor.class));
+
    /**
     * reference to the first interceptor in the chain
     */
    private volatile CommandInterceptor firstInChain;
 
+   private volatile boolean transparentToLocalHits;
+
    final ReentrantLock lock = new ReentrantLock();
    final ComponentMetadataRepo componentMetadataRepo;
 
@@ -129,6 +151,7 @@ public void addInterceptor(CommandInterceptor interceptor, int position) {
          }
          throw new IllegalArgumentException("Invalid index: " + index + " !");
       } finally {
+         chainModified();
          lock.unlock();
       }
    }
@@ -160,6 +183,7 @@ public void removeInterceptor(int position) {
          }
          throw new IllegalArgumentException("Invalid position: " + position + " !");
       } finally {
+         chainModified();
          lock.unlock();
       }
    }
@@ -216,6 +240,7 @@ public void removeInterceptor(Class<? extends CommandInterceptor> clazz) {
             it = it.getNext();
          }
       } finally {
+         chainModified();
          lock.unlock();
       }
    }
@@ -247,6 +272,7 @@ public boolean addInterceptorAfter(CommandInterceptor toAdd, Class<? extends Com
          }
          return false;
       } finally {
+         chainModified();
          lock.unlock();
       }
    }
@@ -280,6 +306,7 @@ public boolean addInterceptorBefore(CommandInterceptor toAdd, Class<? extends Co
          }
          return false;
       } finally {
+         chainModified();
          lock.unlock();
       }
    }
@@ -318,6 +345,7 @@ public boolean replaceInterceptor(CommandInterceptor replacingInterceptor, Class
          }
          return false;
       } finally {
+         chainModified();
          lock.unlock();
       }
    }
@@ -333,6 +361,7 @@ public void appendInterceptor(CommandInterceptor ci, boolean isCustom) {
       it.setNext(ci);
       // make sure we nullify the "next" pointer in the last interceptors.
       ci.setNext(null);
+      chainModified();
    }
 
    /**
@@ -367,6 +396,25 @@ public CommandInterceptor getFirstInChain() {
     */
    public void setFirstInChain(CommandInterceptor interceptor) {
       this.firstInChain = interceptor;
+      chainModified();
+   }
+
+   /**
+    * Tells whether a non-transactional read of an entry which is already in the data container, without flags, can be
+    * served directly from the data container instead of walking the chain. This is the case if none of the interceptors
+    * in the chain does anything for such reads, e.g. there are no statistics, custom interceptors, marshalled values or
+    * passivation. Cache entry visited listeners are not taken into account.
+    */
+   public boolean isTransparentToLocalHits() {
+      return transparentToLocalHits;
+   }
+
+   private void chainModified() {
+      boolean transparent = firstInChain != null;
+      for (CommandInterceptor it = firstInChain; it != null && transparent; it = it.getNext()) {
+         transparent = TRANSPARENT_TO_LOCAL_HITS.contains(it.getClass());
+      }
+      transparentToLocalHits = transparent;
    }
 
    /**
@@ -25,6 +25,7 @@
 
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.commands.write.PutMapCommand;
@@ -97,6 +98,16 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return super.visitGetKeyValueCommand(ctx, command);
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      boolean storeAsBinary = isStoreAsBinary();
+      for (Object key : command.getKeys()) {
+         if (storeAsBinary || getMightGoRemote(ctx, key, command))
+            checkMarshallable(key);
+      }
+      return super.visitGetAllCommand(ctx, command);
+   }
+
    @Override
    public Object visitLockControlCommand(TxInvocationContext ctx, LockControlCommand command) throws Throwable {
       if (isStoreAsBinary() || isClusterInvocation(ctx, command))
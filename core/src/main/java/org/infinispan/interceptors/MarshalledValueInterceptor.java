@@ -24,6 +24,7 @@
 
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.ValuesCommand;
@@ -206,6 +207,38 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return processRetVal(retVal, ctx);
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      Map<Object, Object> originalKeys = null;
+      if (wrapKeys) {
+         Set<Object> keys = new HashSet<Object>(command.getKeys().size());
+         for (Object key : command.getKeys()) {
+            if (!isTypeExcluded(key.getClass())) {
+               MarshalledValue mv = createMarshalledValue(key, ctx);
+               compact(mv);
+               if (originalKeys == null) originalKeys = new HashMap<Object, Object>();
+               originalKeys.put(mv, key);
+               keys.add(mv);
+            } else {
+               keys.add(key);
+            }
+         }
+         command.setKeys(keys);
+      }
+      Map<Object, Object> retVal = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+      Map<Object, Object> copy = new HashMap<Object, Object>(retVal.size());
+      for (Map.Entry<Object, Object> e : retVal.entrySet()) {
+         Object key = e.getKey();
+         if (key instanceof MarshalledValue) {
+            compact((MarshalledValue) key);
+            if (originalKeys != null && originalKeys.containsKey(key)) key = originalKeys.get(key);
+         }
+         copy.put(key, processRetVal(e.getValue(), ctx));
+      }
+      return copy;
+   }
+
    @Override
    @SuppressWarnings("unchecked")
    public Object visitKeySetCommand(InvocationContext ctx, KeySetCommand command) throws Throwable {
@@ -25,6 +25,7 @@
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.AbstractDataCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.tx.CommitCommand;
@@ -158,6 +159,36 @@ private Object visitGetCommand(InvocationContext ctx, GetKeyValueCommand command
       }
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         if (ctx.isOriginLocal()) {
+            Set<Object> remoteKeys = new HashSet<Object>();
+            for (Object key : command.getKeys()) {
+               if (needsRemoteGet(ctx, key, command)) remoteKeys.add(key);
+            }
+            if (!remoteKeys.isEmpty()) {
+               // all the keys are owned by every node, so a single request to the primary owner is enough
+               Map<Object, InternalCacheEntry> remoteEntries = retrieveFromRemoteOwners(
+                     Collections.singletonMap(getPrimaryOwner(), remoteKeys), ctx, command);
+               for (Object key : remoteKeys) {
+                  InternalCacheEntry ice = remoteEntries.get(key);
+                  if (ice != null) {
+                     if (!ctx.replaceValue(key, ice))
+                        ctx.putLookedUpEntry(key, ice);
+                  } else if (!ctx.isEntryRemovedInContext(key)) {
+                     localGetEntry(ctx, key, false, command);
+                  }
+               }
+            }
+         }
+         return invokeNextInterceptor(ctx, command);
+      } catch (SuspectException e) {
+         // retry
+         return visitGetAllCommand(ctx, command);
+      }
+   }
+
    @Override
    public Object visitLockControlCommand(TxInvocationContext ctx, LockControlCommand command) throws Throwable {
       Object retVal = invokeNextInterceptor(ctx, command);
@@ -1,6 +1,7 @@
 package org.infinispan.interceptors.compat;
 
 import org.infinispan.CacheException;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.commands.write.RemoveCommand;
@@ -14,6 +15,9 @@
 import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.marshall.Marshaller;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
 
@@ -103,6 +107,33 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return null;
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      TypeConverter<Object, Object, Object, Object> converter =
+            determineTypeConverter(command.getFlags());
+      Map<Object, Object> originalKeys = new HashMap<Object, Object>(command.getKeys().size());
+      for (Object key : command.getKeys())
+         originalKeys.put(converter.boxKey(key), key);
+      command.setKeys(new HashSet<Object>(originalKeys.keySet()));
+      Map<Object, Object> ret = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+      Map<Object, Object> unboxed = new HashMap<Object, Object>(ret.size());
+      for (Map.Entry<Object, Object> e : ret.entrySet()) {
+         Object value = e.getValue();
+         if (command.isReturnEntries()) {
+            InternalCacheEntry entry = (InternalCacheEntry) value;
+            // Create a copy of the entry to avoid modifying the internal entry
+            value = entryFactory.create(
+                  entry.getKey(), converter.unboxValue(entry.getValue()), entry.getMetadata(),
+                  entry.getLifespan(), entry.getMaxIdle());
+         } else {
+            value = converter.unboxValue(value);
+         }
+         unboxed.put(originalKeys.get(e.getKey()), value);
+      }
+      return unboxed;
+   }
+
    @Override
    public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command) throws Throwable {
       Object key = command.getKey();
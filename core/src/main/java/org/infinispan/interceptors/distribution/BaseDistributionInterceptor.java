@@ -32,6 +32,7 @@
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.interceptors.ClusteringInterceptor;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
@@ -83,14 +84,25 @@ protected final InternalCacheEntry retrieveFromRemoteSource(Object key, Invocati
       GlobalTransaction gtx = acquireRemoteLock ? ((TxInvocationContext)ctx).getGlobalTransaction() : null;
       ClusteredGetCommand get = cf.buildClusteredGetCommand(key, command.getFlags(), acquireRemoteLock, gtx);
 
+      List<Address> targets = getRemoteGetTargets(key);
+      Map<Address, Response> responses = rpcManager.invokeRemotely(targets, get, getRemoteGetOptions(targets));
+      return getRemoteEntry(key, responses);
+   }
+
+   protected final List<Address> getRemoteGetTargets(Object key) {
       List<Address> targets = new ArrayList<Address>(stateTransferManager.getCacheTopology().getReadConsistentHash().locateOwners(key));
       // if any of the recipients has left the cluster since the command was issued, just don't wait for its response
       targets.retainAll(rpcManager.getTransport().getMembers());
+      return targets;
+   }
+
+   protected final RpcOptions getRemoteGetOptions(List<Address> targets) {
       ResponseFilter filter = new ClusteredGetResponseValidityFilter(targets, rpcManager.getAddress());
-      RpcOptions options = rpcManager.getRpcOptionsBuilder(ResponseMode.WAIT_FOR_VALID_RESPONSE, false)
+      return rpcManager.getRpcOptionsBuilder(ResponseMode.WAIT_FOR_VALID_RESPONSE, false)
             .responseFilter(filter).build();
-      Map<Address, Response> responses = rpcManager.invokeRemotely(targets, get, options);
+   }
 
+   protected final InternalCacheEntry getRemoteEntry(Object key, Map<Address, Response> responses) {
       if (!responses.isEmpty()) {
          for (Response r : responses.values()) {
             if (r instanceof SuccessfulResponse) {
@@ -106,6 +118,41 @@ protected final InternalCacheEntry retrieveFromRemoteSource(Object key, Invocati
       return null;
    }
 
+   /**
+    * Retrieves the entries of several keys from remote sources, with a single
+    * {@link org.infinispan.commands.remote.ClusteredGetAllCommand} per primary owner, sent in parallel. Keys affected
+    * by a rehash, or whose primary owner has left the cluster, are retrieved one by one from all their owners.
+    *
+    * @return the entries found, keyed by their keys
+    */
+   protected final Map<Object, InternalCacheEntry> retrieveFromRemoteSources(Collection<Object> keys, InvocationContext ctx, FlagAffectedCommand command) throws Throwable {
+      ConsistentHash readCH = stateTransferManager.getCacheTopology().getReadConsistentHash();
+      List<Address> members = rpcManager.getTransport().getMembers();
+      Map<Address, Set<Object>> keysByOwner = new HashMap<Address, Set<Object>>();
+      List<Object> singleKeys = new ArrayList<Object>();
+      for (Object key : keys) {
+         Address primaryOwner = readCH.locatePrimaryOwner(key);
+         if (!members.contains(primaryOwner) || dm.isAffectedByRehash(key)) {
+            singleKeys.add(key);
+            continue;
+         }
+         Set<Object> ownerKeys = keysByOwner.get(primaryOwner);
+         if (ownerKeys == null) {
+            ownerKeys = new HashSet<Object>();
+            keysByOwner.put(primaryOwner, ownerKeys);
+         }
+         ownerKeys.add(key);
+      }
+      if (log.isTraceEnabled()) log.tracef("Doing a remote get for keys by primary owner %s and for keys %s from all their owners", keysByOwner, singleKeys);
+
+      Map<Object, InternalCacheEntry> entries = retrieveFromRemoteOwners(keysByOwner, ctx, command);
+      for (Object key : singleKeys) {
+         InternalCacheEntry ice = retrieveFromRemoteSource(key, ctx, false, command);
+         if (ice != null) entries.put(key, ice);
+      }
+      return entries;
+   }
+
    protected final Object handleNonTxWriteCommand(InvocationContext ctx, DataWriteCommand command) throws Throwable {
       if (ctx.isInTxScope()) {
          throw new CacheException("Attempted execution of non-transactional write command in a transactional invocation context");
@@ -147,6 +194,17 @@ protected final Object handleNonTxWriteCommand(InvocationContext ctx, DataWriteC
          } else {
             log.tracef("I'm not the primary owner, so sending the command to the primary owner(%s) in order to be forwarded", primaryOwner);
             Object localResult = invokeNextInterceptor(ctx, command);
+            if (isSync && ctx.isUseFutureReturnType()) {
+               // no lock is held on this node, so there is no need to wait for the primary owner here
+               final Address owner = primaryOwner;
+               return invokeRemotelyInFuture(Collections.singletonList(primaryOwner), command,
+                     rpcManager.getDefaultRpcOptions(true), new ResponseConverter() {
+                  @Override
+                  public Object convert(Map<Address, Response> responses) {
+                     return getResponseFromPrimaryOwner(owner, responses);
+                  }
+               });
+            }
             Map<Address, Response> addressResponseMap = rpcManager.invokeRemotely(Collections.singletonList(primaryOwner), command,
                   rpcManager.getDefaultRpcOptions(isSync));
             //the remote node always returns the correct result, but if we're async, then our best option is the local
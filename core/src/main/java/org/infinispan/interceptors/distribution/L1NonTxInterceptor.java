@@ -22,6 +22,7 @@
 import org.infinispan.metadata.Metadata;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.DataWriteCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -42,6 +43,7 @@
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -78,31 +80,51 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       Object returnValue = invokeNextInterceptor(ctx, command);
       InternalCacheEntry ice = command.getRemotelyFetchedValue();
       if (ctx.isOriginLocal() && ice != null) {
-         log.tracef("Caching remotely retrieved entry for key %s in L1", command.getKey());
-         // This should be fail-safe
-         try {
-            long l1Lifespan = cacheConfiguration.clustering().l1().lifespan();
-            long lifespan = ice.getLifespan() < 0 ? l1Lifespan : Math.min(ice.getLifespan(), l1Lifespan);
-            // Make a copy of the metadata stored internally, adjust
-            // lifespan/maxIdle settings and send them a modification
-            Metadata newMetadata = ice.getMetadata().builder()
-                  .lifespan(lifespan).maxIdle(-1).build();
-            PutKeyValueCommand put = cf.buildPutKeyValueCommand(ice.getKey(), ice.getValue(),
-                  newMetadata, Collections.singleton(Flag.CACHE_MODE_LOCAL));
-            lockAndWrap(ctx, command.getKey(), ice, command);
-            invokeNextInterceptor(ctx, put);
-         } catch (Exception e) {
-            // Couldn't store in L1 for some reason.  But don't fail the transaction!
-            log.infof("Unable to store entry %s in L1 cache", command.getKey());
-            log.debug("Inability to store in L1 caused by", e);
-         }
-
+         storeInL1(ctx, command.getKey(), ice, command);
       } else if (!ctx.isOriginLocal() && returnValue != null) {
          l1Manager.addRequestor(command.getKey(), ctx.getOrigin());
       }
       return returnValue;
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      Map<?, ?> returnValue = (Map<?, ?>) invokeNextInterceptor(ctx, command);
+      if (ctx.isOriginLocal()) {
+         Map<Object, InternalCacheEntry> remotelyFetched = command.getRemotelyFetched();
+         if (remotelyFetched != null) {
+            for (Map.Entry<Object, InternalCacheEntry> e : remotelyFetched.entrySet()) {
+               storeInL1(ctx, e.getKey(), e.getValue(), command);
+            }
+         }
+      } else {
+         for (Object key : returnValue.keySet())
+            l1Manager.addRequestor(key, ctx.getOrigin());
+      }
+      return returnValue;
+   }
+
+   private void storeInL1(InvocationContext ctx, Object key, InternalCacheEntry ice, FlagAffectedCommand command) throws Throwable {
+      log.tracef("Caching remotely retrieved entry for key %s in L1", key);
+      // This should be fail-safe
+      try {
+         long l1Lifespan = cacheConfiguration.clustering().l1().lifespan();
+         long lifespan = ice.getLifespan() < 0 ? l1Lifespan : Math.min(ice.getLifespan(), l1Lifespan);
+         // Make a copy of the metadata stored internally, adjust
+         // lifespan/maxIdle settings and send them a modification
+         Metadata newMetadata = ice.getMetadata().builder()
+               .lifespan(lifespan).maxIdle(-1).build();
+         PutKeyValueCommand put = cf.buildPutKeyValueCommand(ice.getKey(), ice.getValue(),
+               newMetadata, Collections.singleton(Flag.CACHE_MODE_LOCAL));
+         lockAndWrap(ctx, key, ice, command);
+         invokeNextInterceptor(ctx, put);
+      } catch (Exception e) {
+         // Couldn't store in L1 for some reason.  But don't fail the transaction!
+         log.infof("Unable to store entry %s in L1 cache", key);
+         log.debug("Inability to store in L1 caused by", e);
+      }
+   }
+
    @Override
    public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
       return handleDataWriteCommand(ctx, command, true);
@@ -20,7 +20,9 @@
 package org.infinispan.interceptors.distribution;
 
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.write.ClearCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.commands.write.PutMapCommand;
@@ -30,12 +32,18 @@
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
+import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.jgroups.SuspectException;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Non-transactional interceptor used by distributed caches that support concurrent writes.
@@ -64,6 +72,9 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
          if (returnValue == null) {
             Object key = command.getKey();
             if (needsRemoteGet(ctx, command)) {
+               if (ctx.isUseFutureReturnType() && !cacheConfiguration.clustering().l1().enabled()) {
+                  return remoteGetInFuture(command);
+               }
                InternalCacheEntry remoteEntry = remoteGetCacheEntry(ctx, key, command);
                returnValue = computeGetReturn(remoteEntry, command);
             }
@@ -79,6 +90,32 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       }
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         List<Object> remoteKeys = new ArrayList<Object>();
+         for (Object key : command.getKeys()) {
+            if (needsRemoteGet(ctx, key, command)) remoteKeys.add(key);
+         }
+         if (!remoteKeys.isEmpty()) {
+            Map<Object, InternalCacheEntry> remoteEntries = retrieveFromRemoteSources(remoteKeys, ctx, command);
+            command.setRemotelyFetched(remoteEntries);
+            for (Object key : remoteKeys) {
+               InternalCacheEntry ice = remoteEntries.get(key);
+               if (ice == null) {
+                  localGetCacheEntry(ctx, key, false, command);
+               } else if (!ctx.replaceValue(key, ice)) {
+                  ctx.putLookedUpEntry(key, ice);
+               }
+            }
+         }
+         return invokeNextInterceptor(ctx, command);
+      } catch (SuspectException e) {
+         // retry
+         return visitGetAllCommand(ctx, command);
+      }
+   }
+
    private Object computeGetReturn(InternalCacheEntry entry, GetKeyValueCommand command) {
       if (!command.isReturnEntry() && entry != null)
          return entry.getValue();
@@ -198,6 +235,54 @@ private InternalCacheEntry localGetCacheEntry(InvocationContext ctx, Object key,
       return null;
    }
 
+   /**
+    * Same as {@link #remoteGetCacheEntry(InvocationContext, Object, GetKeyValueCommand)}, but returns a future instead
+    * of waiting for the owners to respond. Without L1 nothing needs to be stored after the remote get, so the
+    * invocation can complete before the responses arrive. Like the blocking path, the get is retried when an owner is
+    * suspected.
+    */
+   private NotifyingFuture<Object> remoteGetInFuture(GetKeyValueCommand command) {
+      CompletableNotifyingFuture<Object> result = new CompletableNotifyingFuture<Object>();
+      remoteGetInFuture(command, result);
+      return result;
+   }
+
+   private void remoteGetInFuture(final GetKeyValueCommand command, final CompletableNotifyingFuture<Object> result) {
+      final Object key = command.getKey();
+      if (trace) log.tracef("Doing a remote get for key %s without waiting for the response", key);
+      ClusteredGetCommand get = cf.buildClusteredGetCommand(key, command.getFlags(), false, null);
+      List<Address> targets = getRemoteGetTargets(key);
+      invokeRemotelyInFuture(targets, get, getRemoteGetOptions(targets), new ResponseConverter() {
+         @Override
+         public Object convert(Map<Address, Response> responses) {
+            InternalCacheEntry ice = getRemoteEntry(key, responses);
+            command.setRemotelyFetchedValue(ice);
+            if (ice == null) {
+               // the key might have been transferred to this node in the meantime
+               ice = dataContainer.get(key);
+            }
+            return computeGetReturn(ice, command);
+         }
+      }).attachListener(new FutureListener<Object>() {
+         @Override
+         public void futureDone(Future<Object> future) {
+            try {
+               result.complete(future.get());
+            } catch (ExecutionException e) {
+               if (e.getCause() instanceof SuspectException) {
+                  // retry
+                  if (trace) log.tracef("An owner of key %s was suspected, retrying the remote get", key);
+                  remoteGetInFuture(command, result);
+               } else {
+                  result.completeExceptionally(e.getCause());
+               }
+            } catch (Throwable t) {
+               result.completeExceptionally(t);
+            }
+         }
+      });
+   }
+
    private InternalCacheEntry remoteGetCacheEntry(InvocationContext ctx, Object key, GetKeyValueCommand command) throws Throwable {
       if (trace) log.tracef("Doing a remote get for key %s", key);
       InternalCacheEntry ice = retrieveFromRemoteSource(key, ctx, false, command);
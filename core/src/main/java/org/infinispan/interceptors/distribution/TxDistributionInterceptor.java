@@ -22,6 +22,7 @@
 import org.infinispan.metadata.Metadata;
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
@@ -48,8 +49,10 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -192,6 +195,40 @@ private Object visitGetCommand(InvocationContext ctx, GetKeyValueCommand command
       }
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         if (ctx.isOriginLocal()) {
+            List<Object> remoteKeys = new ArrayList<Object>();
+            for (Object key : command.getKeys()) {
+               if (needsRemoteGet(ctx, key, command)) remoteKeys.add(key);
+            }
+            if (!remoteKeys.isEmpty()) {
+               // fetch all the missing keys before going up the chain, so that the command only reads the context
+               Map<Object, InternalCacheEntry> remoteEntries = retrieveFromRemoteSources(remoteKeys, ctx, command);
+               command.setRemotelyFetched(remoteEntries);
+               for (Object key : remoteKeys) {
+                  InternalCacheEntry ice = remoteEntries.get(key);
+                  if (ice != null) {
+                     storeRemoteEntry(ctx, key, ice, false, command);
+                  } else if (!ctx.isEntryRemovedInContext(key)) {
+                     localGet(ctx, key, false, command, false);
+                  }
+               }
+            }
+         }
+         Map<?, ?> returnValue = (Map<?, ?>) invokeNextInterceptor(ctx, command);
+         if (isL1CacheEnabled && !ctx.isOriginLocal()) {
+            for (Object key : returnValue.keySet())
+               l1Manager.addRequestor(key, ctx.getOrigin());
+         }
+         return returnValue;
+      } catch (SuspectException e) {
+         // retry
+         return visitGetAllCommand(ctx, command);
+      }
+   }
+
    protected void lockAndWrap(InvocationContext ctx, Object key, InternalCacheEntry ice, FlagAffectedCommand command) throws InterruptedException {
       boolean skipLocking = hasSkipLocking(command);
       long lockTimeout = getLockAcquisitionTimeout(command, skipLocking);
@@ -368,51 +405,60 @@ private Object remoteGetAndStoreInL1(InvocationContext ctx, Object key, boolean
          }
 
          if (ice != null) {
-            if (useClusteredWriteSkewCheck && ctx.isInTxScope()) {
-               ((TxInvocationContext)ctx).getCacheTransaction().putLookedUpRemoteVersion(key, ice.getMetadata().version());
-            }
+            return storeRemoteEntry(ctx, key, ice, isWrite, command);
+         }
+      } else {
+         if (trace) log.tracef("Not doing a remote get for key %s since entry is mapped to current node (%s), or is in L1.  Owners are %s", key, rpcManager.getAddress(), dm.locate(key));
+      }
+      return null;
+   }
 
-            if (isL1CacheEnabled) {
-               // We've requested the key only from the owners current (read) CH.
-               // If the intersection of owners in the current and pending CHs is empty,
-               // the requestor information might be lost, so we shouldn't store the entry in L1.
-               if (dm.isAffectedByRehash(key)) {
-                  if (trace) log.tracef("State transfer in progress for key %s, not storing to L1");
-                  return ice.getValue();
-               }
+   /**
+    * Stores an entry retrieved from a remote owner in L1, if enabled, or else in the invocation context.
+    *
+    * @return the value of the entry
+    */
+   private Object storeRemoteEntry(InvocationContext ctx, Object key, InternalCacheEntry ice, boolean isWrite, FlagAffectedCommand command) throws Throwable {
+      if (useClusteredWriteSkewCheck && ctx.isInTxScope()) {
+         ((TxInvocationContext)ctx).getCacheTransaction().putLookedUpRemoteVersion(key, ice.getMetadata().version());
+      }
 
-               if (trace) log.tracef("Caching remotely retrieved entry for key %s in L1", key);
-               // This should be fail-safe
-               try {
-                  long l1Lifespan = cacheConfiguration.clustering().l1().lifespan();
-                  long lifespan = ice.getLifespan() < 0 ? l1Lifespan : Math.min(ice.getLifespan(), l1Lifespan);
-                  // Make a copy of the metadata stored internally, adjust
-                  // lifespan/maxIdle settings and send them a modification
-                  Metadata newMetadata = ice.getMetadata().builder()
-                        .lifespan(lifespan).maxIdle(-1).build();
-                  PutKeyValueCommand put = cf.buildPutKeyValueCommand(
-                        ice.getKey(), ice.getValue(), newMetadata, command.getFlags());
-                  lockAndWrap(ctx, key, ice, command);
-                  invokeNextInterceptor(ctx, put);
-               } catch (Exception e) {
-                  // Couldn't store in L1 for some reason.  But don't fail the transaction!
-                  log.infof("Unable to store entry %s in L1 cache", key);
-                  log.debug("Inability to store in L1 caused by", e);
-               }
-            } else {
-               if (!ctx.replaceValue(key, ice)) {
-                  if (isWrite)
-                     lockAndWrap(ctx, key, ice, command);
-                  else
-                     ctx.putLookedUpEntry(key, ice);
-               }
-            }
+      if (isL1CacheEnabled) {
+         // We've requested the key only from the owners current (read) CH.
+         // If the intersection of owners in the current and pending CHs is empty,
+         // the requestor information might be lost, so we shouldn't store the entry in L1.
+         if (dm.isAffectedByRehash(key)) {
+            if (trace) log.tracef("State transfer in progress for key %s, not storing to L1");
             return ice.getValue();
          }
+
+         if (trace) log.tracef("Caching remotely retrieved entry for key %s in L1", key);
+         // This should be fail-safe
+         try {
+            long l1Lifespan = cacheConfiguration.clustering().l1().lifespan();
+            long lifespan = ice.getLifespan() < 0 ? l1Lifespan : Math.min(ice.getLifespan(), l1Lifespan);
+            // Make a copy of the metadata stored internally, adjust
+            // lifespan/maxIdle settings and send them a modification
+            Metadata newMetadata = ice.getMetadata().builder()
+                  .lifespan(lifespan).maxIdle(-1).build();
+            PutKeyValueCommand put = cf.buildPutKeyValueCommand(
+                  ice.getKey(), ice.getValue(), newMetadata, command.getFlags());
+            lockAndWrap(ctx, key, ice, command);
+            invokeNextInterceptor(ctx, put);
+         } catch (Exception e) {
+            // Couldn't store in L1 for some reason.  But don't fail the transaction!
+            log.infof("Unable to store entry %s in L1 cache", key);
+            log.debug("Inability to store in L1 caused by", e);
+         }
       } else {
-         if (trace) log.tracef("Not doing a remote get for key %s since entry is mapped to current node (%s), or is in L1.  Owners are %s", key, rpcManager.getAddress(), dm.locate(key));
+         if (!ctx.replaceValue(key, ice)) {
+            if (isWrite)
+               lockAndWrap(ctx, key, ice, command);
+            else
+               ctx.putLookedUpEntry(key, ice);
+         }
       }
-      return null;
+      return ice.getValue();
    }
 
    private Future<?> flushL1Caches(InvocationContext ctx) {
@@ -28,6 +28,7 @@
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.AbstractDataCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.commands.write.ApplyDeltaCommand;
@@ -129,6 +130,17 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       markKeyAsRead(ctx, command);
       return super.visitGetKeyValueCommand(ctx, command);
    }
+
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      if (needToMarkReads && !command.hasFlag(Flag.IGNORE_RETURN_VALUES) && ctx.isInTxScope()) {
+         TxInvocationContext tctx = (TxInvocationContext) ctx;
+         for (Object key : command.getKeys()) {
+            tctx.getCacheTransaction().addReadKey(key);
+         }
+      }
+      return super.visitGetAllCommand(ctx, command);
+   }
    
    @Override
    public Object visitApplyDeltaCommand(InvocationContext ctx, ApplyDeltaCommand command) throws Throwable {
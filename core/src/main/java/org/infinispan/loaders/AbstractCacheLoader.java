@@ -23,9 +23,15 @@
 package org.infinispan.loaders;
 
 import org.infinispan.Cache;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.TimeService;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * An abstract {@link org.infinispan.loaders.CacheLoader} that holds common implementations for some methods
  *
@@ -48,6 +54,41 @@ public boolean containsKey(Object key) throws CacheLoaderException {
       return load(key) != null;
    }
 
+   /**
+    * {@inheritDoc} This implementation calls {@link CacheLoader#load(Object)} for each key.
+    */
+   @Override
+   public Map<Object, InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Map<Object, InternalCacheEntry> loaded = new HashMap<Object, InternalCacheEntry>();
+      for (Object key : keys) {
+         InternalCacheEntry entry = load(key);
+         if (entry != null) loaded.put(key, entry);
+      }
+      return loaded;
+   }
+
+   /**
+    * {@inheritDoc} This implementation loads all the keys with {@link CacheLoader#loadAllKeys(Set)}, then calls
+    * {@link CacheLoader#load(Object)} for each key accepted by the filter as the iteration proceeds.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(final KeyFilter filter) throws CacheLoaderException {
+      final Iterator<Object> keys = loadAllKeys(null).iterator();
+      return new AbstractStoredEntryIterator() {
+         @Override
+         protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+            while (keys.hasNext()) {
+               Object key = keys.next();
+               if (filter.accept(key)) {
+                  InternalCacheEntry entry = load(key);
+                  if (entry != null) return entry;
+               }
+            }
+            return null;
+         }
+      };
+   }
+
    @Override
    public void init(CacheLoaderConfig config, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException {
       this.marshaller = m;
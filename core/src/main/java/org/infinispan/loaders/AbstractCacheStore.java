@@ -23,6 +23,7 @@
 package org.infinispan.loaders;
 
 import org.infinispan.Cache;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.loaders.modifications.Remove;
 import org.infinispan.loaders.modifications.Store;
@@ -35,6 +36,9 @@
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -118,24 +122,55 @@ public void run() {
 
    protected abstract void purgeInternal() throws CacheLoaderException;
 
+   /**
+    * Applies the modifications in order. Consecutive stores and consecutive removals are grouped and applied through
+    * {@link #storeAll(Collection)} and {@link #removeAll(Set)}, so that stores supporting bulk writes can apply them in
+    * a single operation.
+    */
    protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      List<InternalCacheEntry> toStore = new ArrayList<InternalCacheEntry>();
+      Set<Object> toRemove = new HashSet<Object>();
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
+               flushRemovals(toRemove);
                Store s = (Store) m;
-               store(s.getStoredEntry());
+               toStore.add(s.getStoredEntry());
                break;
             case CLEAR:
+               flushStores(toStore);
+               flushRemovals(toRemove);
                clear();
                break;
             case REMOVE:
+               flushStores(toStore);
                Remove r = (Remove) m;
-               remove(r.getKey());
+               toRemove.add(r.getKey());
                break;
             default:
                throw new IllegalArgumentException("Unknown modification type " + m.getType());
          }
       }
+      flushStores(toStore);
+      flushRemovals(toRemove);
+   }
+
+   private void flushStores(List<InternalCacheEntry> toStore) throws CacheLoaderException {
+      if (toStore.size() == 1) {
+         store(toStore.get(0));
+      } else if (!toStore.isEmpty()) {
+         storeAll(toStore);
+      }
+      toStore.clear();
+   }
+
+   private void flushRemovals(Set<Object> toRemove) throws CacheLoaderException {
+      if (toRemove.size() == 1) {
+         remove(toRemove.iterator().next());
+      } else if (!toRemove.isEmpty()) {
+         removeAll(toRemove);
+      }
+      toRemove.clear();
    }
 
    @Override
@@ -163,6 +198,13 @@ public void commit(GlobalTransaction tx) throws CacheLoaderException {
       if (list != null && !list.isEmpty()) applyModifications(list);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (entries != null && !entries.isEmpty()) {
+         for (InternalCacheEntry entry : entries) store(entry);
+      }
+   }
+
    @Override
    public void removeAll(Set<Object> keys) throws CacheLoaderException {
       if (keys != null && !keys.isEmpty()) {
@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.loaders;
+
+import org.infinispan.CacheException;
+import org.infinispan.container.entries.InternalCacheEntry;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Base class for {@link StoredEntryIterator}s, which only have to read the next entry, or return null once there are
+ * no more entries.
+ *
+ * @since 5.3
+ */
+public abstract class AbstractStoredEntryIterator implements StoredEntryIterator {
+
+   private InternalCacheEntry next;
+   private boolean done;
+
+   /**
+    * @return the next entry, or null if there are no more entries
+    */
+   protected abstract InternalCacheEntry fetchNext() throws CacheLoaderException;
+
+   @Override
+   public boolean hasNext() {
+      if (next == null && !done) {
+         try {
+            next = fetchNext();
+         } catch (CacheLoaderException e) {
+            throw new CacheException(e);
+         }
+         if (next == null) {
+            done = true;
+            close();
+         }
+      }
+      return next != null;
+   }
+
+   @Override
+   public InternalCacheEntry next() {
+      if (!hasNext())
+         throw new NoSuchElementException();
+      InternalCacheEntry entry = next;
+      next = null;
+      return entry;
+   }
+
+   @Override
+   public void remove() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public void close() {
+   }
+}
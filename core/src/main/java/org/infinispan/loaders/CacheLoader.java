@@ -26,6 +26,7 @@
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.marshall.StreamingMarshaller;
 
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -65,6 +66,17 @@ public interface CacheLoader {
     */
    Set<InternalCacheEntry> loadAll() throws CacheLoaderException;
 
+   /**
+    * Loads the entries mapped to by a set of keys.  Keys that do not exist, or whose entries have expired, are not
+    * present in the returned map.  Loaders able to read several entries at once, e.g. in a single round trip to a
+    * remote database, should do so; others may simply call {@link #load(Object)} for each key.
+    *
+    * @param keys keys to load
+    * @return a map of the keys found to their entries, or an empty map if none of the keys exist
+    * @throws CacheLoaderException in the event of problems reading from source
+    */
+   Map<Object, InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException;
+
    /**
     * Loads up to a specific number of entries.  There is no guarantee as to order of entries loaded.  The set returned
     * would contain up to a maximum of <tt>numEntries</tt> entries, and no more.
@@ -83,6 +95,20 @@ public interface CacheLoader {
     */
    Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderException;
 
+   /**
+    * Iterates over the entries whose keys are accepted by a filter, reading them from the loader as the iteration
+    * proceeds instead of loading them all in memory first.  Expired entries are skipped.  Loaders should check the key
+    * before reading the rest of an entry whenever possible, so that entries which are not accepted cost little.
+    * <p />
+    * The iterator returned must be {@link StoredEntryIterator#close() closed} once done with, even if the iteration
+    * did not complete.  Changes made to the loader during the iteration may or may not be seen by the iterator.
+    *
+    * @param filter selects the keys of the entries to return, {@link KeyFilter#ACCEPT_ALL} to return all entries
+    * @return an iterator over the entries accepted by the filter
+    * @throws CacheLoaderException in the event of problems reading from source
+    */
+   StoredEntryIterator entryIterator(KeyFilter filter) throws CacheLoaderException;
+
    /**
     * @param key key to test
     * @return true if the key exists, false otherwise
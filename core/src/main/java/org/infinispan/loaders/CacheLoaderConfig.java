@@ -124,6 +124,8 @@ public CacheLoaderConfig unmarshal(AbstractCacheStoreConfig storeConfig) throws
                   .flushLockTimeout(asyncStoreConfig.getFlushLockTimeout())
                   .shutdownTimeout(asyncStoreConfig.getShutdownTimeout())
                   .threadPoolSize(asyncStoreConfig.getThreadPoolSize())
+                  .batchSize(asyncStoreConfig.getBatchSize())
+                  .maxBatchDelay(asyncStoreConfig.getMaxBatchDelay())
                   .modificationQueueSize(asyncStoreConfig.getModificationQueueSize());
          }
       }
@@ -28,6 +28,15 @@
 import static org.infinispan.loaders.decorators.AbstractDelegatingStore.undelegateCacheLoader;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
@@ -40,6 +49,8 @@
 import org.infinispan.configuration.cache.CacheLoaderConfiguration;
 import org.infinispan.configuration.cache.LoadersConfiguration;
 import org.infinispan.configuration.cache.CacheStoreConfiguration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContextContainer;
@@ -50,20 +61,33 @@
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.CacheLoaderInterceptor;
 import org.infinispan.interceptors.CacheStoreInterceptor;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
+import org.infinispan.loaders.decorators.AbstractDelegatingStore;
 import org.infinispan.loaders.decorators.AsyncStore;
 import org.infinispan.loaders.decorators.ChainingCacheStore;
 import org.infinispan.loaders.decorators.ReadOnlyStore;
 import org.infinispan.loaders.decorators.SingletonStore;
 import org.infinispan.loaders.decorators.SingletonStoreConfig;
 import org.infinispan.marshall.StreamingMarshaller;
-import org.infinispan.util.InfinispanCollections;
+import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.util.Equivalence;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+@MBean(objectName = "CacheLoaderManager", description = "Component that manages the cache loaders and preloads the cache from them")
 public class CacheLoaderManagerImpl implements CacheLoaderManager {
 
+   /**
+    * Interval between two logs of the progress of the preload, in nanoseconds.
+    */
+   private static final long PRELOAD_PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
    Configuration configuration;
    LoadersConfiguration clmConfig;
    AdvancedCache<Object, Object> cache;
@@ -72,19 +96,31 @@ public class CacheLoaderManagerImpl implements CacheLoaderManager {
    InvocationContextContainer icc;
    TransactionManager transactionManager;
    private TimeService timeService;
+   private DataContainer dataContainer;
+   private CacheNotifier cacheNotifier;
+
+   private final AtomicLong preloadedEntries = new AtomicLong();
+   private final AtomicLong nextPreloadProgressTime = new AtomicLong();
+   private volatile boolean preloading;
+   private volatile long preloadStartTime;
+   private volatile long preloadDuration;
+   private volatile int preloadLimit = -1;
+
    private static final Log log = LogFactory.getLog(CacheLoaderManagerImpl.class);
 
    @Inject
    public void inject(AdvancedCache<Object, Object> cache,
                       @ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
                       Configuration configuration, InvocationContextContainer icc, TransactionManager transactionManager,
-                      TimeService timeService) {
+                      TimeService timeService, DataContainer dataContainer, CacheNotifier cacheNotifier) {
       this.cache = cache;
       this.m = marshaller;
       this.configuration = configuration;
       this.icc = icc;
       this.transactionManager = transactionManager;
       this.timeService = timeService;
+      this.dataContainer = dataContainer;
+      this.cacheNotifier = cacheNotifier;
    }
 
    @Override
@@ -224,71 +260,234 @@ public <T extends CacheLoader> List<T> getCacheLoaders(Class<T> loaderClass) {
 
    /**
     * Performs a preload on the cache based on the cache loader preload configs used when configuring the cache.
+    * <p/>
+    * The entries are streamed from the store rather than loaded all up front. With more than one
+    * {@link LoadersConfiguration#preloadThreads() preload thread}, each thread iterates over the entries of a part of
+    * the segments of the cache (or of the key hashes, if the data container is not segmented). Loaders which can only
+    * iterate by loading all the keys first are preloaded with a single thread.
     */
    @Override
    @Start(priority = 56)
    public void preload() {
       if (loader != null) {
          if (clmConfig.preload()) {
-            long start = 0;
-            boolean debugTiming = log.isDebugEnabled();
-            if (debugTiming) {
-               start = timeService.time();
-               log.debugf("Preloading transient state from cache loader %s", loader);
+            int threads = clmConfig.preloadThreads();
+            if (threads > 1 && !hasOwnEntryIterator(loader)) {
+               // every thread would load all the keys to pick its own part of them
+               log.debugf("Cache loader %s cannot iterate over a part of its entries, preloading with a single thread", loader);
+               threads = 1;
             }
-            Set<InternalCacheEntry> state;
-            try {
-               state = loadState();
-            } catch (CacheLoaderException e) {
-               throw new CacheException("Unable to preload!", e);
+            if (log.isDebugEnabled()) {
+               log.debugf("Preloading transient state from cache loader %s with %d threads", loader, threads);
             }
 
-            List<Flag> flags = new ArrayList<Flag>(Arrays.asList(
-                  CACHE_MODE_LOCAL, SKIP_OWNERSHIP_CHECK, IGNORE_RETURN_VALUES, SKIP_CACHE_STORE, SKIP_LOCKING));
-
-            if (clmConfig.shared() || !(loader instanceof ChainingCacheStore)) {
-               flags.add(SKIP_CACHE_STORE);
-               if (!localIndexingEnabled())
+            // null if the entries can be written directly in the data container
+            AdvancedCache<Object, Object> flaggedCache = null;
+            if (!canPreloadIntoDataContainer()) {
+               List<Flag> flags = new ArrayList<Flag>(Arrays.asList(
+                     CACHE_MODE_LOCAL, SKIP_OWNERSHIP_CHECK, IGNORE_RETURN_VALUES, SKIP_CACHE_STORE, SKIP_LOCKING));
+
+               if (clmConfig.shared() || !(loader instanceof ChainingCacheStore)) {
+                  flags.add(SKIP_CACHE_STORE);
+                  if (!localIndexingEnabled())
+                     flags.add(SKIP_INDEXING);
+               } else {
                   flags.add(SKIP_INDEXING);
-            } else {
-               flags.add(SKIP_INDEXING);
+               }
+
+               flaggedCache = cache.getAdvancedCache().withFlags(flags.toArray(new Flag[flags.size()]));
             }
 
-            AdvancedCache<Object, Object> flaggedCache = cache.getAdvancedCache()
-                  .withFlags(flags.toArray(new Flag[flags.size()]));
+            int maxEntries = getMaxPreloadEntries();
+            preloadLimit = maxEntries;
+            preloadedEntries.set(0);
+            preloadStartTime = timeService.time();
+            nextPreloadProgressTime.set(preloadStartTime + PRELOAD_PROGRESS_INTERVAL);
+            preloading = true;
+            try {
+               if (maxEntries != 0) {
+                  AtomicInteger remaining = maxEntries > 0 ? new AtomicInteger(maxEntries) : null;
+                  if (threads == 1) {
+                     try {
+                        new PreloadTask(KeyFilter.ACCEPT_ALL, flaggedCache, remaining).call();
+                     } catch (CacheLoaderException e) {
+                        throw new CacheException("Unable to preload!", e);
+                     }
+                  } else {
+                     preloadInParallel(threads, flaggedCache, remaining);
+                  }
+               }
+            } finally {
+               preloading = false;
+               preloadDuration = timeService.timeDuration(preloadStartTime, MILLISECONDS);
+            }
 
-            for (InternalCacheEntry e : state)
-               flaggedCache.put(e.getKey(), e.getValue(),
-                     e.getLifespan(), MILLISECONDS, e.getMaxIdle(), MILLISECONDS);
+            if (log.isDebugEnabled()) {
+               log.debugf("Preloaded %s keys in %s", preloadedEntries.get(), Util.prettyPrintTime(preloadDuration));
+            }
+         }
+      }
+   }
 
-            if (debugTiming) {
-               log.debugf("Preloaded %s keys in %s", state.size(),
-                          Util.prettyPrintTime(timeService.timeDuration(start, MILLISECONDS)));
+   private void preloadInParallel(int threads, AdvancedCache<Object, Object> flaggedCache, AtomicInteger remaining) {
+      final String threadNamePrefix = cache.getName() + "-Preloader-";
+      final AtomicInteger threadCounter = new AtomicInteger();
+      ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, threadNamePrefix + threadCounter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      List<PreloadTask> tasks = new ArrayList<PreloadTask>(threads);
+      try {
+         List<Future<Void>> futures = new ArrayList<Future<Void>>(threads);
+         for (int i = 0; i < threads; i++) {
+            PreloadTask task = new PreloadTask(partitionFilter(i, threads), flaggedCache, remaining);
+            tasks.add(task);
+            futures.add(executor.submit(task));
+         }
+         for (Future<Void> future : futures) {
+            future.get();
+         }
+      } catch (ExecutionException e) {
+         cancelPreload(tasks);
+         throw new CacheException("Unable to preload!", e.getCause());
+      } catch (InterruptedException e) {
+         cancelPreload(tasks);
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while preloading", e);
+      } finally {
+         // interrupts the tasks still running if the preload failed
+         executor.shutdownNow();
+      }
+   }
+
+   private void cancelPreload(List<PreloadTask> tasks) {
+      for (PreloadTask task : tasks) {
+         task.cancel();
+      }
+   }
+
+   /**
+    * Whether the loader iterates over the entries accepted by a filter without loading all the keys first, as
+    * {@link AbstractCacheLoader#entryIterator(KeyFilter)} does.
+    */
+   private static boolean hasOwnEntryIterator(CacheLoader loader) {
+      if (loader instanceof AsyncStore) {
+         // it loads all the keys to merge them with the pending modifications
+         return false;
+      }
+      if (loader instanceof AbstractDelegatingStore) {
+         return hasOwnEntryIterator(((AbstractDelegatingStore) loader).getDelegate());
+      }
+      if (loader instanceof ChainingCacheStore) {
+         for (CacheStore store : ((ChainingCacheStore) loader).getStores().keySet()) {
+            if (!hasOwnEntryIterator(store)) return false;
+         }
+         return true;
+      }
+      try {
+         return loader.getClass().getMethod("entryIterator", KeyFilter.class).getDeclaringClass() != AbstractCacheLoader.class;
+      } catch (NoSuchMethodException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * @return a filter accepting the keys of one of {@code partitions} disjoint parts of the key space
+    */
+   private KeyFilter partitionFilter(final int partition, final int partitions) {
+      if (dataContainer instanceof SegmentedDataContainer) {
+         // each thread writes to the maps of its own segments
+         final SegmentedDataContainer segmentedDataContainer = (SegmentedDataContainer) dataContainer;
+         return new KeyFilter() {
+            @Override
+            public boolean accept(Object key) {
+               return segmentedDataContainer.getSegment(key) % partitions == partition;
             }
+         };
+      }
+      // each task reads its own copy of the keys, so e.g. byte[] keys must be hashed by content
+      final Equivalence<Object> keyEquivalence = configuration.dataContainer().keyEquivalence();
+      return new KeyFilter() {
+         @Override
+         public boolean accept(Object key) {
+            return (keyEquivalence.hashCode(key) & Integer.MAX_VALUE) % partitions == partition;
          }
+      };
+   }
+
+   /**
+    * Whether the preloaded entries can be written directly in the data container. This is only possible if none of the
+    * interceptors which still act on a preloading put would change what is stored or observe it: marshalling of the
+    * keys and values, local indexing, user defined interceptors and listeners registered before the cache started.
+    */
+   private boolean canPreloadIntoDataContainer() {
+      return !configuration.storeAsBinary().enabled() && !configuration.compatibility().enabled()
+            && !configuration.indexing().enabled() && configuration.customInterceptors().interceptors().isEmpty()
+            && cacheNotifier.getListeners().isEmpty();
+   }
+
+   private void preloadProgress(long count) {
+      if ((count & 1023) != 0)
+         return;
+      long now = timeService.time();
+      long next = nextPreloadProgressTime.get();
+      if (now >= next && nextPreloadProgressTime.compareAndSet(next, now + PRELOAD_PROGRESS_INTERVAL)) {
+         long remainingTime = getPreloadRemainingTime();
+         log.preloadProgress(cache.getName(), count, getPreloadRate(),
+                             remainingTime < 0 ? "unknown" : Util.prettyPrintTime(remainingTime));
       }
    }
 
+   @ManagedAttribute(description = "Whether the cache is being preloaded", displayName = "Preloading")
+   public boolean isPreloading() {
+      return preloading;
+   }
+
+   @ManagedAttribute(description = "Number of entries loaded by the last preload", displayName = "Preloaded entries",
+                     measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getPreloadedEntries() {
+      return preloadedEntries.get();
+   }
+
+   @ManagedAttribute(description = "Time spent by the last preload so far", displayName = "Preload time",
+                     units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   public long getPreloadTime() {
+      return preloading ? timeService.timeDuration(preloadStartTime, MILLISECONDS) : preloadDuration;
+   }
+
+   @ManagedAttribute(description = "Number of entries loaded per second by the last preload", displayName = "Preload rate",
+                     displayType = DisplayType.SUMMARY)
+   public long getPreloadRate() {
+      long time = getPreloadTime();
+      return time > 0 ? preloadedEntries.get() * 1000 / time : 0;
+   }
+
+   @ManagedAttribute(description = "Estimated time until the preload completes, or -1 if unknown. The number of entries " +
+         "to load is only known when it is limited by eviction", displayName = "Preload remaining time",
+                     units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   public long getPreloadRemainingTime() {
+      if (!preloading)
+         return 0;
+      long rate = getPreloadRate();
+      if (preloadLimit < 0 || rate == 0)
+         return -1;
+      return Math.max(0, preloadLimit - preloadedEntries.get()) * 1000 / rate;
+   }
+
    private boolean localIndexingEnabled() {
       return configuration.indexing().enabled() && configuration.indexing().indexLocalOnly();
    }
 
-   private Set<InternalCacheEntry> loadState() throws CacheLoaderException {
-      int ne = -1;
-      if (configuration.eviction().strategy().isEnabled()) ne = configuration.eviction().maxEntries();
-      Set<InternalCacheEntry> state;
-      switch (ne) {
-         case -1:
-            state = loader.loadAll();
-            break;
-         case 0:
-            state = InfinispanCollections.emptySet();
-            break;
-         default:
-            state = loader.load(ne);
-            break;
-      }
-      return state;
+   /**
+    * @return the maximum number of entries to preload, or -1 if there is no limit
+    */
+   private int getMaxPreloadEntries() {
+      if (configuration.eviction().strategy().isEnabled()) return configuration.eviction().maxEntries();
+      return -1;
    }
 
    @Override
@@ -384,4 +583,50 @@ void assertNotSingletonAndShared(CacheStoreConfiguration cfg) {
       if (cfg.singletonStore().enabled() && clmConfig.shared())
          throw new ConfigurationException("Invalid cache loader configuration!!  If a cache loader is configured as a singleton, the cache loader cannot be shared in a cluster!");
    }
+
+   /**
+    * Preloads the stored entries accepted by a filter.
+    */
+   private class PreloadTask implements Callable<Void> {
+      private final KeyFilter filter;
+      private final AdvancedCache<Object, Object> flaggedCache;
+      private final AtomicInteger remaining;
+      private volatile boolean cancelled;
+
+      /**
+       * @param flaggedCache the cache to put the entries in, or {@code null} to write them in the data container
+       * @param remaining the number of entries that can still be preloaded, or {@code null} if unlimited
+       */
+      PreloadTask(KeyFilter filter, AdvancedCache<Object, Object> flaggedCache, AtomicInteger remaining) {
+         this.filter = filter;
+         this.flaggedCache = flaggedCache;
+         this.remaining = remaining;
+      }
+
+      @Override
+      public Void call() throws CacheLoaderException {
+         StoredEntryIterator state = loader.entryIterator(filter);
+         try {
+            while (!cancelled && state.hasNext()) {
+               if (remaining != null && remaining.decrementAndGet() < 0)
+                  break;
+               InternalCacheEntry e = state.next();
+               if (flaggedCache == null) {
+                  dataContainer.put(e.getKey(), e.getValue(), e.getMetadata());
+               } else {
+                  flaggedCache.put(e.getKey(), e.getValue(),
+                        e.getLifespan(), MILLISECONDS, e.getMaxIdle(), MILLISECONDS);
+               }
+               preloadProgress(preloadedEntries.incrementAndGet());
+            }
+         } finally {
+            state.close();
+         }
+         return null;
+      }
+
+      void cancel() {
+         cancelled = true;
+      }
+   }
 }
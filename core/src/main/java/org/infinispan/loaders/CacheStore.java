@@ -28,6 +28,7 @@
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -47,6 +48,15 @@ public interface CacheStore extends CacheLoader {
     */
    void store(InternalCacheEntry entry) throws CacheLoaderException;
 
+   /**
+    * Bulk store operation. Stores able to write several entries at once, e.g. in a single round trip to a remote
+    * database, should do so; others may simply call {@link #store(InternalCacheEntry)} for each entry.
+    *
+    * @param entries entries to store, in order
+    * @throws CacheLoaderException in the event of problems writing to the store
+    */
+   void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException;
+
    /**
     * Writes contents of the stream to the store.  Implementations should expect that the stream contains data in an
     * implementation-specific format, typically generated using {@link #toStream(java.io.ObjectOutput)}.  While not a
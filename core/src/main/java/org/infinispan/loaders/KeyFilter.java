@@ -0,0 +1,45 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.loaders;
+
+/**
+ * Selects the keys of the entries to iterate over in {@link CacheLoader#entryIterator(KeyFilter)}. Loaders call it
+ * before reading the rest of an entry whenever they can, so it should be cheap.
+ *
+ * @since 5.3
+ */
+public interface KeyFilter {
+
+   /**
+    * Accepts all keys.
+    */
+   KeyFilter ACCEPT_ALL = new KeyFilter() {
+      @Override
+      public boolean accept(Object key) {
+         return true;
+      }
+   };
+
+   boolean accept(Object key);
+}
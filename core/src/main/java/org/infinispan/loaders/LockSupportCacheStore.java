@@ -24,6 +24,11 @@
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.infinispan.Cache;
@@ -145,6 +150,42 @@ public final InternalCacheEntry load(Object key) throws CacheLoaderException {
       }
    }
 
+   /**
+    * Loads the keys grouped by locking key, holding the read lock of each group while it is loaded. Subclasses able to
+    * read several entries sharing a locking key in one operation should override
+    * {@link #loadAllLockSafe(List, Object, Map)}.
+    */
+   @Override
+   public Map<Object, InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Map<Object, InternalCacheEntry> loaded = new HashMap<Object, InternalCacheEntry>();
+      if (keys == null || keys.isEmpty()) {
+         return loaded;
+      }
+      if (trace) {
+         log.tracef("loadAll(%d keys)", keys.size());
+      }
+      Map<L, List<Object>> keysByLock = new HashMap<L, List<Object>>();
+      for (Object key : keys) {
+         L lockingKey = getLockFromKey(key);
+         List<Object> group = keysByLock.get(lockingKey);
+         if (group == null) {
+            group = new ArrayList<Object>(2);
+            keysByLock.put(lockingKey, group);
+         }
+         group.add(key);
+      }
+      for (Map.Entry<L, List<Object>> group : keysByLock.entrySet()) {
+         L lockingKey = group.getKey();
+         lockForReading(lockingKey);
+         try {
+            loadAllLockSafe(group.getValue(), lockingKey, loaded);
+         } finally {
+            unlock(lockingKey);
+         }
+      }
+      return loaded;
+   }
+
    @Override
    public final Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       boolean success = acquireGlobalLock(false);
@@ -236,6 +277,66 @@ public final boolean remove(Object key) throws CacheLoaderException {
       }
    }
 
+   /**
+    * Stores the entries while holding the locks of all their keys, acquired in a fixed order. Subclasses able to write
+    * several entries in one operation should override {@link #storeAllLockSafe(List, List)}.
+    */
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (entries == null || entries.isEmpty()) {
+         return;
+      }
+      if (trace) {
+         log.tracef("storeAll(%d entries)", entries.size());
+      }
+      long now = timeService.wallClockTime();
+      List<InternalCacheEntry> toStore = new ArrayList<InternalCacheEntry>(entries.size());
+      List<L> lockingKeys = new ArrayList<L>(entries.size());
+      for (InternalCacheEntry ed : entries) {
+         if (ed.canExpire() && ed.isExpired(now)) {
+            // let store() deal with expired entries
+            store(ed);
+         } else {
+            toStore.add(ed);
+            lockingKeys.add(getLockFromKey(ed.getKey()));
+         }
+      }
+      if (toStore.isEmpty()) {
+         return;
+      }
+      locks.acquireAllLocks(lockingKeys, true);
+      try {
+         storeAllLockSafe(toStore, lockingKeys);
+      } finally {
+         locks.releaseAllLocks(lockingKeys);
+      }
+   }
+
+   /**
+    * Removes the keys while holding the locks of all of them, acquired in a fixed order. Subclasses able to remove
+    * several entries in one operation should override {@link #removeAllLockSafe(List, List)}.
+    */
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      if (keys == null || keys.isEmpty()) {
+         return;
+      }
+      if (trace) {
+         log.tracef("removeAll(%d keys)", keys.size());
+      }
+      List<Object> toRemove = new ArrayList<Object>(keys);
+      List<L> lockingKeys = new ArrayList<L>(toRemove.size());
+      for (Object key : toRemove) {
+         lockingKeys.add(getLockFromKey(key));
+      }
+      locks.acquireAllLocks(lockingKeys, true);
+      try {
+         removeAllLockSafe(toRemove, lockingKeys);
+      } finally {
+         locks.releaseAllLocks(lockingKeys);
+      }
+   }
+
    @Override
    public final void fromStream(ObjectInput objectInput) throws CacheLoaderException {
       boolean success = acquireGlobalLock(true);
@@ -295,6 +396,45 @@ public int getTotalLockCount() {
 
    protected abstract void storeLockSafe(InternalCacheEntry ed, L lockingKey) throws CacheLoaderException;
 
+   /**
+    * Stores a batch of entries, whose locking keys are held. The default implementation stores them one by one.
+    *
+    * @param entries entries to store, in order
+    * @param lockingKeys the locking key of each entry, at the same index
+    */
+   protected void storeAllLockSafe(List<InternalCacheEntry> entries, List<L> lockingKeys) throws CacheLoaderException {
+      for (int i = 0; i < entries.size(); i++) {
+         storeLockSafe(entries.get(i), lockingKeys.get(i));
+      }
+   }
+
+   /**
+    * Removes a batch of keys, whose locking keys are held. The default implementation removes them one by one.
+    *
+    * @param keys keys to remove
+    * @param lockingKeys the locking key of each key, at the same index
+    */
+   protected void removeAllLockSafe(List<Object> keys, List<L> lockingKeys) throws CacheLoaderException {
+      for (int i = 0; i < keys.size(); i++) {
+         removeLockSafe(keys.get(i), lockingKeys.get(i));
+      }
+   }
+
+   /**
+    * Loads a group of keys sharing the same locking key, which is held for reading. The default implementation loads
+    * them one by one.
+    *
+    * @param keys keys to load
+    * @param lockingKey the locking key of all the keys
+    * @param loaded map to which the entries found are added
+    */
+   protected void loadAllLockSafe(List<Object> keys, L lockingKey, Map<Object, InternalCacheEntry> loaded) throws CacheLoaderException {
+      for (Object key : keys) {
+         InternalCacheEntry entry = loadLockSafe(key, lockingKey);
+         if (entry != null) loaded.put(key, entry);
+      }
+   }
+
    protected abstract InternalCacheEntry loadLockSafe(Object key, L lockingKey) throws CacheLoaderException;
 
    protected abstract L getLockFromKey(Object key) throws CacheLoaderException;
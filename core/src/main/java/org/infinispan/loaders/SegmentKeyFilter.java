@@ -0,0 +1,54 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.loaders;
+
+import org.infinispan.distribution.ch.ConsistentHash;
+
+import java.util.Set;
+
+/**
+ * Accepts the keys mapped to some segments of a consistent hash.
+ *
+ * @since 5.3
+ */
+public class SegmentKeyFilter implements KeyFilter {
+
+   private final ConsistentHash consistentHash;
+   private final Set<Integer> segments;
+
+   public SegmentKeyFilter(ConsistentHash consistentHash, Set<Integer> segments) {
+      this.consistentHash = consistentHash;
+      this.segments = segments;
+   }
+
+   @Override
+   public boolean accept(Object key) {
+      return segments.contains(consistentHash.getSegment(key));
+   }
+
+   @Override
+   public String toString() {
+      return "SegmentKeyFilter{segments=" + segments + '}';
+   }
+}
@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.loaders;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over the entries of a {@link CacheLoader}, which reads them as it goes rather than loading them all in
+ * memory. It may hold resources of the loader, such as a database cursor or connection, so it must always be closed.
+ * <p/>
+ * Since {@link Iterator} methods cannot throw a {@link CacheLoaderException}, failures to read from the loader are
+ * thrown as {@link org.infinispan.CacheException}s, with the CacheLoaderException as cause.
+ *
+ * @see CacheLoader#entryIterator(KeyFilter)
+ * @since 5.3
+ */
+public interface StoredEntryIterator extends Iterator<InternalCacheEntry> {
+
+   /**
+    * Releases the resources held by the iterator. Closing an iterator more than once has no effect.
+    */
+   void close();
+}
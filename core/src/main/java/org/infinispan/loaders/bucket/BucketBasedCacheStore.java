@@ -23,12 +23,16 @@
 package org.infinispan.loaders.bucket;
 
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
 import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.KeyFilter;
 import org.infinispan.loaders.LockSupportCacheStore;
 
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -73,6 +77,24 @@ protected InternalCacheEntry loadLockSafe(Object key, Integer lockingKey) throws
       }
    }
 
+   /**
+    * Loads a group of keys mapped to the same Bucket, reading the Bucket only once.
+    */
+   @Override
+   protected void loadAllLockSafe(List<Object> keys, Integer lockingKey, Map<Object, InternalCacheEntry> loaded) throws CacheLoaderException {
+      Bucket bucket = loadBucket(lockingKey);
+      if (bucket == null) {
+         return;
+      }
+      long now = timeService.wallClockTime();
+      for (Object key : keys) {
+         InternalCacheEntry se = bucket.getEntry(key);
+         if (se != null && !(se.canExpire() && se.isExpired(now))) {
+            loaded.put(key, se);
+         }
+      }
+   }
+
    /**
     * Stores an entry in an appropriate Bucket, based on the key's hash code.  If the Bucket does not exist in the
     * underlying store, a new one is created.
@@ -220,6 +242,41 @@ public boolean consider(Collection<? extends InternalCacheEntry> entries) {
       return g.generate();
    }
 
+   /**
+    * Iterates over the entries of the buckets returned by {@link #nextBucket()}, skipping expired entries and entries
+    * whose keys are not accepted by the filter.  Stores able to list their buckets without loading them all at once
+    * can use it to implement {@link #entryIterator(KeyFilter)}.
+    */
+   protected abstract class BucketEntryIterator extends AbstractStoredEntryIterator {
+      private final KeyFilter filter;
+      private Iterator<? extends InternalCacheEntry> entries;
+
+      protected BucketEntryIterator(KeyFilter filter) {
+         this.filter = filter;
+      }
+
+      /**
+       * @return the next bucket to iterate over, or null if there are no more buckets
+       */
+      protected abstract Bucket nextBucket() throws CacheLoaderException;
+
+      @Override
+      protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+         while (true) {
+            if (entries == null || !entries.hasNext()) {
+               Bucket bucket = nextBucket();
+               if (bucket == null) return null;
+               entries = bucket.getStoredEntries().iterator();
+            }
+            long now = timeService.wallClockTime();
+            while (entries.hasNext()) {
+               InternalCacheEntry entry = entries.next();
+               if (!entry.isExpired(now) && filter.accept(entry.getKey())) return entry;
+            }
+         }
+      }
+   }
+
    /**
     * A mechanism to loop over all buckets in the cache store.  Implementations should, very simply, loop over all
     * available buckets, and for each deserialized bucket, pass it to the handler.
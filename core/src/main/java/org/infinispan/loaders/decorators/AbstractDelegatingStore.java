@@ -31,11 +31,15 @@
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheStore;
 import org.infinispan.loaders.CacheStoreConfig;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.modifications.Modification;
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -75,6 +79,11 @@ public void store(InternalCacheEntry ed) throws CacheLoaderException {
       delegate.store(ed);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      delegate.storeAll(entries);
+   }
+
    @Override
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       delegate.fromStream(inputStream);
@@ -130,6 +139,11 @@ public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return delegate.loadAll();
    }
 
+   @Override
+   public Map<Object, InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      return delegate.loadAll(keys);
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       return delegate.load(numEntries);
@@ -140,6 +154,11 @@ public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderExce
       return delegate.loadAllKeys(keysToExclude);
    }
 
+   @Override
+   public StoredEntryIterator entryIterator(KeyFilter filter) throws CacheLoaderException {
+      return delegate.entryIterator(filter);
+   }
+
    @Override
    public boolean containsKey(Object key) throws CacheLoaderException {
       return delegate.containsKey(key);
@@ -27,9 +27,12 @@
 import org.infinispan.CacheException;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.modifications.Clear;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.loaders.modifications.ModificationsList;
@@ -39,12 +42,16 @@
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.transaction.xa.TransactionFactory;
 import org.infinispan.util.CollectionFactory;
+import org.infinispan.util.Histogram;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -56,6 +63,7 @@
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 
 /**
@@ -76,6 +84,11 @@
  * <p/>
  * Write operations affecting same key are now coalesced so that only the final state is actually stored.
  * <p/>
+ * Coalesced modifications are handed to the underlying store in batches of at most <code>batchSize</code>
+ * modifications, so that stores implementing {@link CacheStore#storeAll(java.util.Collection)} and
+ * {@link CacheStore#removeAll(Set)} natively can write them in bulk. If <code>maxBatchDelay</code> is set, the
+ * modifications are held back until a full batch is available or the delay has elapsed.
+ * <p/>
  *
  * @author Manik Surtani
  * @author Galder Zamarreño
@@ -98,6 +111,14 @@ public class AsyncStore extends AbstractDelegatingStore {
    private long shutdownTimeout;
    private String cacheName;
    private TimeService timeService;
+   private int batchSize;
+   private long maxBatchDelay;
+   private final Object batchMonitor = new Object();
+
+   private final AtomicLong batchCount = new AtomicLong();
+   private final Histogram batchSizeHistogram = new Histogram();
+   private final AtomicLong flushTime = new AtomicLong();
+   private final AtomicLong maxFlushTime = new AtomicLong();
 
    private BufferLock stateLock;
    @GuardedBy("stateLock")
@@ -129,6 +150,12 @@ public void init(CacheLoaderConfig config, Cache<?, ?> cache, StreamingMarshalle
       }
 
       transactions = CollectionFactory.makeConcurrentMap(64, concurrencyLevel);
+      batchSize = asyncStoreConfig.getBatchSize();
+      maxBatchDelay = asyncStoreConfig.getMaxBatchDelay();
+      int modificationQueueSize = asyncStoreConfig.getModificationQueueSize();
+      // a batch can never grow larger than the modification queue
+      if (modificationQueueSize > 0 && modificationQueueSize < batchSize)
+         batchSize = modificationQueueSize;
       this.timeService = cache.getAdvancedCache().getComponentRegistry().getTimeService();
    }
 
@@ -147,6 +174,14 @@ private void put(Modification mod, int count) {
       } finally {
          stateLock.writeUnlock();
       }
+      if (maxBatchDelay > 0 && (state.modifications.size() >= batchSize || stateLock.isFull()))
+         signalBatch();
+   }
+
+   private void signalBatch() {
+      synchronized (batchMonitor) {
+         batchMonitor.notifyAll();
+      }
    }
 
    @Override
@@ -168,6 +203,35 @@ public InternalCacheEntry load(Object key) throws CacheLoaderException {
       return super.load(key);
    }
 
+   @Override
+   public Map<Object, InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Map<Object, InternalCacheEntry> loaded = new HashMap<Object, InternalCacheEntry>();
+      Set<Object> notQueued = new HashSet<Object>();
+      long now = timeService.wallClockTime();
+      for (Object key : keys) {
+         Modification mod = state.get(key);
+         if (mod == null) {
+            notQueued.add(key);
+            continue;
+         }
+         switch (mod.getType()) {
+            case REMOVE:
+            case CLEAR:
+               break;
+            case STORE:
+               InternalCacheEntry ice = ((Store) mod).getStoredEntry();
+               if (!ice.isExpired(now))
+                  loaded.put(key, ice);
+               break;
+            default:
+               notQueued.add(key);
+         }
+      }
+      if (!notQueued.isEmpty())
+         loaded.putAll(super.loadAll(notQueued));
+      return loaded;
+   }
+
    @Override
    public boolean containsKey(Object key) throws CacheLoaderException {
       Modification mod = state.get(key);
@@ -228,11 +292,44 @@ public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException
       return result;
    }
 
+   /**
+    * {@inheritDoc} Iterating over the back-end store directly would miss the queued modifications, so this
+    * implementation merges the keys like {@link #loadAllKeys(Set)} and loads the accepted ones as the iteration
+    * proceeds.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(final KeyFilter filter) throws CacheLoaderException {
+      final Iterator<Object> keys = loadAllKeys(null).iterator();
+      return new AbstractStoredEntryIterator() {
+         @Override
+         protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+            while (keys.hasNext()) {
+               Object key = keys.next();
+               if (filter.accept(key)) {
+                  InternalCacheEntry entry = load(key);
+                  if (entry != null) return entry;
+               }
+            }
+            return null;
+         }
+      };
+   }
+
    @Override
    public void store(InternalCacheEntry entry) {
       put(new Store(entry), 1);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) {
+      if (entries != null && !entries.isEmpty()) {
+         List<Modification> mods = new ArrayList<Modification>(entries.size());
+         for (InternalCacheEntry entry : entries)
+            mods.add(new Store(entry));
+         put(new ModificationsList(mods), mods.size());
+      }
+   }
+
    @Override
    public void clear() {
       stateLock.writeLock(1);
@@ -242,6 +339,7 @@ public void clear() {
          stateLock.reset(1);
          stateLock.writeUnlock();
       }
+      signalBatch();
    }
 
    @Override
@@ -325,6 +423,7 @@ public void stop() throws CacheLoaderException {
       stateLock.writeLock(1);
       state.stopped = true;
       stateLock.writeUnlock();
+      signalBatch();
       try {
          coordinator.join(shutdownTimeout);
          if (coordinator.isAlive())
@@ -340,6 +439,63 @@ protected void applyModificationsSync(List<Modification> mods) throws CacheLoade
       getDelegate().prepare(mods, txFactory.newGlobalTransaction(null, false), true);
    }
 
+   /**
+    * @return the number of modifications waiting to be applied to the underlying store
+    */
+   public int getQueueSize() {
+      int size = 0;
+      for (State s = state; s != null; s = s.next)
+         size += s.modifications.size();
+      return size;
+   }
+
+   /**
+    * @return the number of batches applied to the underlying store
+    */
+   public long getBatchCount() {
+      return batchCount.get();
+   }
+
+   /**
+    * @return the number of modifications of the batches applied to the underlying store
+    */
+   public Histogram getBatchSizeHistogram() {
+      return batchSizeHistogram;
+   }
+
+   /**
+    * @return the average time, in milliseconds, taken to apply a batch to the underlying store
+    */
+   public long getAverageFlushLatency() {
+      long batches = batchCount.get();
+      return batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(flushTime.get() / batches);
+   }
+
+   /**
+    * @return the longest time, in milliseconds, taken to apply a batch to the underlying store
+    */
+   public long getMaxFlushLatency() {
+      return TimeUnit.NANOSECONDS.toMillis(maxFlushTime.get());
+   }
+
+   public void resetStatistics() {
+      batchCount.set(0);
+      batchSizeHistogram.reset();
+      flushTime.set(0);
+      maxFlushTime.set(0);
+   }
+
+   private void recordBatch(int size, long duration) {
+      batchCount.incrementAndGet();
+      batchSizeHistogram.record(size);
+      flushTime.addAndGet(duration);
+      for (;;) {
+         long max = maxFlushTime.get();
+         if (duration <= max || maxFlushTime.compareAndSet(max, duration))
+            break;
+      }
+   }
+
    private static class State {
       private static final Clear CLEAR = new Clear();
 
@@ -448,6 +604,10 @@ private static class Counter extends AbstractQueuedSynchronizer {
             this.size = size;
          }
 
+         boolean isFull() {
+            return getState() >= size;
+         }
+
          int add(int count) {
             for (;;) {
                int state = getState();
@@ -574,6 +734,20 @@ void readLock() {
          sync.acquire(1);
       }
 
+      /**
+       * @return true if writers currently block because the buffer is full
+       */
+      boolean isFull() {
+         return counter != null && counter.isFull();
+      }
+
+      /**
+       * Blocks until data is available, without locking.
+       */
+      void awaitAvailable() {
+         available.acquireShared(1);
+      }
+
       /**
        * Releases the read lock.
        */
@@ -619,6 +793,7 @@ public void run() {
                   return;
                }
 
+               awaitBatch();
                stateLock.readLock();
                try {
                   s = state;
@@ -710,6 +885,34 @@ public void run() {
       private boolean shouldStop(State s) {
          return s.stopped && s.modifications.isEmpty();
       }
+
+      /**
+       * Waits until a full batch of modifications is available, the store is stopped or cleared, or
+       * <code>maxBatchDelay</code> has elapsed since the first modification became available.
+       */
+      private void awaitBatch() {
+         if (maxBatchDelay <= 0)
+            return;
+
+         stateLock.awaitAvailable();
+         long endTime = timeService.expectedEndTime(maxBatchDelay, TimeUnit.MILLISECONDS);
+         synchronized (batchMonitor) {
+            for (;;) {
+               State s = state;
+               if (s.stopped || s.clear || s.modifications.size() >= batchSize || stateLock.isFull())
+                  return;
+               long remaining = timeService.remainingTime(endTime, TimeUnit.MILLISECONDS);
+               if (remaining <= 0)
+                  return;
+               try {
+                  batchMonitor.wait(remaining);
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return;
+               }
+            }
+         }
+      }
    }
 
    private class AsyncStoreProcessor implements Runnable {
@@ -723,8 +926,24 @@ private class AsyncStoreProcessor implements Runnable {
 
       @Override
       public void run() {
-         // try 3 times to store the modifications
-         retryWork(3);
+         // keys are unique, so stores and removals can be reordered to let the delegate apply each kind in bulk
+         List<Modification> ordered = new ArrayList<Modification>(modifications.size());
+         List<Modification> removals = new ArrayList<Modification>();
+         for (Modification mod : modifications) {
+            if (mod.getType() == Modification.Type.REMOVE)
+               removals.add(mod);
+            else
+               ordered.add(mod);
+         }
+         ordered.addAll(removals);
+
+         for (int start = 0; start < ordered.size(); start += batchSize) {
+            List<Modification> batch = ordered.subList(start, Math.min(start + batchSize, ordered.size()));
+            // try 3 times to store the modifications
+            long startTime = timeService.time();
+            retryWork(batch, 3);
+            recordBatch(batch.size(), timeService.timeDuration(startTime, TimeUnit.NANOSECONDS));
+         }
 
          // decrement active worker threads and disconnect myState if this was the last one
          myState.workerThreads.countDown();
@@ -734,13 +953,13 @@ public void run() {
                   s.next = null;
       }
 
-      private void retryWork(int maxRetries) {
+      private void retryWork(List<Modification> batch, int maxRetries) {
          for (int attempt = 0; attempt < maxRetries; attempt++) {
             if (attempt > 0 && log.isDebugEnabled())
                log.debugf("Retrying due to previous failure. %s attempts left.", maxRetries - attempt);
 
             try {
-               AsyncStore.this.applyModificationsSync(modifications);
+               AsyncStore.this.applyModificationsSync(batch);
                return;
             } catch (Exception e) {
                if (log.isDebugEnabled())
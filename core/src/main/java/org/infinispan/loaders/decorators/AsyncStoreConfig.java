@@ -65,6 +65,13 @@ public class AsyncStoreConfig extends AbstractDecoratorConfigurationBean {
    @ConfigurationDocRef(bean=AsyncStoreConfig.class,targetElement="setModificationQueueSize")
    protected Integer modificationQueueSize = 1024;
 
+   @ConfigurationDocRef(bean=AsyncStoreConfig.class,targetElement="setBatchSize")
+   protected Integer batchSize = 100;
+
+   @Dynamic
+   @ConfigurationDocRef(bean=AsyncStoreConfig.class,targetElement="setMaxBatchDelay")
+   protected Long maxBatchDelay = 0L;
+
    @XmlAttribute
    public Boolean isEnabled() {
       return enabled;
@@ -197,6 +204,64 @@ public void setModificationQueueSize(Integer modificationQueueSize) {
       this.modificationQueueSize = modificationQueueSize;
    }
 
+   @XmlAttribute
+   public Integer getBatchSize() {
+      return batchSize;
+   }
+
+   /**
+    * Maximum number of modifications handed to the underlying cache store in a single batch.
+    *
+    * @param batchSize
+    * @deprecated The visibility of this method will be reduced. Use {@link #batchSize(Integer)} instead.
+    */
+   @Deprecated
+   public void setBatchSize(Integer batchSize) {
+      testImmutability("batchSize");
+      this.batchSize = batchSize;
+   }
+
+   /**
+    * Maximum number of modifications handed to the underlying cache store in a single batch.
+    *
+    * @param batchSize
+    */
+   public AsyncStoreConfig batchSize(Integer batchSize) {
+      testImmutability("batchSize");
+      this.batchSize = batchSize;
+      return this;
+   }
+
+   @XmlAttribute
+   public Long getMaxBatchDelay() {
+      return maxBatchDelay;
+   }
+
+   /**
+    * Maximum time, in milliseconds, modifications are held back waiting for a full batch before being flushed to the
+    * underlying cache store. 0 flushes modifications as soon as they are available.
+    *
+    * @param maxBatchDelay
+    * @deprecated The visibility of this method will be reduced. Use {@link #maxBatchDelay(Long)} instead.
+    */
+   @Deprecated
+   public void setMaxBatchDelay(Long maxBatchDelay) {
+      testImmutability("maxBatchDelay");
+      this.maxBatchDelay = maxBatchDelay;
+   }
+
+   /**
+    * Maximum time, in milliseconds, modifications are held back waiting for a full batch before being flushed to the
+    * underlying cache store. 0 flushes modifications as soon as they are available.
+    *
+    * @param maxBatchDelay
+    */
+   public AsyncStoreConfig maxBatchDelay(Long maxBatchDelay) {
+      testImmutability("maxBatchDelay");
+      this.maxBatchDelay = maxBatchDelay;
+      return this;
+   }
+
    @Override
    public AsyncStoreConfig clone() {
       return (AsyncStoreConfig) super.clone();
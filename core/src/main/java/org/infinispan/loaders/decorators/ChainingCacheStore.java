@@ -28,11 +28,14 @@
 import org.infinispan.configuration.cache.CacheLoaderConfiguration;
 import org.infinispan.configuration.cache.CacheStoreConfiguration;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
 import org.infinispan.loaders.CacheLoader;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheStore;
 import org.infinispan.loaders.CacheStoreConfig;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.transaction.xa.GlobalTransaction;
@@ -42,6 +45,8 @@
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -84,6 +89,16 @@ public void store(InternalCacheEntry ed) throws CacheLoaderException {
       }
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      loadersAndStoresMutex.readLock().lock();
+      try {
+         for (CacheStore s : stores.keySet()) s.storeAll(entries);
+      } finally {
+         loadersAndStoresMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       loadersAndStoresMutex.readLock().lock();
@@ -230,6 +245,70 @@ public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return set;
    }
 
+   /**
+    * {@inheritDoc} The entries of each store are returned in turn, skipping the keys already returned by a previous
+    * store.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(final KeyFilter filter) throws CacheLoaderException {
+      final List<CacheStore> storeList;
+      loadersAndStoresMutex.readLock().lock();
+      try {
+         storeList = new ArrayList<CacheStore>(stores.keySet());
+      } finally {
+         loadersAndStoresMutex.readLock().unlock();
+      }
+      final Set<Object> seen = new HashSet<Object>();
+      return new AbstractStoredEntryIterator() {
+         private final Iterator<CacheStore> storeIterator = storeList.iterator();
+         private StoredEntryIterator current;
+
+         @Override
+         protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+            while (true) {
+               if (current == null) {
+                  if (!storeIterator.hasNext()) return null;
+                  current = storeIterator.next().entryIterator(filter);
+               }
+               while (current.hasNext()) {
+                  InternalCacheEntry entry = current.next();
+                  if (seen.add(entry.getKey())) return entry;
+               }
+               current.close();
+               current = null;
+            }
+         }
+
+         @Override
+         public void close() {
+            if (current != null) {
+               current.close();
+               current = null;
+            }
+         }
+      };
+   }
+
+   @Override
+   public Map<Object, InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Map<Object, InternalCacheEntry> loaded = new HashMap<Object, InternalCacheEntry>();
+      Set<Object> missing = keys;
+      loadersAndStoresMutex.readLock().lock();
+      try {
+         for (CacheLoader l : loaders.keySet()) {
+            if (missing.isEmpty()) break;
+            loaded.putAll(l.loadAll(missing));
+            if (loaded.size() > 0) {
+               missing = new HashSet<Object>(keys);
+               missing.removeAll(loaded.keySet());
+            }
+         }
+      } finally {
+         loadersAndStoresMutex.readLock().unlock();
+      }
+      return loaded;
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       if (numEntries < 0) return loadAll();
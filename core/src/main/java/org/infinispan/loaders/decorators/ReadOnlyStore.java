@@ -30,6 +30,7 @@
 import org.infinispan.util.logging.LogFactory;
 
 import java.io.ObjectInput;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -51,6 +52,11 @@ public void store(InternalCacheEntry ed) {
       log.trace("Ignoring store invocation"); 
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) {
+      log.trace("Ignoring bulk store invocation");
+   }
+
    @Override
    public void fromStream(ObjectInput inputStream) {
       log.trace("Ignoring writing contents of stream to store");
@@ -24,10 +24,14 @@
 
 import org.infinispan.Cache;
 import org.infinispan.config.ConfigurationException;
+import org.infinispan.container.ExpirationIndex;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.loaders.bucket.Bucket;
 import org.infinispan.loaders.bucket.BucketBasedCacheStore;
 import org.infinispan.marshall.StreamingMarshaller;
@@ -51,11 +55,13 @@
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A filesystem-based implementation of a {@link org.infinispan.loaders.bucket.BucketBasedCacheStore}.  This file store
@@ -79,6 +85,14 @@ public class FileCacheStore extends BucketBasedCacheStore {
    File root;
    FileSync fileSync;
 
+   /**
+    * Bucket ids indexed by the earliest expiry time of their entries, so that a purge only needs to load the buckets
+    * which may hold expired entries. The index is only trusted once a full purge has visited every bucket file, since
+    * bucket files written before this store instance started are unknown to it.
+    */
+   private final ExpirationIndex expiringBuckets = new ExpirationIndex(16);
+   private volatile boolean expiringBucketsIndexed;
+
    /**
     * @return root directory where all files for this {@link org.infinispan.loaders.CacheStore CacheStore} are written.
     */
@@ -146,6 +160,8 @@ protected void fromStreamLockSafe(ObjectInput objectInput) throws CacheLoaderExc
                safeClose(fos);
             }
          }
+         // the new bucket files are not indexed yet
+         expiringBucketsIndexed = false;
       } catch (IOException e) {
          throw new CacheLoaderException("I/O error", e);
       } catch (ClassNotFoundException e) {
@@ -194,6 +210,7 @@ protected void toStreamLockSafe(ObjectOutput objectOutput) throws CacheLoaderExc
 
    @Override
    protected void clearLockSafe() throws CacheLoaderException {
+      expiringBuckets.clear();
       File[] toDelete = root.listFiles(NUMERIC_NAMED_FILES_FILTER);
       if (toDelete == null) {
          return;
@@ -206,6 +223,14 @@ protected void clearLockSafe() throws CacheLoaderException {
       }
    }
 
+   @Override
+   protected void storeLockSafe(InternalCacheEntry entry, Integer lockingKey) throws CacheLoaderException {
+      super.storeLockSafe(entry, lockingKey);
+      if (entry.canExpire()) {
+         expiringBuckets.scheduleIfEarlier(lockingKey, entry.getExpiryTime());
+      }
+   }
+
    @Override
    protected boolean supportsMultiThreadedPurge() {
       return true;
@@ -215,7 +240,22 @@ protected boolean supportsMultiThreadedPurge() {
    protected void purgeInternal() throws CacheLoaderException {
       if (trace) log.trace("purgeInternal()");
 
-      File[] files = listFilesStrict(root, NUMERIC_NAMED_FILES_FILTER);
+      File[] files;
+      final AtomicInteger pendingFullScan;
+      if (expiringBucketsIndexed) {
+         // only visit the buckets which may contain expired entries
+         List<Object> dueBuckets = expiringBuckets.pollDue(timeService.wallClockTime());
+         files = new File[dueBuckets.size()];
+         for (int i = 0; i < files.length; i++) {
+            files[i] = new File(root, String.valueOf(dueBuckets.get(i)));
+         }
+         pendingFullScan = null;
+      } else {
+         // visit every bucket, which indexes all of them for the following purges
+         files = listFilesStrict(root, NUMERIC_NAMED_FILES_FILTER);
+         pendingFullScan = new AtomicInteger(files.length);
+      }
+      if (trace) log.tracef("Purging %d bucket files", files.length);
 
       for (final File bucketFile : files) {
          if (multiThreadedPurge) {
@@ -223,7 +263,11 @@ protected void purgeInternal() throws CacheLoaderException {
                @Override
                public void run() {
                   boolean interrupted = !doPurge(bucketFile);
-                  if (interrupted) log.debug("Interrupted, so finish work.");
+                  if (interrupted) {
+                     log.debug("Interrupted, so finish work.");
+                  } else if (pendingFullScan != null && pendingFullScan.decrementAndGet() == 0) {
+                     expiringBucketsIndexed = true;
+                  }
                }
             });
          } else {
@@ -234,6 +278,9 @@ public void run() {
             }
          }
       }
+      if (pendingFullScan != null && (files.length == 0 || (!multiThreadedPurge && !Thread.currentThread().isInterrupted()))) {
+         expiringBucketsIndexed = true;
+      }
    }
 
    /**
@@ -255,6 +302,7 @@ private boolean doPurge(File bucketFile) {
                upgradeLock(bucketKey);
                updateBucket(bucket);
             }
+            scheduleExpiringBucket(bucket);
          } else {
             // Bucket may be an empty 0-length file
             if (bucketFile.exists() && bucketFile.length() == 0) {
@@ -274,6 +322,57 @@ private boolean doPurge(File bucketFile) {
       return !interrupted;
    }
 
+   /**
+    * Indexes a bucket by the earliest expiry time of its entries, if any of them can expire. Must be called while
+    * holding the lock of the bucket.
+    */
+   private void scheduleExpiringBucket(Bucket bucket) {
+      long earliestExpiry = Long.MAX_VALUE;
+      for (InternalCacheEntry entry : bucket.getStoredEntries()) {
+         if (entry.canExpire() && entry.getExpiryTime() < earliestExpiry) {
+            earliestExpiry = entry.getExpiryTime();
+         }
+      }
+      if (earliestExpiry != Long.MAX_VALUE) {
+         expiringBuckets.scheduleIfEarlier(bucket.getBucketId(), earliestExpiry);
+      }
+   }
+
+   /**
+    * {@inheritDoc} This implementation lists the bucket files, then reads them one at a time as the iteration
+    * proceeds, holding only the lock of the bucket being read.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(KeyFilter filter) throws CacheLoaderException {
+      File[] listFiles = root == null ? null : root.listFiles(NUMERIC_NAMED_FILES_FILTER);
+      final File[] bucketFiles = listFiles == null ? new File[0] : listFiles;
+      return new BucketEntryIterator(filter) {
+         private int next;
+
+         @Override
+         protected Bucket nextBucket() throws CacheLoaderException {
+            while (next < bucketFiles.length) {
+               File bucketFile = bucketFiles[next++];
+               Integer bucketId = Integer.valueOf(bucketFile.getName());
+               lockForReading(bucketId);
+               try {
+                  Bucket bucket = loadBucket(bucketFile);
+                  if (bucket != null) return bucket;
+               } catch (InterruptedException ie) {
+                  if (log.isDebugEnabled()) {
+                     log.debug("Interrupted, so stop iterating over buckets.");
+                  }
+                  Thread.currentThread().interrupt();
+                  return null;
+               } finally {
+                  unlock(bucketId);
+               }
+            }
+            return null;
+         }
+      };
+   }
+
    @Override
    protected Bucket loadBucket(Integer hash) throws CacheLoaderException {
       try {
@@ -390,6 +489,8 @@ public void start() throws CacheLoaderException {
    public void stop() throws CacheLoaderException {
       super.stop();
       fileSync.stop();
+      expiringBuckets.clear();
+      expiringBucketsIndexed = false;
    }
 
    public Bucket loadBucketContainingKey(String key) throws CacheLoaderException {
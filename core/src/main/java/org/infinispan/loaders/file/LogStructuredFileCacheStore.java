@@ -0,0 +1,977 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.loaders.file;
+
+import org.infinispan.Cache;
+import org.infinispan.config.ConfigurationException;
+import org.infinispan.container.ExpirationIndex;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
+import org.infinispan.loaders.CacheLoaderConfig;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.LockSupportCacheStore;
+import org.infinispan.loaders.StoredEntryIterator;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.CollectionFactory;
+import org.infinispan.util.Util;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A log-structured file store.  Instead of rewriting a file on every modification, entries are appended to a log made
+ * of numbered files, <tt>/{location}/cache name/{file number}.log</tt>, and an in-memory index maps every key to the
+ * position of its latest record.  A store is therefore a single sequential write, and a load a single positioned read.
+ * <p/>
+ * Removals append a tombstone record.  Superseded records and tombstones are reclaimed by a background compactor,
+ * which copies the live records of the files whose live fraction falls below
+ * {@link LogStructuredFileCacheStoreConfig#getCompactionThreshold()} to the end of the log, then deletes the files.
+ * <p/>
+ * Keys are held in memory, so this store suits caches whose key set fits in memory and whose values don't.  On
+ * {@link #stop()} the index is written to a snapshot file, which the next {@link #start()} loads instead of reading
+ * every log file.  If the store was not stopped cleanly, the index is rebuilt by replaying the log files in order;
+ * records are checksummed, so a record torn by a crash is detected and ignored.
+ *
+ * @since 5.3
+ */
+@CacheLoaderMetadata(configurationClass = LogStructuredFileCacheStoreConfig.class)
+public class LogStructuredFileCacheStore extends LockSupportCacheStore<Integer> {
+
+   private static final Log log = LogFactory.getLog(LogStructuredFileCacheStore.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   static final String LOG_FILE_SUFFIX = ".log";
+   static final String INDEX_SNAPSHOT = "index.snapshot";
+   private static final int SNAPSHOT_VERSION = 2;
+
+   /**
+    * Record layout: checksum (int), key length (int), value length (int, {@link #TOMBSTONE} for removals), expiry time
+    * (long, -1 if immortal), key bytes, value bytes. The checksum covers everything after itself.
+    */
+   private static final int HEADER_SIZE = 20;
+   private static final int TOMBSTONE = -1;
+
+   private static final FilenameFilter LOG_FILES_FILTER = new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+         if (!name.endsWith(LOG_FILE_SUFFIX))
+            return false;
+         String id = name.substring(0, name.length() - LOG_FILE_SUFFIX.length());
+         if (id.length() == 0)
+            return false;
+         for (int i = 0; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i)))
+               return false;
+         }
+         return true;
+      }
+   };
+
+   private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+
+   private LogStructuredFileCacheStoreConfig config;
+   private File root;
+   private ConcurrentMap<Object, IndexEntry> index;
+   private final ConcurrentSkipListMap<Integer, LogFile> files = new ConcurrentSkipListMap<Integer, LogFile>();
+   private final ExpirationIndex expiringKeys = new ExpirationIndex(16);
+
+   private final Object appendLock = new Object();
+   private volatile LogFile activeFile;
+
+   private ExecutorService compactor;
+   private final AtomicBoolean compactionPending = new AtomicBoolean();
+
+   @Override
+   public void init(CacheLoaderConfig config, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException {
+      super.init(config, cache, m);
+      this.config = (LogStructuredFileCacheStoreConfig) config;
+   }
+
+   @Override
+   public Class<? extends CacheLoaderConfig> getConfigurationClass() {
+      return LogStructuredFileCacheStoreConfig.class;
+   }
+
+   /**
+    * @return directory where the log files of this store are written.
+    */
+   public File getRoot() {
+      return root;
+   }
+
+   @Override
+   public void start() throws CacheLoaderException {
+      super.start();
+      String location = config.getLocation();
+      if (location == null || location.trim().length() == 0) {
+         location = "Infinispan-LogStructuredFileCacheStore"; // use relative path!
+      }
+      root = new File(location, cache.getName());
+      if (!root.exists() && !root.mkdirs()) {
+         log.problemsCreatingDirectory(root);
+      }
+      if (!root.exists()) {
+         throw new ConfigurationException("Directory " + root.getAbsolutePath() + " does not exist and cannot be created!");
+      }
+
+      index = CollectionFactory.makeConcurrentMap(1024);
+      try {
+         File[] logFiles = root.listFiles(LOG_FILES_FILTER);
+         if (logFiles != null) {
+            for (File file : logFiles) {
+               LogFile logFile = new LogFile(parseFileId(file), file);
+               files.put(logFile.id, logFile);
+            }
+         }
+         File snapshot = new File(root, INDEX_SNAPSHOT);
+         if (!snapshot.exists() || !loadIndexSnapshot(snapshot)) {
+            rebuildIndex();
+         }
+         // From now on the log files change, so the snapshot must not be trusted after a crash
+         if (snapshot.exists() && !snapshot.delete()) {
+            log.problemsRemovingFile(snapshot);
+         }
+
+         Map.Entry<Integer, LogFile> last = files.lastEntry();
+         if (last != null && last.getValue().size < config.getMaxFileSize()) {
+            activeFile = last.getValue();
+         } else {
+            activeFile = createLogFile(last == null ? 0 : last.getKey() + 1);
+         }
+      } catch (IOException e) {
+         closeFiles();
+         throw new CacheLoaderException("Unable to open the log files in " + root, e);
+      }
+
+      final String threadName = (cache.getName() == null ? "" : cache.getName() + '-') + "LogCompactor-";
+      compactor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, threadName + THREAD_COUNTER.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      log.debugf("Started log-structured store in %s with %d log files and %d entries", root, files.size(), index.size());
+   }
+
+   @Override
+   public void stop() throws CacheLoaderException {
+      compactor.shutdownNow();
+      try {
+         compactor.awaitTermination(config.getLockAcquistionTimeout(), TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      boolean locked = acquireGlobalLock(true);
+      try {
+         writeIndexSnapshot();
+      } finally {
+         closeFiles();
+         index.clear();
+         expiringKeys.clear();
+         if (locked) {
+            releaseGlobalLock(true);
+         }
+      }
+      super.stop();
+   }
+
+   @Override
+   public boolean containsKey(Object key) throws CacheLoaderException {
+      Integer lockingKey = getLockFromKey(key);
+      lockForReading(lockingKey);
+      try {
+         IndexEntry entry = index.get(key);
+         return entry != null && !entry.isExpired(timeService.wallClockTime());
+      } finally {
+         unlock(lockingKey);
+      }
+   }
+
+   @Override
+   protected InternalCacheEntry loadLockSafe(Object key, Integer lockingKey) throws CacheLoaderException {
+      IndexEntry entry = index.get(key);
+      // Like the other stores, expired entries are not removed here but left to the purge
+      if (entry == null || entry.isExpired(timeService.wallClockTime())) {
+         return null;
+      }
+      return readEntry(key, entry);
+   }
+
+   @Override
+   protected void storeLockSafe(InternalCacheEntry ed, Integer lockingKey) throws CacheLoaderException {
+      Object key = ed.getKey();
+      byte[] keyBytes = marshall(key);
+      byte[] valueBytes = marshall(ed.toInternalCacheValue());
+      long expiryTime = ed.canExpire() ? ed.getExpiryTime() : -1;
+      IndexEntry entry = append(encode(keyBytes, valueBytes, expiryTime), keyBytes.length, expiryTime, false);
+      updateIndex(key, entry);
+      if (expiryTime >= 0) {
+         expiringKeys.schedule(key, expiryTime);
+      } else {
+         expiringKeys.unschedule(key);
+      }
+   }
+
+   @Override
+   protected boolean removeLockSafe(Object key, Integer lockingKey) throws CacheLoaderException {
+      IndexEntry previous = index.remove(key);
+      if (previous == null) {
+         return false;
+      }
+      previous.file.liveBytes.addAndGet(-previous.size);
+      expiringKeys.unschedule(key);
+      byte[] keyBytes = marshall(key);
+      append(encode(keyBytes, null, -1), keyBytes.length, -1, true);
+      return true;
+   }
+
+   @Override
+   protected Set<InternalCacheEntry> loadAllLockSafe() throws CacheLoaderException {
+      return loadEntries(Integer.MAX_VALUE);
+   }
+
+   @Override
+   protected Set<InternalCacheEntry> loadLockSafe(int maxEntries) throws CacheLoaderException {
+      return loadEntries(maxEntries);
+   }
+
+   @Override
+   protected Set<Object> loadAllKeysLockSafe(Set<Object> keysToExclude) throws CacheLoaderException {
+      // Served from the index alone, without reading any log file
+      long now = timeService.wallClockTime();
+      Set<Object> keys = new HashSet<Object>();
+      for (Map.Entry<Object, IndexEntry> e : index.entrySet()) {
+         if (!e.getValue().isExpired(now) && (keysToExclude == null || !keysToExclude.contains(e.getKey()))) {
+            keys.add(e.getKey());
+         }
+      }
+      return keys;
+   }
+
+   /**
+    * {@inheritDoc} Keys are filtered on the index, so only the records of accepted keys are read from the log files.
+    */
+   @Override
+   public StoredEntryIterator entryIterator(final KeyFilter filter) throws CacheLoaderException {
+      final Iterator<Object> keys = index.keySet().iterator();
+      return new AbstractStoredEntryIterator() {
+         @Override
+         protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+            while (keys.hasNext()) {
+               Object key = keys.next();
+               if (filter.accept(key)) {
+                  InternalCacheEntry entry = load(key);
+                  if (entry != null) return entry;
+               }
+            }
+            return null;
+         }
+      };
+   }
+
+   @Override
+   protected void toStreamLockSafe(ObjectOutput oos) throws CacheLoaderException {
+      try {
+         Set<InternalCacheEntry> entries = loadAllLockSafe();
+         for (InternalCacheEntry entry : entries) {
+            marshaller.objectToObjectStream(entry, oos);
+         }
+         marshaller.objectToObjectStream(null, oos);
+         if (trace) {
+            log.tracef("Wrote %d entries to stream", entries.size());
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("I/O exception while generating stream", e);
+      }
+   }
+
+   @Override
+   protected void fromStreamLockSafe(ObjectInput ois) throws CacheLoaderException {
+      try {
+         long now = timeService.wallClockTime();
+         int count = 0;
+         while (true) {
+            InternalCacheEntry entry = (InternalCacheEntry) marshaller.objectFromObjectStream(ois);
+            if (entry == null) {
+               break;
+            }
+            if (!entry.canExpire() || !entry.isExpired(now)) {
+               storeLockSafe(entry, getLockFromKey(entry.getKey()));
+               count++;
+            }
+         }
+         if (trace) {
+            log.tracef("Read %d entries from stream", count);
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("I/O error", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException("Unexpected exception", e);
+      } catch (InterruptedException e) {
+         if (trace) {
+            log.trace("Interrupted while reading from stream");
+         }
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   @Override
+   protected void clearLockSafe() throws CacheLoaderException {
+      synchronized (appendLock) {
+         index.clear();
+         expiringKeys.clear();
+         for (LogFile file : files.values()) {
+            deleteLogFile(file);
+         }
+         try {
+            activeFile = createLogFile(0);
+         } catch (IOException e) {
+            throw new CacheLoaderException("Unable to create a log file in " + root, e);
+         }
+      }
+   }
+
+   @Override
+   protected void purgeInternal() throws CacheLoaderException {
+      if (trace) log.trace("purgeInternal()");
+      long now = timeService.wallClockTime();
+      List<Object> dueKeys = expiringKeys.pollDue(now);
+      if (trace) log.tracef("Checking %d keys for expiration", dueKeys.size());
+      for (Object key : dueKeys) {
+         Integer lockingKey = getLockFromKey(key);
+         lockForWriting(lockingKey);
+         try {
+            IndexEntry entry = index.get(key);
+            if (entry != null && entry.expiryTime >= 0) {
+               if (entry.isExpired(now)) {
+                  removeLockSafe(key, lockingKey);
+               } else {
+                  expiringKeys.schedule(key, entry.expiryTime);
+               }
+            }
+         } finally {
+            unlock(lockingKey);
+         }
+      }
+      scheduleCompaction();
+   }
+
+   @Override
+   protected Integer getLockFromKey(Object key) {
+      return key.hashCode();
+   }
+
+   /**
+    * @return the number of log files currently making up the log.
+    */
+   public int getLogFileCount() {
+      return files.size();
+   }
+
+   /**
+    * Compacts the log files whose live fraction is below the configured threshold. Compaction normally happens in the
+    * background, whenever a log file is full or after a purge.
+    */
+   public void compact() {
+      LogFile active = activeFile;
+      for (LogFile file : files.values()) {
+         if (Thread.currentThread().isInterrupted()) {
+            return;
+         }
+         // A file rolled by a concurrent append is registered before it becomes the active one, skip it too
+         if (active == null || file == activeFile || file.id >= active.id) {
+            continue;
+         }
+         long live = file.liveBytes.get();
+         if (live == 0 && (file.tombstones.get() == 0 || isOldest(file))) {
+            if (trace) log.tracef("Deleting log file %s, it has no live entries", file.file);
+            deleteLogFile(file);
+         } else if (live < file.size * config.getCompactionThreshold()) {
+            compactFile(file);
+         }
+      }
+   }
+
+   private boolean isOldest(LogFile file) {
+      Map.Entry<Integer, LogFile> first = files.firstEntry();
+      return first == null || first.getValue() == file;
+   }
+
+   private void scheduleCompaction() {
+      if (compactionPending.compareAndSet(false, true)) {
+         try {
+            compactor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  compactionPending.set(false);
+                  compact();
+               }
+            });
+         } catch (RuntimeException e) {
+            // The store is being stopped
+            compactionPending.set(false);
+         }
+      }
+   }
+
+   /**
+    * Copies the records of a log file which are still needed to the end of the log, then deletes the file. Each record
+    * is moved while holding the lock of its key, so that it can not be reordered with a concurrent write of the same
+    * key.
+    */
+   private void compactFile(LogFile file) {
+      if (trace) log.tracef("Compacting log file %s, %d live bytes out of %d", file.file, file.liveBytes.get(), file.size);
+      RecordReader reader = null;
+      try {
+         reader = new RecordReader(file);
+         while (reader.next()) {
+            if (Thread.currentThread().isInterrupted()) {
+               return;
+            }
+            Object key = unmarshall(reader.keyBytes());
+            Integer lockingKey = getLockFromKey(key);
+            lockForWriting(lockingKey);
+            try {
+               if (reader.valueLength == TOMBSTONE) {
+                  // A tombstone is only needed while an older file may hold a record of the key, and as long as the
+                  // key has not been written again since
+                  if (!index.containsKey(key) && !isOldest(file)) {
+                     append(ByteBuffer.wrap(reader.record), reader.keyLength, -1, true);
+                  }
+               } else {
+                  IndexEntry entry = index.get(key);
+                  if (entry != null && entry.file == file && entry.offset == reader.offset) {
+                     updateIndex(key, append(ByteBuffer.wrap(reader.record), reader.keyLength, reader.expiryTime, false));
+                  }
+               }
+            } finally {
+               unlock(lockingKey);
+            }
+         }
+         if (!reader.corrupt) {
+            deleteLogFile(file);
+         }
+      } catch (Exception e) {
+         // The file may have been deleted by a concurrent clear
+         if (files.get(file.id) == file) {
+            log.errorCompactingLogFile(file.file, e);
+         }
+      } finally {
+         if (reader != null) {
+            reader.close();
+         }
+      }
+   }
+
+   private Set<InternalCacheEntry> loadEntries(int maxEntries) throws CacheLoaderException {
+      long now = timeService.wallClockTime();
+      List<Map.Entry<Object, IndexEntry>> live = new ArrayList<Map.Entry<Object, IndexEntry>>();
+      for (Map.Entry<Object, IndexEntry> e : index.entrySet()) {
+         if (live.size() >= maxEntries) {
+            break;
+         }
+         if (!e.getValue().isExpired(now)) {
+            live.add(e);
+         }
+      }
+      // Read the records in log order, so that the disk is read sequentially
+      Collections.sort(live, new Comparator<Map.Entry<Object, IndexEntry>>() {
+         @Override
+         public int compare(Map.Entry<Object, IndexEntry> e1, Map.Entry<Object, IndexEntry> e2) {
+            IndexEntry i1 = e1.getValue();
+            IndexEntry i2 = e2.getValue();
+            if (i1.file.id != i2.file.id) {
+               return i1.file.id < i2.file.id ? -1 : 1;
+            }
+            return i1.offset < i2.offset ? -1 : (i1.offset == i2.offset ? 0 : 1);
+         }
+      });
+      Set<InternalCacheEntry> entries = new HashSet<InternalCacheEntry>(live.size() * 4 / 3 + 1);
+      for (Map.Entry<Object, IndexEntry> e : live) {
+         entries.add(readEntry(e.getKey(), e.getValue()));
+      }
+      return entries;
+   }
+
+   private InternalCacheEntry readEntry(Object key, IndexEntry entry) throws CacheLoaderException {
+      ByteBuffer buffer = ByteBuffer.allocate(entry.size - HEADER_SIZE - entry.keyLength);
+      try {
+         readFully(entry.file.channel, buffer, entry.offset + HEADER_SIZE + entry.keyLength);
+      } catch (IOException e) {
+         log.errorReadingFromFile(entry.file.file, e);
+         throw new CacheLoaderException("Error while reading from file", e);
+      }
+      InternalCacheValue value = (InternalCacheValue) unmarshall(buffer.array());
+      return value.toInternalCacheEntry(key);
+   }
+
+   /**
+    * Updates the index with the new location of a key, keeping the live byte counts of the log files up to date. Must
+    * be called while holding the lock of the key.
+    */
+   private void updateIndex(Object key, IndexEntry entry) {
+      entry.file.liveBytes.addAndGet(entry.size);
+      IndexEntry previous = index.put(key, entry);
+      if (previous != null) {
+         previous.file.liveBytes.addAndGet(-previous.size);
+      }
+   }
+
+   private static ByteBuffer encode(byte[] key, byte[] value, long expiryTime) {
+      int valueLength = value == null ? TOMBSTONE : value.length;
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + key.length + (value == null ? 0 : value.length));
+      buffer.putInt(0).putInt(key.length).putInt(valueLength).putLong(expiryTime).put(key);
+      if (value != null) {
+         buffer.put(value);
+      }
+      buffer.putInt(0, checksum(buffer.array(), buffer.capacity()));
+      buffer.flip();
+      return buffer;
+   }
+
+   private static int checksum(byte[] record, int length) {
+      CRC32 crc = new CRC32();
+      crc.update(record, 4, length - 4);
+      return (int) crc.getValue();
+   }
+
+   /**
+    * Appends a record at the end of the log, starting a new log file if the current one is full.
+    */
+   private IndexEntry append(ByteBuffer record, int keyLength, long expiryTime, boolean tombstone) throws CacheLoaderException {
+      int size = record.remaining();
+      boolean rolled = false;
+      IndexEntry entry;
+      synchronized (appendLock) {
+         LogFile file = activeFile;
+         try {
+            if (file.size > 0 && file.size + size > config.getMaxFileSize()) {
+               file = activeFile = createLogFile(file.id + 1);
+               rolled = true;
+            }
+            long offset = file.size;
+            writeFully(file.channel, record, offset);
+            if (config.isSyncWrites()) {
+               file.channel.force(false);
+            }
+            file.size = offset + size;
+            if (tombstone) {
+               file.tombstones.incrementAndGet();
+            }
+            entry = new IndexEntry(file, offset, size, keyLength, expiryTime);
+         } catch (IOException e) {
+            throw new CacheLoaderException("Unable to write to log file " + file.file, e);
+         }
+      }
+      if (rolled) {
+         scheduleCompaction();
+      }
+      return entry;
+   }
+
+   private LogFile createLogFile(int id) throws IOException {
+      LogFile file = new LogFile(id, new File(root, id + LOG_FILE_SUFFIX));
+      files.put(id, file);
+      if (trace) log.tracef("Created log file %s", file.file);
+      return file;
+   }
+
+   private void deleteLogFile(LogFile file) {
+      if (files.remove(file.id, file)) {
+         file.close();
+         if (!file.file.delete()) {
+            log.problemsRemovingFile(file.file);
+         }
+      }
+   }
+
+   private void closeFiles() {
+      for (LogFile file : files.values()) {
+         file.close();
+      }
+      files.clear();
+      activeFile = null;
+   }
+
+   /**
+    * Rebuilds the index by replaying all the log files, oldest first.
+    */
+   private void rebuildIndex() throws IOException {
+      long now = timeService.wallClockTime();
+      for (LogFile file : files.values()) {
+         RecordReader reader = new RecordReader(file);
+         try {
+            while (reader.next()) {
+               Object key;
+               try {
+                  key = unmarshall(reader.keyBytes());
+               } catch (CacheLoaderException e) {
+                  throw new IOException("Unable to read key in " + file.file + " at offset " + reader.offset, e);
+               }
+               if (reader.valueLength == TOMBSTONE) {
+                  file.tombstones.incrementAndGet();
+                  IndexEntry previous = index.remove(key);
+                  if (previous != null) {
+                     previous.file.liveBytes.addAndGet(-previous.size);
+                  }
+               } else {
+                  updateIndex(key, new IndexEntry(file, reader.offset, reader.record.length, reader.keyLength, reader.expiryTime));
+               }
+            }
+            if (reader.corrupt) {
+               log.corruptLogFile(file.file, reader.position);
+               if (file == files.lastEntry().getValue()) {
+                  // Drop the torn record, so that new records are appended right after the last valid one
+                  file.channel.truncate(reader.position);
+                  file.size = reader.position;
+               }
+            }
+         } finally {
+            reader.close();
+         }
+      }
+      scheduleExpiringKeys(now);
+      log.debugf("Rebuilt the index from %d log files", files.size());
+   }
+
+   private void scheduleExpiringKeys(long now) {
+      for (Map.Entry<Object, IndexEntry> e : index.entrySet()) {
+         if (e.getValue().expiryTime >= 0) {
+            expiringKeys.schedule(e.getKey(), e.getValue().expiryTime);
+         }
+      }
+   }
+
+   private void writeIndexSnapshot() {
+      if (activeFile == null) {
+         return;
+      }
+      File snapshot = new File(root, INDEX_SNAPSHOT);
+      File tmp = new File(root, INDEX_SNAPSHOT + ".tmp");
+      DataOutputStream out = null;
+      try {
+         out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+         out.writeInt(SNAPSHOT_VERSION);
+         out.writeInt(files.size());
+         for (LogFile file : files.values()) {
+            file.channel.force(false);
+            out.writeInt(file.id);
+            out.writeLong(file.size);
+         }
+         out.writeInt(index.size());
+         for (Map.Entry<Object, IndexEntry> e : index.entrySet()) {
+            IndexEntry entry = e.getValue();
+            byte[] key = marshall(e.getKey());
+            out.writeInt(entry.file.id);
+            out.writeLong(entry.offset);
+            out.writeInt(entry.size);
+            out.writeLong(entry.expiryTime);
+            // the key is re-marshalled, which may not give the bytes of the record, so keep the record's own key length
+            out.writeInt(entry.keyLength);
+            out.writeInt(key.length);
+            out.write(key);
+         }
+         out.close();
+         out = null;
+         if (!tmp.renameTo(snapshot)) {
+            log.problemsRemovingFile(tmp);
+         }
+      } catch (Exception e) {
+         // Not fatal, the index will be rebuilt from the log files on the next start
+         log.debugf(e, "Unable to write the index snapshot of %s", root);
+      } finally {
+         Util.close(out);
+         if (tmp.exists() && !tmp.delete()) {
+            log.problemsRemovingFile(tmp);
+         }
+      }
+   }
+
+   /**
+    * Loads the index written by the last {@link #stop()}, provided that the log files have not changed since.
+    *
+    * @return true if the index was loaded, false if it has to be rebuilt from the log files
+    */
+   private boolean loadIndexSnapshot(File snapshot) {
+      DataInputStream in = null;
+      try {
+         in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)));
+         if (in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unknown snapshot version");
+         }
+         int numFiles = in.readInt();
+         if (numFiles != files.size()) {
+            throw new IOException("Expected " + numFiles + " log files, found " + files.size());
+         }
+         for (int i = 0; i < numFiles; i++) {
+            int id = in.readInt();
+            long size = in.readLong();
+            LogFile file = files.get(id);
+            if (file == null || file.size != size) {
+               throw new IOException("Log file " + id + " has been modified since the snapshot was taken");
+            }
+         }
+         long now = timeService.wallClockTime();
+         int numEntries = in.readInt();
+         for (int i = 0; i < numEntries; i++) {
+            LogFile file = files.get(in.readInt());
+            long offset = in.readLong();
+            int size = in.readInt();
+            long expiryTime = in.readLong();
+            int keyLength = in.readInt();
+            if (file == null || keyLength <= 0 || keyLength > size - HEADER_SIZE) {
+               throw new IOException("Invalid index entry at offset " + offset);
+            }
+            byte[] key = new byte[in.readInt()];
+            in.readFully(key);
+            updateIndex(unmarshall(key), new IndexEntry(file, offset, size, keyLength, expiryTime));
+         }
+         // The tombstone counts are not in the snapshot, assume every file may hold some
+         for (LogFile file : files.values()) {
+            file.tombstones.set(1);
+         }
+         scheduleExpiringKeys(now);
+         log.debugf("Loaded the index snapshot of %s", root);
+         return true;
+      } catch (Exception e) {
+         log.ignoringIndexSnapshot(snapshot, e);
+         index.clear();
+         for (LogFile file : files.values()) {
+            file.liveBytes.set(0);
+         }
+         return false;
+      } finally {
+         Util.close(in);
+      }
+   }
+
+   private byte[] marshall(Object o) throws CacheLoaderException {
+      try {
+         return marshaller.objectToByteBuffer(o);
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to marshall " + o, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while marshalling " + o, e);
+      }
+   }
+
+   private Object unmarshall(byte[] bytes) throws CacheLoaderException {
+      try {
+         return marshaller.objectFromByteBuffer(bytes);
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to unmarshall", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException("Unable to unmarshall", e);
+      }
+   }
+
+   private static int parseFileId(File file) {
+      String name = file.getName();
+      return Integer.parseInt(name.substring(0, name.length() - LOG_FILE_SUFFIX.length()));
+   }
+
+   private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+      while (buffer.hasRemaining()) {
+         if (channel.read(buffer, position + buffer.position()) < 0) {
+            throw new EOFException();
+         }
+      }
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+      int start = buffer.position();
+      while (buffer.hasRemaining()) {
+         channel.write(buffer, position + buffer.position() - start);
+      }
+   }
+
+   /**
+    * One file of the log. Only the active file is appended to, the others are immutable until they are compacted.
+    */
+   private static final class LogFile {
+      final int id;
+      final File file;
+      final RandomAccessFile raf;
+      final FileChannel channel;
+      /**
+       * Bytes written to the file, guarded by the append lock
+       */
+      volatile long size;
+      /**
+       * Bytes of the records the index points to
+       */
+      final AtomicLong liveBytes = new AtomicLong();
+      /**
+       * Upper bound of the number of tombstones in the file
+       */
+      final AtomicInteger tombstones = new AtomicInteger();
+
+      LogFile(int id, File file) throws IOException {
+         this.id = id;
+         this.file = file;
+         this.raf = new RandomAccessFile(file, "rw");
+         this.channel = raf.getChannel();
+         this.size = channel.size();
+      }
+
+      void close() {
+         try {
+            raf.close();
+         } catch (IOException e) {
+            log.debugf(e, "Error closing log file %s", file);
+         }
+      }
+   }
+
+   /**
+    * Location of the latest record of a key.
+    */
+   private static final class IndexEntry {
+      final LogFile file;
+      final long offset;
+      final int size;
+      final int keyLength;
+      final long expiryTime;
+
+      IndexEntry(LogFile file, long offset, int size, int keyLength, long expiryTime) {
+         this.file = file;
+         this.offset = offset;
+         this.size = size;
+         this.keyLength = keyLength;
+         this.expiryTime = expiryTime;
+      }
+
+      boolean isExpired(long now) {
+         return expiryTime >= 0 && expiryTime <= now;
+      }
+   }
+
+   /**
+    * Reads the records of a log file sequentially, stopping at the first record which is incomplete or whose checksum
+    * doesn't match.
+    */
+   private static final class RecordReader {
+      private final DataInputStream in;
+      private final long length;
+      long position;
+      boolean corrupt;
+
+      // the current record
+      long offset;
+      byte[] record;
+      int keyLength;
+      int valueLength;
+      long expiryTime;
+
+      RecordReader(LogFile file) throws IOException {
+         this.length = file.size;
+         this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file.file), 64 * 1024));
+      }
+
+      boolean next() throws IOException {
+         if (position == length) {
+            return false;
+         }
+         if (length - position < HEADER_SIZE) {
+            corrupt = true;
+            return false;
+         }
+         byte[] header = new byte[HEADER_SIZE];
+         in.readFully(header);
+         ByteBuffer buffer = ByteBuffer.wrap(header);
+         int checksum = buffer.getInt();
+         int keyLength = buffer.getInt();
+         int valueLength = buffer.getInt();
+         long expiryTime = buffer.getLong();
+         long size = (long) HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+         if (keyLength <= 0 || valueLength < TOMBSTONE || size > length - position) {
+            corrupt = true;
+            return false;
+         }
+         byte[] record = new byte[(int) size];
+         System.arraycopy(header, 0, record, 0, HEADER_SIZE);
+         in.readFully(record, HEADER_SIZE, record.length - HEADER_SIZE);
+         if (checksum(record, record.length) != checksum) {
+            corrupt = true;
+            return false;
+         }
+         this.offset = position;
+         this.record = record;
+         this.keyLength = keyLength;
+         this.valueLength = valueLength;
+         this.expiryTime = expiryTime;
+         position += size;
+         return true;
+      }
+
+      byte[] keyBytes() {
+         byte[] key = new byte[keyLength];
+         System.arraycopy(record, HEADER_SIZE, key, 0, keyLength);
+         return key;
+      }
+
+      void close() {
+         Util.close(in);
+      }
+   }
+}
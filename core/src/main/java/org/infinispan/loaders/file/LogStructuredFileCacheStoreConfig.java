@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.file;
+
+import org.infinispan.loaders.LockSupportCacheStoreConfig;
+
+/**
+ * Configures {@link LogStructuredFileCacheStore}.
+ * <p/>
+ *    <ul>
+ *       <li><tt>location</tt> - a location on disk where the store writes its log files.  This defaults to
+ * <tt>Infinispan-LogStructuredFileCacheStore</tt> in the current working directory.</li>
+ *       <li><tt>maxFileSize</tt> - size in bytes after which the store stops appending to the current log file and
+ * starts a new one.  Only full log files are compacted, so smaller files reclaim space sooner at the cost of more
+ * open files.  By default, this is set to <tt>16777216</tt> (16MB).</li>
+ *       <li><tt>compactionThreshold</tt> - a log file is compacted, i.e. its live entries are copied to the current log
+ * file and the file is deleted, once the fraction of its bytes which still belong to live entries falls below this
+ * value.  By default, this is set to <tt>0.5</tt>.</li>
+ *       <li><tt>syncWrites</tt> - whether every write is forced to the disk before returning.  By default, this is set
+ * to <tt>false</tt>, and writes are only guaranteed to reach the disk when the store is stopped.</li>
+ *       <li><tt>purgeSynchronously</tt> - whether {@link org.infinispan.loaders.CacheStore#purgeExpired()} calls happen
+ * synchronously or not.  By default, this is set to <tt>false</tt>.</li>
+ *    <li><tt>lockConcurrencyLevel</tt> - locking granularity is per key.  This setting defines the number of
+ * shared locks to use.  By default, this is set to <tt>2048</tt>.</li>
+ *    <li><tt>lockAcquistionTimeout</tt> - the length of time, in milliseconds, to wait for locks
+ * before timing out and throwing an exception.  By default, this is set to <tt>60000</tt>.</li>
+ * </ul>
+ *
+ * @since 5.3
+ */
+public class LogStructuredFileCacheStoreConfig extends LockSupportCacheStoreConfig {
+
+   private static final long serialVersionUID = -3364437233429146434L;
+
+   private String location = "Infinispan-LogStructuredFileCacheStore";
+   private long maxFileSize = 16 * 1024 * 1024;
+   private float compactionThreshold = 0.5f;
+   private boolean syncWrites = false;
+
+   public LogStructuredFileCacheStoreConfig() {
+      setCacheLoaderClassName(LogStructuredFileCacheStore.class.getName());
+   }
+
+   public String getLocation() {
+      return location;
+   }
+
+   public void setLocation(String location) {
+      testImmutability("location");
+      this.location = location;
+   }
+
+   public LogStructuredFileCacheStoreConfig location(String location) {
+      setLocation(location);
+      return this;
+   }
+
+   public long getMaxFileSize() {
+      return maxFileSize;
+   }
+
+   public void setMaxFileSize(long maxFileSize) {
+      testImmutability("maxFileSize");
+      this.maxFileSize = maxFileSize;
+   }
+
+   public LogStructuredFileCacheStoreConfig maxFileSize(long maxFileSize) {
+      setMaxFileSize(maxFileSize);
+      return this;
+   }
+
+   public float getCompactionThreshold() {
+      return compactionThreshold;
+   }
+
+   public void setCompactionThreshold(float compactionThreshold) {
+      testImmutability("compactionThreshold");
+      this.compactionThreshold = compactionThreshold;
+   }
+
+   public LogStructuredFileCacheStoreConfig compactionThreshold(float compactionThreshold) {
+      setCompactionThreshold(compactionThreshold);
+      return this;
+   }
+
+   public boolean isSyncWrites() {
+      return syncWrites;
+   }
+
+   public void setSyncWrites(boolean syncWrites) {
+      testImmutability("syncWrites");
+      this.syncWrites = syncWrites;
+   }
+
+   public LogStructuredFileCacheStoreConfig syncWrites(boolean syncWrites) {
+      setSyncWrites(syncWrites);
+      return this;
+   }
+
+   // Method overrides below are used to make configuration more fluent.
+
+   @Override
+   public LogStructuredFileCacheStoreConfig purgeOnStartup(Boolean purgeOnStartup) {
+      super.purgeOnStartup(purgeOnStartup);
+      return this;
+   }
+
+   @Override
+   public LogStructuredFileCacheStoreConfig purgeSynchronously(Boolean purgeSynchronously) {
+      super.purgeSynchronously(purgeSynchronously);
+      return this;
+   }
+
+   @Override
+   public LogStructuredFileCacheStoreConfig fetchPersistentState(Boolean fetchPersistentState) {
+      super.fetchPersistentState(fetchPersistentState);
+      return this;
+   }
+
+   @Override
+   public LogStructuredFileCacheStoreConfig ignoreModifications(Boolean ignoreModifications) {
+      super.ignoreModifications(ignoreModifications);
+      return this;
+   }
+}
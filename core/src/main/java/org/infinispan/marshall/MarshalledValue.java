@@ -74,6 +74,8 @@ public final class MarshalledValue implements Serializable {
    volatile protected Object instance;
    volatile protected MarshalledValueByteStream raw;
    volatile protected int serialisedSize = 128; //size of serialized representation: initial value is a guess
+   // whether serialisedSize is the actual size of the serialized representation rather than the initial guess
+   volatile private boolean serialisedSizeKnown;
    volatile private int cachedHashCode = 0;
    // by default equals() will test on the instance rather than the byte array if conversion is required.
    private transient volatile boolean equalityPreferenceForInstance = true;
@@ -97,6 +99,7 @@ private void init(byte[] raw, int cachedHashCode) {
       // for unmarshalling
       this.raw = new ImmutableMarshalledValueByteStream(raw);
       this.serialisedSize = raw.length;
+      this.serialisedSizeKnown = true;
       this.cachedHashCode = cachedHashCode;
    }
 
@@ -121,6 +124,7 @@ private MarshalledValueByteStream serialize0() {
                marshaller.finishObjectOutput(out);
             }
             serialisedSize = baos.size();
+            serialisedSizeKnown = true;
             localRaw = baos;
             raw = baos;
          } catch (Exception e) {
@@ -206,6 +210,23 @@ public MarshalledValueByteStream getRaw() {
       return rawValue;
    }
 
+   /**
+    * Returns the size of the serialized representation of this value, without forcing serialization. Until the value
+    * has been serialized at least once, this is only a guess.
+    */
+   public int getSerialisedSize() {
+      return serialisedSize;
+   }
+
+   /**
+    * Returns the size of the serialized representation of this value, without forcing serialization, or -1 if the
+    * value has never been serialized. Once known, the size doesn't change, even if the serialized representation is
+    * later released by {@link #compact(boolean, boolean)}.
+    */
+   public int getKnownSerialisedSize() {
+      return serialisedSizeKnown ? serialisedSize : -1;
+   }
+
    /**
     * Returns the 'cached' instance
     */
@@ -82,6 +82,7 @@
 import org.infinispan.marshall.exts.ReplicableCommandExternalizer;
 import org.infinispan.marshall.exts.SetExternalizer;
 import org.infinispan.marshall.exts.SingletonListExternalizer;
+import org.infinispan.statetransfer.SegmentDigest;
 import org.infinispan.statetransfer.StateChunk;
 import org.infinispan.statetransfer.TransactionInfo;
 import org.infinispan.remoting.responses.ExceptionResponse;
@@ -307,6 +308,7 @@ private void loadInternalMarshallables() {
       addInternalExternalizer(new CacheJoinInfo.Externalizer());
       addInternalExternalizer(new TransactionInfo.Externalizer());
       addInternalExternalizer(new StateChunk.Externalizer());
+      addInternalExternalizer(new SegmentDigest.Externalizer());
 
       addInternalExternalizer(new Flag.Externalizer());
 
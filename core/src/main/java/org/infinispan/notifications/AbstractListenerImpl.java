@@ -95,6 +95,11 @@ protected List<ListenerInvocation> getListenerCollectionForAnnotation(Class<? ex
       return list;
    }
 
+   public boolean hasListener(Class<? extends Annotation> annotationClass) {
+      List<ListenerInvocation> list = listenersMap.get(annotationClass);
+      return list != null && !list.isEmpty();
+   }
+
    public void removeListener(Object listener) {
       for (Class<? extends Annotation> annotation : getAllowedMethodAnnotations().keySet())
          removeListenerInvocation(annotation, listener);
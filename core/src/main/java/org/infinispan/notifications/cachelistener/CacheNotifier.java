@@ -31,6 +31,7 @@
 import org.infinispan.notifications.Listenable;
 import org.infinispan.transaction.xa.GlobalTransaction;
 
+import java.lang.annotation.Annotation;
 import java.util.Collection;
 
 /**
@@ -42,6 +43,14 @@
 @Scope(Scopes.NAMED_CACHE)
 public interface CacheNotifier extends Listenable {
 
+   /**
+    * Tells whether any listener is registered for the given event.
+    *
+    * @param annotationClass the annotation of the event, e.g. {@link org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited}
+    * @since 5.3
+    */
+   boolean hasListener(Class<? extends Annotation> annotationClass);
+
    /**
     * Notifies all registered listeners of a CacheEntryCreated event.
     */
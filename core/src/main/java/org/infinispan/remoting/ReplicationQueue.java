@@ -24,6 +24,9 @@
 
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.lifecycle.Lifecycle;
+import org.infinispan.remoting.transport.Address;
+
+import java.util.Collection;
 
 /**
  * Periodically (or when certain size is exceeded) takes elements and replicates them.
@@ -47,6 +50,15 @@ public interface ReplicationQueue extends Lifecycle {
     */
    void add(ReplicableCommand job);
 
+   /**
+    * Adds a new command to the replication queue, to be sent to the given recipients only.
+    *
+    * @param recipients recipients of the command, or null if it must be sent to all the members of the cluster
+    * @param job command to add to the queue
+    * @since 5.3
+    */
+   void add(Collection<Address> recipients, ReplicableCommand job);
+
    /**
     * Flushes existing jobs in the replication queue, and returns the number of jobs flushed.
     * @return the number of jobs flushed
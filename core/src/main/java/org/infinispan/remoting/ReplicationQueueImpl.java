@@ -23,35 +23,72 @@
 package org.infinispan.remoting;
 
 import org.infinispan.Cache;
+import org.infinispan.atomic.Delta;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.write.ClearCommand;
+import org.infinispan.commands.write.DataWriteCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.configuration.cache.AsyncConfiguration;
 import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.context.Flag;
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
+import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.AnyEquivalence;
+import org.infinispan.util.CollectionFactory;
+import org.infinispan.util.DefaultTimeService;
+import org.infinispan.util.Histogram;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A default implementation of the ReplicationQueue interface.
+ * <p/>
+ * The queue is flushed when it holds {@link AsyncConfiguration#replQueueMaxElements()} commands, when the estimated
+ * size of the queued commands reaches {@link AsyncConfiguration#replQueueMaxBytes()}, or when the oldest command has
+ * waited for {@link AsyncConfiguration#replQueueInterval()} milliseconds, whichever comes first.
+ * <p/>
+ * On flush, the commands are grouped by destination and each group is sent as a single {@link MultipleRpcCommand}.
+ * Commands which are not data writes (e.g. transaction commands or a clear) act as barriers: the commands queued before
+ * them are sent first, so that no node sees them out of order. Within a group, an unconditional put or remove
+ * overwrites any earlier put or remove of the same key, so only the last one is sent.
  *
  * @author Manik Surtani
  * @version 4.2
  */
+@MBean(objectName = "ReplicationQueue", description = "Batches asynchronous replication calls")
 public class ReplicationQueueImpl implements ReplicationQueue {
    private static final Log log = LogFactory.getLog(ReplicationQueue.class);
 
@@ -60,10 +97,16 @@ public class ReplicationQueueImpl implements ReplicationQueue {
     */
    private long maxElements = 500;
 
+   /**
+    * Max estimated size of the queued commands before we flush, 0 if unlimited
+    */
+   private long maxBytes = 0;
+
    /**
     * Holds the replication jobs.
     */
-   private final BlockingQueue<ReplicableCommand> elements = new LinkedBlockingQueue<ReplicableCommand>();
+   private final BlockingQueue<QueuedCommand> elements = new LinkedBlockingQueue<QueuedCommand>();
+   private final AtomicLong queuedBytes = new AtomicLong();
 
    /**
     * For periodical replication
@@ -73,10 +116,17 @@ public class ReplicationQueueImpl implements ReplicationQueue {
    private Configuration configuration;
    private boolean enabled;
    private CommandsFactory commandsFactory;
+   private StreamingMarshaller marshaller;
+   private TimeService timeService = new DefaultTimeService();
    private volatile ScheduledFuture<?> scheduledFuture;
    private boolean trace;
    private String cacheName;
 
+   private final AtomicLong flushes = new AtomicLong();
+   private final AtomicLong coalescedCommands = new AtomicLong();
+   private final Histogram batchSizes = new Histogram();
+   private final Histogram flushLatencies = new Histogram();
+
    /**
     * @return true if this replication queue is enabled, false otherwise.
     */
@@ -101,6 +151,13 @@ public void injectDependencies(ScheduledExecutorService executor,
       this.cacheName = cacheName;
    }
 
+   @Inject
+   public void injectMarshaller(@ComponentName(KnownComponentNames.CACHE_MARSHALLER) StreamingMarshaller marshaller,
+                                TimeService timeService) {
+      this.marshaller = marshaller;
+      this.timeService = timeService;
+   }
+
    /**
     * Starts the asynchronous flush queue.
     */
@@ -111,9 +168,11 @@ public void start() {
       long interval = asyncCfg.replQueueInterval();
       trace = log.isTraceEnabled();
       if (trace)
-         log.tracef("Starting replication queue, with interval %d and maxElements %s", interval, maxElements);
+         log.tracef("Starting replication queue, with interval %d, maxElements %s and maxBytes %s", interval,
+                    asyncCfg.replQueueMaxElements(), asyncCfg.replQueueMaxBytes());
 
       this.maxElements = asyncCfg.replQueueMaxElements();
+      this.maxBytes = asyncCfg.replQueueMaxBytes();
       // check again
       enabled = asyncCfg.useReplQueue();
       if (enabled && interval > 0) {
@@ -149,11 +208,19 @@ public void stop() {
 
    @Override
    public void add(ReplicableCommand job) {
+      add(null, job);
+   }
+
+   @Override
+   public void add(Collection<Address> recipients, ReplicableCommand job) {
       if (job == null)
          throw new NullPointerException("job is null");
       try {
-         elements.put(job);
-         if (elements.size() >= maxElements) flush();
+         Set<Address> destination = recipients == null ? null : new HashSet<Address>(recipients);
+         long size = maxBytes > 0 ? estimateSize(job) : 0;
+         elements.put(new QueuedCommand(job, destination, size, timeService.time()));
+         long bytes = size > 0 ? queuedBytes.addAndGet(size) : 0;
+         if (elements.size() >= maxElements || (maxBytes > 0 && bytes >= maxBytes)) flush();
       } catch (InterruptedException ie) {
          Thread.interrupted();
       }
@@ -161,30 +228,56 @@ public void add(ReplicableCommand job) {
 
    @Override
    public synchronized int flush() {
-      List<ReplicableCommand> toReplicate = drainReplQueue();
+      List<QueuedCommand> toReplicate = drainReplQueue();
       if (trace) log.tracef("flush(): flushing repl queue (num elements=%s)", toReplicate.size());
 
       int toReplicateSize = toReplicate.size();
       if (toReplicateSize > 0) {
-         try {
-            log.tracef("Flushing %s elements", toReplicateSize);
-            MultipleRpcCommand multipleRpcCommand = commandsFactory.buildReplicateCommand(toReplicate);
-            // send to all live caches in the cluster
-            //default rpc options
-            rpcManager.invokeRemotely(null, multipleRpcCommand,
-                                      rpcManager.getRpcOptionsBuilder(ResponseMode.getAsyncResponseMode(configuration))
-                                            .skipReplicationQueue(true).build());
-         } catch (Throwable t) {
-            log.failedReplicatingQueue(toReplicate.size(), t);
+         long now = timeService.time();
+         flushes.incrementAndGet();
+         batchSizes.record(toReplicateSize);
+         flushLatencies.record(timeService.timeDuration(toReplicate.get(0).enqueueTime, now, TimeUnit.MICROSECONDS));
+
+         // Commands pending replication, by destination (null meaning all the members)
+         Map<Set<Address>, List<ReplicableCommand>> groups = new LinkedHashMap<Set<Address>, List<ReplicableCommand>>();
+         // The destination of the keys written by the pending commands
+         Map<Object, Set<Address>> keyDestinations = CollectionFactory.makeMap(
+               configuration.dataContainer().keyEquivalence(), AnyEquivalence.<Set<Address>>getInstance());
+         for (QueuedCommand queued : toReplicate) {
+            if (queued.command instanceof DataWriteCommand) {
+               Object key = ((DataWriteCommand) queued.command).getKey();
+               Set<Address> previous = keyDestinations.get(key);
+               if (previous != null && !sameDestination(previous, queued.destination)) {
+                  // The owners of the key changed, don't let the new owners see the writes out of order
+                  replicate(groups);
+                  keyDestinations.clear();
+               }
+               keyDestinations.put(key, queued.destination);
+            } else if (!groups.isEmpty() && (groups.size() > 1 || !groups.containsKey(queued.destination))) {
+               // Everything queued before the barrier must be sent before it
+               replicate(groups);
+               keyDestinations.clear();
+            }
+            List<ReplicableCommand> group = groups.get(queued.destination);
+            if (group == null) {
+               group = new ArrayList<ReplicableCommand>();
+               groups.put(queued.destination, group);
+            }
+            group.add(queued.command);
          }
+         replicate(groups);
       }
 
       return toReplicateSize;
    }
 
-   protected List<ReplicableCommand> drainReplQueue() {
-      List<ReplicableCommand> toReplicate = new LinkedList<ReplicableCommand>();
+   protected List<QueuedCommand> drainReplQueue() {
+      List<QueuedCommand> toReplicate = new LinkedList<QueuedCommand>();
       elements.drainTo(toReplicate);
+      long drainedBytes = 0;
+      for (QueuedCommand queued : toReplicate)
+         drainedBytes += queued.size;
+      if (drainedBytes > 0) queuedBytes.addAndGet(-drainedBytes);
       return toReplicate;
    }
 
@@ -193,6 +286,7 @@ protected Configuration getConfiguration() {
    }
 
    @Override
+   @ManagedAttribute(description = "Number of commands waiting in the replication queue", displayName = "Queued commands", displayType = DisplayType.SUMMARY)
    public int getElementsCount() {
       return elements.size();
    }
@@ -200,5 +294,152 @@ public int getElementsCount() {
    @Override
    public void reset() {
       elements.clear();
+      queuedBytes.set(0);
+   }
+
+   @ManagedAttribute(description = "Number of flushes of the replication queue", displayName = "Number of flushes", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getFlushCount() {
+      return flushes.get();
+   }
+
+   @ManagedAttribute(description = "Average number of commands sent per flush", displayName = "Average batch size", displayType = DisplayType.SUMMARY)
+   public double getAverageBatchSize() {
+      return batchSizes.getAverage();
+   }
+
+   @ManagedAttribute(description = "Number of commands sent per flush, by power of two buckets", displayName = "Batch size histogram")
+   public String getBatchSizeHistogram() {
+      return batchSizes.toString();
+   }
+
+   @ManagedAttribute(description = "Average time the oldest command of a flush waited in the queue", displayName = "Average flush latency", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   public double getAverageFlushLatency() {
+      return flushLatencies.getAverage() / 1000;
+   }
+
+   @ManagedAttribute(description = "Time the oldest command of a flush waited in the queue, in microseconds, by power of two buckets", displayName = "Flush latency histogram")
+   public String getFlushLatencyHistogram() {
+      return flushLatencies.toString();
+   }
+
+   @ManagedAttribute(description = "Number of commands not sent because a later command of the same flush overwrote the same key", displayName = "Coalesced commands", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getCoalescedCount() {
+      return coalescedCommands.get();
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      flushes.set(0);
+      coalescedCommands.set(0);
+      batchSizes.reset();
+      flushLatencies.reset();
+   }
+
+   private void replicate(Map<Set<Address>, List<ReplicableCommand>> groups) {
+      for (Map.Entry<Set<Address>, List<ReplicableCommand>> group : groups.entrySet()) {
+         List<ReplicableCommand> batch = coalesce(group.getValue());
+         Collection<Address> recipients = group.getKey() == null ? null : new ArrayList<Address>(group.getKey());
+         try {
+            log.tracef("Flushing %s elements to %s", batch.size(), recipients);
+            MultipleRpcCommand multipleRpcCommand = commandsFactory.buildReplicateCommand(batch);
+            //default rpc options
+            rpcManager.invokeRemotely(recipients, multipleRpcCommand,
+                                      rpcManager.getRpcOptionsBuilder(ResponseMode.getAsyncResponseMode(configuration))
+                                            .skipReplicationQueue(true).build());
+         } catch (Throwable t) {
+            log.failedReplicatingQueue(batch.size(), t);
+         }
+      }
+      groups.clear();
+   }
+
+   /**
+    * Drops the puts and removes which are overwritten by a later unconditional put or remove of the same key in the
+    * same batch.
+    */
+   private List<ReplicableCommand> coalesce(List<ReplicableCommand> batch) {
+      if (batch.size() < 2) return batch;
+      Set<Object> overwritten = CollectionFactory.makeSet(configuration.dataContainer().keyEquivalence());
+      LinkedList<ReplicableCommand> coalesced = new LinkedList<ReplicableCommand>();
+      for (int i = batch.size() - 1; i >= 0; i--) {
+         ReplicableCommand command = batch.get(i);
+         if (isBlindWrite(command)) {
+            if (!overwritten.add(((DataWriteCommand) command).getKey())) {
+               coalescedCommands.incrementAndGet();
+               continue;
+            }
+         } else if (command instanceof DataWriteCommand) {
+            // e.g. a conditional write, which depends on the previous value
+            overwritten.remove(((DataWriteCommand) command).getKey());
+         } else if (command instanceof WriteCommand && !(command instanceof ClearCommand)) {
+            overwritten.removeAll(((WriteCommand) command).getAffectedKeys());
+         } else {
+            overwritten.clear();
+         }
+         coalesced.addFirst(command);
+      }
+      return coalesced.size() == batch.size() ? batch : coalesced;
+   }
+
+   private static boolean isBlindWrite(ReplicableCommand command) {
+      // Not instanceof, the subclasses of RemoveCommand (invalidations and evictions) must be kept
+      if (command.getClass() == PutKeyValueCommand.class) {
+         PutKeyValueCommand put = (PutKeyValueCommand) command;
+         return !put.isConditional() && !put.hasFlag(Flag.PUT_FOR_EXTERNAL_READ) && !(put.getValue() instanceof Delta);
+      }
+      return command.getClass() == RemoveCommand.class && !((RemoveCommand) command).isConditional();
+   }
+
+   private long estimateSize(ReplicableCommand command) {
+      if (marshaller == null) return 0;
+      if (command instanceof PutKeyValueCommand) {
+         PutKeyValueCommand put = (PutKeyValueCommand) command;
+         return estimateSize(put.getKey()) + estimateSize(put.getValue());
+      } else if (command instanceof DataWriteCommand) {
+         return estimateSize(((DataWriteCommand) command).getKey());
+      }
+      return estimateSize((Object) command);
+   }
+
+   private int estimateSize(Object o) {
+      if (o instanceof byte[]) return ((byte[]) o).length;
+      return marshaller.getBufferSizePredictor(o).nextSize(o);
+   }
+
+   private static boolean sameDestination(Set<Address> a, Set<Address> b) {
+      return a == null ? b == null : a.equals(b);
+   }
+
+   /**
+    * A command waiting in the queue, along with its destination.
+    */
+   protected static class QueuedCommand {
+      final ReplicableCommand command;
+      final Set<Address> destination;
+      final long size;
+      final long enqueueTime;
+
+      QueuedCommand(ReplicableCommand command, Set<Address> destination, long size, long enqueueTime) {
+         this.command = command;
+         this.destination = destination;
+         this.size = size;
+         this.enqueueTime = enqueueTime;
+      }
+
+      public ReplicableCommand getCommand() {
+         return command;
+      }
+
+      /**
+       * @return the recipients of the command, or null if it is sent to all the members
+       */
+      public Set<Address> getDestination() {
+         return destination;
+      }
+
+      @Override
+      public String toString() {
+         return "QueuedCommand{command=" + command + ", destination=" + destination + '}';
+      }
    }
 }
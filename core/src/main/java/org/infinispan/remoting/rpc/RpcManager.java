@@ -27,6 +27,7 @@
 import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.Transport;
+import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 
 import java.util.Collection;
@@ -252,6 +253,22 @@ void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rp
    void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rpc, RpcOptions options,
                                NotifyingNotifiableFuture<Object> future);
 
+   /**
+    * The same as {@link #invokeRemotely(java.util.Collection, org.infinispan.commands.ReplicableCommand, RpcOptions)}
+    * except that no thread waits for the responses, not even one of the transport executor. The future is completed,
+    * and its listeners notified, by the thread which receives the responses (or detects the timeout), so listeners
+    * must not block.
+    *
+    * @param recipients recipients to invoke remote call on. If this is {@code null}, the call is broadcast to the
+    *                   entire cluster.
+    * @param rpc        command to execute remotely.
+    * @param options    it configures the invocation, as in {@link #invokeRemotely(java.util.Collection,
+    *                   org.infinispan.commands.ReplicableCommand, RpcOptions)}.
+    * @return a future of the map of responses from each member contacted.
+    */
+   NotifyingFuture<Map<Address, Response>> invokeRemotelyNonBlocking(Collection<Address> recipients,
+                                                                    ReplicableCommand rpc, RpcOptions options);
+
    /**
     * @return a reference to the underlying transport.
     */
@@ -49,6 +49,9 @@
 import org.infinispan.topology.CacheTopology;
 import org.infinispan.topology.LocalTopologyManager;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -59,7 +62,9 @@
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -197,7 +202,7 @@ private Map<Address, Response> invokeRemotely(Collection<Address> recipients, Re
       if (trace) log.tracef("%s broadcasting call %s to recipient list %s", t.getAddress(), rpc, recipients);
 
       if (useReplicationQueue(sync)) {
-         replicationQueue.add(rpc);
+         replicationQueue.add(recipients, rpc);
          return null;
       } else {
          if (!(rpc instanceof CacheRpcCommand)) {
@@ -264,14 +269,10 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
          if (trace) {
             log.tracef("Using replication queue for command [%s]", rpc);
          }
-         replicationQueue.add(rpc);
+         replicationQueue.add(recipients, rpc);
          return null;
       }
-      if (!configuration.clustering().cacheMode().isClustered())
-         throw new IllegalStateException("Trying to invoke a remote command but the cache is not clustered");
-      if (!(rpc instanceof CacheRpcCommand)) {
-         rpc = cf.buildSingleRpcCommand(rpc);
-      }
+      rpc = prepareCommand(rpc);
       long startTimeNanos = 0;
       if (statisticsEnabled) startTimeNanos = timeService.time();
       try {
@@ -293,12 +294,7 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
 //                  responseFilter = new IgnoreExtraResponsesValidityFilter(cacheMembers, getAddress());
 //               }
 //            }
-         if (rpc instanceof TopologyAffectedCommand) {
-            TopologyAffectedCommand topologyAffectedCommand = (TopologyAffectedCommand) rpc;
-            if (topologyAffectedCommand.getTopologyId() == -1) {
-               topologyAffectedCommand.setTopologyId(stateTransferManager.getCacheTopology().getTopologyId());
-            }
-         }
+         setTopologyId(rpc);
          Map<Address, Response> result = t.invokeRemotely(recipients, rpc, options.responseMode(), options.timeUnit().toMillis(options.timeout()),
                                                           !options.fifoOrder(), options.responseFilter(), options.totalOrder(),
                                                           configuration.clustering().cacheMode().isDistributed());
@@ -308,14 +304,8 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
             checkResponses(result);
          }
          return result;
-      } catch (CacheException e) {
-         log.trace("replication exception: ", e);
-         if (statisticsEnabled) replicationFailures.incrementAndGet();
-         throw e;
       } catch (Throwable th) {
-         log.unexpectedErrorReplicating(th);
-         if (statisticsEnabled) replicationFailures.incrementAndGet();
-         throw new CacheException(th);
+         throw replicationFailed(th);
       } finally {
          if (statisticsEnabled) {
             long timeTaken = timeService.timeDuration(startTimeNanos, TimeUnit.MILLISECONDS);
@@ -324,10 +314,38 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
       }
    }
 
+   private ReplicableCommand prepareCommand(ReplicableCommand rpc) {
+      if (!configuration.clustering().cacheMode().isClustered())
+         throw new IllegalStateException("Trying to invoke a remote command but the cache is not clustered");
+      if (!(rpc instanceof CacheRpcCommand)) {
+         rpc = cf.buildSingleRpcCommand(rpc);
+      }
+      return rpc;
+   }
+
+   private void setTopologyId(ReplicableCommand rpc) {
+      if (rpc instanceof TopologyAffectedCommand) {
+         TopologyAffectedCommand topologyAffectedCommand = (TopologyAffectedCommand) rpc;
+         if (topologyAffectedCommand.getTopologyId() == -1) {
+            topologyAffectedCommand.setTopologyId(stateTransferManager.getCacheTopology().getTopologyId());
+         }
+      }
+   }
+
+   private CacheException replicationFailed(Throwable th) {
+      if (statisticsEnabled) replicationFailures.incrementAndGet();
+      if (th instanceof CacheException) {
+         log.trace("replication exception: ", th);
+         return (CacheException) th;
+      }
+      log.unexpectedErrorReplicating(th);
+      return new CacheException(th);
+   }
+
    @Override
    public void invokeRemotelyInFuture(final Collection<Address> recipients, final ReplicableCommand rpc,
                                       final RpcOptions options, final NotifyingNotifiableFuture<Object> future) {
-      if (trace) log.tracef("%s invoking in future call %s to recipient list %s with options &s", t.getAddress(),
+      if (trace) log.tracef("%s invoking in future call %s to recipient list %s with options %s", t.getAddress(),
                             rpc, recipients, options);
 
       final CountDownLatch futureSet = new CountDownLatch(1);
@@ -353,6 +371,67 @@ public Object call() throws Exception {
       futureSet.countDown();
    }
 
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyNonBlocking(Collection<Address> recipients,
+                                                                           ReplicableCommand rpc, RpcOptions options) {
+      if (trace) log.tracef("%s invoking without blocking %s to recipient list %s with options %s", t.getAddress(),
+                            rpc, recipients, options);
+      CompletableNotifyingFuture<Map<Address, Response>> future = new CompletableNotifyingFuture<Map<Address, Response>>();
+      invokeRemotelyNonBlocking(recipients, rpc, options, future);
+      return future;
+   }
+
+   /**
+    * Sends the command without blocking the caller: the future is completed by the transport thread which receives the
+    * responses, after the same checks as {@link #invokeRemotely(java.util.Collection, ReplicableCommand, RpcOptions)}.
+    */
+   private void invokeRemotelyNonBlocking(Collection<Address> recipients, ReplicableCommand rpc, final RpcOptions options,
+                                          final CompletableNotifyingFuture<Map<Address, Response>> future) {
+      if (!options.skipReplicationQueue() && useReplicationQueue(options.responseMode().isSynchronous())) {
+         if (trace) {
+            log.tracef("Using replication queue for command [%s]", rpc);
+         }
+         replicationQueue.add(recipients, rpc);
+         future.complete(null);
+         return;
+      }
+      final long startTimeNanos = statisticsEnabled ? timeService.time() : 0;
+      try {
+         rpc = prepareCommand(rpc);
+         setTopologyId(rpc);
+      } catch (Throwable th) {
+         future.completeExceptionally(replicationFailed(th));
+         return;
+      }
+      final ReplicableCommand command = rpc;
+      CompletableNotifyingFuture<Map<Address, Response>> transportFuture = new CompletableNotifyingFuture<Map<Address, Response>>();
+      transportFuture.attachListener(new FutureListener<Map<Address, Response>>() {
+         @Override
+         public void futureDone(Future<Map<Address, Response>> f) {
+            try {
+               Map<Address, Response> result = f.get();
+               if (statisticsEnabled) replicationCount.incrementAndGet();
+               if (trace) log.tracef("Response(s) to %s is %s", command, result);
+               if (options.responseMode().isSynchronous()) {
+                  checkResponses(result);
+               }
+               future.complete(result);
+            } catch (ExecutionException e) {
+               future.completeExceptionally(replicationFailed(e.getCause()));
+            } catch (Throwable th) {
+               future.completeExceptionally(replicationFailed(th));
+            } finally {
+               if (statisticsEnabled) {
+                  long timeTaken = timeService.timeDuration(startTimeNanos, TimeUnit.MILLISECONDS);
+                  totalReplicationTime.getAndAdd(timeTaken);
+               }
+            }
+         }
+      });
+      t.invokeRemotelyInFuture(recipients, command, options.responseMode(), options.timeUnit().toMillis(options.timeout()),
+                               !options.fifoOrder(), options.responseFilter(), transportFuture);
+   }
+
    @Override
    public Transport getTransport() {
       return t;
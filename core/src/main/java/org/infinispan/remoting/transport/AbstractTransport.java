@@ -23,15 +23,20 @@
 package org.infinispan.remoting.transport;
 
 import org.infinispan.CacheException;
+import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.manager.NamedCacheNotFoundException;
 import org.infinispan.remoting.responses.ExceptionResponse;
 import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.rpc.ResponseFilter;
+import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.transport.jgroups.SuspectException;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.concurrent.TimeoutException;
 import org.infinispan.util.logging.Log;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -83,6 +88,22 @@ public final boolean checkResponse(Object responseObject, Address sender) throws
       return false;
    } 
    
+   /**
+    * Fallback for transports which cannot receive responses asynchronously: invokes the command synchronously, in the
+    * caller's thread, and completes the future before returning.
+    */
+   @Override
+   public void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rpcCommand, ResponseMode mode,
+                                      long timeout, boolean usePriorityQueue, ResponseFilter responseFilter,
+                                      CompletableNotifyingFuture<Map<Address, Response>> future) {
+      try {
+         future.complete(invokeRemotely(recipients, rpcCommand, mode, timeout, usePriorityQueue, responseFilter,
+                                        false, false));
+      } catch (Throwable t) {
+         future.completeExceptionally(t);
+      }
+   }
+
    protected final boolean parseResponseAndAddToResponseList(Object responseObject, Throwable exception, Map<Address, Response> responseListToAddTo, boolean wasSuspected,
                                                        boolean wasReceived, Address sender, boolean usedResponseFilter, boolean ignoreLeavers)
            throws Exception
@@ -31,6 +31,7 @@
 import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.rpc.ResponseFilter;
 import org.infinispan.remoting.rpc.ResponseMode;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.xsite.XSiteBackup;
 
@@ -71,6 +72,26 @@ Map<Address, Response> invokeRemotely(Collection<Address> recipients, Replicable
                                  boolean usePriorityQueue, ResponseFilter responseFilter, boolean totalOrder,
                                  boolean anycast) throws Exception;
 
+   /**
+    * Invokes an RPC call on other caches in the cluster without waiting for the responses. The future is completed
+    * with the responses, or with the exception {@link #invokeRemotely} would have thrown, by the thread which receives
+    * the last response. Total order is not supported.
+    *
+    * @param recipients       a list of Addresses to invoke the call on.  If this is null, the call is broadcast to the
+    *                         entire cluster.
+    * @param rpcCommand       the cache command to invoke
+    * @param mode             the response mode to use
+    * @param timeout          a timeout after which the future is completed with a replication exception
+    * @param usePriorityQueue if true, a priority queue is used to deliver messages.  May not be supported by all
+    *                         implementations.
+    * @param responseFilter   a response filter with which to filter out failed/unwanted/invalid responses.
+    * @param future           the future to complete with the map of responses from each member contacted
+    * @since 5.3
+    */
+   void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rpcCommand, ResponseMode mode,
+                               long timeout, boolean usePriorityQueue, ResponseFilter responseFilter,
+                               CompletableNotifyingFuture<Map<Address, Response>> future);
+
 
    BackupResponse backupRemotely(Collection<XSiteBackup> backups, ReplicableCommand rpcCommand) throws Exception;
 
@@ -169,6 +169,27 @@ public RspList<Object> call() throws Exception {
       }
    }
 
+   /**
+    * Sends a command without waiting for the responses. The listener is called back by the thread which receives the
+    * last expected response (or the suspicion of the last recipient), with a future whose result is the response list.
+    * JGroups doesn't time out the request on its own, so it's up to the caller to cancel it if it takes too long.
+    *
+    * @param recipients the recipients, or null to broadcast the command to the whole cluster
+    * @return the request, which can be cancelled
+    */
+   public Future<?> invokeRemoteCommandsInFuture(List<Address> recipients, ReplicableCommand command, ResponseMode mode,
+                                                 long timeout, boolean oob, RspFilter filter,
+                                                 FutureListener<RspList<Object>> listener) throws Exception {
+      if (trace) log.tracef("Replication task sending %s to addresses %s with response mode %s, not waiting for the responses", command, recipients, mode);
+
+      boolean rsvp = command instanceof CacheTopologyControlCommand || isRsvpCommand(command);
+      Buffer buf = marshallCall(req_marshaller, command);
+      // Broadcast if we don't have a list of recipients, otherwise send the messages as parallel unicasts
+      RequestOptions opts = new RequestOptions(mode, timeout, recipients != null, filter);
+      opts.setExclusionList(getChannel().getAddress());
+      return castMessageWithFuture(recipients, constructMessage(buf, null, oob, rsvp, false), opts, listener);
+   }
+
    public Response invokeRemoteCommand(final Address recipient, final ReplicableCommand command, final ResponseMode mode,
                                        final long timeout, final boolean oob,
                                        boolean asyncMarshalling) throws InterruptedException {
@@ -47,6 +47,7 @@
 import org.infinispan.util.TimeService;
 import org.infinispan.util.TypedProperties;
 import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.concurrent.TimeoutException;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -66,6 +67,7 @@
 import org.jgroups.protocols.tom.TOA;
 import org.jgroups.stack.AddressGenerator;
 import org.jgroups.util.Buffer;
+import org.jgroups.util.FutureListener;
 import org.jgroups.util.Rsp;
 import org.jgroups.util.RspList;
 import org.jgroups.util.TopologyUUID;
@@ -83,8 +85,10 @@
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.infinispan.factories.KnownComponentNames.REMOTE_COMMAND_EXECUTOR;
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
@@ -551,19 +555,97 @@ usePriorityQueue, toJGroupsFilter(responseFilter),
             responses = Collections.singletonMap(fromJGroupsAddress(singleJGAddress), singleResponse);
          }
       } else {      
-         Map<Address, Response> retval = new HashMap<Address, Response>(rsps.size());
+         responses = parseResponses(rsps, responseFilter != null, ignoreLeavers);
+      }
+      return responses;
+   }
+
+   @Override
+   public void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rpcCommand, ResponseMode mode,
+                                      long timeout, boolean usePriorityQueue, final ResponseFilter responseFilter,
+                                      final CompletableNotifyingFuture<Map<Address, Response>> future) {
+      if (!mode.isSynchronous()) {
+         // there are no responses to wait for
+         super.invokeRemotelyInFuture(recipients, rpcCommand, mode, timeout, usePriorityQueue, responseFilter, future);
+         return;
+      }
 
-         boolean noValidResponses = true;
-         for (Rsp<Object> rsp : rsps.values()) {
-            noValidResponses &= parseResponseAndAddToResponseList(rsp.getValue(), rsp.getException(), retval, rsp.wasSuspected(), rsp.wasReceived(), fromJGroupsAddress(rsp.getSender()),
-                  responseFilter != null, ignoreLeavers);
+      try {
+         if (trace)
+            log.tracef("dests=%s, command=%s, mode=%s, timeout=%s, in future", recipients, rpcCommand, mode, timeout);
+         final boolean ignoreLeavers = mode == ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS || mode == ResponseMode.WAIT_FOR_VALID_RESPONSE;
+         if (recipients != null && !getMembers().containsAll(recipients)) {
+            if (ignoreLeavers) { // SYNCHRONOUS_IGNORE_LEAVERS || WAIT_FOR_VALID_RESPONSE
+               recipients = new HashSet<Address>(recipients);
+               recipients.retainAll(getMembers());
+            } else { // SYNCHRONOUS
+               throw new SuspectException("One or more nodes have left the cluster while replicating command " + rpcCommand);
+            }
+         }
+         List<org.jgroups.Address> jgAddressList = toJGroupsAddressListExcludingSelf(recipients, false);
+         if (jgAddressList == null ? members.size() < 2 : jgAddressList.isEmpty()) {
+            log.trace("Destination list is empty: no need to send message");
+            future.complete(InfinispanCollections.<Address, Response>emptyMap());
+            return;
          }
+         if (!usePriorityQueue && (ResponseMode.SYNCHRONOUS == mode || ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS == mode))
+            usePriorityQueue = true;
+
+         final Future<?> request = dispatcher.invokeRemoteCommandsInFuture(jgAddressList, rpcCommand, toJGroupsMode(mode),
+               timeout, usePriorityQueue, toJGroupsFilter(responseFilter), new FutureListener<RspList<Object>>() {
+            @Override
+            public void futureDone(Future<RspList<Object>> rspFuture) {
+               try {
+                  future.complete(parseResponses(rspFuture.get(), responseFilter != null, ignoreLeavers));
+               } catch (ExecutionException e) {
+                  future.completeExceptionally(e.getCause());
+               } catch (Throwable t) {
+                  future.completeExceptionally(t);
+               }
+            }
+         });
+         scheduleTimeout(request, rpcCommand, timeout, future);
+      } catch (Throwable t) {
+         future.completeExceptionally(t);
+      }
+   }
+
+   private void scheduleTimeout(final Future<?> request, final ReplicableCommand rpcCommand, final long timeout,
+                                final CompletableNotifyingFuture<Map<Address, Response>> future) {
+      // same as in JGroups, a timeout of 0 means waiting forever
+      if (future.isDone() || timeout <= 0)
+         return;
+      final Future<?> timeoutTask = channel.getProtocolStack().getTransport().getTimer().schedule(new Runnable() {
+         @Override
+         public void run() {
+            if (future.completeExceptionally(new TimeoutException(String.format("Timed out after %s waiting for the responses to %s",
+                                                                                 Util.prettyPrintTime(timeout), rpcCommand)))) {
+               request.cancel(true);
+            }
+         }
+      }, timeout, TimeUnit.MILLISECONDS);
+      future.attachListener(new org.infinispan.util.concurrent.FutureListener<Map<Address, Response>>() {
+         @Override
+         public void futureDone(Future<Map<Address, Response>> f) {
+            timeoutTask.cancel(false);
+         }
+      });
+   }
+
+   private Map<Address, Response> parseResponses(RspList<Object> rsps, boolean usedResponseFilter, boolean ignoreLeavers) throws Exception {
+      if (rsps.isEmpty())
+         return InfinispanCollections.emptyMap();
+      Map<Address, Response> retval = new HashMap<Address, Response>(rsps.size());
 
-         if (noValidResponses)
-            throw new TimeoutException("Timed out waiting for valid responses!");
-         responses = retval;
+      boolean noValidResponses = true;
+      for (Rsp<Object> rsp : rsps.values()) {
+         noValidResponses &= parseResponseAndAddToResponseList(rsp.getValue(), rsp.getException(), retval, rsp.wasSuspected(), rsp.wasReceived(), fromJGroupsAddress(rsp.getSender()),
+               usedResponseFilter, ignoreLeavers);
       }
-      return responses;
+
+      if (noValidResponses)
+         throw new TimeoutException("Timed out waiting for valid responses!");
+      return retval;
    }
 
    @Override
@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.concurrent.ConcurrentHashSet;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the outbound state transfers of a cache on this node, exposed over JMX by
+ * {@link StateTransferManagerImpl}.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+public class OutboundTransferStatistics {
+
+   private final Set<OutboundTransferTask> activeTransfers = new ConcurrentHashSet<OutboundTransferTask>();
+   private final AtomicLong chunksSent = new AtomicLong();
+   private final AtomicLong entriesSent = new AtomicLong();
+   private final AtomicLong bytesSent = new AtomicLong();
+   private final AtomicLong completedTransfers = new AtomicLong();
+   private final AtomicLong completedTransferBytes = new AtomicLong();
+   private final AtomicLong completedTransferNanos = new AtomicLong();
+
+   void transferStarted(OutboundTransferTask task) {
+      activeTransfers.add(task);
+   }
+
+   void chunkSent(int entries, long bytes) {
+      chunksSent.incrementAndGet();
+      entriesSent.addAndGet(entries);
+      bytesSent.addAndGet(bytes);
+   }
+
+   void transferEnded(OutboundTransferTask task, boolean completed, long durationNanos) {
+      if (activeTransfers.remove(task) && completed) {
+         completedTransfers.incrementAndGet();
+         completedTransferBytes.addAndGet(task.getBytesSent());
+         completedTransferNanos.addAndGet(durationNanos);
+      }
+   }
+
+   /**
+    * @return the number of outbound transfers in progress
+    */
+   public int getActiveTransferCount() {
+      return activeTransfers.size();
+   }
+
+   /**
+    * @return one line per outbound transfer in progress, with the data sent so far
+    */
+   public String getActiveTransfers() {
+      StringBuilder sb = new StringBuilder();
+      for (OutboundTransferTask task : activeTransfers) {
+         if (sb.length() > 0) sb.append('\n');
+         sb.append(task.getProgress());
+      }
+      return sb.toString();
+   }
+
+   public long getChunksSent() {
+      return chunksSent.get();
+   }
+
+   public long getEntriesSent() {
+      return entriesSent.get();
+   }
+
+   /**
+    * @return the estimated number of bytes of cache entries sent
+    */
+   public long getBytesSent() {
+      return bytesSent.get();
+   }
+
+   public long getCompletedTransfers() {
+      return completedTransfers.get();
+   }
+
+   /**
+    * @return the average throughput of the completed transfers, in estimated bytes per second
+    */
+   public long getAverageThroughput() {
+      long nanos = completedTransferNanos.get();
+      return nanos == 0 ? 0 : completedTransferBytes.get() * TimeUnit.SECONDS.toNanos(1) / nanos;
+   }
+
+   public void reset() {
+      chunksSent.set(0);
+      entriesSent.set(0);
+      bytesSent.set(0);
+      completedTransfers.set(0);
+      completedTransferBytes.set(0);
+      completedTransferNanos.set(0);
+   }
+}
@@ -25,32 +25,46 @@
 
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHash;
-import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.SegmentKeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.rpc.RpcOptions;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.jgroups.SuspectException;
 import org.infinispan.util.InfinispanCollections;
-import org.infinispan.util.ReadOnlyDataContainerBackedKeySet;
 import org.infinispan.util.CollectionFactory;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFutureImpl;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Outbound state transfer task. Pushes data segments to another cluster member on request. Instances of
  * OutboundTransferTask are created and managed by StateTransferManagerImpl. There should be at most
  * one such task per destination at any time.
+ * <p/>
+ * If {@link org.infinispan.configuration.cache.StateTransferConfiguration#maxInFlightChunks()} is greater than 1, up to
+ * that many chunks are sent without waiting for the previous ones to be applied by the destination. The response of
+ * the destination, which is only sent after the chunk was applied, acts as the credit that allows the next chunk to
+ * be sent. The last chunk is always sent after all the other chunks were applied, because it marks the completion of
+ * the segments on the destination.
  *
  * @author anistor@redhat.com
  * @since 5.2
@@ -99,6 +113,28 @@ public class OutboundTransferTask implements Runnable {
 
    private final RpcOptions rpcOptions;
 
+   /**
+    * Limits the number of chunks sent but not yet applied by the destination, or {@code null} if chunks are sent
+    * synchronously, one at a time.
+    */
+   private final Semaphore window;
+
+   private final int maxInFlightChunks;
+
+   private final TransferRateLimiter rateLimiter;   // optional
+
+   private final OutboundTransferStatistics statistics;
+
+   private final TimeService timeService;
+
+   private volatile long startTime;
+
+   private volatile long entriesSent;
+
+   private volatile long bytesSent;
+
+   private volatile boolean completed;
+
    public OutboundTransferTask(Address destination, Set<Integer> segments, int stateTransferChunkSize,
                                int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider, DataContainer dataContainer,
                                CacheLoaderManager cacheLoaderManager, RpcManager rpcManager,
@@ -127,6 +163,11 @@ public OutboundTransferTask(Address destination, Set<Integer> segments, int stat
       //the rpc options does not change in runtime. re-use the same instance
       this.rpcOptions = rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS)
             .timeout(timeout, TimeUnit.MILLISECONDS).build();
+      this.maxInFlightChunks = stateProvider.getMaxInFlightChunks();
+      this.window = maxInFlightChunks > 1 ? new Semaphore(maxInFlightChunks) : null;
+      this.rateLimiter = stateProvider.getRateLimiter();
+      this.statistics = stateProvider.getOutboundTransferStatistics();
+      this.timeService = stateProvider.getTimeService();
    }
 
    public void execute(ExecutorService executorService) {
@@ -136,9 +177,13 @@ public void execute(ExecutorService executorService) {
       runnableFuture = new FutureTask<Void>(this, null) {
          @Override
          protected void done() {
+            statistics.transferEnded(OutboundTransferTask.this, completed && !isCancelled(),
+                                     timeService.timeDuration(startTime, TimeUnit.NANOSECONDS));
             stateProvider.onTaskCompletion(OutboundTransferTask.this);
          }
       };
+      startTime = timeService.time();
+      statistics.transferStarted(this);
       executorService.submit(runnableFuture);
    }
 
@@ -150,39 +195,65 @@ public Set<Integer> getSegments() {
       return segments;
    }
 
+   long getBytesSent() {
+      return bytesSent;
+   }
+
+   /**
+    * @return a description of the data sent so far by this task, for monitoring
+    */
+   String getProgress() {
+      int inFlightChunks = window != null ? maxInFlightChunks - window.availablePermits() : 0;
+      return "destination=" + destination +
+            ", segments=" + segments +
+            ", entriesSent=" + entriesSent +
+            ", bytesSent=" + bytesSent +
+            ", elapsedMillis=" + timeService.timeDuration(startTime, TimeUnit.MILLISECONDS) +
+            ", inFlightChunks=" + inFlightChunks;
+   }
+
    //todo [anistor] check thread interrupt status in loops to implement faster cancellation
    public void run() {
       try {
          // send data container entries
-         for (InternalCacheEntry ice : dataContainer) {
-            Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
-            int segmentId = readCh.getSegment(key);
-            if (segments.contains(segmentId)) {
-               sendEntry(ice, segmentId);
+         if (dataContainer instanceof SegmentedDataContainer && ((SegmentedDataContainer) dataContainer).matches(readCh)) {
+            // only visit the entries of the requested segments
+            SegmentedDataContainer segmentedDataContainer = (SegmentedDataContainer) dataContainer;
+            for (int segmentId : segments) {
+               for (Iterator<InternalCacheEntry> it = segmentedDataContainer.iterator(segmentId); it.hasNext(); ) {
+                  sendEntry(it.next(), segmentId);
+               }
+            }
+         } else {
+            for (InternalCacheEntry ice : dataContainer) {
+               Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
+               int segmentId = readCh.getSegment(key);
+               if (segments.contains(segmentId)) {
+                  sendEntry(ice, segmentId);
+               }
             }
          }
 
          // send cache store entries if needed
          CacheStore cacheStore = getCacheStore();
          if (cacheStore != null) {
+            KeyFilter filter = new SegmentKeyFilter(readCh, segments) {
+               @Override
+               public boolean accept(Object key) {
+                  // the entries in the data container were sent already
+                  return super.accept(key) && !dataContainer.containsKey(key);
+               }
+            };
+            // A failure to read the store fails the whole transfer: the iterator can't tell which entry failed nor
+            // whether it can go on, and the last chunk must not report segments with missing entries as complete
+            StoredEntryIterator storedEntries = cacheStore.entryIterator(filter);
             try {
-               //todo [anistor] need to extend CacheStore interface to be able to specify a filter when loading keys (ie. keys should belong to desired segments)
-               Set<Object> storedKeys = cacheStore.loadAllKeys(new ReadOnlyDataContainerBackedKeySet(dataContainer));
-               for (Object key : storedKeys) {
-                  int segmentId = readCh.getSegment(key);
-                  if (segments.contains(segmentId)) {
-                     try {
-                        InternalCacheEntry ice = cacheStore.load(key);
-                        if (ice != null) { // check entry still exists
-                           sendEntry(ice, segmentId);
-                        }
-                     } catch (CacheLoaderException e) {
-                        log.failedLoadingValueFromCacheStore(key, e);
-                     }
-                  }
+               while (storedEntries.hasNext()) {
+                  InternalCacheEntry ice = storedEntries.next();
+                  sendEntry(ice, readCh.getSegment(ice.getKey()));
                }
-            } catch (CacheLoaderException e) {
-               log.failedLoadingKeysFromCacheStore(e);
+            } finally {
+               storedEntries.close();
             }
          } else {
             if (trace) {
@@ -192,6 +263,7 @@ public void run() {
 
          // send the last chunk of all segments
          sendEntries(true);
+         completed = true;
       } catch (Throwable t) {
          // ignore eventual exceptions caused by cancellation (have InterruptedException as the root cause)
          if (!runnableFuture.isCancelled()) {
@@ -214,7 +286,7 @@ private CacheStore getCacheStore() {
       return null;
    }
 
-   private void sendEntry(InternalCacheEntry ice, int segmentId) {
+   private void sendEntry(InternalCacheEntry ice, int segmentId) throws InterruptedException {
       // send if we have a full chunk
       if (accumulatedEntries >= stateTransferChunkSize) {
          sendEntries(false);
@@ -230,7 +302,7 @@ private void sendEntry(InternalCacheEntry ice, int segmentId) {
       accumulatedEntries++;
    }
 
-   private void sendEntries(boolean isLast) {
+   private void sendEntries(boolean isLast) throws InterruptedException {
       List<StateChunk> chunks = new ArrayList<StateChunk>();
       for (Map.Entry<Integer, List<InternalCacheEntry>> e : entriesBySegment.entrySet()) {
          List<InternalCacheEntry> entries = e.getValue();
@@ -258,16 +330,71 @@ private void sendEntries(boolean isLast) {
             }
          }
 
+         int entryCount = 0;
+         long byteCount = 0;
+         for (StateChunk chunk : chunks) {
+            for (InternalCacheEntry ice : chunk.getCacheEntries()) {
+               entryCount++;
+               byteCount += stateProvider.estimateSize(ice);
+            }
+         }
+         if (rateLimiter != null) {
+            rateLimiter.acquire(byteCount);
+         }
+
          StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
-         // send synchronously, in order. it is important that the last chunk is received last in order to correctly detect completion of the stream of chunks
-         try {
-            rpcManager.invokeRemotely(Collections.singleton(destination), cmd, rpcOptions);
-         } catch (SuspectException e) {
-            log.errorf(e, "Node %s left cache %s: %s", destination, cacheName, e.getMessage());
-            cancel();
-         } catch (Exception e) {
-            log.errorf(e, "Failed to send entries to node %s : %s", destination, e.getMessage());
+         if (window == null || isLast) {
+            // send synchronously. it is important that the last chunk is received last in order to correctly detect completion
+            // of the stream of chunks, so we first wait for all the chunks in flight to be applied
+            if (window != null) {
+               window.acquire(maxInFlightChunks);
+            }
+            try {
+               rpcManager.invokeRemotely(Collections.singleton(destination), cmd, rpcOptions);
+            } catch (Exception e) {
+               onSendFailure(e);
+            } finally {
+               if (window != null) {
+                  window.release(maxInFlightChunks);
+               }
+            }
+         } else {
+            window.acquire();
+            sendEntriesAsync(cmd);
          }
+
+         entriesSent += entryCount;
+         bytesSent += byteCount;
+         statistics.chunkSent(entryCount, byteCount);
+      }
+   }
+
+   private void sendEntriesAsync(StateResponseCommand cmd) {
+      NotifyingFutureImpl<Object> future = new NotifyingFutureImpl<Object>(null);
+      future.attachListener(new FutureListener<Object>() {
+         @Override
+         public void futureDone(Future<Object> f) {
+            // called by the thread that receives the response, must not block
+            try {
+               f.get();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+               onSendFailure(e.getCause());
+            } finally {
+               window.release();
+            }
+         }
+      });
+      rpcManager.invokeRemotelyInFuture(Collections.singleton(destination), cmd, rpcOptions, future);
+   }
+
+   private void onSendFailure(Throwable t) {
+      if (t instanceof SuspectException) {
+         log.errorf(t, "Node %s left cache %s: %s", destination, cacheName, t.getMessage());
+         cancel();
+      } else {
+         log.errorf(t, "Failed to send entries to node %s : %s", destination, t.getMessage());
       }
    }
 
@@ -308,6 +435,7 @@ public String toString() {
             ", destination=" + destination +
             ", segments=" + segments +
             ", stateTransferChunkSize=" + stateTransferChunkSize +
+            ", maxInFlightChunks=" + maxInFlightChunks +
             ", timeout=" + timeout +
             ", cacheName='" + cacheName + '\'' +
             '}';
@@ -0,0 +1,133 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import org.infinispan.marshall.AbstractExternalizer;
+import org.infinispan.marshall.Ids;
+import org.infinispan.util.Util;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Order independent digest of the cache entries of a segment, used to decide whether a node that restarts still has
+ * an up to date copy of a segment. The digest is the number of entries and the sum, modulo 2<sup>160</sup>, of the
+ * SHA-1 hashes of the marshalled keys, values and metadata of the entries, so two nodes compute the same digest only
+ * if they hold the same entries with the same lifespans, max idle times and versions.
+ *
+ * @since 5.3
+ */
+public class SegmentDigest {
+
+   static final int HASH_LENGTH = 20;
+
+   private final long entryCount;
+
+   private final byte[] hash;
+
+   public SegmentDigest(long entryCount, byte[] hash) {
+      if (hash.length != HASH_LENGTH)
+         throw new IllegalArgumentException("The hash must be " + HASH_LENGTH + " bytes long");
+      this.entryCount = entryCount;
+      this.hash = hash;
+   }
+
+   public long getEntryCount() {
+      return entryCount;
+   }
+
+   /**
+    * @return the sum of the hashes of the entries. Must not be modified.
+    */
+   public byte[] getHash() {
+      return hash;
+   }
+
+   /**
+    * Adds the hash of an entry to the sum of the hashes of a segment, both big endian.
+    */
+   static void addHash(byte[] sum, byte[] entryHash) {
+      int carry = 0;
+      for (int i = HASH_LENGTH - 1; i >= 0; i--) {
+         int b = (sum[i] & 0xFF) + (entryHash[i] & 0xFF) + carry;
+         sum[i] = (byte) b;
+         carry = b >>> 8;
+      }
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      SegmentDigest that = (SegmentDigest) o;
+      return entryCount == that.entryCount && Arrays.equals(hash, that.hash);
+   }
+
+   @Override
+   public int hashCode() {
+      int result = (int) (entryCount ^ (entryCount >>> 32));
+      result = 31 * result + Arrays.hashCode(hash);
+      return result;
+   }
+
+   @Override
+   public String toString() {
+      return "SegmentDigest{" +
+            "entryCount=" + entryCount +
+            ", hash=" + Util.toHexString(hash) +
+            '}';
+   }
+
+   public static class Externalizer extends AbstractExternalizer<SegmentDigest> {
+
+      @Override
+      public Integer getId() {
+         return Ids.SEGMENT_DIGEST;
+      }
+
+      @Override
+      public Set<Class<? extends SegmentDigest>> getTypeClasses() {
+         return Collections.<Class<? extends SegmentDigest>>singleton(SegmentDigest.class);
+      }
+
+      @Override
+      public void writeObject(ObjectOutput output, SegmentDigest object) throws IOException {
+         output.writeLong(object.entryCount);
+         output.write(object.hash);
+      }
+
+      @Override
+      public SegmentDigest readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+         long entryCount = input.readLong();
+         byte[] hash = new byte[HASH_LENGTH];
+         input.readFully(hash);
+         return new SegmentDigest(entryCount, hash);
+      }
+   }
+}
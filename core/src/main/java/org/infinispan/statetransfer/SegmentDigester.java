@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import org.infinispan.CacheException;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.SegmentKeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.util.TimeService;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the {@link SegmentDigest}s of some segments from the entries of the data container and/or the cache store.
+ * Entries are hashed in their marshalled form, so that the digests don't depend on the hash codes of the keys and
+ * values, which may collide or differ between nodes.
+ *
+ * @since 5.3
+ */
+class SegmentDigester {
+
+   private final StreamingMarshaller marshaller;
+   private final TimeService timeService;
+
+   SegmentDigester(StreamingMarshaller marshaller, TimeService timeService) {
+      this.marshaller = marshaller;
+      this.timeService = timeService;
+   }
+
+   /**
+    * @param consistentHash the consistent hash mapping the keys to segments
+    * @param segments the segments to digest. Segments without entries have a digest too.
+    * @param dataContainer the in-memory entries to digest, or {@code null}
+    * @param cacheStore the stored entries to digest, or {@code null}. Keys which are also in the data container are
+    *                   only digested once.
+    */
+   Map<Integer, SegmentDigest> computeDigests(ConsistentHash consistentHash, Set<Integer> segments,
+                                              final DataContainer dataContainer, CacheStore cacheStore) throws CacheLoaderException {
+      Map<Integer, Digest> digests = new HashMap<Integer, Digest>();
+      for (int segmentId : segments) {
+         digests.put(segmentId, new Digest());
+      }
+      long now = timeService.wallClockTime();
+      MessageDigest sha1 = newSha1();
+
+      if (dataContainer != null) {
+         if (dataContainer instanceof SegmentedDataContainer && ((SegmentedDataContainer) dataContainer).matches(consistentHash)) {
+            SegmentedDataContainer segmentedDataContainer = (SegmentedDataContainer) dataContainer;
+            for (int segmentId : segments) {
+               for (Iterator<InternalCacheEntry> it = segmentedDataContainer.iterator(segmentId); it.hasNext(); ) {
+                  digestEntry(it.next(), digests.get(segmentId), now, sha1);
+               }
+            }
+         } else {
+            for (InternalCacheEntry ice : dataContainer) {
+               Digest digest = digests.get(consistentHash.getSegment(ice.getKey()));
+               if (digest != null) {
+                  digestEntry(ice, digest, now, sha1);
+               }
+            }
+         }
+      }
+
+      if (cacheStore != null) {
+         KeyFilter filter = new SegmentKeyFilter(consistentHash, segments) {
+            @Override
+            public boolean accept(Object key) {
+               return super.accept(key) && (dataContainer == null || !dataContainer.containsKey(key));
+            }
+         };
+         StoredEntryIterator storedEntries = cacheStore.entryIterator(filter);
+         try {
+            while (storedEntries.hasNext()) {
+               InternalCacheEntry ice = storedEntries.next();
+               digestEntry(ice, digests.get(consistentHash.getSegment(ice.getKey())), now, sha1);
+            }
+         } finally {
+            storedEntries.close();
+         }
+      }
+
+      Map<Integer, SegmentDigest> result = new HashMap<Integer, SegmentDigest>(digests.size());
+      for (Map.Entry<Integer, Digest> e : digests.entrySet()) {
+         result.put(e.getKey(), new SegmentDigest(e.getValue().entryCount, e.getValue().hash));
+      }
+      return result;
+   }
+
+   private void digestEntry(InternalCacheEntry ice, Digest digest, long now, MessageDigest sha1) {
+      if (ice.isExpired(now))
+         return;
+      Metadata metadata = ice.getMetadata();
+      sha1.reset();
+      update(sha1, marshall(ice.getKey()));
+      update(sha1, marshall(ice.getValue()));
+      update(sha1, metadata.lifespan());
+      update(sha1, metadata.maxIdle());
+      update(sha1, marshall(metadata.version()));
+      digest.entryCount++;
+      SegmentDigest.addHash(digest.hash, sha1.digest());
+   }
+
+   private byte[] marshall(Object o) {
+      try {
+         return marshaller.objectToByteBuffer(o);
+      } catch (IOException e) {
+         throw new CacheException("Failed to marshall " + o + " to digest it", e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while marshalling " + o + " to digest it", e);
+      }
+   }
+
+   /**
+    * Adds the length before the bytes, so that the boundaries between the fields of an entry are part of its hash
+    */
+   private static void update(MessageDigest sha1, byte[] bytes) {
+      update(sha1, bytes.length);
+      sha1.update(bytes);
+   }
+
+   private static void update(MessageDigest sha1, long l) {
+      for (int shift = 56; shift >= 0; shift -= 8) {
+         sha1.update((byte) (l >>> shift));
+      }
+   }
+
+   private static MessageDigest newSha1() {
+      try {
+         return MessageDigest.getInstance("SHA-1");
+      } catch (NoSuchAlgorithmException e) {
+         // every Java platform supports SHA-1
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static class Digest {
+      long entryCount;
+      final byte[] hash = new byte[SegmentDigest.HASH_LENGTH];
+   }
+}
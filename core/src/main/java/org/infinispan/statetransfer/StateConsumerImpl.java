@@ -28,8 +28,11 @@
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.write.InvalidateCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.configuration.cache.CacheLoaderConfiguration;
+import org.infinispan.configuration.cache.CacheStoreConfiguration;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
@@ -44,6 +47,7 @@
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.responses.SuccessfulResponse;
@@ -59,18 +63,22 @@
 import org.infinispan.transaction.xa.CacheTransaction;
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.ReadOnlyDataContainerBackedKeySet;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.concurrent.ConcurrentHashSet;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.infinispan.context.Flag.*;
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
 /**
  * {@link StateConsumer} implementation.
@@ -151,6 +159,17 @@ public class StateConsumerImpl implements StateConsumer {
 
    private RpcOptions rpcOptions;
 
+   private TimeService timeService;
+   private StreamingMarshaller marshaller;
+
+   /**
+    * The digests of the segments this node owned when it was last stopped, as saved in its cache store. These segments
+    * are not transferred again if the digests of their current owners are the same. This is {@code null} unless
+    * {@link org.infinispan.configuration.cache.StateTransferConfiguration#warmRestart()} is enabled, and it is only
+    * used by the first state transfer after the restart.
+    */
+   private volatile Map<Integer, SegmentDigest> warmRestartDigests;
+
    public StateConsumerImpl() {
    }
 
@@ -208,7 +227,9 @@ public void init(Cache cache,
                     TransactionTable transactionTable,
                     StateTransferLock stateTransferLock,
                     CacheNotifier cacheNotifier,
-                    TotalOrderManager totalOrderManager) {
+                    TotalOrderManager totalOrderManager,
+                    TimeService timeService,
+                    @ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller) {
       this.cacheName = cache.getName();
       this.executorService = executorService;
       this.stateTransferManager = stateTransferManager;
@@ -224,6 +245,8 @@ public void init(Cache cache,
       this.stateTransferLock = stateTransferLock;
       this.cacheNotifier = cacheNotifier;
       this.totalOrderManager = totalOrderManager;
+      this.timeService = timeService;
+      this.marshaller = marshaller;
 
       isInvalidationMode = configuration.clustering().cacheMode().isInvalidation();
 
@@ -561,6 +584,80 @@ public void start() {
       //rpc options does not changes in runtime. we can use always the same instance.
       rpcOptions = rpcManager.getRpcOptionsBuilder(ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS)
             .timeout(timeout, TimeUnit.MILLISECONDS).build();
+
+      if (isWarmRestartEnabled()) {
+         loadWarmRestartState();
+      }
+   }
+
+   private boolean isWarmRestartEnabled() {
+      if (!configuration.clustering().stateTransfer().warmRestart() || !cacheLoaderManager.isEnabled()
+            || cacheLoaderManager.isShared()) {
+         return false;
+      }
+      for (CacheLoaderConfiguration cfg : configuration.loaders().cacheLoaders()) {
+         // the entries saved on stop are gone
+         if (cfg instanceof CacheStoreConfiguration && ((CacheStoreConfiguration) cfg).purgeOnStartup())
+            return false;
+      }
+      return true;
+   }
+
+   private File getWarmRestartFile() {
+      return new File(configuration.clustering().stateTransfer().warmRestartLocation(), cacheName + ".warmrestart");
+   }
+
+   private void loadWarmRestartState() {
+      File file = getWarmRestartFile();
+      try {
+         WarmRestartState state = WarmRestartState.read(file);
+         if (state == null) {
+            log.debugf("No warm restart state found for cache %s in %s", cacheName, file);
+            return;
+         }
+         int numSegments = configuration.clustering().hash().numSegments();
+         if (state.getNumSegments() != numSegments) {
+            log.warnf("Ignoring the warm restart state of cache %s because it was saved with %d segments instead of %d",
+                  cacheName, state.getNumSegments(), numSegments);
+            return;
+         }
+         warmRestartDigests = new HashMap<Integer, SegmentDigest>(state.getDigests());
+         log.debugf("Loaded the digests of segments %s of cache %s saved in topology %d", warmRestartDigests.keySet(),
+               cacheName, state.getTopologyId());
+      } catch (IOException e) {
+         log.warnf(e, "Failed to read the warm restart state of cache %s from %s", cacheName, file);
+      } finally {
+         // the store changes from now on, so the state must not be used again after a crash
+         if (file.exists() && !file.delete()) {
+            log.warnf("Failed to delete the warm restart state of cache %s from %s", cacheName, file);
+         }
+      }
+   }
+
+   /**
+    * Saves the digests of the segments owned by this node, so that they are not transferred again when it restarts if
+    * they did not change in the meantime. Must run before the entries are passivated and the cache store is stopped.
+    */
+   @Stop(priority = 8)
+   public void saveWarmRestartState() {
+      CacheTopology cacheTopology = this.cacheTopology;
+      if (!ownsData || cacheTopology == null || !isWarmRestartEnabled())
+         return;
+
+      File file = getWarmRestartFile();
+      try {
+         ConsistentHash currentCh = cacheTopology.getCurrentCH();
+         Set<Integer> segments = getOwnedSegments(currentCh);
+         // passivation writes the in-memory entries to the store after this, so both are digested
+         Map<Integer, SegmentDigest> digests = new SegmentDigester(marshaller, timeService).computeDigests(
+               currentCh, segments, dataContainer, cacheLoaderManager.getCacheStore());
+         new WarmRestartState(cacheTopology.getTopologyId(), currentCh.getNumSegments(), digests).write(file);
+         log.debugf("Saved the digests of segments %s of cache %s in topology %d", segments, cacheName,
+               cacheTopology.getTopologyId());
+      } catch (Exception e) {
+         log.warnf(e, "Failed to save the warm restart state of cache %s to %s", cacheName, file);
+         file.delete();
+      }
    }
 
    @Stop(priority = 20)
@@ -704,6 +801,13 @@ private void requestSegments(Set<Integer> segments, Map<Address, Set<Integer>> s
          findSources(segments, sources, excludedSources);
       }
 
+      Map<Integer, SegmentDigest> localDigests = warmRestartDigests;
+      if (localDigests != null) {
+         // the digests only describe the store as it was when the node started, so they are only used once
+         warmRestartDigests = null;
+         skipUnchangedSegments(localDigests, sources);
+      }
+
       for (Map.Entry<Address, Set<Integer>> e : sources.entrySet()) {
          addTransfer(e.getKey(), e.getValue());
       }
@@ -711,6 +815,57 @@ private void requestSegments(Set<Integer> segments, Map<Address, Set<Integer>> s
       startTransferThread(excludedSources);
    }
 
+   /**
+    * Removes from the sources the segments which have the same digests on their source as in the local cache store.
+    * If the digests of a source cannot be retrieved, its segments are transferred as usual.
+    */
+   private void skipUnchangedSegments(Map<Integer, SegmentDigest> localDigests, Map<Address, Set<Integer>> sources) {
+      Set<Integer> skippedSegments = new HashSet<Integer>();
+      for (Iterator<Map.Entry<Address, Set<Integer>>> it = sources.entrySet().iterator(); it.hasNext(); ) {
+         Map.Entry<Address, Set<Integer>> e = it.next();
+         Address source = e.getKey();
+         Set<Integer> segmentsToCompare = new HashSet<Integer>(e.getValue());
+         segmentsToCompare.retainAll(localDigests.keySet());
+         if (segmentsToCompare.isEmpty())
+            continue;
+
+         Map<Integer, SegmentDigest> remoteDigests = getSegmentDigests(source, segmentsToCompare, cacheTopology.getTopologyId());
+         if (remoteDigests == null)
+            continue;
+
+         for (int segmentId : segmentsToCompare) {
+            if (localDigests.get(segmentId).equals(remoteDigests.get(segmentId))) {
+               e.getValue().remove(segmentId);
+               skippedSegments.add(segmentId);
+            }
+         }
+         if (e.getValue().isEmpty()) {
+            it.remove();
+         }
+      }
+      if (!skippedSegments.isEmpty()) {
+         log.debugf("Segments %s of cache %s are unchanged since the last stop and will not be transferred", skippedSegments, cacheName);
+      }
+   }
+
+   private Map<Integer, SegmentDigest> getSegmentDigests(Address source, Set<Integer> segments, int topologyId) {
+      if (trace) {
+         log.tracef("Requesting the digests of segments %s of cache %s from node %s", segments, cacheName, source);
+      }
+      try {
+         StateRequestCommand cmd = commandsFactory.buildStateRequestCommand(StateRequestCommand.Type.GET_SEGMENT_DIGESTS, rpcManager.getAddress(), topologyId, segments);
+         Map<Address, Response> responses = rpcManager.invokeRemotely(Collections.singleton(source), cmd, rpcOptions);
+         Response response = responses.get(source);
+         if (response instanceof SuccessfulResponse) {
+            return (Map<Integer, SegmentDigest>) ((SuccessfulResponse) response).getResponseValue();
+         }
+         log.debugf("Failed to retrieve the digests of segments %s of cache %s from node %s: %s", segments, cacheName, source, response);
+      } catch (CacheException e) {
+         log.debugf(e, "Failed to retrieve the digests of segments %s of cache %s from node %s", segments, cacheName, source);
+      }
+      return null;
+   }
+
    private void startTransferThread(final Set<Address> excludedSources) {
       synchronized (this) {
          if (isTransferThreadRunning) {
@@ -827,20 +982,32 @@ private void invalidateSegments(Set<Integer> newSegments, Set<Integer> segmentsT
       Set<Object> keysToRemove = new HashSet<Object>();
 
       // gather all keys from data container that belong to the segments that are being removed/moved to L1
-      for (InternalCacheEntry ice : dataContainer) {
-         Object key = ice.getKey();
-         int keySegment = getSegment(key);
-         if (segmentsToL1.contains(keySegment)) {
-            keysToL1.add(key);
-         } else if (!newSegments.contains(keySegment)) {
-            keysToRemove.add(key);
+      SegmentedDataContainer segmentedDataContainer = getSegmentedDataContainer();
+      if (segmentedDataContainer != null) {
+         // only visit the segments this node does not own, which are typically a small part of its data
+         for (int segmentId = 0; segmentId < segmentedDataContainer.getNumSegments(); segmentId++) {
+            if (segmentsToL1.contains(segmentId)) {
+               keysToL1.addAll(segmentedDataContainer.keySet(segmentId));
+            } else if (!newSegments.contains(segmentId)) {
+               keysToRemove.addAll(segmentedDataContainer.keySet(segmentId));
+            }
+         }
+      } else {
+         for (InternalCacheEntry ice : dataContainer) {
+            Object key = ice.getKey();
+            int keySegment = getSegment(key);
+            if (segmentsToL1.contains(keySegment)) {
+               keysToL1.add(key);
+            } else if (!newSegments.contains(keySegment)) {
+               keysToRemove.add(key);
+            }
          }
       }
 
       // gather all keys from cache store that belong to the segments that are being removed/moved to L1
       CacheStore cacheStore = getCacheStore();
       if (cacheStore != null) {
-         //todo [anistor] extend CacheStore interface to be able to specify a filter when loading keys (ie. keys should belong to desired segments)
+         // only load the keys, the values of the stored entries are not needed
          try {
             Set<Object> storedKeys = cacheStore.loadAllKeys(new ReadOnlyDataContainerBackedKeySet(dataContainer));
             for (Object key : storedKeys) {
@@ -851,7 +1018,6 @@ private void invalidateSegments(Set<Integer> newSegments, Set<Integer> segmentsT
                   keysToRemove.add(key);
                }
             }
-
          } catch (CacheLoaderException e) {
             log.failedLoadingKeysFromCacheStore(e);
          }
@@ -925,6 +1091,17 @@ private void restartBrokenTransfers(CacheTopology cacheTopology, Set<Integer> ad
       }
    }
 
+   /**
+    * @return the data container, if its segments are those of the consistent hash of the cache, or null
+    */
+   private SegmentedDataContainer getSegmentedDataContainer() {
+      if (dataContainer instanceof SegmentedDataContainer
+            && ((SegmentedDataContainer) dataContainer).matches(cacheTopology.getReadConsistentHash())) {
+         return (SegmentedDataContainer) dataContainer;
+      }
+      return null;
+   }
+
    private int getSegment(Object key) {
       // here we can use any CH version because the routing table is not involved in computing the segment
       return cacheTopology.getReadConsistentHash().getSegment(key);
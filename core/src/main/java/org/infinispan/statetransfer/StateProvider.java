@@ -29,6 +29,7 @@
 import org.infinispan.topology.CacheTopology;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -82,6 +83,23 @@ public interface StateProvider {
     */
    void cancelOutboundTransfer(Address destination, int topologyId, Set<Integer> segments);
 
+   /**
+    * Computes the digests of the entries that belong to the given set of segments, so that a node restarting with the
+    * entries it saved in its cache store can tell which segments did not change while it was away. This is invoked in
+    * response to a StateRequestCommand of type StateRequestCommand.Type.GET_SEGMENT_DIGESTS.
+    *
+    * @param destination the address of the requester
+    * @param topologyId
+    * @param segments
+    * @return the digests of the given segments
+    */
+   Map<Integer, SegmentDigest> getSegmentDigests(Address destination, int topologyId, Set<Integer> segments) throws InterruptedException;
+
+   /**
+    * @return the statistics of the outbound state transfers of this cache on this node
+    */
+   OutboundTransferStatistics getOutboundTransferStatistics();
+
    void start();
 
    /**
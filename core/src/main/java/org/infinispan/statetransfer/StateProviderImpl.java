@@ -24,16 +24,21 @@
 package org.infinispan.statetransfer;
 
 import org.infinispan.Cache;
+import org.infinispan.CacheException;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.notifications.Listener;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.notifications.cachelistener.annotation.TopologyChanged;
@@ -43,6 +48,7 @@
 import org.infinispan.topology.CacheTopology;
 import org.infinispan.transaction.TransactionTable;
 import org.infinispan.transaction.xa.CacheTransaction;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -50,6 +56,7 @@
 import java.util.concurrent.ExecutorService;
 
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
 /**
  * {@link StateProvider} implementation.
@@ -73,8 +80,22 @@ public class StateProviderImpl implements StateProvider {
    private CacheLoaderManager cacheLoaderManager; // optional
    private ExecutorService executorService;
    private StateTransferLock stateTransferLock;
+   private TimeService timeService;
+   private StreamingMarshaller marshaller;
    private long timeout;
    private int chunkSize;
+   private int maxInFlightChunks;
+
+   /**
+    * Shared by all the outbound transfers of this cache, so that together they do not exceed
+    * {@link org.infinispan.configuration.cache.StateTransferConfiguration#maxBytesPerSecond()}. {@code null} if
+    * unlimited.
+    */
+   private TransferRateLimiter rateLimiter;
+
+   private final OutboundTransferStatistics statistics = new OutboundTransferStatistics();
+
+   private SegmentDigester segmentDigester;
 
    private StateConsumer stateConsumer;
 
@@ -98,7 +119,9 @@ public void init(Cache cache,
                     DataContainer dataContainer,
                     TransactionTable transactionTable,
                     StateTransferLock stateTransferLock,
-                    StateConsumer stateConsumer) {
+                    StateConsumer stateConsumer,
+                    TimeService timeService,
+                    @ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller) {
       this.cacheName = cache.getName();
       this.executorService = executorService;
       this.configuration = configuration;
@@ -110,12 +133,19 @@ public void init(Cache cache,
       this.transactionTable = transactionTable;
       this.stateTransferLock = stateTransferLock;
       this.stateConsumer = stateConsumer;
+      this.timeService = timeService;
+      this.marshaller = marshaller;
 
       timeout = configuration.clustering().stateTransfer().timeout();
 
       // ignore chunk sizes <= 0
       int chunkSize = configuration.clustering().stateTransfer().chunkSize();
       this.chunkSize = chunkSize > 0 ? chunkSize : Integer.MAX_VALUE;
+
+      maxInFlightChunks = configuration.clustering().stateTransfer().maxInFlightChunks();
+      segmentDigester = new SegmentDigester(marshaller, timeService);
+      long maxBytesPerSecond = configuration.clustering().stateTransfer().maxBytesPerSecond();
+      rateLimiter = maxBytesPerSecond > 0 ? new TransferRateLimiter(maxBytesPerSecond, timeService) : null;
    }
 
    public boolean isStateTransferInProgress() {
@@ -289,6 +319,26 @@ public void startOutboundTransfer(Address destination, int requestTopologyId, Se
       outboundTransfer.execute(executorService);
    }
 
+   @Override
+   public Map<Integer, SegmentDigest> getSegmentDigests(Address destination, int requestTopologyId, Set<Integer> segments)
+         throws InterruptedException {
+      if (trace) {
+         log.tracef("Received request for the digests of segments %s from node %s with topology id %d for cache %s", segments,
+               destination, requestTopologyId, cacheName);
+      }
+
+      final CacheTopology cacheTopology = getCacheTopology(requestTopologyId, destination, false);
+      CacheStore cacheStore = null;
+      if (cacheLoaderManager.isEnabled() && !cacheLoaderManager.isShared() && cacheLoaderManager.isFetchPersistentState()) {
+         cacheStore = cacheLoaderManager.getCacheStore();
+      }
+      try {
+         return segmentDigester.computeDigests(cacheTopology.getReadConsistentHash(), segments, dataContainer, cacheStore);
+      } catch (CacheLoaderException e) {
+         throw new CacheException("Failed to compute the digests of segments " + segments, e);
+      }
+   }
+
    private void addTransfer(OutboundTransferTask transferTask) {
       if (trace) {
          log.tracef("Adding outbound transfer of segments %s to %s", transferTask.getSegments(), transferTask.getDestination());
@@ -341,4 +391,34 @@ void onTaskCompletion(OutboundTransferTask transferTask) {
 
       removeTransfer(transferTask);
    }
+
+   @Override
+   public OutboundTransferStatistics getOutboundTransferStatistics() {
+      return statistics;
+   }
+
+   int getMaxInFlightChunks() {
+      return maxInFlightChunks;
+   }
+
+   TransferRateLimiter getRateLimiter() {
+      return rateLimiter;
+   }
+
+   TimeService getTimeService() {
+      return timeService;
+   }
+
+   /**
+    * Estimates the number of bytes an entry takes when sent to another node, without marshalling it.
+    */
+   int estimateSize(InternalCacheEntry ice) {
+      return estimateSize(ice.getKey()) + estimateSize(ice.getValue());
+   }
+
+   private int estimateSize(Object o) {
+      if (o == null) return 0;
+      if (o instanceof byte[]) return ((byte[]) o).length;
+      return marshaller.getBufferSizePredictor(o).nextSize(o);
+   }
 }
@@ -45,7 +45,8 @@ public class StateRequestCommand extends BaseRpcCommand {
    public enum Type {
       GET_TRANSACTIONS,
       START_STATE_TRANSFER,
-      CANCEL_STATE_TRANSFER
+      CANCEL_STATE_TRANSFER,
+      GET_SEGMENT_DIGESTS
    }
 
    public static final byte COMMAND_ID = 15;
@@ -97,6 +98,9 @@ public Object perform(InvocationContext ctx) throws Throwable {
                // originator does not care about the result, so we can return null
                return null;
 
+            case GET_SEGMENT_DIGESTS:
+               return stateProvider.getSegmentDigests(getOrigin(), topologyId, segments);
+
             default:
                throw new CacheException("Unknown state request command type: " + type);
          }
@@ -112,7 +116,7 @@ public boolean isReturnValueExpected() {
 
    @Override
    public boolean canBlock() {
-      return type == Type.GET_TRANSACTIONS || type == Type.START_STATE_TRANSFER;
+      return type == Type.GET_TRANSACTIONS || type == Type.START_STATE_TRANSFER || type == Type.GET_SEGMENT_DIGESTS;
    }
 
    public Type getType() {
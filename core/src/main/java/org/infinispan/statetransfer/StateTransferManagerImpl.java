@@ -40,7 +40,11 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.DisplayType;
 import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.rpc.RpcOptions;
@@ -294,4 +298,44 @@ public void notifyEndOfRebalance(int topologyId) {
    public boolean ownsData() {
       return stateConsumer.ownsData();
    }
+
+   @ManagedAttribute(description = "Number of outbound state transfers in progress", displayName = "Active outbound transfers", displayType = DisplayType.SUMMARY)
+   public int getActiveOutboundTransferCount() {
+      return stateProvider.getOutboundTransferStatistics().getActiveTransferCount();
+   }
+
+   @ManagedAttribute(description = "Progress of the outbound state transfers in progress, one per line", displayName = "Outbound transfers progress")
+   public String getOutboundTransfersProgress() {
+      return stateProvider.getOutboundTransferStatistics().getActiveTransfers();
+   }
+
+   @ManagedAttribute(description = "Number of state chunks sent to other nodes", displayName = "Chunks sent", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getChunksSent() {
+      return stateProvider.getOutboundTransferStatistics().getChunksSent();
+   }
+
+   @ManagedAttribute(description = "Number of cache entries sent to other nodes", displayName = "Entries sent", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getEntriesSent() {
+      return stateProvider.getOutboundTransferStatistics().getEntriesSent();
+   }
+
+   @ManagedAttribute(description = "Estimated number of bytes of cache entries sent to other nodes", displayName = "Bytes sent", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getBytesSent() {
+      return stateProvider.getOutboundTransferStatistics().getBytesSent();
+   }
+
+   @ManagedAttribute(description = "Number of outbound state transfers completed", displayName = "Completed outbound transfers", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getCompletedOutboundTransfers() {
+      return stateProvider.getOutboundTransferStatistics().getCompletedTransfers();
+   }
+
+   @ManagedAttribute(description = "Average throughput of the completed outbound state transfers, in estimated bytes per second", displayName = "Average outbound throughput", displayType = DisplayType.SUMMARY)
+   public long getAverageOutboundThroughput() {
+      return stateProvider.getOutboundTransferStatistics().getAverageThroughput();
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      stateProvider.getOutboundTransferStatistics().reset();
+   }
 }
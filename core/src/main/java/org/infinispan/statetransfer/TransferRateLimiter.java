@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.TimeService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate at which bytes of state are sent, shared by all the outbound transfers of a cache on a node.
+ * <p/>
+ * Senders reserve the bytes they are about to send and sleep until the reservation fits in the rate. Unused budget
+ * accumulates for at most one second, so that a transfer starting after an idle period can only burst by one second
+ * worth of bytes.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+class TransferRateLimiter {
+
+   private static final long MAX_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+   private final long bytesPerSecond;
+   private final TimeService timeService;
+
+   /**
+    * Time at which the bytes reserved so far will have been sent at the configured rate.
+    */
+   private long budgetTime = Long.MIN_VALUE;
+
+   TransferRateLimiter(long bytesPerSecond, TimeService timeService) {
+      if (bytesPerSecond <= 0)
+         throw new IllegalArgumentException("bytesPerSecond must be greater than 0");
+      this.bytesPerSecond = bytesPerSecond;
+      this.timeService = timeService;
+   }
+
+   /**
+    * Waits until the given number of bytes can be sent without exceeding the rate.
+    *
+    * @throws InterruptedException if interrupted while waiting, e.g. because the transfer was cancelled
+    */
+   void acquire(long bytes) throws InterruptedException {
+      long waitNanos = reserve(bytes);
+      if (waitNanos > 0) {
+         TimeUnit.NANOSECONDS.sleep(waitNanos);
+      }
+   }
+
+   /**
+    * @return the time to wait, in nanoseconds, before sending the bytes
+    */
+   synchronized long reserve(long bytes) {
+      long now = timeService.time();
+      if (budgetTime < now - MAX_BURST_NANOS) {
+         budgetTime = now - MAX_BURST_NANOS;
+      }
+      budgetTime += bytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+      return budgetTime - now;
+   }
+
+   long getBytesPerSecond() {
+      return bytesPerSecond;
+   }
+}
@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import org.infinispan.util.Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The state a node saves when its cache stops cleanly, so that it can skip the transfer of the segments which did not
+ * change when it joins again: the id of its last topology, the number of segments of the consistent hash and the
+ * digests of the segments it owned.
+ * <p/>
+ * Addresses change when a node restarts, so the rest of the topology is of no use after a restart and is not saved.
+ *
+ * @since 5.3
+ */
+class WarmRestartState {
+
+   private static final int FORMAT_VERSION = 2;
+
+   private final int topologyId;
+   private final int numSegments;
+   private final Map<Integer, SegmentDigest> digests;
+
+   WarmRestartState(int topologyId, int numSegments, Map<Integer, SegmentDigest> digests) {
+      this.topologyId = topologyId;
+      this.numSegments = numSegments;
+      this.digests = digests;
+   }
+
+   int getTopologyId() {
+      return topologyId;
+   }
+
+   int getNumSegments() {
+      return numSegments;
+   }
+
+   /**
+    * @return the digests of the segments owned by the node when it stopped
+    */
+   Map<Integer, SegmentDigest> getDigests() {
+      return Collections.unmodifiableMap(digests);
+   }
+
+   /**
+    * Writes the state to a temporary file first, so that a node stopping half way does not leave a partial state
+    * behind.
+    */
+   void write(File file) throws IOException {
+      File dir = file.getParentFile();
+      if (dir != null && !dir.exists() && !dir.mkdirs())
+         throw new IOException("Cannot create directory " + dir);
+
+      File tmp = new File(file.getPath() + ".tmp");
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+      try {
+         out.writeInt(FORMAT_VERSION);
+         out.writeInt(topologyId);
+         out.writeInt(numSegments);
+         out.writeInt(digests.size());
+         for (Map.Entry<Integer, SegmentDigest> e : digests.entrySet()) {
+            out.writeInt(e.getKey());
+            out.writeLong(e.getValue().getEntryCount());
+            out.write(e.getValue().getHash());
+         }
+      } finally {
+         Util.close(out);
+      }
+      if (!tmp.renameTo(file)) {
+         tmp.delete();
+         throw new IOException("Cannot rename " + tmp + " to " + file);
+      }
+   }
+
+   /**
+    * Reads the state saved in a file.
+    *
+    * @return the state, or {@code null} if there is no such file
+    */
+   static WarmRestartState read(File file) throws IOException {
+      if (!file.exists())
+         return null;
+
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try {
+         int version = in.readInt();
+         if (version != FORMAT_VERSION)
+            throw new IOException("Unknown format version " + version + " of " + file);
+         int topologyId = in.readInt();
+         int numSegments = in.readInt();
+         int size = in.readInt();
+         Map<Integer, SegmentDigest> digests = new HashMap<Integer, SegmentDigest>(size);
+         for (int i = 0; i < size; i++) {
+            int segmentId = in.readInt();
+            long entryCount = in.readLong();
+            byte[] hash = new byte[SegmentDigest.HASH_LENGTH];
+            in.readFully(hash);
+            digests.put(segmentId, new SegmentDigest(entryCount, hash));
+         }
+         return new WarmRestartState(topologyId, numSegments, digests);
+      } finally {
+         Util.close(in);
+      }
+   }
+}
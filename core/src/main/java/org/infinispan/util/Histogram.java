@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.util;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values, with buckets growing in powers of two: the first bucket counts the value 0 and
+ * bucket {@code i} counts the values in {@code [2^(i-1), 2^i)}. Recording a value is lock-free and doesn't allocate,
+ * so it can be done on every operation; the price is that percentiles are only known up to a factor of two.
+ *
+ * @since 5.3
+ */
+@ThreadSafe
+public class Histogram {
+
+   private static final int BUCKETS = 64;
+
+   private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong sum = new AtomicLong();
+
+   /**
+    * Records a value. Negative values are recorded as 0.
+    */
+   public void record(long value) {
+      if (value < 0) value = 0;
+      buckets.incrementAndGet(bucketFor(value));
+      count.incrementAndGet();
+      sum.addAndGet(value);
+   }
+
+   /**
+    * @return the number of values recorded
+    */
+   public long getCount() {
+      return count.get();
+   }
+
+   /**
+    * @return the average of the values recorded, or 0 if there are none
+    */
+   public double getAverage() {
+      long count = this.count.get();
+      return count == 0 ? 0 : (double) sum.get() / count;
+   }
+
+   /**
+    * Returns an upper bound of the given percentile of the recorded values, i.e. the upper limit of the bucket holding
+    * it.
+    *
+    * @param percentile the percentile, between 0 and 100
+    * @return the upper bound of the percentile, or 0 if no values were recorded
+    */
+   public long getPercentile(double percentile) {
+      if (percentile < 0 || percentile > 100)
+         throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+      long count = this.count.get();
+      if (count == 0) return 0;
+      long threshold = (long) Math.ceil(count * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += buckets.get(i);
+         if (seen >= threshold && seen > 0)
+            return upperBound(i);
+      }
+      return Long.MAX_VALUE;
+   }
+
+   /**
+    * Adds the values recorded by another histogram to this one, e.g. to aggregate the histograms of several
+    * components.
+    */
+   public void add(Histogram other) {
+      for (int i = 0; i < BUCKETS; i++) {
+         long bucketCount = other.buckets.get(i);
+         if (bucketCount != 0)
+            buckets.addAndGet(i, bucketCount);
+      }
+      count.addAndGet(other.count.get());
+      sum.addAndGet(other.sum.get());
+   }
+
+   public void reset() {
+      for (int i = 0; i < BUCKETS; i++)
+         buckets.set(i, 0);
+      count.set(0);
+      sum.set(0);
+   }
+
+   /**
+    * @return the non-empty buckets, in the form {@code [low-high]=count}
+    */
+   @Override
+   public String toString() {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < BUCKETS; i++) {
+         long bucketCount = buckets.get(i);
+         if (bucketCount == 0) continue;
+         if (sb.length() > 0) sb.append(", ");
+         long low = i == 0 ? 0 : 1L << (i - 1);
+         long high = upperBound(i);
+         sb.append('[').append(low);
+         if (high != low) sb.append('-').append(high);
+         sb.append("]=").append(bucketCount);
+      }
+      return sb.toString();
+   }
+
+   private static int bucketFor(long value) {
+      return 64 - Long.numberOfLeadingZeros(value);
+   }
+
+   private static long upperBound(int bucket) {
+      return bucket == 0 ? 0 : (bucket == 63 ? Long.MAX_VALUE : (1L << bucket) - 1);
+   }
+}
@@ -32,6 +32,7 @@
 
 package org.infinispan.util.concurrent;
 import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.util.Equivalence;
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.Util;
@@ -41,9 +42,9 @@
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 
 
@@ -159,6 +160,12 @@
     */
    static final int MAX_SEGMENTS = 1 << 16; // slightly conservative
 
+   /**
+    * The initial capacity of each segment table when the map is bounded
+    * by weight, as the number of entries is not known up front.
+    */
+   static final int DEFAULT_SEGMENT_CAPACITY = 16;
+
    /**
     * Number of unsynchronized retries in size and containsValue
     * methods before resorting to locking. This is used to avoid
@@ -194,6 +201,17 @@
    private transient final EvictionListener<K, V> evictionListener;
    private final int evictCap;
 
+   /**
+    * Calculates the weight of each entry when the map is bounded by weight rather than by number of entries,
+    * null otherwise.
+    */
+   private transient final EntrySizeCalculator<? super K, ? super V> sizeCalculator;
+
+   /**
+    * Maximum weight of each segment when the map is bounded by weight, -1 otherwise.
+    */
+   private final long evictWeightCap;
+
    /* ---------------- Small Utilities -------------- */
 
    /**
@@ -242,6 +260,10 @@ final Segment<K,V> segmentFor(int hash) {
       final int hash;
       volatile V value;
       final HashEntry<K, V> next;
+      // weight of the entry when bounded by weight, as computed when the value was stored: removals subtract this
+      // same weight, even if the size calculator would now give another one. Only accessed while holding the
+      // segment lock
+      long weight;
 
       HashEntry(K key, int hash, HashEntry<K, V> next, V value) {
          this.key = key;
@@ -304,6 +326,12 @@ public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf)
          public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
             return new LIRS<K,V>(s,capacity,capacity*10,lf);
          }
+      },
+      TINYLFU {
+         @Override
+         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
+            return new TinyLFU<K,V>(s,capacity,capacity*10,lf);
+         }
       };
 
       abstract <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf);
@@ -388,6 +416,18 @@ public void onEntryRemoved(Object key) {
        */
       void onEntryRemove(HashEntry<K, V> e);
 
+      /**
+       * Invoked to notify EvictionPolicy implementation that entry e has been cloned into
+       * replacement while rehashing the Segment, so that replacement can take over the position
+       * of e in the eviction order.
+       *
+       * @param e
+       *            entry no longer present in Segment
+       * @param replacement
+       *            entry replacing e in Segment
+       */
+      void onEntryReplaced(HashEntry<K, V> e, HashEntry<K, V> replacement);
+
       /**
        * Invoked to notify EvictionPolicy implementation that all Segment entries have been
        * cleared.
@@ -439,6 +479,11 @@ public void onEntryRemove(HashEntry<K, V> e) {
          // Do nothing.
       }
 
+      @Override
+      public void onEntryReplaced(HashEntry<K, V> e, HashEntry<K, V> replacement) {
+         // Do nothing.
+      }
+
       @Override
       public boolean thresholdExpired() {
          return false;
@@ -455,38 +500,182 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       }
    }
 
+   /**
+    * Buffer recording the accesses to the entries of a segment so that the eviction policy can
+    * replay them in batch while holding the segment lock. See "BP-Wrapper: a system framework
+    * making any replacement algorithms (almost) lock contention free"
+    * http://www.cse.ohio-state.edu/hpcs/WWW/HTML/publications/abs09-1.html
+    * <p>
+    * Readers never wait for the segment lock either way: they only tryLock it to drain a batch.
+    * What the buffer bounds is the cost of recording an access. The buffer is made of several
+    * fixed size ring buffers, or stripes, and each thread records its accesses in the stripe
+    * picked by its id, so recording neither allocates a queue node nor increments a counter
+    * shared by all readers, and a segment never holds more than a fixed number of pending
+    * accesses. If the stripe is full or another thread is writing to the same slot, the access is
+    * simply dropped. Losing a few accesses only makes the eviction order slightly less accurate.
+    * Since a drain is only requested by the threads whose stripe reaches the threshold, readers
+    * also make somewhat fewer failed tryLock attempts.
+    * <p>
+    * Recording is thread-safe, while {@link #drainTo(Collection)} and {@link #clear()} must only be
+    * called while holding the segment lock. Entries may have been removed from the segment by the
+    * time they are drained, which the eviction policies have to check.
+    */
+   static final class AccessBuffer<E> {
+
+      /** Number of accesses each stripe can hold, a power of two. */
+      static final int STRIPE_CAPACITY = 16;
+
+      /** Number of stripes, a power of two which scales with the number of processors. */
+      static final int STRIPES;
+
+      /** Counters are spaced out so that the counters of different stripes do not share a cache line. */
+      private static final int COUNTER_SPACING = 8;
+
+      static {
+         int stripes = 1;
+         int processors = Math.min(Runtime.getRuntime().availableProcessors(), 16);
+         while (stripes < processors) {
+            stripes <<= 1;
+         }
+         STRIPES = stripes;
+      }
+
+      private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<E>(STRIPES * STRIPE_CAPACITY);
+      private final AtomicLongArray writeCounts = new AtomicLongArray(STRIPES * COUNTER_SPACING);
+      private final AtomicLongArray readCounts = new AtomicLongArray(STRIPES * COUNTER_SPACING);
+      private final int drainThreshold;
+
+      /**
+       * @param maxBatchSize maximum number of accesses to batch, capped to
+       *                     {@link EvictionPolicy#MAX_BATCH_SIZE} and to the stripe capacity
+       * @param batchThresholdFactor share of maxBatchSize at which the buffer should be drained
+       */
+      AccessBuffer(int maxBatchSize, float batchThresholdFactor) {
+         int batchSize = Math.min(Math.min(maxBatchSize, EvictionPolicy.MAX_BATCH_SIZE), STRIPE_CAPACITY);
+         this.drainThreshold = Math.max(1, (int) (batchThresholdFactor * batchSize));
+      }
+
+      /**
+       * Records an access, unless the stripe of the current thread is full or contended.
+       * <p>
+       * Invoked without holding a lock on Segment.
+       *
+       * @return true if the buffer should be drained
+       */
+      boolean offer(E e) {
+         int stripe = stripeIndex();
+         int counter = stripe * COUNTER_SPACING;
+         long head = readCounts.get(counter);
+         long tail = writeCounts.get(counter);
+         long size = tail - head;
+         if (size >= STRIPE_CAPACITY) {
+            return true;
+         }
+         if (writeCounts.compareAndSet(counter, tail, tail + 1)) {
+            buffer.lazySet(stripe * STRIPE_CAPACITY + (int) (tail & (STRIPE_CAPACITY - 1)), e);
+            return size + 1 >= drainThreshold;
+         }
+         return false;
+      }
+
+      /**
+       * Returns true if any stripe has reached the drain threshold.
+       * <p>
+       * Invoked without holding a lock on Segment.
+       */
+      boolean isDrainRequired() {
+         for (int i = 0; i < STRIPES; i++) {
+            int counter = i * COUNTER_SPACING;
+            if (writeCounts.get(counter) - readCounts.get(counter) >= drainThreshold) {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      /**
+       * Moves all the recorded accesses to the given collection, in the order they were recorded
+       * within each stripe. Call only while holding the segment lock.
+       */
+      void drainTo(Collection<? super E> target) {
+         for (int i = 0; i < STRIPES; i++) {
+            int counter = i * COUNTER_SPACING;
+            long head = readCounts.get(counter);
+            long tail = writeCounts.get(counter);
+            for (; head < tail; head++) {
+               int index = i * STRIPE_CAPACITY + (int) (head & (STRIPE_CAPACITY - 1));
+               E e = buffer.get(index);
+               if (e == null) {
+                  // the writer has claimed the slot but not published the entry yet
+                  break;
+               }
+               buffer.lazySet(index, null);
+               target.add(e);
+            }
+            readCounts.lazySet(counter, head);
+         }
+      }
+
+      /**
+       * Discards all the recorded accesses. Call only while holding the segment lock.
+       */
+      void clear() {
+         for (int i = 0; i < STRIPES; i++) {
+            int counter = i * COUNTER_SPACING;
+            long head = readCounts.get(counter);
+            long tail = writeCounts.get(counter);
+            for (; head < tail; head++) {
+               int index = i * STRIPE_CAPACITY + (int) (head & (STRIPE_CAPACITY - 1));
+               if (buffer.get(index) == null) {
+                  break;
+               }
+               buffer.lazySet(index, null);
+            }
+            readCounts.lazySet(counter, head);
+         }
+      }
+
+      private static int stripeIndex() {
+         long id = Thread.currentThread().getId();
+         int h = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+         return (h ^ (h >>> 16)) & (STRIPES - 1);
+      }
+   }
+
    static final class LRU<K, V> extends LinkedHashMap<HashEntry<K,V>, V> implements EvictionPolicy<K, V> {
 
       /** The serialVersionUID */
       private static final long serialVersionUID = -7645068174197717838L;
 
-      private final ConcurrentLinkedQueue<HashEntry<K, V>> accessQueue;
+      private final AccessBuffer<HashEntry<K, V>> accessBuffer;
+      private final List<HashEntry<K, V>> accessed = new ArrayList<HashEntry<K, V>>();
       private final Segment<K,V> segment;
-      private final int maxBatchQueueSize;
       private final int trimDownSize;
-      private final float batchQueueSizeThreshold;
       private final Set<HashEntry<K, V>> evicted;
-      private final AtomicInteger accessQueueSize = new AtomicInteger(0);
+      private final long trimDownWeight;
 
       public LRU(Segment<K,V> s, int capacity, float lf, int maxBatchSize, float batchThresholdFactor) {
          super(capacity, lf, true);
          this.segment = s;
          this.trimDownSize = capacity;
-         this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
-         this.batchQueueSizeThreshold = batchThresholdFactor * this.maxBatchQueueSize;
-         this.accessQueue = new ConcurrentLinkedQueue<HashEntry<K, V>>();
+         this.trimDownWeight = s.weightCap;
+         this.accessBuffer = new AccessBuffer<HashEntry<K, V>>(maxBatchSize, batchThresholdFactor);
          this.evicted = new HashSet<HashEntry<K, V>>();
       }
 
       @Override
       public Set<HashEntry<K, V>> execute() {
          Set<HashEntry<K, V>> evictedCopy = new HashSet<HashEntry<K, V>>();
-         for (HashEntry<K, V> e : accessQueue) {
-            put(e, e.value);
+         accessBuffer.drainTo(accessed);
+         for (HashEntry<K, V> e : accessed) {
+            // moves e to the most recently used end, unless it has been removed since
+            get(e);
+         }
+         accessed.clear();
+         if (segment.isWeighted()) {
+            evictWhileAboveThreshold();
          }
          evictedCopy.addAll(evicted);
-         accessQueue.clear();
-         accessQueueSize.set(0);
          evicted.clear();
          return evictedCopy;
       }
@@ -494,6 +683,9 @@ public Set<HashEntry<K, V>> execute() {
       @Override
       public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> e) {
          put(e, e.value);
+         if (segment.isWeighted()) {
+            evictWhileAboveThreshold();
+         }
          if (!evicted.isEmpty()) {
             Set<HashEntry<K, V>> evictedCopy = new HashSet<HashEntry<K, V>>();
             evictedCopy.addAll(evicted);
@@ -509,9 +701,7 @@ public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> e) {
        */
       @Override
       public boolean onEntryHit(HashEntry<K, V> e) {
-         accessQueue.add(e);
-         int sz = accessQueueSize.incrementAndGet();
-         return sz >= batchQueueSizeThreshold;
+         return accessBuffer.offer(e);
       }
 
       /*
@@ -519,23 +709,23 @@ public boolean onEntryHit(HashEntry<K, V> e) {
        */
       @Override
       public boolean thresholdExpired() {
-         return accessQueueSize.get() >= maxBatchQueueSize;
+         return accessBuffer.isDrainRequired();
       }
 
       @Override
       public void onEntryRemove(HashEntry<K, V> e) {
          remove(e);
-         // we could have multiple instances of e in accessQueue; remove them all
-         while (accessQueue.remove(e)) {
-            accessQueueSize.decrementAndGet();            
-         }
+      }
+
+      @Override
+      public void onEntryReplaced(HashEntry<K, V> e, HashEntry<K, V> replacement) {
+         // Entries are keyed by hash and key so replacement already holds the position of e
       }
 
       @Override
       public void clear() {
          super.clear();
-         accessQueue.clear();
-         accessQueueSize.set(0);
+         accessBuffer.clear();
       }
 
       @Override
@@ -544,11 +734,34 @@ public Eviction strategy() {
       }
 
       protected boolean isAboveThreshold(){
+         if (segment.isWeighted()) {
+            return segment.weightedSize > trimDownWeight;
+         }
          return size() > trimDownSize;
       }
 
+      /**
+       * Evicts the least recently used entries until the segment weight drops below its bound. A
+       * single insertion or update can push the segment above its bound by more than one entry,
+       * hence this is used instead of {@link #removeEldestEntry(Map.Entry)} when bounded by weight.
+       */
+      private void evictWhileAboveThreshold() {
+         while (isAboveThreshold() && !isEmpty()) {
+            HashEntry<K, V> eldest = keySet().iterator().next();
+            remove(eldest);
+            // eldest may have been replaced by a clone since it was recorded, so use the current value
+            V value = segment.remove(eldest.key, eldest.hash, null, true);
+            if (value != null) {
+               evicted.add(new HashEntry<K, V>(eldest.key, eldest.hash, null, value));
+            }
+         }
+      }
+
       @Override
       protected boolean removeEldestEntry(Map.Entry<HashEntry<K,V>,V> eldest){
+         if (segment.isWeighted()) {
+            return false;
+         }
          boolean aboveThreshold = isAboveThreshold();
          if(aboveThreshold){
             HashEntry<K, V> evictedEntry = eldest.getKey();
@@ -573,22 +786,20 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
 
       private static final long serialVersionUID = -6475176618082216057L;
 
-      private final ConcurrentLinkedQueue<LRUHashEntry<K, V>> accessQueue;
+      private final AccessBuffer<LRUHashEntry<K, V>> accessBuffer;
+      private final List<LRUHashEntry<K, V>> accessed = new ArrayList<LRUHashEntry<K, V>>();
       private final Segment<K,V> segment;
-      private final int maxBatchQueueSize;
       private final int trimDownSize;
-      private final float batchQueueSizeThreshold;
       private final Set<HashEntry<K, V>> evicted;
       private LRUHashEntry<K, V> head;
-      private final AtomicInteger accessQueueSize = new AtomicInteger(0);
+      private final long trimDownWeight;
 
       public IBMLRU(Segment<K,V> s, int capacity, float lf, int maxBatchSize, float batchThresholdFactor) {
          super(capacity, lf);
          this.segment = s;
          this.trimDownSize = capacity;
-         this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
-         this.batchQueueSizeThreshold = batchThresholdFactor * this.maxBatchQueueSize;
-         this.accessQueue = new ConcurrentLinkedQueue<LRUHashEntry<K, V>>();
+         this.trimDownWeight = s.weightCap;
+         this.accessBuffer = new AccessBuffer<LRUHashEntry<K, V>>(maxBatchSize, batchThresholdFactor);
          this.evicted = new HashSet<HashEntry<K, V>>();
          this.head = (LRUHashEntry<K, V>) createNewEntry(null,-1, null, null);
          this.head.previousEntry = this.head.nextEntry = this.head;
@@ -597,13 +808,16 @@ public IBMLRU(Segment<K,V> s, int capacity, float lf, int maxBatchSize, float ba
       @Override
       public Set<HashEntry<K, V>> execute() {
          Set<HashEntry<K, V>> evictedCopy = new HashSet<HashEntry<K, V>>();
-         for (HashEntry<K, V> e : accessQueue) {
-            put(e, e.value);
-            addAndRemoveEldest(e);
+         accessBuffer.drainTo(accessed);
+         for (LRUHashEntry<K, V> e : accessed) {
+            // entries removed since they were accessed are no longer linked
+            if (e.previousEntry != null) {
+               e.remove();
+               addAndRemoveEldest(e);
+            }
          }
+         accessed.clear();
          evictedCopy.addAll(evicted);
-         accessQueue.clear();
-         accessQueueSize.set(0);
          evicted.clear();
          return evictedCopy;
       }
@@ -624,7 +838,8 @@ public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> e) {
 
       public void addAndRemoveEldest(HashEntry<K, V> entry) {
          ((LRUHashEntry<K, V>)entry).addBefore(head);
-         if (isAboveThreshold()) {
+         // when bounded by weight a single entry may push the segment above its bound by more than one entry
+         while (isAboveThreshold() && head.nextEntry != head) {
             remove(head.nextEntry);
             LRUHashEntry<K, V> evictedEntry = head.nextEntry;
             //remove eldest entry from doubly-linked list
@@ -639,9 +854,7 @@ public void addAndRemoveEldest(HashEntry<K, V> entry) {
        */
       @Override
       public boolean onEntryHit(HashEntry<K, V> e) {
-         accessQueue.add((LRUHashEntry<K, V>) e);
-         int sz = accessQueueSize.incrementAndGet();
-         return sz >= batchQueueSizeThreshold;
+         return accessBuffer.offer((LRUHashEntry<K, V>) e);
       }
 
       /*
@@ -649,7 +862,7 @@ public boolean onEntryHit(HashEntry<K, V> e) {
        */
       @Override
       public boolean thresholdExpired() {
-         return accessQueueSize.get() >= maxBatchQueueSize;
+         return accessBuffer.isDrainRequired();
       }
 
       @Override
@@ -657,9 +870,18 @@ public void onEntryRemove(HashEntry<K, V> e) {
          remove(e);
          //remove entry from doubly-linked list
          ((LRUHashEntry<K, V>)e).remove();
-         // we could have multiple instances of e in accessQueue; remove them all
-         while (accessQueue.remove(e)) {
-            accessQueueSize.decrementAndGet();            
+      }
+
+      @Override
+      public void onEntryReplaced(HashEntry<K, V> e, HashEntry<K, V> replacement) {
+         LRUHashEntry<K, V> old = (LRUHashEntry<K, V>) e;
+         LRUHashEntry<K, V> entry = (LRUHashEntry<K, V>) replacement;
+         if (old.previousEntry != null) {
+            entry.previousEntry = old.previousEntry;
+            entry.nextEntry = old.nextEntry;
+            entry.previousEntry.nextEntry = entry;
+            entry.nextEntry.previousEntry = entry;
+            old.previousEntry = old.nextEntry = null;
          }
       }
 
@@ -667,8 +889,7 @@ public void onEntryRemove(HashEntry<K, V> e) {
       public void clear() {
          super.clear();
          head.previousEntry = head.nextEntry = head;
-         accessQueue.clear();
-         accessQueueSize.set(0);
+         accessBuffer.clear();
       }
 
       @Override
@@ -677,6 +898,9 @@ public Eviction strategy() {
       }
 
       protected boolean isAboveThreshold(){
+         if (segment.isWeighted()) {
+            return segment.weightedSize > trimDownWeight;
+         }
          return size() > trimDownSize;
       }
 
@@ -699,8 +923,11 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       }
 
       private void remove() {
-         previousEntry.nextEntry = nextEntry;
-         nextEntry.previousEntry = previousEntry;
+         if (previousEntry != null) {
+            previousEntry.nextEntry = nextEntry;
+            nextEntry.previousEntry = previousEntry;
+            previousEntry = nextEntry = null;
+         }
       }
 
       private void addBefore(LRUHashEntry<K,V> entry) {
@@ -739,6 +966,9 @@ public boolean equals(Object o) {
       private LIRSHashEntry<K, V> previousInQueue;
       private LIRSHashEntry<K, V> nextInQueue;
       volatile Recency state;
+
+      // share of the LIRS capacity taken by this entry: its weight when bounded by weight, 1 otherwise
+      long units = 1;
       
       LIRS<K, V> owner;
       
@@ -867,7 +1097,10 @@ private void coldHit(Set<HashEntry<K, V>> evicted) {
        */
       private Set<HashEntry<K, V>> miss() {
          Set<HashEntry<K, V>> evicted = InfinispanCollections.emptySet();
-        if (owner.hotSize < owner.maximumHotSize) {
+        if (owner.segment.isWeighted()) {
+          units = weight;
+        }
+        if (owner.hotSize + units <= owner.maximumHotSize) {
           warmupMiss();
         } else {
           evicted = new HashSet<HashEntry<K,V>>(); 
@@ -875,7 +1108,7 @@ private Set<HashEntry<K, V>> miss() {
         }
 
         // now the missed item is in the cache
-        owner.size++;
+        owner.size += units;
         return evicted;
       }
 
@@ -900,11 +1133,15 @@ private void fullMiss(Set<HashEntry<K, V>> evicted) {
 
         // This condition is unspecified in the paper, but appears to be
         // necessary.
-        if (owner.size >= owner.maximumSize) {
-          // "We remove the HIR resident block at the front of list Q (it then
-          // becomes a non-resident block), and replace it out of the cache."
-          LIRSHashEntry<K, V> evictedNode = owner.queueFront();          
+        // "We remove the HIR resident block at the front of list Q (it then
+        // becomes a non-resident block), and replace it out of the cache."
+        // When bounded by weight, more than one block may need to be replaced.
+        long freed = 0;
+        LIRSHashEntry<K, V> evictedNode = owner.queueFront();
+        while (evictedNode != null && owner.size - freed + units > owner.maximumSize) {
           evicted.add(evictedNode);
+          freed += evictedNode.units;
+          evictedNode = evictedNode.nextInQueue == owner.header ? null : evictedNode.nextInQueue;
         }
 
         // "Then we load the requested block X into the freed buffer and place
@@ -932,7 +1169,7 @@ private void fullMiss(Set<HashEntry<K, V>> evicted) {
        */
       private void hot() {
         if (state != Recency.LIR_RESIDENT) {
-          owner.hotSize++;
+          owner.hotSize += units;
         }
         state = Recency.LIR_RESIDENT;
       }
@@ -942,7 +1179,7 @@ private void hot() {
        */
       private void cold() {
         if (state == Recency.LIR_RESIDENT) {
-          owner.hotSize--;
+          owner.hotSize -= units;
         }
         state = Recency.HIR_RESIDENT;
         moveToQueueEnd();
@@ -955,10 +1192,10 @@ private void cold() {
       private void nonResident() {
         switch (state) {
           case LIR_RESIDENT:
-            owner.hotSize--;
+            owner.hotSize -= units;
             // fallthrough
           case HIR_RESIDENT:
-            owner.size--;
+            owner.size -= units;
             break;
         }
         state = Recency.HIR_NONRESIDENT;
@@ -1130,28 +1367,18 @@ private V remove() {
       private final Segment<K,V> segment;
       
       /**
-       * The accessQueue for reducing lock contention 
+       * The access buffer for reducing lock contention
        * See "BP-Wrapper: a system framework making any replacement algorithms
        * (almost) lock contention free"
        *  
        * http://www.cse.ohio-state.edu/hpcs/WWW/HTML/publications/abs09-1.html
        * 
        * */
-      private final ConcurrentLinkedQueue<LIRSHashEntry<K, V>> accessQueue;
-      private final AtomicInteger accessQueueSize = new AtomicInteger(0);
+      private final AccessBuffer<LIRSHashEntry<K, V>> accessBuffer;
+      private final List<LIRSHashEntry<K, V>> accessed = new ArrayList<LIRSHashEntry<K, V>>();
       
-      /**
-       * The maxBatchQueueSize
-       * 
-       * See "BP-Wrapper: a system framework making any replacement algorithms (almost) lock
-       * contention free"
-       * */
-      private final int maxBatchQueueSize;     
-      
-      /** The number of LIRS entries in a segment */
-      private int size;
-      
-      private final float batchQueueSizeThreshold;
+      /** The number of LIRS entries in a segment, or their total weight when bounded by weight */
+      private long size;
       
       
       /**
@@ -1174,28 +1401,26 @@ private V remove() {
        */
       private final LIRSHashEntry<K,V> header = new LIRSHashEntry<K,V>(null, null,0,null,null);
 
-      /** The maximum number of hot entries (L_lirs in the paper). */
-      private final int maximumHotSize;
+      /** The maximum number (or weight) of hot entries (L_lirs in the paper). */
+      private final long maximumHotSize;
 
-      /** The maximum number of resident entries (L in the paper). */
-      private final int maximumSize ;
+      /** The maximum number (or weight) of resident entries (L in the paper). */
+      private final long maximumSize ;
 
-      /** The actual number of hot entries. */
-      private int hotSize = 0;
+      /** The actual number (or weight) of hot entries. */
+      private long hotSize = 0;
 
             
 
       public LIRS(Segment<K,V> s, int capacity, int maxBatchSize, float batchThresholdFactor) {
          this.segment = s;
-         this.maximumSize = capacity;
-         this.maximumHotSize = calculateLIRSize(capacity);
-         this.maxBatchQueueSize = maxBatchSize > MAX_BATCH_SIZE ? MAX_BATCH_SIZE : maxBatchSize;
-         this.batchQueueSizeThreshold = batchThresholdFactor * this.maxBatchQueueSize;
-         this.accessQueue = new ConcurrentLinkedQueue<LIRSHashEntry<K, V>>();                         
+         this.maximumSize = s.isWeighted() ? s.weightCap : capacity;
+         this.maximumHotSize = calculateLIRSize(maximumSize);
+         this.accessBuffer = new AccessBuffer<LIRSHashEntry<K, V>>(maxBatchSize, batchThresholdFactor);
       }
       
-      private static int calculateLIRSize(int maximumSize) {
-         int result = (int) (L_LIRS * maximumSize);
+      private static long calculateLIRSize(long maximumSize) {
+         long result = (long) (L_LIRS * maximumSize);
          return (result == maximumSize) ? maximumSize - 1 : result;
        }
 
@@ -1203,15 +1428,18 @@ private static int calculateLIRSize(int maximumSize) {
       public Set<HashEntry<K, V>> execute() {
          Set<HashEntry<K, V>> evicted = new HashSet<HashEntry<K, V>>();
          try {
-            for (LIRSHashEntry<K, V> e : accessQueue) {
+            accessBuffer.drainTo(accessed);
+            for (LIRSHashEntry<K, V> e : accessed) {
                if(e.isResident()){ 
                   e.hit(evicted);
                }
             }
+            if (segment.isWeighted()) {
+               trimToMaximumSize(evicted);
+            }
             removeFromSegment(evicted);
          } finally {
-            accessQueue.clear();
-            accessQueueSize.set(0);
+            accessed.clear();
          }
          return evicted;
       }          
@@ -1247,9 +1475,37 @@ private void pruneStack(Set<HashEntry<K,V>> evicted) {
       public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> en) {
          LIRSHashEntry<K, V> e = (LIRSHashEntry<K, V>) en;
          Set<HashEntry<K, V>> evicted = e.miss();
+         if (segment.isWeighted() && segment.weightedSize > maximumSize) {
+            if (evicted.isEmpty()) {
+               evicted = new HashSet<HashEntry<K, V>>();
+            }
+            trimToMaximumSize(evicted);
+         }
          removeFromSegment(evicted);
          return evicted;
       }
+
+      /**
+       * Chooses further entries for eviction until the actual weight of the segment, which also
+       * reflects values updated in place, fits in {@link #maximumSize}. Cold entries are chosen
+       * from the front of the queue first, then hot entries from the bottom of the stack.
+       */
+      private void trimToMaximumSize(Set<HashEntry<K, V>> evicted) {
+         long excess = segment.weightedSize - maximumSize;
+         for (HashEntry<K, V> e : evicted) {
+            excess -= e.weight;
+         }
+         for (LIRSHashEntry<K, V> e = header.nextInQueue; excess > 0 && e != header; e = e.nextInQueue) {
+            if (evicted.add(e)) {
+               excess -= e.weight;
+            }
+         }
+         for (LIRSHashEntry<K, V> e = header.previousInStack; excess > 0 && e != header; e = e.previousInStack) {
+            if (e.isResident() && evicted.add(e)) {
+               excess -= e.weight;
+            }
+         }
+      }
      
       private void removeFromSegment(Set<HashEntry<K, V>> evicted) {
          for (HashEntry<K, V> e : evicted) {
@@ -1263,9 +1519,7 @@ private void removeFromSegment(Set<HashEntry<K, V>> evicted) {
        */
       @Override
       public boolean onEntryHit(HashEntry<K, V> e) {
-         accessQueue.add((LIRSHashEntry<K, V>) e);
-         int sz = accessQueueSize.incrementAndGet();
-         return sz >= batchQueueSizeThreshold;
+         return accessBuffer.offer((LIRSHashEntry<K, V>) e);
       }
 
       /*
@@ -1273,23 +1527,47 @@ public boolean onEntryHit(HashEntry<K, V> e) {
        */
       @Override
       public boolean thresholdExpired() {
-         return accessQueueSize.get() >= maxBatchQueueSize;
+         return accessBuffer.isDrainRequired();
       }
 
       @Override
       public void onEntryRemove(HashEntry<K, V> e) {
          
          ((LIRSHashEntry<K,V>)e).remove();
-         // we could have multiple instances of e in accessQueue; remove them all
-         while (accessQueue.remove(e)) {
-            accessQueueSize.decrementAndGet();
+      }
+
+      @Override
+      public void onEntryReplaced(HashEntry<K, V> e, HashEntry<K, V> replacement) {
+         LIRSHashEntry<K, V> old = (LIRSHashEntry<K, V>) e;
+         LIRSHashEntry<K, V> entry = (LIRSHashEntry<K, V>) replacement;
+         entry.state = old.state;
+         entry.units = old.units;
+         if (old.inStack()) {
+            entry.previousInStack = old.previousInStack == old ? entry : old.previousInStack;
+            entry.nextInStack = old.nextInStack == old ? entry : old.nextInStack;
+            entry.previousInStack.nextInStack = entry;
+            entry.nextInStack.previousInStack = entry;
+         } else {
+            entry.previousInStack = entry.nextInStack = null;
          }
+         if (old.inQueue()) {
+            entry.previousInQueue = old.previousInQueue == old ? entry : old.previousInQueue;
+            entry.nextInQueue = old.nextInQueue == old ? entry : old.nextInQueue;
+            entry.previousInQueue.nextInQueue = entry;
+            entry.nextInQueue.previousInQueue = entry;
+         } else {
+            entry.previousInQueue = entry.nextInQueue = null;
+         }
+         // replacement took over the accounting of e, so just detach e
+         old.previousInStack = old.nextInStack = null;
+         old.previousInQueue = old.nextInQueue = null;
+         old.state = Recency.HIR_NONRESIDENT;
+         old.owner = null;
       }
 
       @Override
       public void clear() {
-         accessQueue.clear();
-         accessQueueSize.set(0);
+         accessBuffer.clear();
       }
 
       @Override
@@ -1328,6 +1606,427 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       }
    }
 
+   /**
+    * Count-min sketch of the access frequency of the entries of a segment, used by {@link TinyLFU}
+    * to decide whether a new entry is worth admitting in place of an existing one. Each entry is
+    * counted in four 4 bit counters, taken from different rows of the table, and its frequency is
+    * the minimum of these. Once the number of increments reaches ten times the size of the table,
+    * all counters are halved so that the sketch ages and favours recent popularity.
+    * <p>
+    * Not thread-safe, only accessed while holding the segment lock.
+    */
+   static final class FrequencySketch {
+
+      private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+      private static final long RESET_MASK = 0x7777777777777777L;
+      private static final long ONE_MASK = 0x1111111111111111L;
+
+      private long[] table;
+      private int tableMask;
+      private int sampleSize;
+      private int additions;
+
+      /**
+       * Grows the sketch so that it can tell apart the frequencies of maximumSize entries. Growing
+       * discards all the frequencies recorded so far.
+       */
+      void ensureCapacity(long maximumSize) {
+         int maximum = (int) Math.min(Math.max(maximumSize, 1), 1 << 30);
+         if (table != null && table.length >= maximum) {
+            return;
+         }
+         int size = 1;
+         while (size < maximum) {
+            size <<= 1;
+         }
+         table = new long[size];
+         tableMask = size - 1;
+         sampleSize = 10 * maximum;
+         additions = 0;
+      }
+
+      /**
+       * Returns the estimated number of accesses to the entry with the given hash, up to 15.
+       */
+      int frequency(int hash) {
+         int start = (hash & 3) << 2;
+         int frequency = Integer.MAX_VALUE;
+         for (int i = 0; i < 4; i++) {
+            int count = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+         }
+         return frequency;
+      }
+
+      /**
+       * Records an access to the entry with the given hash, aging all counters once the sample
+       * size is reached.
+       */
+      void increment(int hash) {
+         int start = (hash & 3) << 2;
+         boolean added = false;
+         for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+         }
+         if (added && ++additions >= sampleSize) {
+            reset();
+         }
+      }
+
+      private boolean incrementAt(int i, int j) {
+         int offset = j << 2;
+         long mask = 0xfL << offset;
+         if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+         }
+         return false;
+      }
+
+      /**
+       * Halves every counter, taking into account the truncation of the odd ones.
+       */
+      private void reset() {
+         int odd = 0;
+         for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+         }
+         additions = (additions >>> 1) - (odd >>> 2);
+      }
+
+      private int indexOf(int hash, int i) {
+         long h = (hash + SEEDS[i]) * SEEDS[i];
+         h += h >>> 32;
+         return ((int) h) & tableMask;
+      }
+   }
+
+   private enum Region {
+      WINDOW, PROBATION, PROTECTED
+   }
+
+   private static final class TinyLFUHashEntry<K, V> extends HashEntry<K, V> {
+
+      private TinyLFUHashEntry<K, V> previousInQueue;
+      private TinyLFUHashEntry<K, V> nextInQueue;
+
+      // region holding this entry, null once it has been removed from the eviction order
+      Region region;
+
+      // share of the capacity taken by this entry: its weight when bounded by weight, 1 otherwise
+      long units = 1;
+
+      TinyLFUHashEntry(K key, int hash, HashEntry<K, V> next, V value) {
+         super(key, hash, next, value);
+         this.previousInQueue = this;
+         this.nextInQueue = this;
+      }
+   }
+
+   /**
+    * Window TinyLFU eviction policy. New entries go to a small admission window ordered by recency.
+    * Entries leaving the window become candidates for the main region, which is a segmented LRU
+    * made of a probation and a protected queue: a candidate is only admitted if the
+    * {@link FrequencySketch frequency sketch} estimates that it is accessed more often than the
+    * entry it would replace, otherwise the candidate itself is evicted. Entries hit while on
+    * probation are promoted to the protected queue.
+    * <p>
+    * This keeps one-hit scans from flushing the frequently accessed entries, while the window
+    * still gives new entries a chance to build up their frequency.
+    * <p>
+    * See "TinyLFU: A Highly Efficient Cache Admission Policy" by Gil Einziger, Roy Friedman and
+    * Ben Manes.
+    */
+   static final class TinyLFU<K, V> implements EvictionPolicy<K, V> {
+
+      /** The share of the capacity dedicated to the admission window. */
+      private static final float WINDOW_PERCENTAGE = 0.01f;
+
+      /** The share of the main region dedicated to the protected queue. */
+      private static final float PROTECTED_PERCENTAGE = 0.8f;
+
+      private final Segment<K, V> segment;
+      private final AccessBuffer<TinyLFUHashEntry<K, V>> accessBuffer;
+      private final List<TinyLFUHashEntry<K, V>> accessed = new ArrayList<TinyLFUHashEntry<K, V>>();
+      private final FrequencySketch sketch = new FrequencySketch();
+
+      private final TinyLFUHashEntry<K, V> window = new TinyLFUHashEntry<K, V>(null, 0, null, null);
+      private final TinyLFUHashEntry<K, V> probation = new TinyLFUHashEntry<K, V>(null, 0, null, null);
+      private final TinyLFUHashEntry<K, V> protectedQueue = new TinyLFUHashEntry<K, V>(null, 0, null, null);
+
+      /** The maximum number (or weight) of entries in the segment. */
+      private final long maximumSize;
+      private final long maximumWindowSize;
+      private final long maximumProtectedSize;
+
+      /** The actual number (or weight) of entries, in total and in each bounded region. */
+      private long size;
+      private long windowSize;
+      private long protectedSize;
+
+      /** Set while evicting, when the segment may report removed entries as new ones. */
+      private boolean evicting;
+
+      public TinyLFU(Segment<K, V> s, int capacity, int maxBatchSize, float batchThresholdFactor) {
+         this.segment = s;
+         this.maximumSize = s.isWeighted() ? s.weightCap : capacity;
+         this.maximumWindowSize = Math.max(1, (long) (WINDOW_PERCENTAGE * maximumSize));
+         this.maximumProtectedSize = (long) (PROTECTED_PERCENTAGE * (maximumSize - maximumWindowSize));
+         this.accessBuffer = new AccessBuffer<TinyLFUHashEntry<K, V>>(maxBatchSize, batchThresholdFactor);
+         sketch.ensureCapacity(capacity);
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> execute() {
+         Set<HashEntry<K, V>> evicted = new HashSet<HashEntry<K, V>>();
+         try {
+            accessBuffer.drainTo(accessed);
+            for (TinyLFUHashEntry<K, V> e : accessed) {
+               if (e.region != null) {
+                  onAccess(e);
+               }
+            }
+            evict(evicted);
+         } finally {
+            accessed.clear();
+         }
+         return evicted;
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> en) {
+         TinyLFUHashEntry<K, V> e = (TinyLFUHashEntry<K, V>) en;
+         if (segment.isWeighted()) {
+            // the number of entries is not known up front
+            sketch.ensureCapacity(segment.count);
+            e.units = e.weight;
+         }
+         sketch.increment(e.hash);
+         link(e, Region.WINDOW);
+         if (evicting) {
+            return InfinispanCollections.emptySet();
+         }
+         Set<HashEntry<K, V>> evicted = new HashSet<HashEntry<K, V>>();
+         evict(evicted);
+         return evicted;
+      }
+
+      /*
+       * Invoked without holding a lock on Segment
+       */
+      @Override
+      public boolean onEntryHit(HashEntry<K, V> e) {
+         return accessBuffer.offer((TinyLFUHashEntry<K, V>) e);
+      }
+
+      /*
+       * Invoked without holding a lock on Segment
+       */
+      @Override
+      public boolean thresholdExpired() {
+         return accessBuffer.isDrainRequired();
+      }
+
+      @Override
+      public void onEntryRemove(HashEntry<K, V> e) {
+         TinyLFUHashEntry<K, V> entry = (TinyLFUHashEntry<K, V>) e;
+         if (entry.region != null) {
+            unlink(entry);
+         }
+      }
+
+      @Override
+      public void onEntryReplaced(HashEntry<K, V> e, HashEntry<K, V> replacement) {
+         TinyLFUHashEntry<K, V> old = (TinyLFUHashEntry<K, V>) e;
+         TinyLFUHashEntry<K, V> entry = (TinyLFUHashEntry<K, V>) replacement;
+         entry.region = old.region;
+         entry.units = old.units;
+         if (old.region != null) {
+            entry.previousInQueue = old.previousInQueue;
+            entry.nextInQueue = old.nextInQueue;
+            entry.previousInQueue.nextInQueue = entry;
+            entry.nextInQueue.previousInQueue = entry;
+         } else {
+            entry.previousInQueue = entry.nextInQueue = null;
+         }
+         // replacement took over the accounting of e, so just detach e
+         old.previousInQueue = old.nextInQueue = null;
+         old.region = null;
+      }
+
+      @Override
+      public void clear() {
+         window.previousInQueue = window.nextInQueue = window;
+         probation.previousInQueue = probation.nextInQueue = probation;
+         protectedQueue.previousInQueue = protectedQueue.nextInQueue = protectedQueue;
+         size = windowSize = protectedSize = 0;
+         accessBuffer.clear();
+      }
+
+      @Override
+      public Eviction strategy() {
+         return Eviction.TINYLFU;
+      }
+
+      @Override
+      public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
+         return new TinyLFUHashEntry<K, V>(key, hash, next, value);
+      }
+
+      /**
+       * Records a hit on a resident entry.
+       */
+      private void onAccess(TinyLFUHashEntry<K, V> e) {
+         sketch.increment(e.hash);
+         Region region = e.region;
+         if (segment.isWeighted() && e.units != e.weight) {
+            // the value has been updated in place, so account for its new weight
+            unlink(e);
+            e.units = e.weight;
+            link(e, region);
+         }
+         switch (region) {
+            case WINDOW:
+               moveToEnd(e, window);
+               break;
+            case PROBATION:
+               // a hit while on probation promotes the entry, which may demote the least recently
+               // used protected entries
+               unlink(e);
+               link(e, Region.PROTECTED);
+               while (protectedSize > maximumProtectedSize && protectedQueue.nextInQueue != e) {
+                  TinyLFUHashEntry<K, V> demoted = protectedQueue.nextInQueue;
+                  unlink(demoted);
+                  link(demoted, Region.PROBATION);
+               }
+               break;
+            case PROTECTED:
+               moveToEnd(e, protectedQueue);
+               break;
+            default:
+               throw new AssertionError("Hit in unknown region: " + region);
+         }
+      }
+
+      /**
+       * Moves the entries overflowing the window to the probation queue and then, while the
+       * segment is above its maximum size, evicts either the least recently used entry of the main
+       * region or the candidate coming from the window, whichever is accessed less frequently.
+       */
+      private void evict(Set<HashEntry<K, V>> evicted) {
+         evicting = true;
+         try {
+            TinyLFUHashEntry<K, V> candidate = null;
+            while (windowSize > maximumWindowSize && window.nextInQueue != window) {
+               TinyLFUHashEntry<K, V> e = window.nextInQueue;
+               unlink(e);
+               link(e, Region.PROBATION);
+               if (candidate == null) {
+                  candidate = e;
+               }
+            }
+
+            while (currentSize() > maximumSize) {
+               TinyLFUHashEntry<K, V> victim = first(probation);
+               if (victim == null) {
+                  victim = first(protectedQueue);
+               }
+               if (victim == null) {
+                  victim = first(window);
+               }
+               if (victim == null) {
+                  break;
+               }
+               if (candidate != null && candidate.region != Region.PROBATION) {
+                  candidate = null;
+               }
+
+               TinyLFUHashEntry<K, V> toEvict = victim;
+               if (candidate != null && candidate != victim
+                     && sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                  toEvict = candidate;
+               }
+               if (toEvict == candidate) {
+                  // candidates were moved in order, so the next one follows in the probation queue
+                  TinyLFUHashEntry<K, V> next = candidate.nextInQueue;
+                  candidate = next == probation ? null : next;
+               }
+               unlink(toEvict);
+               evicted.add(toEvict);
+               segment.remove(toEvict.key, toEvict.hash, null, true);
+            }
+         } finally {
+            evicting = false;
+         }
+      }
+
+      private long currentSize() {
+         // when bounded by weight, the segment also reflects values updated but not yet accessed
+         return segment.isWeighted() ? segment.weightedSize : size;
+      }
+
+      private TinyLFUHashEntry<K, V> first(TinyLFUHashEntry<K, V> header) {
+         TinyLFUHashEntry<K, V> first = header.nextInQueue;
+         return first == header ? null : first;
+      }
+
+      private TinyLFUHashEntry<K, V> headerOf(Region region) {
+         switch (region) {
+            case WINDOW:
+               return window;
+            case PROBATION:
+               return probation;
+            default:
+               return protectedQueue;
+         }
+      }
+
+      /**
+       * Adds the entry at the end of the queue of the given region.
+       */
+      private void link(TinyLFUHashEntry<K, V> e, Region region) {
+         TinyLFUHashEntry<K, V> header = headerOf(region);
+         e.region = region;
+         e.nextInQueue = header;
+         e.previousInQueue = header.previousInQueue;
+         header.previousInQueue.nextInQueue = e;
+         header.previousInQueue = e;
+         size += e.units;
+         if (region == Region.WINDOW) {
+            windowSize += e.units;
+         } else if (region == Region.PROTECTED) {
+            protectedSize += e.units;
+         }
+      }
+
+      /**
+       * Removes the entry from the queue of its region.
+       */
+      private void unlink(TinyLFUHashEntry<K, V> e) {
+         e.previousInQueue.nextInQueue = e.nextInQueue;
+         e.nextInQueue.previousInQueue = e.previousInQueue;
+         e.previousInQueue = e.nextInQueue = null;
+         size -= e.units;
+         if (e.region == Region.WINDOW) {
+            windowSize -= e.units;
+         } else if (e.region == Region.PROTECTED) {
+            protectedSize -= e.units;
+         }
+         e.region = null;
+      }
+
+      private void moveToEnd(TinyLFUHashEntry<K, V> e, TinyLFUHashEntry<K, V> header) {
+         e.previousInQueue.nextInQueue = e.nextInQueue;
+         e.nextInQueue.previousInQueue = e.previousInQueue;
+         e.nextInQueue = header;
+         e.previousInQueue = header.previousInQueue;
+         header.previousInQueue.nextInQueue = e;
+         header.previousInQueue = e;
+      }
+   }
+
    /**
     * Segments are specialized versions of hash tables.  This
     * subclasses from ReentrantLock opportunistically, just to
@@ -1412,13 +2111,48 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
 
       transient final BoundedConcurrentHashMap map;
 
+      /**
+       * The total weight of the entries in this segment when the map is bounded by weight.
+       */
+      transient volatile long weightedSize;
+
+      /**
+       * The maximum weight of this segment, or -1 if the map is bounded by number of entries.
+       */
+      transient final long weightCap;
+
+      transient final EntrySizeCalculator<? super K, ? super V> sizeCalculator;
+
+      @SuppressWarnings("unchecked")
       Segment(int cap, float lf, Eviction es, BoundedConcurrentHashMap map) {
          this.map = map;
          loadFactor = lf;
+         weightCap = map.evictWeightCap;
+         sizeCalculator = map.sizeCalculator;
          eviction = es.make(this, map.evictCap, lf);
          setTable(HashEntry.<K, V> newArray(cap));
       }
 
+      boolean isWeighted() {
+         return sizeCalculator != null;
+      }
+
+      /**
+       * Recalculates the weight of an entry whose value has just changed. Call only while holding
+       * lock.
+       *
+       * @return true if the segment is now above its maximum weight
+       */
+      private boolean reweigh(HashEntry<K, V> e) {
+         if (sizeCalculator == null) {
+            return false;
+         }
+         long weight = sizeCalculator.calculateSize(e.key, e.value);
+         weightedSize += weight - e.weight;
+         e.weight = weight;
+         return weightedSize > weightCap;
+      }
+
       @SuppressWarnings("unchecked")
       static <K,V> Segment<K,V>[] newArray(int i) {
          return new Segment[i];
@@ -1493,6 +2227,20 @@ V get(Object key, int hash) {
          return null;
       }
 
+      V peek(Object key, int hash) {
+         if (count != 0) { // read-volatile
+            HashEntry<K, V> e = getFirst(hash);
+            while (e != null) {
+               if (e.hash == hash && map.keyEquivalence.equals(key, e.key)) {
+                  V v = e.value;
+                  return v != null ? v : readValueUnderLock(e); // recheck
+               }
+               e = e.next;
+            }
+         }
+         return null;
+      }
+
       boolean containsKey(Object key, int hash) {
          if (count != 0) { // read-volatile
             HashEntry<K,V> e = getFirst(hash);
@@ -1538,7 +2286,10 @@ boolean replace(K key, int hash, V oldValue, V newValue) {
             if (e != null && map.valueEquivalence.equals(oldValue, e.value)) {
                replaced = true;
                e.value = newValue;
-               if (eviction.onEntryHit(e)) {
+               boolean hitThresholdReached = eviction.onEntryHit(e);
+               if (reweigh(e)) {
+                  evicted = eviction.execute();
+               } else if (hitThresholdReached) {
                   evicted = attemptEviction(true);
                }
             }
@@ -1562,7 +2313,10 @@ V replace(K key, int hash, V newValue) {
             if (e != null) {
                oldValue = e.value;
                e.value = newValue;
-               if (eviction.onEntryHit(e)) {
+               boolean hitThresholdReached = eviction.onEntryHit(e);
+               if (reweigh(e)) {
+                  evicted = eviction.execute();
+               } else if (hitThresholdReached) {
                   evicted = attemptEviction(true);
                }
             }
@@ -1578,7 +2332,8 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
          Set<HashEntry<K, V>> evicted = null;
          try {
             int c = count;
-            if (c++ > threshold && eviction.strategy() == Eviction.NONE) {
+            // bounded by weight, the number of entries is not known up front so the table has to grow
+            if (c++ > threshold && (eviction.strategy() == Eviction.NONE || isWeighted())) {
                rehash();
             }
             HashEntry<K, V>[] tab = table;
@@ -1595,13 +2350,17 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                if (!onlyIfAbsent) {
                   e.value = value;
                   eviction.onEntryHit(e);
+                  if (reweigh(e)) {
+                     evicted = eviction.execute();
+                  }
                }
             } else {
                oldValue = null;
                ++modCount;
                count = c; // write-volatile
                if (eviction.strategy() != Eviction.NONE) {
-                  if (c > map.evictCap) {
+                  long weight = isWeighted() ? sizeCalculator.calculateSize(key, value) : 0;
+                  if (isWeighted() ? weightedSize + weight > weightCap : c > map.evictCap) {
                      // remove entries;lower count
                      evicted = eviction.execute();
                      // re-read first
@@ -1609,6 +2368,10 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                   }
                   // add a new entry
                   tab[index] = eviction.createNewEntry(key, hash, first, value);
+                  if (isWeighted()) {
+                     tab[index].weight = weight;
+                     weightedSize += weight;
+                  }
                   // notify a miss
                   Set<HashEntry<K, V>> newlyEvicted = eviction.onEntryMiss(tab[index]);
                   if (!newlyEvicted.isEmpty()) {
@@ -1620,6 +2383,10 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                   }
                } else {
                   tab[index] = eviction.createNewEntry(key, hash, first, value);
+                  if (isWeighted()) {
+                     tab[index].weight = sizeCalculator.calculateSize(key, value);
+                     weightedSize += tab[index].weight;
+                  }
                }
                // When entry not present, attempt to activate if necessary
                map.evictionListener.onEntryActivated(key);
@@ -1687,6 +2454,8 @@ void rehash() {
                      int k = p.hash & sizeMask;
                      HashEntry<K,V> n = newTable[k];
                      newTable[k] = eviction.createNewEntry(p.key, p.hash, n, p.value);
+                     newTable[k].weight = p.weight;
+                     eviction.onEntryReplaced(p, newTable[k]);
                   }
                }
             }
@@ -1727,9 +2496,19 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
 
                   // e was removed
                   eviction.onEntryRemove(e);
+                  if (isWeighted()) {
+                     weightedSize -= e.weight;
+                  }
 
                   HashEntry<K, V> newFirst = e.next;
                   for (HashEntry<K, V> p = first; p != e; p = p.next) {
+                     if (isWeighted()) {
+                        // keep the position of p, also avoiding evictions while in the middle of this removal
+                        newFirst = eviction.createNewEntry(p.key, p.hash, newFirst, p.value);
+                        newFirst.weight = p.weight;
+                        eviction.onEntryReplaced(p, newFirst);
+                        continue;
+                     }
                      // TODO A remove operation makes the map behave like all the other keys in the bucket were just added???
                      // allow p to be GC-ed
                      eviction.onEntryRemove(p);
@@ -1772,6 +2551,7 @@ void clear() {
                }
                ++modCount;
                eviction.clear();
+               weightedSize = 0;
                count = 0; // write-volatile
             } finally {
                unlock();
@@ -1900,12 +2680,83 @@ public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
       }
 
       this.evictCap = c;
+      this.evictWeightCap = -1;
+      this.sizeCalculator = null;
 
       for (int i = 0; i < this.segments.length; ++i) {
          this.segments[i] = new Segment<K, V>(cap, DEFAULT_LOAD_FACTOR, evictionStrategy, this);
       }
    }
 
+   /**
+    * Creates a new, empty map bounded by the total weight of its entries rather than by their
+    * number. The weight of each entry is determined by the given size calculator when the entry
+    * is added or its value is replaced.
+    *
+    * @param maxWeight
+    *            is the upper bound for the total weight of the elements in this map
+    *
+    * @param concurrencyLevel
+    *            the estimated number of concurrently updating threads. The implementation performs
+    *            internal sizing to try to accommodate this many threads. Each segment is bounded
+    *            by an equal share of maxWeight.
+    *
+    * @param evictionStrategy
+    *            the algorithm used to evict elements from this map
+    *
+    * @param evictionListener
+    *            the evicton listener callback to be notified about evicted elements
+    *
+    * @param sizeCalculator
+    *            calculates the weight of each entry
+    *
+    * @throws IllegalArgumentException
+    *             if maxWeight or concurrencyLevel are nonpositive, or if evictionStrategy is
+    *             {@link Eviction#NONE}
+    */
+   public BoundedConcurrentHashMap(long maxWeight, int concurrencyLevel,
+         Eviction evictionStrategy, EvictionListener<K, V> evictionListener,
+         EntrySizeCalculator<? super K, ? super V> sizeCalculator,
+         Equivalence<K> keyEquivalence, Equivalence<V> valueEquivalence) {
+      this.keyEquivalence = keyEquivalence;
+      this.valueEquivalence = valueEquivalence;
+
+      if (maxWeight <= 0 || concurrencyLevel <= 0) {
+         throw new IllegalArgumentException();
+      }
+
+      if (evictionStrategy == null || evictionStrategy == Eviction.NONE || evictionListener == null
+            || sizeCalculator == null) {
+         throw new IllegalArgumentException();
+      }
+
+      this.evictionListener = evictionListener;
+      this.sizeCalculator = sizeCalculator;
+
+      if (concurrencyLevel > MAX_SEGMENTS) {
+         concurrencyLevel = MAX_SEGMENTS;
+      }
+
+      // Find power-of-two sizes best matching arguments
+      int sshift = 0;
+      int ssize = 1;
+      while (ssize < concurrencyLevel) {
+         ++sshift;
+         ssize <<= 1;
+      }
+      segmentShift = 32 - sshift;
+      segmentMask = ssize - 1;
+      this.segments = Segment.newArray(ssize);
+
+      // the number of entries is unknown, so segment tables start small and grow as needed
+      this.evictCap = DEFAULT_SEGMENT_CAPACITY;
+      this.evictWeightCap = Math.max(maxWeight / ssize, 1);
+
+      for (int i = 0; i < this.segments.length; ++i) {
+         this.segments[i] = new Segment<K, V>(DEFAULT_SEGMENT_CAPACITY, DEFAULT_LOAD_FACTOR, evictionStrategy, this);
+      }
+   }
+
    /**
     * Creates a new, empty map with the specified maximum capacity, load factor, concurrency
     * level and LRU eviction policy.
@@ -2070,6 +2921,25 @@ public int size() {
       }
    }
 
+   /**
+    * Returns the total weight of the entries in this map, as determined by its
+    * {@link EntrySizeCalculator}. The result is an estimate that does not lock
+    * the segments.
+    *
+    * @return the total weight of the entries in this map, or -1 if this map is
+    *         bounded by number of entries
+    */
+   public long weightedSize() {
+      if (sizeCalculator == null) {
+         return -1;
+      }
+      long sum = 0;
+      for (Segment<K, V> segment : segments) {
+         sum += segment.weightedSize;
+      }
+      return sum;
+   }
+
    /**
     * Returns the value to which the specified key is mapped,
     * or {@code null} if this map contains no mapping for the key.
@@ -2087,6 +2957,17 @@ public V get(Object key) {
       return segmentFor(hash).get(key, hash);
    }
 
+   /**
+    * Returns the value to which the specified key is mapped, like {@link #get(Object)}, but without recording a hit
+    * with the eviction policy. Meant for internal reads which must not influence which entries get evicted.
+    *
+    * @throws NullPointerException if the specified key is null
+    */
+   public V peek(Object key) {
+      int hash = hash(keyEquivalence.hashCode(key));
+      return segmentFor(hash).peek(key, hash);
+   }
+
    /**
     * Tests if the specified object is a key in this table.
     *
@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.util.concurrent;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link NotifyingFuture} which is completed explicitly, by calling {@link #complete(Object)} or
+ * {@link #completeExceptionally(Throwable)}, from whichever thread produces the result.
+ * <p/>
+ * Only the first completion has any effect. Listeners are invoked by the completing thread, so they must not block.
+ *
+ * @since 5.3
+ */
+public class CompletableNotifyingFuture<T> extends BaseNotifyingFuture<T> {
+
+   private final CountDownLatch latch = new CountDownLatch(1);
+   private volatile T value;
+   private volatile Throwable exception;
+   private boolean completed;
+
+   /**
+    * Completes the future with the given value.
+    *
+    * @return true if this call completed the future, false if it was already completed
+    */
+   public boolean complete(T value) {
+      synchronized (this) {
+         if (completed) return false;
+         completed = true;
+         this.value = value;
+      }
+      done();
+      return true;
+   }
+
+   /**
+    * Completes the future with the given exception, which {@link #get()} will throw wrapped in an
+    * {@link ExecutionException}.
+    *
+    * @return true if this call completed the future, false if it was already completed
+    */
+   public boolean completeExceptionally(Throwable exception) {
+      synchronized (this) {
+         if (completed) return false;
+         completed = true;
+         this.exception = exception;
+      }
+      done();
+      return true;
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      return completeExceptionally(new CancellationException());
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return exception instanceof CancellationException;
+   }
+
+   @Override
+   public boolean isDone() {
+      return latch.getCount() == 0;
+   }
+
+   @Override
+   public T get() throws InterruptedException, ExecutionException {
+      latch.await();
+      return report();
+   }
+
+   @Override
+   public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!latch.await(timeout, unit))
+         throw new TimeoutException();
+      return report();
+   }
+
+   private void done() {
+      latch.countDown();
+      notifyDone();
+   }
+
+   private T report() throws ExecutionException {
+      Throwable t = exception;
+      if (t == null)
+         return value;
+      if (t instanceof CancellationException)
+         throw (CancellationException) t;
+      throw new ExecutionException(t);
+   }
+}
@@ -26,6 +26,9 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -177,22 +180,32 @@ static final int hash(Object x) {
     *
     * @param keys keys to unlock
     */
-   public void releaseAllLocks(List<Object> keys) {
+   public void releaseAllLocks(List<?> keys) {
       for (Object k : keys) {
         releaseLock(k);
     }
    }
 
    /**
-    * Acquires locks on keys passed in.  Makes multiple calls to {@link #acquireLock(Object, boolean)}
+    * Acquires locks on keys passed in.  Makes multiple calls to {@link #acquireLock(Object, boolean)}, in the order of
+    * the underlying locks, so that threads locking overlapping sets of keys can't deadlock each other.
     *
-    * @param keys      keys to unlock
+    * @param keys      keys to lock
     * @param exclusive whether locks are exclusive.
     */
-   public void acquireAllLocks(List<Object> keys, boolean exclusive) {
-      for (Object k : keys) {
-        acquireLock(k, exclusive);
-    }
+   public void acquireAllLocks(List<?> keys, boolean exclusive) {
+      List<Object> ordered = new ArrayList<Object>(keys);
+      Collections.sort(ordered, new Comparator<Object>() {
+         @Override
+         public int compare(Object k1, Object k2) {
+            int i1 = hashToIndex(k1);
+            int i2 = hashToIndex(k2);
+            return i1 < i2 ? -1 : (i1 == i2 ? 0 : 1);
+         }
+      });
+      for (Object k : ordered) {
+         acquireLock(k, exclusive);
+      }
    }
 
    /**
@@ -885,5 +885,25 @@ void asyncStoreShutdownTimeoutTooHigh(long configuredAsyncStopTimeout,
    @Message(value = "Failed to recover cache %s state after the current node became the coordinator", id = 228)
    void failedToRecoverCacheState(String cacheName, @Cause Throwable cause);
 
+   @LogMessage(level = WARN)
+   @Message(value = "Log file %s is corrupt or incomplete after offset %d, ignoring the rest of the file", id = 229)
+   void corruptLogFile(File f, long offset);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Ignoring index snapshot %s, the index will be rebuilt from the log files", id = 230)
+   void ignoringIndexSnapshot(File f, @Cause Throwable cause);
+
+   @LogMessage(level = ERROR)
+   @Message(value = "Error while compacting log file %s", id = 231)
+   void errorCompactingLogFile(File f, @Cause Throwable cause);
+
+   @LogMessage(level = INFO)
+   @Message(value = "Preloading cache %s: %d entries loaded at %d entries/s, estimated remaining time %s", id = 232)
+   void preloadProgress(String cacheName, long entries, long entriesPerSecond, String remainingTime);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Not storing key %s in memory, its entry takes %d bytes while the container holds at most %d bytes per segment", id = 233)
+   void entryTooLargeForContainer(Object key, long size, long maxMemory);
+
 }
 
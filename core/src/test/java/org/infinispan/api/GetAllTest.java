@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.api;
+
+import org.infinispan.commands.read.GetAllCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.CacheMgmtInterceptor;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.DefaultTimeService;
+import org.infinispan.util.TimeService;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests {@link org.infinispan.AdvancedCache#getAll(java.util.Set)} on a local cache, including the statistics it
+ * records for each key.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "api.GetAllTest")
+public class GetAllTest extends SingleCacheManagerTest {
+
+   private final ManualTimeService timeService = new ManualTimeService();
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = getDefaultStandaloneCacheConfig(false);
+      builder.jmxStatistics().enable();
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      TestingUtil.replaceComponent(cm, TimeService.class, timeService, true);
+      // every getAll invocation takes exactly 40 milliseconds
+      cm.getCache().getAdvancedCache().addInterceptorAfter(new CommandInterceptor() {
+         @Override
+         public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+            timeService.now += TimeUnit.MILLISECONDS.toNanos(40);
+            return invokeNextInterceptor(ctx, command);
+         }
+      }, CacheMgmtInterceptor.class);
+      return cm;
+   }
+
+   public void testGetAll() {
+      cache.put("k1", "v1");
+      cache.put("k2", "v2");
+
+      Map<Object, Object> values = cache.getAdvancedCache().getAll(keys("k1", "k2", "missing"));
+      assertEquals(2, values.size());
+      assertEquals("v1", values.get("k1"));
+      assertEquals("v2", values.get("k2"));
+      assertFalse(values.containsKey("missing"));
+   }
+
+   public void testGetAllNoKeys() {
+      assertTrue(cache.getAdvancedCache().getAll(Collections.emptySet()).isEmpty());
+   }
+
+   public void testStatisticsPerKey() {
+      cache.put("k1", "v1");
+      cache.put("k2", "v2");
+      cache.put("k3", "v3");
+      CacheMgmtInterceptor statistics = TestingUtil.findInterceptor(cache, CacheMgmtInterceptor.class);
+      statistics.resetStatistics();
+
+      cache.getAdvancedCache().getAll(keys("k1", "k2", "k3", "missing"));
+      assertEquals(3, statistics.getHits());
+      assertEquals(1, statistics.getMisses());
+      // the 40 milliseconds of the invocation are shared between the four keys
+      assertEquals(10, statistics.getAverageReadTime());
+
+      cache.getAdvancedCache().getAll(keys("missing", "missing2"));
+      assertEquals(3, statistics.getHits());
+      assertEquals(3, statistics.getMisses());
+      assertEquals(80 / 6, statistics.getAverageReadTime());
+   }
+
+   private static Set<Object> keys(Object... keys) {
+      Set<Object> set = new HashSet<Object>();
+      Collections.addAll(set, keys);
+      return set;
+   }
+
+   private static class ManualTimeService extends DefaultTimeService {
+      volatile long now = TimeUnit.SECONDS.toNanos(100);
+
+      @Override
+      public long time() {
+         return now;
+      }
+   }
+}
@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.api;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited;
+import org.infinispan.notifications.cachelistener.event.CacheEntryVisitedEvent;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests that the reads served straight from the data container behave as the reads going through the interceptor
+ * chain.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "api.LocalReadFastPathTest")
+public class LocalReadFastPathTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(getDefaultStandaloneCacheConfig(false));
+      ConfigurationBuilder withStatistics = getDefaultStandaloneCacheConfig(false);
+      withStatistics.jmxStatistics().enable();
+      cm.defineConfiguration("statistics", withStatistics.build());
+      return cm;
+   }
+
+   public void testReads() {
+      assertTrue(chain(cache).isTransparentToLocalHits());
+      cache.put("k", "v");
+      assertEquals("v", cache.get("k"));
+      assertTrue(cache.containsKey("k"));
+      assertNull(cache.get("missing"));
+      assertFalse(cache.containsKey("missing"));
+   }
+
+   public void testExpiredEntry() {
+      cache.put("expiring", "v", 1, TimeUnit.MILLISECONDS);
+      TestingUtil.sleepThread(10);
+      assertNull(cache.get("expiring"));
+      assertFalse(cache.containsKey("expiring"));
+   }
+
+   public void testVisitedListener() {
+      VisitedListener listener = new VisitedListener();
+      cache.put("visited", "v");
+      cache.addListener(listener);
+      try {
+         assertEquals("v", cache.get("visited"));
+         assertEquals(2, listener.visits.get());
+      } finally {
+         cache.removeListener(listener);
+      }
+      assertEquals("v", cache.get("visited"));
+      assertEquals(2, listener.visits.get());
+   }
+
+   public void testInterceptorAddedAtRuntime() {
+      CountingInterceptor interceptor = new CountingInterceptor();
+      cache.put("intercepted", "v");
+      cache.getAdvancedCache().addInterceptor(interceptor, 0);
+      try {
+         assertFalse(chain(cache).isTransparentToLocalHits());
+         assertEquals("v", cache.get("intercepted"));
+         assertEquals(1, interceptor.gets.get());
+      } finally {
+         cache.getAdvancedCache().removeInterceptor(CountingInterceptor.class);
+      }
+      assertTrue(chain(cache).isTransparentToLocalHits());
+      assertEquals("v", cache.get("intercepted"));
+      assertEquals(1, interceptor.gets.get());
+   }
+
+   public void testStatisticsUseTheChain() {
+      Cache<Object, Object> statistics = cacheManager.getCache("statistics");
+      assertFalse(chain(statistics).isTransparentToLocalHits());
+   }
+
+   private InterceptorChain chain(Cache<?, ?> cache) {
+      return TestingUtil.extractComponent(cache, InterceptorChain.class);
+   }
+
+   @Listener
+   public static class VisitedListener {
+      final AtomicInteger visits = new AtomicInteger();
+
+      @CacheEntryVisited
+      public void visited(CacheEntryVisitedEvent<?, ?> event) {
+         visits.incrementAndGet();
+      }
+   }
+
+   public static class CountingInterceptor extends CommandInterceptor {
+      final AtomicInteger gets = new AtomicInteger();
+
+      @Override
+      public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+         gets.incrementAndGet();
+         return super.visitGetKeyValueCommand(ctx, command);
+      }
+   }
+}
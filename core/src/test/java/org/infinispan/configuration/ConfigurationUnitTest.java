@@ -223,6 +223,22 @@ public void call() {
       });
    }
 
+   public void testEvictionMaxMemoryWithoutStrategy() {
+      ConfigurationBuilder cb = new ConfigurationBuilder();
+      cb.eviction().maxMemory(1024 * 1024);
+      Configuration cfg = cb.build();
+      assertEquals(cfg.eviction().maxMemory(), 1024 * 1024);
+      assert cfg.eviction().strategy() != EvictionStrategy.NONE;
+      assert cfg.eviction().sizeCalculator() != null;
+   }
+
+   @Test(expectedExceptions = ConfigurationException.class)
+   public void testEvictionMaxMemoryAndMaxEntries() {
+      ConfigurationBuilder cb = new ConfigurationBuilder();
+      cb.eviction().strategy(EvictionStrategy.LRU).maxEntries(100).maxMemory(1024 * 1024);
+      cb.build();
+   }
+
    @Test(expectedExceptions = IllegalArgumentException.class)
    public void testNumOwners() {
       ConfigurationBuilder cb = new ConfigurationBuilder();
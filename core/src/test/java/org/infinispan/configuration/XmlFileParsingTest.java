@@ -46,6 +46,7 @@
 import org.infinispan.configuration.cache.InterceptorConfiguration;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.configuration.global.ShutdownHookBehavior;
+import org.infinispan.eviction.DefaultEntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.executors.DefaultExecutorFactory;
@@ -241,6 +242,25 @@ public void testPassivationOnDefaultEvictionOnNamed() throws Exception {
       withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.fromStream(is)));
    }
 
+   public void testMemoryBasedEviction() throws Exception {
+      String config = INFINISPAN_START_TAG_NO_SCHEMA +
+            "<default>\n" +
+            "<eviction strategy=\"LRU\" maxMemory=\"1048576\" sizeCalculator=\"org.infinispan.eviction.DefaultEntrySizeCalculator\" />\n" +
+            "</default>\n" +
+            INFINISPAN_END_TAG;
+      InputStream is = new ByteArrayInputStream(config.getBytes());
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.fromStream(is)) {
+         @Override
+         public void call() {
+            Configuration c = cm.getDefaultCacheConfiguration();
+            assertEquals(1048576, c.eviction().maxMemory());
+            assertEquals(-1, c.eviction().maxEntries());
+            assertEquals(EvictionStrategy.LRU, c.eviction().strategy());
+            assertTrue(c.eviction().sizeCalculator() instanceof DefaultEntrySizeCalculator);
+         }
+      });
+   }
+
    public void testVersioning() throws Exception {
       String config = INFINISPAN_START_TAG_NO_SCHEMA +
             "<default>\n" +
@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.AnyEquivalence;
+import org.infinispan.util.ByteArrayEquivalence;
+import org.infinispan.util.Equivalence;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+@Test(groups = "unit", testName = "container.ExpirationIndexTest")
+public class ExpirationIndexTest extends AbstractInfinispanTest {
+
+   public void testPollDue() {
+      ExpirationIndex index = new ExpirationIndex(4);
+      index.schedule("k1", 1500);
+      index.schedule("k2", 2500);
+      index.schedule("k3", 10000);
+      assertEquals(3, index.size());
+
+      assertTrue(index.pollDue(500).isEmpty());
+      // keys of the bucket containing 'now' are returned, even if they expire slightly later
+      assertEquals(Arrays.<Object>asList("k1"), index.pollDue(1000));
+      assertEquals(Arrays.<Object>asList("k2"), index.pollDue(3000));
+      assertEquals(1, index.size());
+      assertEquals(Arrays.<Object>asList("k3"), index.pollDue(Long.MAX_VALUE));
+      assertEquals(0, index.size());
+   }
+
+   public void testRescheduleMovesKey() {
+      ExpirationIndex index = new ExpirationIndex(4);
+      index.schedule("k", 1000);
+      index.schedule("k", 5000);
+      assertEquals(1, index.size());
+      assertTrue(index.pollDue(2000).isEmpty());
+      assertEquals(Arrays.<Object>asList("k"), index.pollDue(5000));
+   }
+
+   public void testScheduleIfEarlier() {
+      ExpirationIndex index = new ExpirationIndex(4);
+      index.scheduleIfEarlier("k", 5000);
+      index.scheduleIfEarlier("k", 9000);
+      assertTrue(index.pollDue(4000).isEmpty());
+      index.scheduleIfEarlier("k", 1000);
+      assertEquals(Arrays.<Object>asList("k"), index.pollDue(2000));
+      assertTrue(index.pollDue(Long.MAX_VALUE).isEmpty());
+   }
+
+   public void testUnscheduleAndClear() {
+      ExpirationIndex index = new ExpirationIndex(4);
+      index.schedule("k1", 1000);
+      index.schedule("k2", 1000);
+      index.unschedule("k1");
+      index.unschedule("unknown");
+      assertEquals(Arrays.<Object>asList("k2"), index.pollDue(1000));
+
+      index.schedule("k1", 1000);
+      index.clear();
+      assertEquals(0, index.size());
+      assertTrue(index.pollDue(Long.MAX_VALUE).isEmpty());
+   }
+
+   public void testKeyEquivalence() {
+      Equivalence keyEq = ByteArrayEquivalence.INSTANCE;
+      ExpirationIndex index = new ExpirationIndex(4, 100, keyEq);
+      index.schedule(new byte[]{1, 2, 3}, 1000);
+      index.schedule(new byte[]{1, 2, 3}, 2000);
+      assertEquals(1, index.size());
+      assertTrue(index.pollDue(1500).isEmpty());
+      index.unschedule(new byte[]{1, 2, 3});
+      assertEquals(0, index.size());
+   }
+
+   public void testDefaultDataContainerOnlyPurgesDueEntries() throws Exception {
+      DefaultDataContainer dc = new DefaultDataContainer(16);
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      dc.initialize(null, null, internalEntryFactory, null, null, TIME_SERVICE);
+
+      dc.put("immortal", "v", new EmbeddedMetadata.Builder().build());
+      dc.put("mortal", "v", new EmbeddedMetadata.Builder().lifespan(1).build());
+      dc.put("long-lived", "v", new EmbeddedMetadata.Builder().lifespan(1000000).build());
+      assertEquals(2, dc.expirationIndex.size());
+      Thread.sleep(10);
+
+      dc.purgeExpired();
+      assertEquals(2, dc.size());
+      assertTrue(dc.containsKey("immortal"));
+      assertTrue(dc.containsKey("long-lived"));
+      assertEquals(1, dc.expirationIndex.size());
+
+      dc.put("short-lived", "v", new EmbeddedMetadata.Builder().lifespan(1).build());
+      Thread.sleep(10);
+      dc.purgeExpired();
+      assertEquals(2, dc.size());
+      assertEquals(1, dc.expirationIndex.size());
+   }
+
+   public void testUpdate() {
+      final Map<Object, Long> expiryTimes = new HashMap<Object, Long>();
+      ExpirationIndex.ExpiryLookup lookup = new ExpirationIndex.ExpiryLookup() {
+         @Override
+         public long expiryTime(Object key) {
+            Long expiryTime = expiryTimes.get(key);
+            return expiryTime == null ? -1 : expiryTime;
+         }
+      };
+      ExpirationIndex index = new ExpirationIndex(4);
+      index.update("k", lookup);
+      assertEquals(0, index.size());
+
+      expiryTimes.put("k", 1000L);
+      index.update("k", lookup);
+      // a later expiry moves the key to a later bucket
+      expiryTimes.put("k", 9000L);
+      index.update("k", lookup);
+      assertEquals(1, index.size());
+      assertTrue(index.pollDue(5000).isEmpty());
+
+      expiryTimes.remove("k");
+      index.update("k", lookup);
+      assertEquals(0, index.size());
+      assertTrue(index.pollDue(Long.MAX_VALUE).isEmpty());
+   }
+
+   public void testRemoveAndOverwriteUnschedule() {
+      DefaultDataContainer dc = new DefaultDataContainer(16);
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      dc.initialize(null, null, internalEntryFactory, null, null, TIME_SERVICE);
+
+      Metadata longLived = new EmbeddedMetadata.Builder().lifespan(1, TimeUnit.HOURS).build();
+      for (int i = 0; i < 10; i++)
+         dc.put(i, "v", longLived);
+      assertEquals(10, dc.expirationIndex.size());
+
+      for (int i = 0; i < 5; i++)
+         dc.remove(i);
+      dc.put(5, "v", new EmbeddedMetadata.Builder().build());
+      assertEquals(4, dc.expirationIndex.size());
+
+      // re-putting a key with a longer lifespan postpones its schedule
+      dc.put(6, "v", new EmbeddedMetadata.Builder().lifespan(1).build());
+      dc.put(6, "v", longLived);
+      assertEquals(4, dc.expirationIndex.size());
+      assertTrue(dc.expirationIndex.pollDue(TIME_SERVICE.wallClockTime() + 1000).isEmpty());
+   }
+
+   public void testEvictionUnschedules() {
+      DataContainer dc = DefaultDataContainer.boundedDataContainer(1, 16, EvictionStrategy.LRU,
+            EvictionThreadPolicy.DEFAULT, AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      ((DefaultDataContainer) dc).initialize(mock(EvictionManager.class), mock(PassivationManager.class),
+            internalEntryFactory, mock(ActivationManager.class), mock(CacheLoaderManager.class), TIME_SERVICE);
+
+      Metadata longLived = new EmbeddedMetadata.Builder().lifespan(1, TimeUnit.HOURS).build();
+      for (int i = 0; i < 1000; i++)
+         dc.put(i, "v", longLived);
+      // the index only holds the keys still in the container
+      assertTrue(dc.size() < 1000);
+      assertEquals(dc.size(), ((DefaultDataContainer) dc).expirationIndex.size());
+   }
+}
@@ -0,0 +1,265 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@Test(groups = "unit", testName = "container.OffHeapDataContainerTest")
+public class OffHeapDataContainerTest extends SimpleDataContainerTest {
+
+   private EmbeddedCacheManager cacheManager;
+   private StreamingMarshaller marshaller;
+
+   @BeforeClass
+   public void createCacheManager() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.dataContainer().dataContainer(new OffHeapDataContainer())
+            .eviction().strategy(EvictionStrategy.LRU).maxEntries(100);
+      cacheManager = TestCacheManagerFactory.createCacheManager(builder);
+      marshaller = TestingUtil.extractCacheMarshaller(cacheManager.getCache());
+   }
+
+   @AfterClass
+   public void destroyCacheManager() {
+      TestingUtil.killCacheManagers(cacheManager);
+   }
+
+   @AfterMethod
+   @Override
+   public void tearDown() {
+      if (dc != null)
+         dc.clear();
+      super.tearDown();
+   }
+
+   @Override
+   protected DataContainer createContainer() {
+      return createContainer(-1, null, null);
+   }
+
+   private OffHeapDataContainer createContainer(int maxEntries, EvictionManager evictionManager,
+         PassivationManager passivator) {
+      return initContainer(new OffHeapDataContainer(16, maxEntries), evictionManager, passivator);
+   }
+
+   private OffHeapDataContainer initContainer(OffHeapDataContainer dc, EvictionManager evictionManager,
+         PassivationManager passivator) {
+      return initContainer(dc, evictionManager, passivator, null);
+   }
+
+   private OffHeapDataContainer initContainer(OffHeapDataContainer dc, EvictionManager evictionManager,
+         PassivationManager passivator, ActivationManager activator) {
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      dc.initialize(marshaller, internalEntryFactory, TIME_SERVICE, null,
+            evictionManager, passivator, activator);
+      return dc;
+   }
+
+   @Override
+   public void testUpdatingLastUsed() throws Exception {
+      // Entries are copies, so check the last used stamp on a fresh copy
+      long idle = 600000;
+      dc.put("k", "v", new EmbeddedMetadata.Builder().maxIdle(idle, TimeUnit.MILLISECONDS).build());
+      long lastUsed = dc.get("k").getLastUsed();
+      Thread.sleep(100); // for time calc granularity
+      assertTrue(dc.get("k").getLastUsed() > lastUsed);
+      assertEquals(idle, dc.get("k").getMaxIdle());
+   }
+
+   @Override
+   public void testEntrySet() {
+      // Entries are copies and mortal transient entries hash by identity, so compare them key by key
+      dc.put("k1", "v1", new EmbeddedMetadata.Builder().lifespan(100, TimeUnit.MINUTES).build());
+      dc.put("k2", "v2", new EmbeddedMetadata.Builder().build());
+      dc.put("k3", "v3", new EmbeddedMetadata.Builder().maxIdle(100, TimeUnit.MINUTES).build());
+      dc.put("k4", "v4", new EmbeddedMetadata.Builder()
+            .maxIdle(100, TimeUnit.MINUTES).lifespan(100, TimeUnit.MINUTES).build());
+
+      Map<Object, InternalCacheEntry> actual = new HashMap<Object, InternalCacheEntry>();
+      for (InternalCacheEntry ice : dc.entrySet()) {
+         assertNull("Duplicate key " + ice.getKey(), actual.put(ice.getKey(), ice));
+      }
+      assertEquals(4, actual.size());
+      for (int i = 1; i <= 4; i++) {
+         InternalCacheEntry expected = dc.get("k" + i);
+         InternalCacheEntry ice = actual.get("k" + i);
+         assertEquals(expected.getValue(), ice.getValue());
+         assertEquals(expected.getLifespan(), ice.getLifespan());
+         assertEquals(expected.getMaxIdle(), ice.getMaxIdle());
+         assertEquals(expected.getCreated(), ice.getCreated());
+      }
+   }
+
+   public void testReplaceAndRemove() {
+      dc.put("k", "v1", new EmbeddedMetadata.Builder().build());
+      dc.put("k", "v2", new EmbeddedMetadata.Builder().build());
+      assertEquals(1, dc.size());
+      assertEquals("v2", dc.peek("k").getValue());
+      assertEquals("v2", dc.remove("k").getValue());
+      assertNull(dc.remove("k"));
+      assertFalse(dc.containsKey("k"));
+      assertEquals(0, dc.size());
+   }
+
+   public void testIterationAcrossRehash() {
+      int numEntries = 5000;
+      for (int i = 0; i < numEntries; i++)
+         dc.put(i, "v" + i, new EmbeddedMetadata.Builder().build());
+      assertEquals(numEntries, dc.size());
+
+      Set<Object> seen = new HashSet<Object>();
+      int count = 0;
+      for (InternalCacheEntry ice : dc) {
+         assertEquals("v" + ice.getKey(), ice.getValue());
+         seen.add(ice.getKey());
+         count++;
+         // force rehashing while iterating, which should neither skip nor duplicate existing entries
+         if (count == 100) {
+            for (int i = numEntries; i < numEntries * 4; i++)
+               dc.put(i, "v" + i, new EmbeddedMetadata.Builder().build());
+         }
+      }
+      for (int i = 0; i < numEntries; i++)
+         assertTrue("Missing key " + i, seen.contains(i));
+      assertTrue(count >= numEntries && count <= numEntries * 4);
+      assertEquals(count, seen.size());
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testBoundedEviction() {
+      EvictionManager evictionManager = mock(EvictionManager.class);
+      PassivationManager passivator = mock(PassivationManager.class);
+      dc.clear();
+      dc = createContainer(16, evictionManager, passivator);
+      for (int i = 0; i < 100; i++)
+         dc.put(i, "v" + i, new EmbeddedMetadata.Builder().build());
+
+      assertEquals(16, dc.size());
+      verify(passivator, times(84)).passivate(any(InternalCacheEntry.class));
+      verify(evictionManager, atLeastOnce()).onEntryEviction(any(Map.class));
+      // the most recently written key is never the LRU victim
+      assertEquals("v99", dc.get(99).getValue());
+   }
+
+   public void testBoundedByMemory() {
+      PassivationManager passivator = mock(PassivationManager.class);
+      dc.clear();
+      dc = initContainer(new OffHeapDataContainer(1, -1, 10000), null, passivator);
+      for (int i = 0; i < 100; i++)
+         dc.put(i, new byte[1000], new EmbeddedMetadata.Builder().build());
+
+      int size = dc.size();
+      assertTrue("Unexpected size " + size, size > 0 && size < 10);
+      verify(passivator, times(100 - size)).passivate(any(InternalCacheEntry.class));
+      assertTrue(dc.containsKey(99));
+
+      // growing an entry evicts others too
+      dc.put(99, new byte[5000], new EmbeddedMetadata.Builder().build());
+      assertTrue(dc.size() < size);
+      assertTrue(dc.containsKey(99));
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testEntryLargerThanSegmentNotStored() {
+      EvictionManager evictionManager = mock(EvictionManager.class);
+      PassivationManager passivator = mock(PassivationManager.class);
+      ActivationManager activator = mock(ActivationManager.class);
+      dc.clear();
+      dc = initContainer(new OffHeapDataContainer(1, -1, 10000), evictionManager, passivator, activator);
+      for (int i = 0; i < 5; i++)
+         dc.put(i, new byte[1000], new EmbeddedMetadata.Builder().build());
+      reset(evictionManager, passivator, activator);
+
+      // the entry must neither be stored nor evict the other entries
+      dc.put("big", new byte[20000], new EmbeddedMetadata.Builder().build());
+      assertFalse(dc.containsKey("big"));
+      assertEquals(5, dc.size());
+      verify(activator, never()).activate(any());
+      verify(evictionManager, never()).onEntryEviction(any(Map.class));
+      // it is still handed to the passivator, so that it is not lost
+      verify(passivator).passivate(any(InternalCacheEntry.class));
+
+      // growing an existing entry beyond the bound drops the previous value
+      dc.put(0, new byte[20000], new EmbeddedMetadata.Builder().build());
+      assertFalse(dc.containsKey(0));
+      assertEquals(4, dc.size());
+   }
+
+   public void testBoundedByConfiguredMemory() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.dataContainer().dataContainer(new OffHeapDataContainer())
+            .locking().concurrencyLevel(1)
+            .eviction().maxMemory(10000);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      try {
+         Cache<Object, Object> cache = cm.getCache();
+         for (int i = 0; i < 100; i++)
+            cache.put(i, new byte[1000]);
+         DataContainer container = TestingUtil.extractComponent(cache, DataContainer.class);
+         assertTrue("Unexpected size " + container.size(), container.size() < 10);
+      } finally {
+         TestingUtil.killCacheManagers(cm);
+      }
+   }
+
+   public void testConfiguredThroughCache() {
+      Cache<Object, Object> cache = cacheManager.getCache();
+      DataContainer container = TestingUtil.extractComponent(cache, DataContainer.class);
+      assertTrue(container instanceof OffHeapDataContainer);
+
+      for (int i = 0; i < 200; i++)
+         cache.put(i, "v" + i);
+      assertTrue(container.size() <= 100);
+      assertEquals("v199", cache.get(199));
+      cache.remove(199);
+      assertNull(cache.get(199));
+   }
+}
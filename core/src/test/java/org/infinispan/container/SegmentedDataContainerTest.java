@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.container;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.DefaultConsistentHash;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.distribution.ch.ReplicatedConsistentHash;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.AnyEquivalence;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@Test(groups = "unit", testName = "container.SegmentedDataContainerTest")
+public class SegmentedDataContainerTest extends SimpleDataContainerTest {
+
+   private static final int NUM_SEGMENTS = 20;
+
+   @Override
+   protected DataContainer createContainer() {
+      SegmentedDataContainer dc = new SegmentedDataContainer(16, NUM_SEGMENTS, new MurmurHash3(),
+            AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      dc.initialize(internalEntryFactory, TIME_SERVICE, null);
+      return dc;
+   }
+
+   public void testSegmentsOfConsistentHash() {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      List<Address> members = Collections.<Address>singletonList(new TestAddress(0));
+      DefaultConsistentHash ch = new DefaultConsistentHashFactory().create(new MurmurHash3(), 1, NUM_SEGMENTS, members);
+      assertTrue(sdc.matches(ch));
+      assertFalse(sdc.matches(new ReplicatedConsistentHash(members)));
+
+      for (int i = 0; i < 100; i++) {
+         String key = "k" + i;
+         assertEquals(ch.getSegment(key), sdc.getSegment(key));
+      }
+   }
+
+   public void testSegmentScopedOperations() {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      for (int i = 0; i < 100; i++)
+         dc.put("k" + i, "v" + i, new EmbeddedMetadata.Builder().build());
+
+      int total = 0;
+      for (int segment = 0; segment < NUM_SEGMENTS; segment++) {
+         Set<Object> keys = sdc.keySet(segment);
+         assertEquals(sdc.size(segment), keys.size());
+         int count = 0;
+         for (Iterator<InternalCacheEntry> it = sdc.iterator(segment); it.hasNext(); ) {
+            InternalCacheEntry ice = it.next();
+            assertEquals(segment, sdc.getSegment(ice.getKey()));
+            assertTrue(keys.contains(ice.getKey()));
+            count++;
+         }
+         assertEquals(sdc.size(segment), count);
+         total += count;
+      }
+      assertEquals(100, total);
+      assertEquals(100, dc.size());
+   }
+
+   public void testRemoveSegments() {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      for (int i = 0; i < 100; i++)
+         dc.put("k" + i, "v" + i, new EmbeddedMetadata.Builder().build());
+
+      Set<Integer> removed = new HashSet<Integer>();
+      int removedCount = 0;
+      for (int segment = 0; segment < NUM_SEGMENTS; segment += 2) {
+         removed.add(segment);
+         removedCount += sdc.size(segment);
+      }
+      sdc.removeSegments(removed);
+
+      assertEquals(100 - removedCount, dc.size());
+      for (int i = 0; i < 100; i++) {
+         String key = "k" + i;
+         if (removed.contains(sdc.getSegment(key))) {
+            assertNull(dc.get(key));
+         } else {
+            assertEquals("v" + i, dc.get(key).getValue());
+         }
+      }
+   }
+}
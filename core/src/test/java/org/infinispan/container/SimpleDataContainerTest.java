@@ -23,6 +23,7 @@
 package org.infinispan.container;
 
 import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
 import org.infinispan.container.entries.ImmortalCacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.entries.MortalCacheEntry;
@@ -38,9 +39,13 @@
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
 
 @Test(groups = "unit", testName = "container.SimpleDataContainerTest")
 public class SimpleDataContainerTest extends AbstractInfinispanTest {
@@ -297,4 +302,50 @@ public void testGetDuringKeySetLoop() {
 
       assert i == 10 : "Expected the loop to run 10 times, only ran " + i;
    }   
+
+   public void testConcurrentUpdatesAndPurges() throws Exception {
+      final Metadata mortal = new EmbeddedMetadata.Builder().lifespan(1, TimeUnit.MILLISECONDS).build();
+      final Metadata immortal = new EmbeddedMetadata.Builder().build();
+      final int rounds = 1000;
+      final CyclicBarrier barrier = new CyclicBarrier(3);
+      Future<Void> mortalWriter = fork(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            for (int i = 0; i < rounds; i++) {
+               barrier.await(10, TimeUnit.SECONDS);
+               dc.put("k", "mortal", mortal);
+               barrier.await(10, TimeUnit.SECONDS);
+            }
+            return null;
+         }
+      });
+      Future<Void> otherWriter = fork(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            for (int i = 0; i < rounds; i++) {
+               barrier.await(10, TimeUnit.SECONDS);
+               if (i % 2 == 0) {
+                  dc.remove("k");
+               } else {
+                  dc.put("k", "immortal", immortal);
+               }
+               barrier.await(10, TimeUnit.SECONDS);
+            }
+            return null;
+         }
+      });
+
+      for (int i = 0; i < rounds; i++) {
+         dc.put("k", "previous", mortal);
+         barrier.await(10, TimeUnit.SECONDS);
+         barrier.await(10, TimeUnit.SECONDS);
+         // Whatever the interleaving of the writes, an expirable entry left must be purged once expired
+         Thread.sleep(2);
+         dc.purgeExpired();
+         InternalCacheEntry e = dc.peek("k");
+         assertTrue("Round " + i + ": " + e + " should have been purged", e == null || !e.canExpire());
+      }
+      mortalWriter.get(10, TimeUnit.SECONDS);
+      otherWriter.get(10, TimeUnit.SECONDS);
+   }
 }
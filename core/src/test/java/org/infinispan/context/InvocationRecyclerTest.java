@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.context;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests that operations reusing the invocation context and the command of a previous operation behave as operations
+ * allocating their own.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "context.InvocationRecyclerTest")
+public class InvocationRecyclerTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = getDefaultStandaloneCacheConfig(false);
+      builder.unsafe().recycleInvocationObjects(true);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      ConfigurationBuilder transactional = getDefaultStandaloneCacheConfig(true);
+      transactional.unsafe().recycleInvocationObjects(true);
+      cm.defineConfiguration("transactional", transactional.build());
+      return cm;
+   }
+
+   public void testOperations() {
+      InvocationRecycler recycler = recycler(cache);
+      assertTrue(recycler.isEnabled());
+      recycler.resetStatistics();
+
+      assertNull(cache.put("k", "v1"));
+      assertEquals("v1", cache.put("k", "v2"));
+      assertNull(cache.get("missing"));
+      assertEquals("v2", cache.remove("k"));
+      assertNull(cache.remove("k"));
+      assertFalse(cache.containsKey("k"));
+
+      assertEquals(5, recycler.getRecycledCount());
+      assertEquals(0, recycler.getAllocatedCount());
+   }
+
+   public void testFlagsAreNotKept() {
+      RemovedListener listener = new RemovedListener();
+      cache.put("silent", "v");
+      cache.put("notified", "v");
+      cache.addListener(listener);
+      try {
+         cache.getAdvancedCache().withFlags(Flag.SKIP_LISTENER_NOTIFICATION).remove("silent");
+         assertEquals(0, listener.removed.get());
+         cache.remove("notified");
+         assertEquals(1, listener.removed.get());
+      } finally {
+         cache.removeListener(listener);
+      }
+   }
+
+   public void testNestedInvocation() {
+      InvocationRecycler recycler = recycler(cache);
+      CreatedListener listener = new CreatedListener(cache);
+      cache.addListener(listener);
+      try {
+         recycler.resetStatistics();
+         cache.put("outer", "v");
+      } finally {
+         cache.removeListener(listener);
+      }
+      assertEquals("v", cache.get("outer"));
+      assertEquals("outer", cache.get("nested-outer"));
+      assertEquals(1, recycler.getRecycledCount());
+      assertEquals(1, recycler.getAllocatedCount());
+   }
+
+   public void testReleasedAfterFailure() {
+      InvocationRecycler recycler = recycler(cache);
+      cache.getAdvancedCache().addInterceptor(new FailingInterceptor(), 0);
+      try {
+         cache.put("failing", "v");
+         fail("Expected the put to fail");
+      } catch (IllegalStateException expected) {
+      } finally {
+         cache.getAdvancedCache().removeInterceptor(FailingInterceptor.class);
+      }
+      recycler.resetStatistics();
+      cache.put("k", "v");
+      assertEquals(1, recycler.getRecycledCount());
+      assertEquals(0, recycler.getAllocatedCount());
+   }
+
+   public void testDisabledForTransactionalCache() {
+      Cache<Object, Object> transactional = cacheManager.getCache("transactional");
+      InvocationRecycler recycler = recycler(transactional);
+      assertFalse(recycler.isEnabled());
+      transactional.put("k", "v");
+      assertEquals("v", transactional.get("k"));
+      assertEquals(0, recycler.getRecycledCount());
+   }
+
+   private InvocationRecycler recycler(Cache<?, ?> cache) {
+      return TestingUtil.extractComponent(cache, InvocationRecycler.class);
+   }
+
+   @Listener
+   public static class CreatedListener {
+      private final Cache<Object, Object> cache;
+
+      CreatedListener(Cache<Object, Object> cache) {
+         this.cache = cache;
+      }
+
+      @CacheEntryCreated
+      public void created(CacheEntryCreatedEvent<Object, Object> event) {
+         if (!event.isPre() && !((String) event.getKey()).startsWith("nested-")) {
+            cache.put("nested-" + event.getKey(), event.getKey());
+         }
+      }
+   }
+
+   @Listener
+   public static class RemovedListener {
+      final AtomicInteger removed = new AtomicInteger();
+
+      @CacheEntryRemoved
+      public void removed(CacheEntryRemovedEvent<Object, Object> event) {
+         if (!event.isPre()) removed.incrementAndGet();
+      }
+   }
+
+   public static class FailingInterceptor extends CommandInterceptor {
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+         throw new IllegalStateException("Failing on purpose");
+      }
+   }
+}
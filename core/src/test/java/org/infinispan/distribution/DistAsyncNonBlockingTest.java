@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.distribution;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.rpc.RpcOptions;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.jgroups.SuspectException;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.util.CountingRpcManager;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
+import org.infinispan.util.concurrent.DeferredReturnFuture;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the async operations which are invoked on the caller's thread and completed by the thread receiving the
+ * responses, i.e. writes from a node which is not the primary owner and remote reads without L1.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "distribution.DistAsyncNonBlockingTest")
+public class DistAsyncNonBlockingTest extends BaseDistFunctionalTest {
+
+   public DistAsyncNonBlockingTest() {
+      sync = true;
+      tx = false;
+      l1CacheEnabled = false;
+   }
+
+   public void testWritesFromNonOwner() throws Exception {
+      MagicKey k = new MagicKey("k", c1, c2);
+
+      NotifyingFuture<String> put = c4.putAsync(k, "v1");
+      assertTrue(put instanceof CompletableNotifyingFuture);
+      assertNull(put.get());
+      assertOnAllCachesAndOwnership(k, "v1");
+
+      assertEquals("v1", c4.putAsync(k, "v2").get());
+      assertEquals("v2", c4.putIfAbsentAsync(k, "v3").get());
+      assertEquals("v2", c4.replaceAsync(k, "v3").get());
+      assertEquals(Boolean.FALSE, c4.replaceAsync(k, "v2", "v4").get());
+      assertEquals(Boolean.TRUE, c4.replaceAsync(k, "v3", "v4").get());
+      assertOnAllCachesAndOwnership(k, "v4");
+
+      assertEquals(Boolean.FALSE, c4.removeAsync(k, "v3").get());
+      assertEquals("v4", c4.removeAsync(k).get());
+      assertRemovedOnAllCaches(k);
+   }
+
+   public void testRemoteGet() throws Exception {
+      MagicKey k = new MagicKey("k", c2, c3);
+      c2.put(k, "v");
+
+      NotifyingFuture<String> get = c1.getAsync(k);
+      assertTrue(get instanceof CompletableNotifyingFuture);
+      assertEquals("v", get.get());
+      assertIsNotInL1(c1, k);
+
+      assertNull(c1.getAsync(new MagicKey("missing", c2, c3)).get());
+   }
+
+   public void testRemoteGetRetriedWhenOwnerSuspected() throws Exception {
+      MagicKey k = new MagicKey("k", c2, c3);
+      c2.put(k, "v");
+
+      RpcManager realRpcManager = c1.getAdvancedCache().getRpcManager();
+      SuspectingRpcManager rpcManager = new SuspectingRpcManager(realRpcManager);
+      TestingUtil.replaceComponent(c1, RpcManager.class, rpcManager, true);
+      try {
+         // the first remote get fails as if its target had left the cluster, the retry succeeds
+         assertEquals("v", c1.getAsync(k).get(10, TimeUnit.SECONDS));
+         assertEquals(2, rpcManager.clusterGet);
+      } finally {
+         TestingUtil.replaceComponent(c1, RpcManager.class, realRpcManager, true);
+      }
+   }
+
+   public void testListenerNotified() throws Exception {
+      MagicKey k = new MagicKey("k", c3, c4);
+      final CountDownLatch latch = new CountDownLatch(1);
+      c1.putAsync(k, "v").attachListener(new FutureListener<String>() {
+         @Override
+         public void futureDone(Future<String> future) {
+            latch.countDown();
+         }
+      });
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      assertEquals("v", c1.getAsync(k).get());
+   }
+
+   public void testInvokeRemotelyInFutureUsesTransportExecutor() throws Exception {
+      MagicKey k = new MagicKey("k", c2, c3);
+      final AtomicReference<String> listenerThread = new AtomicReference<String>();
+      final CountDownLatch latch = new CountDownLatch(1);
+      NotifyingNotifiableFuture<Object> future = new DeferredReturnFuture<Object>();
+      future.attachListener(new FutureListener<Object>() {
+         @Override
+         public void futureDone(Future<Object> f) {
+            listenerThread.set(Thread.currentThread().getName());
+            latch.countDown();
+         }
+      });
+
+      RpcManager rpcManager = c1.getAdvancedCache().getRpcManager();
+      ClusteredGetCommand get = TestingUtil.extractComponent(c1, CommandsFactory.class)
+            .buildClusteredGetCommand(k, null, false, null);
+      rpcManager.invokeRemotelyInFuture(Collections.singleton(c2.getAdvancedCache().getRpcManager().getAddress()), get,
+            rpcManager.getDefaultRpcOptions(true), future);
+      future.get(10, TimeUnit.SECONDS);
+
+      // The existing callers still get their responses from the transport executor, not from the JGroups threads
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      assertTrue(listenerThread.get(), listenerThread.get().toLowerCase().contains("transport"));
+   }
+
+   private static class SuspectingRpcManager extends CountingRpcManager {
+      SuspectingRpcManager(RpcManager realOne) {
+         super(realOne);
+      }
+
+      @Override
+      public NotifyingFuture<Map<Address, Response>> invokeRemotelyNonBlocking(Collection<Address> recipients,
+            ReplicableCommand rpc, RpcOptions options) {
+         if (rpc instanceof ClusteredGetCommand && clusterGet == 0) {
+            aboutToInvokeRpc(rpc);
+            CompletableNotifyingFuture<Map<Address, Response>> future = new CompletableNotifyingFuture<Map<Address, Response>>();
+            future.completeExceptionally(new SuspectException("Suspected owner", recipients.iterator().next()));
+            return future;
+         }
+         return super.invokeRemotelyNonBlocking(recipients, rpc, options);
+      }
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.distribution;
+
+import org.infinispan.context.Flag;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.util.concurrent.TimeoutException;
+import org.testng.annotations.Test;
+
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests the locks acquired by {@link org.infinispan.AdvancedCache#getAll(java.util.Set)} in a pessimistic
+ * transaction.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "distribution.DistGetAllPessimisticTxTest")
+public class DistGetAllPessimisticTxTest extends DistGetAllTest {
+
+   public DistGetAllPessimisticTxTest() {
+      tx = true;
+      lockingMode = LockingMode.PESSIMISTIC;
+   }
+
+   public void testForceWriteLockLocksEveryKey() throws Exception {
+      MagicKey local = new MagicKey("lockLocal", c1, c2);
+      MagicKey remote = new MagicKey("lockRemote", c2, c3);
+      c1.put(local, "v1");
+      c1.put(remote, "v2");
+
+      Set<Object> keys = new HashSet<Object>();
+      Collections.addAll(keys, local, remote);
+      TransactionManager tm = tm(c1);
+      tm.begin();
+      try {
+         Map<Object, String> values = c1.getAdvancedCache().withFlags(Flag.FORCE_WRITE_LOCK).getAll(keys);
+         assertEquals(2, values.size());
+         assertLocked(c1, local);
+         assertLocked(c1, remote);
+      } finally {
+         tm.commit();
+      }
+      assertNotLocked(c1, local);
+      assertNotLocked(c1, remote);
+   }
+
+   public void testNoLocksWithoutForceWriteLock() throws Exception {
+      MagicKey local = new MagicKey("noLockLocal", c1, c2);
+      MagicKey remote = new MagicKey("noLockRemote", c2, c3);
+      c1.put(local, "v1");
+      c1.put(remote, "v2");
+
+      Set<Object> keys = new HashSet<Object>();
+      Collections.addAll(keys, local, remote);
+      TransactionManager tm = tm(c1);
+      tm.begin();
+      try {
+         assertEquals(2, c1.getAdvancedCache().getAll(keys).size());
+         assertFalse(checkLocked(c1, local));
+         assertFalse(checkLocked(c1, remote));
+      } finally {
+         tm.commit();
+      }
+   }
+
+   public void testLocksReleasedWhenAKeyCannotBeLocked() throws Exception {
+      MagicKey free = new MagicKey("free", c1, c2);
+      MagicKey taken = new MagicKey("taken", c1, c2);
+      c1.put(free, "v1");
+      c1.put(taken, "v2");
+
+      TransactionManager tm = tm(c1);
+      tm.begin();
+      c1.getAdvancedCache().withFlags(Flag.FORCE_WRITE_LOCK).get(taken);
+      Transaction lockOwner = tm.suspend();
+
+      Set<Object> keys = new HashSet<Object>();
+      Collections.addAll(keys, free, taken);
+      tm.begin();
+      try {
+         c1.getAdvancedCache().withFlags(Flag.FORCE_WRITE_LOCK, Flag.ZERO_LOCK_ACQUISITION_TIMEOUT).getAll(keys);
+         fail("Expected the lock on " + taken + " to time out");
+      } catch (TimeoutException expected) {
+         // the lock on the other key must not be left behind
+         assertNotLocked(c1, free);
+         assertLocked(c1, taken);
+      } finally {
+         tm.rollback();
+      }
+
+      tm.resume(lockOwner);
+      tm.commit();
+      assertNotLocked(c1, taken);
+   }
+}
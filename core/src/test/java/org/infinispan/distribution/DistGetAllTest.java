@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.distribution;
+
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.util.CountingRpcManager;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests {@link org.infinispan.AdvancedCache#getAll(java.util.Set)} on a distributed cache, with keys owned by
+ * different nodes.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "distribution.DistGetAllTest")
+public class DistGetAllTest extends BaseDistFunctionalTest {
+
+   public DistGetAllTest() {
+      sync = true;
+      tx = false;
+   }
+
+   public void testGetAllFromNonOwner() {
+      MagicKey k1 = new MagicKey("k1", c1, c2);
+      MagicKey k2 = new MagicKey("k2", c2, c3);
+      MagicKey k3 = new MagicKey("k3", c3, c1);
+      MagicKey missing = new MagicKey("missing", c1, c2);
+      c1.put(k1, "v1");
+      c2.put(k2, "v2");
+      c3.put(k3, "v3");
+
+      Set<Object> keys = new HashSet<Object>();
+      Collections.addAll(keys, k1, k2, k3, missing);
+      Map<Object, String> values = c4.getAdvancedCache().getAll(keys);
+
+      assertEquals(3, values.size());
+      assertEquals("v1", values.get(k1));
+      assertEquals("v2", values.get(k2));
+      assertEquals("v3", values.get(k3));
+      assertFalse(values.containsKey(missing));
+
+      if (l1CacheEnabled) {
+         assertIsInL1(c4, k1);
+         assertIsInL1(c4, k2);
+         assertIsInL1(c4, k3);
+         assertIsNotInL1(c4, missing);
+      }
+   }
+
+   public void testGetAllMixedLocalAndRemote() {
+      MagicKey local = new MagicKey("local", c1, c2);
+      MagicKey remote = new MagicKey("remote", c3, c4);
+      c1.put(local, "local");
+      c1.put(remote, "remote");
+
+      Set<Object> keys = new HashSet<Object>();
+      Collections.addAll(keys, local, remote);
+      Map<Object, String> values = c1.getAdvancedCache().getAll(keys);
+
+      assertEquals(2, values.size());
+      assertEquals("local", values.get(local));
+      assertEquals("remote", values.get(remote));
+      assertTrue(isOwner(c1, local));
+      if (l1CacheEnabled)
+         assertIsInL1(c1, remote);
+   }
+
+   public void testOneRemoteGetPerPrimaryOwner() {
+      MagicKey k1 = new MagicKey("byOwner1", c1, c2);
+      MagicKey k2 = new MagicKey("byOwner2", c1, c3);
+      MagicKey k3 = new MagicKey("byOwner3", c2, c3);
+      MagicKey k4 = new MagicKey("byOwner4", c3, c1);
+      c1.put(k1, "v1");
+      c1.put(k2, "v2");
+      c1.put(k3, "v3");
+      c1.put(k4, "v4");
+
+      Set<Object> keys = new HashSet<Object>();
+      Collections.addAll(keys, k1, k2, k3, k4);
+      RpcManager realRpcManager = c4.getAdvancedCache().getRpcManager();
+      CountingRpcManager rpcManager = CountingRpcManager.replaceRpcManager(c4);
+      try {
+         Map<Object, String> values = c4.getAdvancedCache().getAll(keys);
+         assertEquals(4, values.size());
+         // the keys have three primary owners between them
+         assertEquals(3, rpcManager.clusterGetAll);
+         assertEquals(0, rpcManager.clusterGet);
+      } finally {
+         TestingUtil.replaceComponent(c4, RpcManager.class, realRpcManager, true);
+      }
+   }
+
+   public void testGetAllNoKeys() {
+      assertTrue(c1.getAdvancedCache().getAll(Collections.emptySet()).isEmpty());
+   }
+}
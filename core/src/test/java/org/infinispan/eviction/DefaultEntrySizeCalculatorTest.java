@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.eviction;
+
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.marshall.MarshalledValue;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the estimates of {@link DefaultEntrySizeCalculator}.
+ *
+ * @since 5.3
+ */
+@Test(groups = "unit", testName = "eviction.DefaultEntrySizeCalculatorTest")
+public class DefaultEntrySizeCalculatorTest {
+
+   private final DefaultEntrySizeCalculator calculator = new DefaultEntrySizeCalculator();
+
+   public void testLargerValuesWeighMore() {
+      long small = calculator.calculateSize("k", new ImmortalCacheEntry("k", new byte[10]));
+      long large = calculator.calculateSize("k", new ImmortalCacheEntry("k", new byte[1000]));
+      assertEquals(984, large - small);
+   }
+
+   public void testMarshalledValueSizedFromSerializedBytes() {
+      MarshalledValue value = new MarshalledValue(new byte[10000], true, new TestObjectStreamMarshaller());
+      ImmortalCacheEntry entry = new ImmortalCacheEntry("k", value);
+
+      // before serialization, the wrapped instance is sized rather than the guessed serialized size
+      long beforeSerialization = calculator.calculateSize("k", entry);
+      assertTrue(beforeSerialization > 10000);
+
+      value.serialize();
+      long serialized = calculator.calculateSize("k", entry);
+      assertTrue(serialized > 10000);
+
+      // releasing the serialized form doesn't change the estimate any more
+      value.compact(false, true);
+      assertEquals(serialized, calculator.calculateSize("k", entry));
+   }
+}
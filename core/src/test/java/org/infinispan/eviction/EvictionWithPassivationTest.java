@@ -72,6 +72,10 @@ public void testPiggybackLIRS() {
       runTest(EvictionThreadPolicy.PIGGYBACK, EvictionStrategy.LIRS);
    }
 
+   public void testPiggybackTINYLFU() {
+      runTest(EvictionThreadPolicy.PIGGYBACK, EvictionStrategy.TINYLFU);
+   }
+
    public void testPiggybackNONE() {
       runTest(EvictionThreadPolicy.PIGGYBACK, EvictionStrategy.NONE);
    }
@@ -89,6 +93,10 @@ public void testDefaultLIRS() {
       runTest(EvictionThreadPolicy.DEFAULT, EvictionStrategy.LIRS);
    }
 
+   public void testDefaultTINYLFU() {
+      runTest(EvictionThreadPolicy.DEFAULT, EvictionStrategy.TINYLFU);
+   }
+
    public void testDefaultNONE() {
       runTest(EvictionThreadPolicy.DEFAULT, EvictionStrategy.NONE);
    }
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.eviction;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.interceptors.CacheMgmtInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests eviction of caches bounded by the memory footprint of their entries.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "eviction.MemoryBasedEvictionFunctionalTest")
+public class MemoryBasedEvictionFunctionalTest extends SingleCacheManagerTest {
+
+   private static final long MAX_MEMORY = 64 * 1024;
+
+   protected EvictionStrategy getEvictionStrategy() {
+      return EvictionStrategy.LRU;
+   }
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.eviction().strategy(getEvictionStrategy()).maxMemory(MAX_MEMORY)
+            // a single segment, so that any entry competes with all the others for memory
+            .locking().concurrencyLevel(1)
+            .jmxStatistics().enable();
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      cache = cm.getCache();
+      return cm;
+   }
+
+   public void testMixedValueSizes() {
+      for (int i = 0; i < 1000; i++) {
+         cache.put("key" + i, new byte[i % 10 == 0 ? 8192 : 100]);
+         assertWeightedSize();
+      }
+      // 1000 entries take far more than MAX_MEMORY
+      assertTrue(cache.getAdvancedCache().getDataContainer().size() < 1000);
+   }
+
+   public void testGrowingValue() {
+      for (int i = 0; i < 10; i++) {
+         cache.put("key" + i, new byte[100]);
+      }
+      assertEquals(10, cache.getAdvancedCache().getDataContainer().size());
+      cache.put("key0", new byte[(int) MAX_MEMORY - 1024]);
+      assertWeightedSize();
+      assertTrue(cache.getAdvancedCache().getDataContainer().size() < 10);
+   }
+
+   private void assertWeightedSize() {
+      DefaultDataContainer container = (DefaultDataContainer) cache.getAdvancedCache().getDataContainer();
+      long weightedSize = container.weightedSize();
+      assertTrue("Weighted size " + weightedSize + " above " + MAX_MEMORY, weightedSize <= MAX_MEMORY);
+      CacheMgmtInterceptor stats = TestingUtil.findInterceptor(cache, CacheMgmtInterceptor.class);
+      assertEquals(weightedSize, stats.getWeightedSize());
+   }
+}
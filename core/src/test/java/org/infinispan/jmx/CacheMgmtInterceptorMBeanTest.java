@@ -93,6 +93,11 @@ public void testEviction() throws Exception {
       assertEvictions(2);
    }
 
+   public void testWeightedSizeNotBoundedByMemory() throws Exception {
+      cache.put("key", "value");
+      assertAttributeValue("WeightedSize", -1);
+   }
+
    public void testGetKeyValue() throws Exception {
       assertMisses(0);
       assertHits(0);
@@ -33,6 +33,7 @@
 import org.infinispan.test.AbstractInfinispanTest;
 import org.infinispan.util.DefaultTimeService;
 import org.infinispan.util.ReflectionUtil;
+import org.infinispan.util.TimeService;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
@@ -80,13 +81,17 @@ void testAsyncExecutorIsDefaultOnStart() throws Exception {
    }
 
    public static Cache mockCache(final String name) {
+      return mockCache(name, TIME_SERVICE);
+   }
+
+   public static Cache mockCache(final String name, TimeService timeService) {
       AdvancedCache cache = mock(AdvancedCache.class);
       ComponentRegistry registry = mock(ComponentRegistry.class);
 
       when(cache.getName()).thenReturn(name);
       when(cache.getAdvancedCache()).thenReturn(cache);
       when(cache.getComponentRegistry()).thenReturn(registry);
-      when(registry.getTimeService()).thenReturn(TIME_SERVICE);
+      when(registry.getTimeService()).thenReturn(timeService);
       return cache;
    }
 }
@@ -33,11 +33,14 @@
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.infinispan.Cache;
 import org.infinispan.container.entries.InternalCacheEntry;
@@ -51,9 +54,11 @@
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.marshall.TestObjectStreamMarshaller;
 import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.transaction.xa.TransactionFactory;
+import org.infinispan.util.DefaultTimeService;
 import org.infinispan.util.Util;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -75,6 +80,8 @@ public abstract class BaseCacheStoreTest extends AbstractInfinispanTest {
 
    protected TransactionFactory gtf = new TransactionFactory();
 
+   protected ShiftedTimeService timeService;
+
    protected BaseCacheStoreTest() {
       gtf.init(false, false, true, false);
    }
@@ -82,6 +89,7 @@ protected BaseCacheStoreTest() {
    @BeforeMethod
    public void setUp() throws Exception {
       try {
+         timeService = new ShiftedTimeService();
          cs = createCacheStore();
          assert (cs.getCacheStoreConfig()==null || cs.getCacheStoreConfig().isPurgeSynchronously()) : "Cache store tests expect purgeSynchronously to be enabled";
       } catch (Exception e) {
@@ -118,7 +126,7 @@ public void assertNoLocksHeld(Method m) {
     * @return a mock cache for use with the cache store impls
     */
    protected Cache getCache() {
-      return AbstractCacheStoreTest.mockCache("mockCache-" + getClass().getName());
+      return AbstractCacheStoreTest.mockCache("mockCache-" + getClass().getName(), timeService);
    }
 
    /**
@@ -497,6 +505,46 @@ public void testStoreAndRemoveAll() throws CacheLoaderException {
       assert expected.isEmpty();
    }
 
+   public void testBulkStoreAndRemove() throws Exception {
+      cs.store(TestInternalCacheEntryFactory.create("k1", "old1"));
+      cs.store(TestInternalCacheEntryFactory.create("k2", "old2"));
+
+      long lifespan = 120000;
+      long idle = 60000;
+      // overwrites k1 and k2, adds k3 to k5 and writes k3 twice, the last write must win
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>();
+      entries.add(TestInternalCacheEntryFactory.create("k1", "v1"));
+      entries.add(TestInternalCacheEntryFactory.create("k2", "v2", lifespan));
+      entries.add(TestInternalCacheEntryFactory.create("k3", "first"));
+      entries.add(TestInternalCacheEntryFactory.create("k4", "v4", lifespan, idle));
+      entries.add(TestInternalCacheEntryFactory.create("k3", "v3"));
+      entries.add(TestInternalCacheEntryFactory.create("k5", "v5", 1));
+      cs.storeAll(entries);
+
+      assertCorrectExpiry(cs.load("k1"), "v1", -1, -1, false);
+      assertCorrectExpiry(cs.load("k2"), "v2", lifespan, -1, false);
+      assertCorrectExpiry(cs.load("k3"), "v3", -1, -1, false);
+      assertCorrectExpiry(cs.load("k4"), "v4", lifespan, idle, false);
+
+      timeService.advance(1000);
+      purgeExpired();
+      assertEventuallyExpires("k5");
+      assert !cs.containsKey("k5");
+
+      Set<Object> toRemove = new HashSet<Object>();
+      Collections.addAll(toRemove, "k1", "k3", "k5", "missing");
+      cs.removeAll(toRemove);
+      assert !cs.containsKey("k1");
+      assert !cs.containsKey("k3");
+      assert cs.load("k2").getValue().equals("v2");
+      assert cs.load("k4").getValue().equals("v4");
+      assert cs.loadAll().size() == 2;
+
+      cs.removeAll(Collections.<Object>emptySet());
+      cs.storeAll(Collections.<InternalCacheEntry>emptyList());
+      assert cs.loadAll().size() == 2;
+   }
+
    public void testPurgeExpired() throws Exception {
       // Increased lifespan and idle timeouts to accommodate slower cache stores
       long lifespan = 6000;
@@ -542,6 +590,67 @@ public void testLoadKeys() throws CacheLoaderException {
       assert !s.contains("k3");
    }
 
+   public void testLoadAll() throws Exception {
+      long lifespan = 1;
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      cs.store(TestInternalCacheEntryFactory.create("k3", "v3", lifespan));
+      timeService.advance(1000);
+
+      Set<Object> keys = new HashSet<Object>();
+      Collections.addAll(keys, "k1", "k2", "k3", "k4");
+      Map<Object, InternalCacheEntry> loaded = cs.loadAll(keys);
+      assert loaded.size() == 2 : "Expected 2 entries, was " + loaded;
+      assert loaded.get("k1").getValue().equals("v1");
+      assert loaded.get("k2").getValue().equals("v2");
+      assert !loaded.containsKey("k3");
+      assert !loaded.containsKey("k4");
+
+      assert cs.loadAll(Collections.<Object>emptySet()).isEmpty();
+   }
+
+   public void testEntryIterator() throws Exception {
+      long lifespan = 1;
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      cs.store(TestInternalCacheEntryFactory.create("k3", "v3"));
+      cs.store(TestInternalCacheEntryFactory.create("k4", "v4", lifespan));
+      TestingUtil.sleepThread(100);
+
+      Map<Object, Object> all = iterate(KeyFilter.ACCEPT_ALL);
+      assert all.size() == 3 : "Expected 3 entries, was " + all;
+      assert all.get("k1").equals("v1");
+      assert all.get("k2").equals("v2");
+      assert all.get("k3").equals("v3");
+
+      Map<Object, Object> filtered = iterate(new KeyFilter() {
+         @Override
+         public boolean accept(Object key) {
+            return !key.equals("k2");
+         }
+      });
+      assert filtered.size() == 2 : "Expected 2 entries, was " + filtered;
+      assert filtered.containsKey("k1");
+      assert filtered.containsKey("k3");
+
+      cs.clear();
+      assert iterate(KeyFilter.ACCEPT_ALL).isEmpty();
+   }
+
+   private Map<Object, Object> iterate(KeyFilter filter) throws CacheLoaderException {
+      Map<Object, Object> entries = new HashMap<Object, Object>();
+      StoredEntryIterator it = cs.entryIterator(filter);
+      try {
+         while (it.hasNext()) {
+            InternalCacheEntry entry = it.next();
+            assert entries.put(entry.getKey(), entry.getValue()) == null : "Duplicate key " + entry.getKey();
+         }
+      } finally {
+         it.close();
+      }
+      return entries;
+   }
+
    public void testStreamingAPI() throws IOException, CacheLoaderException {
       cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
       cs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
@@ -786,4 +895,24 @@ public int hashCode() {
       }
    }
 
+   /**
+    * Follows the system clock, but lets a test move the clock seen by the store forward instead of sleeping.
+    */
+   protected static class ShiftedTimeService extends DefaultTimeService {
+      private volatile long shiftMillis;
+
+      public void advance(long millis) {
+         shiftMillis += millis;
+      }
+
+      @Override
+      public long wallClockTime() {
+         return super.wallClockTime() + shiftMillis;
+      }
+
+      @Override
+      public long time() {
+         return super.time() + TimeUnit.MILLISECONDS.toNanos(shiftMillis);
+      }
+   }
 }
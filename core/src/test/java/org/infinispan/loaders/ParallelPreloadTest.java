@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.loaders;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.FileCacheStoreConfigurationBuilder;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStoreConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.ByteArrayEquivalence;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests preloading the cache with several threads.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "loaders.ParallelPreloadTest")
+public class ParallelPreloadTest extends SingleCacheManagerTest {
+
+   private static final int NUM_KEYS = 1000;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createCacheManager(false);
+   }
+
+   public void testPreloadAllEntries() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.loaders().preload(true).preloadThreads(4)
+            .addLoader(DummyInMemoryCacheStoreConfigurationBuilder.class).storeName("parallelPreload");
+      Cache<Object, Object> c = restartWithStoredEntries("parallelPreload", builder);
+
+      assertEquals(NUM_KEYS, c.getAdvancedCache().getDataContainer().size());
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals("v" + i, c.getAdvancedCache().getDataContainer().get("k" + i).getValue());
+      }
+      CacheLoaderManagerImpl clm = (CacheLoaderManagerImpl) TestingUtil.extractComponent(c, CacheLoaderManager.class);
+      assertFalse(clm.isPreloading());
+      assertEquals(NUM_KEYS, clm.getPreloadedEntries());
+   }
+
+   public void testPreloadByteArrayKeys() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.dataContainer().keyEquivalence(ByteArrayEquivalence.INSTANCE)
+            .loaders().preload(true).preloadThreads(4)
+            .addLoader(DummyInMemoryCacheStoreConfigurationBuilder.class).storeName("parallelPreloadByteArrayKeys");
+      cacheManager.defineConfiguration("parallelPreloadByteArrayKeys", builder.build());
+      Cache<Object, Object> c = cacheManager.getCache("parallelPreloadByteArrayKeys");
+      for (int i = 0; i < NUM_KEYS; i++) {
+         c.put(("k" + i).getBytes(), "v" + i);
+      }
+      c.stop();
+      // Every preload task reads its own copies of the keys from the store, so each key must still be preloaded once
+      c.start();
+
+      assertEquals(NUM_KEYS, c.getAdvancedCache().getDataContainer().size());
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals("v" + i, c.getAdvancedCache().getDataContainer().get(("k" + i).getBytes()).getValue());
+      }
+      CacheLoaderManagerImpl clm = (CacheLoaderManagerImpl) TestingUtil.extractComponent(c, CacheLoaderManager.class);
+      assertEquals(NUM_KEYS, clm.getPreloadedEntries());
+   }
+
+   public void testPreloadLimitedByEviction() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.eviction().strategy(EvictionStrategy.LRU).maxEntries(100)
+            .loaders().preload(true).preloadThreads(4)
+            .addLoader(DummyInMemoryCacheStoreConfigurationBuilder.class).storeName("parallelPreloadEviction");
+      Cache<Object, Object> c = restartWithStoredEntries("parallelPreloadEviction", builder);
+
+      CacheLoaderManagerImpl clm = (CacheLoaderManagerImpl) TestingUtil.extractComponent(c, CacheLoaderManager.class);
+      assertEquals(100, clm.getPreloadedEntries());
+      // the bounded container evicts per segment, so it may hold less entries than the limit
+      assertTrue(c.getAdvancedCache().getDataContainer().size() <= 100);
+   }
+
+   public void testPreloadFromStoreWithEntryIterator() {
+      String location = TestingUtil.tmpDirectory(this);
+      TestingUtil.recursiveFileRemove(location);
+      try {
+         ConfigurationBuilder builder = new ConfigurationBuilder();
+         builder.loaders().preload(true).preloadThreads(4)
+               .addStore(FileCacheStoreConfigurationBuilder.class).location(location);
+         Cache<Object, Object> c = restartWithStoredEntries("parallelPreloadFileStore", builder);
+
+         assertEquals(NUM_KEYS, c.getAdvancedCache().getDataContainer().size());
+         for (int i = 0; i < NUM_KEYS; i++) {
+            assertEquals("v" + i, c.getAdvancedCache().getDataContainer().get("k" + i).getValue());
+         }
+         c.stop();
+      } finally {
+         TestingUtil.recursiveFileRemove(location);
+      }
+   }
+
+   public void testSingleThreadWithoutEntryIterator() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.loaders().preload(true).preloadThreads(4)
+            .addLoader(DummyInMemoryCacheStoreConfigurationBuilder.class).storeName("parallelPreloadSingleThread");
+      cacheManager.defineConfiguration("parallelPreloadSingleThread", builder.build());
+      Cache<Object, Object> c = cacheManager.getCache("parallelPreloadSingleThread");
+      for (int i = 0; i < NUM_KEYS; i++) {
+         c.put("k" + i, "v" + i);
+      }
+      getDummyStore(c).clearStats();
+      c.stop();
+      c.start();
+
+      assertEquals(NUM_KEYS, c.getAdvancedCache().getDataContainer().size());
+      // the dummy store only iterates through loadAllKeys, which a single preload thread calls once
+      assertEquals(1, getDummyStore(c).stats().get("loadAllKeys").intValue());
+   }
+
+   private DummyInMemoryCacheStore getDummyStore(Cache<Object, Object> c) {
+      return (DummyInMemoryCacheStore) TestingUtil.extractComponent(c, CacheLoaderManager.class).getCacheLoader();
+   }
+
+   private Cache<Object, Object> restartWithStoredEntries(String cacheName, ConfigurationBuilder builder) {
+      cacheManager.defineConfiguration(cacheName, builder.build());
+      Cache<Object, Object> c = cacheManager.getCache(cacheName);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         c.put("k" + i, "v" + i);
+      }
+      c.stop();
+      c.start();
+      return c;
+   }
+}
@@ -50,7 +50,10 @@
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -592,6 +595,93 @@ public void run() {
       }
    }
 
+   static class BatchCountingCacheStore extends DummyInMemoryCacheStore {
+      final AtomicInteger storeBatches = new AtomicInteger();
+      final AtomicInteger removeBatches = new AtomicInteger();
+      final AtomicInteger maxBatchSize = new AtomicInteger();
+
+      @Override
+      public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+         storeBatches.incrementAndGet();
+         recordSize(entries.size());
+         super.storeAll(entries);
+      }
+
+      @Override
+      public void removeAll(Set<Object> keys) throws CacheLoaderException {
+         removeBatches.incrementAndGet();
+         recordSize(keys.size());
+         super.removeAll(keys);
+      }
+
+      private void recordSize(int size) {
+         for (;;) {
+            int max = maxBatchSize.get();
+            if (size <= max || maxBatchSize.compareAndSet(max, size))
+               return;
+         }
+      }
+   }
+
+   public void testModificationsAreFlushedInBatches(final Method m) throws Exception {
+      final BatchCountingCacheStore underlying = new BatchCountingCacheStore();
+      AsyncStoreConfig asyncConfig = new AsyncStoreConfig().threadPoolSize(1).batchSize(5);
+      store = new AsyncStore(underlying, asyncConfig);
+      store.init(new DummyInMemoryCacheStore.Cfg(m.getName()), getCache(), null);
+      store.start();
+
+      final int number = 23;
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>(number);
+      for (int i = 0; i < number; i++)
+         entries.add(TestInternalCacheEntryFactory.create(k(m, i), v(m, i)));
+      store.storeAll(entries);
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return underlying.loadAllKeys(null).size() == number;
+         }
+      });
+      assert underlying.storeBatches.get() > 0;
+      assert underlying.maxBatchSize.get() <= 5 : "Batch larger than configured: " + underlying.maxBatchSize.get();
+
+      Set<Object> keys = new HashSet<Object>();
+      for (int i = 0; i < number; i++)
+         keys.add(k(m, i));
+      store.removeAll(keys);
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return underlying.loadAllKeys(null).isEmpty();
+         }
+      });
+      assert underlying.removeBatches.get() > 0;
+      assert underlying.maxBatchSize.get() <= 5 : "Batch larger than configured: " + underlying.maxBatchSize.get();
+      assert store.getBatchCount() >= number / 5;
+      assert store.getQueueSize() == 0;
+   }
+
+   public void testModificationsAreHeldUntilBatchDelay(final Method m) throws Exception {
+      final BatchCountingCacheStore underlying = new BatchCountingCacheStore();
+      AsyncStoreConfig asyncConfig = new AsyncStoreConfig().threadPoolSize(1).batchSize(10).maxBatchDelay(500L);
+      store = new AsyncStore(underlying, asyncConfig);
+      store.init(new DummyInMemoryCacheStore.Cfg(m.getName()), getCache(), null);
+      store.start();
+
+      for (int i = 0; i < 3; i++)
+         store.store(TestInternalCacheEntryFactory.create(k(m, i), v(m, i)));
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return underlying.loadAllKeys(null).size() == 3;
+         }
+      });
+      assert underlying.storeBatches.get() == 1 : "Entries should have been flushed in a single batch";
+      assert underlying.maxBatchSize.get() == 3;
+   }
+
    private static abstract class OneEntryCacheManagerCallable extends CacheManagerCallable {
       protected final Cache<String, String> cache;
       protected final LockableCacheStore store;
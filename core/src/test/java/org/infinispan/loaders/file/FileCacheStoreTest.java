@@ -106,6 +106,22 @@ public void testPurgeExpired() throws Exception {
       assert fcs.load("k3") == null;
    }
 
+   public void testPurgeExpiredOnlyVisitsIndexedBuckets() throws Exception {
+      FileCacheStore fcs = (FileCacheStore) cs;
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      // the first purge scans every bucket and indexes the expiring ones
+      cs.purgeExpired();
+
+      long lifespan = 1000;
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2", lifespan));
+      Thread.sleep(lifespan + 100);
+      cs.purgeExpired();
+
+      Bucket b = fcs.loadBucketContainingKey("k2");
+      assert b == null || !b.getEntries().containsKey("k2");
+      assert fcs.load("k1") != null;
+   }
+
    private void createUnrelatedFile() throws IOException {
       File cacheStoreDirectory = new File(tmpDirectory);
       assert cacheStoreDirectory.exists();
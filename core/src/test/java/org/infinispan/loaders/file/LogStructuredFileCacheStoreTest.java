@@ -0,0 +1,191 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.loaders.file;
+
+import org.infinispan.loaders.BaseCacheStoreTest;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+
+import static org.infinispan.test.TestingUtil.recursiveFileRemove;
+
+@Test(groups = "unit", testName = "loaders.file.LogStructuredFileCacheStoreTest")
+public class LogStructuredFileCacheStoreTest extends BaseCacheStoreTest {
+
+   LogStructuredFileCacheStore lsfcs;
+   String tmpDirectory;
+
+   @BeforeClass
+   protected void setUpTempDir() {
+      tmpDirectory = TestingUtil.tmpDirectory(this);
+   }
+
+   @AfterClass
+   protected void clearTempDir() {
+      recursiveFileRemove(tmpDirectory);
+   }
+
+   @Override
+   protected CacheStore createCacheStore() throws CacheLoaderException {
+      clearTempDir();
+      lsfcs = createStore(new LogStructuredFileCacheStoreConfig());
+      return lsfcs;
+   }
+
+   private LogStructuredFileCacheStore createStore(LogStructuredFileCacheStoreConfig cfg) throws CacheLoaderException {
+      LogStructuredFileCacheStore store = new LogStructuredFileCacheStore();
+      cfg.fetchPersistentState(true)
+         .location(tmpDirectory)
+         .purgeSynchronously(true); // for more accurate unit testing
+      store.init(cfg, getCache(), getMarshaller());
+      store.start();
+      return store;
+   }
+
+   public void testIndexSnapshotWrittenOnStop() throws Exception {
+      lsfcs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      lsfcs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      lsfcs.remove("k2");
+      lsfcs.stop();
+      File snapshot = new File(lsfcs.getRoot(), LogStructuredFileCacheStore.INDEX_SNAPSHOT);
+      assert snapshot.exists();
+
+      lsfcs.start();
+      assert !snapshot.exists() : "A stale snapshot must not survive a crash";
+      assert lsfcs.load("k1").getValue().equals("v1");
+      assert lsfcs.load("k2") == null;
+   }
+
+   public void testIndexSnapshotKeepsRecordKeyLength() throws Exception {
+      PaddedKey key = new PaddedKey("k1", "a long padding which makes the marshalled key longer");
+      lsfcs.store(TestInternalCacheEntryFactory.create(key, "v1"));
+      // The snapshot re-marshalls the key held by the index, which is now shorter than the key in the record
+      key.padding = "";
+      lsfcs.stop();
+      assert new File(lsfcs.getRoot(), LogStructuredFileCacheStore.INDEX_SNAPSHOT).exists();
+
+      lsfcs.start();
+      assert lsfcs.load(new PaddedKey("k1", "")).getValue().equals("v1");
+   }
+
+   public void testIndexRebuiltFromLogFiles() throws Exception {
+      lsfcs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      lsfcs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      lsfcs.store(TestInternalCacheEntryFactory.create("k1", "v1-updated"));
+      lsfcs.remove("k2");
+      lsfcs.stop();
+      // Simulate a crash, in which case no snapshot is written
+      assert new File(lsfcs.getRoot(), LogStructuredFileCacheStore.INDEX_SNAPSHOT).delete();
+
+      lsfcs.start();
+      assert lsfcs.load("k1").getValue().equals("v1-updated");
+      assert lsfcs.load("k2") == null;
+      assert lsfcs.loadAllKeys(null).size() == 1;
+   }
+
+   public void testTornWriteIgnored() throws Exception {
+      lsfcs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      lsfcs.stop();
+      assert new File(lsfcs.getRoot(), LogStructuredFileCacheStore.INDEX_SNAPSHOT).delete();
+      appendGarbage(new File(lsfcs.getRoot(), "0" + LogStructuredFileCacheStore.LOG_FILE_SUFFIX));
+
+      lsfcs.start();
+      assert lsfcs.load("k1").getValue().equals("v1");
+      lsfcs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      lsfcs.stop();
+      assert new File(lsfcs.getRoot(), LogStructuredFileCacheStore.INDEX_SNAPSHOT).delete();
+
+      lsfcs.start();
+      assert lsfcs.load("k1").getValue().equals("v1");
+      assert lsfcs.load("k2").getValue().equals("v2");
+   }
+
+   public void testCompactionReclaimsSpace() throws Exception {
+      lsfcs.stop();
+      clearTempDir();
+      lsfcs = createStore(new LogStructuredFileCacheStoreConfig().maxFileSize(1024));
+      cs = lsfcs;
+
+      for (int i = 0; i < 500; i++) {
+         lsfcs.store(TestInternalCacheEntryFactory.create("k" + (i % 5), "v" + i));
+      }
+      lsfcs.remove("k4");
+
+      // Files are also compacted in the background whenever one is full, so only the final state is deterministic:
+      // the 500 writes filled dozens of files, but the few live entries fit in a couple of them
+      lsfcs.compact();
+      assert lsfcs.getLogFileCount() <= 3 : "Expected most log files to be reclaimed, " + lsfcs.getLogFileCount() + " left";
+      for (int i = 0; i < 4; i++) {
+         assert lsfcs.load("k" + i).getValue().equals("v" + (495 + i));
+      }
+      assert lsfcs.load("k4") == null;
+
+      // The compacted log must still be replayed correctly
+      lsfcs.stop();
+      assert new File(lsfcs.getRoot(), LogStructuredFileCacheStore.INDEX_SNAPSHOT).delete();
+      lsfcs.start();
+      for (int i = 0; i < 4; i++) {
+         assert lsfcs.load("k" + i).getValue().equals("v" + (495 + i));
+      }
+      assert lsfcs.load("k4") == null;
+   }
+
+   private void appendGarbage(File file) throws IOException {
+      FileOutputStream out = new FileOutputStream(file, true);
+      try {
+         out.write(new byte[] {0, 0, 0, 42, 0, 0, 0, 3, 0, 0});
+      } finally {
+         out.close();
+      }
+   }
+
+   static class PaddedKey implements Serializable {
+      final String name;
+      String padding;
+
+      PaddedKey(String name, String padding) {
+         this.name = name;
+         this.padding = padding;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof PaddedKey && name.equals(((PaddedKey) o).name);
+      }
+
+      @Override
+      public int hashCode() {
+         return name.hashCode();
+      }
+   }
+}
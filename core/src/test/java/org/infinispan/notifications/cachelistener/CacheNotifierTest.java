@@ -85,6 +85,8 @@ public void setUp() throws Exception {
       cache = cm.getCache();
       skipListenerCache = cm.getCache().getAdvancedCache().withFlags(Flag.SKIP_LISTENER_NOTIFICATION);
       mockNotifier = mock(CacheNotifier.class);
+      // act as if listeners were registered, so that reads are not served without notifications
+      when(mockNotifier.hasListener(any(Class.class))).thenReturn(true);
       origNotifier = TestingUtil.replaceComponent(cache, CacheNotifier.class, mockNotifier, true);
    }
 
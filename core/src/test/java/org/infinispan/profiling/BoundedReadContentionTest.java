@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.profiling;
+
+import org.infinispan.util.AnyEquivalence;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the read throughput of a bounded {@link BoundedConcurrentHashMap} from 1 to 64 threads, for each eviction
+ * policy. All threads read the same small set of hot keys, so that they hit the same few segments and contend on the
+ * recording of accesses done for the eviction policy. The unbounded map ({@link Eviction#NONE}) does no such
+ * recording and serves as the reference.
+ * <p/>
+ * The duration of each measurement can be set, in milliseconds, with the
+ * <tt>infinispan.profiling.readContention.durationMillis</tt> system property.
+ *
+ * @since 5.3
+ */
+@Test(groups = "profiling", testName = "profiling.BoundedReadContentionTest")
+public class BoundedReadContentionTest {
+
+   private static final Log log = LogFactory.getLog(BoundedReadContentionTest.class);
+
+   private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+   private static final Eviction[] POLICIES = {Eviction.NONE, Eviction.LRU, Eviction.LIRS, Eviction.TINYLFU};
+   private static final int CAPACITY = 10000;
+   private static final int CONCURRENCY_LEVEL = 16;
+   private static final int HOT_KEYS = 64;
+   private static final long DURATION_MILLIS = Long.getLong("infinispan.profiling.readContention.durationMillis", 1000);
+
+   public void testReadContention() throws Exception {
+      for (Eviction eviction : POLICIES) {
+         StringBuilder result = new StringBuilder(String.format("%-8s", eviction));
+         for (int threads : THREADS) {
+            result.append(String.format(" %2d threads: %,12d reads/s |", threads, measure(eviction, threads)));
+         }
+         log.info(result);
+      }
+   }
+
+   private long measure(Eviction eviction, int threads) throws Exception {
+      final BoundedConcurrentHashMap<Integer, Integer> map = new BoundedConcurrentHashMap<Integer, Integer>(
+            CAPACITY, CONCURRENCY_LEVEL, eviction, new NoopEvictionListener(),
+            AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<Integer>getInstance());
+      for (int i = 0; i < HOT_KEYS; i++) {
+         map.put(i, i);
+      }
+
+      final CountDownLatch start = new CountDownLatch(1);
+      final AtomicLong reads = new AtomicLong();
+      final long[] deadline = new long[1];
+      Thread[] readers = new Thread[threads];
+      for (int t = 0; t < threads; t++) {
+         final int seed = t;
+         readers[t] = new Thread("ReadContention-" + t) {
+            @Override
+            public void run() {
+               Random random = new Random(seed);
+               long count = 0;
+               try {
+                  start.await();
+                  while (true) {
+                     for (int i = 0; i < 1000; i++) {
+                        if (map.get(random.nextInt(HOT_KEYS)) == null) {
+                           throw new IllegalStateException("Hot keys must never be evicted");
+                        }
+                     }
+                     count += 1000;
+                     if (System.nanoTime() - deadline[0] >= 0) {
+                        break;
+                     }
+                  }
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+               reads.addAndGet(count);
+            }
+         };
+         readers[t].start();
+      }
+      deadline[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+      start.countDown();
+      for (Thread reader : readers) {
+         reader.join();
+      }
+      return reads.get() * 1000 / DURATION_MILLIS;
+   }
+
+   private static class NoopEvictionListener implements EvictionListener<Integer, Integer> {
+      @Override
+      public void onEntryEviction(Map<Integer, Integer> evicted) {
+      }
+
+      @Override
+      public void onEntryChosenForEviction(Integer internalCacheEntry) {
+      }
+
+      @Override
+      public void onEntryActivated(Object key) {
+      }
+
+      @Override
+      public void onEntryRemoved(Object key) {
+      }
+   }
+}
@@ -0,0 +1,188 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.profiling;
+
+import org.infinispan.util.AnyEquivalence;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Trace-driven simulator comparing the hit ratio of the {@link BoundedConcurrentHashMap} eviction policies. Each key
+ * of a trace is looked up and, on a miss, put in the map, as a cache would do on behalf of its clients.
+ * <p/>
+ * Recorded traces are text files with one key per line, and can be replayed with:
+ * <pre>
+ *    java org.infinispan.profiling.EvictionHitRatioSimulator &lt;capacity&gt; &lt;trace file&gt; [&lt;trace file&gt;...]
+ * </pre>
+ * Run as a test, it replays synthetic traces: a skewed (Zipf) workload on its own and interleaved with large scans of
+ * keys which are only ever accessed once.
+ *
+ * @since 5.3
+ */
+@Test(groups = "profiling", testName = "profiling.EvictionHitRatioSimulator")
+public class EvictionHitRatioSimulator {
+
+   private static final Log log = LogFactory.getLog(EvictionHitRatioSimulator.class);
+
+   private static final Eviction[] POLICIES = {Eviction.LRU, Eviction.LIRS, Eviction.TINYLFU};
+
+   public void testZipfTrace() {
+      simulate("zipf", 1000, zipfTrace(new Random(17), 200000, 50000, 0.9, 0, 0));
+   }
+
+   public void testZipfTraceWithScans() {
+      // every 10000 requests, a scan of 5000 keys never seen before
+      simulate("zipf+scans", 1000, zipfTrace(new Random(17), 200000, 50000, 0.9, 10000, 5000));
+   }
+
+   @Test(enabled = false)
+   public static void main(String[] args) throws IOException {
+      if (args.length < 2) {
+         log.info("Usage: EvictionHitRatioSimulator <capacity> <trace file> [<trace file>...]");
+         return;
+      }
+      int capacity = Integer.parseInt(args[0]);
+      for (int i = 1; i < args.length; i++) {
+         simulate(args[i], capacity, readTrace(args[i]));
+      }
+   }
+
+   /**
+    * Replays the trace against each eviction policy and reports the hit ratios.
+    *
+    * @return the hit ratio of each policy, in the order of {@link #POLICIES}
+    */
+   public static double[] simulate(String traceName, int capacity, List<Object> trace) {
+      double[] hitRatios = new double[POLICIES.length];
+      for (int i = 0; i < POLICIES.length; i++) {
+         hitRatios[i] = hitRatio(POLICIES[i], capacity, trace);
+         String result = String.format("%s [capacity=%d, requests=%d]: %s hit ratio %.2f%%",
+               traceName, capacity, trace.size(), POLICIES[i], hitRatios[i] * 100);
+         log.info(result);
+      }
+      return hitRatios;
+   }
+
+   public static double hitRatio(Eviction eviction, int capacity, List<Object> trace) {
+      // a single segment, so that the policy sees the whole trace
+      BoundedConcurrentHashMap<Object, Object> map = new BoundedConcurrentHashMap<Object, Object>(
+            capacity, 1, eviction, new NoopEvictionListener(),
+            AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
+      long hits = 0;
+      for (Object key : trace) {
+         if (map.get(key) != null) {
+            hits++;
+         } else {
+            map.put(key, key);
+         }
+      }
+      return trace.isEmpty() ? 0 : (double) hits / trace.size();
+   }
+
+   public static List<Object> readTrace(String fileName) throws IOException {
+      List<Object> trace = new ArrayList<Object>();
+      BufferedReader reader = new BufferedReader(new FileReader(fileName));
+      try {
+         String line;
+         while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.length() > 0) {
+               trace.add(line);
+            }
+         }
+      } finally {
+         reader.close();
+      }
+      return trace;
+   }
+
+   /**
+    * Generates a trace of keys following a Zipf distribution, optionally interleaved with scans of unique keys.
+    *
+    * @param requests number of requests drawn from the Zipf distribution
+    * @param keys number of distinct keys of the Zipf distribution
+    * @param skew exponent of the Zipf distribution
+    * @param scanInterval number of requests between two scans, or 0 for no scans
+    * @param scanLength number of unique keys of each scan
+    */
+   public static List<Object> zipfTrace(Random random, int requests, int keys, double skew,
+         int scanInterval, int scanLength) {
+      double[] cumulative = new double[keys];
+      double sum = 0;
+      for (int i = 0; i < keys; i++) {
+         sum += 1 / Math.pow(i + 1, skew);
+         cumulative[i] = sum;
+      }
+      List<Object> trace = new ArrayList<Object>(requests);
+      int scanKey = 0;
+      for (int i = 0; i < requests; i++) {
+         if (scanInterval > 0 && i > 0 && i % scanInterval == 0) {
+            for (int j = 0; j < scanLength; j++) {
+               trace.add("scan-" + scanKey++);
+            }
+         }
+         double target = random.nextDouble() * sum;
+         int low = 0, high = keys - 1;
+         while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < target) {
+               low = mid + 1;
+            } else {
+               high = mid;
+            }
+         }
+         trace.add(low);
+      }
+      return trace;
+   }
+
+   private static class NoopEvictionListener implements EvictionListener<Object, Object> {
+      @Override
+      public void onEntryEviction(Map<Object, Object> evicted) {
+      }
+
+      @Override
+      public void onEntryChosenForEviction(Object internalCacheEntry) {
+      }
+
+      @Override
+      public void onEntryActivated(Object key) {
+      }
+
+      @Override
+      public void onEntryRemoved(Object key) {
+      }
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.profiling;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated per local write and per local read miss of a non-transactional cache, with and without
+ * recycling the invocation contexts and commands (see
+ * {@link org.infinispan.configuration.cache.UnsafeConfigurationBuilder#recycleInvocationObjects(boolean)}).
+ * <p/>
+ * The allocations are measured with the HotSpot specific {@link com.sun.management.ThreadMXBean}. The number of
+ * operations can be set with the <tt>infinispan.profiling.recycling.operations</tt> system property.
+ *
+ * @since 5.3
+ */
+@Test(groups = "profiling", testName = "profiling.InvocationRecyclingAllocationTest")
+public class InvocationRecyclingAllocationTest extends AbstractInfinispanTest {
+
+   private static final Log log = LogFactory.getLog(InvocationRecyclingAllocationTest.class);
+
+   private static final int KEYS = 1000;
+   private static final int OPERATIONS = Integer.getInteger("infinispan.profiling.recycling.operations", 2000000);
+
+   // Boxed once, so that the operations themselves don't allocate the keys
+   private final Integer[] keys = new Integer[KEYS];
+   private final Integer[] missingKeys = new Integer[KEYS];
+
+   public void testAllocation() {
+      for (int i = 0; i < KEYS; i++) {
+         keys[i] = i;
+         missingKeys[i] = KEYS + i;
+      }
+      ConfigurationBuilder recycling = new ConfigurationBuilder();
+      recycling.unsafe().recycleInvocationObjects(true);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(new ConfigurationBuilder());
+      cm.defineConfiguration("recycling", recycling.build());
+      try {
+         Cache<Integer, Integer> allocating = cm.getCache();
+         Cache<Integer, Integer> recycled = cm.getCache("recycling");
+
+         // Warm up both caches before measuring
+         measurePuts(allocating);
+         measurePuts(recycled);
+         measureMisses(allocating);
+         measureMisses(recycled);
+
+         report("put, allocating", measurePuts(allocating));
+         report("put, recycling", measurePuts(recycled));
+         report("miss, allocating", measureMisses(allocating));
+         report("miss, recycling", measureMisses(recycled));
+      } finally {
+         TestingUtil.killCacheManagers(cm);
+      }
+   }
+
+   private long[] measurePuts(Cache<Integer, Integer> cache) {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long threadId = Thread.currentThread().getId();
+      long start = System.nanoTime();
+      long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < OPERATIONS; i++) {
+         Integer key = keys[i % KEYS];
+         cache.put(key, key);
+      }
+      long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+      long duration = System.nanoTime() - start;
+      return new long[]{allocated, duration};
+   }
+
+   private long[] measureMisses(Cache<Integer, Integer> cache) {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long threadId = Thread.currentThread().getId();
+      long start = System.nanoTime();
+      long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+      int found = 0;
+      for (int i = 0; i < OPERATIONS; i++) {
+         if (cache.get(missingKeys[i % KEYS]) != null) found++;
+      }
+      long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+      long duration = System.nanoTime() - start;
+      assert found == 0;
+      return new long[]{allocated, duration};
+   }
+
+   private void report(String operation, long[] measurement) {
+      String result = String.format("%-16s: %,8.1f bytes/op, %,12d ops/s", operation,
+                                    (double) measurement[0] / OPERATIONS, OPERATIONS * 1000000000L / measurement[1]);
+      log.info(result);
+   }
+}
@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.profiling;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated per local read of a non-transactional cache, for reads served straight from the data
+ * container and for reads walking the interceptor chain. Passing a flag, even one without effect on reads, forces the
+ * read to walk the chain, as all the reads did before.
+ * <p/>
+ * The allocations are measured with the HotSpot specific {@link com.sun.management.ThreadMXBean}. The number of reads
+ * can be set with the <tt>infinispan.profiling.readAllocation.reads</tt> system property.
+ *
+ * @since 5.3
+ */
+@Test(groups = "profiling", testName = "profiling.LocalReadAllocationTest")
+public class LocalReadAllocationTest extends AbstractInfinispanTest {
+
+   private static final Log log = LogFactory.getLog(LocalReadAllocationTest.class);
+
+   private static final int KEYS = 1000;
+   private static final int READS = Integer.getInteger("infinispan.profiling.readAllocation.reads", 2000000);
+
+   // Boxed once, so that the reads themselves don't allocate the keys
+   private final Integer[] keys = new Integer[KEYS];
+
+   public void testReadAllocation() {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(new ConfigurationBuilder());
+      try {
+         Cache<Integer, String> cache = cm.getCache();
+         for (int i = 0; i < KEYS; i++) {
+            keys[i] = i;
+            cache.put(keys[i], "value" + i);
+         }
+         Cache<Integer, String> throughChain = cache.getAdvancedCache().withFlags(Flag.SKIP_LISTENER_NOTIFICATION);
+
+         // Warm up both paths before measuring
+         measure(cache);
+         measure(throughChain);
+
+         report("interceptor chain", measure(throughChain));
+         report("data container", measure(cache));
+      } finally {
+         TestingUtil.killCacheManagers(cm);
+      }
+   }
+
+   private long[] measure(Cache<Integer, String> cache) {
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long threadId = Thread.currentThread().getId();
+      long start = System.nanoTime();
+      long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+      int found = 0;
+      for (int i = 0; i < READS; i++) {
+         if (cache.get(keys[i % KEYS]) != null) found++;
+      }
+      long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+      long duration = System.nanoTime() - start;
+      assert found == READS;
+      return new long[]{allocated, duration};
+   }
+
+   private void report(String path, long[] measurement) {
+      String result = String.format("%-17s: %,8.1f bytes/read, %,12d reads/s", path,
+                                    (double) measurement[0] / READS, READS * 1000000000L / measurement[1]);
+      log.info(result);
+   }
+}
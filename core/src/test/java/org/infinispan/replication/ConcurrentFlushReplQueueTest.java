@@ -23,7 +23,6 @@
 package org.infinispan.replication;
 
 import org.infinispan.Cache;
-import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.config.Configuration;
 import org.infinispan.config.GlobalConfiguration;
 import org.infinispan.manager.CacheContainer;
@@ -99,9 +98,9 @@ public static class MockReplQueue extends ReplicationQueueImpl {
       static CountDownLatch removeCompletedLatch;
 
       @Override
-      protected List<ReplicableCommand> drainReplQueue() {
+      protected List<QueuedCommand> drainReplQueue() {
          log.debugf("drainReplQueue called");
-         List<ReplicableCommand> drained = super.drainReplQueue();
+         List<QueuedCommand> drained = super.drainReplQueue();
          try {
             if (drained.size() > 0 && Thread.currentThread().getName().startsWith("Scheduled-")) {
                log.debugf("Drained the put command on the replication thread: %s", drained);
@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.replication;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.read.GetAllCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.CallInterceptor;
+import org.infinispan.interceptors.InvocationContextInterceptor;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.infinispan.util.CountingRpcManager;
+import org.infinispan.util.concurrent.TimeoutException;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+
+/**
+ * Tests {@link org.infinispan.AdvancedCache#getAll(java.util.Set)} on a replicated cache.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "replication.ReplGetAllTest")
+@CleanupAfterMethod
+public class ReplGetAllTest extends MultipleCacheManagersTest {
+
+   private ConfigurationBuilder builder;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, false);
+      builder.clustering().stateTransfer().fetchInMemoryState(true).awaitInitialTransfer(false);
+      createCluster(builder, 2);
+      waitForClusterToForm();
+   }
+
+   public void testGetAllIsLocal() {
+      cache(0).put("k1", "v1");
+      cache(0).put("k2", "v2");
+
+      RpcManager realRpcManager = cache(1).getAdvancedCache().getRpcManager();
+      CountingRpcManager rpcManager = CountingRpcManager.replaceRpcManager(cache(1));
+      try {
+         Map<Object, Object> values = cache(1).getAdvancedCache().getAll(keys("k1", "k2", "missing"));
+         assertEquals(2, values.size());
+         assertEquals("v1", values.get("k1"));
+         assertEquals("v2", values.get("k2"));
+         assertFalse(values.containsKey("missing"));
+         assertEquals(0, rpcManager.clusterGetAll);
+         assertEquals(0, rpcManager.clusterGet);
+      } finally {
+         TestingUtil.replaceComponent(cache(1), RpcManager.class, realRpcManager, true);
+      }
+   }
+
+   public void testGetAllFromJoinerDuringStateTransfer() throws Exception {
+      cache(0).put("k1", "v1");
+      cache(0).put("k2", "v2");
+      cache(0).put("k3", "v3");
+
+      final AtomicInteger remoteGetAlls = new AtomicInteger();
+      for (int i = 0; i < 2; i++) {
+         cache(i).getAdvancedCache().addInterceptorBefore(new CommandInterceptor() {
+            @Override
+            public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+               if (!ctx.isOriginLocal()) remoteGetAlls.incrementAndGet();
+               return invokeNextInterceptor(ctx, command);
+            }
+         }, CallInterceptor.class);
+      }
+
+      // keep the joiner from applying any state until the test is done with it
+      final CountDownLatch applyStateStartedLatch = new CountDownLatch(1);
+      final CountDownLatch applyStateProceedLatch = new CountDownLatch(1);
+      builder.customInterceptors().addInterceptor().before(InvocationContextInterceptor.class).interceptor(new CommandInterceptor() {
+         @Override
+         protected Object handleDefault(InvocationContext ctx, VisitableCommand cmd) throws Throwable {
+            if (cmd instanceof PutKeyValueCommand && ((PutKeyValueCommand) cmd).hasFlag(Flag.PUT_FOR_STATE_TRANSFER)) {
+               applyStateStartedLatch.countDown();
+               if (!applyStateProceedLatch.await(15, TimeUnit.SECONDS)) {
+                  throw new TimeoutException();
+               }
+            }
+            return super.handleDefault(ctx, cmd);
+         }
+      });
+      addClusterEnabledCacheManager(builder);
+      Cache<Object, Object> joiner = cache(2);
+      try {
+         if (!applyStateStartedLatch.await(15, TimeUnit.SECONDS)) {
+            throw new TimeoutException();
+         }
+
+         // the joiner does not own any key yet, so all of them are read with a single request to the primary owner
+         Map<Object, Object> values = joiner.getAdvancedCache().getAll(keys("k1", "k2", "k3", "missing"));
+         assertEquals(3, values.size());
+         assertEquals("v1", values.get("k1"));
+         assertEquals("v2", values.get("k2"));
+         assertEquals("v3", values.get("k3"));
+         assertFalse(values.containsKey("missing"));
+         assertEquals(1, remoteGetAlls.get());
+      } finally {
+         applyStateProceedLatch.countDown();
+      }
+      TestingUtil.waitForRehashToComplete(cache(0), cache(1), joiner);
+   }
+
+   private static Set<Object> keys(Object... keys) {
+      Set<Object> set = new HashSet<Object>();
+      Collections.addAll(set, keys);
+      return set;
+   }
+}
@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.replication;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.MagicKey;
+import org.infinispan.remoting.ReplicationQueue;
+import org.infinispan.remoting.ReplicationQueueImpl;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests the batching of the replication queue: coalescing of writes to the same key, grouping by destination in
+ * distributed mode and flushing once the byte budget is reached.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "replication.ReplicationQueueBatchingTest")
+public class ReplicationQueueBatchingTest extends MultipleCacheManagersTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      createClusteredCaches(3, "repl", queueConfig(CacheMode.REPL_ASYNC));
+
+      ConfigurationBuilder dist = queueConfig(CacheMode.DIST_ASYNC);
+      dist.clustering().hash().numOwners(1).l1().disable();
+      ConfigurationBuilder bytes = queueConfig(CacheMode.REPL_ASYNC);
+      bytes.clustering().async().replQueueMaxBytes(1024);
+      for (int i = 0; i < 3; i++) {
+         manager(i).defineConfiguration("dist", dist.build());
+         manager(i).defineConfiguration("bytes", bytes.build());
+      }
+      waitForClusterToForm("repl", "dist", "bytes");
+   }
+
+   private ConfigurationBuilder queueConfig(CacheMode mode) {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(mode, false);
+      // Only flush explicitly
+      builder.clustering().async().useReplQueue(true).replQueueInterval(60000).replQueueMaxElements(1000);
+      return builder;
+   }
+
+   public void testCoalescing() {
+      final Cache<String, String> cache0 = cache(0, "repl");
+      ReplicationQueueImpl queue = replicationQueue(cache0);
+      queue.resetStatistics();
+
+      for (int i = 0; i < 10; i++)
+         cache0.put("k", "v" + i);
+      cache0.put("removed", "v");
+      cache0.remove("removed");
+      assertEquals(12, queue.getElementsCount());
+
+      assertEquals(12, queue.flush());
+      assertEquals(1, queue.getFlushCount());
+      assertEquals(10, queue.getCoalescedCount());
+      assertEquals(12.0, queue.getAverageBatchSize());
+
+      for (int i = 1; i < 3; i++) {
+         final Cache<String, String> cache = cache(i, "repl");
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return "v9".equals(cache.get("k"));
+            }
+         });
+         assertNull(cache.get("removed"));
+      }
+   }
+
+   public void testGroupingByOwner() {
+      Cache<MagicKey, String> cache0 = cache(0, "dist");
+      final Cache<MagicKey, String> cache1 = cache(1, "dist");
+      final Cache<MagicKey, String> cache2 = cache(2, "dist");
+      final MagicKey k1 = new MagicKey("k1", cache1);
+      final MagicKey k2 = new MagicKey("k2", cache2);
+      ReplicationQueueImpl queue = replicationQueue(cache0);
+      queue.resetStatistics();
+
+      cache0.put(k1, "v1");
+      cache0.put(k2, "v1");
+      cache0.put(k1, "v2");
+      cache0.put(k2, "v2");
+      assertEquals(4, queue.flush());
+      assertEquals(2, queue.getCoalescedCount());
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v2".equals(cache1.get(k1)) && "v2".equals(cache2.get(k2));
+         }
+      });
+      // Each owner only received its own key
+      assertFalse(cache1.getAdvancedCache().getDataContainer().containsKey(k2));
+      assertFalse(cache2.getAdvancedCache().getDataContainer().containsKey(k1));
+   }
+
+   public void testFlushOnMaxBytes() {
+      Cache<String, byte[]> cache0 = cache(0, "bytes");
+      final Cache<String, byte[]> cache1 = cache(1, "bytes");
+      ReplicationQueueImpl queue = replicationQueue(cache0);
+
+      cache0.put("small", new byte[16]);
+      assertEquals(1, queue.getElementsCount());
+      cache0.put("large", new byte[2048]);
+      assertEquals(0, queue.getElementsCount());
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return cache1.get("small") != null && cache1.get("large") != null;
+         }
+      });
+   }
+
+   private ReplicationQueueImpl replicationQueue(Cache<?, ?> cache) {
+      return (ReplicationQueueImpl) TestingUtil.extractComponent(cache, ReplicationQueue.class);
+   }
+}
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests state transfer with several chunks in flight per destination and a limited transfer rate.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "statetransfer.PipelinedStateTransferTest")
+public class PipelinedStateTransferTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 500;
+
+   private ConfigurationBuilder builder;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.clustering().cacheMode(CacheMode.DIST_SYNC)
+            .l1().disable()
+            .hash().numOwners(2).numSegments(20)
+            .stateTransfer().fetchInMemoryState(true).chunkSize(10).maxInFlightChunks(4).maxBytesPerSecond(10 * 1024 * 1024);
+      createCluster(builder, 2);
+      waitForClusterToForm();
+   }
+
+   public void testJoinerReceivesAllEntries() {
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache(0).put("key" + i, "value" + i);
+      }
+
+      addClusterEnabledCacheManager(builder);
+      Cache<Object, Object> joiner = cache(2);
+      TestingUtil.waitForRehashToComplete(cache(0), cache(1), joiner);
+
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals(joiner.get("key" + i), "value" + i);
+      }
+
+      // the statistics of a transfer are updated after the last chunk was applied by the joiner
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            long entriesSent = 0;
+            long completedTransfers = 0;
+            int activeTransfers = 0;
+            for (Cache<Object, Object> c : caches()) {
+               StateTransferManagerImpl stm = (StateTransferManagerImpl) TestingUtil.extractComponent(c, StateTransferManager.class);
+               entriesSent += stm.getEntriesSent();
+               completedTransfers += stm.getCompletedOutboundTransfers();
+               activeTransfers += stm.getActiveOutboundTransferCount();
+            }
+            return entriesSent > 0 && completedTransfers > 0 && activeTransfers == 0;
+         }
+      });
+   }
+}
@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.InternalEntryFactoryImpl;
+import org.infinispan.container.versioning.SimpleClusteredVersion;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.AnyEquivalence;
+import org.infinispan.util.DefaultTimeService;
+import org.infinispan.util.TimeService;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+/**
+ * Tests that the segment digests tell apart any two copies of a segment which differ.
+ *
+ * @since 5.3
+ */
+@Test(groups = "unit", testName = "statetransfer.SegmentDigesterTest")
+public class SegmentDigesterTest extends AbstractInfinispanTest {
+
+   private static final TimeService TIME_SERVICE = new DefaultTimeService();
+
+   private EmbeddedCacheManager cacheManager;
+   private SegmentDigester digester;
+   private ConsistentHash ch;
+
+   @BeforeClass
+   public void setUp() {
+      cacheManager = TestCacheManagerFactory.createCacheManager(false);
+      digester = new SegmentDigester(TestingUtil.extractCacheMarshaller(cacheManager.getCache()), TIME_SERVICE);
+      ch = new DefaultConsistentHashFactory().create(new MurmurHash3(), 1, 1,
+            Collections.<Address>singletonList(new TestAddress(0)));
+   }
+
+   @AfterClass
+   public void tearDown() {
+      TestingUtil.killCacheManagers(cacheManager);
+   }
+
+   public void testSameEntriesInAnyOrder() throws Exception {
+      DataContainer dc1 = createContainer();
+      DataContainer dc2 = createContainer();
+      for (int i = 0; i < 100; i++) {
+         dc1.put("k" + i, "v" + i, metadata(-1, 1));
+         dc2.put("k" + (99 - i), "v" + (99 - i), metadata(-1, 1));
+      }
+      SegmentDigest digest = digest(dc1);
+      assertEquals(digest.getEntryCount(), 100);
+      assertEquals(digest(dc2), digest);
+   }
+
+   public void testValueHashCodeCollision() throws Exception {
+      assertEquals("Aa".hashCode(), "BB".hashCode());
+      DataContainer dc1 = createContainer();
+      DataContainer dc2 = createContainer();
+      dc1.put("k", "Aa", metadata(-1, 1));
+      dc2.put("k", "BB", metadata(-1, 1));
+      assertFalse(digest(dc1).equals(digest(dc2)));
+   }
+
+   public void testKeyHashCodeCollision() throws Exception {
+      DataContainer dc1 = createContainer();
+      DataContainer dc2 = createContainer();
+      dc1.put("Aa", "v", metadata(-1, 1));
+      dc2.put("BB", "v", metadata(-1, 1));
+      assertFalse(digest(dc1).equals(digest(dc2)));
+   }
+
+   public void testMetadataChange() throws Exception {
+      DataContainer dc1 = createContainer();
+      DataContainer dc2 = createContainer();
+      DataContainer dc3 = createContainer();
+      dc1.put("k", "v", metadata(-1, 1));
+      dc2.put("k", "v", metadata(TimeUnit.MINUTES.toMillis(10), 1));
+      dc3.put("k", "v", metadata(-1, 2));
+      SegmentDigest digest = digest(dc1);
+      assertFalse(digest.equals(digest(dc2)));
+      assertFalse(digest.equals(digest(dc3)));
+      assertFalse(digest(dc2).equals(digest(dc3)));
+   }
+
+   private SegmentDigest digest(DataContainer dc) throws Exception {
+      Map<Integer, SegmentDigest> digests = digester.computeDigests(ch, Collections.singleton(0), dc, null);
+      assertEquals(digests.size(), 1);
+      return digests.get(0);
+   }
+
+   private Metadata metadata(long lifespan, long version) {
+      return new EmbeddedMetadata.Builder().lifespan(lifespan).version(new SimpleClusteredVersion(1, version)).build();
+   }
+
+   private DataContainer createContainer() {
+      DefaultDataContainer dc = new DefaultDataContainer(16, AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
+      InternalEntryFactoryImpl internalEntryFactory = new InternalEntryFactoryImpl();
+      internalEntryFactory.injectTimeService(TIME_SERVICE);
+      dc.initialize(null, null, internalEntryFactory, null, null, TIME_SERVICE);
+      return dc;
+   }
+}
@@ -38,6 +38,7 @@
 import org.infinispan.distribution.ch.DefaultConsistentHash;
 import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
 import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.rpc.ResponseMode;
@@ -50,6 +51,7 @@
 import org.infinispan.transaction.LocalTransaction;
 import org.infinispan.transaction.RemoteTransaction;
 import org.infinispan.transaction.TransactionTable;
+import org.infinispan.util.DefaultTimeService;
 import org.infinispan.util.concurrent.IsolationLevel;
 import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.logging.Log;
@@ -183,7 +185,8 @@ public RpcOptionsBuilder answer(InvocationOnMock invocation) {
       StateProviderImpl stateProvider = new StateProviderImpl();
       stateProvider.init(cache, mockExecutorService,
             configuration, rpcManager, commandsFactory, cacheNotifier, cacheLoaderManager,
-            dataContainer, transactionTable, stateTransferLock, stateConsumer);
+            dataContainer, transactionTable, stateTransferLock, stateConsumer, new DefaultTimeService(),
+            new TestObjectStreamMarshaller());
 
       final List<InternalCacheEntry> cacheEntries = new ArrayList<InternalCacheEntry>();
       Object key1 = new TestKey("key1", 0, ch1);
@@ -290,7 +293,8 @@ public RpcOptionsBuilder answer(InvocationOnMock invocation) {
       StateProviderImpl stateProvider = new StateProviderImpl();
       stateProvider.init(cache, pooledExecutorService,
             configuration, rpcManager, commandsFactory, cacheNotifier, cacheLoaderManager,
-            dataContainer, transactionTable, stateTransferLock, stateConsumer);
+            dataContainer, transactionTable, stateTransferLock, stateConsumer, new DefaultTimeService(),
+            new TestObjectStreamMarshaller());
 
       final List<InternalCacheEntry> cacheEntries = new ArrayList<InternalCacheEntry>();
       Object key1 = new TestKey("key1", 0, ch1);
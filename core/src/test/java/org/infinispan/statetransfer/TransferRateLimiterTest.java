@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import org.infinispan.util.DefaultTimeService;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests the rate computations of {@link TransferRateLimiter}, using a time service controlled by the test.
+ *
+ * @since 5.3
+ */
+@Test(groups = "unit", testName = "statetransfer.TransferRateLimiterTest")
+public class TransferRateLimiterTest {
+
+   private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+   public void testWaitsForTheBytesToFitInTheRate() {
+      ManualTimeService timeService = new ManualTimeService();
+      TransferRateLimiter limiter = new TransferRateLimiter(1000, timeService);
+
+      // one second worth of bytes can be sent right away after an idle period
+      assertEquals(limiter.reserve(1000), 0);
+      assertEquals(limiter.reserve(500), SECOND / 2);
+      assertEquals(limiter.reserve(500), SECOND);
+
+      timeService.now += SECOND;
+      assertEquals(limiter.reserve(1000), SECOND);
+   }
+
+   public void testBurstIsLimitedAfterIdlePeriod() {
+      ManualTimeService timeService = new ManualTimeService();
+      TransferRateLimiter limiter = new TransferRateLimiter(1000, timeService);
+      assertEquals(limiter.reserve(1000), 0);
+
+      timeService.now += 10 * SECOND;
+      assertEquals(limiter.reserve(1000), 0);
+      assertEquals(limiter.reserve(1000), SECOND);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRateMustBePositive() {
+      new TransferRateLimiter(0, new ManualTimeService());
+   }
+
+   private static class ManualTimeService extends DefaultTimeService {
+      long now = 100 * SECOND;
+
+      @Override
+      public long time() {
+         return now;
+      }
+   }
+}
@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStoreConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests that a node restarting with the entries saved in its cache store only receives the segments which changed
+ * while it was stopped.
+ *
+ * @since 5.3
+ */
+@Test(groups = "functional", testName = "statetransfer.WarmRestartTest")
+public class WarmRestartTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 200;
+
+   private final String tmpDirectory = TestingUtil.tmpDirectory(this);
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+      for (int i = 0; i < 2; i++) {
+         addClusterEnabledCacheManager(buildConfiguration(i));
+      }
+      waitForClusterToForm();
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+   }
+
+   private ConfigurationBuilder buildConfiguration(int index) {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.clustering().cacheMode(CacheMode.DIST_SYNC)
+            .l1().disable()
+            .hash().numOwners(2).numSegments(20)
+            .stateTransfer().fetchInMemoryState(true)
+            .warmRestart(true).warmRestartLocation(tmpDirectory + File.separator + index)
+            .loaders().addLoader(DummyInMemoryCacheStoreConfigurationBuilder.class)
+            .storeName(getClass().getSimpleName() + index).fetchPersistentState(true);
+      return builder;
+   }
+
+   public void testRestart() {
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache(0).put("key" + i, "value" + i);
+      }
+
+      // nothing changed while the node was stopped
+      assertEquals(restartAndCountReceivedEntries(null), 0);
+      assertAllEntries(cache(1), null);
+
+      // only the segment of the modified key is transferred
+      long received = restartAndCountReceivedEntries("key0");
+      assertTrue(received > 0);
+      assertTrue(received < NUM_KEYS);
+      assertAllEntries(cache(1), "key0");
+   }
+
+   private long restartAndCountReceivedEntries(String keyToModify) {
+      StateTransferManagerImpl stm = (StateTransferManagerImpl) TestingUtil.extractComponent(cache(0), StateTransferManager.class);
+      final StateProvider stateProvider = TestingUtil.extractComponent(cache(0), StateProvider.class);
+      stm.resetStatistics();
+
+      cache(1).stop();
+      assertTrue(new File(tmpDirectory + File.separator + 1, cache(1).getName() + ".warmrestart").exists());
+      if (keyToModify != null) {
+         // write only once cache(0) has installed the topology without cache(1), which it may still see as an owner
+         TestingUtil.waitForRehashToComplete(cache(0));
+         cache(0).put(keyToModify, "modified");
+      }
+      cache(1).start();
+      TestingUtil.waitForRehashToComplete(cache(0), cache(1));
+      // the rebalance can end before the sender gets the response to its last chunk and records it in the statistics
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return !stateProvider.isStateTransferInProgress();
+         }
+      });
+      assertFalse(new File(tmpDirectory + File.separator + 1, cache(1).getName() + ".warmrestart").exists());
+
+      return stm.getEntriesSent();
+   }
+
+   private void assertAllEntries(Cache<Object, Object> cache, String modifiedKey) {
+      for (int i = 0; i < NUM_KEYS; i++) {
+         String key = "key" + i;
+         assertEquals(cache.get(key), key.equals(modifiedKey) ? "modified" : "value" + i);
+      }
+   }
+}
@@ -33,6 +33,7 @@
 import org.infinispan.remoting.rpc.RpcOptionsBuilder;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.Transport;
+import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.concurrent.ReclosableLatch;
 import org.infinispan.util.logging.Log;
@@ -255,6 +256,16 @@ public void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCom
       waitAfter(rpc);
    }
 
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyNonBlocking(Collection<Address> recipients, ReplicableCommand rpc, RpcOptions options) {
+      log.trace("ControlledRpcManager.invokeRemotelyNonBlocking");
+      failIfNeeded(rpc);
+      waitBefore(rpc);
+      NotifyingFuture<Map<Address, Response>> future = realOne.invokeRemotelyNonBlocking(recipients, rpc, options);
+      waitAfter(rpc);
+      return future;
+   }
+
    public Transport getTransport() {
       return realOne.getTransport();
    }
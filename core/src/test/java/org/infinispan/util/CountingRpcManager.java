@@ -23,6 +23,7 @@
 import org.infinispan.Cache;
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.remoting.RpcException;
 import org.infinispan.remoting.responses.Response;
@@ -33,6 +34,7 @@
 import org.infinispan.remoting.rpc.RpcOptionsBuilder;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.Transport;
+import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -52,6 +54,7 @@ public class CountingRpcManager implements RpcManager {
 
    public volatile int lockCount;
    public volatile int clusterGet;
+   public volatile int clusterGetAll;
    public volatile int otherCount;
 
    protected final RpcManager realOne;
@@ -75,6 +78,8 @@ protected void aboutToInvokeRpc(ReplicableCommand rpcCommand) {
          lockCount++;
       } else if (rpcCommand instanceof ClusteredGetCommand) {
          clusterGet++;
+      } else if (rpcCommand instanceof ClusteredGetAllCommand) {
+         clusterGetAll++;
       } else {
          otherCount++;
       }
@@ -83,6 +88,7 @@ protected void aboutToInvokeRpc(ReplicableCommand rpcCommand) {
    public void resetStats() {
       lockCount = 0;
       clusterGet = 0;
+      clusterGetAll = 0;
       otherCount = 0;
    }
 
@@ -184,6 +190,13 @@ public void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCom
       realOne.invokeRemotelyInFuture(recipients, rpc, options, future);
    }
 
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyNonBlocking(Collection<Address> recipients, ReplicableCommand rpc, RpcOptions options) {
+      log.trace("CountingRpcManager.invokeRemotelyNonBlocking");
+      aboutToInvokeRpc(rpc);
+      return realOne.invokeRemotelyNonBlocking(recipients, rpc, options);
+   }
+
    public Transport getTransport() {
       return realOne.getTransport();
    }
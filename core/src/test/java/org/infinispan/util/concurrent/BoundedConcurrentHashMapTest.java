@@ -23,10 +23,17 @@
 
 package org.infinispan.util.concurrent;
 
+import org.infinispan.eviction.EntrySizeCalculator;
+import org.infinispan.util.AnyEquivalence;
 import org.infinispan.util.EquivalentHashMapTest;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -61,6 +68,246 @@ public void testByteArrayPutIfAbsentFail() {
       byteArrayPutIfAbsentFail(createComparingConcurrentMap(), true);
    }
 
+   public void testWeightedEvictionLRU() {
+      weightedEviction(Eviction.LRU);
+   }
+
+   public void testWeightedEvictionLIRS() {
+      weightedEviction(Eviction.LIRS);
+   }
+
+   public void testWeightedReplaceLRU() {
+      weightedReplace(Eviction.LRU);
+   }
+
+   public void testWeightedReplaceLIRS() {
+      weightedReplace(Eviction.LIRS);
+   }
+
+   public void testWeightedRandomOperationsLRU() {
+      weightedRandomOperations(Eviction.LRU);
+   }
+
+   public void testWeightedRandomOperationsLIRS() {
+      weightedRandomOperations(Eviction.LIRS);
+   }
+
+   public void testWeightedEvictionTinyLFU() {
+      weightedEviction(Eviction.TINYLFU);
+   }
+
+   public void testWeightedReplaceTinyLFU() {
+      weightedReplace(Eviction.TINYLFU);
+   }
+
+   public void testWeightedRandomOperationsTinyLFU() {
+      weightedRandomOperations(Eviction.TINYLFU);
+   }
+
+   public void testTinyLFUBoundedByEntries() {
+      CountingListener listener = new CountingListener();
+      BoundedConcurrentHashMap<Integer, byte[]> map = new BoundedConcurrentHashMap<Integer, byte[]>(
+            128, 1, Eviction.TINYLFU, listener, AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<byte[]>getInstance());
+      Random random = new Random(17);
+      for (int i = 0; i < 10000; i++) {
+         int key = random.nextInt(1000);
+         int op = random.nextInt(10);
+         if (op < 6) {
+            map.put(key, new byte[1]);
+         } else if (op < 9) {
+            map.get(key);
+         } else {
+            map.remove(key);
+         }
+         assertTrue("Expected at most 128 entries but was " + map.size(), map.size() <= 128);
+      }
+      assertFalse(listener.evicted.isEmpty());
+      map.clear();
+      assertEquals(0, map.size());
+      for (int i = 0; i < 200; i++) {
+         map.put(i, new byte[1]);
+      }
+      assertEquals(128, map.size());
+   }
+
+   public void testTinyLFUScanResistance() {
+      BoundedConcurrentHashMap<Integer, byte[]> map = new BoundedConcurrentHashMap<Integer, byte[]>(
+            100, 1, Eviction.TINYLFU, new CountingListener(),
+            AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<byte[]>getInstance());
+      // build up the frequency of a hot set filling half of the map
+      for (int round = 0; round < 10; round++) {
+         for (int i = 0; i < 50; i++) {
+            if (map.get(i) == null) {
+               map.put(i, new byte[1]);
+            }
+         }
+      }
+      // a scan of keys accessed only once must not flush the hot set
+      for (int i = 1000; i < 11000; i++) {
+         map.put(i, new byte[1]);
+      }
+      int hot = 0;
+      for (int i = 0; i < 50; i++) {
+         if (map.containsKey(i)) {
+            hot++;
+         }
+      }
+      assertTrue("Expected most of the hot set to survive the scan but only " + hot + " did", hot >= 45);
+   }
+
+   public void testPeekDoesNotRecordHitLRU() {
+      CountingListener listener = new CountingListener();
+      BoundedConcurrentHashMap<Integer, byte[]> map = new BoundedConcurrentHashMap<Integer, byte[]>(
+            16, 1, Eviction.LRU, listener, AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<byte[]>getInstance());
+      // key 0 is only ever peeked, so it stays the least recently used entry and must be the first one evicted
+      for (int i = 0; listener.evicted.isEmpty(); i++) {
+         map.put(i, new byte[1]);
+         assertNotNull(map.peek(i));
+         map.peek(0);
+      }
+      assertEquals(1, listener.evicted.size());
+      assertTrue(listener.evicted.containsKey(0));
+      assertNull(map.peek(0));
+   }
+
+   public void testWeightedSizeWithoutCalculator() {
+      BoundedConcurrentHashMap<Integer, byte[]> map = new BoundedConcurrentHashMap<Integer, byte[]>(
+            16, 1, Eviction.LRU, AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<byte[]>getInstance());
+      map.put(1, new byte[100]);
+      assertEquals(-1, map.weightedSize());
+   }
+
+   public void testWeightRecordedWhenStoredLRU() {
+      weightRecordedWhenStored(Eviction.LRU);
+   }
+
+   public void testWeightRecordedWhenStoredLIRS() {
+      weightRecordedWhenStored(Eviction.LIRS);
+   }
+
+   protected void weightRecordedWhenStored(Eviction eviction) {
+      // the estimate of a value changes after it is stored, as a marshalled value's does once it is serialized
+      BoundedConcurrentHashMap<Integer, StringBuilder> map = new BoundedConcurrentHashMap<Integer, StringBuilder>(
+            1000, 1, eviction, new BoundedConcurrentHashMap.NullEvictionListener<Integer, StringBuilder>(),
+            new EntrySizeCalculator<Integer, StringBuilder>() {
+               @Override
+               public long calculateSize(Integer key, StringBuilder value) {
+                  return value.length();
+               }
+            }, AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<StringBuilder>getInstance());
+      StringBuilder value = new StringBuilder("1234");
+      map.put(1, value);
+      map.put(2, new StringBuilder("12"));
+      assertEquals(6, map.weightedSize());
+
+      value.append("567890");
+      assertEquals(6, map.weightedSize());
+      map.remove(1);
+      assertEquals(2, map.weightedSize());
+      map.remove(2);
+      assertEquals(0, map.weightedSize());
+   }
+
+   protected void weightedEviction(Eviction eviction) {
+      CountingListener listener = new CountingListener();
+      BoundedConcurrentHashMap<Integer, byte[]> map = createWeightedMap(1000, 1, eviction, listener);
+      for (int i = 0; i < 100; i++) {
+         map.put(i, new byte[100]);
+         assertWeightedSize(map, 1000);
+      }
+      assertTrue("Expected at most 10 entries but was " + map.size(), map.size() <= 10);
+      assertEquals(100, map.size() + listener.evicted.size());
+      for (Integer key : listener.evicted.keySet()) {
+         assertFalse(map.containsKey(key));
+      }
+   }
+
+   protected void weightedReplace(Eviction eviction) {
+      CountingListener listener = new CountingListener();
+      BoundedConcurrentHashMap<Integer, byte[]> map = createWeightedMap(1000, 1, eviction, listener);
+      for (int i = 0; i < 5; i++) {
+         map.put(i, new byte[100]);
+      }
+      assertEquals(500, map.weightedSize());
+      assertTrue(listener.evicted.isEmpty());
+
+      // growing a value in place has to evict other entries
+      map.put(0, new byte[900]);
+      assertWeightedSize(map, 1000);
+      assertFalse(listener.evicted.isEmpty());
+
+      // shrinking a value releases its weight
+      map.replace(0, new byte[10]);
+      assertWeightedSize(map, 1000);
+      if (map.containsKey(0)) {
+         assertEquals(10, map.get(0).length);
+      }
+   }
+
+   protected void weightedRandomOperations(Eviction eviction) {
+      Random random = new Random(17);
+      CountingListener listener = new CountingListener();
+      // enough entries to grow the segment tables several times
+      BoundedConcurrentHashMap<Integer, byte[]> map = createWeightedMap(64 * 1024, 4, eviction, listener);
+      for (int i = 0; i < 20000; i++) {
+         int key = random.nextInt(4000);
+         int op = random.nextInt(10);
+         if (op < 5) {
+            map.put(key, new byte[random.nextInt(10) == 0 ? random.nextInt(4096) : random.nextInt(64)]);
+         } else if (op < 8) {
+            map.get(key);
+         } else if (op < 9) {
+            map.replace(key, new byte[random.nextInt(256)]);
+         } else {
+            map.remove(key);
+         }
+      }
+      assertWeightedSize(map, 64 * 1024);
+      assertFalse(listener.evicted.isEmpty());
+   }
+
+   private void assertWeightedSize(BoundedConcurrentHashMap<Integer, byte[]> map, long maxWeight) {
+      long expected = 0;
+      for (byte[] value : map.values()) {
+         expected += value.length;
+      }
+      assertEquals(expected, map.weightedSize());
+      assertTrue("Expected weight below " + maxWeight + " but was " + map.weightedSize(),
+            map.weightedSize() <= maxWeight);
+   }
+
+   private BoundedConcurrentHashMap<Integer, byte[]> createWeightedMap(long maxWeight, int concurrencyLevel,
+         Eviction eviction, EvictionListener<Integer, byte[]> listener) {
+      return new BoundedConcurrentHashMap<Integer, byte[]>(maxWeight, concurrencyLevel, eviction, listener,
+            new EntrySizeCalculator<Integer, byte[]>() {
+               @Override
+               public long calculateSize(Integer key, byte[] value) {
+                  return value.length;
+               }
+            }, AnyEquivalence.<Integer>getInstance(), AnyEquivalence.<byte[]>getInstance());
+   }
+
+   private static class CountingListener implements EvictionListener<Integer, byte[]> {
+      final Map<Integer, byte[]> evicted = new HashMap<Integer, byte[]>();
+
+      @Override
+      public void onEntryEviction(Map<Integer, byte[]> evicted) {
+         this.evicted.putAll(evicted);
+      }
+
+      @Override
+      public void onEntryChosenForEviction(byte[] internalCacheEntry) {
+      }
+
+      @Override
+      public void onEntryActivated(Object key) {
+      }
+
+      @Override
+      public void onEntryRemoved(Object key) {
+      }
+   }
+
    protected void byteArrayConditionalRemove(
          ConcurrentMap<byte[], byte[]> map, boolean expectRemove) {
       byte[] key = {1, 2, 3};
@@ -29,12 +29,14 @@
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapCombineCommand;
 import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -174,6 +176,11 @@ public GetKeyValueCommand buildGetKeyValueCommand(Object key, Set<Flag> flags, b
       return actual.buildGetKeyValueCommand(key, flags, returnEntry);
    }
 
+   @Override
+   public GetAllCommand buildGetAllCommand(Set<Object> keys, Set<Flag> flags, boolean returnEntries) {
+      return actual.buildGetAllCommand(keys, flags, returnEntries);
+   }
+
    @Override
    public KeySetCommand buildKeySetCommand() {
       return actual.buildKeySetCommand();
@@ -244,6 +251,11 @@ public ClusteredGetCommand buildClusteredGetCommand(Object key, Set<Flag> flags,
       return actual.buildClusteredGetCommand(key, flags, acquireRemoteLock, gtx);
    }
 
+   @Override
+   public ClusteredGetAllCommand buildClusteredGetAllCommand(Set<Object> keys, Set<Flag> flags) {
+      return actual.buildClusteredGetAllCommand(keys, flags);
+   }
+
    @Override
    public LockControlCommand buildLockControlCommand(Collection<Object> keys, Set<Flag> flags, GlobalTransaction gtx) {
       return actual.buildLockControlCommand(keys, flags, gtx);
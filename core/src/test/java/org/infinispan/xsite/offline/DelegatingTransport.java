@@ -26,6 +26,7 @@
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.BackupResponse;
 import org.infinispan.remoting.transport.Transport;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.xsite.XSiteBackup;
 
@@ -96,6 +97,11 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
       return actual.invokeRemotely(recipients, rpcCommand, mode, timeout, usePriorityQueue,responseFilter, totalOrder, anycast);
    }
 
+   @Override
+   public void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rpcCommand, ResponseMode mode, long timeout, boolean usePriorityQueue, ResponseFilter responseFilter, CompletableNotifyingFuture<Map<Address, Response>> future) {
+      actual.invokeRemotelyInFuture(recipients, rpcCommand, mode, timeout, usePriorityQueue, responseFilter, future);
+   }
+
    @Override
    public boolean isCoordinator() {
       return actual.isCoordinator();
@@ -23,6 +23,7 @@
 
 package org.infinispan.jcache.interceptor;
 
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
@@ -76,6 +77,19 @@ public ExpirationTrackingInterceptor(DataContainer container,
       return super.visitGetKeyValueCommand(ctx, command);
    }
 
+   @Override
+   public Object visitGetAllCommand
+         (InvocationContext ctx, GetAllCommand command) throws Throwable {
+      long now = timeService.wallClockTime();
+      for (Object key : command.getKeys()) {
+         InternalCacheEntry entry = container.peek(key);
+         if (entry != null && entry.canExpire() && entry.isExpired(now))
+            notifier.notifyEntryExpired(cache, key, entry.getValue());
+      }
+
+      return super.visitGetAllCommand(ctx, command);
+   }
+
    // TODO: Implement any other visitX methods?
 
 }
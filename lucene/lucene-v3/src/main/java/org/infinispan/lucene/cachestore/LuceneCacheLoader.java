@@ -20,7 +20,10 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,10 +32,13 @@
 import org.infinispan.Cache;
 import org.infinispan.container.entries.ImmortalCacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.AbstractStoredEntryIterator;
 import org.infinispan.loaders.CacheLoader;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.KeyFilter;
+import org.infinispan.loaders.StoredEntryIterator;
 import org.infinispan.lucene.IndexScopedKey;
 import org.infinispan.lucene.logging.Log;
 import org.infinispan.marshall.StreamingMarshaller;
@@ -99,6 +105,36 @@ public boolean containsKey(final Object key) throws CacheLoaderException {
       }
    }
 
+   @Override
+   public Map<Object, InternalCacheEntry> loadAll(final Set<Object> keys) throws CacheLoaderException {
+      final HashMap<Object, InternalCacheEntry> loaded = new HashMap<Object, InternalCacheEntry>();
+      for (Object key : keys) {
+         InternalCacheEntry entry = load(key);
+         if (entry != null) {
+            loaded.put(key, entry);
+         }
+      }
+      return loaded;
+   }
+
+   @Override
+   public StoredEntryIterator entryIterator(final KeyFilter filter) throws CacheLoaderException {
+      final Iterator<Object> keys = loadAllKeys(null).iterator();
+      return new AbstractStoredEntryIterator() {
+         @Override
+         protected InternalCacheEntry fetchNext() throws CacheLoaderException {
+            while (keys.hasNext()) {
+               Object key = keys.next();
+               if (filter.accept(key)) {
+                  InternalCacheEntry entry = load(key);
+                  if (entry != null) return entry;
+               }
+            }
+            return null;
+         }
+      };
+   }
+
    @Override
    public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return load(Integer.MAX_VALUE);
@@ -61,6 +61,7 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
    protected var params: SuitableParameters = null.asInstanceOf[SuitableParameters]
    protected var key: K = null.asInstanceOf[K]
    protected var rawValue: Array[Byte] = null.asInstanceOf[Array[Byte]]
+   private var rawValueOffset = 0
    protected var cache: AdvancedCache[K, V] = null
    protected var defaultLifespanTime: Long = _
    protected var defaultMaxIdleTime: Long = _
@@ -145,6 +146,7 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
       if (!endOfOp && params.valueLength > 0) {
          // Create value holder and checkpoint only if there's more to read
          rawValue = new Array[Byte](params.valueLength)
+         rawValueOffset = 0
          checkpointTo(DECODE_VALUE)
       } else if (params.valueLength == 0){
          rawValue = Array.empty
@@ -155,6 +157,8 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
    }
 
    private def decodeValue(ch: Channel, buffer: ChannelBuffer, state: DecoderState): AnyRef = {
+      if (rawValue != null && !readRawValue(buffer))
+         return null // Wait for the rest of the value
       val ret = header.op match {
          case PutRequest | PutIfAbsentRequest | ReplaceRequest | ReplaceIfUnmodifiedRequest  => {
             readValue(buffer)
@@ -171,6 +175,23 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
       writeResponse(ch, ret)
    }
 
+   /**
+    * Reads the bytes of the value received so far straight into the value array, and checkpoints. This way, the bytes
+    * of a large value are not accumulated in the decoder's buffer first, and only copied once into the array.
+    *
+    * @return true once the whole value has been read
+    */
+   private def readRawValue(buffer: ChannelBuffer): Boolean = {
+      val remaining = rawValue.length - rawValueOffset
+      if (remaining > 0) {
+         val length = math.min(remaining, actualReadableBytes)
+         buffer.readBytes(rawValue, rawValueOffset, length)
+         rawValueOffset += length
+         checkpoint()
+      }
+      rawValueOffset == rawValue.length
+   }
+
    override def decodeLast(ctx: ChannelHandlerContext, ch: Channel, buffer: ChannelBuffer, state: DecoderState): AnyRef = null // no-op
 
    protected def writeResponse(ch: Channel, response: AnyRef): AnyRef = {
@@ -197,6 +218,7 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
       // into a request that has no params
       params = null.asInstanceOf[SuitableParameters]
       rawValue = null.asInstanceOf[Array[Byte]] // Clear reference to value
+      rawValueOffset = 0
       null
    }
 
@@ -275,8 +297,10 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
          createNotExistResponse
    }
 
-   protected def get(buffer: ChannelBuffer): AnyRef =
-      createGetResponse(key, cache.getCacheEntry(readKey(buffer)._1))
+   protected def get(buffer: ChannelBuffer): AnyRef = {
+      val k = readKey(buffer)._1
+      createGetResponse(k, cache.getCacheEntry(k))
+   }
 
    override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
       val ch = ctx.getChannel
@@ -323,6 +347,9 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
 
    protected def readParameters(ch: Channel, b: ChannelBuffer): Boolean
 
+   /**
+    * Reads whatever follows the bytes of the value, which have already been read into rawValue.
+    */
    protected def readValue(b: ChannelBuffer)
 
    protected def createValue(): V
@@ -366,14 +393,7 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
     * Otherwise it's just considered number of seconds from
     * now and it's returned in milliseconds unit.
     */
-   protected def toMillis(lifespan: Int): Long = {
-      if (lifespan > SecondsInAMonth) {
-         val unixTimeExpiry = TimeUnit.SECONDS.toMillis(lifespan) - System.currentTimeMillis
-         if (unixTimeExpiry < 0) 0 else unixTimeExpiry
-      } else {
-         TimeUnit.SECONDS.toMillis(lifespan)
-      }
-   }
+   protected def toMillis(lifespan: Int): Long = AbstractProtocolDecoder.toMillis(lifespan)
 
    override def writeComplete(ctx: ChannelHandlerContext, e: WriteCompletionEvent) {
       transport.updateTotalBytesWritten(e)
@@ -390,6 +410,20 @@ abstract class AbstractProtocolDecoder[K, V](transport: NettyTransport)
 object AbstractProtocolDecoder extends Log {
    private val SecondsInAMonth = 60 * 60 * 24 * 30
    private val DefaultTimeUnit = TimeUnit.MILLISECONDS
+
+   /**
+    * Transforms lifespan passed as seconds into milliseconds, following the
+    * rule described in the decoder's toMillis. Shared with the decoders
+    * which do not extend this class.
+    */
+   def toMillis(lifespan: Int): Long = {
+      if (lifespan > SecondsInAMonth) {
+         val unixTimeExpiry = TimeUnit.SECONDS.toMillis(lifespan) - System.currentTimeMillis
+         if (unixTimeExpiry < 0) 0 else unixTimeExpiry
+      } else {
+         TimeUnit.SECONDS.toMillis(lifespan)
+      }
+   }
 }
 
 class RequestHeader {
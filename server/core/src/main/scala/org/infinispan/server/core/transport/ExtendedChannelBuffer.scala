@@ -28,7 +28,15 @@ import org.jboss.netty.util.CharsetUtil
 
 object ExtendedChannelBuffer {
 
+   /**
+    * Values of at least this number of bytes are sent by reference, as part of a composite buffer, instead of being
+    * copied into the response buffer. Configured with the <tt>infinispan.server.zeroCopyThreshold</tt> system
+    * property; a value of Int.MaxValue always copies.
+    */
+   val ZeroCopyThreshold: Int = Integer.getInteger("infinispan.server.zeroCopyThreshold", 4096).intValue
+
    def wrappedBuffer(array: Array[Byte]*) = ChannelBuffers.wrappedBuffer(array : _*)
+   def compositeBuffer(buffers: ChannelBuffer*) = ChannelBuffers.wrappedBuffer(buffers : _*)
    def buffer(capacity: Int) = ChannelBuffers.buffer(capacity)
    def dynamicBuffer = ChannelBuffers.dynamicBuffer()
 
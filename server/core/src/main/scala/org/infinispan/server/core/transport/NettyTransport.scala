@@ -173,7 +173,7 @@ class NettyTransport(server: ProtocolServer, pipeline: LifecycleChannelPipelineF
          getNumberOfLocalConnections
    }
 
-   private[core] def updateTotalBytesWritten(e: WriteCompletionEvent) {
+   private[server] def updateTotalBytesWritten(e: WriteCompletionEvent) {
       if (isGlobalStatsEnabled)
          incrementTotalBytesWritten(totalBytesWritten, e)
    }
@@ -183,7 +183,7 @@ class NettyTransport(server: ProtocolServer, pipeline: LifecycleChannelPipelineF
          base.addAndGet(e.getWrittenAmount)
    }
 
-   private[core] def updateTotalBytesRead(e: MessageEvent) {
+   private[server] def updateTotalBytesRead(e: MessageEvent) {
       if (isGlobalStatsEnabled)
          incrementTotalBytesRead(totalBytesRead, e)
    }
@@ -66,13 +66,14 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
    }
 
    override def writeResponse(r: Response, buf: ChannelBuffer,
-           cacheManager: EmbeddedCacheManager, server: HotRodServer) {
+           cacheManager: EmbeddedCacheManager, server: HotRodServer): ChannelBuffer = {
+      var out = buf
       r match {
          case r: ResponseWithPrevious => {
             if (r.previous == None)
                writeUnsignedInt(0, buf)
             else
-               writeRangedBytes(r.previous.get, buf)
+               out = writeValue(r.previous.get, buf)
          }
          case s: StatsResponse => {
             writeUnsignedInt(s.stats.size, buf)
@@ -84,7 +85,7 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
          case g: GetWithVersionResponse => {
             if (g.status == Success) {
                buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
+               out = writeValue(g.data.get, buf)
             }
          }
          case g: GetWithMetadataResponse => {
@@ -100,7 +101,7 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                   writeUnsignedInt(g.maxIdle, buf)
                }
                buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
+               out = writeValue(g.data.get, buf)
             }
          }
          case g: BulkGetResponse => {
@@ -108,15 +109,17 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
             if (g.status == Success) {
                val cache: Cache[Array[Byte], Array[Byte]] =
                   server.getCacheInstance(g.cacheName, cacheManager, false)
+               // Streamed values are put together, and the ones whose chunks are gone don't exist any more
                var iterator = asScalaIterator(cache.entrySet.iterator)
+                     .flatMap(e => StreamedValues.readValue(cache, e.getKey, e.getValue).map(v => (e.getKey, v)))
                if (g.count != 0) {
                   trace("About to write (max) %d messages to the client", g.count)
                   iterator = iterator.take(g.count)
                }
-               for (entry <- iterator) {
+               for ((k, v) <- iterator) {
                   buf.writeByte(1) // Not done
-                  writeRangedBytes(entry.getKey, buf)
-                  writeRangedBytes(entry.getValue, buf)
+                  writeRangedBytes(k, buf)
+                  writeRangedBytes(v, buf)
                }
                buf.writeByte(0) // Done
             }
@@ -136,12 +139,57 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                buf.writeByte(0) // Done
             }
          }
+         case g: GetAllResponse => {
+            if (g.status == Success) {
+               writeUnsignedInt(g.entries.size, buf)
+               for ((k, v) <- g.entries) {
+                  writeRangedBytes(k, buf)
+                  writeRangedBytes(v, buf)
+               }
+            }
+         }
+         case g: GetStreamResponse => {
+            if (g.status == Success) {
+               buf.writeLong(g.streamId)
+               writeUnsignedInt(g.chunkCount, buf)
+               writeUnsignedLong(g.length, buf)
+               out = writeValue(g.data.get, buf)
+            }
+         }
+         case e: ClientEventResponse => {
+            writeRangedBytes(e.listenerId, buf)
+            buf.writeByte(e.eventType)
+            writeRangedBytes(e.key, buf)
+            buf.writeLong(e.dataVersion)
+            if (e.data == None) {
+               buf.writeByte(0)
+            } else {
+               buf.writeByte(1)
+               out = writeValue(e.data.get, buf)
+            }
+         }
          case g: GetResponse =>
-            if (g.status == Success) writeRangedBytes(g.data.get, buf)
+            if (g.status == Success) out = writeValue(g.data.get, buf)
          case e: ErrorResponse => writeString(e.msg, buf)
          case _ => if (buf == null)
             throw new IllegalArgumentException("Response received is unknown: " + r)
       }
+      out
+   }
+
+   /**
+    * Writes a value preceded by its length. Values of at least ZeroCopyThreshold bytes are not copied into the
+    * buffer, and a composite of the buffer and the value array is returned instead, so nothing else can be written
+    * to the buffer after the value.
+    */
+   private def writeValue(value: Array[Byte], buf: ChannelBuffer): ChannelBuffer = {
+      if (value.length >= ZeroCopyThreshold) {
+         writeUnsignedInt(value.length, buf)
+         compositeBuffer(buf, wrappedBuffer(value))
+      } else {
+         writeRangedBytes(value, buf)
+         buf
+      }
    }
 
    def getTopologyResponse(r: Response, addressCache: Cache[Address, ServerAddress],
@@ -29,6 +29,7 @@ import org.infinispan.server.core.RequestParameters
 import org.infinispan.server.core.transport.NettyTransport
 import org.infinispan.container.versioning.EntryVersion
 import org.infinispan.container.entries.CacheEntry
+import OperationStatus._
 
 /**
  * This class represents the work to be done by a decoder of a particular Hot Rod protocol version.
@@ -56,12 +57,12 @@ abstract class AbstractVersionedDecoder {
    /**
     * Create a successful response.
     */
-   def createSuccessResponse(header: HotRodHeader, prev: Array[Byte]): AnyRef
+   def createSuccessResponse(header: HotRodHeader, k: Array[Byte], prev: Array[Byte], cache: AdvancedCache[Array[Byte], Array[Byte]]): AnyRef
 
    /**
     * Create a response indicating the the operation could not be executed.
     */
-   def createNotExecutedResponse(header: HotRodHeader, prev: Array[Byte]): AnyRef
+   def createNotExecutedResponse(header: HotRodHeader, k: Array[Byte], prev: Array[Byte], cache: AdvancedCache[Array[Byte], Array[Byte]]): AnyRef
 
    /**
     * Create a response indicating that the key, which the message tried to operate on, did not exist.
@@ -71,7 +72,7 @@ abstract class AbstractVersionedDecoder {
    /**
     * Create a response for get a request.
     */
-   def createGetResponse(header: HotRodHeader, entry: CacheEntry): AnyRef
+   def createGetResponse(header: HotRodHeader, k: Array[Byte], entry: CacheEntry, cache: AdvancedCache[Array[Byte], Array[Byte]]): AnyRef
 
    /**
     * Handle a protocol specific header reading.
@@ -83,6 +84,26 @@ abstract class AbstractVersionedDecoder {
     */
    def customReadKey(header: HotRodHeader, buffer: ChannelBuffer, cache: AdvancedCache[Array[Byte], Array[Byte]]): AnyRef
 
+   /**
+    * Read the key/value pairs of a put all request, once its parameters have been read.
+    */
+   def readEntries(header: HotRodHeader, buffer: ChannelBuffer): java.util.Map[Array[Byte], Array[Byte]]
+
+   /**
+    * Create a response for a put all request.
+    */
+   def createPutAllResponse(header: HotRodHeader): AnyRef
+
+   /**
+    * Create a response for a request storing a chunk of a streamed value, or completing it.
+    */
+   def createPutStreamResponse(header: HotRodHeader): AnyRef
+
+   /**
+    * Create a response for a request adding or removing a client listener.
+    */
+   def createClientListenerResponse(header: HotRodHeader, status: OperationStatus): AnyRef
+
    /**
     * Handle a protocol specific value reading.
     */
@@ -40,8 +40,12 @@ abstract class AbstractVersionedEncoder {
          addressCache: Cache[Address, ServerAddress], server: HotRodServer)
 
    /**
-    * Write operation response using the given channel buffer
+    * Write operation response using the given channel buffer. Large values might not be copied into the given buffer,
+    * in which case a composite buffer made of it and the values is returned.
+    *
+    * @return the buffer to send to the client
     */
-   def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager, server: HotRodServer)
+   def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager,
+         server: HotRodServer): ChannelBuffer
 
 }
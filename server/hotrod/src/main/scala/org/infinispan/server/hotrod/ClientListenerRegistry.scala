@@ -0,0 +1,222 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import logging.Log
+import org.infinispan.Cache
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.{CacheEntryRemoved, CacheEntryModified, CacheEntryCreated}
+import org.infinispan.notifications.cachelistener.event.{CacheEntryRemovedEvent, CacheEntryModifiedEvent, CacheEntryCreatedEvent}
+import org.infinispan.server.core.ServerEntryVersion
+import org.infinispan.util.{ByteArrayKey, CollectionFactory}
+import org.jboss.netty.channel.{ChannelFuture, ChannelFutureListener, Channel}
+import java.util.concurrent.{TimeUnit, LinkedBlockingQueue}
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Listeners registered by Hot Rod clients. Each of them is a cache listener which pushes the events of the cache to
+ * the connection the listener was registered from, until the client removes it or closes the connection.
+ * <p/>
+ * A server only sends the events of the keys it is the primary owner of, or of the modifications it originated if the
+ * cache is not distributed, so that a client which registers its listener with every server receives each event once.
+ *
+ * @since 5.3
+ */
+class ClientListenerRegistry extends Log {
+
+   import ClientListenerRegistry._
+
+   private val senders = CollectionFactory.makeConcurrentMap[ByteArrayKey, ClientEventSender]()
+
+   /**
+    * Adds the listener to the cache. Its events are held back until {@link ClientEventSender#start} is called, so that
+    * the response to the client can be written first, while no modification made after it is missed.
+    */
+   def addClientListener(ch: Channel, version: Byte, messageId: Long, cacheName: String, listenerId: Array[Byte],
+         includeValues: Boolean, cache: Cache[Array[Byte], Array[Byte]]): ClientEventSender = {
+      val id = new ByteArrayKey(listenerId)
+      val sender = new ClientEventSender(ch, version, messageId, cacheName, listenerId, includeValues, cache)
+      val previous = senders.put(id, sender)
+      if (previous != null)
+         previous.stop()
+      cache.addListener(sender)
+      ch.getCloseFuture.addListener(new ChannelFutureListener {
+         override def operationComplete(f: ChannelFuture) {
+            if (senders.remove(id, sender))
+               sender.stop()
+         }
+      })
+      if (isTraceEnabled) trace("Added client listener %s for cache '%s'", id, cacheName)
+      sender
+   }
+
+   /**
+    * @return false if there is no such listener
+    */
+   def removeClientListener(listenerId: Array[Byte]): Boolean = {
+      val sender = senders.remove(new ByteArrayKey(listenerId))
+      if (sender != null) {
+         sender.stop()
+         true
+      } else {
+         false
+      }
+   }
+
+   def size: Int = senders.size
+
+}
+
+object ClientListenerRegistry {
+
+   /**
+    * Number of events waiting to be written to the connection of a client listener. When it is reached, the cache
+    * writers wait for the client to catch up for at most [[org.infinispan.server.hotrod.ClientListenerRegistry.EventQueueTimeout]].
+    */
+   val EventQueueCapacity: Int = Integer.getInteger("infinispan.server.hotrod.clientEventQueueCapacity", 1024).intValue
+
+   /**
+    * Milliseconds a cache writer waits for room in the full event queue of a client listener. The connection of the
+    * client is closed after that, rather than holding up the writers any longer.
+    */
+   val EventQueueTimeout: Long = java.lang.Long.getLong("infinispan.server.hotrod.clientEventQueueTimeout", 1000).longValue
+
+   val CreatedEvent: Byte = 0x01
+   val ModifiedEvent: Byte = 0x02
+   val RemovedEvent: Byte = 0x03
+
+}
+
+@Listener
+class ClientEventSender(ch: Channel, version: Byte, messageId: Long, cacheName: String, listenerId: Array[Byte],
+      includeValues: Boolean, cache: Cache[Array[Byte], Array[Byte]]) extends ChannelFutureListener with Log {
+
+   import ClientListenerRegistry._
+
+   private val queue = new LinkedBlockingQueue[ClientEventResponse](EventQueueCapacity)
+   private val draining = new AtomicBoolean
+   @volatile private var started = false
+   private val distributionManager = cache.getAdvancedCache.getDistributionManager
+
+   @CacheEntryCreated
+   def created(e: CacheEntryCreatedEvent[Array[Byte], Array[Byte]]) {
+      if (!e.isPre)
+         send(CreatedEvent, e.getKey, e.getValue, e.isOriginLocal)
+   }
+
+   @CacheEntryModified
+   def modified(e: CacheEntryModifiedEvent[Array[Byte], Array[Byte]]) {
+      // Creations are sent with the created event that follows
+      if (!e.isPre && !e.isCreated)
+         send(ModifiedEvent, e.getKey, e.getValue, e.isOriginLocal)
+   }
+
+   @CacheEntryRemoved
+   def removed(e: CacheEntryRemovedEvent[Array[Byte], Array[Byte]]) {
+      if (!e.isPre)
+         send(RemovedEvent, e.getKey, null, e.isOriginLocal)
+   }
+
+   /**
+    * Starts writing the events to the channel.
+    */
+   def start() {
+      started = true
+      drain()
+   }
+
+   def stop() {
+      cache.removeListener(this)
+      queue.clear()
+   }
+
+   private def send(eventType: Byte, key: Array[Byte], value: Array[Byte], originLocal: Boolean) {
+      if (!ch.isOpen || !isInCharge(key, originLocal))
+         return
+
+      val entry = cache.getAdvancedCache.getDataContainer.get(key)
+      val dataVersion = if (entry == null) 0L else entry.getMetadata.version match {
+         case v: ServerEntryVersion => v.version
+         case _ => 0L
+      }
+      // Streamed values are too large to be sent along with the events, the client reads them as a stream instead
+      val data =
+         if (includeValues && value != null && StreamedValues.readManifest(value).isEmpty) Some(value)
+         else None
+      val event = new ClientEventResponse(version, messageId, cacheName, listenerId, eventType, key, dataVersion, data)
+
+      if (!queue.offer(event)) {
+         drain()
+         // Writes completing on the channel make room in the queue
+         if (!offer(event)) {
+            // Don't hold up the writers of the cache any longer, drop the client instead, which will notice
+            debug("Closing %s, the client listener did not keep up with the events for %d ms", ch, EventQueueTimeout)
+            queue.clear()
+            ch.close()
+            return
+         }
+      }
+      drain()
+   }
+
+   private def offer(event: ClientEventResponse): Boolean = {
+      try {
+         queue.offer(event, EventQueueTimeout, TimeUnit.MILLISECONDS)
+      } catch {
+         case e: InterruptedException =>
+            Thread.currentThread.interrupt()
+            false
+      }
+   }
+
+   private def isInCharge(key: Array[Byte], originLocal: Boolean): Boolean = {
+      if (distributionManager != null)
+         distributionManager.getPrimaryLocation(key) == cache.getCacheManager.getAddress
+      else
+         originLocal
+   }
+
+   /**
+    * Writes the queued events while the channel is writable. Writes resume when the pending ones complete, which is
+    * how the events are held back while the client is slow to read them.
+    */
+   private def drain() {
+      while (started && !queue.isEmpty && ch.isWritable && draining.compareAndSet(false, true)) {
+         try {
+            var event = queue.poll()
+            while (event != null) {
+               ch.write(event).addListener(this)
+               event = if (ch.isWritable) queue.poll() else null
+            }
+         } finally {
+            draining.set(false)
+         }
+      }
+   }
+
+   override def operationComplete(f: ChannelFuture) {
+      if (f.isSuccess)
+         drain()
+   }
+
+}
@@ -69,6 +69,13 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case 0x19 => (BulkGetRequest, false)
          case 0x1B => (GetWithMetadataRequest, false)
          case 0x1D => (BulkGetKeysRequest, false)
+         case 0x1F if version >= Constants.VERSION_13 => (GetAllRequest, false)
+         case 0x21 if version >= Constants.VERSION_13 => (PutAllRequest, false)
+         case 0x23 if version >= Constants.VERSION_13 => (PutStreamChunkRequest, false)
+         case 0x25 if version >= Constants.VERSION_13 => (PutStreamEndRequest, false)
+         case 0x27 if version >= Constants.VERSION_13 => (GetStreamRequest, false)
+         case 0x29 if version >= Constants.VERSION_13 => (AddClientListenerRequest, false)
+         case 0x2B if version >= Constants.VERSION_13 => (RemoveClientListenerRequest, false)
          case _ => throw new HotRodUnknownOperationException(
                "Unknown operation: " + streamOp, version, messageId)
       }
@@ -107,6 +114,11 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
       header.op match {
          case RemoveRequest => (null, true)
          case RemoveIfUnmodifiedRequest => (new RequestParameters(-1, -1, -1, buffer.readLong), true)
+         case PutAllRequest | PutStreamChunkRequest | PutStreamEndRequest => {
+            val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
+            val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
+            (new RequestParameters(-1, lifespan, maxIdle, -1), false)
+         }
          case ReplaceIfUnmodifiedRequest => {
             val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
             val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
@@ -137,34 +149,40 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
       } else stream
    }
 
-   override def createSuccessResponse(header: HotRodHeader, prev: Array[Byte]): AnyRef =
-      createResponse(header, toResponse(header.op), Success, prev)
+   override def createSuccessResponse(header: HotRodHeader, k: Array[Byte], prev: Array[Byte],
+           cache: AdvancedCache[Array[Byte], Array[Byte]]): AnyRef =
+      createResponse(header, toResponse(header.op), Success, k, prev, cache)
 
-   override def createNotExecutedResponse(header: HotRodHeader, prev: Array[Byte]): AnyRef =
-      createResponse(header, toResponse(header.op), OperationNotExecuted, prev)
+   override def createNotExecutedResponse(header: HotRodHeader, k: Array[Byte], prev: Array[Byte],
+           cache: AdvancedCache[Array[Byte], Array[Byte]]): AnyRef =
+      createResponse(header, toResponse(header.op), OperationNotExecuted, k, prev, cache)
 
    override def createNotExistResponse(header: HotRodHeader): AnyRef =
-      createResponse(header, toResponse(header.op), KeyDoesNotExist, null)
+      createResponse(header, toResponse(header.op), KeyDoesNotExist, null, null, null)
 
-   private def createResponse(h: HotRodHeader, op: OperationResponse, st: OperationStatus, prev: Array[Byte]): AnyRef = {
-      if (hasFlag(h, ForceReturnPreviousValue))
+   private def createResponse(h: HotRodHeader, op: OperationResponse, st: OperationStatus, k: Array[Byte],
+           prev: Array[Byte], cache: AdvancedCache[Array[Byte], Array[Byte]]): AnyRef = {
+      if (hasFlag(h, ForceReturnPreviousValue)) {
+         // The chunks of a streamed value might have gone already if it has just been replaced
+         val previous = if (prev == null) None else StreamedValues.readValue(cache, k, prev)
          new ResponseWithPrevious(h.version, h.messageId, h.cacheName,
-               h.clientIntel, op, st, h.topologyId, if (prev == null) None else Some(prev))
-      else
+               h.clientIntel, op, st, h.topologyId, previous)
+      } else
          new Response(h.version, h.messageId, h.cacheName, h.clientIntel, op, st, h.topologyId)
    }
 
-   override def createGetResponse(h: HotRodHeader, entry: CacheEntry): AnyRef = {
+   override def createGetResponse(h: HotRodHeader, k: Array[Byte], entry: CacheEntry,
+           cache: AdvancedCache[Array[Byte], Array[Byte]]): AnyRef = {
       val op = h.op
-      if (entry != null && op == GetRequest)
+      // Streamed values are put together, and the ones whose chunks are gone don't exist any more
+      val value = if (entry == null) None else StreamedValues.readValue(cache, k, entry.getValue.asInstanceOf[Array[Byte]])
+      if (value.isDefined && op == GetRequest)
          new GetResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
-               GetResponse, Success, h.topologyId,
-               Some(entry.getValue.asInstanceOf[Array[Byte]]))
-      else if (entry != null && op == GetWithVersionRequest) {
+               GetResponse, Success, h.topologyId, value)
+      else if (value.isDefined && op == GetWithVersionRequest) {
          val version = entry.getMetadata.version().asInstanceOf[ServerEntryVersion].version
          new GetWithVersionResponse(h.version, h.messageId, h.cacheName,
-            h.clientIntel, GetWithVersionResponse, Success, h.topologyId,
-            Some(entry.getValue.asInstanceOf[Array[Byte]]), version)
+            h.clientIntel, GetWithVersionResponse, Success, h.topologyId, value, version)
       } else if (op == GetRequest)
          new GetResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
                          GetResponse, KeyDoesNotExist, h.topologyId, None)
@@ -202,14 +220,14 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
                if (entry.getMetadata.version() == streamVersion) {
                   val removed = cache.remove(k, prev)
                   if (removed)
-                     createResponse(h, RemoveIfUnmodifiedResponse, Success, prev)
+                     createResponse(h, RemoveIfUnmodifiedResponse, Success, k, prev, cache)
                   else
-                     createResponse(h, RemoveIfUnmodifiedResponse, OperationNotExecuted, prev)
+                     createResponse(h, RemoveIfUnmodifiedResponse, OperationNotExecuted, k, prev, cache)
                } else {
-                  createResponse(h, RemoveIfUnmodifiedResponse, OperationNotExecuted, prev)
+                  createResponse(h, RemoveIfUnmodifiedResponse, OperationNotExecuted, k, prev, cache)
                }
             } else {
-               createResponse(h, RemoveIfUnmodifiedResponse, KeyDoesNotExist, null)
+               createResponse(h, RemoveIfUnmodifiedResponse, KeyDoesNotExist, null, null, cache)
             }
          }
          case ContainsKeyRequest => {
@@ -237,21 +255,91 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
             val k = readKey(buffer)
             getKeyMetadata(h, k, cache)
          }
+         case GetAllRequest => {
+            val count = readUnsignedInt(buffer)
+            if (isTrace) trace("About to create get all response, count = %d", count)
+            val keys = new java.util.HashSet[Array[Byte]](count)
+            for (i <- 0 until count) keys.add(readKey(buffer))
+            // a single invocation, so that missing keys are fetched from each owner in one go
+            val values = cache.getAll(keys)
+            val entries = new mutable.ArrayBuffer[(Array[Byte], Array[Byte])](values.size)
+            val it = values.entrySet().iterator()
+            while (it.hasNext) {
+               val e = it.next()
+               StreamedValues.readValue(cache, e.getKey, e.getValue).foreach(v => entries += ((e.getKey, v)))
+            }
+            new GetAllResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                               GetAllResponse, Success, h.topologyId, entries)
+         }
+         case GetStreamRequest => {
+            val k = readKey(buffer)
+            val index = readUnsignedInt(buffer)
+            getStreamChunk(h, k, index, cache)
+         }
+      }
+   }
+
+   override def readEntries(h: HotRodHeader, buffer: ChannelBuffer): java.util.Map[Array[Byte], Array[Byte]] = {
+      val count = readUnsignedInt(buffer)
+      val entries = new java.util.HashMap[Array[Byte], Array[Byte]](count)
+      for (i <- 0 until count) {
+         val k = readKey(buffer)
+         entries.put(k, readRangedBytes(buffer))
+      }
+      entries
+   }
+
+   override def createPutAllResponse(h: HotRodHeader): AnyRef =
+      new Response(h.version, h.messageId, h.cacheName, h.clientIntel,
+                   PutAllResponse, Success, h.topologyId)
+
+   override def createPutStreamResponse(h: HotRodHeader): AnyRef =
+      new Response(h.version, h.messageId, h.cacheName, h.clientIntel,
+                   toResponse(h.op), Success, h.topologyId)
+
+   override def createClientListenerResponse(h: HotRodHeader, status: OperationStatus): AnyRef =
+      new Response(h.version, h.messageId, h.cacheName, h.clientIntel, toResponse(h.op), status, h.topologyId)
+
+   private def getStreamChunk(h: HotRodHeader, k: Array[Byte], index: Int,
+           cache: AdvancedCache[Array[Byte], Array[Byte]]): GetStreamResponse = {
+      val value = cache.get(k)
+      val chunk: Option[(Long, Int, Long, Array[Byte])] =
+         if (value == null) None
+         else StreamedValues.readManifest(value) match {
+            case Some(m) if index >= m.chunkCount =>
+               Some((m.streamId, m.chunkCount, m.length, Array.empty[Byte]))
+            case Some(m) =>
+               // The chunk might have gone if the value has just been replaced or has expired
+               val data = StreamedValues.chunkCache(cache).get(StreamedValues.chunkKey(k, m.streamId, index))
+               if (data == null) None else Some((m.streamId, m.chunkCount, m.length, data))
+            case None =>
+               // Not a streamed value, so it is its own single chunk
+               val data = if (index == 0) value else Array.empty[Byte]
+               Some((0L, 1, value.length.toLong, data))
+         }
+      chunk match {
+         case Some((streamId, chunkCount, length, data)) =>
+            new GetStreamResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                  GetStreamResponse, Success, h.topologyId, streamId, chunkCount, length, Some(data))
+         case None =>
+            new GetStreamResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                  GetStreamResponse, KeyDoesNotExist, h.topologyId, 0, 0, 0, None)
       }
    }
 
    def getKeyMetadata(h: HotRodHeader, k: Array[Byte],
            cache: AdvancedCache[Array[Byte], Array[Byte]]): GetWithMetadataResponse = {
       val ce = cache.getAdvancedCache.getCacheEntry(k)
-      if (ce != null) {
+      // Streamed values are put together, and the ones whose chunks are gone don't exist any more
+      val v = if (ce == null) None else StreamedValues.readValue(cache, k, ce.getValue.asInstanceOf[Array[Byte]])
+      if (v.isDefined) {
          val ice = ce.asInstanceOf[InternalCacheEntry]
          val entryVersion = ice.getMetadata.version().asInstanceOf[ServerEntryVersion]
-         val v = ce.getValue.asInstanceOf[Array[Byte]]
          val lifespan = if (ice.getLifespan < 0) -1 else (ice.getLifespan / 1000).toInt
          val maxIdle = if (ice.getMaxIdle < 0) -1 else (ice.getMaxIdle / 1000).toInt
          new GetWithMetadataResponse(h.version, h.messageId, h.cacheName,
                   h.clientIntel, GetWithMetadataResponse, Success, h.topologyId,
-                  Some(v), entryVersion.version, ice.getCreated, lifespan, ice.getLastUsed, maxIdle)
+                  v, entryVersion.version, ice.getCreated, lifespan, ice.getLastUsed, maxIdle)
       } else {
          new GetWithMetadataResponse(h.version, h.messageId, h.cacheName,
                   h.clientIntel, GetWithMetadataResponse, KeyDoesNotExist, h.topologyId,
@@ -319,6 +407,13 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case BulkGetRequest => BulkGetResponse
          case GetWithMetadataRequest => GetWithMetadataResponse
          case BulkGetKeysRequest => BulkGetKeysResponse
+         case GetAllRequest => GetAllResponse
+         case PutAllRequest => PutAllResponse
+         case PutStreamChunkRequest => PutStreamChunkResponse
+         case PutStreamEndRequest => PutStreamEndResponse
+         case GetStreamRequest => GetStreamResponse
+         case AddClientListenerRequest => AddClientListenerResponse
+         case RemoveClientListenerRequest => RemoveClientListenerResponse
       }
    }
 
@@ -341,7 +436,15 @@ object OperationResponse extends Enumeration {
    val BulkGetResponse = Value(0x1A)
    val GetWithMetadataResponse = Value(0x1C)
    val BulkGetKeysResponse = Value(0x1E)
+   val GetAllResponse = Value(0x20)
+   val PutAllResponse = Value(0x22)
+   val PutStreamChunkResponse = Value(0x24)
+   val PutStreamEndResponse = Value(0x26)
+   val GetStreamResponse = Value(0x28)
+   val AddClientListenerResponse = Value(0x2A)
+   val RemoveClientListenerResponse = Value(0x2C)
    val ErrorResponse = Value(0x50)
+   val ClientEventResponse = Value(0x60)
 }
 
 object ProtocolFlag extends Enumeration {
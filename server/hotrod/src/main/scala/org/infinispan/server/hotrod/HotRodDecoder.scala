@@ -34,6 +34,8 @@ import org.jboss.netty.buffer.ChannelBuffer
 import org.jboss.netty.channel.Channel
 import java.lang.StringBuilder
 import org.infinispan.container.entries.CacheEntry
+import org.infinispan.context.Flag
+import org.infinispan.metadata.EmbeddedMetadata
 import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration
 
 /**
@@ -77,7 +79,7 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
 
       try {
          val decoder = version match {
-            case VERSION_10 | VERSION_11 | VERSION_12 => Decoder10
+            case VERSION_10 | VERSION_11 | VERSION_12 | VERSION_13 => Decoder10
             case _ => throw new UnknownVersionException(
                "Unknown version:" + version, version, messageId)
          }
@@ -106,6 +108,10 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
          throw new RequestParsingException(
             "Remote requests are not allowed to topology cache. Do no send remote requests to cache '%s'".format(cacheName),
             header.version, header.messageId)
+      if (cacheName.startsWith(HotRodServerConfiguration.STREAM_CHUNK_CACHE_NAME_PREFIX))
+         throw new RequestParsingException(
+            "Remote requests are not allowed to stream chunk caches. Do no send remote requests to cache '%s'".format(cacheName),
+            header.version, header.messageId)
 
       var seenForFirstTime = false
       // Try to avoid calling cacheManager.getCacheNames() if possible, since this creates a lot of unnecessary garbage
@@ -133,22 +139,22 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
    }
 
    override protected def readValue(b: ChannelBuffer) {
-      b.readBytes(rawValue)
+      // no-op, the value bytes have already been read into rawValue and nothing follows them
    }
 
    override def createValue(): Array[Byte] = rawValue
 
    override def createSuccessResponse(prev: Array[Byte]): AnyRef =
-      header.decoder.createSuccessResponse(header, prev)
+      header.decoder.createSuccessResponse(header, key, prev, cache)
 
    override def createNotExecutedResponse(prev: Array[Byte]): AnyRef =
-      header.decoder.createNotExecutedResponse(header, prev)
+      header.decoder.createNotExecutedResponse(header, key, prev, cache)
 
    override def createNotExistResponse: AnyRef =
       header.decoder.createNotExistResponse(header)
 
    override def createGetResponse(k: Array[Byte], entry: CacheEntry): AnyRef =
-      header.decoder.createGetResponse(header, entry)
+      header.decoder.createGetResponse(header, k, entry, cache)
 
    override def createMultiGetResponse(pairs: Map[Array[Byte], CacheEntry]): AnyRef =
       null // Unsupported
@@ -156,8 +162,72 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
    override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
 
-   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadKey(header, buffer, cache))
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case HotRodOperation.PutAllRequest => writeResponse(ch, putAll(buffer))
+         case HotRodOperation.PutStreamChunkRequest => writeResponse(ch, putStreamChunk(buffer))
+         case HotRodOperation.PutStreamEndRequest => writeResponse(ch, putStreamEnd(buffer))
+         case HotRodOperation.AddClientListenerRequest => addClientListener(ch, buffer)
+         case HotRodOperation.RemoveClientListenerRequest => {
+            val listenerId = readKey(buffer)._1
+            val status = if (server.getClientListenerRegistry.removeClientListener(listenerId)) Success else KeyDoesNotExist
+            writeResponse(ch, header.decoder.createClientListenerResponse(header, status))
+         }
+         case _ => writeResponse(ch, header.decoder.customReadKey(header, buffer, cache))
+      }
+   }
+
+   private def putAll(buffer: ChannelBuffer): AnyRef = {
+      params = header.decoder.readParameters(header, buffer)._1
+      val entries = header.decoder.readEntries(header, buffer)
+      // All entries of the batch share the same metadata, and hence the same version
+      cache.putAll(entries, buildMetadata())
+      header.decoder.createPutAllResponse(header)
+   }
+
+   private def putStreamChunk(buffer: ChannelBuffer): AnyRef = {
+      val k = readKey(buffer)._1
+      params = header.decoder.readParameters(header, buffer)._1
+      val streamId = buffer.readLong
+      val index = readUnsignedInt(buffer)
+      val chunk = readRangedBytes(buffer)
+      // Chunks are entries of a private cache, so that no single array holds the whole value. They are written with
+      // the metadata of the value, so that they expire along with it
+      server.getStreamedValueCleaner(cache).putChunk(k, streamId, index, chunk, buildMetadata())
+      header.decoder.createPutStreamResponse(header)
+   }
+
+   private def putStreamEnd(buffer: ChannelBuffer): AnyRef = {
+      val k = readKey(buffer)._1
+      params = header.decoder.readParameters(header, buffer)._1
+      val streamId = buffer.readLong
+      val chunkCount = readUnsignedInt(buffer)
+      val length = readUnsignedLong(buffer)
+      // A client retrying the end of a stream which has already ended finds its manifest, which is not written again
+      // since that would make the StreamedValueCleaner remove its chunks
+      val current = cache.get(k)
+      if (current == null || !StreamedValues.readManifest(current).exists(_.streamId == streamId)) {
+         if (!server.getStreamedValueCleaner(cache).endStream(k, streamId, chunkCount))
+            throw new IllegalStateException(
+               "Some of the %d chunks of the stream are missing, it took longer than the stream timeout".format(chunkCount))
+         // The chunks of the value this one replaces, if it was streamed too, are removed by the StreamedValueCleaner
+         cache.withFlags(Flag.IGNORE_RETURN_VALUES).put(k, StreamedValues.manifest(streamId, chunkCount, length), buildMetadata())
+      }
+      header.decoder.createPutStreamResponse(header)
+   }
+
+   private def addClientListener(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      val listenerId = readKey(buffer)._1
+      val includeValues = buffer.readByte == 1
+      val (version, messageId, cacheName) = (header.version, header.messageId, header.cacheName)
+      // Add the listener before responding, so that the client cannot modify the cache before it is notified, but
+      // only start writing the events after the response
+      val sender = server.getClientListenerRegistry.addClientListener(
+         ch, version, messageId, cacheName, listenerId, includeValues, cache)
+      val ret = writeResponse(ch, header.decoder.createClientListenerResponse(header, Success))
+      sender.start()
+      ret
+   }
 
    override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadValue(header, buffer, cache))
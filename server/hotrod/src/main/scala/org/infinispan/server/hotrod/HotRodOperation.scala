@@ -39,4 +39,11 @@ object HotRodOperation extends Enumeration(20) {
    val BulkGetRequest = Value
    val GetWithMetadataRequest = Value
    val BulkGetKeysRequest = Value
+   val GetAllRequest = Value
+   val PutAllRequest = Value
+   val PutStreamChunkRequest = Value
+   val PutStreamEndRequest = Value
+   val GetStreamRequest = Value
+   val AddClientListenerRequest = Value
+   val RemoveClientListenerRequest = Value
 }
@@ -35,6 +35,7 @@ import org.infinispan.configuration.cache.{CacheMode, ConfigurationBuilder}
 import org.infinispan.context.Flag
 import org.infinispan.upgrade.RollingUpgradeManager
 import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration
+import java.util.concurrent.{TimeUnit, Executors}
 
 /**
  * Hot Rod server, in charge of defining its encoder/decoder and, if clustered, update the topology information
@@ -58,9 +59,17 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
    private var addressCache: Cache[Address, ServerAddress] = _
    private val knownCaches : java.util.Map[String, Cache[Array[Byte], Array[Byte]]] =
          CollectionFactory.makeConcurrentMap(4, 0.9f, 16)
+   private val clientListenerRegistry = new ClientListenerRegistry
+   private val streamedValueCleaners = CollectionFactory.makeConcurrentMap[String, StreamedValueCleaner]()
+   protected lazy val scheduler = Executors.newScheduledThreadPool(1)
 
    def getAddress: ServerAddress = address
 
+   def getClientListenerRegistry: ClientListenerRegistry = clientListenerRegistry
+
+   private[hotrod] def getStreamedValueCleaner(cache: Cache[Array[Byte], Array[Byte]]): StreamedValueCleaner =
+      streamedValueCleaners.get(cache.getName)
+
    override def getEncoder = new HotRodEncoder(getCacheManager, this)
 
    override def getDecoder : HotRodDecoder = {
@@ -85,6 +94,26 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
 
          addSelfToTopologyView(cacheManager)
       }
+
+      val streamTimeout = configuration.streamTimeout
+      if (streamTimeout > 0) {
+         scheduler.scheduleAtFixedRate(new Runnable {
+            override def run() {
+               for (cleaner <- streamedValueCleaners.values) {
+                  try {
+                     cleaner.removeAbandonedStreams(streamTimeout)
+                  } catch {
+                     case e: Exception => warn("Unable to remove the chunks of abandoned streams", e)
+                  }
+               }
+            }
+         }, streamTimeout / 2, math.max(streamTimeout / 2, 1), TimeUnit.MILLISECONDS)
+      }
+   }
+
+   override def stop {
+      super.stop
+      scheduler.shutdown()
    }
 
    override def startTransport() {
@@ -101,7 +130,8 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
    private def preStartCaches() {
       // Start defined caches to avoid issues with lazily started caches
       for (cacheName <- asScalaIterator(cacheManager.getCacheNames.iterator)) {
-         if (!cacheName.startsWith(HotRodServerConfiguration.TOPOLOGY_CACHE_NAME_PREFIX)) {
+         if (!cacheName.startsWith(HotRodServerConfiguration.TOPOLOGY_CACHE_NAME_PREFIX)
+               && !cacheName.startsWith(HotRodServerConfiguration.STREAM_CHUNK_CACHE_NAME_PREFIX)) {
             cacheManager.getCache(cacheName)
          }
       }
@@ -170,6 +200,12 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
          knownCaches.put(cacheName, cache)
          // make sure we register a Migrator for this cache!
          tryRegisterMigrationManager(cacheName, cache)
+         // the default cache can be known by two names, but needs a single cleaner
+         if (!streamedValueCleaners.containsKey(cache.getName)) {
+            val cleaner = new StreamedValueCleaner(cache)
+            if (streamedValueCleaners.putIfAbsent(cache.getName, cleaner) == null)
+               cache.addListener(cleaner)
+         }
       }
 
       cache
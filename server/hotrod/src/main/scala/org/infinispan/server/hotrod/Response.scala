@@ -94,6 +94,58 @@ class BulkGetResponse(override val version: Byte, override val messageId: Long,
    }
 }
 
+class GetAllResponse(override val version: Byte, override val messageId: Long, override val cacheName: String, override val clientIntel: Short,
+                  override val operation: OperationResponse, override val status: OperationStatus,
+                  override val topologyId: Int, val entries: Seq[(Array[Byte], Array[Byte])])
+      extends Response(version, messageId, cacheName, clientIntel, operation, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("GetAllResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", operation=").append(operation)
+         .append(", status=").append(status)
+         .append(", count=").append(entries.size)
+         .append("}").toString
+   }
+}
+
+class GetStreamResponse(override val version: Byte, override val messageId: Long, override val cacheName: String, override val clientIntel: Short,
+                  override val operation: OperationResponse, override val status: OperationStatus,
+                  override val topologyId: Int, val streamId: Long, val chunkCount: Int, val length: Long,
+                  val data: Option[Array[Byte]])
+      extends Response(version, messageId, cacheName, clientIntel, operation, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("GetStreamResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", operation=").append(operation)
+         .append(", status=").append(status)
+         .append(", streamId=").append(streamId)
+         .append(", chunkCount=").append(chunkCount)
+         .append(", length=").append(length)
+         .append("}").toString
+   }
+}
+
+/**
+ * An event pushed to a client listener. Events are not responses to a request, but they carry the message id of the
+ * request which added the listener.
+ */
+class ClientEventResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                  val listenerId: Array[Byte], val eventType: Byte, val key: Array[Byte], val dataVersion: Long,
+                  val data: Option[Array[Byte]])
+      extends Response(version, messageId, cacheName, Constants.INTELLIGENCE_BASIC, ClientEventResponse, Success, 0) {
+   override def toString = {
+      new StringBuilder().append("ClientEventResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", eventType=").append(eventType)
+         .append(", key=").append(Util.printArray(key, true))
+         .append(", dataVersion=").append(dataVersion)
+         .append("}").toString
+   }
+}
+
 class BulkGetKeysResponse(override val version: Byte, override val messageId: Long, override val cacheName: String, override val clientIntel: Short,
                   override val operation: OperationResponse, override val status: OperationStatus,
                   override val topologyId: Int, val scope: Int)
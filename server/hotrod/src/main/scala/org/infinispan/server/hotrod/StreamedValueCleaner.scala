@@ -0,0 +1,150 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import org.infinispan.Cache
+import org.infinispan.context.Flag
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.{CacheEntryRemoved, CacheEntryModified}
+import org.infinispan.notifications.cachelistener.event.{CacheEntryRemovedEvent, CacheEntryModifiedEvent}
+import org.infinispan.util.CollectionFactory
+import scala.collection.JavaConversions._
+import org.infinispan.metadata.Metadata
+import java.util.{BitSet, Arrays}
+
+/**
+ * Removes the chunks of a streamed value when the value is overwritten or removed, whether by another stream, a
+ * regular write or a removal. Like the client listeners, only the primary owner of the key, or the node which made the
+ * modification if the cache is not distributed, removes them.
+ * <p/>
+ * It also keeps track of the streams whose chunks this server has received and which have not ended yet, so that
+ * their end doesn't need to look the chunks up, and so that the chunks of abandoned streams can be removed.
+ * <p/>
+ * It is registered once for every cache the server exposes, and runs asynchronously so that writes don't wait for
+ * the chunks to be removed.
+ *
+ * @since 5.3
+ */
+@Listener(sync = false)
+class StreamedValueCleaner(cache: Cache[Array[Byte], Array[Byte]]) {
+
+   private val distributionManager = cache.getAdvancedCache.getDistributionManager
+   private val chunkCache = StreamedValues.chunkCache(cache).withFlags(Flag.IGNORE_RETURN_VALUES)
+   private val openStreams = CollectionFactory.makeConcurrentMap[Long, OpenStream]()
+
+   private class OpenStream(val key: Array[Byte]) {
+      val received = new BitSet
+      @volatile var lastWrite = System.currentTimeMillis
+   }
+
+   /**
+    * Stores a chunk of the given stream.
+    */
+   def putChunk(key: Array[Byte], streamId: Long, index: Int, chunk: Array[Byte], metadata: Metadata) {
+      var stream = openStreams.get(streamId)
+      if (stream == null) {
+         stream = new OpenStream(key)
+         val prev = openStreams.putIfAbsent(streamId, stream)
+         if (prev != null) stream = prev
+      }
+      chunkCache.put(StreamedValues.chunkKey(key, streamId, index), chunk, metadata)
+      stream.synchronized(stream.received.set(index))
+      stream.lastWrite = System.currentTimeMillis
+   }
+
+   /**
+    * Ends the given stream, checking that all its chunks have been stored. Chunks which were sent to other servers,
+    * after a failover, are looked up.
+    *
+    * @return whether all the chunks are there, otherwise the ones there are removed
+    */
+   def endStream(key: Array[Byte], streamId: Long, chunkCount: Int): Boolean = {
+      val stream = openStreams.remove(streamId)
+      val received =
+         if (stream != null && Arrays.equals(stream.key, key)) stream.synchronized(stream.received.clone.asInstanceOf[BitSet])
+         else new BitSet
+      val complete = (0 until chunkCount).forall(i =>
+         received.get(i) || chunkCache.containsKey(StreamedValues.chunkKey(key, streamId, i)))
+      if (!complete)
+         for (i <- 0 until chunkCount) chunkCache.remove(StreamedValues.chunkKey(key, streamId, i))
+      complete
+   }
+
+   /**
+    * Removes the chunks of the streams which have not received any chunk for longer than the given timeout.
+    */
+   def removeAbandonedStreams(timeout: Long) {
+      val now = System.currentTimeMillis
+      for ((streamId, stream) <- openStreams if now - stream.lastWrite > timeout) {
+         // If the stream ended on another server after a failover, its chunks belong to the value now
+         if (openStreams.remove(streamId, stream) && !isCurrent(stream.key, streamId)) {
+            val received = stream.synchronized(stream.received.clone.asInstanceOf[BitSet])
+            var i = received.nextSetBit(0)
+            while (i >= 0) {
+               chunkCache.remove(StreamedValues.chunkKey(stream.key, streamId, i))
+               i = received.nextSetBit(i + 1)
+            }
+         }
+      }
+   }
+
+   @CacheEntryModified
+   def modified(e: CacheEntryModifiedEvent[Array[Byte], Array[Byte]]) {
+      // Pre events hold the value being replaced
+      if (e.isPre && !e.isCreated)
+         removeChunks(e.getKey, e.getValue, e.isOriginLocal)
+   }
+
+   @CacheEntryRemoved
+   def removed(e: CacheEntryRemovedEvent[Array[Byte], Array[Byte]]) {
+      if (e.isPre)
+         removeChunks(e.getKey, e.getValue, e.isOriginLocal)
+   }
+
+   private def removeChunks(key: Array[Byte], value: Array[Byte], originLocal: Boolean) {
+      if (value == null || !isInCharge(key, originLocal))
+         return
+
+      // A client retrying the end of a stream doesn't write the manifest again, so the chunks always belong to a value
+      // which is gone
+      StreamedValues.readManifest(value).foreach(m =>
+         for (i <- 0 until m.chunkCount)
+            chunkCache.remove(StreamedValues.chunkKey(key, m.streamId, i)))
+   }
+
+   /**
+    * @return whether the given key is mapped to the manifest of the given stream
+    */
+   private def isCurrent(key: Array[Byte], streamId: Long): Boolean = {
+      val current = cache.get(key)
+      current != null && StreamedValues.readManifest(current).exists(_.streamId == streamId)
+   }
+
+   private def isInCharge(key: Array[Byte], originLocal: Boolean): Boolean = {
+      if (distributionManager != null)
+         distributionManager.getPrimaryLocation(key) == cache.getCacheManager.getAddress
+      else
+         originLocal
+   }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import java.nio.ByteBuffer
+import java.util.Arrays
+import org.infinispan.{AdvancedCache, Cache}
+import org.infinispan.configuration.cache.ConfigurationBuilder
+import org.infinispan.server.hotrod.configuration.HotRodServerConfiguration
+
+/**
+ * Layout of the values written with the streaming operations. The chunks of a streamed value are stored in a private
+ * companion cache, configured like the cache of the value, whose keys are derived from the key of the value and the id
+ * of the stream. The key itself is mapped to a small manifest describing the stream. The stream id changes every time
+ * a value is streamed, so that readers can tell when the value they are reading has been replaced.
+ *
+ * @since 5.3
+ */
+object StreamedValues {
+
+   private val ManifestMagic = "\u0000ispn-stream-manifest\u0000".getBytes("UTF-8")
+   private val ManifestLength = ManifestMagic.length + 8 + 4 + 8
+
+   class Manifest(val streamId: Long, val chunkCount: Int, val length: Long)
+
+   def chunkKey(key: Array[Byte], streamId: Long, index: Int): Array[Byte] = {
+      val buf = ByteBuffer.allocate(key.length + 8 + 4)
+      buf.put(key).putLong(streamId).putInt(index)
+      buf.array
+   }
+
+   def manifest(streamId: Long, chunkCount: Int, length: Long): Array[Byte] = {
+      val buf = ByteBuffer.allocate(ManifestLength)
+      buf.put(ManifestMagic).putLong(streamId).putInt(chunkCount).putLong(length)
+      buf.array
+   }
+
+   /**
+    * @return the manifest held by the given value, or None if it is a regular value
+    */
+   def readManifest(value: Array[Byte]): Option[Manifest] = {
+      if (value.length != ManifestLength
+            || !Arrays.equals(Arrays.copyOf(value, ManifestMagic.length), ManifestMagic))
+         None
+      else {
+         val buf = ByteBuffer.wrap(value, ManifestMagic.length, ManifestLength - ManifestMagic.length)
+         Some(new Manifest(buf.getLong, buf.getInt, buf.getLong))
+      }
+   }
+
+   /**
+    * @return the cache holding the chunks of the values streamed to the given cache, which is defined and started the
+    *         first time it's needed
+    */
+   def chunkCache(cache: Cache[Array[Byte], Array[Byte]]): AdvancedCache[Array[Byte], Array[Byte]] = {
+      val cacheManager = cache.getCacheManager
+      val name = HotRodServerConfiguration.STREAM_CHUNK_CACHE_NAME_PREFIX + cache.getName
+      if (cacheManager.getCacheConfiguration(name) == null) {
+         cacheManager.synchronized {
+            if (cacheManager.getCacheConfiguration(name) == null) {
+               // Chunks are plain byte arrays, which are never indexed
+               cacheManager.defineConfiguration(name, new ConfigurationBuilder().read(cache.getCacheConfiguration)
+                     .indexing().enabled(false).build())
+            }
+         }
+      }
+      cacheManager.getCache[Array[Byte], Array[Byte]](name).getAdvancedCache
+   }
+
+   /**
+    * Reads the whole value the given key is mapped to, putting together the chunks of a streamed value.
+    *
+    * @return the value, or None if the chunks of a streamed value are gone because it has just been replaced or it
+    *         has expired
+    */
+   def readValue(cache: Cache[Array[Byte], Array[Byte]], key: Array[Byte], value: Array[Byte]): Option[Array[Byte]] = {
+      readManifest(value) match {
+         case None => Some(value)
+         case Some(m) =>
+            if (m.length > Int.MaxValue)
+               throw new IllegalStateException(
+                  "The value is %d bytes long, which is too large to be read at once. Read it as a stream".format(m.length))
+            val chunks = chunkCache(cache)
+            val whole = new Array[Byte](m.length.toInt)
+            var offset = 0
+            for (i <- 0 until m.chunkCount) {
+               val chunk = chunks.get(chunkKey(key, m.streamId, i))
+               if (chunk == null || offset + chunk.length > whole.length)
+                  return None
+               System.arraycopy(chunk, 0, whole, offset, chunk.length)
+               offset += chunk.length
+            }
+            if (offset == whole.length) Some(whole) else None
+      }
+   }
+
+}
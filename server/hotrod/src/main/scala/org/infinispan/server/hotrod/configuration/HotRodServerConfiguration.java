@@ -25,14 +25,16 @@
 @BuiltBy(HotRodServerConfigurationBuilder.class)
 public class HotRodServerConfiguration extends ProtocolServerConfiguration {
    public static final String TOPOLOGY_CACHE_NAME_PREFIX = "___hotRodTopologyCache";
+   public static final String STREAM_CHUNK_CACHE_NAME_PREFIX = "___hotRodStreamChunks_";
    private final String proxyHost;
    private final int proxyPort;
    private final String topologyCacheName;
    private final long topologyLockTimeout;
    private final long topologyReplTimeout;
    private final boolean topologyStateTransfer;
+   private final long streamTimeout;
 
-   HotRodServerConfiguration(String proxyHost, int proxyPort, long topologyLockTimeout, long topologyReplTimeout, boolean topologyStateTransfer,
+   HotRodServerConfiguration(String proxyHost, int proxyPort, long topologyLockTimeout, long topologyReplTimeout, boolean topologyStateTransfer, long streamTimeout,
          String name, String host, int port, int idleTimeout, int recvBufSize, int sendBufSize, SslConfiguration ssl, boolean tcpNoDelay, int workerThreads) {
       super(name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl, tcpNoDelay, workerThreads);
       this.proxyHost = proxyHost;
@@ -41,6 +43,7 @@ public class HotRodServerConfiguration extends ProtocolServerConfiguration {
       this.topologyLockTimeout = topologyLockTimeout;
       this.topologyReplTimeout = topologyReplTimeout;
       this.topologyStateTransfer = topologyStateTransfer;
+      this.streamTimeout = streamTimeout;
    }
 
    public String proxyHost() {
@@ -67,9 +70,13 @@ public boolean topologyStateTransfer() {
       return topologyStateTransfer;
    }
 
+   public long streamTimeout() {
+      return streamTimeout;
+   }
+
    @Override
    public String toString() {
       return "HotRodServerConfiguration [proxyHost=" + proxyHost + ", proxyPort=" + proxyPort + ", topologyLockTimeout="
-            + topologyLockTimeout + ", topologyReplTimeout=" + topologyReplTimeout + ", topologyStateTransfer=" + topologyStateTransfer + ", " + super.toString() + "]";
+            + topologyLockTimeout + ", topologyReplTimeout=" + topologyReplTimeout + ", topologyStateTransfer=" + topologyStateTransfer + ", streamTimeout=" + streamTimeout + ", " + super.toString() + "]";
    }
 }
@@ -37,6 +37,7 @@ public class HotRodServerConfigurationBuilder extends ProtocolServerConfiguratio
    private long topologyLockTimeout = 10000L;
    private long topologyReplTimeout = 10000L;
    private boolean topologyStateTransfer = true;
+   private long streamTimeout = 600000L;
 
    public HotRodServerConfigurationBuilder() {
       super(11222);
@@ -88,9 +89,19 @@ public HotRodServerConfigurationBuilder topologyStateTransfer(boolean topologySt
       return this;
    }
 
+   /**
+    * Configures how long a stream may go without receiving a chunk, in milliseconds. The chunks of a stream which is
+    * still not complete after this time are removed, so that abandoned streams don't leak. A value of 0 or less keeps
+    * them until the stream completes. Defaults to 10 minutes
+    */
+   public HotRodServerConfigurationBuilder streamTimeout(long streamTimeout) {
+      this.streamTimeout = streamTimeout;
+      return this;
+   }
+
    @Override
    public HotRodServerConfiguration create() {
-      return new HotRodServerConfiguration(proxyHost, proxyPort, topologyLockTimeout, topologyReplTimeout, topologyStateTransfer, name, host, port, idleTimeout,
+      return new HotRodServerConfiguration(proxyHost, proxyPort, topologyLockTimeout, topologyReplTimeout, topologyStateTransfer, streamTimeout, name, host, port, idleTimeout,
             recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads);
    }
 
@@ -102,6 +113,7 @@ public HotRodServerConfigurationBuilder read(HotRodServerConfiguration template)
       this.topologyLockTimeout = template.topologyLockTimeout();
       this.topologyReplTimeout = template.topologyReplTimeout();
       this.topologyStateTransfer = template.topologyStateTransfer();
+      this.streamTimeout = template.streamTimeout();
       return this;
    }
 
@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import org.testng.annotations.Test
+import org.testng.AssertJUnit._
+import org.mockito.Mockito._
+import org.mockito.Matchers._
+import org.mockito.ArgumentCaptor
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.infinispan.Cache
+import org.infinispan.test.SingleCacheManagerTest
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import org.jboss.netty.channel.{ChannelFuture, Channel}
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Tests how the events of the client listeners are pushed to the connections they were added from.
+ *
+ * @since 5.3
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.ClientListenerRegistryTest")
+class ClientListenerRegistryTest extends SingleCacheManagerTest {
+
+   protected def createCacheManager() =
+      TestCacheManagerFactory.createLocalCacheManager(false)
+
+   def testEventsWrittenToChannel() {
+      val c = cacheManager.getCache[Array[Byte], Array[Byte]]()
+      val ch = mockChannel(new AtomicBoolean(true))
+      val registry = new ClientListenerRegistry
+      val sender = registry.addClientListener(ch, 13, 1, "", Array[Byte](1), false, c)
+      val key = Array[Byte](2)
+      c.put(key, Array[Byte](3))
+      // Events are held back until the response to the client has been written
+      verify(ch, never()).write(any())
+      sender.start()
+      c.remove(key)
+
+      val captor = ArgumentCaptor.forClass(classOf[AnyRef])
+      verify(ch, times(2)).write(captor.capture())
+      val events = captor.getAllValues
+      assertEquals(ClientListenerRegistry.CreatedEvent, events.get(0).asInstanceOf[ClientEventResponse].eventType)
+      assertEquals(ClientListenerRegistry.RemovedEvent, events.get(1).asInstanceOf[ClientEventResponse].eventType)
+
+      assertTrue(registry.removeClientListener(Array[Byte](1)))
+      assertEquals(0, registry.size)
+      c.put(key, Array[Byte](4))
+      verify(ch, times(2)).write(any())
+   }
+
+   def testSlowClientClosedAfterTimeout() {
+      val c = cacheManager.getCache[Array[Byte], Array[Byte]]()
+      val ch = mockChannel(new AtomicBoolean(false))
+      val registry = new ClientListenerRegistry
+      registry.addClientListener(ch, 13, 1, "", Array[Byte](1), false, c).start()
+      fillQueue(c)
+      verify(ch, never()).close()
+
+      // The writer waits a bounded time for the client to catch up once the queue is full
+      val start = System.nanoTime()
+      c.put(Array[Byte](-1, -1, -1), Array[Byte](0))
+      val waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+      assertTrue(waited >= ClientListenerRegistry.EventQueueTimeout)
+      assertTrue(waited < ClientListenerRegistry.EventQueueTimeout + 5000)
+      verify(ch).close()
+
+      // Events after the connection was closed are not queued
+      c.put(Array[Byte](-2, -2, -2), Array[Byte](0))
+      verify(ch).close()
+      verify(ch, never()).write(any())
+   }
+
+   def testSlowClientCatchingUp() {
+      val c = cacheManager.getCache[Array[Byte], Array[Byte]]()
+      val writable = new AtomicBoolean(false)
+      val ch = mockChannel(writable)
+      val registry = new ClientListenerRegistry
+      val sender = registry.addClientListener(ch, 13, 1, "", Array[Byte](1), false, c)
+      sender.start()
+      fillQueue(c)
+
+      val future = fork(new Runnable {
+         override def run() {
+            c.put(Array[Byte](-1, -1, -1), Array[Byte](0))
+         }
+      }, java.lang.Boolean.TRUE)
+      Thread.sleep(ClientListenerRegistry.EventQueueTimeout / 4)
+      // A write completes and the channel becomes writable again
+      writable.set(true)
+      val written = mock(classOf[ChannelFuture])
+      when(written.isSuccess).thenReturn(true)
+      sender.operationComplete(written)
+      future.get(10, TimeUnit.SECONDS)
+
+      verify(ch, never()).close()
+      verify(ch, times(ClientListenerRegistry.EventQueueCapacity + 1)).write(any())
+   }
+
+   private def fillQueue(c: Cache[Array[Byte], Array[Byte]]) {
+      for (i <- 0 until ClientListenerRegistry.EventQueueCapacity)
+         c.put(Array[Byte](i.toByte, (i >> 8).toByte), Array[Byte](0))
+   }
+
+   private def mockChannel(writable: AtomicBoolean): Channel = {
+      val ch = mock(classOf[Channel])
+      val open = new AtomicBoolean(true)
+      when(ch.isWritable).thenAnswer(new Answer[java.lang.Boolean] {
+         override def answer(invocation: InvocationOnMock) = writable.get
+      })
+      when(ch.isOpen).thenAnswer(new Answer[java.lang.Boolean] {
+         override def answer(invocation: InvocationOnMock) = open.get
+      })
+      when(ch.close()).thenAnswer(new Answer[ChannelFuture] {
+         override def answer(invocation: InvocationOnMock) = {
+            open.set(false)
+            null
+         }
+      })
+      when(ch.getCloseFuture).thenReturn(mock(classOf[ChannelFuture]))
+      when(ch.write(any())).thenReturn(mock(classOf[ChannelFuture]))
+      ch
+   }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import java.io.{DataInputStream, BufferedInputStream}
+import java.lang.reflect.Method
+import java.net.Socket
+import java.util.{Random, Arrays}
+import org.infinispan.server.core.transport.ExtendedChannelBuffer._
+import org.infinispan.server.hotrod.OperationStatus._
+import org.infinispan.server.hotrod.test._
+import org.infinispan.server.hotrod.test.HotRodTestingUtil._
+import org.jboss.netty.buffer.ChannelBuffer
+import org.testng.Assert._
+import org.testng.annotations.Test
+
+/**
+ * Tests values sent by reference rather than copied into the responses, see
+ * [[org.infinispan.server.core.transport.ExtendedChannelBuffer.ZeroCopyThreshold]].
+ *
+ * @since 5.3
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRodZeroCopyTest")
+class HotRodZeroCopyTest extends HotRodSingleNodeTest {
+
+   def testValuesAroundThreshold(m: Method) {
+      for (size <- Seq(ZeroCopyThreshold - 1, ZeroCopyThreshold, ZeroCopyThreshold + 1, 1024 * 1024)) {
+         val key = k(m, size + "-")
+         val value = randomValue(size)
+         assertStatus(client.put(key, 0, 0, value), Success)
+         assertSuccess(client.get(key, 0), value)
+         assertSuccess(client.getWithVersion(key, 0), value, 0)
+         assertSuccess(client.getWithMetadata(key, 0), value, -1, -1)
+         val replacement = randomValue(size)
+         assertSuccess(client.put(key, 0, 0, replacement, 1).asInstanceOf[TestResponseWithPrevious], value)
+         assertSuccess(client.remove(key, 1).asInstanceOf[TestResponseWithPrevious], replacement)
+      }
+   }
+
+   def testValuesSplitAcrossReads(m: Method) {
+      for (size <- Seq(ZeroCopyThreshold - 1, ZeroCopyThreshold + 1, 64 * 1024)) {
+         val key = k(m, size + "-")
+         val value = randomValue(size)
+         val socket = new Socket(server.getHost, server.getPort)
+         try {
+            socket.setTcpNoDelay(true)
+            val out = socket.getOutputStream
+            // Small pieces with pauses in between, so that the decoder receives the request in several reads
+            val request = putRequest(key, value)
+            for (offset <- 0 until request.length by 1000) {
+               out.write(request, offset, math.min(1000, request.length - offset))
+               out.flush()
+               Thread.sleep(5)
+            }
+            val in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+            assertEquals(in.readUnsignedByte, 0xA1)
+            readUnsignedLong(in) // message id
+            assertEquals(in.readUnsignedByte, 0x02) // put response
+            assertEquals(in.readUnsignedByte, Success.id)
+         } finally {
+            socket.close()
+         }
+         assertSuccess(client.get(key, 0), value)
+      }
+   }
+
+   def testReplacedWhileResponseIsWritten(m: Method) {
+      getWhileModified(m, value => assertStatus(client.put(k(m), 0, 0, randomValue(value.length)), Success))
+   }
+
+   def testRemovedWhileResponseIsWritten(m: Method) {
+      getWhileModified(m, value => assertStatus(client.remove(k(m)), Success))
+   }
+
+   private def getWhileModified(m: Method, modify: Array[Byte] => Unit) {
+      // Larger than the socket buffers, so that the response is still being written when the entry changes
+      val value = randomValue(16 * 1024 * 1024)
+      assertStatus(client.put(k(m), 0, 0, value), Success)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         socket.getOutputStream.write(getRequest(k(m)))
+         val in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+         assertEquals(in.readUnsignedByte, 0xA1) // the response is being written
+         modify(value)
+         readUnsignedLong(in) // message id
+         assertEquals(in.readUnsignedByte, 0x04) // get response
+         assertEquals(in.readUnsignedByte, Success.id)
+         assertEquals(in.readUnsignedByte, 0) // no topology change
+         val data = new Array[Byte](readUnsignedLong(in).toInt)
+         in.readFully(data)
+         assertTrue(Arrays.equals(data, value), "The response should hold the value read, not the modified one")
+      } finally {
+         socket.close()
+      }
+   }
+
+   private def getRequest(key: Array[Byte]): Array[Byte] = {
+      val buf = dynamicBuffer
+      writeHeader(0x03, buf) // get request
+      writeRangedBytes(key, buf)
+      toArray(buf)
+   }
+
+   private def putRequest(key: Array[Byte], value: Array[Byte]): Array[Byte] = {
+      val buf = dynamicBuffer
+      writeHeader(0x01, buf) // put request
+      writeRangedBytes(key, buf)
+      writeUnsignedInt(0, buf) // lifespan
+      writeUnsignedInt(0, buf) // max idle
+      writeRangedBytes(value, buf)
+      toArray(buf)
+   }
+
+   private def writeHeader(opCode: Int, buf: ChannelBuffer) {
+      buf.writeByte(0xA0)
+      writeUnsignedLong(1, buf) // message id
+      buf.writeByte(10) // version
+      buf.writeByte(opCode)
+      writeString(cacheName, buf)
+      writeUnsignedInt(0, buf) // flags
+      buf.writeByte(1) // client intelligence
+      writeUnsignedInt(0, buf) // topology id
+      buf.writeByte(0) // no transaction
+   }
+
+   private def toArray(buf: ChannelBuffer): Array[Byte] = {
+      val bytes = new Array[Byte](buf.readableBytes)
+      buf.readBytes(bytes)
+      bytes
+   }
+
+   private def readUnsignedLong(in: DataInputStream): Long = {
+      var b = in.readUnsignedByte
+      var l = (b & 0x7F).toLong
+      var shift = 7
+      while ((b & 0x80) != 0) {
+         b = in.readUnsignedByte
+         l |= (b & 0x7F).toLong << shift
+         shift += 7
+      }
+      l
+   }
+
+   private def randomValue(size: Int): Array[Byte] = {
+      val value = new Array[Byte](size)
+      new Random().nextBytes(value)
+      value
+   }
+
+}
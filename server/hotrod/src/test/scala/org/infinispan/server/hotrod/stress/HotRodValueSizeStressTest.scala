@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod.stress
+
+import java.lang.reflect.Method
+import java.lang.management.ManagementFactory
+import java.util.Random
+import org.infinispan.server.hotrod.test.HotRodTestingUtil._
+import org.infinispan.server.hotrod.HotRodSingleNodeTest
+import org.infinispan.server.hotrod.OperationStatus._
+import org.testng.annotations.Test
+import collection.JavaConversions._
+
+/**
+ * Measures the throughput and the garbage collection activity of puts and
+ * gets of 1 KB, 64 KB and 1 MB values, to compare the server with and
+ * without zero-copy values (see the infinispan.server.zeroCopyThreshold
+ * system property).
+ *
+ * @since 5.3
+ */
+@Test(groups = Array("stress"), testName = "server.hotrod.stress.HotRodValueSizeStressTest", enabled = false)
+class HotRodValueSizeStressTest extends HotRodSingleNodeTest {
+
+   private val ops = 2000
+
+   def testSmallValues(m: Method) {
+      runWithValueSize(m, 1024)
+   }
+
+   def testMediumValues(m: Method) {
+      runWithValueSize(m, 64 * 1024)
+   }
+
+   def testLargeValues(m: Method) {
+      runWithValueSize(m, 1024 * 1024)
+   }
+
+   private def runWithValueSize(m: Method, size: Int) {
+      val value = new Array[Byte](size)
+      new Random().nextBytes(value)
+      val key = k(m)
+      // Warm up
+      for (i <- 0 until ops / 10) {
+         assertStatus(client.put(key, 0, 0, value), Success)
+         assertSuccess(client.get(key, 0), value)
+      }
+
+      val gcBefore = gcCountAndTime
+      val start = System.nanoTime
+      for (i <- 0 until ops) {
+         client.put(key, 0, 0, value)
+         client.get(key, 0)
+      }
+      val duration = System.nanoTime - start
+      val gcAfter = gcCountAndTime
+
+      val seconds = duration / 1000000000.0
+      val megabytes = 2.0 * ops * size / (1024 * 1024)
+      log.infof("%d byte values: %.0f ops/s, %.1f MB/s, %d collections taking %d ms",
+         Int.box(size), Double.box(2 * ops / seconds), Double.box(megabytes / seconds),
+         Long.box(gcAfter._1 - gcBefore._1), Long.box(gcAfter._2 - gcBefore._2))
+   }
+
+   private def gcCountAndTime: (Long, Long) = {
+      val beans = ManagementFactory.getGarbageCollectorMXBeans
+      (beans.map(_.getCollectionCount).sum, beans.map(_.getCollectionTime).sum)
+   }
+
+}
@@ -0,0 +1,586 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import logging.Log
+import org.infinispan.{Version, CacheException, AdvancedCache}
+import org.infinispan.context.Flag
+import org.infinispan.container.entries.CacheEntry
+import org.infinispan.metadata.Metadata
+import org.infinispan.server.core.{AbstractProtocolDecoder, ServerEntryVersion}
+import org.infinispan.server.core.transport.NettyTransport
+import org.infinispan.server.core.transport.ExtendedChannelBuffer.{ZeroCopyThreshold, compositeBuffer}
+import org.infinispan.util.ClusterIdGenerator
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+import org.jboss.netty.channel._
+import org.jboss.netty.handler.codec.frame.FrameDecoder
+import java.util.concurrent.{TimeUnit, ScheduledExecutorService}
+import java.nio.ByteBuffer
+import collection.mutable.ListBuffer
+import TextProtocolUtil.{CHARSET, concat}
+import MemcachedBinaryDecoder._
+
+/**
+ * A decoder for the binary Memcached protocol.
+ * <p/>
+ * Each request is decoded once its header and body have been fully received, except for values of at least
+ * [[org.infinispan.server.core.transport.ExtendedChannelBuffer.ZeroCopyThreshold]] bytes, which are read as they
+ * arrive. Such values are not copied into the responses either, but sent by reference. Requests whose body is longer
+ * than `maxBodyLength` get a "too large" error, and their body is skipped as it arrives without being buffered. Entries are stored with the same
+ * [[org.infinispan.server.memcached.MemcachedMetadata]] as the text protocol, and the CAS value of the binary protocol
+ * is the version of the entry, so that text and binary clients can share the same cache.
+ * <p/>
+ * Quiet requests (e.g. GETQ, GETKQ or SETQ) only get a response when they fail, or when they find an entry in the
+ * case of gets, which lets clients pipeline them, typically terminated by a NOOP. The responses to all the requests
+ * decoded from a single read are written at once.
+ *
+ * @since 5.3
+ */
+class MemcachedBinaryDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], scheduler: ScheduledExecutorService,
+                             transport: NettyTransport, maxBodyLength: Int) extends FrameDecoder with Log {
+
+   var versionGenerator: ClusterIdGenerator = _
+
+   private val cache = memcachedCache.getAdvancedCache.withFlags(Flag.OPERATION_MEMCACHED)
+   private val isTrace = isTraceEnabled
+   private lazy val defaultMaxIdleTime = cache.getCacheConfiguration.expiration().maxIdle()
+   private var responses: ChannelBuffer = null
+   private val responseParts = new ListBuffer[ChannelBuffer]
+   private var pending: BinaryRequest = null
+   private var pendingValue: Array[Byte] = null
+   private var pendingLength = 0
+   private var pendingOffset = 0
+   private var discarding = 0
+   private var closing = false
+
+   override def decode(ctx: ChannelHandlerContext, ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      if (closing) {
+         buffer.skipBytes(buffer.readableBytes)
+         return null
+      }
+      if (discarding > 0)
+         return discardBody(buffer)
+      if (pending != null)
+         return readValue(buffer)
+      if (buffer.readableBytes < HEADER_LENGTH)
+         return null
+
+      val start = buffer.readerIndex
+      val magic = buffer.getUnsignedByte(start)
+      val bodyLength = buffer.getInt(start + 8)
+      if (magic != REQUEST_MAGIC || bodyLength < 0) {
+         debug("Invalid request header (magic=%s, body length=%s), closing connection", magic, bodyLength)
+         buffer.skipBytes(buffer.readableBytes)
+         closing = true
+         return null
+      }
+      if (bodyLength > maxBodyLength) {
+         val opcode = buffer.getUnsignedByte(start + 1)
+         val opaque = buffer.getInt(start + 12)
+         debug("Request body of %s bytes is over the %s bytes limit, skipping it", bodyLength, maxBodyLength)
+         buffer.skipBytes(HEADER_LENGTH)
+         respond(new BinaryRequest(opcode, opaque, 0, ChannelBuffers.EMPTY_BUFFER, EMPTY, EMPTY, valid = false),
+            VALUE_TOO_LARGE, value = message(statusMessage(VALUE_TOO_LARGE)))
+         discarding = bodyLength
+         return discardBody(buffer)
+      }
+      val valueLength = bodyLength - buffer.getUnsignedByte(start + 4) - buffer.getUnsignedShort(start + 2)
+      val readable = buffer.readableBytes
+      if (readable < HEADER_LENGTH + bodyLength
+            && (valueLength < ZeroCopyThreshold || readable < HEADER_LENGTH + bodyLength - valueLength))
+         return null // Wait for the rest of the request, or for everything but the value if it is large
+
+      pending = readRequest(buffer, bodyLength)
+      pendingValue = EMPTY
+      pendingLength = if (pending.valid) valueLength else 0
+      pendingOffset = 0
+      readValue(buffer)
+   }
+
+   /**
+    * Reads the bytes of the value of the pending request received so far, and handles the request once it is
+    * complete. This way, a large value is copied into its array as it arrives.
+    */
+   private def readValue(buffer: ChannelBuffer): AnyRef = {
+      val length = math.min(pendingLength - pendingOffset, buffer.readableBytes)
+      ensureValueCapacity(pendingOffset + length)
+      buffer.readBytes(pendingValue, pendingOffset, length)
+      pendingOffset += length
+      if (pendingOffset == pendingLength) {
+         val request = pending.withValue(pendingValue)
+         pending = null
+         pendingValue = null
+         if (isTrace) trace("Binary request: %s", request)
+         handle(request)
+      }
+      null
+   }
+
+   /**
+    * Grows the array of the pending value so that it holds at least `capacity` bytes. The array doubles as bytes
+    * arrive, up to the length of the value declared in the header, so that the decoder never allocates more than
+    * twice what the client actually sent. Values received in one read get an array of their exact length at once.
+    */
+   private def ensureValueCapacity(capacity: Int) {
+      if (capacity > pendingValue.length) {
+         val length = math.min(pendingLength.toLong, math.max(capacity.toLong, pendingValue.length * 2L)).toInt
+         val grown = new Array[Byte](length)
+         System.arraycopy(pendingValue, 0, grown, 0, pendingOffset)
+         pendingValue = grown
+      }
+   }
+
+   /**
+    * Skips the body of a rejected request as it arrives.
+    */
+   private def discardBody(buffer: ChannelBuffer): AnyRef = {
+      val length = math.min(discarding, buffer.readableBytes)
+      buffer.skipBytes(length)
+      discarding -= length
+      null
+   }
+
+   private def readRequest(buffer: ChannelBuffer, bodyLength: Int): BinaryRequest = {
+      buffer.skipBytes(1) // magic
+      val opcode = buffer.readUnsignedByte
+      val keyLength = buffer.readUnsignedShort
+      val extrasLength = buffer.readUnsignedByte
+      buffer.skipBytes(3) // data type and vbucket id
+      buffer.skipBytes(4) // body length, already read
+      val opaque = buffer.readInt
+      val cas = buffer.readLong
+      val valueLength = bodyLength - extrasLength - keyLength
+      if (valueLength < 0) {
+         buffer.skipBytes(bodyLength)
+         return new BinaryRequest(opcode, opaque, cas, ChannelBuffers.EMPTY_BUFFER, EMPTY, EMPTY, valid = false)
+      }
+      val extras = ChannelBuffers.copiedBuffer(buffer.readSlice(extrasLength))
+      val key = new Array[Byte](keyLength)
+      buffer.readBytes(key)
+      // The value is read by readValue, possibly as it arrives
+      new BinaryRequest(opcode, opaque, cas, extras, key, EMPTY, valid = true)
+   }
+
+   private def handle(req: BinaryRequest) {
+      try {
+         if (!req.valid)
+            throw new IllegalArgumentException("Key and extras are longer than the body")
+         req.opcode match {
+            case GET | GETQ | GETK | GETKQ => get(req)
+            case SET | SETQ | ADD | ADDQ | REPLACE | REPLACEQ => store(req)
+            case APPEND | APPENDQ | PREPEND | PREPENDQ => appendPrepend(req)
+            case DELETE | DELETEQ => delete(req)
+            case INCREMENT | INCREMENTQ | DECREMENT | DECREMENTQ => incrDecr(req)
+            case FLUSH | FLUSHQ => flushAll(req)
+            case NOOP => respond(req, NO_ERROR)
+            case VERSION => respond(req, NO_ERROR, value = Version.VERSION.getBytes(CHARSET))
+            case STAT => stats(req)
+            case QUIT | QUITQ => {
+               if (req.opcode == QUIT) respond(req, NO_ERROR)
+               closing = true
+            }
+            case _ => respond(req, UNKNOWN_COMMAND, value = message("Unknown command"))
+         }
+      } catch {
+         case i: IllegalArgumentException => {
+            logExceptionReported(i)
+            respond(req, INVALID_ARGUMENTS, value = message(i.getMessage))
+         }
+         case e: Exception => {
+            logExceptionReported(e)
+            respond(req, INTERNAL_ERROR, value = message(e.toString))
+         }
+      }
+   }
+
+   private def get(req: BinaryRequest) {
+      checkRequest(req, extrasLength = 0, hasValue = false)
+      val entry = cache.getCacheEntry(readKey(req))
+      val withKey = req.opcode == GETK || req.opcode == GETKQ
+      if (entry != null) {
+         respond(req, NO_ERROR, version(entry.getMetadata), Some(flags(entry.getMetadata)),
+            if (withKey) req.key else EMPTY, entry.getValue.asInstanceOf[Array[Byte]])
+      } else if (!isQuiet(req.opcode)) {
+         respond(req, KEY_NOT_FOUND, key = if (withKey) req.key else EMPTY, value = message("Not found"))
+      }
+   }
+
+   private def store(req: BinaryRequest) {
+      checkRequest(req, extrasLength = 8, hasValue = true)
+      val key = readKey(req)
+      val flags = req.extras.readUnsignedInt
+      val expiration = req.extras.readInt
+      val metadata = buildMetadata(flags, expiration)
+      val status = req.opcode match {
+         case SET | SETQ =>
+            if (req.cas == 0) {
+               cache.put(key, req.value, metadata)
+               NO_ERROR
+            } else {
+               replaceIfUnmodified(key, req.cas, req.value, metadata)
+            }
+         case ADD | ADDQ =>
+            if (cache.get(key) == null && cache.putIfAbsent(key, req.value, metadata) == null) NO_ERROR
+            else KEY_EXISTS
+         case REPLACE | REPLACEQ =>
+            if (req.cas != 0)
+               replaceIfUnmodified(key, req.cas, req.value, metadata)
+            else if (cache.replace(key, req.value, metadata) != null)
+               NO_ERROR
+            else
+               KEY_NOT_FOUND
+      }
+      respondToModification(req, status, version(metadata))
+   }
+
+   private def appendPrepend(req: BinaryRequest) {
+      checkRequest(req, extrasLength = 0, hasValue = true)
+      val key = readKey(req)
+      val entry = cache.getCacheEntry(key)
+      if (entry == null) {
+         respondToModification(req, ITEM_NOT_STORED, 0)
+      } else if (req.cas != 0 && version(entry.getMetadata) != req.cas) {
+         respondToModification(req, KEY_EXISTS, 0)
+      } else {
+         val prev = entry.getValue.asInstanceOf[Array[Byte]]
+         val concatenated = req.opcode match {
+            case APPEND | APPENDQ => concat(prev, req.value)
+            case PREPEND | PREPENDQ => concat(req.value, prev)
+         }
+         val metadata = copyMetadata(entry.getMetadata)
+         // If there's a concurrent modification on this key, treat it as we couldn't store it
+         if (cache.replace(key, prev, concatenated, metadata))
+            respondToModification(req, NO_ERROR, version(metadata))
+         else
+            respondToModification(req, ITEM_NOT_STORED, 0)
+      }
+   }
+
+   private def delete(req: BinaryRequest) {
+      checkRequest(req, extrasLength = 0, hasValue = false)
+      val key = readKey(req)
+      val status =
+         if (req.cas == 0) {
+            if (cache.remove(key) != null) NO_ERROR else KEY_NOT_FOUND
+         } else {
+            val entry = cache.getCacheEntry(key)
+            if (entry == null) KEY_NOT_FOUND
+            else if (version(entry.getMetadata) != req.cas) KEY_EXISTS
+            else if (cache.remove(key, entry.getValue)) NO_ERROR
+            else KEY_EXISTS
+         }
+      respondToModification(req, status, 0)
+   }
+
+   private def incrDecr(req: BinaryRequest) {
+      checkRequest(req, extrasLength = 20, hasValue = false)
+      val key = readKey(req)
+      val delta = toUnsigned(req.extras.readLong)
+      val initial = toUnsigned(req.extras.readLong)
+      val expiration = req.extras.readInt
+      val entry = cache.getCacheEntry(key)
+      if (entry == null) {
+         if (expiration == NO_AUTO_CREATE) {
+            respondToModification(req, KEY_NOT_FOUND, 0)
+         } else {
+            val metadata = buildMetadata(0, expiration)
+            if (cache.putIfAbsent(key, initial.toString.getBytes, metadata) != null)
+               throw new CacheException("Value created concurrently, unable to set the initial value")
+            respondToCounter(req, initial, metadata)
+         }
+      } else if (req.cas != 0 && version(entry.getMetadata) != req.cas) {
+         respondToModification(req, KEY_EXISTS, 0)
+      } else {
+         val prev = entry.getValue.asInstanceOf[Array[Byte]]
+         val prevCounter =
+            try {
+               Some(BigInt(new String(prev, CHARSET)))
+            } catch {
+               case n: NumberFormatException => None
+            }
+         prevCounter match {
+            case Some(c) if c >= 0 && c <= MAX_UNSIGNED_LONG => {
+               val counter = req.opcode match {
+                  case INCREMENT | INCREMENTQ => (c + delta) & MAX_UNSIGNED_LONG // Wraps around
+                  case DECREMENT | DECREMENTQ => (c - delta).max(0)
+               }
+               val metadata = copyMetadata(entry.getMetadata)
+               if (!cache.replace(key, prev, counter.toString.getBytes, metadata))
+                  // If there's a concurrent modification on this key, the spec does not say what to do, so treat it as exceptional
+                  throw new CacheException("Value modified since we retrieved from the cache, old value was " + c)
+               respondToCounter(req, counter, metadata)
+            }
+            case _ => respondToModification(req, NON_NUMERIC_VALUE, 0)
+         }
+      }
+   }
+
+   private def respondToCounter(req: BinaryRequest, counter: BigInt, metadata: Metadata) {
+      if (!isQuiet(req.opcode))
+         respond(req, NO_ERROR, version(metadata), value = ByteBuffer.allocate(8).putLong(counter.longValue).array())
+   }
+
+   private def flushAll(req: BinaryRequest) {
+      if (req.extras.readableBytes != 0 && req.extras.readableBytes != 4)
+         throw new IllegalArgumentException("Flush only accepts an optional expiration")
+      val flushDelay = if (req.extras.readable) req.extras.readInt else 0
+      val flushFunction = (cache: AdvancedCache[String, Array[Byte]]) =>
+         cache.withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_STORE).clear()
+      if (flushDelay == 0)
+         flushFunction(cache)
+      else
+         scheduler.schedule(new DelayedFlushAll(cache, flushFunction),
+            AbstractProtocolDecoder.toMillis(flushDelay), TimeUnit.MILLISECONDS)
+      respondToModification(req, NO_ERROR, 0)
+   }
+
+   private def stats(req: BinaryRequest) {
+      val stats = cache.getStats
+      val all = Seq[(String, Any)](
+         "pid" -> 0,
+         "uptime" -> stats.getTimeSinceStart,
+         "time" -> TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis),
+         "version" -> cache.getVersion,
+         "curr_items" -> stats.getCurrentNumberOfEntries,
+         "total_items" -> stats.getTotalNumberOfEntries,
+         "cmd_get" -> stats.getRetrievals,
+         "cmd_set" -> stats.getStores,
+         "get_hits" -> stats.getHits,
+         "get_misses" -> stats.getMisses,
+         "delete_misses" -> stats.getRemoveMisses,
+         "delete_hits" -> stats.getRemoveHits,
+         "evictions" -> stats.getEvictions,
+         "bytes_read" -> transport.getTotalBytesRead,
+         "bytes_written" -> transport.getTotalBytesWritten)
+      val requested =
+         if (req.key.isEmpty) all
+         else all.filter(_._1 == new String(req.key, CHARSET))
+      if (requested.isEmpty) {
+         respond(req, KEY_NOT_FOUND, value = message("Unknown statistic"))
+      } else {
+         for ((name, value) <- requested)
+            respond(req, NO_ERROR, key = name.getBytes(CHARSET), value = value.toString.getBytes(CHARSET))
+         respond(req, NO_ERROR) // End of the statistics
+      }
+   }
+
+   private def replaceIfUnmodified(key: String, cas: Long, value: Array[Byte], metadata: Metadata): Int = {
+      val entry = cache.getCacheEntry(key)
+      if (entry == null) KEY_NOT_FOUND
+      else if (version(entry.getMetadata) != cas) KEY_EXISTS
+      else if (cache.replace(key, entry.getValue.asInstanceOf[Array[Byte]], value, metadata)) NO_ERROR
+      else KEY_EXISTS
+   }
+
+   private def checkRequest(req: BinaryRequest, extrasLength: Int, hasValue: Boolean) {
+      if (req.extras.readableBytes != extrasLength)
+         throw new IllegalArgumentException("Expected " + extrasLength + " bytes of extras, got " + req.extras.readableBytes)
+      if (req.key.isEmpty)
+         throw new IllegalArgumentException("Missing key")
+      if (!hasValue && !req.value.isEmpty)
+         throw new IllegalArgumentException("Unexpected value")
+   }
+
+   private def readKey(req: BinaryRequest): String = {
+      val key = new String(req.key, CHARSET)
+      if (key.length > 250)
+         throw new IllegalArgumentException("Key length over the 250 character limit")
+      key
+   }
+
+   private def buildMetadata(flags: Long, expiration: Int): Metadata = {
+      val lifespan = if (expiration <= 0) -1 else AbstractProtocolDecoder.toMillis(expiration)
+      MemcachedMetadata(flags, lifespan, defaultMaxIdleTime, newVersion)
+   }
+
+   private def copyMetadata(metadata: Metadata): Metadata =
+      MemcachedMetadata(flags(metadata), metadata.lifespan(), metadata.maxIdle(), newVersion)
+
+   private def newVersion: ServerEntryVersion = {
+      val rpcManager = cache.getRpcManager
+      new ServerEntryVersion(versionGenerator.newVersion(rpcManager != null))
+   }
+
+   private def respondToModification(req: BinaryRequest, status: Int, cas: Long) {
+      if (status != NO_ERROR)
+         respond(req, status, value = message(statusMessage(status)))
+      else if (!isQuiet(req.opcode))
+         respond(req, NO_ERROR, cas)
+   }
+
+   private def respond(req: BinaryRequest, status: Int, cas: Long = 0, flags: Option[Long] = None,
+                       key: Array[Byte] = EMPTY, value: Array[Byte] = EMPTY) {
+      if (responses == null)
+         responses = ChannelBuffers.dynamicBuffer(HEADER_LENGTH + key.length + 4
+            + (if (value.length >= ZeroCopyThreshold) 0 else value.length))
+      val extrasLength = if (flags.isDefined) 4 else 0
+      responses.writeByte(RESPONSE_MAGIC)
+      responses.writeByte(req.opcode)
+      responses.writeShort(key.length)
+      responses.writeByte(extrasLength)
+      responses.writeByte(0) // raw bytes
+      responses.writeShort(status)
+      responses.writeInt(extrasLength + key.length + value.length)
+      responses.writeInt(req.opaque)
+      responses.writeLong(cas)
+      flags.foreach(f => responses.writeInt(f.toInt))
+      responses.writeBytes(key)
+      if (value.length >= ZeroCopyThreshold) {
+         // Send large values by reference rather than copying them into the responses
+         responseParts += responses
+         responseParts += ChannelBuffers.wrappedBuffer(value)
+         responses = null
+      } else {
+         responses.writeBytes(value)
+      }
+   }
+
+   private def writeResponses(ch: Channel) {
+      if (responses != null || !responseParts.isEmpty) {
+         if (responses != null) responseParts += responses
+         val out = if (responseParts.size == 1) responseParts.head else compositeBuffer(responseParts: _*)
+         if (isTrace) trace("Write %s bytes of responses", out.readableBytes)
+         val future = ch.write(out)
+         responses = null
+         responseParts.clear()
+         if (closing) future.addListener(ChannelFutureListener.CLOSE)
+      } else if (closing) {
+         ch.close()
+      }
+   }
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      transport.updateTotalBytesRead(e)
+      try {
+         super.messageReceived(ctx, e)
+      } finally {
+         writeResponses(ctx.getChannel)
+      }
+   }
+
+   override def writeComplete(ctx: ChannelHandlerContext, e: WriteCompletionEvent) {
+      transport.updateTotalBytesWritten(e)
+      ctx.sendUpstream(e)
+   }
+
+   override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
+      // Requests failing in the cache get an error response, so this is a transport error
+      debug(e.getCause, "Exception caught, closing connection")
+      ctx.getChannel.close()
+   }
+}
+
+object MemcachedBinaryDecoder {
+   val REQUEST_MAGIC = 0x80
+   val RESPONSE_MAGIC = 0x81
+   val HEADER_LENGTH = 24
+
+   // Opcodes
+   final val GET = 0x00
+   final val SET = 0x01
+   final val ADD = 0x02
+   final val REPLACE = 0x03
+   final val DELETE = 0x04
+   final val INCREMENT = 0x05
+   final val DECREMENT = 0x06
+   final val QUIT = 0x07
+   final val FLUSH = 0x08
+   final val GETQ = 0x09
+   final val NOOP = 0x0a
+   final val VERSION = 0x0b
+   final val GETK = 0x0c
+   final val GETKQ = 0x0d
+   final val APPEND = 0x0e
+   final val PREPEND = 0x0f
+   final val STAT = 0x10
+   final val SETQ = 0x11
+   final val ADDQ = 0x12
+   final val REPLACEQ = 0x13
+   final val DELETEQ = 0x14
+   final val INCREMENTQ = 0x15
+   final val DECREMENTQ = 0x16
+   final val QUITQ = 0x17
+   final val FLUSHQ = 0x18
+   final val APPENDQ = 0x19
+   final val PREPENDQ = 0x1a
+
+   // Response statuses
+   final val NO_ERROR = 0x0000
+   final val KEY_NOT_FOUND = 0x0001
+   final val KEY_EXISTS = 0x0002
+   final val VALUE_TOO_LARGE = 0x0003
+   final val INVALID_ARGUMENTS = 0x0004
+   final val ITEM_NOT_STORED = 0x0005
+   final val NON_NUMERIC_VALUE = 0x0006
+   final val UNKNOWN_COMMAND = 0x0081
+   final val INTERNAL_ERROR = 0x0084
+
+   private val EMPTY = Array[Byte]()
+   private val NO_AUTO_CREATE = 0xffffffff
+   private val MAX_UNSIGNED_LONG = TextProtocolUtil.MAX_UNSIGNED_LONG
+
+   private def isQuiet(opcode: Int): Boolean = opcode match {
+      case GETQ | GETKQ | SETQ | ADDQ | REPLACEQ | DELETEQ | INCREMENTQ | DECREMENTQ => true
+      case QUITQ | FLUSHQ | APPENDQ | PREPENDQ => true
+      case _ => false
+   }
+
+   private def statusMessage(status: Int): String = status match {
+      case KEY_NOT_FOUND => "Not found"
+      case KEY_EXISTS => "Data exists for key"
+      case VALUE_TOO_LARGE => "Too large"
+      case ITEM_NOT_STORED => "Not stored"
+      case NON_NUMERIC_VALUE => "Incr/Decr on non-numeric value"
+      case _ => "Error"
+   }
+
+   private def message(msg: String): Array[Byte] = if (msg == null) EMPTY else msg.getBytes(CHARSET)
+
+   private def toUnsigned(l: Long): BigInt = if (l >= 0) BigInt(l) else BigInt(l) + MAX_UNSIGNED_LONG + 1
+
+   private def version(metadata: Metadata): Long = metadata.version() match {
+      case ServerEntryVersion(version) => version
+      case _ => 0
+   }
+
+   private def flags(metadata: Metadata): Long = metadata match {
+      case meta: MemcachedMetadata => meta.flags
+      case _ => 0
+   }
+}
+
+private class BinaryRequest(val opcode: Int, val opaque: Int, val cas: Long, val extras: ChannelBuffer,
+                            val key: Array[Byte], val value: Array[Byte], val valid: Boolean) {
+   def withValue(value: Array[Byte]): BinaryRequest = new BinaryRequest(opcode, opaque, cas, extras, key, value, valid)
+
+   override def toString = {
+      new java.lang.StringBuilder().append("BinaryRequest").append("{")
+         .append("opcode=").append(opcode)
+         .append(", opaque=").append(opaque)
+         .append(", cas=").append(cas)
+         .append(", extrasLength=").append(extras.readableBytes)
+         .append(", keyLength=").append(key.length)
+         .append(", valueLength=").append(value.length)
+         .append("}").toString
+   }
+}
@@ -210,8 +210,11 @@ class MemcachedDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], sched
    }
 
    override protected def readValue(b: ChannelBuffer) {
-      b.readBytes(rawValue)
-      skipLine(b) // read the rest of line to clear CRLF after value Byte[]
+      // The value bytes have already been read into rawValue. The CRLF after them might not have arrived yet, in
+      // which case reading it makes the decoder replay from the checkpoint taken after the value. Empty values are
+      // still accepted without it.
+      if (rawValue.length == 0) skipLine(b)
+      else while (b.readByte != LF) {}
    }
 
    override def createValue(): Array[Byte] = rawValue
@@ -548,13 +551,12 @@ class MemcachedDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], sched
 
    private def buildGetResponse(op: Enumeration#Value, k: String, entry: CacheEntry): ChannelBuffer = {
       val buf = buildGetHeaderBegin(k, entry, 0)
-      writeGetHeaderData(entry.getValue.asInstanceOf[Array[Byte]], buf)
+      writeGetHeaderData(entry.getValue.asInstanceOf[Array[Byte]], buf, false)
    }
 
    private def buildSingleGetResponse(k: String, entry: CacheEntry): ChannelBuffer = {
       val buf = buildGetHeaderBegin(k, entry, END_SIZE)
-      writeGetHeaderData(entry.getValue.asInstanceOf[Array[Byte]], buf)
-      writeGetHeaderEnd(buf)
+      writeGetHeaderData(entry.getValue.asInstanceOf[Array[Byte]], buf, true)
    }
    
    private def buildGetHeaderBegin(k: String, entry: CacheEntry,
@@ -570,7 +572,9 @@ class MemcachedDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], sched
       }
 
       val flagsSize = flags.length
-      val buf = buffer(VALUE_SIZE + key.length + data.length + flagsSize
+      // Large values are not copied into the response buffer, see writeGetHeaderData
+      val dataSpace = if (data.length >= ZeroCopyThreshold) 0 else data.length
+      val buf = buffer(VALUE_SIZE + key.length + dataSpace + flagsSize
               + dataSize.length + 6 + extraSpace)
       buf.writeBytes(VALUE)
       buf.writeBytes(key)
@@ -581,16 +585,21 @@ class MemcachedDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], sched
       buf
    }
 
-   private def writeGetHeaderData(data: Array[Byte], buf: ChannelBuffer): ChannelBuffer = {
+   /**
+    * Writes the value, and the END marker if requested, after the header. Values of at least ZeroCopyThreshold bytes
+    * are not copied: the response is then a composite of the header, the value array itself, and the trailer.
+    */
+   private def writeGetHeaderData(data: Array[Byte], buf: ChannelBuffer, end: Boolean): ChannelBuffer = {
       buf.writeBytes(CRLFBytes)
-      buf.writeBytes(data)
-      buf.writeBytes(CRLFBytes)
-      buf
-   }
-
-   private def writeGetHeaderEnd(buf: ChannelBuffer): ChannelBuffer = {
-      buf.writeBytes(END)
-      buf
+      if (data.length >= ZeroCopyThreshold) {
+         val trailer = if (end) wrappedBuffer(CRLFBytes, END) else wrappedBuffer(CRLFBytes)
+         compositeBuffer(buf, wrappedBuffer(data), trailer)
+      } else {
+         buf.writeBytes(data)
+         buf.writeBytes(CRLFBytes)
+         if (end) buf.writeBytes(END)
+         buf
+      }
    }
 
    private def buildSingleGetWithVersionResponse(k: String, entry: CacheEntry): ChannelBuffer = {
@@ -600,8 +609,7 @@ class MemcachedDecoder(memcachedCache: AdvancedCache[String, Array[Byte]], sched
       val buf = buildGetHeaderBegin(k, entry, version.length + 1 + END_SIZE)
       buf.writeByte(SP) // 1
       buf.writeBytes(version) // version.length
-      writeGetHeaderData(v, buf)
-      writeGetHeaderEnd(buf)
+      writeGetHeaderData(v, buf, true)
    }
 
    private def friendlyMaxIntCheck(number: String, message: String): Int = {
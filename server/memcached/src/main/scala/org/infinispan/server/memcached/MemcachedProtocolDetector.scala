@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import org.infinispan.server.core.transport.NettyTransport
+import org.jboss.netty.buffer.ChannelBuffer
+import org.jboss.netty.channel.{ChannelStateEvent, MessageEvent, ChannelHandlerContext, SimpleChannelUpstreamHandler}
+
+/**
+ * Detects whether a connection uses the text or the binary Memcached protocol from the first byte sent by the client,
+ * and replaces itself with the matching decoder. Binary requests start with the 0x80 magic byte, which never starts a
+ * text command.
+ *
+ * @since 5.3
+ */
+class MemcachedProtocolDetector(server: MemcachedServer, transport: NettyTransport)
+      extends SimpleChannelUpstreamHandler {
+
+   override def channelOpen(ctx: ChannelHandlerContext, e: ChannelStateEvent) {
+      // The decoder is only added once the first bytes are received
+      transport.acceptedChannels.add(e.getChannel)
+      super.channelOpen(ctx, e)
+   }
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      e.getMessage match {
+         case b: ChannelBuffer if b.readable => {
+            val decoder =
+               if (b.getUnsignedByte(b.readerIndex) == MemcachedBinaryDecoder.REQUEST_MAGIC)
+                  server.createBinaryDecoder
+               else
+                  server.createTextDecoder
+            val pipeline = ctx.getPipeline
+            pipeline.addAfter(ctx.getName, "memcachedDecoder", decoder)
+            pipeline.remove(this)
+            // Forward the bytes read so far to the decoder
+            ctx.sendUpstream(e)
+         }
+         case _ => ctx.sendUpstream(e)
+      }
+   }
+}
@@ -29,6 +29,7 @@ import java.util.Properties
 import org.infinispan.server.memcached.configuration.MemcachedServerConfiguration
 import org.infinispan.AdvancedCache
 import org.infinispan.configuration.cache.ConfigurationBuilder
+import org.jboss.netty.channel.ChannelHandler
 
 /**
  * Memcached server defining its decoder/encoder settings. In fact, Memcached does not use an encoder since there's
@@ -53,12 +54,26 @@ class MemcachedServer extends AbstractProtocolServer("Memcached") {
 
    override def getEncoder = null
 
-   override def getDecoder: MemcachedDecoder = {
+   override def getDecoder: ChannelHandler = new MemcachedProtocolDetector(this, transport)
+
+   /**
+    * Creates the decoder of a connection using the text protocol.
+    */
+   def createTextDecoder: ChannelHandler = {
       val dec = new MemcachedDecoder(memcachedCache, scheduler, transport)
       dec.versionGenerator = this.versionGenerator
       dec
    }
 
+   /**
+    * Creates the decoder of a connection using the binary protocol.
+    */
+   def createBinaryDecoder: ChannelHandler = {
+      val dec = new MemcachedBinaryDecoder(memcachedCache, scheduler, transport, configuration.maxBodyLength)
+      dec.versionGenerator = this.versionGenerator
+      dec
+   }
+
    override def stop {
       super.stop
       scheduler.shutdown()
@@ -20,6 +20,8 @@
 
 import org.infinispan.configuration.Builder;
 import org.infinispan.server.core.configuration.ProtocolServerConfigurationBuilder;
+import org.infinispan.server.memcached.logging.JavaLog;
+import org.infinispan.util.logging.LogFactory;
 
 /**
  * MemcachedServerConfigurationBuilder.
@@ -29,7 +31,10 @@
  */
 public class MemcachedServerConfigurationBuilder extends ProtocolServerConfigurationBuilder<MemcachedServerConfiguration, MemcachedServerConfigurationBuilder> implements
       Builder<MemcachedServerConfiguration> {
+   private static final JavaLog log = LogFactory.getLog(MemcachedServerConfigurationBuilder.class, JavaLog.class);
+   public static final int DEFAULT_MAX_BODY_LENGTH = 1024 * 1024;
    private String cache = "memcachedCache";
+   private int maxBodyLength = DEFAULT_MAX_BODY_LENGTH;
 
    public MemcachedServerConfigurationBuilder() {
       super(11211);
@@ -45,9 +50,26 @@ public MemcachedServerConfigurationBuilder cache(String cache) {
       return this;
    }
 
+   /**
+    * Sets the maximum length, in bytes, of the body (extras, key and value) of a binary protocol request. Requests
+    * declaring a longer body are rejected before any of their body is buffered. Defaults to 1 MB.
+    */
+   public MemcachedServerConfigurationBuilder maxBodyLength(int maxBodyLength) {
+      this.maxBodyLength = maxBodyLength;
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (maxBodyLength <= 0) {
+         throw log.illegalMaxBodyLength(maxBodyLength);
+      }
+   }
+
    @Override
    public MemcachedServerConfiguration create() {
-      return new MemcachedServerConfiguration(cache, name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads);
+      return new MemcachedServerConfiguration(cache, maxBodyLength, name, host, port, idleTimeout, recvBufSize, sendBufSize, ssl.create(), tcpNoDelay, workerThreads);
    }
 
    public MemcachedServerConfiguration build(boolean validate) {
@@ -66,6 +88,7 @@ public MemcachedServerConfiguration build() {
    public Builder<?> read(MemcachedServerConfiguration template) {
       super.read(template);
       this.cache = template.cache();
+      this.maxBodyLength = template.maxBodyLength();
       return this;
    }
 }
@@ -22,6 +22,7 @@
 
 package org.infinispan.server.memcached.logging;
 
+import org.jboss.logging.Message;
 import org.jboss.logging.MessageLogger;
 
 /**
@@ -33,4 +34,7 @@
  */
 @MessageLogger(projectCode = "ISPN")
 public interface JavaLog extends org.infinispan.util.logging.Log {
+
+   @Message(value = "Maximum request body length must be greater than 0: %d", id = 11001)
+   IllegalArgumentException illegalMaxBodyLength(int maxBodyLength);
 }
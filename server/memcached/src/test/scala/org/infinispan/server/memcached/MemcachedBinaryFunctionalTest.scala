@@ -0,0 +1,288 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import java.lang.reflect.Method
+import java.net.Socket
+import java.nio.ByteBuffer
+import java.io.DataInputStream
+import java.util.concurrent.TimeUnit
+import net.spy.memcached.{CASResponse, MemcachedClient}
+import org.infinispan.server.memcached.configuration.MemcachedServerConfigurationBuilder
+import org.infinispan.test.TestingUtil._
+import org.testng.Assert._
+import org.testng.annotations.{AfterClass, Test}
+import scala.collection.JavaConversions._
+import test.MemcachedTestingUtil._
+import MemcachedBinaryDecoder._
+
+/**
+ * Tests the binary Memcached protocol, which is detected on the same port as the text protocol.
+ *
+ * @since 5.3
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedBinaryFunctionalTest")
+class MemcachedBinaryFunctionalTest extends MemcachedSingleNodeTest {
+
+   private lazy val binaryClient: MemcachedClient = createMemcachedBinaryClient(60000, server.getPort)
+
+   @AfterClass(alwaysRun = true)
+   def shutdownBinaryClient() {
+      killMemcachedClient(binaryClient)
+   }
+
+   def testSetAndGet(m: Method) {
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m))
+      assertNull(binaryClient.get(k(m, "missing-")))
+   }
+
+   def testSetWithExpirySeconds(m: Method) {
+      assertTrue(binaryClient.set(k(m), 1, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      sleepThread(1100)
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testGetBulk(m: Method) {
+      val keys = for (i <- 0 until 50) yield k(m, "k" + i + "-")
+      for (i <- 0 until 50 by 2)
+         assertTrue(binaryClient.set(keys(i), 0, v(m, "v" + i + "-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val found = binaryClient.getBulk(seqAsJavaList(keys))
+      assertEquals(found.size, 25)
+      for (i <- 0 until 50 by 2)
+         assertEquals(found.get(keys(i)), v(m, "v" + i + "-"))
+   }
+
+   def testAddAndReplace(m: Method) {
+      assertFalse(binaryClient.replace(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.add(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertFalse(binaryClient.add(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.replace(k(m), 0, v(m, "v2-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m, "v2-"))
+   }
+
+   def testCas(m: Method) {
+      assertEquals(binaryClient.cas(k(m), 1, v(m)), CASResponse.NOT_FOUND)
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val value = binaryClient.gets(k(m))
+      assertEquals(value.getValue, v(m))
+      assertTrue(value.getCas != 0)
+      assertEquals(binaryClient.cas(k(m), value.getCas, v(m, "v1-")), CASResponse.OK)
+      assertEquals(binaryClient.cas(k(m), value.getCas, v(m, "v2-")), CASResponse.EXISTS)
+      assertEquals(binaryClient.get(k(m)), v(m, "v1-"))
+   }
+
+   def testDelete(m: Method) {
+      assertFalse(binaryClient.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testIncrementAndDecrement(m: Method) {
+      assertEquals(binaryClient.incr(k(m), 1), -1)
+      assertEquals(binaryClient.incr(k(m), 1, 10), 10)
+      assertEquals(binaryClient.incr(k(m), 5), 15)
+      assertEquals(binaryClient.decr(k(m), 3), 12)
+      assertEquals(binaryClient.decr(k(m), 20), 0)
+      // Counters are stored as text, as with the text protocol
+      assertEquals(client.get(k(m)), "0")
+   }
+
+   def testAppendAndPrepend(m: Method) {
+      assertFalse(binaryClient.append(0, k(m), v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.append(0, k(m), v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.prepend(0, k(m), v(m, "v2-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m, "v2-") + v(m) + v(m, "v1-"))
+   }
+
+   def testFlush(m: Method) {
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.flush().get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testVersion {
+      val versions = binaryClient.getVersions
+      assertEquals(versions.size, 1)
+      assertEquals(versions.values.iterator.next, org.infinispan.Version.VERSION)
+   }
+
+   def testTextAndBinaryShareEntries(m: Method) {
+      assertTrue(binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val value = client.gets(k(m))
+      assertEquals(value.getValue, v(m))
+      assertEquals(binaryClient.cas(k(m), value.getCas, v(m, "v1-")), CASResponse.OK)
+      assertEquals(client.get(k(m)), v(m, "v1-"))
+   }
+
+   def testTextCasOnBinaryEntry(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val value = binaryClient.gets(k(m))
+      assertEquals(value.getValue, v(m))
+      assertEquals(client.cas(k(m), value.getCas, v(m, "v1-")), CASResponse.OK)
+      assertEquals(binaryClient.cas(k(m), value.getCas, v(m, "v2-")), CASResponse.EXISTS)
+      assertEquals(binaryClient.get(k(m)), v(m, "v1-"))
+   }
+
+   def testQuietWrites(m: Method) {
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         val out = socket.getOutputStream
+         // A successful quiet set, a failing quiet delete and a no-op, sent at once
+         out.write(request(SETQ, k(m), 1, new Array[Byte](8), v(m).getBytes)
+               ++ request(DELETEQ, k(m, "missing-"), 2) ++ request(NOOP, "", 3))
+         out.flush()
+         val in = new DataInputStream(socket.getInputStream)
+         // Only the failure and the no-op get a response
+         assertResponseStatus(in, DELETEQ, 2, KEY_NOT_FOUND)
+         assertResponse(in, NOOP, 3, "", "")
+      } finally {
+         socket.close()
+      }
+      assertEquals(client.get(k(m)), v(m))
+   }
+
+   def testQuietGetsPipelined(m: Method) {
+      assertTrue(binaryClient.set(k(m, "k1-"), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.set(k(m, "k3-"), 0, v(m, "v3-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         val out = socket.getOutputStream
+         // Three quiet gets and a no-op, sent at once
+         out.write(request(GETKQ, k(m, "k1-"), 1) ++ request(GETKQ, k(m, "k2-"), 2)
+               ++ request(GETKQ, k(m, "k3-"), 3) ++ request(NOOP, "", 4))
+         out.flush()
+         val in = new DataInputStream(socket.getInputStream)
+         // Only the hits and the no-op get a response
+         assertResponse(in, GETKQ, 1, k(m, "k1-"), v(m, "v1-"))
+         assertResponse(in, GETKQ, 3, k(m, "k3-"), v(m, "v3-"))
+         assertResponse(in, NOOP, 4, "", "")
+      } finally {
+         socket.close()
+      }
+   }
+
+   def testUnknownCommand {
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         socket.getOutputStream.write(request(0x1b, "", 7))
+         val in = new DataInputStream(socket.getInputStream)
+         assertEquals(in.readUnsignedByte, RESPONSE_MAGIC)
+         assertEquals(in.readUnsignedByte, 0x1b)
+         in.readInt() // key length, extras length and data type
+         assertEquals(in.readUnsignedShort, UNKNOWN_COMMAND)
+      } finally {
+         socket.close()
+      }
+   }
+
+   def testHugeDeclaredBodyRejectedBeforeItArrives(m: Method) {
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         // Only the header, claiming a 2 GB body, which must be rejected without waiting for, or allocating, the body
+         val header = request(SET, k(m), 5, new Array[Byte](8), Array[Byte]())
+         ByteBuffer.wrap(header).putInt(8, Integer.MAX_VALUE)
+         socket.getOutputStream.write(header, 0, HEADER_LENGTH + 8 + k(m).length)
+         socket.getOutputStream.flush()
+         assertResponseStatus(new DataInputStream(socket.getInputStream), SET, 5, VALUE_TOO_LARGE)
+      } finally {
+         socket.close()
+      }
+      assertNull(client.get(k(m)))
+   }
+
+   def testBodyOverLimitSkipped(m: Method) {
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         val out = socket.getOutputStream
+         val tooLarge = request(SET, k(m), 1, new Array[Byte](8),
+            new Array[Byte](MemcachedServerConfigurationBuilder.DEFAULT_MAX_BODY_LENGTH))
+         // The rejected body is skipped as it arrives, and the connection keeps serving the following requests
+         for (offset <- 0 until tooLarge.length by 65536)
+            out.write(tooLarge, offset, math.min(65536, tooLarge.length - offset))
+         out.write(request(SETQ, k(m), 2, new Array[Byte](8), v(m).getBytes) ++ request(NOOP, "", 3))
+         out.flush()
+         val in = new DataInputStream(socket.getInputStream)
+         assertResponseStatus(in, SET, 1, VALUE_TOO_LARGE)
+         assertResponse(in, NOOP, 3, "", "")
+      } finally {
+         socket.close()
+      }
+      assertEquals(client.get(k(m)), v(m))
+   }
+
+   private def request(opcode: Int, key: String, opaque: Int): Array[Byte] =
+      request(opcode, key, opaque, Array[Byte](), Array[Byte]())
+
+   private def request(opcode: Int, key: String, opaque: Int, extras: Array[Byte], value: Array[Byte]): Array[Byte] = {
+      val keyBytes = key.getBytes
+      val bodyLength = extras.length + keyBytes.length + value.length
+      val buf = ByteBuffer.allocate(HEADER_LENGTH + bodyLength)
+      buf.put(REQUEST_MAGIC.toByte)
+      buf.put(opcode.toByte)
+      buf.putShort(keyBytes.length.toShort)
+      buf.put(extras.length.toByte)
+      buf.put(0.toByte) // data type
+      buf.putShort(0) // vbucket id
+      buf.putInt(bodyLength)
+      buf.putInt(opaque)
+      buf.putLong(0) // cas
+      buf.put(extras)
+      buf.put(keyBytes)
+      buf.put(value)
+      buf.array()
+   }
+
+   private def assertResponseStatus(in: DataInputStream, opcode: Int, opaque: Int, status: Int) {
+      assertEquals(in.readUnsignedByte, RESPONSE_MAGIC)
+      assertEquals(in.readUnsignedByte, opcode)
+      in.readUnsignedShort // key length
+      in.readUnsignedByte // extras length
+      in.readUnsignedByte // data type
+      assertEquals(in.readUnsignedShort, status)
+      val bodyLength = in.readInt
+      assertEquals(in.readInt, opaque)
+      in.readLong // cas
+      in.readFully(new Array[Byte](bodyLength))
+   }
+
+   private def assertResponse(in: DataInputStream, opcode: Int, opaque: Int, key: String, value: String) {
+      assertEquals(in.readUnsignedByte, RESPONSE_MAGIC)
+      assertEquals(in.readUnsignedByte, opcode)
+      val keyLength = in.readUnsignedShort
+      val extrasLength = in.readUnsignedByte
+      in.readUnsignedByte // data type
+      assertEquals(in.readUnsignedShort, NO_ERROR)
+      val bodyLength = in.readInt
+      assertEquals(in.readInt, opaque)
+      in.readLong // cas
+      val body = new Array[Byte](bodyLength)
+      in.readFully(body)
+      assertEquals(new String(body, extrasLength, keyLength), key)
+      // Values stored by the client are serialized strings, so only check they're contained
+      val storedValue = new String(body, extrasLength + keyLength, bodyLength - extrasLength - keyLength)
+      assertTrue(storedValue.contains(value), storedValue + " does not contain " + value)
+   }
+}
@@ -0,0 +1,241 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import java.io.{DataInputStream, BufferedInputStream}
+import java.lang.reflect.Method
+import java.net.Socket
+import java.nio.ByteBuffer
+import java.util.{Random, Arrays}
+import java.util.concurrent.TimeUnit
+import net.spy.memcached.MemcachedClient
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.server.core.transport.ExtendedChannelBuffer.ZeroCopyThreshold
+import org.infinispan.server.memcached.configuration.MemcachedServerConfigurationBuilder
+import org.infinispan.test.TestingUtil.k
+import org.testng.Assert._
+import org.testng.annotations.{AfterClass, Test}
+import test.MemcachedTestingUtil._
+import test.UniquePortThreadLocal
+import MemcachedBinaryDecoder._
+
+/**
+ * Tests values sent by reference rather than copied into the responses of both protocols, see
+ * [[org.infinispan.server.core.transport.ExtendedChannelBuffer.ZeroCopyThreshold]].
+ *
+ * @since 5.3
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedZeroCopyTest")
+class MemcachedZeroCopyTest extends MemcachedSingleNodeTest {
+
+   private val sizes = Seq(ZeroCopyThreshold - 1, ZeroCopyThreshold, ZeroCopyThreshold + 1, 512 * 1024)
+
+   private val splitSizes = Seq(ZeroCopyThreshold - 1, ZeroCopyThreshold + 1, 64 * 1024)
+
+   private lazy val binaryClient: MemcachedClient = createMemcachedBinaryClient(60000, server.getPort)
+
+   override protected def startServer(cacheManager: EmbeddedCacheManager): MemcachedServer =
+      // Some binary requests carry 16 MB values
+      startMemcachedTextServer(cacheManager, new MemcachedServerConfigurationBuilder()
+            .port(UniquePortThreadLocal.get.intValue).maxBodyLength(32 * 1024 * 1024))
+
+   @AfterClass(alwaysRun = true)
+   def shutdownBinaryClient() {
+      killMemcachedClient(binaryClient)
+   }
+
+   def testTextValuesAroundThreshold(m: Method) {
+      roundTrip(m, client)
+   }
+
+   def testBinaryValuesAroundThreshold(m: Method) {
+      roundTrip(m, binaryClient)
+   }
+
+   private def roundTrip(m: Method, c: MemcachedClient) {
+      for (size <- sizes) {
+         val key = k(m, size + "-")
+         val value = randomValue(size)
+         assertTrue(c.set(key, 0, value).get(timeout, TimeUnit.SECONDS).booleanValue)
+         assertTrue(Arrays.equals(c.get(key).asInstanceOf[Array[Byte]], value))
+         assertTrue(Arrays.equals(c.gets(key).getValue.asInstanceOf[Array[Byte]], value))
+         // Multi-get responses carry several values
+         val bulk = c.getBulk(key, k(m, "missing-"))
+         assertEquals(bulk.size, 1)
+         assertTrue(Arrays.equals(bulk.get(key).asInstanceOf[Array[Byte]], value))
+      }
+   }
+
+   def testTextValuesSplitAcrossReads(m: Method) {
+      for (size <- splitSizes) {
+         val key = k(m, size + "-")
+         val value = randomValue(size)
+         val request = ("set " + key + " 0 0 " + value.length + "\r\n").getBytes ++ value ++ "\r\n".getBytes
+         val socket = new Socket(server.getHost, server.getPort)
+         try {
+            assertEquals(readLine(sendInPieces(socket, request)), "STORED")
+         } finally {
+            socket.close()
+         }
+         assertTrue(Arrays.equals(cache.get(key).asInstanceOf[Array[Byte]], value))
+      }
+   }
+
+   def testBinaryValuesSplitAcrossReads(m: Method) {
+      for (size <- splitSizes) {
+         val key = k(m, size + "-")
+         val value = randomValue(size)
+         val socket = new Socket(server.getHost, server.getPort)
+         try {
+            val in = sendInPieces(socket, request(SET, key, new Array[Byte](8), value))
+            assertEquals(in.readUnsignedByte, RESPONSE_MAGIC)
+            assertEquals(in.readUnsignedByte, SET)
+            in.skipBytes(4)
+            assertEquals(in.readUnsignedShort, NO_ERROR)
+         } finally {
+            socket.close()
+         }
+         assertTrue(Arrays.equals(cache.get(key).asInstanceOf[Array[Byte]], value))
+      }
+   }
+
+   /**
+    * Writes the request in small pieces with pauses in between, so that the decoder receives it in several reads.
+    *
+    * @return the stream to read the response from
+    */
+   private def sendInPieces(socket: Socket, request: Array[Byte]): DataInputStream = {
+      socket.setTcpNoDelay(true)
+      val out = socket.getOutputStream
+      for (offset <- 0 until request.length by 1000) {
+         out.write(request, offset, math.min(1000, request.length - offset))
+         out.flush()
+         Thread.sleep(5)
+      }
+      new DataInputStream(new BufferedInputStream(socket.getInputStream))
+   }
+
+   def testTextReplacedWhileResponseIsWritten(m: Method) {
+      textGetWhileModified(m, value => cache.put(k(m), randomValue(value.length)))
+   }
+
+   def testTextRemovedWhileResponseIsWritten(m: Method) {
+      textGetWhileModified(m, value => cache.remove(k(m)))
+   }
+
+   def testBinaryReplacedWhileResponseIsWritten(m: Method) {
+      binaryGetWhileModified(m, value => cache.put(k(m), randomValue(value.length)))
+   }
+
+   def testBinaryRemovedWhileResponseIsWritten(m: Method) {
+      binaryGetWhileModified(m, value => cache.remove(k(m)))
+   }
+
+   private def textGetWhileModified(m: Method, modify: Array[Byte] => Unit) {
+      // Larger than the socket buffers, so that the response is still being written when the entry changes
+      val value = randomValue(16 * 1024 * 1024)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         val out = socket.getOutputStream
+         val in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+         out.write(("set " + k(m) + " 0 0 " + value.length + "\r\n").getBytes)
+         out.write(value)
+         out.write("\r\n".getBytes)
+         assertEquals(readLine(in), "STORED")
+         out.write(("get " + k(m) + "\r\n").getBytes)
+         assertEquals(readLine(in), "VALUE " + k(m) + " 0 " + value.length) // the response is being written
+         modify(value)
+         val data = new Array[Byte](value.length)
+         in.readFully(data)
+         assertTrue(Arrays.equals(data, value), "The response should hold the value read, not the modified one")
+         assertEquals(readLine(in), "")
+         assertEquals(readLine(in), "END")
+      } finally {
+         socket.close()
+      }
+   }
+
+   private def binaryGetWhileModified(m: Method, modify: Array[Byte] => Unit) {
+      val value = randomValue(16 * 1024 * 1024)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         val out = socket.getOutputStream
+         val in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+         out.write(request(SET, k(m), new Array[Byte](8), value))
+         assertEquals(in.readUnsignedByte, RESPONSE_MAGIC)
+         in.skipBytes(5)
+         assertEquals(in.readUnsignedShort, NO_ERROR)
+         in.skipBytes(in.readInt + 12)
+         out.write(request(GET, k(m), Array[Byte](), Array[Byte]()))
+         assertEquals(in.readUnsignedByte, RESPONSE_MAGIC) // the response is being written
+         modify(value)
+         assertEquals(in.readUnsignedByte, GET)
+         in.skipBytes(2) // key length
+         val extrasLength = in.readUnsignedByte
+         in.skipBytes(1) // data type
+         assertEquals(in.readUnsignedShort, NO_ERROR)
+         val data = new Array[Byte](in.readInt - extrasLength)
+         in.skipBytes(12 + extrasLength) // opaque, cas and flags
+         in.readFully(data)
+         assertTrue(Arrays.equals(data, value), "The response should hold the value read, not the modified one")
+      } finally {
+         socket.close()
+      }
+   }
+
+   private def request(opcode: Int, key: String, extras: Array[Byte], value: Array[Byte]): Array[Byte] = {
+      val keyBytes = key.getBytes
+      val bodyLength = extras.length + keyBytes.length + value.length
+      val buf = ByteBuffer.allocate(HEADER_LENGTH + bodyLength)
+      buf.put(REQUEST_MAGIC.toByte)
+      buf.put(opcode.toByte)
+      buf.putShort(keyBytes.length.toShort)
+      buf.put(extras.length.toByte)
+      buf.put(0.toByte) // data type
+      buf.putShort(0) // vbucket id
+      buf.putInt(bodyLength)
+      buf.putInt(0) // opaque
+      buf.putLong(0) // cas
+      buf.put(extras)
+      buf.put(keyBytes)
+      buf.put(value)
+      buf.array()
+   }
+
+   private def readLine(in: DataInputStream): String = {
+      val line = new StringBuilder
+      var c = in.readUnsignedByte
+      while (c != '\n') {
+         if (c != '\r') line.append(c.toChar)
+         c = in.readUnsignedByte
+      }
+      line.toString()
+   }
+
+   private def randomValue(size: Int): Array[Byte] = {
+      val value = new Array[Byte](size)
+      new Random().nextBytes(value)
+      value
+   }
+
+}
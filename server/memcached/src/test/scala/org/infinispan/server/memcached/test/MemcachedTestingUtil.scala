@@ -22,7 +22,7 @@
  */
 package org.infinispan.server.memcached.test
 
-import net.spy.memcached.{DefaultConnectionFactory, MemcachedClient}
+import net.spy.memcached.{BinaryConnectionFactory, DefaultConnectionFactory, MemcachedClient}
 import java.net.InetSocketAddress
 import java.util.concurrent.atomic.AtomicInteger
 import org.infinispan.server.memcached.{MemcachedDecoder, MemcachedServer}
@@ -48,12 +48,22 @@ object MemcachedTestingUtil extends Log {
       new MemcachedClient(d, util.Arrays.asList(new InetSocketAddress(host, port)))
    }
 
+   def createMemcachedBinaryClient(timeout: Long, port: Int): MemcachedClient = {
+      val d: BinaryConnectionFactory = new BinaryConnectionFactory {
+         override def getOperationTimeout: Long = timeout
+      }
+      new MemcachedClient(d, util.Arrays.asList(new InetSocketAddress(host, port)))
+   }
+
    def startMemcachedTextServer(cacheManager: EmbeddedCacheManager): MemcachedServer =
       startMemcachedTextServer(cacheManager, UniquePortThreadLocal.get.intValue)
 
-   def startMemcachedTextServer(cacheManager: EmbeddedCacheManager, port: Int): MemcachedServer = {
+   def startMemcachedTextServer(cacheManager: EmbeddedCacheManager, port: Int): MemcachedServer =
+      startMemcachedTextServer(cacheManager, new MemcachedServerConfigurationBuilder().port(port))
+
+   def startMemcachedTextServer(cacheManager: EmbeddedCacheManager, builder: MemcachedServerConfigurationBuilder): MemcachedServer = {
       val server = new MemcachedServer
-      server.start(new MemcachedServerConfigurationBuilder().host(host).port(port).build(), cacheManager)
+      server.start(builder.host(host).build(), cacheManager)
       server
    }
 
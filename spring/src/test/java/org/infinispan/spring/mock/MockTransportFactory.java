@@ -34,6 +34,7 @@
 import org.infinispan.client.hotrod.configuration.Configuration;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.PipelinedRequest;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
@@ -70,6 +71,31 @@ public Transport getTransport(final byte[] key) {
       return null;
    }
 
+   @Override
+   public SocketAddress getServer(final byte[] key) {
+      return null;
+   }
+
+   @Override
+   public Transport getAddressTransport(final SocketAddress server) {
+      return null;
+   }
+
+   @Override
+   public Collection<SocketAddress> getServers() {
+      return null;
+   }
+
+   @Override
+   public boolean isPipeliningEnabled() {
+      return false;
+   }
+
+   @Override
+   public void sendPipelined(final byte[] key, final long messageId, final byte[] request,
+            final PipelinedRequest callback) {
+   }
+
    @Override
    public boolean isTcpNoDelay() {
       return false;
@@ -105,4 +131,12 @@ public ConsistentHashFactory getConsistentHashFactory() {
    public SSLContext getSSLContext() {
       return null;
    }
+
+   @Override
+   public void addServersAddedListener(final Runnable listener) {
+   }
+
+   @Override
+   public void removeServersAddedListener(final Runnable listener) {
+   }
 }